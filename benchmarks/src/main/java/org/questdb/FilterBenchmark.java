@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package org.questdb;
+
+import io.questdb.WorkerPoolAwareConfiguration;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Misc;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares single threaded filter with the filter executed on worker pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FilterBenchmark {
+    private static final Log LOG = LogFactory.getLog(FilterBenchmark.class);
+    private static final CairoConfiguration configuration = new DefaultCairoConfiguration(System.getProperty("java.io.tmpdir"));
+    private static final String QUERY = "select * from x where price > 0.99 and quantity < 100";
+    private static final int WORKER_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+    private CairoEngine engine;
+    private WorkerPool pool;
+    private RecordCursorFactory serialFactory;
+    private SqlExecutionContextImpl serialContext;
+    private RecordCursorFactory parallelFactory;
+    private SqlExecutionContextImpl parallelContext;
+
+    public static void main(String[] args) throws RunnerException, SqlException {
+        try (
+                CairoEngine engine = new CairoEngine(configuration);
+                SqlCompiler compiler = new SqlCompiler(engine)
+        ) {
+            final SqlExecutionContextImpl context = new SqlExecutionContextImpl(engine, 1)
+                    .with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+            compiler.compile("drop table if exists x", context);
+            compiler.compile(
+                    "create table x as (" +
+                            "select rnd_double() price, rnd_long(0, 10000, 0) quantity, timestamp_sequence(0, 1000) ts" +
+                            " from long_sequence(100000000)" +
+                            ") timestamp(ts) partition by DAY",
+                    context
+            );
+        }
+
+        Options opt = new OptionsBuilder()
+                .include(FilterBenchmark.class.getSimpleName())
+                .warmupIterations(2)
+                .measurementIterations(3)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+
+        LogFactory.INSTANCE.haltThread();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws SqlException {
+        engine = new CairoEngine(configuration);
+        serialContext = new SqlExecutionContextImpl(engine, 1).with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+        parallelContext = new SqlExecutionContextImpl(engine, WORKER_COUNT).with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+        try (SqlCompiler compiler = new SqlCompiler(engine)) {
+            serialFactory = compiler.compile(QUERY, serialContext).getRecordCursorFactory();
+            parallelFactory = compiler.compile(QUERY, parallelContext).getRecordCursorFactory();
+        }
+
+        pool = new WorkerPool(new WorkerPoolAwareConfiguration() {
+            @Override
+            public int[] getWorkerAffinity() {
+                final int[] affinity = new int[WORKER_COUNT];
+                for (int i = 0; i < WORKER_COUNT; i++) {
+                    affinity[i] = -1;
+                }
+                return affinity;
+            }
+
+            @Override
+            public int getWorkerCount() {
+                return WORKER_COUNT;
+            }
+
+            @Override
+            public boolean haltOnError() {
+                return false;
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+        });
+        pool.assign(new PageFrameFilterJob(engine.getMessageBus()));
+        pool.start(LOG);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.halt();
+        Misc.free(serialFactory);
+        Misc.free(parallelFactory);
+        Misc.free(engine);
+    }
+
+    @Benchmark
+    public long testParallel() throws SqlException {
+        return count(parallelFactory, parallelContext);
+    }
+
+    @Benchmark
+    public long testSerial() throws SqlException {
+        return count(serialFactory, serialContext);
+    }
+
+    private static long count(RecordCursorFactory factory, SqlExecutionContextImpl context) throws SqlException {
+        long count = 0;
+        try (RecordCursor cursor = factory.getCursor(context)) {
+            while (cursor.hasNext()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
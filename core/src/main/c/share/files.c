@@ -248,6 +248,30 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync(JNIEnv *e, jclass cl, jlo
     return fsync((int) fd);
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_hardLink0(JNIEnv *e, jclass cl, jlong lpszSrc, jlong lpszHardLink) {
+    if (lpszSrc == 0 || lpszHardLink == 0) {
+        return -1;
+    }
+    return link((const char *) lpszSrc, (const char *) lpszHardLink);
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0(JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    // advice constants in Files match POSIX_MADV_* values on Linux, OSX and FreeBSD
+    return posix_madvise((void *) address, (size_t) len, advice);
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_readAhead0(JNIEnv *e, jclass cl, jlong fd, jlong offset, jlong len) {
+    // starts reading the range into page cache and returns without waiting for IO
+#ifdef __APPLE__
+    struct radvisory ra;
+    ra.ra_offset = (off_t) offset;
+    ra.ra_count = (int) len;
+    return fcntl((int) fd, F_RDADVISE, &ra);
+#else
+    return posix_fadvise((int) fd, (off_t) offset, (off_t) len, POSIX_FADV_WILLNEED);
+#endif
+}
+
 JNIEXPORT jboolean JNICALL Java_io_questdb_std_Files_remove
         (JNIEnv *e, jclass cl, jlong lpsz) {
     return (jboolean) (remove((const char *) lpsz) == 0);
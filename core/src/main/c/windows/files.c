@@ -158,6 +158,27 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_msync(JNIEnv *e, jclass cl, jlo
     return 0;
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_hardLink0(JNIEnv *e, jclass cl, jlong lpszSrc, jlong lpszHardLink) {
+    if (lpszSrc == 0 || lpszHardLink == 0) {
+        return -1;
+    }
+    if (CreateHardLink((const char *) lpszHardLink, (const char *) lpszSrc, NULL) == FALSE) {
+        SaveLastError();
+        return -1;
+    }
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0(JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    // there is no equivalent of access pattern hints, we leave read-ahead to the OS
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_readAhead0(JNIEnv *e, jclass cl, jlong fd, jlong offset, jlong len) {
+    // there is no fd based read-ahead hint, caller falls back to advising the mapping
+    return -1;
+}
+
 JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync(JNIEnv *e, jclass cl, jlong fd) {
     // Windows does not seem to have fsync or cannot fsync directory.
     // To be fair we never saw our destructive test fail on windows,
@@ -89,6 +89,12 @@ public interface MessageBus extends Closeable {
 
     MCSequence getO3PurgeSubSeq();
 
+    MPSequence getPageFrameFilterPubSeq();
+
+    RingQueue<PageFrameFilterTask> getPageFrameFilterQueue();
+
+    MCSequence getPageFrameFilterSubSeq();
+
     MPSequence getTableWriterCommandPubSeq();
 
     RingQueue<TableWriterTask> getTableWriterCommandQueue();
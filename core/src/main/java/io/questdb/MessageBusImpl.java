@@ -64,6 +64,10 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence o3CopyPubSeq;
     private final MCSequence o3CopySubSeq;
 
+    private final RingQueue<PageFrameFilterTask> pageFrameFilterQueue;
+    private final MPSequence pageFrameFilterPubSeq;
+    private final MCSequence pageFrameFilterSubSeq;
+
     private final RingQueue<LatestByTask> latestByQueue;
     private final MPSequence latestByPubSeq;
     private final MCSequence latestBySubSeq;
@@ -119,6 +123,11 @@ public class MessageBusImpl implements MessageBus {
         this.o3PurgeSubSeq = new MCSequence(this.o3PurgeQueue.getCycle());
         this.o3PurgePubSeq.then(this.o3PurgeSubSeq).then(this.o3PurgePubSeq);
 
+        this.pageFrameFilterQueue = new RingQueue<>(PageFrameFilterTask::new, configuration.getPageFrameFilterQueueCapacity());
+        this.pageFrameFilterPubSeq = new MPSequence(pageFrameFilterQueue.getCycle());
+        this.pageFrameFilterSubSeq = new MCSequence(pageFrameFilterQueue.getCycle());
+        pageFrameFilterPubSeq.then(pageFrameFilterSubSeq).then(pageFrameFilterPubSeq);
+
         this.latestByQueue = new RingQueue<>(LatestByTask::new, configuration.getLatestByQueueCapacity());
         this.latestByPubSeq = new MPSequence(latestByQueue.getCycle());
         this.latestBySubSeq = new MCSequence(latestByQueue.getCycle());
@@ -272,6 +281,21 @@ public class MessageBusImpl implements MessageBus {
         return o3PurgeSubSeq;
     }
 
+    @Override
+    public MPSequence getPageFrameFilterPubSeq() {
+        return pageFrameFilterPubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+        return pageFrameFilterQueue;
+    }
+
+    @Override
+    public MCSequence getPageFrameFilterSubSeq() {
+        return pageFrameFilterSubSeq;
+    }
+
     @Override
     public MPSequence getTableWriterCommandPubSeq() {
         return tableWriterCommandPubSeq;
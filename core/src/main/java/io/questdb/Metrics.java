@@ -24,6 +24,7 @@
 
 package io.questdb;
 
+import io.questdb.cairo.DecodedColumnCacheMetrics;
 import io.questdb.cutlass.http.processors.JsonQueryMetrics;
 import io.questdb.metrics.MetricsRegistry;
 import io.questdb.metrics.MetricsRegistryImpl;
@@ -34,11 +35,13 @@ import io.questdb.std.str.CharSink;
 public class Metrics implements Scrapable {
     private final boolean enabled;
     private final JsonQueryMetrics jsonQuery;
+    private final DecodedColumnCacheMetrics decodedColumnCache;
     private final MetricsRegistry metricsRegistry;
 
     Metrics(boolean enabled, MetricsRegistry metricsRegistry) {
         this.enabled = enabled;
         this.jsonQuery = new JsonQueryMetrics(metricsRegistry);
+        this.decodedColumnCache = new DecodedColumnCacheMetrics(metricsRegistry);
         this.metricsRegistry = metricsRegistry;
     }
 
@@ -50,6 +53,10 @@ public class Metrics implements Scrapable {
         return new Metrics(false, new NullMetricsRegistry());
     }
 
+    public DecodedColumnCacheMetrics decodedColumnCache() {
+        return decodedColumnCache;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
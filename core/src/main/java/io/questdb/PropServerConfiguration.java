@@ -80,6 +80,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final CharSequence defaultMapType;
     private final boolean defaultSymbolCacheFlag;
     private final int defaultSymbolCapacity;
+    private final long decodedColumnCacheSize;
+    private final int decodedColumnCacheSegmentCount;
     private final int fileOperationRetryCount;
     private final long idleCheckInterval;
     private final long inactiveReaderTTL;
@@ -88,6 +90,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int maxSwapFileCount;
     private final int mkdirMode;
     private final int parallelIndexThreshold;
+    private final int bloomFilterBitsPerValue;
     private final int readerPoolMaxSegments;
     private final long spinLockTimeoutUs;
     private final int sqlCacheRows;
@@ -110,6 +113,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlSortKeyMaxPages;
     private final long sqlSortLightValuePageSize;
     private final int sqlSortLightValueMaxPages;
+    private final int sqlSortTopKMaxRows;
+    private final String sqlSpillRoot;
+    private final long sqlSpillThreshold;
     private final int sqlHashJoinValuePageSize;
     private final int sqlHashJoinValueMaxPages;
     private final long sqlLatestByRowCount;
@@ -119,6 +125,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlSortValueMaxPages;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
+    private final boolean postingIndexEnabled;
+    private final boolean partitionPrefetchEnabled;
+    private final CharSequenceObjHashMap<String> volumes;
     private final int sqlJoinMetadataPageSize;
     private final int sqlJoinMetadataMaxResizes;
     private final int lineUdpCommitRate;
@@ -350,6 +359,17 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int httpMinRcvBufSize;
     private int httpMinSndBufSize;
     private final int latestByQueueCapacity;
+    private final int pageFrameFilterQueueCapacity;
+    private final int sqlPageFrameMaxRows;
+    private final int sqlPageFrameReadAheadSize;
+    private final int columnDefaultPageRows;
+    private final boolean sqlParallelFilterEnabled;
+    private final boolean sqlFilterCompilerEnabled;
+    private final boolean sqlParallelGroupByEnabled;
+    private final boolean sqlParallelJoinEnabled;
+    private final boolean zoneMapEnabled;
+    private final int hotPartitionCount;
+    private final boolean walEnabled;
     private final int sampleByIndexSearchPageSize;
     private final int binaryEncodingMaxLength;
     private final long writerDataIndexKeyAppendPageSize;
@@ -569,6 +589,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.defaultMapType = getString(properties, env, "cairo.default.map.type", "fast");
             this.defaultSymbolCacheFlag = getBoolean(properties, env, "cairo.default.symbol.cache.flag", true);
             this.defaultSymbolCapacity = getInt(properties, env, "cairo.default.symbol.capacity", 256);
+            this.decodedColumnCacheSize = getLongSize(properties, env, "cairo.decoded.column.cache.size", 128 * 1024 * 1024);
+            this.decodedColumnCacheSegmentCount = getInt(properties, env, "cairo.decoded.column.cache.segment.count", 16);
             this.fileOperationRetryCount = getInt(properties, env, "cairo.file.operation.retry.count", 30);
             this.idleCheckInterval = getLong(properties, env, "cairo.idle.check.interval", 5 * 60 * 1000L);
             this.inactiveReaderTTL = getLong(properties, env, "cairo.inactive.reader.ttl", 120_000);
@@ -576,6 +598,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.indexValueBlockSize = Numbers.ceilPow2(getIntSize(properties, env, "cairo.index.value.block.size", 256));
             this.maxSwapFileCount = getInt(properties, env, "cairo.max.swap.file.count", 30);
             this.parallelIndexThreshold = getInt(properties, env, "cairo.parallel.index.threshold", 100000);
+            this.bloomFilterBitsPerValue = getInt(properties, env, "cairo.bloom.filter.bits.per.value", 10);
             this.readerPoolMaxSegments = getInt(properties, env, "cairo.reader.pool.max.segments", 5);
             this.spinLockTimeoutUs = getLong(properties, env, "cairo.spin.lock.timeout", 1_000_000);
             this.sqlCacheRows = getInt(properties, env, "cairo.cache.rows", 16);
@@ -597,6 +620,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlSortKeyMaxPages = getIntSize(properties, env, "cairo.sql.sort.key.max.pages", Integer.MAX_VALUE);
             this.sqlSortLightValuePageSize = getLongSize(properties, env, "cairo.sql.sort.light.value.page.size", 8 * 1048576);
             this.sqlSortLightValueMaxPages = getIntSize(properties, env, "cairo.sql.sort.light.value.max.pages", Integer.MAX_VALUE);
+            this.sqlSortTopKMaxRows = getInt(properties, env, "cairo.sql.sort.top.k.max.rows", 10_000);
+            this.sqlSpillRoot = getString(properties, env, "cairo.sql.spill.root", null);
+            this.sqlSpillThreshold = getLongSize(properties, env, "cairo.sql.spill.threshold", 256 * Numbers.SIZE_1MB);
             this.sqlHashJoinValuePageSize = getIntSize(properties, env, "cairo.sql.hash.join.value.page.size", 16777216);
             this.sqlHashJoinValueMaxPages = getIntSize(properties, env, "cairo.sql.hash.join.value.max.pages", Integer.MAX_VALUE);
             this.sqlLatestByRowCount = getInt(properties, env, "cairo.sql.latest.by.row.count", 1000);
@@ -606,6 +632,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlSortValueMaxPages = getIntSize(properties, env, "cairo.sql.sort.value.max.pages", Integer.MAX_VALUE);
             this.workStealTimeoutNanos = getLong(properties, env, "cairo.work.steal.timeout.nanos", 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, "cairo.parallel.indexing.enabled", true);
+            this.postingIndexEnabled = getBoolean(properties, env, "cairo.posting.index.enabled", false);
+            this.volumes = getVolumes(properties, env, "cairo.volumes");
+            this.partitionPrefetchEnabled = getBoolean(properties, env, "cairo.partition.prefetch.enabled", true);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, "cairo.sql.join.metadata.page.size", 16384);
             this.sqlJoinMetadataMaxResizes = getIntSize(properties, env, "cairo.sql.join.metadata.max.resizes", Integer.MAX_VALUE);
             this.sqlAnalyticColumnPoolCapacity = getInt(properties, env, "cairo.sql.analytic.column.pool.capacity", 64);
@@ -676,6 +705,17 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlAnalyticTreeKeyMaxPages = Numbers.ceilPow2(getInt(properties, env, "cairo.sql.analytic.tree.max.pages", Integer.MAX_VALUE));
             this.sqlTxnScoreboardEntryCount = Numbers.ceilPow2(getInt(properties, env, "cairo.o3.txn.scoreboard.entry.count", 16384));
             this.latestByQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.latestby.queue.capacity", 32));
+            this.pageFrameFilterQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.page.frame.filter.queue.capacity", 64));
+            this.sqlPageFrameMaxRows = getInt(properties, env, "cairo.sql.page.frame.max.rows", 1_000_000);
+            this.sqlPageFrameReadAheadSize = getIntSize(properties, env, "cairo.sql.page.frame.read.ahead.size", 0);
+            this.columnDefaultPageRows = getInt(properties, env, "cairo.column.default.page.rows", 64 * 1024);
+            this.sqlParallelFilterEnabled = getBoolean(properties, env, "cairo.sql.parallel.filter.enabled", true);
+            this.sqlFilterCompilerEnabled = getBoolean(properties, env, "cairo.sql.filter.compiler.enabled", true);
+            this.sqlParallelGroupByEnabled = getBoolean(properties, env, "cairo.sql.parallel.groupby.enabled", true);
+            this.sqlParallelJoinEnabled = getBoolean(properties, env, "cairo.sql.parallel.join.enabled", true);
+            this.zoneMapEnabled = getBoolean(properties, env, "cairo.zone.map.enabled", true);
+            this.hotPartitionCount = getInt(properties, env, "cairo.hot.partition.count", 0);
+            this.walEnabled = getBoolean(properties, env, "cairo.wal.enabled", false);
             this.telemetryEnabled = getBoolean(properties, env, "telemetry.enabled", true);
             this.telemetryDisableCompletely = getBoolean(properties, env, "telemetry.disable.completely", false);
             this.telemetryQueueCapacity = getInt(properties, env, "telemetry.queue.capacity", 512);
@@ -967,6 +1007,26 @@ public class PropServerConfiguration implements ServerConfiguration {
         return value;
     }
 
+    private CharSequenceObjHashMap<String> getVolumes(Properties properties, @Nullable Map<String, String> env, String key) throws ServerConfigurationException {
+        final CharSequenceObjHashMap<String> result = new CharSequenceObjHashMap<>();
+        final String value = overrideWithEnv(properties, env, key);
+        if (value != null) {
+            // alias->path, alias->path
+            for (String volume : value.split(",")) {
+                final int sep = volume.indexOf("->");
+                if (sep < 1) {
+                    throw new ServerConfigurationException(key, "invalid volume definition: " + volume);
+                }
+                final String alias = volume.substring(0, sep).trim();
+                final String volumePath = volume.substring(sep + 2).trim();
+                if (alias.length() == 0 || volumePath.length() == 0 || !result.put(alias, new File(volumePath).getAbsolutePath())) {
+                    throw new ServerConfigurationException(key, "invalid volume definition: " + volume);
+                }
+            }
+        }
+        return result;
+    }
+
     private DateFormat getTimestampFormat(Properties properties, @Nullable Map<String, String> env) {
         final String pattern = overrideWithEnv(properties, env, "cairo.sql.backup.dir.datetime.format");
         TimestampFormatCompiler compiler = new TimestampFormatCompiler();
@@ -1484,6 +1544,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlBindVariablePoolSize;
         }
 
+        @Override
+        public int getBloomFilterBitsPerValue() {
+            return bloomFilterBitsPerValue;
+        }
+
         @Override
         public int getO3PurgeDiscoveryQueueCapacity() {
             return o3PurgeDiscoveryQueueCapacity;
@@ -1529,6 +1594,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return defaultSymbolCapacity;
         }
 
+        @Override
+        public int getDecodedColumnCacheSegmentCount() {
+            return decodedColumnCacheSegmentCount;
+        }
+
+        @Override
+        public long getDecodedColumnCacheSize() {
+            return decodedColumnCacheSize;
+        }
+
         @Override
         public int getFileOperationRetryCount() {
             return fileOperationRetryCount;
@@ -1544,6 +1619,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return idleCheckInterval;
         }
 
+        @Override
+        public int getHotPartitionCount() {
+            return hotPartitionCount;
+        }
+
         @Override
         public long getInactiveReaderTTL() {
             return inactiveReaderTTL;
@@ -1604,6 +1684,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return root;
         }
 
+        @Override
+        public String getVolumePath(CharSequence alias) {
+            return volumes.get(alias);
+        }
+
         @Override
         public CharSequence getDbDirectory() {
             return dbDirectory;
@@ -1739,6 +1824,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortLightValueMaxPages;
         }
 
+        @Override
+        public int getSqlSortTopKMaxRows() {
+            return sqlSortTopKMaxRows;
+        }
+
+        @Override
+        public CharSequence getSqlSpillRoot() {
+            return sqlSpillRoot;
+        }
+
+        @Override
+        public long getSqlSpillThreshold() {
+            return sqlSpillThreshold;
+        }
+
         @Override
         public int getSqlHashJoinValuePageSize() {
             return sqlHashJoinValuePageSize;
@@ -1819,6 +1919,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isPartitionPrefetchEnabled() {
+            return partitionPrefetchEnabled;
+        }
+
+        @Override
+        public boolean isPostingIndexEnabled() {
+            return postingIndexEnabled;
+        }
+
         @Override
         public int getSqlJoinMetadataPageSize() {
             return sqlJoinMetadataPageSize;
@@ -1993,6 +2103,56 @@ public class PropServerConfiguration implements ServerConfiguration {
         public int getO3ColumnMemorySize() {
             return o3ColumnMemorySize;
         }
+
+        @Override
+        public int getPageFrameFilterQueueCapacity() {
+            return pageFrameFilterQueueCapacity;
+        }
+
+        @Override
+        public int getSqlPageFrameMaxRows() {
+            return sqlPageFrameMaxRows;
+        }
+
+        @Override
+        public int getSqlPageFrameReadAheadSize() {
+            return sqlPageFrameReadAheadSize;
+        }
+
+        @Override
+        public int getColumnDefaultPageRows() {
+            return columnDefaultPageRows;
+        }
+
+        @Override
+        public boolean isSqlParallelFilterEnabled() {
+            return sqlParallelFilterEnabled;
+        }
+
+        @Override
+        public boolean isSqlFilterCompilerEnabled() {
+            return sqlFilterCompilerEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelGroupByEnabled() {
+            return sqlParallelGroupByEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelJoinEnabled() {
+            return sqlParallelJoinEnabled;
+        }
+
+        @Override
+        public boolean isWalEnabled() {
+            return walEnabled;
+        }
+
+        @Override
+        public boolean isZoneMapEnabled() {
+            return zoneMapEnabled;
+        }
     }
 
     private class PropLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
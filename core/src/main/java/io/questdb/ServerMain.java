@@ -33,6 +33,7 @@ import io.questdb.cutlass.line.udp.LinuxMMLineUdpReceiver;
 import io.questdb.cutlass.pgwire.PGWireServer;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.MatViewRefreshJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
@@ -135,10 +136,24 @@ public class ServerMain {
         final ObjList<Closeable> instancesToClean = new ObjList<>();
 
         LogFactory.configureFromSystemProperties(workerPool);
-        final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration());
+
+        // engine reports decoded column cache metrics
+        Metrics metrics;
+        if (configuration.getMetricsConfiguration().isEnabled()) {
+            metrics = Metrics.enabled();
+        } else {
+            metrics = Metrics.disabled();
+        }
+
+        final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration(), metrics);
         workerPool.assign(cairoEngine.getWriterMaintenanceJob());
+        workerPool.assign(cairoEngine.getWalApplyJob());
         instancesToClean.add(cairoEngine);
 
+        final MatViewRefreshJob matViewRefreshJob = new MatViewRefreshJob(cairoEngine, functionFactoryCache);
+        workerPool.assign(matViewRefreshJob);
+        instancesToClean.add(matViewRefreshJob);
+
         if (!configuration.getCairoConfiguration().getTelemetryConfiguration().getDisableCompletely()) {
             final TelemetryJob telemetryJob = new TelemetryJob(cairoEngine, functionFactoryCache);
             instancesToClean.add(telemetryJob);
@@ -157,13 +172,6 @@ public class ServerMain {
         workerPool.assign(new O3PurgeJob(cairoEngine.getMessageBus()));
         O3Utils.initBuf(workerPool.getWorkerCount() + 1);
 
-        Metrics metrics;
-        if (configuration.getMetricsConfiguration().isEnabled()) {
-            metrics = Metrics.enabled();
-        } else {
-            metrics = Metrics.disabled();
-        }
-
         try {
             initQuestDb(workerPool, cairoEngine, log);
 
@@ -26,12 +26,21 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.PartitionPruner;
+import io.questdb.std.Files;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     protected final FullTableDataFrame frame = new FullTableDataFrame();
     protected TableReader reader;
     protected int partitionHi;
     protected int partitionIndex;
+    protected PartitionPruner pruner;
+    // rows of the open partition, which are yet to be checked against pruner
+    protected long partitionRowLo;
+    protected long partitionRowHi;
+    // partitions opened since cursor was put to top
+    protected int openedPartitionCount;
 
     @Override
     public void close() {
@@ -71,8 +80,43 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
         return this;
     }
 
+    public void setPartitionPruner(@Nullable PartitionPruner pruner) {
+        this.pruner = pruner;
+    }
+
+    /**
+     * Declares sequential read of the partition that has just been opened. Scan that went past
+     * its first partition is likely to read the following ones too, so the next partition pruner
+     * cannot skip is prefetched. The first partition is not prefetched not to penalise scans that
+     * stop early, e.g. with LIMIT.
+     */
+    protected void adviseSequentialScan(int partitionIndex, int nextPartitionIndex) {
+        reader.advisePartition(partitionIndex, Files.MADV_SEQUENTIAL);
+        if (openedPartitionCount++ > 0
+                && nextPartitionIndex > -1
+                && nextPartitionIndex < partitionHi
+                && (pruner == null || !pruner.canSkip(reader, nextPartitionIndex))) {
+            reader.prefetchPartition(nextPartitionIndex);
+        }
+    }
+
+    protected boolean canSkipBlock(int partitionIndex, long blockLo, long blockSize) {
+        return pruner.canSkipRows(reader, partitionIndex, blockLo, Math.min(blockLo + blockSize, partitionRowHi));
+    }
+
+    protected long getRowBlockSize() {
+        return pruner != null ? pruner.getRowBlockSize() : 0;
+    }
+
+    protected DataFrame of(int partitionIndex, long rowLo, long rowHi) {
+        frame.partitionIndex = partitionIndex;
+        frame.rowLo = rowLo;
+        frame.rowHi = rowHi;
+        return frame;
+    }
+
     protected class FullTableDataFrame implements DataFrame {
-        final static private long rowLo = 0;
+        protected long rowLo;
         protected long rowHi;
         protected int partitionIndex;
 
@@ -83,6 +83,17 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
         return valueMem.size();
     }
 
+    /**
+     * Index that is maintained incrementally, such as composite index, may lag behind column data.
+     *
+     * @return number of leading rows of partition the index covers
+     */
+    public long getIndexedRowCount() {
+        updateKeyCount();
+        final long maxValue = keyMem.getLong(BitmapIndexUtils.KEY_RESERVED_OFFSET_MAX_VALUE);
+        return keyCount > 0 ? maxValue + 1 : 0;
+    }
+
     public long getUnIndexedNullCount() {
         return unIndexedNullCount;
     }
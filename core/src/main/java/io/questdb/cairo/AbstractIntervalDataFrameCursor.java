@@ -26,11 +26,13 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.PartitionPruner;
 import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
 import io.questdb.std.LongList;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor {
     static final int SCAN_UP = -1;
@@ -50,6 +52,7 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
     protected long partitionLimit;
     protected long sizeSoFar = 0;
     protected long size = -1;
+    protected PartitionPruner pruner;
     private int initialIntervalsLo;
     private int initialIntervalsHi;
     private int initialPartitionLo;
@@ -102,6 +105,10 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
         return reader.getSymbolMapReader(columnIndex);
     }
 
+    public void setPartitionPruner(@Nullable PartitionPruner pruner) {
+        this.pruner = pruner;
+    }
+
     public void of(TableReader reader, SqlExecutionContext sqlContext) throws SqlException {
         this.reader = reader;
         this.intervals = this.intervalsModel.calculateIntervals(sqlContext);
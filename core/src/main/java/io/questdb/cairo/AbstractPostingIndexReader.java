@@ -0,0 +1,237 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+public abstract class AbstractPostingIndexReader implements BitmapIndexReader {
+    protected final static Log LOG = LogFactory.getLog(AbstractPostingIndexReader.class);
+    protected final MemoryMR keyMem = Vm.getMRInstance();
+    protected final MemoryMR valueMem = Vm.getMRInstance();
+    protected int keyCount;
+    protected long unIndexedNullCount;
+    private int keyCountIncludingNulls;
+    // index converted to bitmap index layout for the code that reads index memory directly
+    private long imageAddress;
+    private long imageKeyMemorySize;
+    private long imageValueMemorySize;
+
+    @Override
+    public void close() {
+        if (isOpen()) {
+            Misc.free(keyMem);
+            Misc.free(valueMem);
+        }
+        freeImage();
+    }
+
+    @Override
+    public int getKeyCount() {
+        return keyCountIncludingNulls;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return keyMem.getFd() != -1;
+    }
+
+    @Override
+    public long getKeyBaseAddress() {
+        materialize();
+        return imageAddress;
+    }
+
+    @Override
+    public long getKeyMemorySize() {
+        materialize();
+        return imageKeyMemorySize;
+    }
+
+    @Override
+    public long getValueBaseAddress() {
+        materialize();
+        return imageAddress + imageKeyMemorySize;
+    }
+
+    @Override
+    public long getValueMemorySize() {
+        materialize();
+        return imageValueMemorySize;
+    }
+
+    @Override
+    public long getUnIndexedNullCount() {
+        return unIndexedNullCount;
+    }
+
+    @Override
+    public int getValueBlockCapacity() {
+        return PostingIndexUtils.BLOCK_VALUE_COUNT - 1;
+    }
+
+    public void of(CairoConfiguration configuration, Path path, CharSequence name, long unIndexedNullCount, long partitionTxn) {
+        close();
+        this.unIndexedNullCount = unIndexedNullCount;
+        TableUtils.txnPartitionConditionally(path, partitionTxn);
+        final int plen = path.length();
+        try {
+            this.keyMem.wholeFile(configuration.getFilesFacade(), PostingIndexUtils.keyFileName(path, name), MemoryTag.MMAP_INDEX_READER);
+            if (this.keyMem.size() < PostingIndexUtils.KEY_FILE_RESERVED) {
+                LOG.error().$("file too short [corrupt] ").$(path).$();
+                throw CairoException.instance(0).put("Index file too short: ").put(path);
+            }
+
+            if (this.keyMem.getByte(PostingIndexUtils.HEADER_OFFSET_SIGNATURE) != PostingIndexUtils.SIGNATURE
+                    || this.keyMem.getInt(PostingIndexUtils.HEADER_OFFSET_BLOCK_VALUE_COUNT) != PostingIndexUtils.BLOCK_VALUE_COUNT) {
+                LOG.error().$("unknown format [corrupt] ").$(path).$();
+                throw CairoException.instance(0).put("Unknown format: ").put(path);
+            }
+
+            // index is immutable, there is no need to synchronise with writer
+            final int keyCount = this.keyMem.getInt(PostingIndexUtils.HEADER_OFFSET_KEY_COUNT);
+            final long valueMemSize = this.keyMem.getLong(PostingIndexUtils.HEADER_OFFSET_VALUE_MEM_SIZE);
+            if (this.keyMem.size() < PostingIndexUtils.getKeyEntryOffset(keyCount)) {
+                LOG.error().$("key file too short [corrupt] ").$(path).$();
+                throw CairoException.instance(0).put("Index file too short: ").put(path);
+            }
+
+            this.keyCount = this.keyCountIncludingNulls = keyCount;
+            if (unIndexedNullCount > 0) {
+                this.keyCountIncludingNulls++;
+            }
+            this.valueMem.of(configuration.getFilesFacade(), PostingIndexUtils.valueFileName(path.trimTo(plen), name), valueMemSize, valueMemSize, MemoryTag.MMAP_INDEX_READER);
+        } catch (Throwable e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    protected long getDirectoryAddress(int key) {
+        return valueMem.addressOf(keyMem.getLong(PostingIndexUtils.getKeyEntryOffset(key) + PostingIndexUtils.KEY_ENTRY_OFFSET_DIRECTORY_OFFSET));
+    }
+
+    protected long getLastValue(int key) {
+        return keyMem.getLong(PostingIndexUtils.getKeyEntryOffset(key) + PostingIndexUtils.KEY_ENTRY_OFFSET_LAST_VALUE);
+    }
+
+    protected long getValueCount(int key) {
+        return keyMem.getLong(PostingIndexUtils.getKeyEntryOffset(key) + PostingIndexUtils.KEY_ENTRY_OFFSET_VALUE_COUNT);
+    }
+
+    /**
+     * Decodes block of key values.
+     *
+     * @param values           array of at least {@link PostingIndexUtils#BLOCK_VALUE_COUNT} values
+     * @param directoryAddress address of key's block directory
+     * @param valueCount       total number of key values
+     * @param block            block index
+     * @return number of values in the block
+     */
+    protected int loadBlock(long[] values, long directoryAddress, long valueCount, int block) {
+        final long entryAddress = directoryAddress + block * PostingIndexUtils.DIRECTORY_ENTRY_SIZE;
+        final int count = PostingIndexUtils.getBlockValueCount(valueCount, block);
+        PostingIndexUtils.decodeBlock(
+                valueMem.addressOf(Unsafe.getUnsafe().getLong(entryAddress + Long.BYTES)),
+                Unsafe.getUnsafe().getLong(entryAddress),
+                count,
+                values
+        );
+        return count;
+    }
+
+    private void freeImage() {
+        if (imageAddress != 0) {
+            Unsafe.free(imageAddress, imageKeyMemorySize + imageValueMemorySize, MemoryTag.NATIVE_DEFAULT);
+            imageAddress = 0;
+            imageKeyMemorySize = 0;
+            imageValueMemorySize = 0;
+        }
+    }
+
+    private void materialize() {
+        if (imageAddress != 0) {
+            return;
+        }
+
+        final int blockValueCount = PostingIndexUtils.BLOCK_VALUE_COUNT;
+        final long blockSize = blockValueCount * Long.BYTES + BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED;
+        long blockCount = 0;
+        for (int key = 0; key < keyCount; key++) {
+            blockCount += PostingIndexUtils.getBlockCount(getValueCount(key));
+        }
+
+        // native code may look at the entry right after the last key, keep it zeroed
+        final long keyMemorySize = BitmapIndexUtils.KEY_FILE_RESERVED + (keyCount + 1) * BitmapIndexUtils.KEY_ENTRY_SIZE;
+        final long valueMemorySize = blockCount * blockSize;
+        final long address = Unsafe.calloc(keyMemorySize + valueMemorySize, MemoryTag.NATIVE_DEFAULT);
+        final long valueAddress = address + keyMemorySize;
+        final long[] values = new long[blockValueCount];
+
+        Unsafe.getUnsafe().putByte(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_SIGNATURE, BitmapIndexUtils.SIGNATURE);
+        Unsafe.getUnsafe().putLong(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_SEQUENCE, 1);
+        Unsafe.getUnsafe().putLong(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_VALUE_MEM_SIZE, valueMemorySize);
+        Unsafe.getUnsafe().putInt(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_BLOCK_VALUE_COUNT, blockValueCount);
+        Unsafe.getUnsafe().putLong(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_KEY_COUNT, keyCount);
+        Unsafe.getUnsafe().putLong(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_SEQUENCE_CHECK, 1);
+
+        long blockOffset = 0;
+        for (int key = 0; key < keyCount; key++) {
+            final long valueCount = getValueCount(key);
+            final long entryAddress = address + BitmapIndexUtils.getKeyEntryOffset(key);
+            final int keyBlockCount = PostingIndexUtils.getBlockCount(valueCount);
+            final long directoryAddress = keyBlockCount > 0 ? getDirectoryAddress(key) : 0;
+            final long firstBlockOffset = blockOffset;
+            for (int block = 0; block < keyBlockCount; block++) {
+                final int count = loadBlock(values, directoryAddress, valueCount, block);
+                final long blockAddress = valueAddress + blockOffset;
+                for (int i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putLong(blockAddress + (long) i * Long.BYTES, values[i]);
+                }
+                // links to previous and next blocks
+                final long linkAddress = blockAddress + blockSize - BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED;
+                Unsafe.getUnsafe().putLong(linkAddress, block > 0 ? blockOffset - blockSize : 0);
+                Unsafe.getUnsafe().putLong(linkAddress + Long.BYTES, block < keyBlockCount - 1 ? blockOffset + blockSize : 0);
+                blockOffset += blockSize;
+            }
+            Unsafe.getUnsafe().putLong(entryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_VALUE_COUNT, valueCount);
+            Unsafe.getUnsafe().putLong(entryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_FIRST_VALUE_BLOCK_OFFSET, firstBlockOffset);
+            Unsafe.getUnsafe().putLong(entryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_LAST_VALUE_BLOCK_OFFSET, keyBlockCount > 0 ? blockOffset - blockSize : 0);
+            Unsafe.getUnsafe().putLong(entryAddress + BitmapIndexUtils.KEY_ENTRY_OFFSET_COUNT_CHECK, valueCount);
+        }
+
+        this.imageAddress = address;
+        this.imageKeyMemorySize = keyMemorySize;
+        this.imageValueMemorySize = valueMemorySize;
+    }
+}
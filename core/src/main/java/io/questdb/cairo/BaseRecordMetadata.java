@@ -69,6 +69,10 @@ public abstract class BaseRecordMetadata implements RecordMetadata {
         return -1;
     }
 
+    public long getColumnDefault(int columnIndex) {
+        return getColumnQuick(columnIndex).getDefaultValue();
+    }
+
     @Override
     public long getColumnHash(int columnIndex) {
         return getColumnQuick(columnIndex).getHash();
@@ -94,6 +98,10 @@ public abstract class BaseRecordMetadata implements RecordMetadata {
         return getColumnQuick(columnIndex).getMetadata();
     }
 
+    public boolean hasColumnDefault(int columnIndex) {
+        return getColumnQuick(columnIndex).hasDefault();
+    }
+
     @Override
     public boolean isColumnIndexed(int columnIndex) {
         return getColumnQuick(columnIndex).isIndexed();
@@ -36,6 +36,9 @@ public class BitmapIndexFwdReader extends AbstractIndexReader {
     private final Cursor cursor = new Cursor();
     private final NullCursor nullCursor = new NullCursor();
 
+    public BitmapIndexFwdReader() {
+    }
+
     public BitmapIndexFwdReader(
             CairoConfiguration configuration,
             Path path,
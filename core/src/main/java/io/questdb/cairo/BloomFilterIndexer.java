@@ -0,0 +1,241 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.MemorySRImpl;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.BloomFilterUtils.*;
+
+/**
+ * Adds values of the active partition to the bloom filter file of the column. Rows are added from
+ * the row count the file already covers, so filter catches up with rows written by out of order
+ * commits on the next regular commit. Rows cannot be removed from bloom filter, rollback merely
+ * shortens the covered row count and leaves the bits as false positives.
+ */
+class BloomFilterIndexer implements ColumnIndexer, Closeable {
+    private static final long SEQUENCE_OFFSET;
+    private final MemoryCMARW mem = Vm.getCMARWInstance();
+    private final MemorySRImpl primary = new MemorySRImpl();
+    private final MemorySRImpl secondary = new MemorySRImpl();
+    private final int columnType;
+    private long columnTop;
+    private long blockSize;
+    private int hashCount;
+    @SuppressWarnings({"unused", "FieldCanBeLocal", "FieldMayBeFinal"})
+    private volatile long sequence = 0L;
+    private volatile boolean distressed = false;
+
+    BloomFilterIndexer(int columnType) {
+        this.columnType = ColumnType.tagOf(columnType);
+    }
+
+    @Override
+    public void close() {
+        if (mem.isOpen()) {
+            mem.jumpTo(getBlockOffset(getBlockCount(mem.getLong(HEADER_OFFSET_ROW_COUNT)), blockSize));
+        }
+        Misc.free(mem);
+        closeSlider();
+    }
+
+    @Override
+    public void closeSlider() {
+        Misc.free(primary);
+        Misc.free(secondary);
+    }
+
+    public void configure(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence name,
+            MemoryMA primaryMem,
+            MemoryMA secondaryMem,
+            long columnTop
+    ) {
+        this.columnTop = columnTop;
+        final FilesFacade ff = configuration.getFilesFacade();
+        final int plen = path.length();
+        try {
+            fileName(path, name);
+            final long fileSize = ff.exists(path) ? ff.length(path) : 0;
+            mem.of(ff, path, ff.getPageSize(), Math.max(fileSize, HEADER_SIZE), MemoryTag.MMAP_INDEX_WRITER);
+            blockSize = fileSize >= HEADER_SIZE ? mem.getLong(HEADER_OFFSET_BLOCK_SIZE) : 0;
+            if (blockSize < Long.BYTES || (blockSize & (blockSize - 1)) != 0) {
+                // new or unusable file, start over
+                blockSize = getBlockSize(configuration.getBloomFilterBitsPerValue());
+                mem.putLong(HEADER_OFFSET_ROW_COUNT, 0);
+                mem.putLong(HEADER_OFFSET_BLOCK_SIZE, blockSize);
+                mem.putInt(HEADER_OFFSET_HASH_COUNT, getHashCount(blockSize));
+            }
+            hashCount = mem.getInt(HEADER_OFFSET_HASH_COUNT);
+            mem.jumpTo(getBlockOffset(getBlockCount(mem.getLong(HEADER_OFFSET_ROW_COUNT)), blockSize));
+            primary.of(primaryMem, MemoryTag.MMAP_INDEX_SLIDER);
+            if (secondaryMem != null) {
+                secondary.of(secondaryMem, MemoryTag.MMAP_INDEX_SLIDER);
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    @Override
+    public void configureFollowerAndWriter(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence name,
+            MemoryMA columnMem,
+            long columnTop
+    ) {
+        configure(configuration, path, name, columnMem, null, columnTop);
+    }
+
+    @Override
+    public void configureWriter(CairoConfiguration configuration, Path path, CharSequence name, long columnTop) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void distress() {
+        distressed = true;
+    }
+
+    @Override
+    public long getFd() {
+        return mem.getFd();
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public BitmapIndexWriter getWriter() {
+        return null;
+    }
+
+    @Override
+    public void index(MemoryR mem, long loRow, long hiRow) {
+        index(mem, secondary, loRow, hiRow);
+    }
+
+    @Override
+    public boolean isDistressed() {
+        return distressed;
+    }
+
+    @Override
+    public void refreshSourceAndIndex(long loRow, long hiRow) {
+        primary.updateSize();
+        secondary.updateSize();
+        index(primary, secondary, loRow, hiRow);
+    }
+
+    @Override
+    public void rollback(long maxRow) {
+        if (mem.isOpen() && mem.getLong(HEADER_OFFSET_ROW_COUNT) > maxRow + 1) {
+            mem.putLong(HEADER_OFFSET_ROW_COUNT, Math.max(0, maxRow + 1));
+        }
+    }
+
+    @Override
+    public boolean tryLock(long expectedSequence) {
+        return Unsafe.cas(this, SEQUENCE_OFFSET, expectedSequence, expectedSequence + 1);
+    }
+
+    private static long getBlockCount(long rowCount) {
+        return (rowCount + BLOCK_ROW_COUNT - 1) >>> BLOCK_ROW_COUNT_MSB;
+    }
+
+    private long hashNull() {
+        switch (columnType) {
+            case ColumnType.LONG:
+                return hash(Numbers.LONG_NaN);
+            case ColumnType.SYMBOL:
+                return hash(SymbolTable.VALUE_IS_NULL);
+            case ColumnType.LONG256:
+                final Long256 n = Long256Impl.NULL_LONG256;
+                return hash(n.getLong0(), n.getLong1(), n.getLong2(), n.getLong3());
+            default:
+                return hash((CharSequence) null);
+        }
+    }
+
+    private long hashRow(MemoryR primary, MemoryR secondary, long row) {
+        switch (columnType) {
+            case ColumnType.LONG:
+                return hash(primary.getLong(row << 3));
+            case ColumnType.SYMBOL:
+                return hash(primary.getInt(row << 2));
+            case ColumnType.LONG256:
+                final long offset = row << 5;
+                return hash(
+                        primary.getLong(offset),
+                        primary.getLong(offset + Long.BYTES),
+                        primary.getLong(offset + Long.BYTES * 2),
+                        primary.getLong(offset + Long.BYTES * 3)
+                );
+            default:
+                return hash(primary.getStr(secondary.getLong(row << 3)));
+        }
+    }
+
+    private void index(MemoryR primary, MemoryR secondary, long loRow, long hiRow) {
+        final long rowCount = mem.getLong(HEADER_OFFSET_ROW_COUNT);
+        if (rowCount >= hiRow) {
+            return;
+        }
+        final long lo = Math.min(loRow, rowCount);
+        final long size = getBlockOffset(getBlockCount(hiRow), blockSize);
+        mem.extend(size);
+        mem.jumpTo(size);
+
+        final long nullHash = lo < columnTop ? hashNull() : 0;
+        for (long row = lo; row < hiRow; row++) {
+            final long blockAddress = mem.addressOf(getBlockOffset(row >>> BLOCK_ROW_COUNT_MSB, blockSize));
+            final long hash = row < columnTop ? nullHash : hashRow(primary, secondary, row - columnTop);
+            add(blockAddress, blockSize, hashCount, hash);
+        }
+        // readers trust bits of the rows the header claims
+        Unsafe.getUnsafe().storeFence();
+        mem.putLong(HEADER_OFFSET_ROW_COUNT, hiRow);
+    }
+
+    static {
+        SEQUENCE_OFFSET = Unsafe.getFieldOffset(BloomFilterIndexer.class, "sequence");
+    }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.BloomFilterUtils.*;
+
+/**
+ * Read-only view of bloom filter of a column in one partition. The view remains open
+ * while the same partition is looked at, the file is re-mapped when partition has grown.
+ */
+public class BloomFilterReader implements Closeable {
+    private final FilesFacade ff;
+    private final MemoryMR mem = Vm.getMRInstance();
+    private long partitionTimestamp = Long.MIN_VALUE;
+    private long partitionNameTxn = -1;
+    private long blockSize;
+    private int hashCount;
+    private long rowCount;
+
+    public BloomFilterReader(FilesFacade ff) {
+        this.ff = ff;
+    }
+
+    @Override
+    public void close() {
+        mem.close();
+        partitionTimestamp = Long.MIN_VALUE;
+        partitionNameTxn = -1;
+        rowCount = 0;
+    }
+
+    /**
+     * @param hash value hash, see {@link BloomFilterUtils}
+     * @return false when none of partition rows has the value
+     */
+    public boolean mightContain(long hash) {
+        return mightContain(hash, 0, rowCount);
+    }
+
+    /**
+     * @param hash  value hash, see {@link BloomFilterUtils}
+     * @param rowLo first row, inclusive
+     * @param rowHi last row, exclusive, it is capped at partition row count
+     * @return false when none of the rows has the value
+     */
+    public boolean mightContain(long hash, long rowLo, long rowHi) {
+        final long hi = Math.min(rowHi, rowCount);
+        for (long block = rowLo >>> BLOCK_ROW_COUNT_MSB, n = (hi + BLOCK_ROW_COUNT - 1) >>> BLOCK_ROW_COUNT_MSB; block < n; block++) {
+            if (BloomFilterUtils.mightContain(mem.addressOf(getBlockOffset(block, blockSize)), blockSize, hashCount, hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Opens filter file of the partition, unless it is already open.
+     *
+     * @param path               partition directory, it is left unchanged
+     * @param columnName         name of the column
+     * @param partitionTimestamp partition timestamp
+     * @param partitionNameTxn   partition name txn
+     * @param partitionRowCount  rows the filter has to cover to be of any use
+     * @return true when filter is available and covers the partition rows
+     */
+    public boolean of(Path path, CharSequence columnName, long partitionTimestamp, long partitionNameTxn, long partitionRowCount) {
+        if (this.partitionTimestamp != partitionTimestamp || this.partitionNameTxn != partitionNameTxn) {
+            close();
+            this.partitionTimestamp = partitionTimestamp;
+            this.partitionNameTxn = partitionNameTxn;
+            final int plen = path.length();
+            try {
+                if (ff.exists(fileName(path, columnName))) {
+                    final long fileSize = ff.length(path);
+                    if (fileSize >= HEADER_SIZE) {
+                        mem.of(ff, path, 0, fileSize, MemoryTag.MMAP_INDEX_READER);
+                    }
+                }
+            } finally {
+                path.trimTo(plen);
+            }
+        }
+
+        if (!mem.isOpen()) {
+            return false;
+        }
+        rowCount = mem.getLong(HEADER_OFFSET_ROW_COUNT);
+        Unsafe.getUnsafe().loadFence();
+        if (rowCount < partitionRowCount) {
+            return false;
+        }
+        // header is complete once rows are published
+        blockSize = mem.getLong(HEADER_OFFSET_BLOCK_SIZE);
+        hashCount = mem.getInt(HEADER_OFFSET_HASH_COUNT);
+        // only rows of our transaction are checked
+        rowCount = partitionRowCount;
+        final long size = getBlockOffset((rowCount + BLOCK_ROW_COUNT - 1) >>> BLOCK_ROW_COUNT_MSB, blockSize);
+        if (size > mem.size()) {
+            if (size > ff.length(mem.getFd())) {
+                return false;
+            }
+            mem.extend(size);
+        }
+        return true;
+    }
+}
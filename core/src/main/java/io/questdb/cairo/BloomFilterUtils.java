@@ -0,0 +1,139 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+/**
+ * Bloom filter file structure, one file per column and partition
+ * struct {
+ * long row_count; // partition rows covered by the filter, written after the bits
+ * long block_size; // size of each block in bytes, power of 2
+ * int hash_count; // number of bits set per value
+ * block blocks[ceil(row_count / BLOCK_ROW_COUNT)];
+ * }
+ * <p>
+ * Each block is a bloom filter of BLOCK_ROW_COUNT consecutive rows. Values are hashed once, bits
+ * are derived from the halves of the hash via double hashing.
+ */
+public final class BloomFilterUtils {
+    public static final int BLOCK_ROW_COUNT_MSB = 14;
+    public static final long BLOCK_ROW_COUNT = 1L << BLOCK_ROW_COUNT_MSB;
+    static final long HEADER_OFFSET_ROW_COUNT = 0;
+    static final long HEADER_OFFSET_BLOCK_SIZE = 8;
+    static final long HEADER_OFFSET_HASH_COUNT = 16;
+    static final long HEADER_SIZE = 64;
+    private static final int MAX_HASH_COUNT = 8;
+    private static final long NULL_STR_HASH = mix(Numbers.LONG_NaN ^ 0x5bd1e995L);
+
+    private BloomFilterUtils() {
+    }
+
+    public static Path fileName(Path path, CharSequence name) {
+        return path.concat(name).put(".bf").$();
+    }
+
+    public static long hash(long value) {
+        return mix(value);
+    }
+
+    public static long hash(long l0, long l1, long l2, long l3) {
+        return mix(mix(mix(mix(l0) ^ l1) ^ l2) ^ l3);
+    }
+
+    public static long hash(CharSequence value) {
+        if (value == null) {
+            return NULL_STR_HASH;
+        }
+        // FNV-1a over UTF-16 chars
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    public static boolean isSupportedColumnType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.LONG:
+            case ColumnType.STRING:
+            case ColumnType.LONG256:
+            case ColumnType.SYMBOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static long getBlockOffset(long blockIndex, long blockSize) {
+        return HEADER_SIZE + blockIndex * blockSize;
+    }
+
+    static long getBlockSize(int bitsPerValue) {
+        return Numbers.ceilPow2(Math.max(8, (BLOCK_ROW_COUNT * bitsPerValue) >>> 3));
+    }
+
+    static int getHashCount(long blockSize) {
+        // k = bits per value * ln(2), bits per value is what power of 2 block size ends up with
+        final long bitsPerValue = (blockSize << 3) >>> BLOCK_ROW_COUNT_MSB;
+        return (int) Math.max(1, Math.min(MAX_HASH_COUNT, Math.round(bitsPerValue * 0.6931)));
+    }
+
+    static void add(long blockAddress, long blockSize, int hashCount, long hash) {
+        final long mask = (blockSize << 3) - 1;
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (h1 + (long) i * h2) & mask;
+            final long p = blockAddress + ((bit >>> 6) << 3);
+            Unsafe.getUnsafe().putLong(p, Unsafe.getUnsafe().getLong(p) | (1L << (bit & 63)));
+        }
+    }
+
+    static boolean mightContain(long blockAddress, long blockSize, int hashCount, long hash) {
+        final long mask = (blockSize << 3) - 1;
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (h1 + (long) i * h2) & mask;
+            if ((Unsafe.getUnsafe().getLong(blockAddress + ((bit >>> 6) << 3)) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(long h) {
+        // murmur3 64-bit finalizer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -35,6 +35,7 @@ import io.questdb.std.datetime.DateFormat;
 import io.questdb.std.datetime.DateLocale;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClock;
+import org.jetbrains.annotations.Nullable;
 
 public interface CairoConfiguration {
 
@@ -59,6 +60,8 @@ public interface CairoConfiguration {
 
     int getBindVariablePoolSize();
 
+    int getBloomFilterBitsPerValue();
+
     BuildInformation getBuildInformation();
 
     int getColumnCastModelPoolCapacity();
@@ -93,6 +96,21 @@ public interface CairoConfiguration {
 
     CharSequence getDbDirectory(); // env['cairo.root'], defaults to db
 
+    /**
+     * Number of lock-striped segments of engine-wide cache of decoded columns of compressed partitions.
+     *
+     * @return segment count, rounded up to power of 2
+     */
+    int getDecodedColumnCacheSegmentCount();
+
+    /**
+     * Memory limit of engine-wide cache of decoded columns of compressed partitions, which is
+     * shared by all table readers. Zero disables the cache, readers then decode columns on their own.
+     *
+     * @return cache size in bytes
+     */
+    long getDecodedColumnCacheSize();
+
     DateLocale getDefaultDateLocale();
 
     CharSequence getDefaultMapType();
@@ -113,6 +131,14 @@ public interface CairoConfiguration {
 
     int getGroupByPoolCapacity();
 
+    /**
+     * Number of most recent partitions writer keeps uncompressed, older partitions are
+     * compressed on commit. Zero disables automatic compression.
+     *
+     * @return count of hot partitions
+     */
+    int getHotPartitionCount();
+
     long getIdleCheckInterval();
 
     long getInactiveReaderTTL();
@@ -160,6 +186,8 @@ public interface CairoConfiguration {
 
     int getO3PurgeQueueCapacity();
 
+    int getPageFrameFilterQueueCapacity();
+
     int getParallelIndexThreshold();
 
     default Rnd getRandom() {
@@ -187,6 +215,15 @@ public interface CairoConfiguration {
 
     int getSqlAnalyticRowIdMaxPages();
 
+    /**
+     * Resolves storage volume alias used by ALTER TABLE MOVE PARTITION.
+     *
+     * @param alias volume alias
+     * @return absolute path of volume root or null when alias is not configured
+     */
+    @Nullable
+    String getVolumePath(CharSequence alias);
+
     int getSqlAnalyticRowIdPageSize();
 
     int getSqlAnalyticStoreMaxPages();
@@ -248,6 +285,33 @@ public interface CairoConfiguration {
 
     int getSqlModelPoolCapacity();
 
+    /**
+     * Maximum number of rows in a single page frame task when filtering is
+     * executed in parallel. Partitions larger than this are split into several tasks.
+     *
+     * @return max number of rows per page frame filter task
+     */
+    int getSqlPageFrameMaxRows();
+
+    /**
+     * Size of requests that ask OS to load columns of a page frame into page cache before the frame
+     * is handed out. Requests do not wait for IO, so reads of all frame columns are in flight at once,
+     * whereas page faults on cold mapped memory read one page at a time. Zero disables read-ahead,
+     * which suits data that is mostly cached.
+     *
+     * @return size of read-ahead request in bytes or 0 when read-ahead is disabled
+     */
+    int getSqlPageFrameReadAheadSize();
+
+    /**
+     * Rows above column top of a column with default value are handed to page frame consumers
+     * as a page filled with the default. This is the number of rows in such page, it caps the
+     * size of page frames over column top and the memory reader allocates per column.
+     *
+     * @return number of rows in page of default column values
+     */
+    int getColumnDefaultPageRows();
+
     int getSqlSortKeyMaxPages();
 
     long getSqlSortKeyPageSize();
@@ -256,6 +320,29 @@ public interface CairoConfiguration {
 
     long getSqlSortLightValuePageSize();
 
+    /**
+     * ORDER BY followed by constant LIMIT of up to this many rows keeps only the top rows
+     * in a bounded heap instead of sorting the entire result set.
+     *
+     * @return max number of rows sorted with top K heap
+     */
+    int getSqlSortTopKMaxRows();
+
+    /**
+     * Directory for temporary files of queries which state outgrows spill threshold.
+     *
+     * @return spill directory or null when spilling is disabled
+     */
+    CharSequence getSqlSpillRoot();
+
+    /**
+     * Size in bytes of a single map, record chain or sort buffer of a query above which
+     * the buffer is moved to a file in spill root.
+     *
+     * @return spill threshold in bytes
+     */
+    long getSqlSpillThreshold();
+
     int getSqlSortValueMaxPages();
 
     int getSqlSortValuePageSize();
@@ -277,4 +364,31 @@ public interface CairoConfiguration {
     boolean isO3QuickSortEnabled();
 
     boolean isParallelIndexingEnabled();
+
+    /**
+     * When enabled, full table scans that span more than one partition ask OS to read
+     * next partition ahead while current one is being consumed.
+     */
+    boolean isPartitionPrefetchEnabled();
+
+    boolean isPostingIndexEnabled();
+
+    boolean isSqlFilterCompilerEnabled();
+
+    boolean isSqlParallelFilterEnabled();
+
+    boolean isSqlParallelGroupByEnabled();
+
+    boolean isSqlParallelJoinEnabled();
+
+    /**
+     * When enabled, SQL inserts into partitioned tables with designated timestamp are
+     * appended to the table's write-ahead log instead of going through the table writer.
+     * Many connections can then write to the same table at once.
+     *
+     * @return true when SQL inserts go through the write-ahead log
+     */
+    boolean isWalEnabled();
+
+    boolean isZoneMapEnabled();
 }
@@ -26,18 +26,22 @@ package io.questdb.cairo;
 
 import io.questdb.MessageBus;
 import io.questdb.MessageBusImpl;
+import io.questdb.Metrics;
 import io.questdb.cairo.mig.EngineMigration;
+import io.questdb.cairo.mv.MatView;
 import io.questdb.cairo.pool.PoolListener;
 import io.questdb.cairo.pool.ReaderPool;
 import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
 import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.wal.TableWal;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.*;
 import io.questdb.std.*;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
 import io.questdb.std.str.Path;
 import io.questdb.tasks.TableWriterTask;
 import io.questdb.tasks.TelemetryTask;
@@ -50,8 +54,12 @@ public class CairoEngine implements Closeable, WriterSource {
     private static final Log LOG = LogFactory.getLog(CairoEngine.class);
     private final WriterPool writerPool;
     private final ReaderPool readerPool;
+    private final DecodedColumnCache decodedColumnCache;
     private final CairoConfiguration configuration;
     private final WriterMaintenanceJob writerMaintenanceJob;
+    private final ConcurrentHashMap<TableWal> tableWals = new ConcurrentHashMap<>();
+    private final WalApplyJob walApplyJob;
+    private final ConcurrentHashMap<MatView> matViews = new ConcurrentHashMap<>();
     private final MessageBus messageBus;
     private final RingQueue<TelemetryTask> telemetryQueue;
     private final MPSequence telemetryPubSeq;
@@ -63,11 +71,17 @@ public class CairoEngine implements Closeable, WriterSource {
     private long tableIdMem = 0;
 
     public CairoEngine(CairoConfiguration configuration) {
+        this(configuration, Metrics.disabled());
+    }
+
+    public CairoEngine(CairoConfiguration configuration, Metrics metrics) {
         this.configuration = configuration;
         this.messageBus = new MessageBusImpl(configuration);
-        this.writerPool = new WriterPool(configuration, messageBus);
-        this.readerPool = new ReaderPool(configuration);
+        this.writerPool = new WriterPool(configuration, messageBus, this::notifyMatViews);
+        this.decodedColumnCache = configuration.getDecodedColumnCacheSize() > 0 ? new DecodedColumnCache(configuration, metrics.decodedColumnCache()) : null;
+        this.readerPool = new ReaderPool(configuration, decodedColumnCache);
         this.writerMaintenanceJob = new WriterMaintenanceJob(configuration);
+        this.walApplyJob = new WalApplyJob();
         if (configuration.getTelemetryConfiguration().getEnabled()) {
             this.telemetryQueue = new RingQueue<>(TelemetryTask::new, configuration.getTelemetryConfiguration().getQueueCapacity());
             this.telemetryPubSeq = new MPSequence(telemetryQueue.getCycle());
@@ -86,6 +100,8 @@ public class CairoEngine implements Closeable, WriterSource {
         openTableId();
         try {
             EngineMigration.migrateEngineTo(this, ColumnType.VERSION, false);
+            openTableWals();
+            openMatViews();
         } catch (Throwable e) {
             close();
             throw e;
@@ -93,15 +109,22 @@ public class CairoEngine implements Closeable, WriterSource {
     }
 
     public boolean clear() {
+        releaseAllWals();
+        matViews.clear();
         boolean b1 = readerPool.releaseAll();
         boolean b2 = writerPool.releaseAll();
+        if (decodedColumnCache != null) {
+            decodedColumnCache.clear();
+        }
         return b1 & b2;
     }
 
     @Override
     public void close() {
+        releaseAllWals();
         Misc.free(writerPool);
         Misc.free(readerPool);
+        Misc.free(decodedColumnCache);
         freeTableId();
         Misc.free(messageBus);
     }
@@ -187,6 +210,38 @@ public class CairoEngine implements Closeable, WriterSource {
         return messageBus;
     }
 
+    /**
+     * Finds materialized view, which can answer the query.
+     *
+     * @param baseTableName   table the query reads
+     * @param normalizedQuery text of parsed query model
+     * @return view or null when there is no such view
+     */
+    @Nullable
+    public MatView findMatView(CharSequence baseTableName, CharSequence normalizedQuery) {
+        if (matViews.size() > 0) {
+            for (MatView view : matViews.values()) {
+                if (Chars.equalsIgnoreCase(view.getBaseTableName(), baseTableName) && Chars.equals(view.getNormalizedQuery(), normalizedQuery)) {
+                    return view;
+                }
+            }
+        }
+        return null;
+    }
+
+    public MatView getMatView(CharSequence viewName) {
+        return matViews.get(viewName);
+    }
+
+    public void getMatViews(ObjList<MatView> sink) {
+        sink.clear();
+        if (matViews.size() > 0) {
+            for (MatView view : matViews.values()) {
+                sink.add(view);
+            }
+        }
+    }
+
     public long getNextTableId() {
         long next;
         long x = Unsafe.getUnsafe().getLong(tableIdMem);
@@ -261,7 +316,32 @@ public class CairoEngine implements Closeable, WriterSource {
         return telemetrySubSeq;
     }
 
+    /**
+     * Returns WAL writer for partitioned tables with designated timestamp when WAL is enabled
+     * and table writer otherwise. Unlike table writer, WAL writer is not exclusive to the caller,
+     * WAL writers of the same table can be used concurrently.
+     */
     @Override
+    public TableWriterAPI getTableWriterAPI(
+            CairoSecurityContext securityContext,
+            CharSequence tableName,
+            CharSequence lockReason
+    ) {
+        securityContext.checkWritePermission();
+        if (configuration.isWalEnabled()) {
+            try (TableReader reader = readerPool.get(tableName)) {
+                if (reader.getMetadata().getTimestampIndex() > -1 && reader.getPartitionedBy() != PartitionBy.NONE) {
+                    return getTableWal(reader.getTableName()).getWriter(reader);
+                }
+            }
+        }
+        return writerPool.get(tableName, lockReason);
+    }
+
+    public Job getWalApplyJob() {
+        return walApplyJob;
+    }
+
     public TableWriter getWriter(
             CairoSecurityContext securityContext,
             CharSequence tableName,
@@ -317,6 +397,10 @@ public class CairoEngine implements Closeable, WriterSource {
         }
     }
 
+    public void registerMatView(MatView view) {
+        matViews.put(view.getViewName(), view);
+    }
+
     public boolean releaseAllReaders() {
         return readerPool.releaseAll();
     }
@@ -326,6 +410,9 @@ public class CairoEngine implements Closeable, WriterSource {
     }
 
     public boolean releaseInactive() {
+        for (TableWal tableWal : tableWals.values()) {
+            tableWal.releaseIdleWriters();
+        }
         boolean useful = writerPool.releaseInactive();
         useful |= readerPool.releaseInactive();
         return useful;
@@ -340,6 +427,9 @@ public class CairoEngine implements Closeable, WriterSource {
         CharSequence lockedReason = lock(securityContext, tableName, "removeTable");
         if (null == lockedReason) {
             try {
+                Misc.free(tableWals.remove(tableName));
+                matViews.remove(tableName);
+                removeVolumeDirectories(path, tableName);
                 path.of(configuration.getRoot()).concat(tableName).$();
                 int errno;
                 if ((errno = configuration.getFilesFacade().rmdir(path)) != 0) {
@@ -371,7 +461,15 @@ public class CairoEngine implements Closeable, WriterSource {
         CharSequence lockedReason = lock(securityContext, tableName, "renameTable");
         if (null == lockedReason) {
             try {
+                Misc.free(tableWals.remove(tableName));
+                final MatView matView = matViews.remove(tableName);
                 rename0(path, tableName, otherPath, newName);
+                if (configuration.getFilesFacade().exists(path.of(configuration.getRoot()).concat(newName).concat(TableUtils.WAL_DIR_NAME).$())) {
+                    getTableWal(newName);
+                }
+                if (matView != null) {
+                    openMatView(path, newName);
+                }
             } finally {
                 unlock(securityContext, tableName, null, false);
             }
@@ -466,6 +564,14 @@ public class CairoEngine implements Closeable, WriterSource {
             throw CairoException.instance(0).put("Rename failed. Table '").put(tableName).put("' does not exist");
         }
 
+        final PartitionVolumes partitionVolumes = new PartitionVolumes();
+        partitionVolumes.load(ff, path.of(root).concat(tableName));
+        if (partitionVolumes.size() > 0) {
+            // partition directories on volumes are named after the table
+            LOG.error().$("cannot rename table with partitions on storage volumes [table='").utf8(tableName).$("']").$();
+            throw CairoException.instance(0).put("Rename failed. Table '").put(tableName).put("' has partitions on storage volumes");
+        }
+
         path.of(root).concat(tableName).$();
         otherPath.of(root).concat(to).$();
 
@@ -481,6 +587,115 @@ public class CairoEngine implements Closeable, WriterSource {
         }
     }
 
+    private void removeVolumeDirectories(Path path, CharSequence tableName) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final PartitionVolumes partitionVolumes = new PartitionVolumes();
+        partitionVolumes.load(ff, path.of(configuration.getRoot()).concat(tableName));
+        for (int i = 0, n = partitionVolumes.size(); i < n; i++) {
+            final String volumePath = configuration.getVolumePath(partitionVolumes.getVolumeQuick(i));
+            if (volumePath == null) {
+                LOG.error().$("volume is not configured, partition directory is left behind [tableName='").utf8(tableName)
+                        .$("', volume=").$(partitionVolumes.getVolumeQuick(i))
+                        .$(']').$();
+                continue;
+            }
+            path.of(volumePath).concat(tableName).slash$();
+            int errno;
+            if (ff.exists(path) && (errno = ff.rmdir(path)) != 0) {
+                LOG.error().$("could not remove table directory on volume [path=").$(path).$(", errno=").$(errno).$(']').$();
+            }
+        }
+    }
+
+    private TableWal getTableWal(CharSequence tableName) {
+        TableWal tableWal = tableWals.get(tableName);
+        if (tableWal == null) {
+            synchronized (tableWals) {
+                tableWal = tableWals.get(tableName);
+                if (tableWal == null) {
+                    tableWal = new TableWal(configuration, tableName);
+                    tableWals.put(tableWal.getTableName(), tableWal);
+                }
+            }
+        }
+        return tableWal;
+    }
+
+    // tables with WAL transactions pending from previous run
+    private void notifyMatViews(CharSequence tableName, long txn, long timestampLo, long timestampHi) {
+        if (matViews.size() > 0) {
+            for (MatView view : matViews.values()) {
+                if (Chars.equalsIgnoreCase(view.getBaseTableName(), tableName)) {
+                    view.onCommit(txn, timestampLo, timestampHi);
+                }
+            }
+        }
+    }
+
+    private void openMatView(Path path, CharSequence viewName) {
+        final MatView view = MatView.open(configuration, path, viewName);
+        if (view != null) {
+            matViews.put(view.getViewName(), view);
+        }
+    }
+
+    private void openMatViews() {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final NativeLPSZ tableName = new NativeLPSZ();
+        try (Path path = new Path(); Path viewPath = new Path()) {
+            path.of(configuration.getRoot()).$();
+            ff.iterateDir(path, (pName, type) -> {
+                tableName.of(pName);
+                if (type == Files.DT_DIR && !Files.isDots(tableName)) {
+                    openMatView(viewPath, tableName);
+                }
+            });
+        }
+    }
+
+    private void openTableWals() {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final NativeLPSZ tableName = new NativeLPSZ();
+        try (Path path = new Path(); Path walPath = new Path()) {
+            path.of(configuration.getRoot()).$();
+            ff.iterateDir(path, (pName, type) -> {
+                tableName.of(pName);
+                if (type == Files.DT_DIR && !Files.isDots(tableName)
+                        && ff.exists(walPath.of(configuration.getRoot()).concat(tableName).concat(TableUtils.WAL_DIR_NAME).$())) {
+                    getTableWal(tableName);
+                }
+            });
+        }
+    }
+
+    private void releaseAllWals() {
+        synchronized (tableWals) {
+            for (TableWal tableWal : tableWals.values()) {
+                tableWal.close();
+            }
+            tableWals.clear();
+        }
+    }
+
+    private class WalApplyJob extends SynchronizedJob {
+        @Override
+        protected boolean runSerially() {
+            boolean useful = false;
+            for (TableWal tableWal : tableWals.values()) {
+                if (tableWal.hasPendingTransactions()) {
+                    try (TableWriter writer = writerPool.get(tableWal.getTableName(), "walApply")) {
+                        useful |= tableWal.apply(writer);
+                    } catch (EntryUnavailableException e) {
+                        // writer is busy, try again on next run
+                    } catch (Throwable e) {
+                        LOG.error().$("could not apply WAL [table=").$(tableWal.getTableName()).$(", e=").$(e).$(']').$();
+                    }
+                }
+            }
+            return useful;
+        }
+    }
+
     private class WriterMaintenanceJob extends SynchronizedJob {
 
         private final MicrosecondClock clock;
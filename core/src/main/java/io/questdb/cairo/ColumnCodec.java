@@ -0,0 +1,358 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.std.Unsafe;
+
+/**
+ * Block compression of fixed size column files. Values are split into blocks of
+ * {@link #BLOCK_ROWS} rows and every block is encoded on its own:
+ * <ul>
+ * <li>designated timestamp - first value and first delta verbatim, delta-of-delta
+ * of remaining values is bit-packed relative to the smallest delta-of-delta in the block</li>
+ * <li>FLOAT and DOUBLE - XOR of adjacent values with leading and trailing zero bits dropped</li>
+ * <li>everything else - frame of reference, values are bit-packed relative to the block minimum</li>
+ * </ul>
+ * Compressed file layout:
+ * <pre>
+ * 0:  row count, long
+ * 8:  block count, int
+ * 12: pow2 of value size, int
+ * 16: block offsets, long each
+ *     blocks, each starts with header long of encoding, bit width and row count
+ * </pre>
+ * Encoder instance is not thread safe, decoding is stateless.
+ */
+public class ColumnCodec {
+    public static final int BLOCK_ROWS = 4096;
+    public static final int HEADER_OFFSET_ROW_COUNT = 0;
+    public static final int HEADER_OFFSET_BLOCK_COUNT = 8;
+    public static final int HEADER_OFFSET_VALUE_SIZE = 12;
+    public static final int HEADER_SIZE = 16;
+    private static final int ENCODING_FOR = 0;
+    private static final int ENCODING_DOD = 1;
+    private static final int ENCODING_XOR = 2;
+    private MemoryARW mem;
+    private long word;
+    private int wordBits;
+
+    public static void decode(long srcAddr, long dstAddr) {
+        final long rowCount = getRowCount(srcAddr);
+        final int blockCount = Unsafe.getUnsafe().getInt(srcAddr + HEADER_OFFSET_BLOCK_COUNT);
+        final int shift = getValueSizePow2(srcAddr);
+        for (int b = 0; b < blockCount; b++) {
+            final long p = srcAddr + Unsafe.getUnsafe().getLong(srcAddr + HEADER_SIZE + b * 8L);
+            final long dst = dstAddr + (((long) b * BLOCK_ROWS) << shift);
+            final long header = Unsafe.getUnsafe().getLong(p);
+            final int width = (int) ((header >>> 8) & 0xff);
+            final int n = (int) (header >>> 32);
+            assert (long) b * BLOCK_ROWS + n <= rowCount;
+            switch ((int) (header & 0xff)) {
+                case ENCODING_FOR:
+                    decodeFor(p, dst, shift, width, n);
+                    break;
+                case ENCODING_DOD:
+                    decodeDod(p, dst, shift, width, n);
+                    break;
+                case ENCODING_XOR:
+                    decodeXor(p, dst, shift, n);
+                    break;
+                default:
+                    throw CairoException.instance(0).put("corrupt compressed column [block=").put(b).put(']');
+            }
+        }
+    }
+
+    public static long getRowCount(long srcAddr) {
+        return Unsafe.getUnsafe().getLong(srcAddr + HEADER_OFFSET_ROW_COUNT);
+    }
+
+    public static int getValueSizePow2(long srcAddr) {
+        return Unsafe.getUnsafe().getInt(srcAddr + HEADER_OFFSET_VALUE_SIZE);
+    }
+
+    /**
+     * Reads first value of compressed column without decoding the whole block. Used to
+     * find out min timestamp of partition.
+     *
+     * @param srcAddr address of compressed column
+     * @return first value, sign extended to long
+     */
+    public static long getFirstValue(long srcAddr) {
+        final long p = srcAddr + Unsafe.getUnsafe().getLong(srcAddr + HEADER_SIZE);
+        final long header = Unsafe.getUnsafe().getLong(p);
+        if ((header & 0xff) == ENCODING_FOR) {
+            return Unsafe.getUnsafe().getLong(p + 8) + unpack(p + 16, 0, (int) ((header >>> 8) & 0xff));
+        }
+        return Unsafe.getUnsafe().getLong(p + 8);
+    }
+
+    /**
+     * Encodes column values and appends them to memory.
+     *
+     * @param srcAddr               address of column values
+     * @param rowCount              number of values
+     * @param columnType            type of column, must be fixed size
+     * @param designatedTimestamp   true when column is designated timestamp, values are ascending
+     * @param mem                   memory compressed column is appended to
+     */
+    public void encode(long srcAddr, long rowCount, int columnType, boolean designatedTimestamp, MemoryARW mem) {
+        this.mem = mem;
+        final int shift = ColumnType.pow2SizeOf(columnType);
+        final int encoding;
+        if (designatedTimestamp) {
+            encoding = ENCODING_DOD;
+        } else {
+            final short tag = ColumnType.tagOf(columnType);
+            encoding = tag == ColumnType.FLOAT || tag == ColumnType.DOUBLE ? ENCODING_XOR : ENCODING_FOR;
+        }
+        final int blockCount = (int) ((rowCount + BLOCK_ROWS - 1) / BLOCK_ROWS);
+        final long base = mem.getAppendOffset();
+        mem.putLong(rowCount);
+        mem.putInt(blockCount);
+        mem.putInt(shift);
+        mem.skip(blockCount * 8L);
+        for (int b = 0; b < blockCount; b++) {
+            mem.putLong(base + HEADER_SIZE + b * 8L, mem.getAppendOffset() - base);
+            final long lo = (long) b * BLOCK_ROWS;
+            final int n = (int) Math.min(BLOCK_ROWS, rowCount - lo);
+            final long addr = srcAddr + (lo << shift);
+            switch (encoding) {
+                case ENCODING_DOD:
+                    encodeDod(addr, n);
+                    break;
+                case ENCODING_XOR:
+                    encodeXor(addr, shift, n);
+                    break;
+                default:
+                    encodeFor(addr, shift, n);
+                    break;
+            }
+        }
+        this.mem = null;
+    }
+
+    private static void decodeDod(long p, long dst, int shift, int width, int n) {
+        long value = Unsafe.getUnsafe().getLong(p + 8);
+        putValue(dst, 0, shift, value);
+        if (n > 1) {
+            long delta = Unsafe.getUnsafe().getLong(p + 16);
+            value += delta;
+            putValue(dst, 1, shift, value);
+            if (n > 2) {
+                final long minDod = Unsafe.getUnsafe().getLong(p + 24);
+                final long data = p + 32;
+                for (int i = 2; i < n; i++) {
+                    delta += minDod + unpack(data, (long) (i - 2) * width, width);
+                    value += delta;
+                    putValue(dst, i, shift, value);
+                }
+            }
+        }
+    }
+
+    private static void decodeFor(long p, long dst, int shift, int width, int n) {
+        final long min = Unsafe.getUnsafe().getLong(p + 8);
+        final long data = p + 16;
+        for (int i = 0; i < n; i++) {
+            putValue(dst, i, shift, min + unpack(data, (long) i * width, width));
+        }
+    }
+
+    private static void decodeXor(long p, long dst, int shift, int n) {
+        long value = Unsafe.getUnsafe().getLong(p + 8);
+        putValue(dst, 0, shift, value);
+        final long data = p + 16;
+        long bit = 0;
+        int leading = 0;
+        int significant = 0;
+        for (int i = 1; i < n; i++) {
+            if (unpack(data, bit++, 1) != 0) {
+                if (unpack(data, bit++, 1) != 0) {
+                    leading = (int) unpack(data, bit, 6);
+                    significant = (int) unpack(data, bit + 6, 6) + 1;
+                    bit += 12;
+                }
+                value ^= unpack(data, bit, significant) << (64 - leading - significant);
+                bit += significant;
+            }
+            putValue(dst, i, shift, value);
+        }
+    }
+
+    private static long getValue(long addr, int i, int shift) {
+        switch (shift) {
+            case 0:
+                return Unsafe.getUnsafe().getByte(addr + i);
+            case 1:
+                return Unsafe.getUnsafe().getShort(addr + ((long) i << 1));
+            case 2:
+                return Unsafe.getUnsafe().getInt(addr + ((long) i << 2));
+            default:
+                return Unsafe.getUnsafe().getLong(addr + ((long) i << 3));
+        }
+    }
+
+    private static void putValue(long addr, int i, int shift, long value) {
+        switch (shift) {
+            case 0:
+                Unsafe.getUnsafe().putByte(addr + i, (byte) value);
+                break;
+            case 1:
+                Unsafe.getUnsafe().putShort(addr + ((long) i << 1), (short) value);
+                break;
+            case 2:
+                Unsafe.getUnsafe().putInt(addr + ((long) i << 2), (int) value);
+                break;
+            default:
+                Unsafe.getUnsafe().putLong(addr + ((long) i << 3), value);
+                break;
+        }
+    }
+
+    private static long unpack(long data, long bitOffset, int width) {
+        if (width == 0) {
+            return 0;
+        }
+        final long addr = data + (bitOffset >>> 6) * 8;
+        final int shift = (int) (bitOffset & 63);
+        long value = Unsafe.getUnsafe().getLong(addr) >>> shift;
+        if (shift + width > 64) {
+            value |= Unsafe.getUnsafe().getLong(addr + 8) << (64 - shift);
+        }
+        return width == 64 ? value : value & ((1L << width) - 1);
+    }
+
+    private static int widthOf(long range) {
+        return 64 - Long.numberOfLeadingZeros(range);
+    }
+
+    private static long blockHeader(int encoding, int width, int n) {
+        return encoding | ((long) width << 8) | ((long) n << 32);
+    }
+
+    private void encodeDod(long addr, int n) {
+        long minDod = Long.MAX_VALUE;
+        long maxDod = Long.MIN_VALUE;
+        for (int i = 2; i < n; i++) {
+            final long dod = getValue(addr, i, 3) - 2 * getValue(addr, i - 1, 3) + getValue(addr, i - 2, 3);
+            minDod = Math.min(minDod, dod);
+            maxDod = Math.max(maxDod, dod);
+        }
+        final int width = n > 2 ? widthOf(maxDod - minDod) : 0;
+        mem.putLong(blockHeader(ENCODING_DOD, width, n));
+        mem.putLong(getValue(addr, 0, 3));
+        if (n > 1) {
+            mem.putLong(getValue(addr, 1, 3) - getValue(addr, 0, 3));
+            if (n > 2) {
+                mem.putLong(minDod);
+                for (int i = 2; i < n; i++) {
+                    final long dod = getValue(addr, i, 3) - 2 * getValue(addr, i - 1, 3) + getValue(addr, i - 2, 3);
+                    putBits(dod - minDod, width);
+                }
+                flushBits();
+            }
+        }
+    }
+
+    private void encodeFor(long addr, int shift, int n) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            final long value = getValue(addr, i, shift);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        final int width = widthOf(max - min);
+        mem.putLong(blockHeader(ENCODING_FOR, width, n));
+        mem.putLong(min);
+        for (int i = 0; i < n; i++) {
+            putBits(getValue(addr, i, shift) - min, width);
+        }
+        flushBits();
+    }
+
+    private void encodeXor(long addr, int shift, int n) {
+        // float bits are zero extended, sign change must not flip upper half of the long
+        final long mask = shift == 2 ? 0xffffffffL : -1L;
+        long prev = getValue(addr, 0, shift) & mask;
+        mem.putLong(blockHeader(ENCODING_XOR, 0, n));
+        mem.putLong(prev);
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (int i = 1; i < n; i++) {
+            final long value = getValue(addr, i, shift) & mask;
+            final long xor = value ^ prev;
+            if (xor == 0) {
+                putBits(0, 1);
+            } else {
+                final int leading = Long.numberOfLeadingZeros(xor);
+                final int trailing = Long.numberOfTrailingZeros(xor);
+                if (prevLeading > -1 && leading >= prevLeading && trailing >= prevTrailing) {
+                    // meaningful bits fit into the window of previous value
+                    putBits(1, 2);
+                    putBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+                } else {
+                    final int significant = 64 - leading - trailing;
+                    putBits(3, 2);
+                    putBits(leading, 6);
+                    putBits(significant - 1, 6);
+                    putBits(xor >>> trailing, significant);
+                    prevLeading = leading;
+                    prevTrailing = trailing;
+                }
+            }
+            prev = value;
+        }
+        flushBits();
+    }
+
+    private void flushBits() {
+        if (wordBits > 0) {
+            mem.putLong(word);
+            word = 0;
+            wordBits = 0;
+        }
+    }
+
+    private void putBits(long value, int width) {
+        if (width == 0) {
+            return;
+        }
+        if (width < 64) {
+            value &= (1L << width) - 1;
+        }
+        word |= value << wordBits;
+        final int free = 64 - wordBits;
+        if (width >= free) {
+            mem.putLong(word);
+            word = free < 64 ? value >>> free : 0;
+            wordBits = width - free;
+        } else {
+            wordBits += width;
+        }
+    }
+}
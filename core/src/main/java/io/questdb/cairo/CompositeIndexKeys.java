@@ -0,0 +1,222 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Table-wide dictionary of composite index keys. Each distinct combination of symbol keys of
+ * composite index columns is given dense int key in the order combinations are first indexed.
+ * Partition composite indexes are bitmap indexes of these keys.
+ * <p>
+ * Dictionary file holds entry count followed by append-only list of entries, one int symbol key
+ * per column. Writer publishes entries before the count, which lets readers look keys up while
+ * writer is adding new ones.
+ */
+public class CompositeIndexKeys implements Closeable {
+    private static final long HEADER_SIZE = Long.BYTES;
+    private static final int MIN_SLOT_COUNT = 64;
+    private final MemoryMR mem;
+    private final MemoryCMARW appendMem;
+    // open addressing hash table of entries, slot holds entry index + 1
+    private final IntList slots = new IntList();
+    private int columnCount;
+    private long entrySize;
+    private int slotMask;
+    private int hashedCount;
+
+    public CompositeIndexKeys(boolean writable) {
+        if (writable) {
+            this.appendMem = Vm.getCMARWInstance();
+            this.mem = appendMem;
+        } else {
+            this.appendMem = null;
+            this.mem = Vm.getMRInstance();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (appendMem != null && appendMem.isOpen()) {
+            appendMem.jumpTo(getEntryOffset(hashedCount));
+        }
+        Misc.free(mem);
+        slots.clear();
+        hashedCount = 0;
+    }
+
+    /**
+     * Finds composite key of combination of symbol keys. Unused trailing symbol keys are ignored
+     * for indexes of fewer than three columns.
+     *
+     * @return composite key or -1 when combination of symbol keys has never been indexed
+     */
+    public int keyOf(int k0, int k1, int k2) {
+        if (appendMem == null) {
+            syncReader();
+        }
+        return find(k0, k1, k2);
+    }
+
+    public boolean isOpen() {
+        return mem.isOpen();
+    }
+
+    /**
+     * Opens dictionary of table. Path has to point to table directory. Reader opens the dictionary
+     * lazily, dictionary does not exist until writer indexes first row.
+     */
+    public void of(FilesFacade ff, Path path, int columnCount) {
+        close();
+        this.columnCount = columnCount;
+        this.entrySize = (long) columnCount * Integer.BYTES;
+        final int plen = path.length();
+        try {
+            path.concat(TableUtils.COMPOSITE_INDEX_KEYS_FILE_NAME).$();
+            if (appendMem != null) {
+                final long fileSize = ff.exists(path) ? ff.length(path) : 0;
+                appendMem.of(ff, path, ff.getPageSize(), Math.max(fileSize, HEADER_SIZE), MemoryTag.MMAP_INDEX_WRITER);
+                if (fileSize < HEADER_SIZE) {
+                    appendMem.putLong(0, 0);
+                }
+                final long count = appendMem.getLong(0);
+                rehash(count);
+                appendMem.jumpTo(getEntryOffset(count));
+            } else if (ff.exists(path)) {
+                mem.of(ff, path, ff.getPageSize(), ff.length(path), MemoryTag.MMAP_INDEX_READER);
+                rehash(0);
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    int getOrAdd(int k0, int k1, int k2) {
+        final int key = find(k0, k1, k2);
+        if (key > -1) {
+            return key;
+        }
+        final int entry = hashedCount;
+        final long offset = getEntryOffset(entry);
+        appendMem.extend(offset + entrySize);
+        appendMem.jumpTo(offset);
+        appendMem.putInt(k0);
+        appendMem.putInt(k1);
+        if (columnCount > 2) {
+            appendMem.putInt(k2);
+        }
+        Unsafe.getUnsafe().storeFence();
+        appendMem.putLong(0, entry + 1);
+        addSlot(entry);
+        return entry;
+    }
+
+    private static int hash(int k0, int k1, int k2) {
+        return Hash.spread((k0 * 31 + k1) * 31 + k2);
+    }
+
+    private void addSlot(int entry) {
+        hashedCount = entry + 1;
+        if (hashedCount * 2 > slots.size()) {
+            rehash(hashedCount);
+            return;
+        }
+        final long offset = getEntryOffset(entry);
+        int slot = hash(mem.getInt(offset), mem.getInt(offset + Integer.BYTES), getThirdKey(offset)) & slotMask;
+        while (slots.getQuick(slot) != 0) {
+            slot = (slot + 1) & slotMask;
+        }
+        slots.setQuick(slot, entry + 1);
+    }
+
+    private int find(int k0, int k1, int k2) {
+        if (hashedCount == 0) {
+            return -1;
+        }
+        if (columnCount < 3) {
+            k2 = 0;
+        }
+        int slot = hash(k0, k1, k2) & slotMask;
+        int value;
+        while ((value = slots.getQuick(slot)) != 0) {
+            final long offset = getEntryOffset(value - 1);
+            if (mem.getInt(offset) == k0 && mem.getInt(offset + Integer.BYTES) == k1 && getThirdKey(offset) == k2) {
+                return value - 1;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return -1;
+    }
+
+    private long getEntryOffset(long entry) {
+        return HEADER_SIZE + entry * entrySize;
+    }
+
+    private int getThirdKey(long offset) {
+        return columnCount > 2 ? mem.getInt(offset + 2 * Integer.BYTES) : 0;
+    }
+
+    private void rehash(long count) {
+        final int slotCount = Math.max(MIN_SLOT_COUNT, Numbers.ceilPow2((int) count * 2 + 1));
+        slots.setAll(slotCount, 0);
+        slotMask = slotCount - 1;
+        hashedCount = 0;
+        for (int entry = 0; entry < count; entry++) {
+            final long offset = getEntryOffset(entry);
+            int slot = hash(mem.getInt(offset), mem.getInt(offset + Integer.BYTES), getThirdKey(offset)) & slotMask;
+            while (slots.getQuick(slot) != 0) {
+                slot = (slot + 1) & slotMask;
+            }
+            slots.setQuick(slot, entry + 1);
+        }
+        hashedCount = (int) count;
+    }
+
+    private void syncReader() {
+        if (!mem.isOpen()) {
+            return;
+        }
+        final long count = mem.getLong(0);
+        if (count > hashedCount) {
+            final long size = getEntryOffset(count);
+            if (mem.size() < size) {
+                mem.extend(size);
+            }
+            Unsafe.getUnsafe().loadFence();
+            for (int entry = hashedCount; entry < count; entry++) {
+                addSlot(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.MemorySRImpl;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Maintains composite index of the active partition. Index key of the row is the key of combination
+ * of row symbol keys in {@link CompositeIndexKeys}. Rows are indexed from the row count the index
+ * already covers, so index of partition rewritten by out of order commit catches up on the next
+ * regular commit.
+ */
+class CompositeIndexer implements ColumnIndexer, Closeable {
+    private static final long SEQUENCE_OFFSET;
+    private final BitmapIndexWriter writer = new BitmapIndexWriter();
+    private final CompositeIndexKeys keys;
+    private final ObjList<MemorySRImpl> columns = new ObjList<>();
+    private final LongList columnTops = new LongList();
+    private final int columnCount;
+    @SuppressWarnings({"unused", "FieldCanBeLocal", "FieldMayBeFinal"})
+    private volatile long sequence = 0L;
+    private volatile boolean distressed = false;
+
+    CompositeIndexer(CompositeIndexKeys keys, int columnCount) {
+        this.keys = keys;
+        this.columnCount = columnCount;
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(new MemorySRImpl());
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(writer);
+        closeSlider();
+    }
+
+    @Override
+    public void closeSlider() {
+        for (int i = 0; i < columnCount; i++) {
+            columns.getQuick(i).close();
+        }
+    }
+
+    /**
+     * Opens index of partition.
+     *
+     * @param columnMems primary memory of composite index columns in index key order
+     * @param columnTops column tops of composite index columns in index key order
+     */
+    public void configure(CairoConfiguration configuration, Path path, ObjList<MemoryMA> columnMems, LongList columnTops) {
+        try {
+            this.writer.of(
+                    configuration,
+                    path,
+                    TableUtils.COMPOSITE_INDEX_NAME,
+                    configuration.getDataIndexKeyAppendPageSize(),
+                    configuration.getDataIndexValueAppendPageSize()
+            );
+            this.columnTops.clear();
+            for (int i = 0; i < columnCount; i++) {
+                this.columns.getQuick(i).of(columnMems.getQuick(i), MemoryTag.MMAP_INDEX_SLIDER);
+                this.columnTops.add(columnTops.getQuick(i));
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void configureFollowerAndWriter(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence name,
+            MemoryMA columnMem,
+            long columnTop
+    ) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void configureWriter(CairoConfiguration configuration, Path path, CharSequence name, long columnTop) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void distress() {
+        distressed = true;
+    }
+
+    @Override
+    public long getFd() {
+        return columns.getQuick(0).getFd();
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public BitmapIndexWriter getWriter() {
+        return writer;
+    }
+
+    @Override
+    public void index(MemoryR mem, long loRow, long hiRow) {
+        index(loRow, hiRow);
+    }
+
+    @Override
+    public boolean isDistressed() {
+        return distressed;
+    }
+
+    @Override
+    public void refreshSourceAndIndex(long loRow, long hiRow) {
+        for (int i = 0; i < columnCount; i++) {
+            columns.getQuick(i).updateSize();
+        }
+        index(loRow, hiRow);
+    }
+
+    @Override
+    public void rollback(long maxRow) {
+        // index that is behind must not claim rows it does not have
+        if (getIndexedRowCount() > maxRow + 1) {
+            writer.rollbackValues(maxRow);
+        }
+    }
+
+    @Override
+    public boolean tryLock(long expectedSequence) {
+        return Unsafe.cas(this, SEQUENCE_OFFSET, expectedSequence, expectedSequence + 1);
+    }
+
+    private int getSymbolKey(int columnIndex, long row) {
+        if (columnIndex >= columnCount) {
+            return 0;
+        }
+        final long top = columnTops.getQuick(columnIndex);
+        return row < top ? SymbolTable.VALUE_IS_NULL : columns.getQuick(columnIndex).getInt((row - top) * Integer.BYTES);
+    }
+
+    private long getIndexedRowCount() {
+        return writer.getKeyCount() > 0 ? writer.getMaxValue() + 1 : 0;
+    }
+
+    private void index(long loRow, long hiRow) {
+        final long indexedRowCount = getIndexedRowCount();
+        final long lo = Math.min(loRow, indexedRowCount);
+        if (lo >= hiRow) {
+            return;
+        }
+        if (indexedRowCount > lo) {
+            writer.rollbackValues(lo - 1);
+        }
+        for (long row = lo; row < hiRow; row++) {
+            writer.add(keys.getOrAdd(getSymbolKey(0, row), getSymbolKey(1, row), getSymbolKey(2, row)), row);
+        }
+        writer.setMaxValue(hiRow - 1);
+    }
+
+    static {
+        SEQUENCE_OFFSET = Unsafe.getFieldOffset(CompositeIndexer.class, "sequence");
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+
+/**
+ * Column of the same value in all rows. Reader serves rows above column top with this column when
+ * column was added with default value. Unlike {@link NullColumn} it can also provide a page filled with
+ * the value, so that page frame consumers, such as vector aggregate functions, see column top as data.
+ */
+public class ConstantColumn extends NullColumn {
+    private final int columnType;
+    private final long value;
+    private final int pageRows;
+    private long pageAddress;
+    private long pageSize;
+
+    public ConstantColumn(int columnType, long value, int pageRows) {
+        this.columnType = columnType;
+        this.value = value;
+        this.pageRows = pageRows;
+    }
+
+    @Override
+    public void close() {
+        if (pageAddress != 0) {
+            Unsafe.free(pageAddress, pageSize, MemoryTag.NATIVE_DEFAULT);
+            pageAddress = 0;
+        }
+    }
+
+    @Override
+    public boolean getBool(long offset) {
+        return value != 0;
+    }
+
+    @Override
+    public byte getByte(long offset) {
+        return (byte) value;
+    }
+
+    @Override
+    public char getChar(long offset) {
+        return (char) value;
+    }
+
+    @Override
+    public double getDouble(long offset) {
+        return Double.longBitsToDouble(value);
+    }
+
+    @Override
+    public float getFloat(long offset) {
+        return Float.intBitsToFloat((int) value);
+    }
+
+    @Override
+    public int getInt(long offset) {
+        return (int) value;
+    }
+
+    @Override
+    public long getLong(long offset) {
+        return value;
+    }
+
+    @Override
+    public short getShort(long offset) {
+        return (short) value;
+    }
+
+    /**
+     * @return address of page filled with column value, page is allocated on first call
+     */
+    public long getValuePageAddress() {
+        if (pageAddress == 0) {
+            pageSize = (long) pageRows << ColumnType.pow2SizeOf(columnType);
+            pageAddress = Unsafe.malloc(pageSize, MemoryTag.NATIVE_DEFAULT);
+            TableUtils.setDefault(columnType, value, pageAddress, pageRows);
+        }
+        return pageAddress;
+    }
+
+    /**
+     * @return number of rows in value page
+     */
+    public int getValuePageRows() {
+        return pageRows;
+    }
+}
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Engine-wide cache of decoded columns of compressed partitions. Table readers are per-thread and
+ * without the cache each of them decodes cold columns into its own memory, the cache lets them
+ * share one decoded copy across readers and queries.
+ * <p>
+ * Entries are keyed by column file name, which includes table, partition with its version txn and
+ * column. File size and modification time are checked on lookup, so that a replaced file is decoded
+ * again. Cache is split into lock-striped segments, each segment is bounded by its share of cache size
+ * and evicts entries that are not in use in CLOCK order. Column that does not fit is decoded for
+ * the reader alone.
+ */
+public class DecodedColumnCache implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(DecodedColumnCache.class);
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final DecodedColumnCacheMetrics metrics;
+
+    public DecodedColumnCache(CairoConfiguration configuration, DecodedColumnCacheMetrics metrics) {
+        final int segmentCount = Numbers.ceilPow2(Math.max(1, configuration.getDecodedColumnCacheSegmentCount()));
+        final long segmentCapacity = configuration.getDecodedColumnCacheSize() / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns decoded column, decoding the file when it is not in the cache.
+     * Entry must be released once caller no longer reads the column.
+     *
+     * @param ff   files facade
+     * @param name compressed column file name
+     * @param fd   descriptor of the file
+     * @return decoded column entry
+     */
+    public Entry acquire(FilesFacade ff, LPSZ name, long fd) {
+        final long fileSize = ff.length(fd);
+        final long modified = ff.getLastModified(name);
+        final Segment segment = segments[Chars.hashCode(name) & segmentMask];
+        Entry entry = segment.get(name, fileSize, modified);
+        if (entry != null) {
+            metrics.markHit();
+            return entry;
+        }
+        metrics.markMiss();
+        entry = decode(ff, name, fd, fileSize, modified, segment);
+        return segment.put(entry);
+    }
+
+    /**
+     * Frees entries that are not in use.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0, n = segments.length; i < n; i++) {
+            segments[i].clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public void release(Entry entry) {
+        entry.owner.release(entry);
+    }
+
+    private static Entry decode(FilesFacade ff, LPSZ name, long fd, long fileSize, long modified, Segment owner) {
+        final long fileAddr = TableUtils.mapRO(ff, fd, fileSize, MemoryTag.MMAP_TABLE_READER);
+        try {
+            final long decodedSize = ColumnCodec.getRowCount(fileAddr) << ColumnCodec.getValueSizePow2(fileAddr);
+            long address = 0;
+            if (decodedSize > 0) {
+                address = Unsafe.malloc(decodedSize, MemoryTag.NATIVE_COLUMN_CACHE);
+                ColumnCodec.decode(fileAddr, address);
+            }
+            LOG.debug().$("decoded [file=").$(name).$(", size=").$(decodedSize).$(']').$();
+            return new Entry(owner, Chars.toString(name), fileSize, modified, address, decodedSize);
+        } finally {
+            ff.munmap(fileAddr, fileSize, MemoryTag.MMAP_TABLE_READER);
+        }
+    }
+
+    public static class Entry {
+        private final Segment owner;
+        private final String name;
+        private final long fileSize;
+        private final long modified;
+        private final long size;
+        private long address;
+        private int refCount = 1;
+        // CLOCK reference bit, entry that was used since hand passed it survives the next pass
+        private boolean referenced;
+        private boolean cached;
+
+        private Entry(Segment owner, String name, long fileSize, long modified, long address, long size) {
+            this.owner = owner;
+            this.name = name;
+            this.fileSize = fileSize;
+            this.modified = modified;
+            this.address = address;
+            this.size = size;
+        }
+
+        public long getAddress() {
+            return address;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        private void free() {
+            if (address != 0) {
+                Unsafe.free(address, size, MemoryTag.NATIVE_COLUMN_CACHE);
+                address = 0;
+            }
+        }
+
+        private boolean isVersionOf(long fileSize, long modified) {
+            return this.fileSize == fileSize && this.modified == modified;
+        }
+    }
+
+    private class Segment {
+        private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+        private final ObjList<Entry> clock = new ObjList<>();
+        private final long capacity;
+        private int hand;
+        private long size;
+
+        private Segment(long capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized void clear() {
+            for (int i = clock.size() - 1; i > -1; i--) {
+                final Entry entry = clock.getQuick(i);
+                if (entry.refCount == 0) {
+                    remove(entry);
+                }
+            }
+        }
+
+        private boolean evict(long required) {
+            int scanned = 0;
+            while (size + required > capacity) {
+                final int n = clock.size();
+                // two passes clear all reference bits, entries that remain are in use
+                if (n == 0 || scanned > 2 * n) {
+                    return false;
+                }
+                if (hand >= n) {
+                    hand = 0;
+                }
+                final Entry entry = clock.getQuick(hand);
+                if (entry.refCount == 0 && !entry.referenced) {
+                    remove(entry);
+                    metrics.markEviction();
+                } else {
+                    entry.referenced = false;
+                    hand++;
+                    scanned++;
+                }
+            }
+            return true;
+        }
+
+        private synchronized Entry get(CharSequence name, long fileSize, long modified) {
+            final Entry entry = entries.get(name);
+            if (entry != null) {
+                if (entry.isVersionOf(fileSize, modified)) {
+                    entry.refCount++;
+                    entry.referenced = true;
+                    return entry;
+                }
+                // file was replaced since it was decoded
+                remove(entry);
+            }
+            return null;
+        }
+
+        private synchronized Entry put(Entry entry) {
+            final Entry existing = entries.get(entry.name);
+            if (existing != null) {
+                if (existing.isVersionOf(entry.fileSize, entry.modified)) {
+                    // another reader decoded the same file concurrently
+                    entry.free();
+                    existing.refCount++;
+                    existing.referenced = true;
+                    return existing;
+                }
+                remove(existing);
+            }
+
+            if (entry.size <= capacity && evict(entry.size)) {
+                entries.put(entry.name, entry);
+                clock.add(entry);
+                size += entry.size;
+                entry.cached = true;
+            }
+            return entry;
+        }
+
+        private synchronized void release(Entry entry) {
+            if (--entry.refCount == 0 && !entry.cached) {
+                entry.free();
+            }
+        }
+
+        // entry that is in use is freed by the last release
+        private void remove(Entry entry) {
+            final int index = clock.indexOf(entry);
+            clock.remove(index);
+            if (index < hand) {
+                hand--;
+            }
+            entries.remove(entry.name);
+            size -= entry.size;
+            entry.cached = false;
+            if (entry.refCount == 0) {
+                entry.free();
+            }
+        }
+    }
+}
@@ -73,6 +73,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 8;
     }
 
+    @Override
+    public int getBloomFilterBitsPerValue() {
+        return 10;
+    }
+
     @Override
     public int getO3PurgeDiscoveryQueueCapacity() {
         return 1024;
@@ -103,6 +108,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 5;
     }
 
+    @Override
+    public int getDecodedColumnCacheSegmentCount() {
+        return 16;
+    }
+
+    @Override
+    public long getDecodedColumnCacheSize() {
+        return 128 * 1024 * 1024;
+    }
+
     @Override
     public CharSequence getDefaultMapType() {
         return "fast";
@@ -133,6 +148,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 100;
     }
 
+    @Override
+    public int getHotPartitionCount() {
+        return 0;
+    }
+
     @Override
     public long getInactiveReaderTTL() {
         return -10000;
@@ -193,6 +213,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return root;
     }
 
+    @Override
+    public String getVolumePath(CharSequence alias) {
+        return null;
+    }
+
     @Override
     public CharSequence getDbDirectory() {
         return PropServerConfiguration.DB_DIRECTORY;
@@ -330,6 +355,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public int getSqlSortTopKMaxRows() {
+        return 10_000;
+    }
+
+    @Override
+    public CharSequence getSqlSpillRoot() {
+        return null;
+    }
+
+    @Override
+    public long getSqlSpillThreshold() {
+        return 256 * Numbers.SIZE_1MB;
+    }
+
     @Override
     public int getSqlHashJoinValuePageSize() {
         return Numbers.SIZE_1MB * 16;
@@ -410,6 +450,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isPartitionPrefetchEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isPostingIndexEnabled() {
+        return false;
+    }
+
     @Override
     public int getSqlJoinMetadataPageSize() {
         return 16 * 1024;
@@ -584,4 +634,54 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     public int getO3ColumnMemorySize() {
         return 16 * Numbers.SIZE_1MB;
     }
+
+    @Override
+    public int getPageFrameFilterQueueCapacity() {
+        return 64;
+    }
+
+    @Override
+    public int getSqlPageFrameMaxRows() {
+        return 1_000_000;
+    }
+
+    @Override
+    public int getSqlPageFrameReadAheadSize() {
+        return 0;
+    }
+
+    @Override
+    public int getColumnDefaultPageRows() {
+        return 64 * 1024;
+    }
+
+    @Override
+    public boolean isSqlParallelFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlFilterCompilerEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isWalEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isZoneMapEnabled() {
+        return true;
+    }
 }
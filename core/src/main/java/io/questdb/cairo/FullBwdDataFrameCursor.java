@@ -30,17 +30,33 @@ public class FullBwdDataFrameCursor extends AbstractFullDataFrameCursor {
 
     @Override
     public DataFrame next() {
+        if (partitionRowLo < partitionRowHi) {
+            final DataFrame rows = nextRows(partitionIndex + 1);
+            if (rows != null) {
+                return rows;
+            }
+        }
         while (this.partitionIndex > -1) {
+            if (pruner != null && pruner.canSkip(reader, partitionIndex)) {
+                partitionIndex--;
+                continue;
+            }
             final long hi = reader.openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
                 partitionIndex--;
             } else {
-                frame.partitionIndex = partitionIndex;
-                frame.rowHi = hi;
                 partitionIndex--;
-                return frame;
-
+                adviseSequentialScan(partitionIndex + 1, partitionIndex);
+                if (getRowBlockSize() == 0) {
+                    return of(partitionIndex + 1, 0, hi);
+                }
+                partitionRowLo = 0;
+                partitionRowHi = hi;
+                final DataFrame rows = nextRows(partitionIndex + 1);
+                if (rows != null) {
+                    return rows;
+                }
             }
         }
         return null;
@@ -49,5 +65,38 @@ public class FullBwdDataFrameCursor extends AbstractFullDataFrameCursor {
     @Override
     public void toTop() {
         this.partitionIndex = this.partitionHi - 1;
+        this.partitionRowLo = 0;
+        this.partitionRowHi = 0;
+        this.openedPartitionCount = 0;
+    }
+
+    // next run of row blocks pruner cannot skip, blocks are visited from the end of partition
+    private DataFrame nextRows(int partitionIndex) {
+        final long blockSize = getRowBlockSize();
+        long hi = partitionRowHi;
+        while (hi > partitionRowLo && canSkipBlock(partitionIndex, blockLo(hi - 1, blockSize), blockSize)) {
+            hi = blockLo(hi - 1, blockSize);
+        }
+        if (hi <= partitionRowLo) {
+            partitionRowHi = partitionRowLo;
+            return null;
+        }
+        long lo = blockLo(hi - 1, blockSize);
+        partitionRowHi = lo;
+        while (lo > partitionRowLo) {
+            final long blockLo = blockLo(lo - 1, blockSize);
+            if (canSkipBlock(partitionIndex, blockLo, blockSize)) {
+                // no need to check this block again
+                partitionRowHi = blockLo;
+                break;
+            }
+            lo = blockLo;
+            partitionRowHi = lo;
+        }
+        return of(partitionIndex, lo, hi);
+    }
+
+    private static long blockLo(long row, long blockSize) {
+        return row - row % blockSize;
     }
 }
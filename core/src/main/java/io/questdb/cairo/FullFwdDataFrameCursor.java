@@ -31,17 +31,33 @@ public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
 
     @Override
     public @Nullable DataFrame next() {
+        if (partitionRowLo < partitionRowHi) {
+            final DataFrame rows = nextRows(partitionIndex - 1);
+            if (rows != null) {
+                return rows;
+            }
+        }
         while (this.partitionIndex < partitionHi) {
+            if (pruner != null && pruner.canSkip(reader, partitionIndex)) {
+                partitionIndex++;
+                continue;
+            }
             final long hi = getTableReader().openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
                 partitionIndex++;
             } else {
-                frame.partitionIndex = partitionIndex;
-                frame.rowHi = hi;
                 partitionIndex++;
-                return frame;
-
+                adviseSequentialScan(partitionIndex - 1, partitionIndex);
+                if (getRowBlockSize() == 0) {
+                    return of(partitionIndex - 1, 0, hi);
+                }
+                partitionRowLo = 0;
+                partitionRowHi = hi;
+                final DataFrame rows = nextRows(partitionIndex - 1);
+                if (rows != null) {
+                    return rows;
+                }
             }
         }
         return null;
@@ -51,5 +67,33 @@ public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
     @Override
     public void toTop() {
         this.partitionIndex = 0;
+        this.partitionRowLo = 0;
+        this.partitionRowHi = 0;
+        this.openedPartitionCount = 0;
+    }
+
+    // next run of row blocks pruner cannot skip
+    private DataFrame nextRows(int partitionIndex) {
+        final long blockSize = getRowBlockSize();
+        long lo = partitionRowLo;
+        while (lo < partitionRowHi && canSkipBlock(partitionIndex, lo, blockSize)) {
+            lo += blockSize;
+        }
+        if (lo >= partitionRowHi) {
+            partitionRowLo = partitionRowHi;
+            return null;
+        }
+        long hi = Math.min(lo + blockSize, partitionRowHi);
+        partitionRowLo = hi;
+        while (hi < partitionRowHi) {
+            if (canSkipBlock(partitionIndex, hi, blockSize)) {
+                // no need to check this block again
+                partitionRowLo = Math.min(hi + blockSize, partitionRowHi);
+                break;
+            }
+            hi = Math.min(hi + blockSize, partitionRowHi);
+            partitionRowLo = hi;
+        }
+        return of(partitionIndex, lo, hi);
     }
 }
@@ -25,7 +25,9 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.PartitionPruner;
 import io.questdb.griffin.SqlExecutionContext;
+import org.jetbrains.annotations.Nullable;
 
 public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final FullFwdDataFrameCursor cursor = new FullFwdDataFrameCursor();
@@ -38,4 +40,9 @@ public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
     public DataFrameCursor getCursor(SqlExecutionContext executionContext) {
         return cursor.of(getReader(executionContext.getCairoSecurityContext()));
     }
+
+    @Override
+    public void setPartitionPruner(@Nullable PartitionPruner pruner) {
+        cursor.setPartitionPruner(pruner);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.questdb.cairo.GeoHashIndexUtils.*;
+
+/**
+ * Read-only view of geohash prefix index of a column in one partition. The view remains open
+ * while the same partition is looked at, the file is re-mapped when index has grown.
+ */
+public class GeoHashIndexReader implements Closeable {
+    private static final int MAX_ATTEMPTS = 64;
+    private final FilesFacade ff;
+    private final MemoryMR mem = Vm.getMRInstance();
+    private long partitionTimestamp = Long.MIN_VALUE;
+    private long partitionNameTxn = -1;
+
+    public GeoHashIndexReader(FilesFacade ff) {
+        this.ff = ff;
+    }
+
+    @Override
+    public void close() {
+        mem.close();
+        partitionTimestamp = Long.MIN_VALUE;
+        partitionNameTxn = -1;
+    }
+
+    /**
+     * Collects rows which have value in any of given ranges. Rows are added in no particular order.
+     *
+     * @param valueRanges pairs of inclusive range lo and hi, see {@link GeoHashIndexUtils#addPrefixRange}
+     * @param rowLo       first row, inclusive
+     * @param rowHi       last row, exclusive
+     * @param rows        rows are added to this list
+     * @return number of partition rows index covers, rows at and above have to be scanned
+     */
+    public long getRows(LongList valueRanges, long rowLo, long rowHi, LongList rows) {
+        final int pos = rows.size();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            final long sequence = mem.getLong(HEADER_OFFSET_SEQUENCE);
+            Unsafe.getUnsafe().loadFence();
+            if ((sequence & 1) == 0) {
+                final long rowCount = mem.getLong(HEADER_OFFSET_ROW_COUNT);
+                final long runCount = mem.getLong(HEADER_OFFSET_RUN_COUNT);
+                if (runCount > -1 && runCount <= MAX_RUN_COUNT && map(runCount > 0 ? mem.getLong(HEADER_OFFSET_RUN_HI + (runCount - 1) * Long.BYTES) : HEADER_SIZE)) {
+                    if (collect(runCount, valueRanges, rowLo, Math.min(rowHi, rowCount), rows)) {
+                        Unsafe.getUnsafe().loadFence();
+                        if (mem.getLong(HEADER_OFFSET_SEQUENCE) == sequence) {
+                            return rowCount;
+                        }
+                    }
+                }
+            }
+            rows.setPos(pos);
+            LockSupport.parkNanos(1);
+        }
+        // writer keeps changing the index, caller will scan
+        return 0;
+    }
+
+    /**
+     * Opens index file of the partition, unless it is already open.
+     *
+     * @param path               partition directory, it is left unchanged
+     * @param columnName         name of the column
+     * @param partitionTimestamp partition timestamp
+     * @param partitionNameTxn   partition name txn
+     * @return true when index is available
+     */
+    public boolean of(Path path, CharSequence columnName, long partitionTimestamp, long partitionNameTxn) {
+        if (this.partitionTimestamp != partitionTimestamp || this.partitionNameTxn != partitionNameTxn) {
+            close();
+            this.partitionTimestamp = partitionTimestamp;
+            this.partitionNameTxn = partitionNameTxn;
+            final int plen = path.length();
+            try {
+                if (ff.exists(fileName(path, columnName))) {
+                    final long fileSize = ff.length(path);
+                    if (fileSize >= HEADER_SIZE) {
+                        mem.of(ff, path, 0, fileSize, MemoryTag.MMAP_INDEX_READER);
+                    }
+                }
+            } finally {
+                path.trimTo(plen);
+            }
+        }
+        return mem.isOpen();
+    }
+
+    private boolean collect(long runCount, LongList valueRanges, long rowLo, long rowHi, LongList rows) {
+        final long headerAddress = mem.addressOf(0);
+        final long size = mem.size();
+        long runLo = HEADER_SIZE;
+        for (long run = 0; run < runCount; run++) {
+            final long runHi = getRunHi(headerAddress, run);
+            if (runHi < runLo || runHi > size) {
+                // header is being changed under us
+                return false;
+            }
+            final long runAddress = headerAddress + runLo;
+            final long count = (runHi - runLo) / ENTRY_SIZE;
+            for (int i = 0, n = valueRanges.size(); i < n; i += 2) {
+                final long valueHi = valueRanges.getQuick(i + 1);
+                for (long e = searchRun(runAddress, count, valueRanges.getQuick(i)); e < count; e++) {
+                    final long p = runAddress + e * ENTRY_SIZE;
+                    if (Unsafe.getUnsafe().getLong(p) > valueHi) {
+                        break;
+                    }
+                    final long row = Unsafe.getUnsafe().getLong(p + Long.BYTES);
+                    if (row >= rowLo && row < rowHi) {
+                        rows.add(row);
+                    }
+                }
+            }
+            runLo = runHi;
+        }
+        return true;
+    }
+
+    private boolean map(long size) {
+        if (size > mem.size()) {
+            if (size > ff.length(mem.getFd())) {
+                return false;
+            }
+            mem.extend(size);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.LongList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+/**
+ * Geohash prefix index file structure, one file per column and partition
+ * struct {
+ * long sequence; // odd while writer changes the file
+ * long row_count; // partition rows covered by the index
+ * long run_count;
+ * long reserved;
+ * long run_hi[MAX_RUN_COUNT]; // file offset each run ends at, run starts where previous run ends
+ * entry entries[];
+ * }
+ * struct entry {
+ * long geohash;
+ * long row;
+ * }
+ * <p>
+ * Every commit adds a run of entries sorted by geohash. New run is merged with the previous run unless
+ * the previous run is more than twice as large, which keeps the number of runs logarithmic to row count.
+ * Geohash prefix is a range of values, each run is binary searched for the start of the range.
+ * Null values are not indexed.
+ */
+public final class GeoHashIndexUtils {
+    public static final int MAX_RUN_COUNT = 64;
+    static final long HEADER_OFFSET_SEQUENCE = 0;
+    static final long HEADER_OFFSET_ROW_COUNT = 8;
+    static final long HEADER_OFFSET_RUN_COUNT = 16;
+    static final long HEADER_OFFSET_RUN_HI = 32;
+    static final long HEADER_SIZE = HEADER_OFFSET_RUN_HI + MAX_RUN_COUNT * Long.BYTES;
+    static final long ENTRY_SIZE = 2 * Long.BYTES;
+
+    private GeoHashIndexUtils() {
+    }
+
+    /**
+     * Adds inclusive range of column values that share a geohash prefix.
+     *
+     * @param norm        prefix value shifted to column precision, see {@link GeoHashes#addNormalizedGeoPrefix}
+     * @param mask        prefix mask, see {@link GeoHashes#addNormalizedGeoPrefix}
+     * @param valueRanges pairs of range lo and hi
+     */
+    public static void addPrefixRange(long norm, long mask, LongList valueRanges) {
+        // mask bits start where prefix starts, the most significant bit of column excludes nulls
+        final int shift = Long.numberOfTrailingZeros(mask);
+        valueRanges.add(norm);
+        valueRanges.add(norm + (1L << shift) - 1);
+    }
+
+    public static Path fileName(Path path, CharSequence name) {
+        return path.concat(name).put(".gi").$();
+    }
+
+    /**
+     * Finds first entry of the run that has value not less than given.
+     *
+     * @param lo    address of first entry
+     * @param count entry count
+     * @param value value to look for
+     * @return index of the entry, count when all values are less
+     */
+    static long searchRun(long lo, long count, long value) {
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            final long mid = (low + high) >>> 1;
+            if (Unsafe.getUnsafe().getLong(lo + mid * ENTRY_SIZE) < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static long getRunLo(long headerAddress, long run) {
+        return run == 0 ? HEADER_SIZE : Unsafe.getUnsafe().getLong(headerAddress + HEADER_OFFSET_RUN_HI + (run - 1) * Long.BYTES);
+    }
+
+    static long getRunHi(long headerAddress, long run) {
+        return Unsafe.getUnsafe().getLong(headerAddress + HEADER_OFFSET_RUN_HI + run * Long.BYTES);
+    }
+}
@@ -0,0 +1,316 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.MemorySRImpl;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.GeoHashIndexUtils.*;
+
+/**
+ * Adds values of the active partition to the geohash prefix index file of the column. Rows are added from
+ * the row count the file already covers, so index catches up with rows written by out of order commits on
+ * the next regular commit. Readers are not locked out, instead the file header carries a sequence, which
+ * is odd while runs are being merged or rolled back.
+ */
+class GeoHashIndexer implements ColumnIndexer, Closeable {
+    private static final long SEQUENCE_OFFSET;
+    private final MemoryCMARW mem = Vm.getCMARWInstance();
+    private final MemorySRImpl primary = new MemorySRImpl();
+    private final int valueSizeMsb;
+    private long columnTop;
+    // file is never truncated below what readers might have mapped
+    private long fileHi;
+    private long mergeAddress;
+    private long mergeSize;
+    @SuppressWarnings({"unused", "FieldCanBeLocal", "FieldMayBeFinal"})
+    private volatile long sequence = 0L;
+    private volatile boolean distressed = false;
+
+    GeoHashIndexer(int columnType) {
+        this.valueSizeMsb = ColumnType.pow2SizeOf(columnType);
+    }
+
+    @Override
+    public void close() {
+        if (mem.isOpen()) {
+            mem.jumpTo(fileHi);
+        }
+        Misc.free(mem);
+        closeSlider();
+        if (mergeAddress != 0) {
+            Unsafe.free(mergeAddress, mergeSize, MemoryTag.NATIVE_DEFAULT);
+            mergeAddress = 0;
+            mergeSize = 0;
+        }
+    }
+
+    @Override
+    public void closeSlider() {
+        Misc.free(primary);
+    }
+
+    @Override
+    public void configureFollowerAndWriter(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence name,
+            MemoryMA columnMem,
+            long columnTop
+    ) {
+        this.columnTop = columnTop;
+        final FilesFacade ff = configuration.getFilesFacade();
+        final int plen = path.length();
+        try {
+            fileName(path, name);
+            final long fileSize = ff.exists(path) ? ff.length(path) : 0;
+            fileHi = Math.max(fileSize, HEADER_SIZE);
+            mem.of(ff, path, ff.getPageSize(), fileHi, MemoryTag.MMAP_INDEX_WRITER);
+            final long runCount = fileSize >= HEADER_SIZE ? mem.getLong(HEADER_OFFSET_RUN_COUNT) : -1;
+            if (runCount < 0 || runCount > MAX_RUN_COUNT || (mem.getLong(HEADER_OFFSET_SEQUENCE) & 1) != 0) {
+                // new file or writer did not finish changing it, start over
+                beginChange();
+                mem.putLong(HEADER_OFFSET_ROW_COUNT, 0);
+                mem.putLong(HEADER_OFFSET_RUN_COUNT, 0);
+                endChange();
+            }
+            mem.jumpTo(fileHi);
+            primary.of(columnMem, MemoryTag.MMAP_INDEX_SLIDER);
+        } catch (Throwable e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    @Override
+    public void configureWriter(CairoConfiguration configuration, Path path, CharSequence name, long columnTop) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void distress() {
+        distressed = true;
+    }
+
+    @Override
+    public long getFd() {
+        return mem.getFd();
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public BitmapIndexWriter getWriter() {
+        return null;
+    }
+
+    @Override
+    public void index(MemoryR mem, long loRow, long hiRow) {
+        index0(mem, hiRow);
+    }
+
+    @Override
+    public boolean isDistressed() {
+        return distressed;
+    }
+
+    @Override
+    public void refreshSourceAndIndex(long loRow, long hiRow) {
+        primary.updateSize();
+        index0(primary, hiRow);
+    }
+
+    @Override
+    public void rollback(long maxRow) {
+        if (!mem.isOpen() || mem.getLong(HEADER_OFFSET_ROW_COUNT) <= maxRow + 1) {
+            return;
+        }
+        final long headerAddress = mem.addressOf(0);
+        final long runCount = mem.getLong(HEADER_OFFSET_RUN_COUNT);
+        beginChange();
+        long runLo = HEADER_SIZE;
+        long dst = HEADER_SIZE;
+        int keptRunCount = 0;
+        for (int run = 0; run < runCount; run++) {
+            final long runHi = getRunHi(headerAddress, run);
+            final long keptLo = dst;
+            for (long p = runLo; p < runHi; p += ENTRY_SIZE) {
+                final long address = headerAddress + p;
+                if (Unsafe.getUnsafe().getLong(address + Long.BYTES) <= maxRow) {
+                    if (dst != p) {
+                        Vect.memcpy(headerAddress + dst, address, ENTRY_SIZE);
+                    }
+                    dst += ENTRY_SIZE;
+                }
+            }
+            if (dst > keptLo) {
+                mem.putLong(HEADER_OFFSET_RUN_HI + (long) keptRunCount++ * Long.BYTES, dst);
+            }
+            runLo = runHi;
+        }
+        mem.putLong(HEADER_OFFSET_RUN_COUNT, keptRunCount);
+        mem.putLong(HEADER_OFFSET_ROW_COUNT, Math.max(0, maxRow + 1));
+        endChange();
+    }
+
+    @Override
+    public boolean tryLock(long expectedSequence) {
+        return Unsafe.cas(this, SEQUENCE_OFFSET, expectedSequence, expectedSequence + 1);
+    }
+
+    private void beginChange() {
+        mem.putLong(HEADER_OFFSET_SEQUENCE, mem.getLong(HEADER_OFFSET_SEQUENCE) + 1);
+        Unsafe.getUnsafe().storeFence();
+    }
+
+    private void endChange() {
+        Unsafe.getUnsafe().storeFence();
+        mem.putLong(HEADER_OFFSET_SEQUENCE, mem.getLong(HEADER_OFFSET_SEQUENCE) + 1);
+    }
+
+    private void extend(long size) {
+        if (size > fileHi) {
+            mem.extend(size);
+            mem.jumpTo(size);
+            fileHi = size;
+        }
+    }
+
+    private void index0(MemoryR src, long hiRow) {
+        final long rowCount = mem.getLong(HEADER_OFFSET_ROW_COUNT);
+        if (rowCount >= hiRow) {
+            return;
+        }
+        long runCount = mem.getLong(HEADER_OFFSET_RUN_COUNT);
+        final long runLo = runCount > 0 ? getRunHi(mem.addressOf(0), runCount - 1) : HEADER_SIZE;
+        // rows above column top are nulls, nulls are not indexed
+        final long lo = Math.max(rowCount, columnTop);
+        long runHi = runLo;
+        if (lo < hiRow) {
+            // entries of the new run are written past published runs, readers do not look there
+            extend(runLo + (hiRow - lo) * ENTRY_SIZE);
+            final long runAddress = mem.addressOf(runLo);
+            long p = runAddress;
+            for (long row = lo; row < hiRow; row++) {
+                final long value = readValue(src, row - columnTop);
+                if (value != GeoHashes.NULL) {
+                    Unsafe.getUnsafe().putLong(p, value);
+                    Unsafe.getUnsafe().putLong(p + Long.BYTES, row);
+                    p += ENTRY_SIZE;
+                }
+            }
+            if (p > runAddress) {
+                Vect.sortLongIndexAscInPlace(runAddress, (p - runAddress) / ENTRY_SIZE);
+            }
+            runHi = runLo + p - runAddress;
+        }
+
+        beginChange();
+        if (runHi > runLo) {
+            mem.putLong(HEADER_OFFSET_RUN_HI + runCount * Long.BYTES, runHi);
+            runCount++;
+            runCount = mergeRuns(runCount);
+            mem.putLong(HEADER_OFFSET_RUN_COUNT, runCount);
+        }
+        mem.putLong(HEADER_OFFSET_ROW_COUNT, hiRow);
+        endChange();
+    }
+
+    private void merge(long lo, long mid, long hi) {
+        final long size = hi - lo;
+        if (size > mergeSize) {
+            mergeAddress = Unsafe.realloc(mergeAddress, mergeSize, size, MemoryTag.NATIVE_DEFAULT);
+            mergeSize = size;
+        }
+        final long base = mem.addressOf(0);
+        long a = base + lo;
+        final long aHi = base + mid;
+        long b = aHi;
+        final long bHi = base + hi;
+        long dst = mergeAddress;
+        while (a < aHi && b < bHi) {
+            if (Unsafe.getUnsafe().getLong(b) < Unsafe.getUnsafe().getLong(a)) {
+                Vect.memcpy(dst, b, ENTRY_SIZE);
+                b += ENTRY_SIZE;
+            } else {
+                Vect.memcpy(dst, a, ENTRY_SIZE);
+                a += ENTRY_SIZE;
+            }
+            dst += ENTRY_SIZE;
+        }
+        if (a < aHi) {
+            Vect.memcpy(dst, a, aHi - a);
+        } else if (b < bHi) {
+            Vect.memcpy(dst, b, bHi - b);
+        }
+        Vect.memcpy(base + lo, mergeAddress, size);
+    }
+
+    private long mergeRuns(long runCount) {
+        final long headerAddress = mem.addressOf(0);
+        while (runCount > 1) {
+            final long prevLo = getRunLo(headerAddress, runCount - 2);
+            final long prevHi = getRunHi(headerAddress, runCount - 2);
+            final long lastHi = getRunHi(headerAddress, runCount - 1);
+            if (prevHi - prevLo > 2 * (lastHi - prevHi) && runCount < MAX_RUN_COUNT) {
+                break;
+            }
+            merge(prevLo, prevHi, lastHi);
+            runCount--;
+            mem.putLong(HEADER_OFFSET_RUN_HI + (runCount - 1) * Long.BYTES, lastHi);
+        }
+        return runCount;
+    }
+
+    private long readValue(MemoryR src, long row) {
+        switch (valueSizeMsb) {
+            case 0:
+                return src.getByte(row);
+            case 1:
+                return src.getShort(row << 1);
+            case 2:
+                return src.getInt(row << 2);
+            default:
+                return src.getLong(row << 3);
+        }
+    }
+
+    static {
+        SEQUENCE_OFFSET = Unsafe.getFieldOffset(GeoHashIndexer.class, "sequence");
+    }
+}
@@ -25,10 +25,12 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.PartitionPruner;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
 import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
 
 public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final IntervalBwdDataFrameCursor cursor;
@@ -53,6 +55,11 @@ public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
         return cursor;
     }
 
+    @Override
+    public void setPartitionPruner(@Nullable PartitionPruner pruner) {
+        cursor.setPartitionPruner(pruner);
+    }
+
     @Override
     public void close() {
         Misc.free(intervals);
@@ -24,6 +24,7 @@
 
 package io.questdb.cairo;
 
+import io.questdb.std.LongList;
 import io.questdb.std.Mutable;
 import io.questdb.std.ObjList;
 
@@ -32,6 +33,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class O3Basket implements Mutable {
     private final ObjList<BitmapIndexWriter> indexers = new ObjList<BitmapIndexWriter>();
     private final ObjList<AtomicInteger> partCounters = new ObjList<AtomicInteger>();
+    private final O3Dedup dedup = new O3Dedup();
+    private final LongList dedupFiles = new LongList();
     private int indexerPointer;
     private int partCounterPointer;
     private int columnCount;
@@ -50,6 +53,14 @@ public class O3Basket implements Mutable {
         ensureCapacity0(columnCount, indexCount);
     }
 
+    public O3Dedup getDedup() {
+        return dedup;
+    }
+
+    public LongList getDedupFiles() {
+        return dedupFiles;
+    }
+
     public BitmapIndexWriter nextIndexer() {
         return indexers.getQuick(indexerPointer++);
     }
@@ -73,6 +73,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long srcOooMax,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long timestampMin,
             long timestampMax,
             long partitionTimestamp, // <-- this is used to determine if partition is last or not as well as partition dir
@@ -133,6 +134,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                         srcOooVarAddr,
                         srcOooLo,
                         srcOooHi,
+                        dedupRowCount,
                         dstFixAddr + dstFixOffset,
                         dstVarAddr,
                         dstVarOffset,
@@ -182,6 +184,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 srcOooMax,
                 srcOooPartitionLo,
                 srcOooPartitionHi,
+                dedupRowCount,
                 timestampMin,
                 timestampMax,
                 partitionTimestamp,
@@ -230,6 +233,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
         final long srcOooMax = task.getSrcOooMax();
         final long srcOooPartitionLo = task.getSrcOooPartitionLo();
         final long srcOooPartitionHi = task.getSrcOooPartitionHi();
+        final long dedupRowCount = task.getDedupRowCount();
         final long timestampMin = task.getTimestampMin();
         final long timestampMax = task.getTimestampMax();
         final long partitionTimestamp = task.getPartitionTimestamp();
@@ -282,6 +286,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 srcOooMax,
                 srcOooPartitionLo,
                 srcOooPartitionHi,
+                dedupRowCount,
                 timestampMin,
                 timestampMax,
                 partitionTimestamp,
@@ -323,6 +328,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long srcOooMax,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long timestampMin,
             long timestampMax,
             long partitionTimestamp,
@@ -393,6 +399,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                         srcOooMax,
                         srcOooPartitionLo,
                         srcOooPartitionHi,
+                        dedupRowCount,
                         timestampMin,
                         timestampMax,
                         partitionTimestamp,
@@ -412,6 +419,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long srcOooMax,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long timestampMin,
             long timestampMax,
             long partitionTimestamp,
@@ -430,6 +438,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 notifyWriter(
                         srcOooPartitionLo,
                         srcOooPartitionHi,
+                        dedupRowCount,
                         timestampMin,
                         timestampMax,
                         partitionTimestamp,
@@ -660,6 +669,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
     static void notifyWriter(
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long timestampMin,
             long timestampMax,
             long partitionTimestamp,
@@ -674,6 +684,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                     cursor,
                     srcOooPartitionLo,
                     srcOooPartitionHi,
+                    dedupRowCount,
                     partitionTimestamp,
                     srcDataMax,
                     partitionMutates,
@@ -684,6 +695,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                     cursor,
                     srcOooPartitionLo,
                     srcOooPartitionHi,
+                    dedupRowCount,
                     timestampMin,
                     timestampMax,
                     partitionTimestamp,
@@ -699,6 +711,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long cursor,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long timestampMin,
             long timestampMax,
             long partitionTimestamp,
@@ -716,6 +729,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                     cursor,
                     srcOooPartitionLo,
                     srcOooPartitionHi,
+                    dedupRowCount,
                     partitionTimestamp,
                     srcDataMax,
                     partitionMutates,
@@ -728,6 +742,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                     partitionTimestamp,
                     srcOooPartitionLo,
                     srcOooPartitionHi,
+                    dedupRowCount,
                     partitionMutates,
                     srcOooMax,
                     srcDataMax
@@ -739,6 +754,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long cursor,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long partitionTimestamp,
             long srcDataMax,
             boolean partitionMutates,
@@ -749,6 +765,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 partitionTimestamp,
                 srcOooPartitionLo,
                 srcOooPartitionHi,
+                dedupRowCount,
                 srcDataMax,
                 partitionMutates
         );
@@ -899,12 +916,14 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long srcOooVarAddr,
             long srcOooLo,
             long srcOooHi,
+            long dedupRowCount,
             long dstFixAddr,
             long dstVarAddr,
             long dstVarOffset,
             long dstVarOffsetEnd
     ) {
-        final long rowCount = srcOooHi - srcOooLo + 1 + srcDataHi - srcDataLo + 1;
+        // deduplication removes rows from the merge index, it is shorter than the sum of its inputs
+        final long rowCount = srcOooHi - srcOooLo + 1 + srcDataHi - srcDataLo + 1 - dedupRowCount;
         switch (ColumnType.tagOf(columnType)) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
@@ -0,0 +1,319 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Finds rows that repeat the deduplication key of a table in timestamp merge indexes. The key is
+ * the designated timestamp and the columns flagged as deduplication keys. Index entries are sorted
+ * by timestamp, so only rows within a run of equal timestamps are compared.
+ * <p>
+ * Row references with the top bit set point at partition data, the others point at O3 memory.
+ * The newest row survives: O3 rows replace partition rows and among O3 rows the one written last
+ * wins. Rows that are already in the partition are never compared with each other.
+ * <p>
+ * Duplicates are marked by setting their timestamp to Long.MIN_VALUE and are then removed by
+ * {@link #compact(long, long, long, long)}. Key columns have to be defined at table creation
+ * time, they do not have column tops.
+ */
+public class O3Dedup implements Mutable {
+    private static final long MARKED = Long.MIN_VALUE;
+    private static final long DATA_ROW_BIT = Long.MIN_VALUE;
+    // runs longer than this are grouped by key hash instead of comparing all pairs
+    private static final int PAIRWISE_RUN_MAX = 16;
+    private static final int KEY_TYPE = 0;
+    private static final int KEY_O3_FIX = 1;
+    private static final int KEY_O3_VAR = 2;
+    private static final int KEY_DATA_FIX = 3;
+    private static final int KEY_DATA_VAR = 4;
+    private static final int KEY_ENTRY_SIZE = 5;
+    private final LongList keys = new LongList();
+    private long olderRowLo;
+    private long olderRowHi;
+    private long hashBuf;
+    private long hashBufSize;
+
+    /**
+     * Copies entries that are not marked as duplicates to the front of the index.
+     *
+     * @param indexAddr address of the index
+     * @param lo        first entry to copy, inclusive
+     * @param hi        last entry to copy, exclusive
+     * @param dst       position to copy first entry to, must not exceed lo
+     * @return position after the last copied entry
+     */
+    public static long compact(long indexAddr, long lo, long hi, long dst) {
+        for (long i = lo; i < hi; i++) {
+            final long src = indexAddr + i * TableWriter.TIMESTAMP_MERGE_ENTRY_BYTES;
+            final long ts = Unsafe.getUnsafe().getLong(src);
+            if (ts != MARKED) {
+                if (dst != i) {
+                    final long p = indexAddr + dst * TableWriter.TIMESTAMP_MERGE_ENTRY_BYTES;
+                    Unsafe.getUnsafe().putLong(p, ts);
+                    Unsafe.getUnsafe().putLong(p + Long.BYTES, Unsafe.getUnsafe().getLong(src + Long.BYTES));
+                }
+                dst++;
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * Adds key column. Variable length columns are addressed via their offset memory.
+     *
+     * @param columnType  type of the column
+     * @param o3FixAddr   O3 column memory, offsets for variable length columns
+     * @param o3VarAddr   O3 variable length column data or 0
+     * @param dataFixAddr partition column memory, offsets for variable length columns, 0 when not merging
+     * @param dataVarAddr partition variable length column data or 0
+     */
+    public void addKey(int columnType, long o3FixAddr, long o3VarAddr, long dataFixAddr, long dataVarAddr) {
+        keys.add(columnType);
+        keys.add(o3FixAddr);
+        keys.add(o3VarAddr);
+        keys.add(dataFixAddr);
+        keys.add(dataVarAddr);
+    }
+
+    @Override
+    public void clear() {
+        keys.clear();
+    }
+
+    /**
+     * Marks duplicate rows in index sorted by timestamp.
+     *
+     * @param indexAddr     address of the index
+     * @param count         number of index entries
+     * @param olderRowLo    first O3 row that is older than all other O3 rows despite of its position
+     * @param olderRowCount number of such rows
+     * @return number of marked rows
+     */
+    public long markDuplicates(long indexAddr, long count, long olderRowLo, long olderRowCount) {
+        this.olderRowLo = olderRowLo;
+        this.olderRowHi = olderRowLo + olderRowCount;
+        long marked = 0;
+        try {
+            long lo = 0;
+            while (lo < count) {
+                final long ts = getTimestamp(indexAddr, lo);
+                long hi = lo + 1;
+                while (hi < count && getTimestamp(indexAddr, hi) == ts) {
+                    hi++;
+                }
+                if (hi - lo > 1) {
+                    marked += hi - lo > PAIRWISE_RUN_MAX ? markHashedRun(indexAddr, lo, hi) : markRun(indexAddr, lo, hi);
+                }
+                lo = hi;
+            }
+        } finally {
+            if (hashBuf != 0) {
+                Unsafe.free(hashBuf, hashBufSize, MemoryTag.NATIVE_O3);
+                hashBuf = 0;
+                hashBufSize = 0;
+            }
+        }
+        return marked;
+    }
+
+    private static long getRowRef(long indexAddr, long pos) {
+        return Unsafe.getUnsafe().getLong(indexAddr + pos * TableWriter.TIMESTAMP_MERGE_ENTRY_BYTES + Long.BYTES);
+    }
+
+    private static long getTimestamp(long indexAddr, long pos) {
+        return Unsafe.getUnsafe().getLong(indexAddr + pos * TableWriter.TIMESTAMP_MERGE_ENTRY_BYTES);
+    }
+
+    private static long hashMem(long hash, long p, long len) {
+        final long hi = p + len;
+        while (hi - p > 7) {
+            hash = hash * 31 + Unsafe.getUnsafe().getLong(p);
+            p += Long.BYTES;
+        }
+        while (p < hi) {
+            hash = hash * 31 + Unsafe.getUnsafe().getByte(p++);
+        }
+        return hash;
+    }
+
+    private static boolean memEquals(long a, long b, long len) {
+        long i = 0;
+        for (; i + 7 < len; i += Long.BYTES) {
+            if (Unsafe.getUnsafe().getLong(a + i) != Unsafe.getUnsafe().getLong(b + i)) {
+                return false;
+            }
+        }
+        for (; i < len; i++) {
+            if (Unsafe.getUnsafe().getByte(a + i) != Unsafe.getUnsafe().getByte(b + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void mark(long indexAddr, long pos) {
+        Unsafe.getUnsafe().putLong(indexAddr + pos * TableWriter.TIMESTAMP_MERGE_ENTRY_BYTES, MARKED);
+    }
+
+    // address of the value, length prefix included for variable length columns
+    private long keyAddress(int key, long rowRef) {
+        final int offset = key * KEY_ENTRY_SIZE;
+        final int columnType = (int) keys.getQuick(offset + KEY_TYPE);
+        final boolean dataRow = (rowRef & DATA_ROW_BIT) != 0;
+        final long row = rowRef & ~DATA_ROW_BIT;
+        final long fixAddr = keys.getQuick(offset + (dataRow ? KEY_DATA_FIX : KEY_O3_FIX));
+        if (ColumnType.isVariableLength(columnType)) {
+            return keys.getQuick(offset + (dataRow ? KEY_DATA_VAR : KEY_O3_VAR)) + Unsafe.getUnsafe().getLong(fixAddr + row * Long.BYTES);
+        }
+        return fixAddr + (row << ColumnType.pow2SizeOf(columnType));
+    }
+
+    private long keyHash(long rowRef) {
+        long hash = 0;
+        for (int key = 0, n = keys.size() / KEY_ENTRY_SIZE; key < n; key++) {
+            final long addr = keyAddress(key, rowRef);
+            hash = hashMem(hash, addr, keySize(key, addr));
+        }
+        return hash;
+    }
+
+    private long keySize(int key, long addr) {
+        final int columnType = (int) keys.getQuick(key * KEY_ENTRY_SIZE + KEY_TYPE);
+        if (ColumnType.isString(columnType)) {
+            final int len = Unsafe.getUnsafe().getInt(addr);
+            return Integer.BYTES + (len > 0 ? (long) len << 1 : 0);
+        }
+        if (ColumnType.isBinary(columnType)) {
+            final long len = Unsafe.getUnsafe().getLong(addr);
+            return Long.BYTES + Math.max(len, 0);
+        }
+        return 1L << ColumnType.pow2SizeOf(columnType);
+    }
+
+    private boolean keysEqual(long rowRefA, long rowRefB) {
+        for (int key = 0, n = keys.size() / KEY_ENTRY_SIZE; key < n; key++) {
+            final long a = keyAddress(key, rowRefA);
+            final long b = keyAddress(key, rowRefB);
+            final long size = keySize(key, a);
+            if (size != keySize(key, b) || !memEquals(a, b, size)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the pair and marks the older row when keys are equal.
+     *
+     * @return position of the marked row or -1
+     */
+    private long markPair(long indexAddr, long posA, long posB) {
+        final long rowRefA = getRowRef(indexAddr, posA);
+        final long rowRefB = getRowRef(indexAddr, posB);
+        final boolean dataA = (rowRefA & DATA_ROW_BIT) != 0;
+        final boolean dataB = (rowRefB & DATA_ROW_BIT) != 0;
+        if ((dataA && dataB) || !keysEqual(rowRefA, rowRefB)) {
+            return -1;
+        }
+        final long older;
+        if (dataA) {
+            older = posA;
+        } else if (dataB) {
+            older = posB;
+        } else {
+            older = recency(rowRefA) < recency(rowRefB) ? posA : posB;
+        }
+        mark(indexAddr, older);
+        return older;
+    }
+
+    private long markHashedRun(long indexAddr, long lo, long hi) {
+        final long n = hi - lo;
+        final long size = n * 2 * Long.BYTES;
+        if (hashBufSize < size) {
+            hashBuf = Unsafe.realloc(hashBuf, hashBufSize, size, MemoryTag.NATIVE_O3);
+            hashBufSize = size;
+        }
+        for (long i = 0; i < n; i++) {
+            final long p = hashBuf + i * 2 * Long.BYTES;
+            Unsafe.getUnsafe().putLong(p, keyHash(getRowRef(indexAddr, lo + i)) & Long.MAX_VALUE);
+            Unsafe.getUnsafe().putLong(p + Long.BYTES, lo + i);
+        }
+        Vect.quickSortLongIndexAscInPlace(hashBuf, n);
+
+        long marked = 0;
+        long groupLo = 0;
+        while (groupLo < n) {
+            final long hash = Unsafe.getUnsafe().getLong(hashBuf + groupLo * 2 * Long.BYTES);
+            long groupHi = groupLo + 1;
+            while (groupHi < n && Unsafe.getUnsafe().getLong(hashBuf + groupHi * 2 * Long.BYTES) == hash) {
+                groupHi++;
+            }
+            for (long i = groupLo; i < groupHi; i++) {
+                final long posA = Unsafe.getUnsafe().getLong(hashBuf + i * 2 * Long.BYTES + Long.BYTES);
+                for (long j = i + 1; j < groupHi; j++) {
+                    if (getTimestamp(indexAddr, posA) == MARKED) {
+                        break;
+                    }
+                    final long posB = Unsafe.getUnsafe().getLong(hashBuf + j * 2 * Long.BYTES + Long.BYTES);
+                    if (getTimestamp(indexAddr, posB) != MARKED && markPair(indexAddr, posA, posB) != -1) {
+                        marked++;
+                    }
+                }
+            }
+            groupLo = groupHi;
+        }
+        return marked;
+    }
+
+    private long markRun(long indexAddr, long lo, long hi) {
+        long marked = 0;
+        for (long i = lo; i < hi; i++) {
+            for (long j = i + 1; j < hi; j++) {
+                if (getTimestamp(indexAddr, i) == MARKED) {
+                    break;
+                }
+                if (getTimestamp(indexAddr, j) != MARKED && markPair(indexAddr, i, j) != -1) {
+                    marked++;
+                }
+            }
+        }
+        return marked;
+    }
+
+    // order in which O3 rows were written
+    private long recency(long rowRef) {
+        if (rowRef >= olderRowLo && rowRef < olderRowHi) {
+            return rowRef - olderRowLo;
+        }
+        return rowRef + olderRowHi - olderRowLo;
+    }
+}
@@ -188,6 +188,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
         final long mergeOOOHi = task.getMergeOOOHi();
         final long mergeDataLo = task.getMergeDataLo();
         final long mergeDataHi = task.getMergeDataHi();
+        final long dedupRowCount = task.getDedupRowCount();
         final long txn = task.getTxn();
         final int prefixType = task.getPrefixType();
         final long prefixLo = task.getPrefixLo();
@@ -234,6 +235,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 mergeOOOHi,
                 mergeDataLo,
                 mergeDataHi,
+                dedupRowCount,
                 suffixType,
                 suffixLo,
                 suffixHi,
@@ -278,6 +280,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long mergeOOOHi,
             long mergeDataLo,
             long mergeDataHi,
+            long dedupRowCount,
             int suffixType,
             long suffixLo,
             long suffixHi,
@@ -291,7 +294,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             BitmapIndexWriter indexWriter,
             long tmpBuf
     ) {
-        final long mergeLen = mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1;
+        final long mergeLen = mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1 - dedupRowCount;
         final Path pathToPartition = Path.getThreadLocal(pathToTable);
         TableUtils.setPathForPartition(pathToPartition, tableWriter.getPartitionBy(), oooTimestampLo, false);
         final int pplen = pathToPartition.length();
@@ -355,6 +358,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         mergeDataLo,
                         mergeDataHi,
                         mergeLen,
+                        dedupRowCount,
                         suffixType,
                         suffixLo,
                         suffixHi,
@@ -396,6 +400,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         mergeDataLo,
                         mergeDataHi,
                         mergeLen,
+                        dedupRowCount,
                         suffixType,
                         suffixLo,
                         suffixHi,
@@ -690,6 +695,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcOooMax,
                 srcOooLo,
                 srcOooHi,
+                0,
                 timestampMin,
                 timestampMax,
                 partitionTimestamp,
@@ -787,6 +793,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcOooMax,
                 srcOooLo,
                 srcOooHi,
+                0,
                 timestampMin,
                 timestampMax,
                 partitionTimestamp, // <-- pass thru
@@ -905,6 +912,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcOooMax,
                 srcOooLo,
                 srcOooHi,
+                0,
                 timestampMin,
                 timestampMax,
                 partitionTimestamp, // <-- pass thru
@@ -957,6 +965,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long srcOooMax,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long timestampMin,
             long timestampMax,
             long partitionTimestamp,
@@ -1009,6 +1018,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                     srcOooMax,
                     srcOooPartitionLo,
                     srcOooPartitionHi,
+                    dedupRowCount,
                     timestampMin,
                     timestampMax,
                     partitionTimestamp,
@@ -1062,6 +1072,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                     srcOooMax,
                     srcOooPartitionLo,
                     srcOooPartitionHi,
+                    dedupRowCount,
                     timestampMin,
                     timestampMax,
                     partitionTimestamp,
@@ -1116,6 +1127,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long srcOooMax,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long timestampMin,
             long timestampMax,
             long partitionTimestamp,
@@ -1171,6 +1183,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                     srcOooMax,
                     srcOooPartitionLo,
                     srcOooPartitionHi,
+                    dedupRowCount,
                     timestampMin,
                     timestampMax,
                     partitionTimestamp,
@@ -1222,6 +1235,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                     srcOooMax,
                     srcOooPartitionLo,
                     srcOooPartitionHi,
+                    dedupRowCount,
                     timestampMin,
                     timestampMax,
                     partitionTimestamp,
@@ -1276,6 +1290,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long srcOooMax,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long timestampMin,
             long timestampMax,
             long partitionTimestamp,
@@ -1328,6 +1343,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcOooMax,
                 srcOooPartitionLo,
                 srcOooPartitionHi,
+                dedupRowCount,
                 timestampMin,
                 timestampMax,
                 partitionTimestamp,
@@ -1384,6 +1400,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long mergeDataLo,
             long mergeDataHi,
             long mergeLen,
+            long dedupRowCount,
             int suffixType,
             long suffixLo,
             long suffixHi,
@@ -1429,6 +1446,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         mergeDataLo,
                         mergeDataHi,
                         mergeLen,
+                        dedupRowCount,
                         suffixType,
                         suffixLo,
                         suffixHi,
@@ -1475,6 +1493,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         mergeDataLo,
                         mergeDataHi,
                         mergeLen,
+                        dedupRowCount,
                         suffixType,
                         suffixLo,
                         suffixHi,
@@ -1516,6 +1535,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long mergeDataLo,
             long mergeDataHi,
             long mergeLen,
+            long dedupRowCount,
             int suffixType,
             long suffixLo,
             long suffixHi,
@@ -1589,6 +1609,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         mergeDataLo,
                         mergeDataHi,
                         mergeLen,
+                        dedupRowCount,
                         suffixType,
                         suffixLo,
                         suffixHi,
@@ -1650,6 +1671,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         mergeDataLo,
                         mergeDataHi,
                         mergeLen,
+                        dedupRowCount,
                         suffixType,
                         suffixLo,
                         suffixHi,
@@ -1733,6 +1755,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long mergeDataLo,
             long mergeDataHi,
             long mergeLen,
+            long dedupRowCount,
             int suffixType,
             long suffixLo,
             long suffixHi,
@@ -1769,7 +1792,17 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                     // extend the existing column down, we will be discarding it anyway
                     srcDataFixSize = srcDataActualBytes + srcDataMaxBytes;
                     srcDataFixAddr = mapRW(ff, srcFixFd, srcDataFixSize, MemoryTag.MMAP_O3);
-                    setNull(columnType, srcDataFixAddr + srcDataActualBytes, srcDataTop);
+                    final int columnIndex = tableWriter.getMetadata().getColumnIndexQuiet(columnName);
+                    if (columnIndex > -1 && tableWriter.getMetadata().hasColumnDefault(columnIndex)) {
+                        TableUtils.setDefault(
+                                columnType,
+                                tableWriter.getMetadata().getColumnDefault(columnIndex),
+                                srcDataFixAddr + srcDataActualBytes,
+                                srcDataTop
+                        );
+                    } else {
+                        setNull(columnType, srcDataFixAddr + srcDataActualBytes, srcDataTop);
+                    }
                     Vect.memcpy(srcDataFixAddr + srcDataMaxBytes, srcDataFixAddr, srcDataActualBytes);
                     srcDataTop = 0;
                     srcDataFixOffset = srcDataActualBytes;
@@ -1797,7 +1830,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
 
             pathToPartition.trimTo(pDirNameLen).concat(columnName).put(FILE_SUFFIX_D).$();
             dstFixFd = openRW(ff, pathToPartition, LOG);
-            dstFixSize = ((srcOooHi - srcOooLo + 1) + srcDataMax - srcDataTop) << shl;
+            dstFixSize = ((srcOooHi - srcOooLo + 1) + srcDataMax - srcDataTop - dedupRowCount) << shl;
             dstFixAddr = mapRW(ff, dstFixFd, dstFixSize, MemoryTag.MMAP_O3);
 
             // when prefix is "data" we need to reduce it by "srcDataTop"
@@ -1888,6 +1921,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 mergeDataHi,
                 mergeOOOLo,
                 mergeOOOHi,
+                dedupRowCount,
                 suffixType,
                 suffixLo,
                 suffixHi,
@@ -1940,6 +1974,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long mergeDataLo,
             long mergeDataHi,
             long mergeLen,
+            long dedupRowCount,
             int suffixType,
             long suffixLo,
             long suffixHi,
@@ -2060,7 +2095,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             int pColNameLen = pathToPartition.length();
             pathToPartition.put(FILE_SUFFIX_I).$();
             dstFixFd = openRW(ff, pathToPartition, LOG);
-            dstFixSize = (srcOooHi - srcOooLo + 1 + srcDataMax - srcDataTop + 1) * Long.BYTES;
+            dstFixSize = (srcOooHi - srcOooLo + 1 + srcDataMax - srcDataTop - dedupRowCount + 1) * Long.BYTES;
             dstFixAddr = mapRW(ff, dstFixFd, dstFixSize, MemoryTag.MMAP_O3);
 
             pathToPartition.trimTo(pColNameLen);
@@ -2184,6 +2219,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 mergeDataHi,
                 mergeOOOLo,
                 mergeOOOHi,
+                dedupRowCount,
                 suffixType,
                 suffixLo,
                 suffixHi,
@@ -2344,6 +2380,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcOooMax,
                 srcOooLo,
                 srcOooHi,
+                0,
                 timestampMin,
                 timestampMax,
                 partitionTimestamp,
@@ -2406,6 +2443,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long mergeDataHi,
             long mergeOOOLo,
             long mergeOOOHi,
+            long dedupRowCount,
             int suffixType,
             long suffixLo,
             long suffixHi,
@@ -2456,6 +2494,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         srcOooMax,
                         srcOooLo,
                         srcOooHi,
+                        dedupRowCount,
                         timestampMin,
                         timestampMax,
                         partitionTimestamp,
@@ -2508,6 +2547,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         srcOooMax,
                         srcOooLo,
                         srcOooHi,
+                        dedupRowCount,
                         timestampMin,
                         timestampMax,
                         partitionTimestamp,
@@ -2563,6 +2603,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         srcOooMax,
                         srcOooLo,
                         srcOooHi,
+                        dedupRowCount,
                         timestampMin,
                         timestampMax,
                         partitionTimestamp,
@@ -2615,6 +2656,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         srcOooMax,
                         srcOooLo,
                         srcOooHi,
+                        dedupRowCount,
                         timestampMin,
                         timestampMax,
                         partitionTimestamp,
@@ -2667,6 +2709,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         srcOooMax,
                         srcOooLo,
                         srcOooHi,
+                        dedupRowCount,
                         timestampMin,
                         timestampMax,
                         partitionTimestamp,
@@ -2724,6 +2767,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         srcOooMax,
                         srcOooLo,
                         srcOooHi,
+                        dedupRowCount,
                         timestampMin,
                         timestampMax,
                         partitionTimestamp,
@@ -2776,6 +2820,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         srcOooMax,
                         srcOooLo,
                         srcOooHi,
+                        dedupRowCount,
                         timestampMin,
                         timestampMax,
                         partitionTimestamp,
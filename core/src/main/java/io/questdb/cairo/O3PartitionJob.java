@@ -219,7 +219,85 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
 
                 int branch;
 
-                if (o3TimestampLo > dataTimestampLo) {
+                if (tableWriter.isDeduplicationEnabled() && o3TimestampLo <= dataTimestampHi && o3TimestampMax >= dataTimestampLo) {
+
+                    // rows with equal timestamps may replace each other, so they have to
+                    // meet in the merge rather than in prefix or suffix
+                    //
+                    //   +------+
+                    //   |      | +-----+
+                    //   | data | | OOO |
+                    //   |      | |     |
+                    //   +------+ +-----+
+
+                    branch = 9;
+                    if (o3TimestampLo < dataTimestampLo) {
+                        prefixType = O3_BLOCK_O3;
+                        prefixLo = srcOooLo;
+                        prefixHi = Vect.boundedBinarySearchIndexT(
+                                sortedTimestampsAddr,
+                                dataTimestampLo - 1,
+                                srcOooLo,
+                                srcOooHi,
+                                BinarySearch.SCAN_DOWN
+                        );
+                        mergeO3Lo = prefixHi + 1;
+                        mergeDataLo = 0;
+                    } else {
+                        mergeO3Lo = srcOooLo;
+                        mergeDataLo = Vect.boundedBinarySearch64Bit(
+                                srcTimestampAddr,
+                                o3TimestampLo - 1,
+                                0,
+                                srcDataMax - 1,
+                                BinarySearch.SCAN_DOWN
+                        ) + 1;
+                        if (mergeDataLo > 0) {
+                            prefixType = O3_BLOCK_DATA;
+                            prefixLo = 0;
+                            prefixHi = mergeDataLo - 1;
+                        } else {
+                            // empty prefix, merge starts at the top of the partition
+                            prefixLo = 0;
+                        }
+                    }
+
+                    if (o3TimestampMax > dataTimestampHi) {
+                        mergeDataHi = srcDataMax - 1;
+                        mergeO3Hi = Vect.boundedBinarySearchIndexT(
+                                sortedTimestampsAddr,
+                                dataTimestampHi,
+                                mergeO3Lo,
+                                srcOooHi,
+                                BinarySearch.SCAN_DOWN
+                        );
+                        suffixType = O3_BLOCK_O3;
+                        suffixLo = mergeO3Hi + 1;
+                        suffixHi = srcOooHi;
+                    } else {
+                        mergeO3Hi = srcOooHi;
+                        mergeDataHi = Vect.boundedBinarySearch64Bit(
+                                srcTimestampAddr,
+                                o3TimestampMax,
+                                mergeDataLo,
+                                srcDataMax - 1,
+                                BinarySearch.SCAN_DOWN
+                        );
+                        if (mergeDataHi < srcDataMax - 1) {
+                            suffixType = O3_BLOCK_DATA;
+                            suffixLo = mergeDataHi + 1;
+                            suffixHi = srcDataMax - 1;
+                        }
+                    }
+
+                    if (mergeDataLo > mergeDataHi) {
+                        // O3 rows fall between two data rows, there is nothing to deduplicate against
+                        mergeType = O3_BLOCK_O3;
+                    } else {
+                        // O3 rows can skip over the data entirely
+                        mergeType = mergeO3Lo > mergeO3Hi ? O3_BLOCK_DATA : O3_BLOCK_MERGE;
+                    }
+                } else if (o3TimestampLo > dataTimestampLo) {
                     //   +------+
                     //   | data |  +-----+
                     //   |      |  | OOO |
@@ -465,7 +543,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                         .$(", table=").$(pathToTable)
                         .I$();
 
-                if (prefixType == O3_BLOCK_NONE) {
+                if (prefixType == O3_BLOCK_NONE && mergeType == O3_BLOCK_NONE) {
                     // We do not need to create a copy of partition when we simply need to append
                     // existing the one.
                     openColumnMode = OPEN_MID_PARTITION_FOR_APPEND;
@@ -613,6 +691,94 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
         return result;
     }
 
+    private static long dedupMergeIndex(
+            ObjList<MemoryMAR> columns,
+            ObjList<MemoryCARW> oooColumns,
+            CharSequence pathToTable,
+            long oooTimestampLo,
+            long srcDataMax,
+            long srcDataTxn,
+            int openColumnMode,
+            long timestampMergeIndexAddr,
+            long mergeLen,
+            TableWriter tableWriter,
+            O3Basket o3Basket
+    ) {
+        final FilesFacade ff = tableWriter.getFilesFacade();
+        final RecordMetadata metadata = tableWriter.getMetadata();
+        final IntList keyColumns = tableWriter.getDedupKeyColumns();
+        final boolean reuseFds = openColumnMode == OPEN_LAST_PARTITION_FOR_MERGE;
+        final O3Dedup dedup = o3Basket.getDedup();
+        // fd, address and size of mapped partition files, fd is negative when it is owned by the writer
+        final LongList mappedFiles = o3Basket.getDedupFiles();
+        dedup.clear();
+        mappedFiles.clear();
+        try {
+            Path path = null;
+            int plen = 0;
+            if (!reuseFds) {
+                path = Path.getThreadLocal2(pathToTable);
+                TableUtils.setPathForPartition(path, tableWriter.getPartitionBy(), oooTimestampLo, false);
+                TableUtils.txnPartitionConditionally(path, srcDataTxn);
+                plen = path.length();
+            }
+            for (int i = 0, n = keyColumns.size(); i < n; i++) {
+                final int columnIndex = keyColumns.getQuick(i);
+                final int columnType = metadata.getColumnType(columnIndex);
+                final int colOffset = TableWriter.getPrimaryColumnIndex(columnIndex);
+                final CharSequence columnName = metadata.getColumnName(columnIndex);
+                if (ColumnType.isVariableLength(columnType)) {
+                    final long fixFd = reuseFds
+                            ? -columns.getQuick(colOffset + 1).getFd()
+                            : openRO(ff, iFile(path.trimTo(plen), columnName), LOG);
+                    final long fixAddr = dedupMapFile(ff, fixFd, srcDataMax * Long.BYTES, mappedFiles);
+                    final long varFd = reuseFds
+                            ? -columns.getQuick(colOffset).getFd()
+                            : openRO(ff, dFile(path.trimTo(plen), columnName), LOG);
+                    final long varAddr = dedupMapFile(ff, varFd, ff.length(Math.abs(varFd)), mappedFiles);
+                    dedup.addKey(
+                            columnType,
+                            oooColumns.getQuick(colOffset + 1).addressOf(0),
+                            oooColumns.getQuick(colOffset).addressOf(0),
+                            fixAddr,
+                            varAddr
+                    );
+                } else {
+                    final long fixFd = reuseFds
+                            ? -columns.getQuick(colOffset).getFd()
+                            : openRO(ff, dFile(path.trimTo(plen), columnName), LOG);
+                    final long fixAddr = dedupMapFile(ff, fixFd, srcDataMax << ColumnType.pow2SizeOf(columnType), mappedFiles);
+                    dedup.addKey(columnType, oooColumns.getQuick(colOffset).addressOf(0), 0, fixAddr, 0);
+                }
+            }
+
+            final long dedupRowCount = dedup.markDuplicates(timestampMergeIndexAddr, mergeLen, 0, 0);
+            if (dedupRowCount > 0) {
+                O3Dedup.compact(timestampMergeIndexAddr, 0, mergeLen, 0);
+            }
+            return dedupRowCount;
+        } finally {
+            for (int i = 0, n = mappedFiles.size(); i < n; i += 3) {
+                O3Utils.unmapAndClose(ff, mappedFiles.getQuick(i), mappedFiles.getQuick(i + 1), mappedFiles.getQuick(i + 2));
+            }
+            mappedFiles.clear();
+        }
+    }
+
+    private static long dedupMapFile(FilesFacade ff, long fd, long size, LongList mappedFiles) {
+        // track the fd before mapping so that it is closed should mapping fail
+        mappedFiles.add(fd);
+        mappedFiles.add(0);
+        mappedFiles.add(0);
+        if (size > 0) {
+            final long addr = mapRO(ff, Math.abs(fd), size, MemoryTag.MMAP_O3);
+            mappedFiles.setQuick(mappedFiles.size() - 2, addr);
+            mappedFiles.setQuick(mappedFiles.size() - 1, size);
+            return addr;
+        }
+        return 0;
+    }
+
     private static void publishOpenColumnTaskHarmonized(
             long cursor,
             int openColumnMode,
@@ -643,6 +809,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
             long mergeDataHi,
             long mergeOOOLo,
             long mergeOOOHi,
+            long dedupRowCount,
             int suffixType,
             long suffixLo,
             long suffixHi,
@@ -685,6 +852,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                 mergeDataHi,
                 mergeOOOLo,
                 mergeOOOHi,
+                dedupRowCount,
                 suffixType,
                 suffixLo,
                 suffixHi,
@@ -752,6 +920,36 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
             timestampMergeIndexAddr = 0;
         }
 
+        long dedupRowCount = 0;
+        if (timestampMergeIndexAddr != 0 && tableWriter.isDeduplicationEnabled()) {
+            try {
+                dedupRowCount = dedupMergeIndex(
+                        columns,
+                        oooColumns,
+                        pathToTable,
+                        oooTimestampLo,
+                        srcDataMax,
+                        srcDataTxn,
+                        openColumnMode,
+                        timestampMergeIndexAddr,
+                        mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1,
+                        tableWriter,
+                        o3Basket
+                );
+            } catch (Throwable e) {
+                LOG.error().$("dedup merge error [table=").$(tableWriter.getTableName())
+                        .$(", e=").$(e)
+                        .I$();
+                Vect.freeMergedIndex(timestampMergeIndexAddr);
+                O3Utils.unmap(tableWriter.getFilesFacade(), srcTimestampAddr, srcTimestampSize);
+                O3Utils.close(tableWriter.getFilesFacade(), srcTimestampFd);
+                tableWriter.o3BumpErrorCount();
+                tableWriter.o3ClockDownPartitionUpdateCount();
+                tableWriter.o3CountDownDoneLatch();
+                throw e;
+            }
+        }
+
         final RecordMetadata metadata = tableWriter.getMetadata();
         final int columnCount = metadata.getColumnCount();
         columnCounter.set(columnCount);
@@ -831,6 +1029,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                                 mergeDataHi,
                                 mergeOOOLo,
                                 mergeOOOHi,
+                                dedupRowCount,
                                 suffixType,
                                 suffixLo,
                                 suffixHi,
@@ -875,6 +1074,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                                 mergeDataHi,
                                 mergeOOOLo,
                                 mergeOOOHi,
+                                dedupRowCount,
                                 suffixType,
                                 suffixLo,
                                 suffixHi,
@@ -943,6 +1143,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
             long mergeDataHi,
             long mergeOOOLo,
             long mergeOOOHi,
+            long dedupRowCount,
             int suffixType,
             long suffixLo,
             long suffixHi,
@@ -990,6 +1191,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     mergeDataHi,
                     mergeOOOLo,
                     mergeOOOHi,
+                    dedupRowCount,
                     suffixType,
                     suffixLo,
                     suffixHi,
@@ -1032,6 +1234,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     mergeOOOHi,
                     mergeDataLo,
                     mergeDataHi,
+                    dedupRowCount,
                     suffixType,
                     suffixLo,
                     suffixHi,
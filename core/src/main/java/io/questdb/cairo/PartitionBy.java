@@ -39,6 +39,11 @@ public final class PartitionBy {
      * all data is stored in a single directory
      */
     public static final int NONE = 3;
+    public static final int HOUR = 4;
+    /**
+     * ISO weeks, partition starts on Monday
+     */
+    public static final int WEEK = 5;
     private final static LowerCaseCharSequenceIntHashMap nameToIndexMap = new LowerCaseCharSequenceIntHashMap();
 
     static {
@@ -46,6 +51,8 @@ public final class PartitionBy {
         nameToIndexMap.put("month", MONTH);
         nameToIndexMap.put("year", YEAR);
         nameToIndexMap.put("none", NONE);
+        nameToIndexMap.put("hour", HOUR);
+        nameToIndexMap.put("week", WEEK);
     }
 
     private PartitionBy() {
@@ -65,6 +72,10 @@ public final class PartitionBy {
                 return "YEAR";
             case NONE:
                 return "NONE";
+            case HOUR:
+                return "HOUR";
+            case WEEK:
+                return "WEEK";
             default:
                 return "UNKNOWN";
         }
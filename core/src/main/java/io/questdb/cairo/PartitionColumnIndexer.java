@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Indexes symbol column of a single historic partition. Unlike {@link SymbolColumnIndexer}, which follows
+ * column of the last partition, this indexer maps the column itself, so that partitions of a table
+ * can be indexed by {@link ColumnIndexerJob} in parallel.
+ */
+class PartitionColumnIndexer implements ColumnIndexer, Closeable {
+    private static final long SEQUENCE_OFFSET;
+    private final SymbolColumnIndexer bitmapIndexer = new SymbolColumnIndexer();
+    private final PostingIndexWriter postingIndexWriter = new PostingIndexWriter();
+    private final MemoryMR columnMem = Vm.getMRInstance();
+    private final Path path = new Path();
+    private CairoConfiguration configuration;
+    private CharSequence columnName;
+    private long columnTop;
+    private long partitionSize;
+    private boolean postingIndex;
+    @SuppressWarnings({"unused", "FieldCanBeLocal", "FieldMayBeFinal"})
+    private volatile long sequence = 0L;
+    private volatile boolean distressed = false;
+
+    @Override
+    public void close() {
+        closeSlider();
+        Misc.free(path);
+    }
+
+    @Override
+    public void closeSlider() {
+        Misc.free(columnMem);
+        Misc.free(bitmapIndexer);
+        Misc.free(postingIndexWriter);
+    }
+
+    @Override
+    public void configureFollowerAndWriter(CairoConfiguration configuration, Path path, CharSequence name, MemoryMA columnMem, long columnTop) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void configureWriter(CairoConfiguration configuration, Path path, CharSequence name, long columnTop) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void distress() {
+        distressed = true;
+    }
+
+    @Override
+    public long getFd() {
+        return columnMem.getFd();
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public BitmapIndexWriter getWriter() {
+        return null;
+    }
+
+    @Override
+    public void index(MemoryR mem, long loRow, long hiRow) {
+        if (postingIndex) {
+            postingIndexWriter.of(configuration, path, columnName);
+            postingIndexWriter.index(mem, loRow, hiRow);
+        } else {
+            bitmapIndexer.configureWriter(configuration, path, columnName, columnTop);
+            bitmapIndexer.index(mem, loRow, hiRow);
+        }
+    }
+
+    @Override
+    public boolean isDistressed() {
+        return distressed;
+    }
+
+    @Override
+    public void refreshSourceAndIndex(long loRow, long hiRow) {
+        final int plen = path.length();
+        try {
+            final long columnSize = (hiRow - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT);
+            columnMem.of(configuration.getFilesFacade(), TableUtils.dFile(path, columnName), columnSize, columnSize, MemoryTag.MMAP_TABLE_WRITER);
+            path.trimTo(plen);
+            index(columnMem, loRow, hiRow);
+        } finally {
+            path.trimTo(plen);
+            // partition is indexed once, release memory straight away
+            closeSlider();
+        }
+    }
+
+    @Override
+    public void rollback(long maxRow) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean tryLock(long expectedSequence) {
+        return Unsafe.cas(this, SEQUENCE_OFFSET, expectedSequence, expectedSequence + 1);
+    }
+
+    long getColumnTop() {
+        return columnTop;
+    }
+
+    long getPartitionSize() {
+        return partitionSize;
+    }
+
+    /**
+     * @param configuration configuration
+     * @param partitionPath path to partition directory, indexer keeps a copy of it
+     * @param columnName    column name
+     * @param columnTop     column top in the partition
+     * @param partitionSize number of partition rows
+     * @param postingIndex  true to write posting index, otherwise bitmap index files must already exist
+     */
+    void of(CairoConfiguration configuration, Path partitionPath, CharSequence columnName, long columnTop, long partitionSize, boolean postingIndex) {
+        this.configuration = configuration;
+        this.path.of(partitionPath);
+        this.columnName = columnName;
+        this.columnTop = columnTop;
+        this.partitionSize = partitionSize;
+        this.postingIndex = postingIndex;
+        this.distressed = false;
+    }
+
+    static {
+        SEQUENCE_OFFSET = Unsafe.getFieldOffset(PartitionColumnIndexer.class, "sequence");
+    }
+}
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Rewrites fixed size columns of partition into block compressed ".dz" files and back.
+ * <p>
+ * Both ways new file is written under temporary name and renamed into place before the
+ * old file is removed, so that readers always find either file complete. Designated timestamp
+ * is compressed first and decompressed last, presence of its ".dz" file marks partition as compressed
+ * even when writer stopped half way through.
+ */
+public class PartitionCompressor implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionCompressor.class);
+    private static final String FILE_SUFFIX_TMP = ".tmp";
+    private final FilesFacade ff;
+    private final TableWriterMetadata metadata;
+    private final long tempMem8b;
+    private final ColumnCodec codec = new ColumnCodec();
+    private final MemoryCMARW mem = Vm.getCMARWInstance();
+    private final Path other = new Path();
+
+    public PartitionCompressor(FilesFacade ff, TableWriterMetadata metadata, long tempMem8b) {
+        this.ff = ff;
+        this.metadata = metadata;
+        this.tempMem8b = tempMem8b;
+    }
+
+    @Override
+    public void close() {
+        mem.close();
+        Misc.free(other);
+    }
+
+    /**
+     * Compresses columns of partition, columns that are compressed already are skipped.
+     *
+     * @param path          path to partition directory
+     * @param partitionSize number of rows in partition
+     */
+    public void compress(Path path, long partitionSize) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex > -1) {
+            compressColumn(path, timestampIndex, partitionSize);
+        }
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i != timestampIndex) {
+                compressColumn(path, i, partitionSize);
+            }
+        }
+        LOG.info().$("compressed [path=").$(path).$(']').$();
+    }
+
+    /**
+     * Restores all columns of partition to their uncompressed files.
+     *
+     * @param path path to partition directory
+     */
+    public void decompress(Path path) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i != timestampIndex) {
+                decompressColumn(path, metadata.getColumnName(i));
+            }
+        }
+        if (timestampIndex > -1) {
+            decompressColumn(path, metadata.getColumnName(timestampIndex));
+        }
+        LOG.info().$("decompressed [path=").$(path).$(']').$();
+    }
+
+    /**
+     * Restores uncompressed file of single column.
+     *
+     * @param path       path to partition directory
+     * @param columnName name of column
+     * @return true when column was compressed
+     */
+    public boolean decompressColumn(Path path, CharSequence columnName) {
+        final int plen = path.length();
+        try {
+            if (!ff.exists(dzFile(path.trimTo(plen), columnName))) {
+                return false;
+            }
+            final long fd = TableUtils.openRO(ff, path, LOG);
+            try {
+                final long srcSize = ff.length(fd);
+                final long srcAddr = TableUtils.mapRO(ff, fd, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+                try {
+                    final long size = ColumnCodec.getRowCount(srcAddr) << ColumnCodec.getValueSizePow2(srcAddr);
+                    mem.of(ff, tmpFile(path, plen, columnName, FILE_SUFFIX_D), ff.getPageSize(), -1, MemoryTag.MMAP_TABLE_WRITER);
+                    try {
+                        ColumnCodec.decode(srcAddr, mem.appendAddressFor(size));
+                    } finally {
+                        mem.close(true);
+                    }
+                } finally {
+                    ff.munmap(srcAddr, srcSize, MemoryTag.MMAP_TABLE_WRITER);
+                }
+            } finally {
+                ff.close(fd);
+            }
+            renameOrFail(dFile(path.trimTo(plen), columnName));
+            removeOrFail(dzFile(path.trimTo(plen), columnName));
+            return true;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Checks if partition is compressed, which is the case when its designated timestamp is.
+     *
+     * @param path path to partition directory
+     * @return true when designated timestamp of the partition is stored compressed
+     */
+    public boolean isCompressed(Path path) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex < 0) {
+            return false;
+        }
+        final int plen = path.length();
+        try {
+            return ff.exists(dzFile(path.trimTo(plen), metadata.getColumnName(timestampIndex)));
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Reads first value of designated timestamp in compressed partition.
+     *
+     * @param path path to partition directory
+     * @return min timestamp of partition
+     */
+    public long readMinTimestamp(Path path) {
+        final int plen = path.length();
+        try {
+            final long fd = TableUtils.openRO(ff, dzFile(path.trimTo(plen), metadata.getColumnName(metadata.getTimestampIndex())), LOG);
+            try {
+                final long size = ff.length(fd);
+                final long addr = TableUtils.mapRO(ff, fd, size, MemoryTag.MMAP_TABLE_WRITER);
+                try {
+                    return ColumnCodec.getFirstValue(addr);
+                } finally {
+                    ff.munmap(addr, size, MemoryTag.MMAP_TABLE_WRITER);
+                }
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private void compressColumn(Path path, int columnIndex, long partitionSize) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        if (!isCompressibleColumnType(columnType)) {
+            return;
+        }
+        final CharSequence columnName = metadata.getColumnName(columnIndex);
+        final int plen = path.length();
+        try {
+            final long columnTop = readColumnTop(ff, path, columnName, plen, tempMem8b, true);
+            final long rowCount = partitionSize - columnTop;
+            if (rowCount < 1 || !ff.exists(dFile(path.trimTo(plen), columnName))) {
+                return;
+            }
+            final long size = rowCount << ColumnType.pow2SizeOf(columnType);
+            final long fd = TableUtils.openRO(ff, path, LOG);
+            try {
+                final long srcAddr = TableUtils.mapRO(ff, fd, size, MemoryTag.MMAP_TABLE_WRITER);
+                try {
+                    mem.of(ff, tmpFile(path, plen, columnName, FILE_SUFFIX_DZ), ff.getPageSize(), -1, MemoryTag.MMAP_TABLE_WRITER);
+                    try {
+                        codec.encode(srcAddr, rowCount, columnType, columnIndex == metadata.getTimestampIndex(), mem);
+                    } finally {
+                        mem.close(true);
+                    }
+                } finally {
+                    ff.munmap(srcAddr, size, MemoryTag.MMAP_TABLE_WRITER);
+                }
+            } finally {
+                ff.close(fd);
+            }
+            renameOrFail(dzFile(path.trimTo(plen), columnName));
+            removeOrFail(dFile(path.trimTo(plen), columnName));
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private void removeOrFail(LPSZ path) {
+        if (ff.exists(path) && !ff.remove(path)) {
+            throw CairoException.instance(ff.errno()).put("could not remove [path=").put(path).put(']');
+        }
+    }
+
+    private void renameOrFail(LPSZ to) {
+        if (!ff.rename(other, to)) {
+            throw CairoException.instance(ff.errno()).put("could not rename [from=").put(other).put(", to=").put(to).put(']');
+        }
+    }
+
+    private Path tmpFile(Path path, int plen, CharSequence columnName, CharSequence suffix) {
+        return other.of(path.trimTo(plen)).concat(columnName).put(suffix).put(FILE_SUFFIX_TMP).$();
+    }
+}
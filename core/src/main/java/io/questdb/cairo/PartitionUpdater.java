@@ -0,0 +1,587 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.vm.api.MemoryMAR;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+/**
+ * Copy-on-write update of column values. Updated rows are buffered one partition at a time and
+ * merged with existing values into a new version of the partition, named after the updating
+ * transaction. Only updated columns are rewritten, files of other columns are hard links to
+ * files of the current version. Readers of earlier transactions keep using the current version,
+ * it is purged once they move on.
+ * <p>
+ * Rows have to arrive grouped by partition in ascending partition order, rows within partition
+ * may come in any order. Updates are committed by {@link #commit()} as a single transaction.
+ */
+public class PartitionUpdater implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionUpdater.class);
+    private final TableWriter writer;
+    private final FilesFacade ff;
+    private final TableWriterMetadata metadata;
+    private final long valuePageSize;
+    private final IntList columnIndexes = new IntList();
+    // position of column in the list of updated columns, -1 when column is not updated
+    private final IntList columnPositions = new IntList();
+    // pairs of row id within partition and ordinal of updated row
+    private final MemoryCARW rowMem;
+    // two memories per updated column, value memory of variable length columns is paired with offsets
+    private final ObjList<MemoryCARW> valueMems = new ObjList<>();
+    private final ObjList<Runnable> nullSetters = new ObjList<>();
+    private final MemoryMAR dstMem1 = Vm.getMARInstance();
+    private final MemoryMAR dstMem2 = Vm.getMARInstance();
+    private final MemoryMR srcMem1 = Vm.getMRInstance();
+    private final MemoryMR srcMem2 = Vm.getMRInstance();
+    private final NativeLPSZ fileName = new NativeLPSZ();
+    private final RowImpl row = new RowImpl();
+    private final long tempMem8b;
+    private long partitionTimestamp = Long.MIN_VALUE;
+    private long partitionRowCount;
+    private long lastRowId;
+    private boolean rowsOrdered;
+    private long updatedRowCount;
+
+    PartitionUpdater(CairoConfiguration configuration, TableWriter writer, TableWriterMetadata metadata) {
+        this.writer = writer;
+        this.ff = configuration.getFilesFacade();
+        this.metadata = metadata;
+        this.valuePageSize = configuration.getO3ColumnMemorySize();
+        this.rowMem = Vm.getCARWInstance(valuePageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        this.tempMem8b = Unsafe.malloc(8, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(rowMem);
+        Misc.freeObjList(valueMems);
+        valueMems.clear();
+        Misc.free(dstMem1);
+        Misc.free(dstMem2);
+        Misc.free(srcMem1);
+        Misc.free(srcMem2);
+        Unsafe.free(tempMem8b, 8, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    /**
+     * Rewrites last partition and commits all updated partitions.
+     *
+     * @return number of updated rows
+     */
+    public long commit() {
+        try {
+            flushPartition();
+            writer.commitUpdate();
+            return updatedRowCount;
+        } catch (Throwable e) {
+            rollback();
+            throw e;
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Starts update of row. Values of updated columns have to be set on the returned row,
+     * values of other columns are ignored.
+     *
+     * @param timestamp designated timestamp of the row
+     * @param rowId     row id within partition
+     * @return row to put updated values to
+     */
+    public TableWriter.Row newRow(long timestamp, long rowId) {
+        final long partitionTimestamp = writer.getPartitionTimestampLo(timestamp);
+        if (partitionTimestamp != this.partitionTimestamp) {
+            if (partitionTimestamp < this.partitionTimestamp) {
+                throw CairoException.instance(0).put("updated rows must be ordered by partition [table=").put(writer.getTableName()).put(']');
+            }
+            flushPartition();
+            this.partitionTimestamp = partitionTimestamp;
+        }
+        rowMem.putLong(rowId);
+        rowMem.putLong(partitionRowCount);
+        rowsOrdered &= rowId > lastRowId;
+        lastRowId = rowId;
+        return row;
+    }
+
+    /**
+     * Discards updates, including partitions that have already been rewritten.
+     */
+    public void rollback() {
+        try {
+            writer.rollbackUpdate();
+        } finally {
+            clear();
+        }
+    }
+
+    private static boolean isColumnFile(NativeLPSZ fileName, CharSequence columnName) {
+        final int len = columnName.length();
+        return fileName.length() > len && fileName.charAt(len) == '.' && Chars.startsWith(fileName, columnName);
+    }
+
+    private void clear() {
+        rowMem.jumpTo(0);
+        for (int i = 0, n = valueMems.size(); i < n; i++) {
+            final MemoryCARW mem = valueMems.getQuick(i);
+            if (mem != null) {
+                mem.jumpTo(0);
+            }
+        }
+        partitionTimestamp = Long.MIN_VALUE;
+        partitionRowCount = 0;
+        lastRowId = -1;
+        rowsOrdered = true;
+        updatedRowCount = 0;
+    }
+
+    private void copyRows(MemoryMR srcMem, int columnType, long columnTop, long lo, long hi, Runnable nullSetter) {
+        // rows above column top did not have values
+        for (long r = lo, n = Math.min(hi, columnTop); r < n; r++) {
+            nullSetter.run();
+        }
+        final long srcLo = Math.max(lo, columnTop) - columnTop;
+        final long srcHi = hi - columnTop;
+        if (srcLo >= srcHi) {
+            return;
+        }
+        if (ColumnType.isVariableLength(columnType)) {
+            final long dataLo = srcMem2.getLong(srcLo * Long.BYTES);
+            final long dataHi = srcMem2.getLong(srcHi * Long.BYTES);
+            final long dstDataLo = dstMem1.getAppendOffset();
+            dstMem1.putBlockOfBytes(srcMem.addressOf(dataLo), dataHi - dataLo);
+            for (long r = srcLo + 1; r <= srcHi; r++) {
+                dstMem2.putLong(srcMem2.getLong(r * Long.BYTES) - dataLo + dstDataLo);
+            }
+        } else {
+            final int shl = ColumnType.pow2SizeOf(columnType);
+            dstMem1.putBlockOfBytes(srcMem.addressOf(srcLo << shl), (srcHi - srcLo) << shl);
+        }
+    }
+
+    private void flushPartition() {
+        if (partitionRowCount > 0) {
+            if (!rowsOrdered) {
+                Vect.sortLongIndexAscInPlace(rowMem.addressOf(0), partitionRowCount);
+            }
+            writer.updatePartition(partitionTimestamp, this);
+            updatedRowCount += partitionRowCount;
+        }
+        rowMem.jumpTo(0);
+        for (int i = 0, n = valueMems.size(); i < n; i++) {
+            final MemoryCARW mem = valueMems.getQuick(i);
+            if (mem != null) {
+                mem.jumpTo(0);
+            }
+        }
+        partitionRowCount = 0;
+        lastRowId = -1;
+        rowsOrdered = true;
+    }
+
+    private MemoryCARW getValueMem(int columnIndex) {
+        return valueMems.getQuick(columnPositions.getQuick(columnIndex) * 2);
+    }
+
+    private MemoryCARW getValueOffsetMem(int columnIndex) {
+        return valueMems.getQuick(columnPositions.getQuick(columnIndex) * 2 + 1);
+    }
+
+    /**
+     * Links files of columns, which are not updated, from current version of partition to the new one.
+     * Files are copied when they cannot be linked, e.g. when current version is on storage volume.
+     */
+    private void linkPartitionFiles(Path src, Path dst) {
+        final int srcLen = src.length();
+        final int dstLen = dst.length();
+        final long p = ff.findFirst(src.$());
+        if (p > 0) {
+            try {
+                do {
+                    if (ff.findType(p) != Files.DT_FILE) {
+                        continue;
+                    }
+                    fileName.of(ff.findName(p));
+                    boolean updated = false;
+                    for (int i = 0, n = columnIndexes.size(); i < n && !updated; i++) {
+                        updated = isColumnFile(fileName, metadata.getColumnName(columnIndexes.getQuick(i)));
+                    }
+                    if (updated) {
+                        continue;
+                    }
+                    src.trimTo(srcLen).concat(fileName).$();
+                    dst.trimTo(dstLen).concat(fileName).$();
+                    if (ff.hardLink(src, dst) != 0 && ff.copy(src, dst) < 0) {
+                        throw CairoException.instance(ff.errno()).put("could not link [from=").put(src).put(", to=").put(dst).put(']');
+                    }
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+                src.trimTo(srcLen);
+                dst.trimTo(dstLen);
+            }
+        } else {
+            throw CairoException.instance(ff.errno()).put("could not open partition directory [path=").put(src).put(']');
+        }
+    }
+
+    private void openSourceColumn(Path src, CharSequence name, int columnType, long columnRowCount) {
+        final int plen = src.length();
+        try {
+            if (ColumnType.isVariableLength(columnType)) {
+                srcMem2.of(ff, TableUtils.iFile(src.trimTo(plen), name), columnRowCount * Long.BYTES + Long.BYTES, columnRowCount * Long.BYTES + Long.BYTES, MemoryTag.MMAP_TABLE_WRITER);
+                final long dataSize = srcMem2.getLong(columnRowCount * Long.BYTES);
+                srcMem1.of(ff, TableUtils.dFile(src.trimTo(plen), name), dataSize, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+            } else {
+                final long dataSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
+                srcMem1.of(ff, TableUtils.dFile(src.trimTo(plen), name), dataSize, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+        } finally {
+            src.trimTo(plen);
+        }
+    }
+
+    private void putValue(int columnType, MemoryCARW valueMem, MemoryCARW offsetMem, long ordinal) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.STRING:
+                dstMem2.putLong(dstMem1.putStr(valueMem.getStr(offsetMem.getLong(ordinal * Long.BYTES))));
+                break;
+            case ColumnType.BINARY:
+                dstMem2.putLong(dstMem1.putBin(valueMem.getBin(offsetMem.getLong(ordinal * Long.BYTES))));
+                break;
+            default:
+                final int shl = ColumnType.pow2SizeOf(columnType);
+                dstMem1.putBlockOfBytes(valueMem.addressOf(ordinal << shl), 1L << shl);
+                break;
+        }
+    }
+
+    private void rewriteColumn(Path src, Path dst, int position, long partitionSize) {
+        final int columnIndex = columnIndexes.getQuick(position);
+        final CharSequence name = metadata.getColumnName(columnIndex);
+        final int columnType = metadata.getColumnType(columnIndex);
+        final int srcLen = src.length();
+        final int dstLen = dst.length();
+
+        long columnTop = TableUtils.readColumnTop(ff, src, name, srcLen, tempMem8b, true);
+        boolean compressed = false;
+        if (!ff.exists(TableUtils.dFile(src.trimTo(srcLen), name))) {
+            compressed = ff.exists(TableUtils.dzFile(src.trimTo(srcLen), name));
+            if (!compressed) {
+                // column was added after partition had been written
+                columnTop = partitionSize;
+            }
+        }
+        src.trimTo(srcLen);
+
+        MemoryMR compressedMem = null;
+        try {
+            final long columnRowCount = partitionSize - columnTop;
+            final MemoryMR srcMem;
+            if (compressed) {
+                // compressed column is decoded into contiguous memory and read the same way as mapped one
+                compressedMem = Vm.getMRZInstance(
+                        ff,
+                        TableUtils.dzFile(src, name),
+                        columnRowCount << ColumnType.pow2SizeOf(columnType),
+                        MemoryTag.NATIVE_DEFAULT
+                );
+                src.trimTo(srcLen);
+                srcMem = compressedMem;
+            } else {
+                if (columnRowCount > 0) {
+                    openSourceColumn(src, name, columnType, columnRowCount);
+                }
+                srcMem = srcMem1;
+            }
+
+            // new version of column has no column top
+            dstMem1.of(ff, TableUtils.dFile(dst.trimTo(dstLen), name), ff.getMapPageSize(), MemoryTag.MMAP_TABLE_WRITER);
+            if (ColumnType.isVariableLength(columnType)) {
+                dstMem2.of(ff, TableUtils.iFile(dst.trimTo(dstLen), name), ff.getMapPageSize(), MemoryTag.MMAP_TABLE_WRITER);
+                dstMem2.putLong(0);
+            }
+
+            final Runnable nullSetter = nullSetters.getQuick(position);
+            final MemoryCARW valueMem = valueMems.getQuick(position * 2);
+            final MemoryCARW offsetMem = valueMems.getQuick(position * 2 + 1);
+            long lo = 0;
+            for (long i = 0; i < partitionRowCount; i++) {
+                final long rowId = rowMem.getLong(i * 16);
+                copyRows(srcMem, columnType, columnTop, lo, rowId, nullSetter);
+                putValue(columnType, valueMem, offsetMem, rowMem.getLong(i * 16 + 8));
+                lo = rowId + 1;
+            }
+            copyRows(srcMem, columnType, columnTop, lo, partitionSize, nullSetter);
+        } finally {
+            dstMem1.close(true);
+            dstMem2.close(true);
+            srcMem1.close();
+            srcMem2.close();
+            Misc.free(compressedMem);
+            src.trimTo(srcLen);
+            dst.trimTo(dstLen);
+        }
+    }
+
+    void of(IntList columnIndexes) {
+        clear();
+        this.columnIndexes.clear();
+        this.columnIndexes.addAll(columnIndexes);
+        this.columnPositions.setAll(metadata.getColumnCount(), -1);
+        this.nullSetters.clear();
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final int columnIndex = columnIndexes.getQuick(i);
+            final int columnType = metadata.getColumnType(columnIndex);
+            columnPositions.setQuick(columnIndex, i);
+            if (valueMems.size() < i * 2 + 2) {
+                valueMems.add(Vm.getCARWInstance(valuePageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT));
+                valueMems.add(Vm.getCARWInstance(valuePageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT));
+            }
+            if (metadata.hasColumnDefault(columnIndex)) {
+                TableWriter.configureDefaultSetters(nullSetters, columnType, metadata.getColumnDefault(columnIndex), dstMem1);
+            } else {
+                TableWriter.configureNullSetters(nullSetters, columnType, dstMem1, dstMem2);
+            }
+        }
+    }
+
+    /**
+     * Writes new version of partition.
+     *
+     * @param src           path to directory of current partition version
+     * @param dst           path to directory of new version, the directory has to exist
+     * @param partitionSize number of rows in partition
+     */
+    void rewritePartition(Path src, Path dst, long partitionSize) {
+        linkPartitionFiles(src, dst);
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            rewriteColumn(src, dst, i, partitionSize);
+        }
+        LOG.info().$("rewritten partition [path=").$(dst)
+                .$(", columns=").$(columnIndexes.size())
+                .$(", rows=").$(partitionRowCount)
+                .I$();
+    }
+
+    private class RowImpl implements TableWriter.Row {
+        @Override
+        public void append() {
+            partitionRowCount++;
+        }
+
+        @Override
+        public void cancel() {
+            rowMem.jumpTo(partitionRowCount * 16);
+            for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+                final int columnType = metadata.getColumnType(columnIndexes.getQuick(i));
+                final MemoryCARW valueMem = valueMems.getQuick(i * 2);
+                final MemoryCARW offsetMem = valueMems.getQuick(i * 2 + 1);
+                if (ColumnType.isVariableLength(columnType)) {
+                    final long offset = partitionRowCount * Long.BYTES;
+                    if (offsetMem.getAppendOffset() > offset) {
+                        valueMem.jumpTo(offsetMem.getLong(offset));
+                        offsetMem.jumpTo(offset);
+                    }
+                } else {
+                    valueMem.jumpTo(partitionRowCount << ColumnType.pow2SizeOf(columnType));
+                }
+            }
+        }
+
+        @Override
+        public void putBin(int columnIndex, long address, long len) {
+            final MemoryCARW mem = getValueMem(columnIndex);
+            getValueOffsetMem(columnIndex).putLong(mem.getAppendOffset());
+            mem.putBin(address, len);
+        }
+
+        @Override
+        public void putBin(int columnIndex, BinarySequence sequence) {
+            final MemoryCARW mem = getValueMem(columnIndex);
+            getValueOffsetMem(columnIndex).putLong(mem.getAppendOffset());
+            mem.putBin(sequence);
+        }
+
+        @Override
+        public void putBool(int columnIndex, boolean value) {
+            getValueMem(columnIndex).putBool(value);
+        }
+
+        @Override
+        public void putByte(int columnIndex, byte value) {
+            getValueMem(columnIndex).putByte(value);
+        }
+
+        @Override
+        public void putChar(int columnIndex, char value) {
+            getValueMem(columnIndex).putChar(value);
+        }
+
+        @Override
+        public void putDate(int columnIndex, long value) {
+            putLong(columnIndex, value);
+        }
+
+        @Override
+        public void putDouble(int columnIndex, double value) {
+            getValueMem(columnIndex).putDouble(value);
+        }
+
+        @Override
+        public void putFloat(int columnIndex, float value) {
+            getValueMem(columnIndex).putFloat(value);
+        }
+
+        @Override
+        public void putGeoHash(int columnIndex, long value) {
+            final MemoryCARW mem = getValueMem(columnIndex);
+            switch (ColumnType.tagOf(metadata.getColumnType(columnIndex))) {
+                case ColumnType.GEOBYTE:
+                    mem.putByte((byte) value);
+                    break;
+                case ColumnType.GEOSHORT:
+                    mem.putShort((short) value);
+                    break;
+                case ColumnType.GEOINT:
+                    mem.putInt((int) value);
+                    break;
+                default:
+                    mem.putLong(value);
+                    break;
+            }
+        }
+
+        @Override
+        public void putGeoHashDeg(int columnIndex, double lat, double lon) {
+            final int type = metadata.getColumnType(columnIndex);
+            putGeoHash(columnIndex, GeoHashes.fromCoordinatesDegUnsafe(lat, lon, ColumnType.getGeoHashBits(type)));
+        }
+
+        @Override
+        public void putGeoStr(int columnIndex, CharSequence value) {
+            putGeoHash(columnIndex, TableWriter.geoHashOf(value, metadata.getColumnType(columnIndex)));
+        }
+
+        @Override
+        public void putInt(int columnIndex, int value) {
+            getValueMem(columnIndex).putInt(value);
+        }
+
+        @Override
+        public void putLong(int columnIndex, long value) {
+            getValueMem(columnIndex).putLong(value);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, long l0, long l1, long l2, long l3) {
+            getValueMem(columnIndex).putLong256(l0, l1, l2, l3);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, Long256 value) {
+            getValueMem(columnIndex).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+        }
+
+        @Override
+        public void putLong256(int columnIndex, CharSequence hexString) {
+            getValueMem(columnIndex).putLong256(hexString);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, @NotNull CharSequence hexString, int start, int end) {
+            getValueMem(columnIndex).putLong256(hexString, start, end);
+        }
+
+        @Override
+        public void putShort(int columnIndex, short value) {
+            getValueMem(columnIndex).putShort(value);
+        }
+
+        @Override
+        public void putStr(int columnIndex, CharSequence value) {
+            final MemoryCARW mem = getValueMem(columnIndex);
+            getValueOffsetMem(columnIndex).putLong(mem.getAppendOffset());
+            mem.putStr(value);
+        }
+
+        @Override
+        public void putStr(int columnIndex, char value) {
+            final MemoryCARW mem = getValueMem(columnIndex);
+            getValueOffsetMem(columnIndex).putLong(mem.getAppendOffset());
+            mem.putStr(value);
+        }
+
+        @Override
+        public void putStr(int columnIndex, CharSequence value, int pos, int len) {
+            final MemoryCARW mem = getValueMem(columnIndex);
+            getValueOffsetMem(columnIndex).putLong(mem.getAppendOffset());
+            mem.putStr(value, pos, len);
+        }
+
+        @Override
+        public void putSym(int columnIndex, CharSequence value) {
+            getValueMem(columnIndex).putInt(writer.getSymbolMapWriter(columnIndex).put(value));
+        }
+
+        @Override
+        public void putSym(int columnIndex, char value) {
+            getValueMem(columnIndex).putInt(writer.getSymbolMapWriter(columnIndex).put(value));
+        }
+
+        @Override
+        public void putSymIndex(int columnIndex, int symIndex) {
+            getValueMem(columnIndex).putInt(symIndex);
+        }
+
+        @Override
+        public void putTimestamp(int columnIndex, long value) {
+            putLong(columnIndex, value);
+        }
+
+        @Override
+        public void putTimestamp(int columnIndex, CharSequence value) {
+            long l;
+            try {
+                l = value != null ? IntervalUtils.parseFloorPartialDate(value) : Numbers.LONG_NaN;
+            } catch (NumericException e) {
+                throw CairoException.instance(0).put("Invalid timestamp: ").put(value);
+            }
+            putTimestamp(columnIndex, l);
+        }
+    }
+}
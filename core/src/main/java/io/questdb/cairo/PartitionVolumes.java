@@ -0,0 +1,221 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.TableUtils.PARTITION_VOLUMES_FILE_NAME;
+
+/**
+ * Location map of partition directories that live outside of table directory. Entries are keyed
+ * by partition timestamp and name txn, so every version of partition directory resolves on its own
+ * and readers of older transactions keep finding directories they use. Partitions without an entry
+ * are in table directory.
+ * <p>
+ * Map is kept in table directory and is replaced as a whole via rename. It is written before
+ * transaction that refers to new entries is committed and entries are removed only after their
+ * directories are purged.
+ */
+public class PartitionVolumes {
+    private static final String TMP_SUFFIX = ".tmp";
+    // pairs of partition timestamp and partition name txn
+    private final LongList partitions = new LongList();
+    private final ObjList<String> volumes = new ObjList<>();
+
+    /**
+     * Copies files of partition directory into another directory, which must exist.
+     */
+    public static void copyPartitionFiles(FilesFacade ff, Path src, Path dst) {
+        final int srcLen = src.length();
+        final int dstLen = dst.length();
+        final long p = ff.findFirst(src.$());
+        if (p > 0) {
+            try {
+                final NativeLPSZ name = new NativeLPSZ();
+                do {
+                    if (ff.findType(p) == Files.DT_FILE) {
+                        name.of(ff.findName(p));
+                        src.trimTo(srcLen).concat(name).$();
+                        dst.trimTo(dstLen).concat(name).$();
+                        if (ff.copy(src, dst) < 0) {
+                            throw CairoException.instance(ff.errno()).put("could not copy [from=").put(src).put(", to=").put(dst).put(']');
+                        }
+                    }
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+                src.trimTo(srcLen);
+                dst.trimTo(dstLen);
+            }
+        } else {
+            throw CairoException.instance(ff.errno()).put("could not open partition directory [path=").put(src).put(']');
+        }
+    }
+
+    /**
+     * Sets path to directory of the table on storage volume.
+     *
+     * @throws CairoException when volume alias is not configured
+     */
+    public static Path setVolumeTablePath(CairoConfiguration configuration, Path path, CharSequence volume, CharSequence tableName) {
+        final String volumePath = configuration.getVolumePath(volume);
+        if (volumePath == null) {
+            throw CairoException.instance(0).put("volume is not configured [alias=").put(volume).put(']');
+        }
+        return path.of(volumePath).concat(tableName);
+    }
+
+    public void clear() {
+        partitions.clear();
+        volumes.clear();
+    }
+
+    public long getNameTxn(int index) {
+        return partitions.getQuick(index * 2 + 1);
+    }
+
+    public long getTimestamp(int index) {
+        return partitions.getQuick(index * 2);
+    }
+
+    /**
+     * @return volume alias of partition directory or null when directory is in table directory
+     */
+    @Nullable
+    public String getVolume(long timestamp, long nameTxn) {
+        final int index = indexOf(timestamp, nameTxn);
+        return index > -1 ? volumes.getQuick(index) : null;
+    }
+
+    public String getVolumeQuick(int index) {
+        return volumes.getQuick(index);
+    }
+
+    public boolean hasPartitions(long timestamp) {
+        for (int i = 0, n = partitions.size(); i < n; i += 2) {
+            if (partitions.getQuick(i) == timestamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the map from table directory. Path is restored to its original length.
+     *
+     * @param path path to table directory
+     */
+    public void load(FilesFacade ff, Path path) {
+        clear();
+        final int rootLen = path.length();
+        try {
+            if (!ff.exists(path.concat(PARTITION_VOLUMES_FILE_NAME).$())) {
+                return;
+            }
+            try (MemoryMR mem = Vm.getMRInstance()) {
+                mem.smallFile(ff, path, MemoryTag.MMAP_DEFAULT);
+                final int count = mem.getInt(0);
+                long offset = Integer.BYTES;
+                for (int i = 0; i < count; i++) {
+                    partitions.add(mem.getLong(offset));
+                    partitions.add(mem.getLong(offset + Long.BYTES));
+                    offset += 2 * Long.BYTES;
+                    final String volume = Chars.toString(mem.getStr(offset));
+                    volumes.add(volume);
+                    offset += Vm.getStorageLength(volume);
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    public void put(long timestamp, long nameTxn, String volume) {
+        final int index = indexOf(timestamp, nameTxn);
+        if (index > -1) {
+            volumes.setQuick(index, volume);
+        } else {
+            partitions.add(timestamp);
+            partitions.add(nameTxn);
+            volumes.add(volume);
+        }
+    }
+
+    public boolean remove(long timestamp, long nameTxn) {
+        final int index = indexOf(timestamp, nameTxn);
+        if (index > -1) {
+            partitions.removeIndexBlock(index * 2, 2);
+            volumes.remove(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Writes the map into table directory. File is written aside and renamed, readers
+     * see either old or new map. Path is restored to its original length.
+     *
+     * @param path path to table directory
+     */
+    public void save(FilesFacade ff, Path path) {
+        final int rootLen = path.length();
+        try {
+            final Path other = Path.getThreadLocal2(path).concat(PARTITION_VOLUMES_FILE_NAME).$();
+            path.concat(PARTITION_VOLUMES_FILE_NAME).put(TMP_SUFFIX).$();
+            try (MemoryMARW mem = Vm.getMARWInstance()) {
+                mem.smallFile(ff, path, MemoryTag.MMAP_DEFAULT);
+                mem.jumpTo(0);
+                mem.putInt(size());
+                for (int i = 0, n = size(); i < n; i++) {
+                    mem.putLong(getTimestamp(i));
+                    mem.putLong(getNameTxn(i));
+                    mem.putStr(volumes.getQuick(i));
+                }
+            }
+            TableUtils.renameOrFail(ff, path, other);
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    public int size() {
+        return volumes.size();
+    }
+
+    private int indexOf(long timestamp, long nameTxn) {
+        for (int i = 0, n = partitions.size(); i < n; i += 2) {
+            if (partitions.getQuick(i) == timestamp && partitions.getQuick(i + 1) == nameTxn) {
+                return i / 2;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.Numbers;
+import io.questdb.std.NumericException;
+import io.questdb.std.datetime.DateFormat;
+import io.questdb.std.datetime.DateLocale;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Names partitions of tables partitioned by {@link PartitionBy#WEEK} after ISO week, e.g. "2022-W05".
+ * ISO week belongs to the year of its Thursday, so the first days of January can be in the last
+ * week of the previous year.
+ */
+final class PartitionWeekFormat implements DateFormat {
+    static final PartitionWeekFormat INSTANCE = new PartitionWeekFormat();
+    private static final int NAME_LEN = 8;
+
+    private PartitionWeekFormat() {
+    }
+
+    @Override
+    public void format(long datetime, DateLocale locale, CharSequence timeZoneName, CharSink sink) {
+        final long thursday = Timestamps.floorWW(datetime) + 3 * Timestamps.DAY_MICROS;
+        final int y = Timestamps.getYear(thursday);
+        final int week = (int) ((thursday - Timestamps.yearMicros(y, Timestamps.isLeapYear(y))) / Timestamps.WEEK_MICROS) + 1;
+        TimestampFormatUtils.append000(sink, y);
+        sink.put("-W");
+        TimestampFormatUtils.append0(sink, week);
+    }
+
+    @Override
+    public long parse(CharSequence in, DateLocale locale) throws NumericException {
+        return parse(in, 0, in.length(), locale);
+    }
+
+    @Override
+    public long parse(CharSequence in, int lo, int hi, DateLocale locale) throws NumericException {
+        if (hi - lo != NAME_LEN || in.charAt(lo + 4) != '-' || in.charAt(lo + 5) != 'W') {
+            throw NumericException.INSTANCE;
+        }
+        final int y = Numbers.parseInt(in, lo, lo + 4);
+        final int week = Numbers.parseInt(in, lo + 6, hi);
+        if (week < 1 || week > 53) {
+            throw NumericException.INSTANCE;
+        }
+        // the first ISO week of the year is the one with January 4th
+        final long timestamp = Timestamps.floorWW(Timestamps.toMicros(y, 1, 4)) + (week - 1) * Timestamps.WEEK_MICROS;
+        if (week == 53 && Timestamps.getYear(timestamp + 3 * Timestamps.DAY_MICROS) != y) {
+            // year has only 52 weeks
+            throw NumericException.INSTANCE;
+        }
+        return timestamp;
+    }
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.std.str.Path;
+
+public class PostingIndexBwdReader extends AbstractPostingIndexReader {
+    private final Cursor cursor = new Cursor();
+    private final NullCursor nullCursor = new NullCursor();
+
+    public PostingIndexBwdReader(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence name,
+            long unIndexedNullCount,
+            long partitionTxn
+    ) {
+        of(configuration, path, name, unIndexedNullCount, partitionTxn);
+    }
+
+    @Override
+    public RowCursor getCursor(boolean cachedInstance, int key, long minValue, long maxValue) {
+        assert minValue <= maxValue;
+
+        if (key == 0 && unIndexedNullCount > 0) {
+            final NullCursor nullCursor = getNullCursor(cachedInstance);
+            nullCursor.nullCount = maxValue < unIndexedNullCount ? maxValue + 1 : unIndexedNullCount;
+            nullCursor.of(key, minValue, maxValue);
+            return nullCursor;
+        }
+
+        if (key < keyCount) {
+            final Cursor cursor = getCursor(cachedInstance);
+            cursor.of(key, minValue, maxValue);
+            return cursor;
+        }
+
+        return EmptyRowCursor.INSTANCE;
+    }
+
+    private Cursor getCursor(boolean cachedInstance) {
+        return cachedInstance ? cursor : new Cursor();
+    }
+
+    private NullCursor getNullCursor(boolean cachedInstance) {
+        return cachedInstance ? nullCursor : new NullCursor();
+    }
+
+    private class Cursor implements RowCursor {
+        private final long[] values = new long[PostingIndexUtils.BLOCK_VALUE_COUNT];
+        protected long minValue;
+        protected long next;
+        private long directoryAddress;
+        private long valueCount;
+        private int block;
+        private int position;
+
+        @Override
+        public boolean hasNext() {
+            if (position == 0) {
+                if (block == 0) {
+                    return false;
+                }
+                position = loadBlock(values, directoryAddress, valueCount, --block);
+            }
+
+            final long value = values[--position];
+            if (value < minValue) {
+                block = position = 0;
+                return false;
+            }
+            this.next = value;
+            return true;
+        }
+
+        @Override
+        public long next() {
+            return next;
+        }
+
+        void of(int key, long minValue, long maxValue) {
+            assert key > -1 : "key must be positive integer: " + key;
+            this.minValue = minValue;
+            this.valueCount = key < keyCount ? getValueCount(key) : 0;
+            block = position = 0;
+            if (valueCount == 0) {
+                return;
+            }
+
+            directoryAddress = getDirectoryAddress(key);
+            // skip blocks entirely above maxValue without decoding them
+            final int block = PostingIndexUtils.searchDirectory(directoryAddress, PostingIndexUtils.getBlockCount(valueCount), maxValue);
+            if (block > -1) {
+                this.block = block;
+                position = loadBlock(values, directoryAddress, valueCount, block);
+                while (values[position - 1] > maxValue) {
+                    // first value of the block is not above maxValue
+                    position--;
+                }
+            }
+        }
+    }
+
+    private class NullCursor extends Cursor {
+        private long nullCount;
+
+        @Override
+        public boolean hasNext() {
+            if (super.hasNext()) {
+                return true;
+            }
+
+            if (--nullCount >= minValue) {
+                this.next = nullCount;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.NullIndexFrameCursor;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+public class PostingIndexFwdReader extends AbstractPostingIndexReader {
+    private final Cursor cursor = new Cursor();
+    private final NullCursor nullCursor = new NullCursor();
+    private final FrameCursor frameCursor = new FrameCursor();
+
+    public PostingIndexFwdReader(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence name,
+            long unIndexedNullCount,
+            long partitionTxn
+    ) {
+        of(configuration, path, name, unIndexedNullCount, partitionTxn);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        frameCursor.close();
+    }
+
+    @Override
+    public RowCursor getCursor(boolean cachedInstance, int key, long minValue, long maxValue) {
+        if (key == 0 && unIndexedNullCount > 0 && minValue < unIndexedNullCount) {
+            // we need to return some nulls and the whole set of actual index values
+            final NullCursor nullCursor = getNullCursor(cachedInstance);
+            nullCursor.nullPos = minValue;
+            nullCursor.nullCount = maxValue < unIndexedNullCount ? maxValue + 1 : unIndexedNullCount;
+            nullCursor.of(key, 0, maxValue);
+            return nullCursor;
+        }
+
+        if (key < keyCount) {
+            final Cursor cursor = getCursor(cachedInstance);
+            cursor.of(key, minValue, maxValue);
+            return cursor;
+        }
+
+        return EmptyRowCursor.INSTANCE;
+    }
+
+    @Override
+    public IndexFrameCursor getFrameCursor(int key, long minRowId, long maxRowId) {
+        if (key < keyCount) {
+            frameCursor.of(key, minRowId, maxRowId);
+            return frameCursor;
+        }
+        return NullIndexFrameCursor.INSTANCE;
+    }
+
+    private Cursor getCursor(boolean cachedInstance) {
+        return cachedInstance ? cursor : new Cursor();
+    }
+
+    private NullCursor getNullCursor(boolean cachedInstance) {
+        return cachedInstance ? nullCursor : new NullCursor();
+    }
+
+    private class Cursor implements RowCursor {
+        private final long[] values = new long[PostingIndexUtils.BLOCK_VALUE_COUNT];
+        protected long next;
+        private long directoryAddress;
+        private long valueCount;
+        private long maxValue;
+        private int blockCount;
+        private int block;
+        private int blockSize;
+        private int position;
+
+        @Override
+        public boolean hasNext() {
+            if (position == blockSize) {
+                if (block + 1 >= blockCount) {
+                    return false;
+                }
+                blockSize = loadBlock(values, directoryAddress, valueCount, ++block);
+                position = 0;
+            }
+
+            final long value = values[position++];
+            if (value > maxValue) {
+                position = blockSize;
+                block = blockCount;
+                return false;
+            }
+            this.next = value;
+            return true;
+        }
+
+        @Override
+        public long next() {
+            return next;
+        }
+
+        void of(int key, long minValue, long maxValue) {
+            assert key > -1 : "key must be positive integer: " + key;
+            this.maxValue = maxValue;
+            this.valueCount = key < keyCount ? getValueCount(key) : 0;
+            if (valueCount == 0 || getLastValue(key) < minValue) {
+                blockCount = block = blockSize = position = 0;
+                return;
+            }
+
+            directoryAddress = getDirectoryAddress(key);
+            blockCount = PostingIndexUtils.getBlockCount(valueCount);
+            // skip blocks entirely below minValue without decoding them
+            block = Math.max(0, PostingIndexUtils.searchDirectory(directoryAddress, blockCount, minValue));
+            blockSize = loadBlock(values, directoryAddress, valueCount, block);
+            position = 0;
+            while (position < blockSize && values[position] < minValue) {
+                // when whole block is below minValue, cursor continues from the next block
+                position++;
+            }
+        }
+    }
+
+    private class NullCursor extends Cursor {
+        private long nullCount;
+        private long nullPos;
+
+        @Override
+        public boolean hasNext() {
+            if (nullPos < nullCount) {
+                next = nullPos++;
+                return true;
+            }
+            return super.hasNext();
+        }
+    }
+
+    private class FrameCursor extends Cursor implements IndexFrameCursor {
+        private static final long FRAME_SIZE = PostingIndexUtils.BLOCK_VALUE_COUNT * Long.BYTES;
+        private final IndexFrame indexFrame = new IndexFrame();
+        private long frameAddress;
+
+        @Override
+        public IndexFrame getNext() {
+            if (frameAddress == 0) {
+                frameAddress = Unsafe.malloc(FRAME_SIZE, MemoryTag.NATIVE_DEFAULT);
+            }
+
+            long size = 0;
+            while (size < PostingIndexUtils.BLOCK_VALUE_COUNT && hasNext()) {
+                Unsafe.getUnsafe().putLong(frameAddress + size * Long.BYTES, next);
+                size++;
+            }
+            return size > 0 ? indexFrame.of(frameAddress, size) : IndexFrame.NULL_INSTANCE;
+        }
+
+        private void close() {
+            if (frameAddress != 0) {
+                Unsafe.free(frameAddress, FRAME_SIZE, MemoryTag.NATIVE_DEFAULT);
+                frameAddress = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+/**
+ * Posting index is read-only alternative to bitmap index for partitions that are no longer
+ * appended to. It is written once for the whole partition and consists of two files.
+ * <p>
+ * Key file, ".pk":
+ * struct {
+ * byte signature;
+ * int block_value_count; // at offset 4
+ * int key_count; // at offset 8
+ * long value_mem_size; // at offset 16
+ * long value_count; // at offset 24
+ * long row_count; // at offset 32, partition rows covered by the index, written last
+ * key_entry keys[key_count]; // at offset 64
+ * }
+ * key_entry {
+ * long value_count;
+ * long directory_offset; // offset of key's block directory in value file
+ * long last_value;
+ * long reserved;
+ * }
+ * <p>
+ * Value file, ".pv", for every key:
+ * struct {
+ * directory_entry directory[ceil(value_count / block_value_count)];
+ * byte blocks[];
+ * }
+ * directory_entry {
+ * long first_value;
+ * long block_offset;
+ * }
+ * <p>
+ * Block holds up to block_value_count values. First value of the block is kept in directory, the rest
+ * are stored as unsigned LEB128 encoded gaps to the previous value, less one. Directory lets readers
+ * binary search the block of a row without decoding the blocks in front of it.
+ */
+public final class PostingIndexUtils {
+    public static final byte SIGNATURE = (byte) 0xfb;
+    static final int BLOCK_VALUE_COUNT = 128;
+    static final long DIRECTORY_ENTRY_SIZE = 16;
+    static final int HEADER_OFFSET_SIGNATURE = 0;
+    static final int HEADER_OFFSET_BLOCK_VALUE_COUNT = 4;
+    static final int HEADER_OFFSET_KEY_COUNT = 8;
+    static final int HEADER_OFFSET_VALUE_MEM_SIZE = 16;
+    static final int HEADER_OFFSET_VALUE_COUNT = 24;
+    static final int HEADER_OFFSET_ROW_COUNT = 32;
+    static final long KEY_ENTRY_SIZE = 32;
+    static final int KEY_ENTRY_OFFSET_VALUE_COUNT = 0;
+    static final int KEY_ENTRY_OFFSET_DIRECTORY_OFFSET = 8;
+    static final int KEY_ENTRY_OFFSET_LAST_VALUE = 16;
+    static final int KEY_FILE_RESERVED = 64;
+
+    private PostingIndexUtils() {
+    }
+
+    public static Path keyFileName(Path path, CharSequence name) {
+        return path.concat(name).put(".pk").$();
+    }
+
+    /**
+     * Reads number of partition rows covered by posting index of the column. Index can only be
+     * used when this number matches partition size, otherwise partition has been appended
+     * to after the index was written.
+     *
+     * @param ff        files facade
+     * @param path      path to partition directory, path is left unchanged
+     * @param name      column name
+     * @param tempMem8b temporary memory of 8 bytes
+     * @return row count or -1 when column does not have posting index in this partition
+     */
+    public static long readRowCount(FilesFacade ff, Path path, CharSequence name, long tempMem8b) {
+        final int plen = path.length();
+        try {
+            final long fd = ff.openRO(keyFileName(path, name));
+            if (fd == -1) {
+                return -1;
+            }
+            try {
+                if (ff.read(fd, tempMem8b, Long.BYTES, HEADER_OFFSET_ROW_COUNT) != Long.BYTES) {
+                    return -1;
+                }
+                return Unsafe.getUnsafe().getLong(tempMem8b);
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    public static Path valueFileName(Path path, CharSequence name) {
+        return path.concat(name).put(".pv").$();
+    }
+
+    /**
+     * Decodes block values into array.
+     *
+     * @param address    address of the first encoded gap
+     * @param firstValue first value of the block, as found in the directory
+     * @param count      number of values in the block
+     * @param values     array of at least count values
+     */
+    static void decodeBlock(long address, long firstValue, int count, long[] values) {
+        long value = firstValue;
+        values[0] = value;
+        for (int i = 1; i < count; i++) {
+            long gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = Unsafe.getUnsafe().getByte(address++);
+                gap |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += gap + 1;
+            values[i] = value;
+        }
+    }
+
+    static int getBlockCount(long valueCount) {
+        return (int) ((valueCount + BLOCK_VALUE_COUNT - 1) / BLOCK_VALUE_COUNT);
+    }
+
+    static int getBlockValueCount(long valueCount, int blockIndex) {
+        return (int) Math.min(BLOCK_VALUE_COUNT, valueCount - (long) blockIndex * BLOCK_VALUE_COUNT);
+    }
+
+    static long getKeyEntryOffset(int key) {
+        return key * KEY_ENTRY_SIZE + KEY_FILE_RESERVED;
+    }
+
+    /**
+     * Finds the last block, which first value is less than or equal to the given value.
+     *
+     * @param directoryAddress address of key's block directory
+     * @param blockCount       number of blocks
+     * @param value            value to search for
+     * @return block index or -1 when all blocks start above value
+     */
+    static int searchDirectory(long directoryAddress, int blockCount, long value) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (Unsafe.getUnsafe().getLong(directoryAddress + mid * DIRECTORY_ENTRY_SIZE) <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low - 1;
+    }
+}
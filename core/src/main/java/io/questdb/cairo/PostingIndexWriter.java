@@ -0,0 +1,210 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Writes posting index of a partition in one go, either from symbol column or from
+ * bitmap index of the same column. Index files are complete once {@link #index(MemoryR, long, long)}
+ * or {@link #copyOf(BitmapIndexReader, long)} returns. Row count is the last thing written, readers
+ * ignore index until row count matches partition size.
+ */
+public class PostingIndexWriter implements Closeable {
+    private final MemoryMARW keyMem = Vm.getMARWInstance();
+    private final MemoryMARW valueMem = Vm.getMARWInstance();
+    // value count of each key, then offset of key's first value in values list
+    private final LongList keyOffsets = new LongList();
+    private DirectLongList values;
+    private int keyCount;
+    private long valueCount;
+
+    @Override
+    public void close() {
+        if (keyMem.isOpen()) {
+            keyMem.close();
+        }
+        if (valueMem.isOpen()) {
+            valueMem.close();
+        }
+        values = Misc.free(values);
+        keyOffsets.clear();
+    }
+
+    /**
+     * Copies bitmap index into posting index. Bitmap index reader must not include unindexed nulls.
+     *
+     * @param reader   forward reader of bitmap index
+     * @param rowCount number of partition rows covered by bitmap index
+     */
+    public void copyOf(BitmapIndexReader reader, long rowCount) {
+        final DirectLongList values = getValues(PostingIndexUtils.BLOCK_VALUE_COUNT);
+        for (int key = 0, n = reader.getKeyCount(); key < n; key++) {
+            values.clear();
+            final RowCursor cursor = reader.getCursor(true, key, 0, Long.MAX_VALUE);
+            while (cursor.hasNext()) {
+                values.add(cursor.next());
+            }
+            putKey(values.getAddress(), values.size());
+        }
+        putHeader(rowCount);
+    }
+
+    /**
+     * Indexes symbol column of partition.
+     *
+     * @param columnMem column memory, starting at column top
+     * @param columnTop number of partition rows in front of the column
+     * @param rowCount  number of partition rows
+     */
+    public void index(MemoryR columnMem, long columnTop, long rowCount) {
+        // count values of every key
+        keyOffsets.clear();
+        for (long row = columnTop; row < rowCount; row++) {
+            final int key = TableUtils.toIndexKey(columnMem.getInt((row - columnTop) * Integer.BYTES));
+            final int size = keyOffsets.size();
+            if (key >= size) {
+                keyOffsets.setPos(key + 1);
+                keyOffsets.fill(size, key + 1, 0);
+            }
+            keyOffsets.increment(key);
+        }
+
+        // group rows by key, rows of each key remain in ascending order
+        long offset = 0;
+        for (int key = 0, n = keyOffsets.size(); key < n; key++) {
+            final long count = keyOffsets.getQuick(key);
+            keyOffsets.setQuick(key, offset);
+            offset += count;
+        }
+
+        final DirectLongList values = getValues(rowCount - columnTop);
+        final long valuesAddress = values.getAddress();
+        for (long row = columnTop; row < rowCount; row++) {
+            final int key = TableUtils.toIndexKey(columnMem.getInt((row - columnTop) * Integer.BYTES));
+            final long p = keyOffsets.getQuick(key);
+            Unsafe.getUnsafe().putLong(valuesAddress + p * Long.BYTES, row);
+            keyOffsets.setQuick(key, p + 1);
+        }
+
+        // after the pass above offset of every key points to the start of the next key
+        long lo = 0;
+        for (int key = 0, n = keyOffsets.size(); key < n; key++) {
+            final long hi = keyOffsets.getQuick(key);
+            putKey(valuesAddress + lo * Long.BYTES, hi - lo);
+            lo = hi;
+        }
+        putHeader(rowCount);
+    }
+
+    public boolean isOpen() {
+        return keyMem.isOpen();
+    }
+
+    public void of(CairoConfiguration configuration, Path path, CharSequence name) {
+        close();
+        final FilesFacade ff = configuration.getFilesFacade();
+        final int plen = path.length();
+        try {
+            keyMem.of(ff, PostingIndexUtils.keyFileName(path, name), configuration.getDataIndexKeyAppendPageSize(), 0, MemoryTag.MMAP_INDEX_WRITER);
+            valueMem.of(ff, PostingIndexUtils.valueFileName(path.trimTo(plen), name), configuration.getDataIndexValueAppendPageSize(), 0, MemoryTag.MMAP_INDEX_WRITER);
+            // header is zeroed out, readers will not trust the file until row count is set
+            keyMem.jumpTo(0);
+            for (int i = 0; i < PostingIndexUtils.KEY_FILE_RESERVED; i += Long.BYTES) {
+                keyMem.putLong(0);
+            }
+            valueMem.jumpTo(0);
+            keyCount = 0;
+            valueCount = 0;
+        } catch (Throwable e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private DirectLongList getValues(long capacity) {
+        if (values == null) {
+            values = new DirectLongList(Math.max(capacity, PostingIndexUtils.BLOCK_VALUE_COUNT));
+        } else if (values.getCapacity() < capacity) {
+            values.extend(capacity);
+        }
+        values.clear();
+        return values;
+    }
+
+    private void putHeader(long rowCount) {
+        keyMem.putByte(PostingIndexUtils.HEADER_OFFSET_SIGNATURE, PostingIndexUtils.SIGNATURE);
+        keyMem.putInt(PostingIndexUtils.HEADER_OFFSET_BLOCK_VALUE_COUNT, PostingIndexUtils.BLOCK_VALUE_COUNT);
+        keyMem.putInt(PostingIndexUtils.HEADER_OFFSET_KEY_COUNT, keyCount);
+        keyMem.putLong(PostingIndexUtils.HEADER_OFFSET_VALUE_MEM_SIZE, valueMem.getAppendOffset());
+        keyMem.putLong(PostingIndexUtils.HEADER_OFFSET_VALUE_COUNT, valueCount);
+        Unsafe.getUnsafe().storeFence();
+        keyMem.putLong(PostingIndexUtils.HEADER_OFFSET_ROW_COUNT, rowCount);
+    }
+
+    private void putKey(long valuesAddress, long count) {
+        final long directoryOffset = valueMem.getAppendOffset();
+        final int blockCount = PostingIndexUtils.getBlockCount(count);
+        valueMem.skip(blockCount * PostingIndexUtils.DIRECTORY_ENTRY_SIZE);
+        for (int block = 0; block < blockCount; block++) {
+            final long lo = (long) block * PostingIndexUtils.BLOCK_VALUE_COUNT;
+            final long hi = lo + PostingIndexUtils.getBlockValueCount(count, block);
+            long prev = Unsafe.getUnsafe().getLong(valuesAddress + lo * Long.BYTES);
+            final long entryOffset = directoryOffset + block * PostingIndexUtils.DIRECTORY_ENTRY_SIZE;
+            valueMem.putLong(entryOffset, prev);
+            valueMem.putLong(entryOffset + Long.BYTES, valueMem.getAppendOffset());
+            for (long i = lo + 1; i < hi; i++) {
+                final long value = Unsafe.getUnsafe().getLong(valuesAddress + i * Long.BYTES);
+                assert value > prev;
+                putGap(value - prev - 1);
+                prev = value;
+            }
+        }
+
+        keyMem.putLong(count);
+        keyMem.putLong(count > 0 ? directoryOffset : 0);
+        keyMem.putLong(count > 0 ? Unsafe.getUnsafe().getLong(valuesAddress + (count - 1) * Long.BYTES) : -1);
+        keyMem.putLong(0);
+        keyCount++;
+        valueCount += count;
+    }
+
+    private void putGap(long gap) {
+        while ((gap & ~0x7fL) != 0) {
+            valueMem.putByte((byte) (gap | 0x80));
+            gap >>>= 7;
+        }
+        valueMem.putByte((byte) gap);
+    }
+}
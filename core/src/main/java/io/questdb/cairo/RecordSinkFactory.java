@@ -220,10 +220,30 @@ public class RecordSinkFactory {
                     asm.invokeInterface(wSkip, 1);
                     break;
                 case -ColumnType.LONG:
+                case -ColumnType.DOUBLE:
+                case -ColumnType.DATE:
+                case -ColumnType.TIMESTAMP:
                     asm.aload(2);
                     asm.iconst(Long.BYTES);
                     asm.invokeInterface(wSkip, 1);
                     break;
+                case -ColumnType.FLOAT:
+                    asm.aload(2);
+                    asm.iconst(Float.BYTES);
+                    asm.invokeInterface(wSkip, 1);
+                    break;
+                case -ColumnType.SHORT:
+                case -ColumnType.CHAR:
+                    asm.aload(2);
+                    asm.iconst(Short.BYTES);
+                    asm.invokeInterface(wSkip, 1);
+                    break;
+                case -ColumnType.BYTE:
+                case -ColumnType.BOOLEAN:
+                    asm.aload(2);
+                    asm.iconst(Byte.BYTES);
+                    asm.invokeInterface(wSkip, 1);
+                    break;
                 case ColumnType.GEOBYTE:
                     asm.aload(2);
                     asm.aload(1);
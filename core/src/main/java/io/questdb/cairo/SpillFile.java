@@ -0,0 +1,152 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Temporary file that backs native memory of a query operator once the memory grows past
+ * spill threshold. Pages of the mapped file are written back and evicted by the OS under memory
+ * pressure, so large query state is bounded by disk space rather than by RAM. Space is allocated
+ * upfront, running out of disk is reported as an error rather than as a fault on a page write.
+ * <p>
+ * The file is removed when it is released or closed, instance can be mapped again after that.
+ */
+public class SpillFile implements Closeable {
+    private static final Log LOG = LogFactory.getLog(SpillFile.class);
+    private static final AtomicLong FILE_ID = new AtomicLong();
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final int mkDirMode;
+    private final int memoryTag;
+    private Path path;
+    private long fd = -1;
+    private long address;
+    private long size;
+
+    public SpillFile(CairoConfiguration configuration, int memoryTag) {
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getSqlSpillRoot();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.memoryTag = memoryTag;
+    }
+
+    public static boolean isEnabled(CairoConfiguration configuration) {
+        return configuration.getSqlSpillRoot() != null;
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    public long getAddress() {
+        return address;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isOpen() {
+        return fd != -1;
+    }
+
+    /**
+     * Maps the file with given size. When the file is already mapped its content is preserved,
+     * mapping address may change.
+     *
+     * @param newSize size of the file in bytes
+     * @return address of the mapping
+     */
+    public long map(long newSize) {
+        if (fd == -1) {
+            open();
+        }
+        if (newSize > size && !ff.allocate(fd, newSize)) {
+            throw CairoException.instance(ff.errno()).put("could not allocate spill file [path=").put(path).put(", size=").put(newSize).put(']');
+        }
+        final long newAddress = address == 0
+                ? ff.mmap(fd, newSize, 0, Files.MAP_RW, memoryTag)
+                : ff.mremap(fd, address, size, newSize, 0, Files.MAP_RW, memoryTag);
+        if (newAddress == -1) {
+            address = 0;
+            size = 0;
+            throw CairoException.instance(ff.errno()).put("could not mmap spill file [path=").put(path).put(", size=").put(newSize).put(']');
+        }
+        address = newAddress;
+        size = newSize;
+        return address;
+    }
+
+    /**
+     * Unmaps and removes the file.
+     */
+    public void release() {
+        if (fd != -1) {
+            if (address != 0) {
+                ff.munmap(address, size, memoryTag);
+                address = 0;
+            }
+            size = 0;
+            ff.close(fd);
+            fd = -1;
+            if (!ff.remove(path)) {
+                LOG.error().$("could not remove spill file [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+            path = Misc.free(path);
+        }
+    }
+
+    private void open() {
+        final Path path = new Path();
+        try {
+            path.of(root).slash$();
+            if (!ff.exists(path) && ff.mkdirs(path, mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create spill directory [path=").put(path).put(']');
+            }
+            path.of(root).concat("spill-").put(Os.currentTimeMicros()).put('-').put(FILE_ID.incrementAndGet()).put(".tmp").$();
+            fd = ff.openRW(path);
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open spill file [path=").put(path).put(']');
+            }
+        } catch (Throwable e) {
+            path.close();
+            throw e;
+        }
+        this.path = path;
+        LOG.info().$("spilling to disk [path=").$(path).$(']').$();
+    }
+}
@@ -36,6 +36,8 @@ public class TableColumnMetadata {
     private String name;
     private int indexValueBlockCapacity;
     private boolean indexed;
+    private boolean defaultFlag;
+    private long defaultValue;
 
     public TableColumnMetadata(String name, long hash, int type) {
         this(name, hash, type, null);
@@ -66,6 +68,18 @@ public class TableColumnMetadata {
         this.metadata = GenericRecordMetadata.copyOf(metadata);
     }
 
+    /**
+     * @return default value bits of column, meaningful only when {@link #hasDefault()} is true
+     */
+    public long getDefaultValue() {
+        return defaultValue;
+    }
+
+    public void setDefaultValue(long defaultValue) {
+        this.defaultFlag = true;
+        this.defaultValue = defaultValue;
+    }
+
     public long getHash() {
         return hash;
     }
@@ -95,6 +109,10 @@ public class TableColumnMetadata {
         return type;
     }
 
+    public boolean hasDefault() {
+        return defaultFlag;
+    }
+
     public boolean isIndexed() {
         return indexed;
     }
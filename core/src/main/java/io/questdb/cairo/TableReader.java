@@ -27,6 +27,7 @@ package io.questdb.cairo;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.SymbolTableSource;
 import io.questdb.cairo.vm.MemoryCMRImpl;
+import io.questdb.cairo.vm.MemoryCMRZImpl;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.cairo.vm.api.MemoryR;
@@ -52,6 +53,8 @@ public class TableReader implements Closeable, SymbolTableSource {
     private final ColumnCopyStruct tempCopyStruct = new ColumnCopyStruct();
     private final FilesFacade ff;
     private final Path path;
+    // path to partitions on storage volumes, see PartitionVolumes
+    private final Path volumePath = new Path();
     private final int rootLen;
     private final TableReaderMetadata metadata;
     private final DateFormat partitionFormat;
@@ -65,6 +68,19 @@ public class TableReader implements Closeable, SymbolTableSource {
     private final TxReader txFile;
     private final MemoryMR todoMem = Vm.getMRInstance();
     private final TxnScoreboard txnScoreboard;
+    private final ZoneMapReader zoneMapReader;
+    private final ObjList<BloomFilterReader> bloomFilterReaders = new ObjList<>();
+    private final ObjList<GeoHashIndexReader> geoHashIndexReaders = new ObjList<>();
+    // composite index readers, forward and backward reader per partition
+    private final ObjList<AbstractIndexReader> compositeIndexReaders = new ObjList<>();
+    // partition timestamp and name txn composite index reader was opened for
+    private final LongList compositeIndexReaderPartitions = new LongList();
+    private CompositeIndexKeys compositeIndexKeys;
+    // column served for rows above column top, constant column when column has default value
+    private final ObjList<NullColumn> defaultColumns = new ObjList<>();
+    private final PartitionVolumes partitionVolumes = new PartitionVolumes();
+    // decoded columns of compressed partitions are shared with other readers when cache is set
+    private final DecodedColumnCache decodedColumnCache;
     private int partitionCount;
     private LongList columnTops;
     private ObjList<MemoryMR> columns;
@@ -75,9 +91,17 @@ public class TableReader implements Closeable, SymbolTableSource {
     private long txn = TableUtils.INITIAL_TXN;
     private long tempMem8b = Unsafe.malloc(8, MemoryTag.NATIVE_DEFAULT);
     private boolean active;
+    private long zoneMapTxn = -1;
+    // partition that has been advised for random access most recently
+    private int randomAccessPartitionIndex = -1;
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName) {
+        this(configuration, tableName, null);
+    }
+
+    public TableReader(CairoConfiguration configuration, CharSequence tableName, DecodedColumnCache decodedColumnCache) {
         this.configuration = configuration;
+        this.decodedColumnCache = decodedColumnCache;
         this.ff = configuration.getFilesFacade();
         this.tableName = Chars.toString(tableName);
         this.path = new Path();
@@ -96,8 +120,11 @@ public class TableReader implements Closeable, SymbolTableSource {
                     .I$();
             this.txFile = new TxReader(ff, path, partitionBy);
             path.trimTo(rootLen);
+            this.zoneMapReader = configuration.isZoneMapEnabled() ? new ZoneMapReader(ff) : null;
             readTxnSlow();
+            partitionVolumes.load(ff, path);
             openSymbolMaps();
+            reloadDefaultColumns();
             partitionCount = txFile.getPartitionCount();
             partitionFormat = TableUtils.getPartitionDateFmt(partitionBy);
             timestampFloorMethod = partitionBy == PartitionBy.NONE ? null : TableUtils.getPartitionFloor(partitionBy);
@@ -132,6 +159,40 @@ public class TableReader implements Closeable, SymbolTableSource {
         return 2 + base + index * 2;
     }
 
+    /**
+     * Hints OS on how columns of open partition are going to be read. Columns that are
+     * opened later start with default advice.
+     *
+     * @param partitionIndex index of open partition
+     * @param advice         one of Files.MADV_* constants
+     */
+    public void advisePartition(int partitionIndex, int advice) {
+        randomAccessPartitionIndex = advice == Files.MADV_RANDOM ? partitionIndex : -1;
+        final int base = getColumnBase(partitionIndex);
+        for (int i = 0; i < columnCount; i++) {
+            final int index = getPrimaryColumnIndex(base, i);
+            final MemoryMR fixed = columns.getQuick(index);
+            if (fixed != null) {
+                fixed.advise(advice);
+            }
+            final MemoryMR var = columns.getQuick(index + 1);
+            if (var != null) {
+                var.advise(advice);
+            }
+        }
+    }
+
+    /**
+     * Declares row id lookups into open partition. Read-ahead is of no use to lookups that jump
+     * around partition, e.g. to fetch rows in sort order, and only evicts useful pages.
+     * Cheap to call for every row.
+     */
+    public void adviseRandomAccess(int partitionIndex) {
+        if (partitionIndex != randomAccessPartitionIndex) {
+            advisePartition(partitionIndex, Files.MADV_RANDOM);
+        }
+    }
+
     public double avgDouble(int columnIndex) {
         double result = 0;
         long countTotal = 0;
@@ -164,11 +225,18 @@ public class TableReader implements Closeable, SymbolTableSource {
             Misc.free(metadata);
             goPassive();
             Misc.free(txFile);
+            Misc.free(zoneMapReader);
+            Misc.freeObjList(bloomFilterReaders);
+            Misc.freeObjList(geoHashIndexReaders);
+            Misc.freeObjList(compositeIndexReaders);
+            Misc.free(compositeIndexKeys);
+            Misc.freeObjList(defaultColumns);
             Misc.free(todoMem);
             freeColumns();
             freeTempMem();
             Misc.free(txnScoreboard);
             Misc.free(path);
+            Misc.free(volumePath);
             LOG.debug().$("closed '").utf8(tableName).$('\'').$();
         }
     }
@@ -220,7 +288,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         return reader == null ? createBitmapIndexReaderAt(index, columnBase, columnIndex, direction, txFile.getPartitionNameTxn(partitionIndex)) : reader;
     }
 
-    public MemoryR getColumn(int absoluteIndex) {
+    public MemoryMR getColumn(int absoluteIndex) {
         return columns.getQuick(absoluteIndex);
     }
 
@@ -228,6 +296,17 @@ public class TableReader implements Closeable, SymbolTableSource {
         return partitionIndex << columnCountBits;
     }
 
+    /**
+     * Column that provides values of rows above column top. These are nulls unless column
+     * was added with default value.
+     *
+     * @param columnIndex index of column in table metadata
+     * @return {@link NullColumn#INSTANCE} or {@link ConstantColumn} with column default
+     */
+    public NullColumn getDefaultColumn(int columnIndex) {
+        return defaultColumns.getQuick(columnIndex);
+    }
+
     public long getColumnTop(int base, int columnIndex) {
         return this.columnTops.getQuick(base / 2 + columnIndex);
     }
@@ -292,10 +371,170 @@ public class TableReader implements Closeable, SymbolTableSource {
         return tableName;
     }
 
+    public long getTxn() {
+        return txn;
+    }
+
     public long getVersion() {
         return this.txFile.getStructureVersion();
     }
 
+    /**
+     * Finds composite index key of combination of symbol keys of composite index columns.
+     *
+     * @param k0 symbol key of first column of composite index
+     * @param k1 symbol key of second column of composite index
+     * @param k2 symbol key of third column of composite index, ignored when index has two columns
+     * @return composite index key or -1 when table has no rows with the combination
+     */
+    public int getCompositeIndexKey(int k0, int k1, int k2) {
+        if (compositeIndexKeys == null) {
+            compositeIndexKeys = new CompositeIndexKeys(false);
+        }
+        if (!compositeIndexKeys.isOpen()) {
+            compositeIndexKeys.of(ff, path.trimTo(rootLen), metadata.getCompositeIndexColumnCount());
+        }
+        return compositeIndexKeys.keyOf(k0, k1, k2);
+    }
+
+    /**
+     * Composite index of partition. Index may cover fewer rows than partition has, see
+     * {@link AbstractIndexReader#getIndexedRowCount()}.
+     *
+     * @param partitionIndex partition index
+     * @param direction      {@link BitmapIndexReader#DIR_FORWARD} or {@link BitmapIndexReader#DIR_BACKWARD}
+     * @return index reader or null when partition has no composite index
+     */
+    public AbstractIndexReader getCompositeIndexReader(int partitionIndex, int direction) {
+        if (metadata.getCompositeIndexColumnCount() == 0) {
+            return null;
+        }
+        final int slot = partitionIndex * 2 + (direction == BitmapIndexReader.DIR_BACKWARD ? 1 : 0);
+        final long partitionTimestamp = txFile.getPartitionTimestamp(partitionIndex);
+        final long partitionNameTxn = txFile.getPartitionNameTxn(partitionIndex);
+        AbstractIndexReader indexReader = compositeIndexReaders.getQuiet(slot);
+        if (indexReader != null
+                && indexReader.isOpen()
+                && compositeIndexReaderPartitions.getQuick(slot * 2) == partitionTimestamp
+                && compositeIndexReaderPartitions.getQuick(slot * 2 + 1) == partitionNameTxn) {
+            return indexReader;
+        }
+        if (indexReader == null) {
+            indexReader = direction == BitmapIndexReader.DIR_BACKWARD ? new BitmapIndexBwdReader() : new BitmapIndexFwdReader();
+            compositeIndexReaders.extendAndSet(slot, indexReader);
+        } else {
+            indexReader.close();
+        }
+        try {
+            final Path path = pathGenPartitioned(partitionIndex);
+            TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+            final int plen = path.length();
+            // partition written before its rows were indexed, e.g. by out of order commit, has no index
+            if (!ff.exists(BitmapIndexUtils.keyFileName(path, TableUtils.COMPOSITE_INDEX_NAME))) {
+                return null;
+            }
+            indexReader.of(configuration, path.trimTo(plen), TableUtils.COMPOSITE_INDEX_NAME, 0, -1);
+            compositeIndexReaderPartitions.extendAndSet(slot * 2 + 1, partitionNameTxn);
+            compositeIndexReaderPartitions.setQuick(slot * 2, partitionTimestamp);
+            return indexReader;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Bloom filter of column values in partition, it allows skipping partition without opening it.
+     *
+     * @param partitionIndex partition index
+     * @param columnIndex    column index
+     * @return bloom filter covering all partition rows or null when column has no filter or filter is behind
+     */
+    public BloomFilterReader getBloomFilter(int partitionIndex, int columnIndex) {
+        if (!metadata.isBloomFilterIndexed(columnIndex)) {
+            return null;
+        }
+        BloomFilterReader bloomFilter = bloomFilterReaders.getQuiet(columnIndex);
+        if (bloomFilter == null) {
+            bloomFilter = new BloomFilterReader(ff);
+            bloomFilterReaders.extendAndSet(columnIndex, bloomFilter);
+        }
+        final long partitionNameTxn = txFile.getPartitionNameTxn(partitionIndex);
+        try {
+            final Path path = pathGenPartitioned(partitionIndex);
+            TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+            if (bloomFilter.of(
+                    path,
+                    metadata.getColumnName(columnIndex),
+                    txFile.getPartitionTimestamp(partitionIndex),
+                    partitionNameTxn,
+                    txFile.getPartitionSize(partitionIndex)
+            )) {
+                return bloomFilter;
+            }
+            return null;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Geohash prefix index of column values in partition.
+     *
+     * @param partitionIndex partition index
+     * @param columnIndex    column index
+     * @return index or null when column has no index or partition was written before its rows were indexed
+     */
+    public GeoHashIndexReader getGeoHashIndex(int partitionIndex, int columnIndex) {
+        if (!metadata.isGeoHashIndexed(columnIndex)) {
+            return null;
+        }
+        GeoHashIndexReader indexReader = geoHashIndexReaders.getQuiet(columnIndex);
+        if (indexReader == null) {
+            indexReader = new GeoHashIndexReader(ff);
+            geoHashIndexReaders.extendAndSet(columnIndex, indexReader);
+        }
+        final long partitionNameTxn = txFile.getPartitionNameTxn(partitionIndex);
+        try {
+            final Path path = pathGenPartitioned(partitionIndex);
+            TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+            if (indexReader.of(path, metadata.getColumnName(columnIndex), txFile.getPartitionTimestamp(partitionIndex), partitionNameTxn)) {
+                return indexReader;
+            }
+            return null;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Statistics of partition columns, they allow skipping partition without opening it.
+     *
+     * @param partitionIndex partition index
+     * @return zone map loaded with statistics of the partition or null when statistics are not available
+     */
+    public ZoneMapReader getZoneMap(int partitionIndex) {
+        if (zoneMapReader == null) {
+            return null;
+        }
+        if (!zoneMapReader.isOpen()) {
+            if (zoneMapTxn == txn) {
+                return null;
+            }
+            // writer could have created the file since last attempt
+            zoneMapTxn = txn;
+            zoneMapReader.of(path.trimTo(rootLen));
+        }
+        if (zoneMapReader.load(
+                txFile.getPartitionTimestamp(partitionIndex),
+                txFile.getPartitionSize(partitionIndex),
+                columnCount,
+                txFile.getStructureVersion()
+        )) {
+            return zoneMapReader;
+        }
+        return null;
+    }
+
     public void goActive() {
         if (active) {
             return;
@@ -366,6 +605,17 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Opens partition ahead of a scan and asks OS to start reading its columns in background,
+     * so that IO overlaps with processing of the current partition. Does nothing when
+     * prefetch is disabled in configuration.
+     */
+    public void prefetchPartition(int partitionIndex) {
+        if (configuration.isPartitionPrefetchEnabled() && openPartition(partitionIndex) > 0) {
+            advisePartition(partitionIndex, Files.MADV_WILLNEED);
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -608,9 +858,30 @@ public class TableReader implements Closeable, SymbolTableSource {
                 bitmapIndexes.setQuick(globalIndex + 1, reader);
             }
         } else {
-            Path path = pathGenPartitioned(getPartitionIndex(columnBase));
+            final int partitionIndex = getPartitionIndex(columnBase);
+            Path path = pathGenPartitioned(partitionIndex);
             try {
-                if (direction == BitmapIndexReader.DIR_BACKWARD) {
+                if (isPostingIndexed(path, metadata.getColumnName(columnIndex), txn, getPartitionSize(partitionIndex))) {
+                    if (direction == BitmapIndexReader.DIR_BACKWARD) {
+                        reader = new PostingIndexBwdReader(
+                                configuration,
+                                path,
+                                metadata.getColumnName(columnIndex),
+                                getColumnTop(columnBase, columnIndex),
+                                txn
+                        );
+                        bitmapIndexes.setQuick(globalIndex, reader);
+                    } else {
+                        reader = new PostingIndexFwdReader(
+                                configuration,
+                                path,
+                                metadata.getColumnName(columnIndex),
+                                getColumnTop(columnBase, columnIndex),
+                                txn
+                        );
+                        bitmapIndexes.setQuick(globalIndex + 1, reader);
+                    }
+                } else if (direction == BitmapIndexReader.DIR_BACKWARD) {
                     reader = new BitmapIndexBwdReader(
                             configuration,
                             path,
@@ -759,10 +1030,6 @@ public class TableReader implements Closeable, SymbolTableSource {
         return txFile.getTransientRowCount();
     }
 
-    long getTxn() {
-        return txn;
-    }
-
     TxnScoreboard getTxnScoreboard() {
         return txnScoreboard;
     }
@@ -819,7 +1086,25 @@ public class TableReader implements Closeable, SymbolTableSource {
         return mem;
     }
 
+    private void openCompressedMemory(
+            Path path,
+            ObjList<MemoryMR> columns,
+            int primaryIndex,
+            MemoryMR mem,
+            long columnSize
+    ) {
+        if (mem instanceof MemoryCMRZImpl) {
+            mem.of(ff, path, columnSize, columnSize, MemoryTag.NATIVE_TABLE_READER);
+        } else {
+            Misc.free(mem);
+            columns.setQuick(primaryIndex, Vm.getMRZInstance(ff, path, columnSize, MemoryTag.NATIVE_TABLE_READER, decodedColumnCache));
+        }
+    }
+
     private long openPartition0(int partitionIndex) {
+        if (partitionIndex == randomAccessPartitionIndex) {
+            randomAccessPartitionIndex = -1;
+        }
         if (txFile.getPartitionCount() < 2 && txFile.getTransientRowCount() == 0) {
             return -1;
         }
@@ -901,7 +1186,36 @@ public class TableReader implements Closeable, SymbolTableSource {
         }
     }
 
+    private long getPartitionSize(int partitionIndex) {
+        final long rowCount = getPartitionRowCount(partitionIndex);
+        return rowCount > -1 ? rowCount : txFile.getPartitionSize(partitionIndex);
+    }
+
+    private boolean isPostingIndexed(Path path, CharSequence name, long txn, long partitionRowCount) {
+        final int plen = path.length();
+        try {
+            TableUtils.txnPartitionConditionally(path, txn);
+            final long rowCount = PostingIndexUtils.readRowCount(ff, path, name, tempMem8b);
+            return rowCount > -1 && rowCount == partitionRowCount;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
     private Path pathGenPartitioned(int partitionIndex) {
+        if (partitionVolumes.size() > 0) {
+            final String volume = partitionVolumes.getVolume(
+                    openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE),
+                    txFile.getPartitionNameTxn(partitionIndex)
+            );
+            if (volume != null) {
+                // partition was moved out of table directory, callers trim the path to rootLen
+                // when done, volume path is set from scratch every time
+                PartitionVolumes.setVolumeTablePath(configuration, volumePath, volume, tableName);
+                formatPartitionDirName(partitionIndex, volumePath.slash());
+                return volumePath;
+            }
+        }
         formatPartitionDirName(partitionIndex, path.slash());
         return path;
     }
@@ -1005,6 +1319,8 @@ public class TableReader implements Closeable, SymbolTableSource {
     }
 
     private boolean reload(boolean activation) {
+        // partitions may be reopened with default advice
+        randomAccessPartitionIndex = -1;
         if (this.txn == txFile.unsafeReadTxn()) {
             if (activation) {
                 txnScoreboard.acquireTxn(txn);
@@ -1035,12 +1351,20 @@ public class TableReader implements Closeable, SymbolTableSource {
             final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), name, plen, tempMem8b, false);
             final long columnRowCount = partitionRowCount - columnTop;
 
+            final int columnType = metadata.getColumnType(columnIndex);
+
             // When column is added mid-table existence the .top file is only
             // created in the current partition. Older partitions would simply have no
             // column file. This makes it necessary to check for .d file existence
-            if (partitionRowCount > 0 &&  ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
-                final int columnType = metadata.getColumnType(columnIndex);
+            boolean exists = partitionRowCount > 0 && ff.exists(TableUtils.dFile(path.trimTo(plen), name));
+            boolean compressed = false;
+            if (partitionRowCount > 0 && !exists && TableUtils.isCompressibleColumnType(columnType)) {
+                // cold partition, unless writer has just decompressed it
+                compressed = ff.exists(TableUtils.dzFile(path.trimTo(plen), name));
+                exists = compressed || ff.exists(TableUtils.dFile(path.trimTo(plen), name));
+            }
 
+            if (exists) {
                 if (ColumnType.isVariableLength(columnType)) {
                     long columnSize = columnRowCount * 8L + 8L;
                     TableUtils.iFile(path.trimTo(plen), name);
@@ -1050,8 +1374,16 @@ public class TableReader implements Closeable, SymbolTableSource {
                     openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
                 } else {
                     long columnSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
-                    TableUtils.dFile(path.trimTo(plen), name);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    if (compressed) {
+                        TableUtils.dzFile(path.trimTo(plen), name);
+                        openCompressedMemory(path, columns, primaryIndex, mem1, columnSize);
+                    } else {
+                        if (mem1 instanceof MemoryCMRZImpl) {
+                            mem1 = Misc.free(mem1);
+                        }
+                        TableUtils.dFile(path.trimTo(plen), name);
+                        openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    }
                     Misc.free(columns.getAndSetQuick(secondaryIndex, null));
                 }
 
@@ -1059,7 +1391,15 @@ public class TableReader implements Closeable, SymbolTableSource {
 
                 if (metadata.isColumnIndexed(columnIndex)) {
                     BitmapIndexReader indexReader = indexReaders.getQuick(primaryIndex);
-                    if (indexReader instanceof BitmapIndexBwdReader) {
+                    if (
+                            indexReader instanceof AbstractPostingIndexReader
+                                    || indexReaders.getQuick(secondaryIndex) instanceof AbstractPostingIndexReader
+                                    || PostingIndexUtils.readRowCount(ff, path.trimTo(plen), name, tempMem8b) == partitionRowCount
+                    ) {
+                        // partition index has changed its format, readers will be created lazily
+                        Misc.free(indexReaders.getAndSetQuick(primaryIndex, null));
+                        Misc.free(indexReaders.getAndSetQuick(secondaryIndex, null));
+                    } else if (indexReader instanceof BitmapIndexBwdReader) {
                         // name txn is -1 because the parent call sets up partition name for us
                         ((BitmapIndexBwdReader) indexReader).of(configuration, path.trimTo(plen), name, columnTop, -1);
                     }
@@ -1091,6 +1431,9 @@ public class TableReader implements Closeable, SymbolTableSource {
         long pTransitionIndex = metadata.createTransitionIndex();
         try {
             metadata.applyTransitionIndex(pTransitionIndex);
+            // cached bloom filters and geohash indexes are addressed by column index
+            Misc.freeObjList(bloomFilterReaders);
+            Misc.freeObjList(geoHashIndexReaders);
             final int columnCount = Unsafe.getUnsafe().getInt(pTransitionIndex + 4);
 
             int columnCountBits = getColumnBits(columnCount);
@@ -1106,6 +1449,7 @@ public class TableReader implements Closeable, SymbolTableSource {
             // rearrange symbol map reader list
             reshuffleSymbolMapReaders(pTransitionIndex);
             this.columnCount = columnCount;
+            reloadDefaultColumns();
         } finally {
             TableUtils.freeTransitionIndex(pTransitionIndex);
         }
@@ -1126,7 +1470,8 @@ public class TableReader implements Closeable, SymbolTableSource {
             for (int i = 0; i < columnCount; i++) {
                 final int index = getPrimaryColumnIndex(columnBase, i);
                 final MemoryMR mem1 = columns.getQuick(index);
-                if (mem1 instanceof NullColumn) {
+                // compressed column cannot grow, it is gone when writer has appended to the partition
+                if (mem1 instanceof NullColumn || (mem1 instanceof MemoryCMRZImpl && mem1.isDeleted())) {
                     reloadColumnAt(
                             path,
                             columns,
@@ -1164,6 +1509,11 @@ public class TableReader implements Closeable, SymbolTableSource {
 
         // reload tx file, this will update the versions
         if (this.readTxnSlow()) {
+            // moved partitions change partition table version, partitions brought back from
+            // volumes change only the map
+            if (partitionVolumes.size() > 0 || prevPartitionVersion != txFile.getPartitionTableVersion()) {
+                partitionVolumes.load(ff, path.trimTo(rootLen));
+            }
             reloadStruct(prevStructVersion);
             // partition reload will apply truncate if necessary
             // applyTruncate for non-partitioned tables only
@@ -1174,6 +1524,18 @@ public class TableReader implements Closeable, SymbolTableSource {
         return false;
     }
 
+    private void reloadDefaultColumns() {
+        Misc.freeObjList(defaultColumns);
+        defaultColumns.clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (metadata.hasColumnDefault(i)) {
+                defaultColumns.add(new ConstantColumn(metadata.getColumnType(i), metadata.getColumnDefault(i), configuration.getColumnDefaultPageRows()));
+            } else {
+                defaultColumns.add(NullColumn.INSTANCE);
+            }
+        }
+    }
+
     private void reloadStruct(long prevStructVersion) {
         if (prevStructVersion == txFile.getStructureVersion()) {
             return;
@@ -70,14 +70,17 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
                 CharSequence name = metaMem.getStr(offset);
                 assert name != null;
                 columnMetadata.add(
-                        new TableColumnMetadata(
-                                Chars.toString(name),
-                                TableUtils.getColumnHash(metaMem, i),
-                                TableUtils.getColumnType(metaMem, i),
-                                TableUtils.isColumnIndexed(metaMem, i),
-                                TableUtils.getIndexBlockCapacity(metaMem, i),
-                                true,
-                                null
+                        withDefault(
+                                new TableColumnMetadata(
+                                        Chars.toString(name),
+                                        TableUtils.getColumnHash(metaMem, i),
+                                        TableUtils.getColumnType(metaMem, i),
+                                        TableUtils.isColumnIndexed(metaMem, i),
+                                        TableUtils.getIndexBlockCapacity(metaMem, i),
+                                        true,
+                                        null
+                                ),
+                                i
                         )
                 );
                 offset += Vm.getStorageLength(name);
@@ -226,6 +229,35 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         return metaMem.getLong(TableUtils.META_OFFSET_COMMIT_LAG);
     }
 
+    public int getTtl() {
+        return metaMem.getInt(TableUtils.META_OFFSET_TTL);
+    }
+
+    public boolean isBloomFilterIndexed(int columnIndex) {
+        return TableUtils.isBloomFilterIndexed(metaMem, columnIndex);
+    }
+
+    public boolean isGeoHashIndexed(int columnIndex) {
+        return TableUtils.isGeoHashIndexed(metaMem, columnIndex);
+    }
+
+    public int getCompositeIndexColumnCount() {
+        int count = 0;
+        for (int i = 0, n = getColumnCount(); i < n; i++) {
+            if (getCompositeIndexPosition(i) > -1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return position of column in composite index key or -1 when column is not part of composite index
+     */
+    public int getCompositeIndexPosition(int columnIndex) {
+        return TableUtils.getCompositeIndexPosition(metaMem, columnIndex);
+    }
+
     private TableColumnMetadata moveMetadata(int index, TableColumnMetadata metadata) {
         return columnMetadata.getAndSetQuick(index, metadata);
     }
@@ -238,14 +270,24 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
             offset += Vm.getStorageLength(name);
         }
         assert name != null;
-        return new TableColumnMetadata(
-                Chars.toString(name),
-                TableUtils.getColumnHash(metaMem, index),
-                TableUtils.getColumnType(metaMem, index),
-                TableUtils.isColumnIndexed(metaMem, index),
-                TableUtils.getIndexBlockCapacity(metaMem, index),
-                true,
-                null
+        return withDefault(
+                new TableColumnMetadata(
+                        Chars.toString(name),
+                        TableUtils.getColumnHash(metaMem, index),
+                        TableUtils.getColumnType(metaMem, index),
+                        TableUtils.isColumnIndexed(metaMem, index),
+                        TableUtils.getIndexBlockCapacity(metaMem, index),
+                        true,
+                        null
+                ),
+                index
         );
     }
+
+    private TableColumnMetadata withDefault(TableColumnMetadata metadata, int columnIndex) {
+        if (TableUtils.hasColumnDefault(metaMem, columnIndex)) {
+            metadata.setDefaultValue(TableUtils.getColumnDefault(metaMem, columnIndex));
+        }
+        return metadata;
+    }
 }
@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.std.BinarySequence;
 import io.questdb.std.Long256;
 import io.questdb.std.Rows;
@@ -64,61 +65,37 @@ public class TableReaderRecord implements Record, Sinkable {
     @Override
     public boolean getBool(int col) {
         final long offset = getAdjustedRecordIndex(col);
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
-                offset,
-                TableReader.getPrimaryColumnIndex(columnBase, col)
-        );
-        return reader.getColumn(absoluteColumnIndex).getBool(offset);
+        return getFixedColumn(col, offset).getBool(offset);
     }
 
     @Override
     public byte getByte(int col) {
         final long offset = getAdjustedRecordIndex(col);
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
-                offset,
-                TableReader.getPrimaryColumnIndex(columnBase, col)
-        );
-        return reader.getColumn(absoluteColumnIndex).getByte(offset);
+        return getFixedColumn(col, offset).getByte(offset);
     }
 
     @Override
     public double getDouble(int col) {
         final long offset = getAdjustedRecordIndex(col) * Double.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
-                offset,
-                TableReader.getPrimaryColumnIndex(columnBase, col)
-        );
-        return reader.getColumn(absoluteColumnIndex).getDouble(offset);
+        return getFixedColumn(col, offset).getDouble(offset);
     }
 
     @Override
     public float getFloat(int col) {
         final long offset = getAdjustedRecordIndex(col) * Float.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
-                offset,
-                TableReader.getPrimaryColumnIndex(columnBase, col)
-        );
-        return reader.getColumn(absoluteColumnIndex).getFloat(offset);
+        return getFixedColumn(col, offset).getFloat(offset);
     }
 
     @Override
     public int getInt(int col) {
         final long offset = getAdjustedRecordIndex(col) * Integer.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
-                offset,
-                TableReader.getPrimaryColumnIndex(columnBase, col)
-        );
-        return reader.getColumn(absoluteColumnIndex).getInt(offset);
+        return getFixedColumn(col, offset).getInt(offset);
     }
 
     @Override
     public long getLong(int col) {
         final long offset = getAdjustedRecordIndex(col) * Long.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
-                offset,
-                TableReader.getPrimaryColumnIndex(columnBase, col)
-        );
-        return reader.getColumn(absoluteColumnIndex).getLong(offset);
+        return getFixedColumn(col, offset).getLong(offset);
     }
 
     @Override
@@ -129,21 +106,13 @@ public class TableReaderRecord implements Record, Sinkable {
     @Override
     public short getShort(int col) {
         final long offset = getAdjustedRecordIndex(col) * Short.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
-                offset,
-                TableReader.getPrimaryColumnIndex(columnBase, col)
-        );
-        return reader.getColumn(absoluteColumnIndex).getShort(offset);
+        return getFixedColumn(col, offset).getShort(offset);
     }
 
     @Override
     public char getChar(int col) {
         final long offset = getAdjustedRecordIndex(col) * Character.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
-                offset,
-                TableReader.getPrimaryColumnIndex(columnBase, col)
-        );
-        return reader.getColumn(absoluteColumnIndex).getChar(offset);
+        return getFixedColumn(col, offset).getChar(offset);
     }
 
     @Override
@@ -281,6 +250,18 @@ public class TableReaderRecord implements Record, Sinkable {
         return recordIndex - reader.getColumnTop(columnBase, col);
     }
 
+    // rows above column top and rows of partitions without column file read column default,
+    // which is null unless column was added with one
+    private MemoryR getFixedColumn(int col, long offset) {
+        if (offset > -1) {
+            final MemoryR column = reader.getColumn(TableReader.getPrimaryColumnIndex(columnBase, col));
+            if (column != NullColumn.INSTANCE) {
+                return column;
+            }
+        }
+        return reader.getDefaultColumn(col);
+    }
+
     @Override
     public void toSink(CharSink sink) {
         sink.put("TableReaderRecord [columnBase=").put(columnBase).put(", recordIndex=").put(recordIndex).put(']');
@@ -81,7 +81,9 @@ public class TableReaderRecordCursor implements RecordCursor {
 
     @Override
     public void recordAt(Record record, long rowId) {
-        ((TableReaderRecord) record).jumpTo(Rows.toPartitionIndex(rowId), Rows.toLocalRowID(rowId));
+        final int partitionIndex = Rows.toPartitionIndex(rowId);
+        reader.adviseRandomAccess(partitionIndex);
+        ((TableReaderRecord) record).jumpTo(partitionIndex, Rows.toLocalRowID(rowId));
     }
 
     @Override
@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.std.BinarySequence;
 import io.questdb.std.IntList;
 import io.questdb.std.Long256;
@@ -78,46 +79,36 @@ public class TableReaderSelectedColumnRecord implements Record {
     @Override
     public boolean getBool(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
-        final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long offset = getAdjustedRecordIndex(col);
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(offset, index);
-        return reader.getColumn(absoluteColumnIndex).getBool(offset);
+        return getFixedColumn(col, offset).getBool(offset);
     }
 
     @Override
     public byte getByte(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
-        final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long offset = getAdjustedRecordIndex(col);
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(offset, index);
-        return reader.getColumn(absoluteColumnIndex).getByte(offset);
+        return getFixedColumn(col, offset).getByte(offset);
     }
 
     @Override
     public double getDouble(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
-        final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long offset = getAdjustedRecordIndex(col) * Double.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(offset, index);
-        return reader.getColumn(absoluteColumnIndex).getDouble(offset);
+        return getFixedColumn(col, offset).getDouble(offset);
     }
 
     @Override
     public float getFloat(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
-        final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long offset = getAdjustedRecordIndex(col) * Float.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(offset, index);
-        return reader.getColumn(absoluteColumnIndex).getFloat(offset);
+        return getFixedColumn(col, offset).getFloat(offset);
     }
 
     @Override
     public int getInt(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
-        final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long offset = getAdjustedRecordIndex(col) * Integer.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(offset, index);
-        return reader.getColumn(absoluteColumnIndex).getInt(offset);
+        return getFixedColumn(col, offset).getInt(offset);
     }
 
     @Override
@@ -128,28 +119,22 @@ public class TableReaderSelectedColumnRecord implements Record {
     @Override
     public long getLong(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
-        final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long offset = getAdjustedRecordIndex(col) * Long.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(offset, index);
-        return reader.getColumn(absoluteColumnIndex).getLong(offset);
+        return getFixedColumn(col, offset).getLong(offset);
     }
 
     @Override
     public short getShort(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
-        final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long offset = getAdjustedRecordIndex(col) * Short.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(offset, index);
-        return reader.getColumn(absoluteColumnIndex).getShort(offset);
+        return getFixedColumn(col, offset).getShort(offset);
     }
 
     @Override
     public char getChar(int columnIndex) {
         final int col = deferenceColumn(columnIndex);
-        final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
         final long offset = getAdjustedRecordIndex(col) * Character.BYTES;
-        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(offset, index);
-        return reader.getColumn(absoluteColumnIndex).getChar(offset);
+        return getFixedColumn(col, offset).getChar(offset);
     }
 
     @Override
@@ -297,4 +282,16 @@ public class TableReaderSelectedColumnRecord implements Record {
         assert col > -1 && col < reader.getColumnCount() : "Column index out of bounds: " + col + " >= " + reader.getColumnCount();
         return recordIndex - reader.getColumnTop(columnBase, col);
     }
+
+    // rows above column top and rows of partitions without column file read column default,
+    // which is null unless column was added with one
+    private MemoryR getFixedColumn(int col, long offset) {
+        if (offset > -1) {
+            final MemoryR column = reader.getColumn(TableReader.getPrimaryColumnIndex(columnBase, col));
+            if (column != NullColumn.INSTANCE) {
+                return column;
+            }
+        }
+        return reader.getDefaultColumn(col);
+    }
 }
@@ -39,6 +39,25 @@ public interface TableStructure {
 
     boolean isSequential(int columnIndex);
 
+    default boolean isDedupKey(int columnIndex) {
+        return false;
+    }
+
+    default boolean isBloomFilterIndexed(int columnIndex) {
+        return false;
+    }
+
+    default boolean isGeoHashIndexed(int columnIndex) {
+        return false;
+    }
+
+    /**
+     * @return position of column in composite index key or -1 when column is not part of composite index
+     */
+    default int getCompositeIndexPosition(int columnIndex) {
+        return -1;
+    }
+
     int getPartitionBy();
 
     boolean getSymbolCacheFlag(int columnIndex);
@@ -51,6 +51,12 @@ public final class TableUtils {
     public static final String UPGRADE_FILE_NAME = "_upgrade.d";
     public static final String DETACHED_DIR_MARKER = ".detached";
     public static final String TAB_INDEX_FILE_NAME = "_tab_index.d";
+    public static final String ZONE_MAP_FILE_NAME = "_zm";
+    public static final String PARTITION_VOLUMES_FILE_NAME = "_pv";
+    public static final String COMPOSITE_INDEX_NAME = "_ci";
+    public static final String COMPOSITE_INDEX_KEYS_FILE_NAME = "_ci.keys";
+    public static final int COMPOSITE_INDEX_MAX_COLUMNS = 3;
+    public static final String WAL_DIR_NAME = "wal";
     public static final int INITIAL_TXN = 0;
     public static final int NULL_LEN = -1;
     public static final int ANY_TABLE_ID = -1;
@@ -65,13 +71,18 @@ public final class TableUtils {
     public static final long META_OFFSET_TABLE_ID = 16;
     public static final long META_OFFSET_MAX_UNCOMMITTED_ROWS = 20;
     public static final long META_OFFSET_COMMIT_LAG = 24;
+    // positive value is TTL in hours, negative is TTL in months, 0 means partitions do not expire
+    public static final long META_OFFSET_TTL = 32;
     public static final String FILE_SUFFIX_I = ".i";
     public static final String FILE_SUFFIX_D = ".d";
+    public static final String FILE_SUFFIX_DZ = ".dz";
     public static final int LONGS_PER_TX_ATTACHED_PARTITION = 4;
     public static final int LONGS_PER_TX_ATTACHED_PARTITION_MSB = Numbers.msb(LONGS_PER_TX_ATTACHED_PARTITION);
     public static final DateFormat fmtDay;
     public static final DateFormat fmtMonth;
     public static final DateFormat fmtYear;
+    public static final DateFormat fmtHour;
+    public static final DateFormat fmtWeek;
     public static final String DEFAULT_PARTITION_NAME = "default";
     public static final long META_OFFSET_COLUMN_TYPES = 128;
     public static final long TX_OFFSET_MIN_TIMESTAMP = 24;
@@ -102,6 +113,32 @@ public final class TableUtils {
      * TableUtils.resetTxn() writes to this file, it could be using different offsets, beware
      */
 
+    /**
+     * Zone map file structure
+     * struct {
+     * long column_count; // number of columns each block has statistics for
+     * long block_count; // number of published blocks
+     * block blocks[block_count];
+     * }
+     * <p>
+     * struct block {
+     * long sequence; // odd while block is being updated
+     * long partition_timestamp;
+     * long struct_version; // table structure version statistics were collected for
+     * long row_count; // rows of partition covered by statistics, -1 when statistics are invalid
+     * long min, max, null_count; // for each column, min and max of FLOAT and DOUBLE are double bits
+     * }
+     */
+    static final long ZONE_MAP_OFFSET_COLUMN_COUNT = 0;
+    static final long ZONE_MAP_OFFSET_BLOCK_COUNT = 8;
+    static final long ZONE_MAP_HEADER_SIZE = 16;
+    static final long ZONE_MAP_BLOCK_OFFSET_SEQUENCE = 0;
+    static final long ZONE_MAP_BLOCK_OFFSET_PARTITION_TIMESTAMP = 8;
+    static final long ZONE_MAP_BLOCK_OFFSET_STRUCT_VERSION = 16;
+    static final long ZONE_MAP_BLOCK_OFFSET_ROW_COUNT = 24;
+    static final long ZONE_MAP_BLOCK_HEADER_SIZE = 32;
+    static final int ZONE_MAP_LONGS_PER_COLUMN = 3;
+
     static final String META_SWAP_FILE_NAME = "_meta.swp";
     static final String META_PREV_FILE_NAME = "_meta.prev";
     // INT - symbol map count, this is a variable part of transaction file
@@ -109,6 +146,13 @@ public final class TableUtils {
     static final long META_OFFSET_PARTITION_BY = 4;
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
+    static final int META_FLAG_BIT_DEDUP_KEY = 1 << 2;
+    static final int META_FLAG_BIT_BLOOM_FILTER = 1 << 3;
+    static final int META_FLAG_BIT_DEFAULT = 1 << 4;
+    static final int META_FLAG_BIT_COMPOSITE_INDEX = 1 << 5;
+    static final int META_FLAG_BIT_GEOHASH_INDEX = 1 << 6;
+    // position of column in composite index key
+    static final int META_FLAG_COMPOSITE_INDEX_POSITION_SHIFT = 8;
     static final String TODO_FILE_NAME = "_todo_";
     private static final int MIN_SYMBOL_CAPACITY = 2;
     private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
@@ -184,6 +228,22 @@ public final class TableUtils {
                     flags |= META_FLAG_BIT_SEQUENTIAL;
                 }
 
+                if (structure.isDedupKey(i)) {
+                    flags |= META_FLAG_BIT_DEDUP_KEY;
+                }
+
+                if (structure.isBloomFilterIndexed(i)) {
+                    flags |= META_FLAG_BIT_BLOOM_FILTER;
+                }
+
+                if (structure.getCompositeIndexPosition(i) > -1) {
+                    flags |= compositeIndexFlags(structure.getCompositeIndexPosition(i));
+                }
+
+                if (structure.isGeoHashIndexed(i)) {
+                    flags |= META_FLAG_BIT_GEOHASH_INDEX;
+                }
+
                 mem.putLong(flags);
                 mem.putInt(structure.getIndexBlockCapacity(i));
                 mem.putLong(structure.getColumnHash(i));
@@ -281,6 +341,10 @@ public final class TableUtils {
         return path.concat(columnName).put(FILE_SUFFIX_D).$();
     }
 
+    public static LPSZ dzFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(FILE_SUFFIX_DZ).$();
+    }
+
     public static int exists(FilesFacade ff, Path path, CharSequence root, CharSequence name) {
         return exists(ff, path, root, name, 0, name.length());
     }
@@ -326,6 +390,10 @@ public final class TableUtils {
                 return Timestamps.ADD_MM;
             case PartitionBy.YEAR:
                 return Timestamps.ADD_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.ADD_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.ADD_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have add method");
         }
@@ -339,6 +407,10 @@ public final class TableUtils {
                 return Timestamps.FLOOR_MM;
             case PartitionBy.YEAR:
                 return Timestamps.FLOOR_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.FLOOR_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.FLOOR_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have floor method");
         }
@@ -374,6 +446,18 @@ public final class TableUtils {
         return getPartitionTableIndexOffset(symbolsCount, partitionCount);
     }
 
+    static long getZoneMapBlockOffset(int columnCount, int blockIndex) {
+        return ZONE_MAP_HEADER_SIZE + blockIndex * getZoneMapBlockSize(columnCount);
+    }
+
+    static long getZoneMapBlockSize(int columnCount) {
+        return ZONE_MAP_BLOCK_HEADER_SIZE + (long) columnCount * ZONE_MAP_LONGS_PER_COLUMN * Long.BYTES;
+    }
+
+    static long getZoneMapColumnOffset(int columnIndex) {
+        return ZONE_MAP_BLOCK_HEADER_SIZE + (long) columnIndex * ZONE_MAP_LONGS_PER_COLUMN * Long.BYTES;
+    }
+
     public static LPSZ iFile(Path path, CharSequence columnName) {
         return path.concat(columnName).put(FILE_SUFFIX_I).$();
     }
@@ -446,6 +530,100 @@ public final class TableUtils {
         return true;
     }
 
+    /**
+     * Zone maps keep statistics of fixed size numeric columns, these are the types
+     * partition pruning can reason about.
+     */
+    public static boolean isZoneMapColumnType(int columnType) {
+        switch (columnType) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Columns of these types can be added with a default value. Default is kept in
+     * column metadata as value bits widened to long, see {@link #setDefault(int, long, long, long)}.
+     */
+    public static boolean isColumnDefaultType(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Fills memory with column default value.
+     *
+     * @param columnType type of column
+     * @param value      default value bits, float and double values are stored as raw bits
+     * @param addr       address of memory
+     * @param count      number of values to write
+     */
+    public static void setDefault(int columnType, long value, long addr, long count) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                Vect.memset(addr, count, (int) value);
+                break;
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                Vect.setMemoryShort(addr, (short) value, count);
+                break;
+            case ColumnType.INT:
+                Vect.setMemoryInt(addr, (int) value, count);
+                break;
+            case ColumnType.FLOAT:
+                Vect.setMemoryFloat(addr, Float.intBitsToFloat((int) value), count);
+                break;
+            case ColumnType.DOUBLE:
+                Vect.setMemoryDouble(addr, Double.longBitsToDouble(value), count);
+                break;
+            default:
+                Vect.setMemoryLong(addr, value, count);
+                break;
+        }
+    }
+
+    public static boolean isCompressibleColumnType(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.SYMBOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     public static long lock(FilesFacade ff, Path path) {
         long fd = ff.openRW(path);
         if (fd == -1) {
@@ -741,6 +919,29 @@ public final class TableUtils {
                     return Timestamps.addYear(Timestamps.yearMicros(y, leap), 1) - 1;
                 }
                 return 0;
+            case PartitionBy.HOUR:
+                y = Timestamps.getYear(timestamp);
+                leap = Timestamps.isLeapYear(y);
+                m = Timestamps.getMonthOfYear(timestamp, y, leap);
+                d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
+                TimestampFormatUtils.append000(path, y);
+                path.put('-');
+                TimestampFormatUtils.append0(path, m);
+                path.put('-');
+                TimestampFormatUtils.append0(path, d);
+                path.put('T');
+                TimestampFormatUtils.append0(path, Timestamps.getHourOfDay(timestamp));
+
+                if (calculatePartitionMax) {
+                    return Timestamps.floorHH(timestamp) + Timestamps.HOUR_MICROS - 1;
+                }
+                return 0;
+            case PartitionBy.WEEK:
+                fmtWeek.format(timestamp, null, null, path);
+                if (calculatePartitionMax) {
+                    return Timestamps.ceilWW(timestamp) - 1;
+                }
+                return 0;
             default:
                 path.put(DEFAULT_PARTITION_NAME);
                 return Long.MAX_VALUE;
@@ -812,6 +1013,14 @@ public final class TableUtils {
                         throw validationException(metaMem).put("Invalid index value block capacity ").put(getIndexBlockCapacity(metaMem, i)).put(" at [").put(i).put(']');
                     }
                 }
+
+                if (getCompositeIndexPosition(metaMem, i) > -1 && !ColumnType.isSymbol(type)) {
+                    throw validationException(metaMem).put("Composite index is only supported for SYMBOL").put(" at [").put(i).put(']');
+                }
+
+                if (isGeoHashIndexed(metaMem, i) && !ColumnType.isGeoHash(type)) {
+                    throw validationException(metaMem).put("Geohash index is only supported for GEOHASH").put(" at [").put(i).put(']');
+                }
             }
 
             // validate column names
@@ -925,6 +1134,38 @@ public final class TableUtils {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_SEQUENTIAL) != 0;
     }
 
+    static boolean isDedupKey(MemoryR metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_DEDUP_KEY) != 0;
+    }
+
+    static boolean isBloomFilterIndexed(MemoryR metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_BLOOM_FILTER) != 0;
+    }
+
+    static boolean isGeoHashIndexed(MemoryR metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_GEOHASH_INDEX) != 0;
+    }
+
+    static boolean hasColumnDefault(MemoryR metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_DEFAULT) != 0;
+    }
+
+    static long compositeIndexFlags(int position) {
+        return META_FLAG_BIT_COMPOSITE_INDEX | ((long) position << META_FLAG_COMPOSITE_INDEX_POSITION_SHIFT);
+    }
+
+    /**
+     * @return position of column in composite index key or -1 when column is not part of composite index
+     */
+    static int getCompositeIndexPosition(MemoryR metaMem, int columnIndex) {
+        final long flags = getColumnFlags(metaMem, columnIndex);
+        return (flags & META_FLAG_BIT_COMPOSITE_INDEX) != 0 ? (int) ((flags >>> META_FLAG_COMPOSITE_INDEX_POSITION_SHIFT) & 0xff) : -1;
+    }
+
+    static long getColumnDefault(MemoryR metaMem, int columnIndex) {
+        return metaMem.getLong(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 24);
+    }
+
     static int getIndexBlockCapacity(MemoryR metaMem, int columnIndex) {
         return metaMem.getInt(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 4 + 8);
     }
@@ -992,6 +1233,10 @@ public final class TableUtils {
                 return Timestamps.floorMM(timestampA) == Timestamps.floorMM(timestampB);
             case PartitionBy.YEAR:
                 return Timestamps.floorYYYY(timestampA) == Timestamps.floorYYYY(timestampB);
+            case PartitionBy.HOUR:
+                return Timestamps.floorHH(timestampA) == Timestamps.floorHH(timestampB);
+            case PartitionBy.WEEK:
+                return Timestamps.floorWW(timestampA) == Timestamps.floorWW(timestampB);
             default:
                 throw CairoException.instance(0).put("Cannot compare timestamps for unsupported partition type: [").put(partitionBy).put(']');
         }
@@ -1005,6 +1250,10 @@ public final class TableUtils {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtWeek;
             case PartitionBy.NONE:
                 return fmtDefault;
             default:
@@ -1020,6 +1269,10 @@ public final class TableUtils {
                 return Timestamps.CEIL_MM;
             case PartitionBy.YEAR:
                 return Timestamps.CEIL_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.CEIL_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.CEIL_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have ceil method");
         }
@@ -1094,6 +1347,8 @@ public final class TableUtils {
         fmtDay = compiler.compile("yyyy-MM-dd");
         fmtMonth = compiler.compile("yyyy-MM");
         fmtYear = compiler.compile("yyyy");
+        fmtHour = compiler.compile("yyyy-MM-ddTHH");
+        fmtWeek = PartitionWeekFormat.INSTANCE;
         fmtDefault = new DateFormat() {
             @Override
             public void format(long datetime, DateLocale locale, CharSequence timeZoneName, CharSink sink) {
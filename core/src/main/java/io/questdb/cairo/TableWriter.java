@@ -29,6 +29,7 @@ import io.questdb.MessageBusImpl;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.vm.MemoryFCRImpl;
 import io.questdb.cairo.vm.Vm;
@@ -49,16 +50,14 @@ import io.questdb.tasks.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.Closeable;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongConsumer;
 
 import static io.questdb.cairo.StatusCode.*;
 import static io.questdb.cairo.TableUtils.*;
-import static io.questdb.std.Files.isDots;
 
-public class TableWriter implements Closeable {
+public class TableWriter implements TableWriterAPI {
     public static final int TIMESTAMP_MERGE_ENTRY_BYTES = Long.BYTES * 2;
     public static final int O3_BLOCK_NONE = -1;
     public static final int O3_BLOCK_O3 = 1;
@@ -82,8 +81,14 @@ public class TableWriter implements Closeable {
     private final ObjList<SymbolMapWriter> denseSymbolMapWriters;
     private final ObjList<ColumnIndexer> indexers;
     private final ObjList<ColumnIndexer> denseIndexers = new ObjList<>();
+    // primary memory and column tops of composite index columns in index key order
+    private final ObjList<MemoryMA> compositeIndexColumnMems = new ObjList<>();
+    private final LongList compositeIndexColumnTops = new LongList();
     private final Path path;
     private final Path other;
+    // paths to partitions on storage volumes
+    private final Path volumePath = new Path();
+    private final Path volumeOther = new Path();
     private final LongList rowValueIsNotNull = new LongList();
     private final Row regularRow = new RowImpl();
     private final int rootLen;
@@ -103,6 +108,7 @@ public class TableWriter implements Closeable {
     private final FragileCode RECOVER_FROM_META_RENAME_FAILURE = this::recoverFromMetaRenameFailure;
     private final SOCountDownLatch indexLatch = new SOCountDownLatch();
     private final LongList indexSequences = new LongList();
+    private final ObjList<PartitionColumnIndexer> partitionIndexers = new ObjList<>();
     // This is the same message bus. When TableWriter instance created via CairoEngine, message bus is shared
     // and is owned by the engine. Since TableWriter would not have ownership of the bus it must not free it up.
     // On other hand when TableWrite is created outside CairoEngine, primarily in tests, the ownership of the
@@ -133,9 +139,25 @@ public class TableWriter implements Closeable {
     private final TxWriter txWriter;
     private final FindVisitor removePartitionDirsNotAttached = this::removePartitionDirsNotAttached;
     private final LongList o3PartitionRemoveCandidates = new LongList();
+    // partition directories detached by TTL or replaced by a move, triplets of partition timestamp,
+    // name txn and txn that retired them
+    private final LongList retiredPartitions = new LongList();
+    // storage volumes of retired partition directories, null is table directory
+    private final ObjList<String> retiredPartitionVolumes = new ObjList<>();
+    private final PartitionVolumes partitionVolumes = new PartitionVolumes();
     private final ObjectPool<O3MutableAtomicInteger> o3ColumnCounters = new ObjectPool<>(O3MutableAtomicInteger::new, 64);
     private final ObjectPool<O3Basket> o3BasketPool = new ObjectPool<>(O3Basket::new, 64);
     private final TxnScoreboard txnScoreboard;
+    private final ZoneMapWriter zoneMapWriter;
+    // composite index of the table, null when table does not have one
+    private CompositeIndexKeys compositeIndexKeys;
+    private CompositeIndexer compositeIndexer;
+    private final PartitionCompressor partitionCompressor;
+    private final int hotPartitionCount;
+    // partitions rewritten by the update in progress, pairs of partition timestamp and replaced name txn
+    private final LongList updatedPartitions = new LongList();
+    private PartitionUpdater partitionUpdater;
+    private boolean activePartitionClosedByUpdate;
     private final StringSink o3Sink = new StringSink();
     private final NativeLPSZ o3NativeLPSZ = new NativeLPSZ();
     private final RingQueue<O3PartitionUpdateTask> o3PartitionUpdateQueue;
@@ -143,13 +165,19 @@ public class TableWriter implements Closeable {
     private final SCSequence o3PartitionUpdateSubSeq;
     private final boolean o3QuickSortEnabled;
     private final LongConsumer appendTimestampSetter;
-    private final MemoryMR indexMem = Vm.getMRInstance();
     private final MemoryFR slaveMetaMem = new MemoryFCRImpl();
     private final SCSequence commandSubSeq;
     private final LongIntHashMap replPartitionHash = new LongIntHashMap();
     // Latest command sequence per command source.
     // Publisher source is identified by a long value
     private final LongLongHashMap cmdSequences = new LongLongHashMap();
+    // non-timestamp columns of the deduplication key
+    private final IntList dedupKeyColumns = new IntList();
+    private final O3Dedup o3Dedup = new O3Dedup();
+    // rows replaced by O3 merges of the current commit, in total and in the last partition
+    private final AtomicLong o3DedupRowCount = new AtomicLong();
+    private final AtomicLong o3DedupLastPartitionRowCount = new AtomicLong();
+    private boolean dedupEnabled;
     private Row row = regularRow;
     private long todoTxn;
     private MemoryMAT o3TimestampMem;
@@ -178,10 +206,15 @@ public class TableWriter implements Closeable {
     private long o3RowCount;
     private final O3ColumnUpdateMethod o3MoveUncommittedRef = this::o3MoveUncommitted0;
     private long lastPartitionTimestamp;
+    // partitions before this timestamp have been checked by automatic compression
+    private long coldPartitionTimestamp = Long.MIN_VALUE;
     private boolean o3InError = false;
     private ObjList<? extends MemoryA> activeColumns;
     private ObjList<Runnable> activeNullSetters;
     private int rowActon = ROW_ACTION_OPEN_PARTITION;
+    private CommitListener commitListener;
+    // min timestamp of O3 rows committed by the current transaction
+    private long o3CommitTimestampLo;
 
     public TableWriter(CairoConfiguration configuration, CharSequence tableName) {
         this(configuration, tableName, null, new MessageBusImpl(configuration), true, DefaultLifecycleManager.INSTANCE, configuration.getRoot());
@@ -270,6 +303,7 @@ public class TableWriter implements Closeable {
             this.txWriter = new TxWriter(ff, path, partitionBy);
             this.txnScoreboard = new TxnScoreboard(ff, path.trimTo(rootLen), configuration.getTxnScoreboardEntryCount());
             path.trimTo(rootLen);
+            partitionVolumes.load(ff, path);
             // we have to do truncate repair at this stage of constructor
             // because this operation requires metadata
             switch (todo) {
@@ -283,10 +317,24 @@ public class TableWriter implements Closeable {
                     LOG.error().$("ignoring unknown *todo* [code=").$(todo).$(']').$();
                     break;
             }
+            if (configuration.isZoneMapEnabled()) {
+                this.zoneMapWriter = new ZoneMapWriter(ff, path, metadata, txWriter);
+                if (todo == TODO_TRUNCATE) {
+                    zoneMapWriter.reset();
+                }
+            } else {
+                this.zoneMapWriter = null;
+                // statistics would go stale while nobody maintains them
+                removeOrException(ff, path.concat(ZONE_MAP_FILE_NAME).$());
+                path.trimTo(rootLen);
+            }
+            this.partitionCompressor = new PartitionCompressor(ff, metadata, tempMem16b);
+            this.hotPartitionCount = partitionBy != PartitionBy.NONE ? configuration.getHotPartitionCount() : 0;
             this.columnCount = metadata.getColumnCount();
             if (metadata.getTimestampIndex() > -1) {
                 this.designatedTimestampColumnName = metadata.getColumnName(metadata.getTimestampIndex());
             }
+            configureDedupKey();
             this.rowValueIsNotNull.extendAndSet(columnCount, 0);
             this.columns = new ObjList<>(columnCount * 2);
             this.logColumns = new ObjList<>(columnCount * 2);
@@ -313,10 +361,12 @@ public class TableWriter implements Closeable {
             }
 
             configureColumnMemory();
+            configureCompositeIndex();
             configureTimestampSetter();
             this.appendTimestampSetter = timestampSetter;
             configureAppendPosition();
             purgeUnusedPartitions();
+            retireUnusedVolumePartitions();
             clearTodoLog();
         } catch (Throwable e) {
             doClose(false);
@@ -344,6 +394,10 @@ public class TableWriter implements Closeable {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtWeek;
             default:
                 return null;
         }
@@ -353,6 +407,22 @@ public class TableWriter implements Closeable {
         addColumn(name, type, configuration.getDefaultSymbolCapacity(), configuration.getDefaultSymbolCacheFlag(), false, 0, false);
     }
 
+    /**
+     * Adds new column with default value. Default value is kept in table metadata, existing partitions
+     * are not rewritten. Readers return the default for rows that precede column top and writer uses it
+     * for new rows that do not set the column.
+     *
+     * @param name         of column either ASCII or UTF8 encoded.
+     * @param type         {@link ColumnType}, must be one of the types accepted by {@link TableUtils#isColumnDefaultType(int)}
+     * @param defaultValue value bits widened to long, double and float values are stored as raw bits
+     */
+    public void addColumn(CharSequence name, int type, long defaultValue) {
+        if (!TableUtils.isColumnDefaultType(type)) {
+            throw CairoException.instance(0).put("default value is not supported [type=").put(ColumnType.nameOf(type)).put(']');
+        }
+        addColumn(name, type, configuration.getDefaultSymbolCapacity(), configuration.getDefaultSymbolCacheFlag(), false, 0, false, true, defaultValue);
+    }
+
     /**
      * Adds new column to table, which can be either empty or can have data already. When existing columns
      * already have data this function will create ".top" file in addition to column files. ".top" file contains
@@ -392,6 +462,20 @@ public class TableWriter implements Closeable {
             int indexValueBlockCapacity,
             boolean isSequential
     ) {
+        addColumn(name, type, symbolCapacity, symbolCacheFlag, isIndexed, indexValueBlockCapacity, isSequential, false, 0);
+    }
+
+    private void addColumn(
+            CharSequence name,
+            int type,
+            int symbolCapacity,
+            boolean symbolCacheFlag,
+            boolean isIndexed,
+            int indexValueBlockCapacity,
+            boolean isSequential,
+            boolean defaultFlag,
+            long defaultValue
+    ) {
 
         assert indexValueBlockCapacity == Numbers.ceilPow2(indexValueBlockCapacity) : "power of 2 expected";
         assert symbolCapacity == Numbers.ceilPow2(symbolCapacity) : "power of 2 expected";
@@ -410,7 +494,7 @@ public class TableWriter implements Closeable {
         removeColumnFiles(name, type, REMOVE_OR_EXCEPTION);
 
         // create new _meta.swp
-        this.metaSwapIndex = addColumnToMeta(name, type, isIndexed, indexValueBlockCapacity, isSequential);
+        this.metaSwapIndex = addColumnToMeta(name, type, isIndexed, indexValueBlockCapacity, isSequential, defaultFlag, defaultValue);
 
         // close _meta so we can rename it
         metaMem.close();
@@ -440,7 +524,7 @@ public class TableWriter implements Closeable {
         }
 
         // add column objects
-        configureColumn(type, isIndexed);
+        configureColumn(type, isIndexed, defaultFlag, defaultValue);
         if (isIndexed) {
             populateDenseIndexerList();
         }
@@ -475,6 +559,12 @@ public class TableWriter implements Closeable {
         txWriter.bumpStructureVersion(this.denseSymbolMapWriters);
 
         metadata.addColumn(name, configuration.getRandom().nextLong(), type, isIndexed, indexValueBlockCapacity);
+        if (defaultFlag) {
+            metadata.getColumnQuick(columnCount - 1).setDefaultValue(defaultValue);
+        }
+        if (zoneMapWriter != null) {
+            zoneMapWriter.reset();
+        }
 
         LOG.info().$("ADDED column '").utf8(name).$('[').$(ColumnType.nameOf(type)).$("]' to ").$(path).$();
     }
@@ -483,6 +573,7 @@ public class TableWriter implements Closeable {
         assert indexValueBlockSize == Numbers.ceilPow2(indexValueBlockSize) : "power of 2 expected";
 
         checkDistressed();
+        checkPartitionsInTableDirectory("add index");
 
         final int columnIndex = getColumnIndexQuiet(metaMem, columnName, columnCount);
 
@@ -496,6 +587,10 @@ public class TableWriter implements Closeable {
             throw CairoException.instance(0).put("already indexed [column=").put(columnName).put(']');
         }
 
+        if (isBloomFilterIndexed(metaMem, columnIndex)) {
+            throw CairoException.instance(0).put("column has bloom filter index [column=").put(columnName).put(']');
+        }
+
         final int existingType = getColumnType(metaMem, columnIndex);
         LOG.info().$("adding index to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$(", path=").$(path).$(']').$();
 
@@ -517,7 +612,7 @@ public class TableWriter implements Closeable {
                 //
                 if (partitionBy != PartitionBy.NONE) {
                     // run indexer for the whole table
-                    final long timestamp = indexHistoricPartitions(indexer, columnName, indexValueBlockSize);
+                    final long timestamp = indexHistoricPartitions(columnName, indexValueBlockSize);
                     if (timestamp == Numbers.LONG_NaN) {
                         return;
                     }
@@ -638,6 +733,9 @@ public class TableWriter implements Closeable {
                     long nextMaxTimestamp = Math.max(maxPartitionTimestamp, txWriter.getMaxTimestamp());
                     boolean appendPartitionAttached = size() == 0 || getPartitionLo(nextMaxTimestamp) > getPartitionLo(txWriter.getMaxTimestamp());
 
+                    if (zoneMapWriter != null) {
+                        zoneMapWriter.invalidate(timestamp);
+                    }
                     txWriter.beginPartitionSizeUpdate();
                     txWriter.updatePartitionSizeByTimestamp(timestamp, partitionSize);
                     txWriter.finishPartitionSizeUpdate(nextMinTimestamp, nextMaxTimestamp);
@@ -675,6 +773,42 @@ public class TableWriter implements Closeable {
         return StatusCode.OK;
     }
 
+    /**
+     * Starts copy-on-write update of column values. Pending rows are committed first. Updated
+     * partitions are rewritten into new versions, where only updated columns are new files, and
+     * are committed together by {@link PartitionUpdater#commit()}.
+     *
+     * @param columnIndexes indexes of updated columns
+     * @return updater to put new values of rows to
+     * @throws CairoException when table is not partitioned or a column cannot be updated
+     */
+    public PartitionUpdater beginUpdate(IntList columnIndexes) {
+        checkDistressed();
+        if (partitionBy == PartitionBy.NONE) {
+            throw CairoException.instance(0).put("cannot update table, which is not partitioned [table=").put(tableName).put(']');
+        }
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final int columnIndex = columnIndexes.getQuick(i);
+            final CharSequence columnName = metadata.getColumnName(columnIndex);
+            if (columnIndex == metadata.getTimestampIndex()) {
+                throw CairoException.instance(0).put("cannot update designated timestamp [column=").put(columnName).put(']');
+            }
+            if (metadata.isColumnIndexed(columnIndex)
+                    || isBloomFilterIndexed(metaMem, columnIndex)
+                    || getCompositeIndexPosition(metaMem, columnIndex) > -1
+                    || isGeoHashIndexed(metaMem, columnIndex)) {
+                throw CairoException.instance(0).put("cannot update indexed column [column=").put(columnName).put(']');
+            }
+        }
+        commit();
+        if (partitionUpdater == null) {
+            partitionUpdater = new PartitionUpdater(configuration, this, metadata);
+        }
+        updatedPartitions.clear();
+        partitionUpdater.of(columnIndexes);
+        return partitionUpdater;
+    }
+
     public void changeCacheFlag(int columnIndex, boolean cache) {
         checkDistressed();
 
@@ -705,6 +839,7 @@ public class TableWriter implements Closeable {
         }
     }
 
+    @Override
     public void commit() {
         commit(defaultCommitMode);
     }
@@ -733,6 +868,13 @@ public class TableWriter implements Closeable {
         throw CairoException.instance(0).put("Invalid column name: ").put(name);
     }
 
+    /**
+     * @return indexes of the deduplication key columns, the designated timestamp is implied and is not included
+     */
+    public IntList getDedupKeyColumns() {
+        return dedupKeyColumns;
+    }
+
     public String getDesignatedTimestampColumnName() {
         return designatedTimestampColumnName;
     }
@@ -775,6 +917,7 @@ public class TableWriter implements Closeable {
         return txWriter.unsafeGetRawMemory();
     }
 
+    @Override
     public long getStructureVersion() {
         return txWriter.getStructureVersion();
     }
@@ -783,6 +926,7 @@ public class TableWriter implements Closeable {
         return symbolMapWriters.getQuick(columnIndex).put(symValue);
     }
 
+    @Override
     public String getTableName() {
         return tableName;
     }
@@ -799,10 +943,15 @@ public class TableWriter implements Closeable {
         return txWriter != null && (txWriter.inTransaction() || hasO3());
     }
 
+    public boolean isDeduplicationEnabled() {
+        return dedupEnabled;
+    }
+
     public boolean isOpen() {
         return tempMem16b != 0;
     }
 
+    @Override
     public Row newRow(long timestamp) {
 
         switch (rowActon) {
@@ -822,8 +971,9 @@ public class TableWriter implements Closeable {
 
             default: // switch partition
                 bumpMasterRef();
-                if (timestamp > partitionTimestampHi || timestamp < txWriter.getMaxTimestamp()) {
-                    if (timestamp < txWriter.getMaxTimestamp()) {
+                if (timestamp > partitionTimestampHi || timestamp <= txWriter.getMaxTimestamp()) {
+                    // with deduplication a row that repeats max timestamp may replace an existing row
+                    if (timestamp < txWriter.getMaxTimestamp() || (dedupEnabled && timestamp == txWriter.getMaxTimestamp())) {
                         return newRowO3(timestamp);
                     }
 
@@ -858,6 +1008,7 @@ public class TableWriter implements Closeable {
         return row;
     }
 
+    @Override
     public Row newRow() {
         return newRow(0L);
     }
@@ -881,6 +1032,12 @@ public class TableWriter implements Closeable {
                 case PartitionBy.MONTH:
                     ee.put("'YYYY-MM'");
                     break;
+                case PartitionBy.HOUR:
+                    ee.put("'YYYY-MM-DDTHH'");
+                    break;
+                case PartitionBy.WEEK:
+                    ee.put("'YYYY-Www'");
+                    break;
                 default:
                     ee.put("'YYYY'");
                     break;
@@ -893,10 +1050,15 @@ public class TableWriter implements Closeable {
     public void removeColumn(CharSequence name) {
 
         checkDistressed();
+        checkPartitionsInTableDirectory("remove column");
 
         final int index = getColumnIndex(name);
         final int type = metadata.getColumnType(index);
 
+        if (getCompositeIndexPosition(metaMem, index) > -1) {
+            throw CairoException.instance(0).put("cannot remove column of composite index [column=").put(name).put(']');
+        }
+
         LOG.info().$("removing column '").utf8(name).$("' from ").$(path).$();
 
         // check if we are moving timestamp from a partitioned table
@@ -965,10 +1127,114 @@ public class TableWriter implements Closeable {
             metadata.setTimestampIndex(timestampIndex2);
             o3TimestampMem = o3Columns.getQuick(getPrimaryColumnIndex(timestampIndex2));
         }
+        configureDedupKey();
+        if (zoneMapWriter != null) {
+            zoneMapWriter.reset();
+        }
 
         LOG.info().$("REMOVED column '").utf8(name).$("' from ").$(path).$();
     }
 
+    /**
+     * Rewrites fixed size columns of partition into block compressed files. Readers decompress
+     * such partition when they open it and out of order commits restore it to uncompressed form.
+     * Active partition cannot be compressed.
+     *
+     * @param timestamp timestamp within the partition
+     * @return true when partition is compressed, false when it is active or does not exist
+     */
+    public boolean compressPartition(long timestamp) {
+        if (partitionBy == PartitionBy.NONE) {
+            return false;
+        }
+        timestamp = getPartitionLo(timestamp);
+        if (!txWriter.attachedPartitionsContains(timestamp)) {
+            LOG.error().$("partition does not exist [path=").$(path).$(", timestamp=").$ts(timestamp).$(']').$();
+            return false;
+        }
+        if (timestamp == getPartitionLo(txWriter.getMaxTimestamp())) {
+            LOG.error().$("cannot compress active partition [path=").$(path).$(", timestamp=").$ts(timestamp).$(']').$();
+            return false;
+        }
+        try {
+            final Path path = setPartitionPath(this.path, timestamp);
+            final long partitionSize = txWriter.getPartitionSizeByPartitionTimestamp(timestamp);
+            partitionCompressor.compress(path, partitionSize);
+            if (configuration.isPostingIndexEnabled()) {
+                sealIndexes(path, partitionSize);
+            }
+            return true;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Moves partition to storage volume or, when volume is null, back to table directory. Partition
+     * files are copied under a new partition name txn. Readers of earlier transactions keep using
+     * the old copy, which is purged once they move on. Active partition cannot be moved.
+     *
+     * @param timestamp timestamp within the partition
+     * @param volume    volume alias or null for table directory
+     * @return true when partition is on the volume, false when it is active or does not exist
+     */
+    public boolean movePartition(long timestamp, @Nullable CharSequence volume) {
+        if (partitionBy == PartitionBy.NONE) {
+            return false;
+        }
+        commit();
+        timestamp = getPartitionLo(timestamp);
+        if (!txWriter.attachedPartitionsContains(timestamp)) {
+            LOG.error().$("partition does not exist [path=").$(path).$(", timestamp=").$ts(timestamp).$(']').$();
+            return false;
+        }
+        if (timestamp == getPartitionLo(txWriter.getMaxTimestamp())) {
+            LOG.error().$("cannot move active partition [path=").$(path).$(", timestamp=").$ts(timestamp).$(']').$();
+            return false;
+        }
+
+        final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(timestamp);
+        final long nameTxn = txWriter.getPartitionNameTxnByIndex(partitionIndex);
+        final String sourceVolume = partitionVolumes.getVolume(timestamp, nameTxn);
+        final String targetVolume = volume != null ? Chars.toString(volume) : null;
+        if (sourceVolume == null ? targetVolume == null : sourceVolume.equals(targetVolume)) {
+            return true;
+        }
+
+        // copy is named after the transaction that is about to be committed
+        final long txn = txWriter.getTxn();
+        try {
+            final Path src = setPartitionPath(path, timestamp);
+            final Path dst = targetVolume != null
+                    ? PartitionVolumes.setVolumeTablePath(configuration, volumeOther, targetVolume, tableName)
+                    : other;
+            setPathForPartition(dst, partitionBy, timestamp, false);
+            TableUtils.txnPartitionConditionally(dst, txn);
+            copyPartitionDir(src, dst);
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+
+        // location of the copy has to be known before transaction refers to it
+        if (targetVolume != null) {
+            partitionVolumes.put(timestamp, txn, targetVolume);
+            partitionVolumes.save(ff, other);
+        }
+        txWriter.updatePartitionSizeByIndexAndTxn(partitionIndex, txWriter.getPartitionSizeByIndex(partitionIndex));
+        txWriter.bumpPartitionTableVersion();
+        txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+        retirePartition(timestamp, nameTxn, txWriter.getTxn(), sourceVolume);
+        LOG.info().$("moved partition [table=").$(tableName)
+                .$(", ts=").$ts(timestamp)
+                .$(", from=").$(sourceVolume)
+                .$(", to=").$(targetVolume)
+                .$(", txn=").$(txWriter.getTxn())
+                .$(']').$();
+        purgeRetiredPartitions();
+        return true;
+    }
+
     public boolean removePartition(long timestamp) {
         long minTimestamp = txWriter.getMinTimestamp();
         long maxTimestamp = txWriter.getMaxTimestamp();
@@ -1004,14 +1270,20 @@ public class TableWriter implements Closeable {
             // what remains on disk
 
             // find out if we are removing min partition
-            setStateForTimestamp(path, timestamp, false);
+            final long nameTxn = txWriter.getPartitionNameTxnByPartitionTimestamp(timestamp);
+            final String volume = partitionVolumes.getVolume(timestamp, nameTxn);
             long nextMinTimestamp = minTimestamp;
             if (timestamp == txWriter.getPartitionTimestamp(0)) {
                 nextMinTimestamp = readMinTimestamp(txWriter.getPartitionTimestamp(1));
             }
+            // next partition may share volume path, set partition path after reading its min timestamp
+            final Path path = setPartitionPath(this.path, timestamp);
             txWriter.beginPartitionSizeUpdate();
             txWriter.removeAttachedPartitions(timestamp);
             txWriter.setMinTimestamp(nextMinTimestamp);
+            if (zoneMapWriter != null) {
+                zoneMapWriter.invalidate(timestamp);
+            }
             txWriter.finishPartitionSizeUpdate(nextMinTimestamp, txWriter.getMaxTimestamp());
             txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
 
@@ -1027,6 +1299,10 @@ public class TableWriter implements Closeable {
             } else {
                 LOG.info().$("partition absent on disk now detached from table [path=").$(path).$(']').$();
             }
+            if (volume != null) {
+                partitionVolumes.remove(timestamp, nameTxn);
+                partitionVolumes.save(ff, other);
+            }
             return true;
         } finally {
             path.trimTo(rootLen);
@@ -1056,6 +1332,7 @@ public class TableWriter implements Closeable {
     public void renameColumn(CharSequence currentName, CharSequence newName) {
 
         checkDistressed();
+        checkPartitionsInTableDirectory("rename column");
 
         final int index = getColumnIndex(currentName);
         final int type = metadata.getColumnType(index);
@@ -1308,6 +1585,7 @@ public class TableWriter implements Closeable {
         }
     }
 
+    @Override
     public void rollback() {
         checkDistressed();
         if (o3InError || inTransaction()) {
@@ -1334,6 +1612,10 @@ public class TableWriter implements Closeable {
         }
     }
 
+    public void setCommitListener(CommitListener commitListener) {
+        this.commitListener = commitListener;
+    }
+
     public void setLifecycleManager(LifecycleManager lifecycleManager) {
         this.lifecycleManager = lifecycleManager;
     }
@@ -1359,6 +1641,42 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Sets table TTL. Partitions that end more than TTL before max timestamp of the table are
+     * detached on commit. Positive value is TTL in hours, negative value is TTL in months and
+     * zero keeps partitions forever.
+     *
+     * @param ttl TTL in hours or months
+     */
+    public void setMetaTtl(int ttl) {
+        if (partitionBy == PartitionBy.NONE) {
+            throw CairoException.instance(0).put("TTL requires partitioned table");
+        }
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                ddlMem.jumpTo(META_OFFSET_TTL);
+                ddlMem.putInt(ttl);
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            metadata.setTtl(ttl);
+            clearTodoLog();
+        } finally {
+            ddlMem.close();
+        }
+        // existing data may already be older than the new TTL
+        detachExpiredPartitions();
+        if (retiredPartitions.size() > 0) {
+            purgeRetiredPartitions();
+        }
+    }
+
     public void setMetaMaxUncommittedRows(int maxUncommittedRows) {
         try {
             commit();
@@ -1445,12 +1763,17 @@ public class TableWriter implements Closeable {
                     Misc.free(indexers.getQuick(i));
                 }
             }
+            Misc.free(compositeIndexer);
             removePartitionDirectories();
+            removeVolumePartitionDirectories();
             rowActon = ROW_ACTION_OPEN_PARTITION;
         }
 
         txWriter.resetTimestamp();
         txWriter.truncate();
+        if (zoneMapWriter != null) {
+            zoneMapWriter.reset();
+        }
 
         // todo: check and clear O3 memory
         row = regularRow;
@@ -1537,7 +1860,35 @@ public class TableWriter implements Closeable {
         return -1;
     }
 
-    private static void configureNullSetters(ObjList<Runnable> nullers, int type, MemoryA mem1, MemoryA mem2) {
+    // rows that do not set column with default value get the default rather than null
+    static void configureDefaultSetters(ObjList<Runnable> nullers, int type, long value, MemoryA mem) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                nullers.add(() -> mem.putByte((byte) value));
+                break;
+            case ColumnType.SHORT:
+                nullers.add(() -> mem.putShort((short) value));
+                break;
+            case ColumnType.CHAR:
+                nullers.add(() -> mem.putChar((char) value));
+                break;
+            case ColumnType.INT:
+                nullers.add(() -> mem.putInt((int) value));
+                break;
+            case ColumnType.FLOAT:
+                nullers.add(() -> mem.putFloat(Float.intBitsToFloat((int) value)));
+                break;
+            case ColumnType.DOUBLE:
+                nullers.add(() -> mem.putDouble(Double.longBitsToDouble(value)));
+                break;
+            default:
+                nullers.add(() -> mem.putLong(value));
+                break;
+        }
+    }
+
+    static void configureNullSetters(ObjList<Runnable> nullers, int type, MemoryA mem1, MemoryA mem2) {
         switch (ColumnType.tagOf(type)) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
@@ -1591,6 +1942,25 @@ public class TableWriter implements Closeable {
         }
     }
 
+    static long geoHashOf(CharSequence hash, int type) {
+        if (hash != null) {
+            final int hashLen = hash.length();
+            final int typeBits = ColumnType.getGeoHashBits(type);
+            final int charsRequired = (typeBits - 1) / 5 + 1;
+            if (hashLen >= charsRequired) {
+                try {
+                    return ColumnType.truncateGeoHashBits(
+                            GeoHashes.fromString(hash, 0, charsRequired),
+                            charsRequired * 5,
+                            typeBits
+                    );
+                } catch (NumericException ignore) {
+                }
+            }
+        }
+        return GeoHashes.NULL;
+    }
+
     private static void openMetaFile(FilesFacade ff, Path path, int rootLen, MemoryMR metaMem) {
         path.concat(META_FILE_NAME).$();
         try {
@@ -1694,7 +2064,9 @@ public class TableWriter implements Closeable {
             int type,
             boolean indexFlag,
             int indexValueBlockCapacity,
-            boolean sequentialFlag
+            boolean sequentialFlag,
+            boolean defaultFlag,
+            long defaultValue
     ) {
         int index;
         try {
@@ -1721,10 +2093,14 @@ public class TableWriter implements Closeable {
                 flags |= META_FLAG_BIT_SEQUENTIAL;
             }
 
+            if (defaultFlag) {
+                flags |= META_FLAG_BIT_DEFAULT;
+            }
+
             ddlMem.putLong(flags);
             ddlMem.putInt(indexValueBlockCapacity);
             ddlMem.putLong(configuration.getRandom().nextLong());
-            ddlMem.skip(8);
+            ddlMem.putLong(defaultValue);
 
             long nameOffset = getColumnNameOffset(columnCount);
             for (int i = 0; i < columnCount; i++) {
@@ -1752,6 +2128,17 @@ public class TableWriter implements Closeable {
         masterRef++;
     }
 
+    /**
+     * Column files are changed across partitions by walking table directory, which does not
+     * see partitions on storage volumes.
+     */
+    private void checkPartitionsInTableDirectory(String operation) {
+        if (partitionVolumes.size() > 0) {
+            throw CairoException.instance(0).put("cannot ").put(operation)
+                    .put(", table has partitions on storage volumes [table=").put(tableName).put(']');
+        }
+    }
+
     private void checkDistressed() {
         if (!distressed) {
             return;
@@ -1834,8 +2221,13 @@ public class TableWriter implements Closeable {
 
         if (inTransaction()) {
 
-            if (hasO3() && o3Commit(commitLag)) {
-                return;
+            // rows appended in order cannot be older than max timestamp of the previous transaction
+            long commitTimestampLo = txWriter.getCommittedMaxTimestamp();
+            if (hasO3()) {
+                if (o3Commit(commitLag)) {
+                    return;
+                }
+                commitTimestampLo = Math.min(commitTimestampLo, o3CommitTimestampLo);
             }
 
             if (commitMode != CommitMode.NOSYNC) {
@@ -1843,13 +2235,120 @@ public class TableWriter implements Closeable {
             }
 
             updateIndexes();
+            updateZoneMap(false);
             txWriter.commit(commitMode, this.denseSymbolMapWriters);
+            if (commitListener != null) {
+                commitListener.onCommit(tableName, txWriter.getTxn(), commitTimestampLo, txWriter.getMaxTimestamp());
+            }
             o3ProcessPartitionRemoveCandidates();
+            if (metadata.getTtl() != 0) {
+                detachExpiredPartitions();
+            }
+            if (hotPartitionCount > 0) {
+                compressColdPartitions();
+            }
+        }
+        if (retiredPartitions.size() > 0) {
+            purgeRetiredPartitions();
         }
 
         tick();
     }
 
+    private void compressColdPartitions() {
+        final int coldPartitionCount = txWriter.getPartitionCount() - hotPartitionCount;
+        if (coldPartitionCount < 1) {
+            return;
+        }
+        final long hotPartitionTimestamp = txWriter.getPartitionTimestamp(coldPartitionCount);
+        if (hotPartitionTimestamp > coldPartitionTimestamp) {
+            for (int i = 0; i < coldPartitionCount; i++) {
+                final long timestamp = txWriter.getPartitionTimestamp(i);
+                if (timestamp >= coldPartitionTimestamp) {
+                    try {
+                        final Path path = setPartitionPath(this.path, timestamp);
+                        if (!partitionCompressor.isCompressed(path)) {
+                            final long partitionSize = txWriter.getPartitionSizeByPartitionTimestamp(timestamp);
+                            partitionCompressor.compress(path, partitionSize);
+                            if (configuration.isPostingIndexEnabled()) {
+                                sealIndexes(path, partitionSize);
+                            }
+                        }
+                    } catch (CairoException e) {
+                        // data is committed, partition stays uncompressed
+                        LOG.error().$("could not compress partition [path=").$(path).$(", ex=").$((Sinkable) e).$(']').$();
+                    } finally {
+                        path.trimTo(rootLen);
+                    }
+                }
+            }
+            coldPartitionTimestamp = hotPartitionTimestamp;
+        }
+    }
+
+    private void detachExpiredPartitions() {
+        final int ttl = metadata.getTtl();
+        final int partitionCount = txWriter.getPartitionCount();
+        if (ttl == 0 || partitionCount < 2) {
+            return;
+        }
+        final long maxTimestamp = txWriter.getMaxTimestamp();
+        final long expiryTimestamp = ttl > 0 ? maxTimestamp - ttl * Timestamps.HOUR_MICROS : Timestamps.addMonths(maxTimestamp, ttl);
+
+        // active partition never expires
+        int expiredCount = 0;
+        while (expiredCount < partitionCount - 1
+                && timestampCeilMethod.ceil(txWriter.getPartitionTimestamp(expiredCount)) <= expiryTimestamp) {
+            expiredCount++;
+        }
+        if (expiredCount == 0) {
+            return;
+        }
+
+        // partition directories are only detached here, readers may still be using them
+        final long nextMinTimestamp = readMinTimestamp(txWriter.getPartitionTimestamp(expiredCount));
+        final int expiredLo = retiredPartitions.size();
+        txWriter.beginPartitionSizeUpdate();
+        for (int i = 0; i < expiredCount; i++) {
+            final long timestamp = txWriter.getPartitionTimestamp(0);
+            final long nameTxn = txWriter.getPartitionNameTxn(0);
+            retirePartition(timestamp, nameTxn, 0, partitionVolumes.getVolume(timestamp, nameTxn));
+            txWriter.removeAttachedPartitions(timestamp);
+            if (zoneMapWriter != null) {
+                zoneMapWriter.invalidate(timestamp);
+            }
+        }
+        txWriter.setMinTimestamp(nextMinTimestamp);
+        txWriter.finishPartitionSizeUpdate(nextMinTimestamp, maxTimestamp);
+        txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+
+        final long txn = txWriter.getTxn();
+        for (int i = expiredLo, n = retiredPartitions.size(); i < n; i += 3) {
+            retiredPartitions.setQuick(i + 2, txn);
+        }
+        LOG.info().$("detached expired partitions [table=").$(tableName)
+                .$(", count=").$(expiredCount)
+                .$(", expiryTimestamp=").$ts(expiryTimestamp)
+                .$(", txn=").$(txn)
+                .$(']').$();
+    }
+
+    private void copyPartitionDir(Path src, Path dst) {
+        final int plen = dst.length();
+        try {
+            // leftover of an unsuccessful copy
+            if (ff.exists(dst.$()) && ff.rmdir(dst.slash$()) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not remove directory [path=").put(dst).put(']');
+            }
+            if (ff.mkdirs(dst.trimTo(plen).slash$(), mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("Cannot create directory: ").put(dst);
+            }
+            PartitionVolumes.copyPartitionFiles(ff, src, dst.trimTo(plen));
+        } finally {
+            dst.trimTo(plen);
+        }
+    }
+
     private void configureAppendPosition() {
         if (this.txWriter.getMaxTimestamp() > Long.MIN_VALUE || partitionBy == PartitionBy.NONE) {
             openFirstPartition(this.txWriter.getMaxTimestamp());
@@ -1871,7 +2370,7 @@ public class TableWriter implements Closeable {
         activeColumns = columns;
     }
 
-    private void configureColumn(int type, boolean indexFlag) {
+    private void configureColumn(int type, boolean indexFlag, boolean defaultFlag, long defaultValue) {
         final MemoryMAR primary = Vm.getMARInstance();
         final MemoryMAR secondary;
         final MemoryCARW oooPrimary = Vm.getCARWInstance(o3ColumnMemorySize, Integer.MAX_VALUE, MemoryTag.NATIVE_O3);
@@ -1904,8 +2403,13 @@ public class TableWriter implements Closeable {
         o3Columns.add(oooSecondary);
         o3Columns2.add(oooPrimary2);
         o3Columns2.add(oooSecondary2);
-        configureNullSetters(nullSetters, type, primary, secondary);
-        configureNullSetters(o3NullSetters, type, oooPrimary, oooSecondary);
+        if (defaultFlag) {
+            configureDefaultSetters(nullSetters, type, defaultValue, primary);
+            configureDefaultSetters(o3NullSetters, type, defaultValue, oooPrimary);
+        } else {
+            configureNullSetters(nullSetters, type, primary, secondary);
+            configureNullSetters(o3NullSetters, type, oooPrimary, oooSecondary);
+        }
         logColumns.add(logPrimary);
         logColumns.add(logSecondary);
 
@@ -1919,7 +2423,7 @@ public class TableWriter implements Closeable {
         this.symbolMapWriters.setPos(columnCount);
         for (int i = 0; i < columnCount; i++) {
             int type = metadata.getColumnType(i);
-            configureColumn(type, metadata.isColumnIndexed(i));
+            configureColumn(type, metadata.isColumnIndexed(i), metadata.hasColumnDefault(i), metadata.getColumnDefault(i));
 
             if (ColumnType.isSymbol(type)) {
                 final int symbolIndex = denseSymbolMapWriters.size();
@@ -1938,6 +2442,10 @@ public class TableWriter implements Closeable {
 
             if (metadata.isColumnIndexed(i)) {
                 indexers.extendAndSet(i, new SymbolColumnIndexer());
+            } else if (isBloomFilterIndexed(metaMem, i)) {
+                indexers.extendAndSet(i, new BloomFilterIndexer(type));
+            } else if (isGeoHashIndexed(metaMem, i)) {
+                indexers.extendAndSet(i, new GeoHashIndexer(type));
             }
         }
         final int timestampIndex = metadata.getTimestampIndex();
@@ -1947,6 +2455,48 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void configureCompositeIndex() {
+        int compositeIndexColumnCount = 0;
+        for (int i = 0; i < columnCount; i++) {
+            if (getCompositeIndexPosition(metaMem, i) > -1) {
+                compositeIndexColumnCount++;
+            }
+        }
+        if (compositeIndexColumnCount > 0) {
+            compositeIndexKeys = new CompositeIndexKeys(true);
+            compositeIndexKeys.of(ff, path.trimTo(rootLen), compositeIndexColumnCount);
+            compositeIndexer = new CompositeIndexer(compositeIndexKeys, compositeIndexColumnCount);
+        }
+    }
+
+    private void configureCompositeIndexer(int plen) {
+        compositeIndexColumnMems.clear();
+        compositeIndexColumnTops.clear();
+        for (int i = 0; i < columnCount; i++) {
+            final int position = getCompositeIndexPosition(metaMem, i);
+            if (position > -1) {
+                compositeIndexColumnMems.extendAndSet(position, getPrimaryColumn(i));
+                compositeIndexColumnTops.extendAndSet(position, columnTops.getQuick(i));
+            }
+        }
+        compositeIndexer.configure(configuration, path.trimTo(plen), compositeIndexColumnMems, compositeIndexColumnTops);
+    }
+
+    private void configureDedupKey() {
+        dedupKeyColumns.clear();
+        dedupEnabled = false;
+        final int timestampIndex = metadata.getTimestampIndex();
+        for (int i = 0; i < columnCount; i++) {
+            if (isDedupKey(metaMem, i)) {
+                if (i == timestampIndex) {
+                    dedupEnabled = true;
+                } else {
+                    dedupKeyColumns.add(i);
+                }
+            }
+        }
+    }
+
     private void configureTimestampSetter() {
         int index = metadata.getTimestampIndex();
         if (index == -1) {
@@ -2007,6 +2557,7 @@ public class TableWriter implements Closeable {
                             task.getNameTxnToRemove(),
                             task.getMinTxnToExpect()
                     );
+                    other.trimTo(rootLen);
                 } else if (cursor == -1) {
                     break;
                 }
@@ -2032,6 +2583,12 @@ public class TableWriter implements Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+                    if (isDedupKey(metaMem, i)) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
+                    if (getCompositeIndexPosition(metaMem, i) > -1) {
+                        flags |= compositeIndexFlags(getCompositeIndexPosition(metaMem, i));
+                    }
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.putLong(getColumnHash(metaMem, i));
@@ -2083,6 +2640,7 @@ public class TableWriter implements Closeable {
         ddlMem.putInt(metaMem.getInt(META_OFFSET_TABLE_ID));
         ddlMem.putInt(metaMem.getInt(META_OFFSET_MAX_UNCOMMITTED_ROWS));
         ddlMem.putLong(metaMem.getLong(META_OFFSET_COMMIT_LAG));
+        ddlMem.putInt(metaMem.getInt(META_OFFSET_TTL));
     }
 
     /**
@@ -2094,6 +2652,10 @@ public class TableWriter implements Closeable {
      * @param plen                    path length. This is used to trim shared path object to.
      */
     private void createIndexFiles(CharSequence columnName, int indexValueBlockCapacity, int plen, boolean force) {
+        createIndexFiles(path, columnName, indexValueBlockCapacity, plen, force);
+    }
+
+    private void createIndexFiles(Path path, CharSequence columnName, int indexValueBlockCapacity, int plen, boolean force) {
         try {
             BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName);
 
@@ -2146,15 +2708,26 @@ public class TableWriter implements Closeable {
     }
 
     private void doClose(boolean truncate) {
+        if (retiredPartitions.size() > 0) {
+            // partitions still in use by readers are removed when table is next opened for writing
+            purgeRetiredPartitions();
+        }
         consumeO3PartitionRemoveTasks();
         boolean tx = inTransaction();
         freeSymbolMapWriters();
         freeIndexers();
+        Misc.free(compositeIndexer);
+        Misc.free(compositeIndexKeys);
+        Misc.free(zoneMapWriter);
+        Misc.free(partitionCompressor);
+        Misc.free(partitionUpdater);
         Misc.free(txWriter);
         Misc.free(metaMem);
         Misc.free(ddlMem);
-        Misc.free(indexMem);
+        Misc.freeObjList(partitionIndexers);
         Misc.free(other);
+        Misc.free(volumePath);
+        Misc.free(volumeOther);
         Misc.free(todoMem);
         freeColumns(truncate & !distressed);
         try {
@@ -2293,6 +2866,13 @@ public class TableWriter implements Closeable {
         return timestampFloorMethod.floor(timestamp);
     }
 
+    private PartitionColumnIndexer getPartitionIndexer(int index) {
+        if (index == partitionIndexers.size()) {
+            partitionIndexers.add(new PartitionColumnIndexer());
+        }
+        return partitionIndexers.getQuick(index);
+    }
+
     long getPartitionNameTxnByIndex(int index) {
         return txWriter.getPartitionNameTxnByIndex(index);
     }
@@ -2315,17 +2895,124 @@ public class TableWriter implements Closeable {
         return symbolMapWriters.getQuick(columnIndex);
     }
 
+    long getPartitionTimestampLo(long timestamp) {
+        return getPartitionLo(timestamp);
+    }
+
+    /**
+     * Commits new versions of partitions written by the update in progress. Replaced versions
+     * are retired and purged once readers move on.
+     */
+    void commitUpdate() {
+        final int n = updatedPartitions.size();
+        if (n == 0) {
+            return;
+        }
+        long timestampLo = Long.MAX_VALUE;
+        for (int i = 0; i < n; i += 2) {
+            final long timestamp = updatedPartitions.getQuick(i);
+            final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(timestamp);
+            final long partitionSize = timestamp == getPartitionLo(txWriter.getMaxTimestamp())
+                    ? txWriter.getTransientRowCount()
+                    : txWriter.getPartitionSizeByIndex(partitionIndex);
+            txWriter.updatePartitionSizeByIndexAndTxn(partitionIndex, partitionSize);
+            if (zoneMapWriter != null) {
+                zoneMapWriter.invalidate(timestamp);
+            }
+            timestampLo = Math.min(timestampLo, timestamp);
+        }
+        txWriter.bumpPartitionTableVersion();
+        txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+        for (int i = 0; i < n; i += 2) {
+            final long timestamp = updatedPartitions.getQuick(i);
+            final long nameTxn = updatedPartitions.getQuick(i + 1);
+            retirePartition(timestamp, nameTxn, txWriter.getTxn(), partitionVolumes.getVolume(timestamp, nameTxn));
+        }
+        LOG.info().$("updated [table=").$(tableName)
+                .$(", partitions=").$(n / 2)
+                .$(", txn=").$(txWriter.getTxn())
+                .$(']').$();
+        updatedPartitions.clear();
+        reopenActivePartitionAfterUpdate();
+        if (commitListener != null) {
+            commitListener.onCommit(tableName, txWriter.getTxn(), timestampLo, txWriter.getMaxTimestamp());
+        }
+        purgeRetiredPartitions();
+    }
+
+    /**
+     * Removes new versions of partitions written by the update in progress.
+     */
+    void rollbackUpdate() {
+        try {
+            for (int i = 0, n = updatedPartitions.size(); i < n; i += 2) {
+                setPathForPartition(other, partitionBy, updatedPartitions.getQuick(i), false);
+                TableUtils.txnPartitionConditionally(other, txWriter.getTxn());
+                int errno;
+                if ((errno = ff.rmdir(other.slash$())) != 0) {
+                    LOG.error().$("could not remove updated partition [path=").$(other).$(", errno=").$(errno).$(']').$();
+                }
+                other.trimTo(rootLen);
+            }
+            rollbackSymbolTables();
+        } finally {
+            other.trimTo(rootLen);
+            updatedPartitions.clear();
+            reopenActivePartitionAfterUpdate();
+        }
+    }
+
+    /**
+     * Writes new version of partition for the update in progress. Version is named after the
+     * transaction about to be committed and is always written to table directory.
+     */
+    void updatePartition(long timestamp, PartitionUpdater updater) {
+        final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(timestamp);
+        if (partitionIndex < 0) {
+            throw CairoException.instance(0).put("partition does not exist [table=").put(tableName).put(", ts=").put(timestamp).put(']');
+        }
+        final long nameTxn = txWriter.getPartitionNameTxnByIndex(partitionIndex);
+        final long partitionSize;
+        if (timestamp == getPartitionLo(txWriter.getMaxTimestamp())) {
+            // active partition files are trimmed to their size before they are linked
+            closeActivePartition(true);
+            activePartitionClosedByUpdate = true;
+            partitionSize = txWriter.getTransientRowCount();
+        } else {
+            partitionSize = txWriter.getPartitionSizeByIndex(partitionIndex);
+        }
+        try {
+            final Path src = setPartitionPath(path, timestamp);
+            setPathForPartition(other, partitionBy, timestamp, false);
+            TableUtils.txnPartitionConditionally(other, txWriter.getTxn());
+            final int plen = other.length();
+            // leftover of an unsuccessful update
+            if (ff.exists(other.$()) && ff.rmdir(other.slash$()) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not remove directory [path=").put(other).put(']');
+            }
+            if (ff.mkdirs(other.trimTo(plen).slash$(), mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("Cannot create directory: ").put(other);
+            }
+            updatedPartitions.add(timestamp, nameTxn);
+            updater.rewritePartition(src, other.trimTo(plen), partitionSize);
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+    }
+
     private boolean hasO3() {
         return o3MasterRef > -1;
     }
 
-    private long indexHistoricPartitions(SymbolColumnIndexer indexer, CharSequence columnName, int indexValueBlockSize) {
+    private long indexHistoricPartitions(CharSequence columnName, int indexValueBlockSize) {
         final long ts = this.txWriter.getMaxTimestamp();
         if (ts > Numbers.LONG_NaN) {
             final long maxTimestamp = timestampFloorMethod.floor(ts);
+            final boolean postingIndex = configuration.isPostingIndexEnabled();
             long timestamp = txWriter.getMinTimestamp();
-            try (final MemoryMR roMem = indexMem) {
-
+            int partitionIndexerCount = 0;
+            try {
                 while (timestamp < maxTimestamp) {
 
                     path.trimTo(rootLen);
@@ -2336,6 +3023,8 @@ public class TableWriter implements Closeable {
 
                         final int plen = path.length();
 
+                        // index is built over uncompressed column
+                        partitionCompressor.decompressColumn(path, columnName);
                         TableUtils.dFile(path.trimTo(plen), columnName);
 
                         if (ff.exists(path)) {
@@ -2344,24 +3033,34 @@ public class TableWriter implements Closeable {
 
                             LOG.info().$("indexing [path=").$(path).$(']').$();
 
-                            createIndexFiles(columnName, indexValueBlockSize, plen, true);
-
                             final long partitionSize = txWriter.getPartitionSizeByPartitionTimestamp(timestamp);
                             final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem16b, true);
 
                             if (partitionSize > columnTop) {
-                                TableUtils.dFile(path.trimTo(plen), columnName);
-                                final long columnSize = (partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT);
-                                roMem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_WRITER);
-                                indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnTop);
-                                indexer.index(roMem, columnTop, partitionSize);
+                                if (!postingIndex) {
+                                    createIndexFiles(columnName, indexValueBlockSize, plen, true);
+                                }
+                                getPartitionIndexer(partitionIndexerCount++).of(
+                                        configuration,
+                                        path.trimTo(plen),
+                                        columnName,
+                                        columnTop,
+                                        partitionSize,
+                                        postingIndex
+                                );
+                            } else {
+                                createIndexFiles(columnName, indexValueBlockSize, plen, true);
                             }
                         }
                     }
                     timestamp = timestampAddMethod.calculate(timestamp, 1);
                 }
+                path.trimTo(rootLen);
+                indexPartitions(partitionIndexerCount);
             } finally {
-                indexer.close();
+                for (int i = 0; i < partitionIndexerCount; i++) {
+                    partitionIndexers.getQuick(i).closeSlider();
+                }
             }
             return timestamp;
         }
@@ -2380,6 +3079,80 @@ public class TableWriter implements Closeable {
         indexer.refreshSourceAndIndex(0, txWriter.getTransientRowCount());
     }
 
+    private void indexPartitions(int partitionCount) {
+        if (partitionCount < 2 || !configuration.isParallelIndexingEnabled()) {
+            for (int i = 0; i < partitionCount; i++) {
+                final PartitionColumnIndexer indexer = partitionIndexers.getQuick(i);
+                indexer.refreshSourceAndIndex(indexer.getColumnTop(), indexer.getPartitionSize());
+            }
+            return;
+        }
+
+        indexSequences.clear();
+        indexLatch.setCount(partitionCount);
+        final int nParallelIndexes = partitionCount - 1;
+        final Sequence indexPubSequence = this.messageBus.getIndexerPubSequence();
+        final RingQueue<ColumnIndexerTask> indexerQueue = this.messageBus.getIndexerQueue();
+
+        LOG.info().$("parallel partition indexing [table=").$(tableName)
+                .$(", partitionCount=").$(partitionCount)
+                .I$();
+        int serialIndexCount = 0;
+
+        // partitions are published to the queue, except the last one, which is indexed in this thread
+        for (int i = 0; i < nParallelIndexes; i++) {
+            final PartitionColumnIndexer indexer = partitionIndexers.getQuick(i);
+            long cursor;
+            do {
+                cursor = indexPubSequence.next();
+            } while (cursor == -2);
+
+            if (cursor == -1) {
+                // queue is full, process partition in the current thread
+                indexAndCountDown(indexer, indexer.getColumnTop(), indexer.getPartitionSize(), indexLatch);
+                indexSequences.add(-1);
+                serialIndexCount++;
+                continue;
+            }
+
+            final ColumnIndexerTask queueItem = indexerQueue.get(cursor);
+            final long sequence = indexer.getSequence();
+            queueItem.indexer = indexer;
+            queueItem.lo = indexer.getColumnTop();
+            queueItem.hi = indexer.getPartitionSize();
+            queueItem.countDownLatch = indexLatch;
+            queueItem.sequence = sequence;
+            indexSequences.add(sequence);
+            indexPubSequence.done(cursor);
+        }
+
+        final PartitionColumnIndexer lastIndexer = partitionIndexers.getQuick(nParallelIndexes);
+        indexAndCountDown(lastIndexer, lastIndexer.getColumnTop(), lastIndexer.getPartitionSize(), indexLatch);
+        serialIndexCount++;
+
+        if (!indexLatch.await(configuration.getWorkStealTimeoutNanos())) {
+            // steal partitions, which have not been picked up by other threads yet
+            for (int i = 0; i < nParallelIndexes; i++) {
+                final long sequence = indexSequences.getQuick(i);
+                final PartitionColumnIndexer indexer = partitionIndexers.getQuick(i);
+                if (sequence > -1 && indexer.tryLock(sequence)) {
+                    indexAndCountDown(indexer, indexer.getColumnTop(), indexer.getPartitionSize(), indexLatch);
+                    serialIndexCount++;
+                }
+            }
+            // wait for the ones we cannot steal
+            indexLatch.await();
+        }
+
+        for (int i = 0; i < partitionCount; i++) {
+            if (partitionIndexers.getQuick(i).isDistressed()) {
+                throw CairoException.instance(0).put("could not index partition [table=").put(tableName).put(']');
+            }
+        }
+
+        LOG.info().$("parallel partition indexing done [serialCount=").$(serialIndexCount).$(']').$();
+    }
+
     boolean isSymbolMapWriterCached(int columnIndex) {
         return symbolMapWriters.getQuick(columnIndex).isCached();
     }
@@ -2428,6 +3201,8 @@ public class TableWriter implements Closeable {
         o3ErrorCount.set(0);
         o3ColumnCounters.clear();
         o3BasketPool.clear();
+        o3DedupRowCount.set(0);
+        o3DedupLastPartitionRowCount.set(0);
 
         long o3LagRowCount = 0;
         long maxUncommittedRows = metadata.getMaxUncommittedRows();
@@ -2435,7 +3210,10 @@ public class TableWriter implements Closeable {
         this.lastPartitionTimestamp = timestampFloorMethod.floor(partitionTimestampHi);
         long activePartitionTimestampCeil = timestampCeilMethod.ceil(partitionTimestampHi);
         try {
-            o3RowCount += o3MoveUncommitted(timestampIndex);
+            // uncommitted rows are moved after the O3 rows, although they were written first
+            final long movedRowLo = o3RowCount;
+            final long movedRowCount = o3MoveUncommitted(timestampIndex);
+            o3RowCount += movedRowCount;
             final long transientRowCount = txWriter.transientRowCount;
 
             // we may need to re-use file descriptors when this partition is the "current" one
@@ -2475,6 +3253,7 @@ public class TableWriter implements Closeable {
 
             // Safe check of the sort. No known way to reproduce
             assert o3TimestampMin <= o3TimestampMax;
+            o3CommitTimestampLo = o3TimestampMin;
 
             if (lag > 0) {
                 long lagThresholdTimestamp = o3TimestampMax - lag;
@@ -2526,6 +3305,30 @@ public class TableWriter implements Closeable {
                 return true;
             }
 
+            if (zoneMapWriter != null) {
+                zoneMapWriter.invalidateFrom(getPartitionLo(o3TimestampMin));
+            }
+
+            if (dedupEnabled && o3DedupBatch(sortedTimestampsAddr, movedRowLo, movedRowCount) > 0) {
+                // compact committed and lag segments separately to keep the boundary between them
+                final long committedRowCount = O3Dedup.compact(sortedTimestampsAddr, 0, srcOooMax, 0);
+                final long retainedRowCount = O3Dedup.compact(sortedTimestampsAddr, srcOooMax, o3RowCount, committedRowCount);
+                LOG.info().$("o3 deduplicated [table=").$(tableName)
+                        .$(", o3RowCount=").$(o3RowCount)
+                        .$(", retainedRowCount=").$(retainedRowCount)
+                        .I$();
+                if (committedRowCount > 0) {
+                    srcOooMax = committedRowCount;
+                    o3LagRowCount = retainedRowCount - committedRowCount;
+                } else {
+                    // duplicates of committed rows all survived in the lag, commit the lag too
+                    srcOooMax = retainedRowCount;
+                    o3LagRowCount = 0;
+                }
+                o3RowCount = retainedRowCount;
+                o3TimestampMem.jumpTo(o3RowCount * TIMESTAMP_MERGE_ENTRY_BYTES);
+            }
+
             // we could have moved the "srcOooMax" and hence we re-read the max timestamp
             o3TimestampMax = getTimestampIndexValue(sortedTimestampsAddr, srcOooMax - 1);
             // move uncommitted is liable to change max timestamp
@@ -2587,12 +3390,19 @@ public class TableWriter implements Closeable {
                                 srcDataMax = getPartitionSizeByIndex(partitionIndex);
                             }
                             srcNameTxn = getPartitionNameTxnByIndex(partitionIndex);
+                            if (!last) {
+                                if (partitionVolumes.size() > 0) {
+                                    o3RecallPartition(partitionIndex, partitionTimestamp, srcNameTxn);
+                                }
+                                o3DecompressPartition(partitionTimestamp, srcNameTxn, srcDataMax);
+                            }
                         } else {
                             srcDataMax = 0;
                             srcNameTxn = -1;
                         }
 
-                        final boolean append = last && (srcDataMax == 0 || o3Timestamp >= maxTimestamp);
+                        // rows that repeat max timestamp may replace existing rows and have to be merged
+                        final boolean append = last && (srcDataMax == 0 || o3Timestamp > maxTimestamp || (!dedupEnabled && o3Timestamp == maxTimestamp));
                         final long partitionSize = srcDataMax + srcOooHi - srcOooLo + 1;
 
                         LOG.debug().
@@ -2770,6 +3580,10 @@ public class TableWriter implements Closeable {
                 }
             }
 
+            if (dedupEnabled) {
+                o3DedupRowCountUpdate(o3TimestampMax);
+            }
+
             if (o3LagRowCount > 0) {
                 o3ShiftLagRowsUp(timestampIndex, o3LagRowCount, srcOooMax);
             }
@@ -2812,6 +3626,52 @@ public class TableWriter implements Closeable {
         return false;
     }
 
+    private void o3DecompressPartition(long partitionTimestamp, long partitionNameTxn, long partitionSize) {
+        // out of order rows are merged into uncompressed column files and bitmap indexes only
+        TableUtils.setPathForPartition(other.trimTo(rootLen), partitionBy, partitionTimestamp, false);
+        TableUtils.txnPartitionConditionally(other, partitionNameTxn);
+        try {
+            if (partitionCompressor.isCompressed(other)) {
+                partitionCompressor.decompress(other);
+            }
+            unsealIndexes(other, partitionSize);
+        } finally {
+            other.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Out-of-order rows are merged in table directory. Partition on storage volume is copied back
+     * under the same name, readers that have its files open keep them until they move on.
+     */
+    private void o3RecallPartition(int partitionIndex, long partitionTimestamp, long partitionNameTxn) {
+        final String volume = partitionVolumes.getVolume(partitionTimestamp, partitionNameTxn);
+        if (volume == null) {
+            return;
+        }
+        try {
+            final Path src = PartitionVolumes.setVolumeTablePath(configuration, volumePath, volume, tableName);
+            setPathForPartition(src, partitionBy, partitionTimestamp, false);
+            TableUtils.txnPartitionConditionally(src, partitionNameTxn);
+            setPathForPartition(other, partitionBy, partitionTimestamp, false);
+            TableUtils.txnPartitionConditionally(other, partitionNameTxn);
+            copyPartitionDir(src, other);
+        } finally {
+            other.trimTo(rootLen);
+        }
+        partitionVolumes.remove(partitionTimestamp, partitionNameTxn);
+        partitionVolumes.save(ff, other);
+        // readers reopen the partition, now from table directory
+        txWriter.updatePartitionDataTxnByIndex(partitionIndex);
+        txWriter.bumpPartitionTableVersion();
+        // copy on the volume is retired by the transaction being committed
+        retirePartition(partitionTimestamp, partitionNameTxn, txWriter.getTxn() + 1, volume);
+        LOG.info().$("recalled partition from volume [table=").$(tableName)
+                .$(", ts=").$ts(partitionTimestamp)
+                .$(", volume=").$(volume)
+                .$(']').$();
+    }
+
     private void o3CommitPartitionAsync(
             AtomicInteger columnCounter,
             long maxTimestamp,
@@ -2897,6 +3757,7 @@ public class TableWriter implements Closeable {
                 final long partitionTimestamp = task.getPartitionTimestamp();
                 final long srcOooPartitionLo = task.getSrcOooPartitionLo();
                 final long srcOooPartitionHi = task.getSrcOooPartitionHi();
+                final long dedupRowCount = task.getDedupRowCount();
                 final long srcDataMax = task.getSrcDataMax();
                 final boolean partitionMutates = task.isPartitionMutates();
 
@@ -2911,6 +3772,7 @@ public class TableWriter implements Closeable {
                             partitionTimestamp,
                             srcOooPartitionLo,
                             srcOooPartitionHi,
+                            dedupRowCount,
                             srcOooMax,
                             srcDataMax,
                             partitionMutates
@@ -3054,6 +3916,39 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private long o3DedupBatch(long sortedTimestampsAddr, long olderRowLo, long olderRowCount) {
+        o3Dedup.clear();
+        for (int i = 0, n = dedupKeyColumns.size(); i < n; i++) {
+            final int columnIndex = dedupKeyColumns.getQuick(i);
+            final int columnType = metadata.getColumnType(columnIndex);
+            final int primaryIndex = getPrimaryColumnIndex(columnIndex);
+            if (ColumnType.isVariableLength(columnType)) {
+                o3Dedup.addKey(
+                        columnType,
+                        o3Columns.getQuick(primaryIndex + 1).addressOf(0),
+                        o3Columns.getQuick(primaryIndex).addressOf(0),
+                        0,
+                        0
+                );
+            } else {
+                o3Dedup.addKey(columnType, o3Columns.getQuick(primaryIndex).addressOf(0), 0, 0, 0);
+            }
+        }
+        return o3Dedup.markDuplicates(sortedTimestampsAddr, o3RowCount, olderRowLo, olderRowCount);
+    }
+
+    private void o3DedupRowCountUpdate(long o3TimestampMax) {
+        // partition sizes are already deduplicated, row counts have been advanced by the merged row count
+        final long lastPartitionRowCount = o3DedupLastPartitionRowCount.get();
+        final long otherRowCount = o3DedupRowCount.get() - lastPartitionRowCount;
+        if (timestampFloorMethod.floor(o3TimestampMax) > lastPartitionTimestamp) {
+            txWriter.fixedRowCount -= lastPartitionRowCount;
+        } else {
+            txWriter.transientRowCount -= lastPartitionRowCount;
+        }
+        txWriter.fixedRowCount -= otherRowCount;
+    }
+
     private long o3MoveUncommitted(final int timestampIndex) {
         final long committedRowCount = txWriter.getCommittedFixedRowCount() + txWriter.getCommittedTransientRowCount();
         final long rowsAdded = txWriter.getRowCount() - committedRowCount;
@@ -3231,12 +4126,19 @@ public class TableWriter implements Closeable {
             long partitionTimestamp,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long srcOooMax,
             long srcDataMax,
             boolean partitionMutates
     ) {
         this.txWriter.minTimestamp = Math.min(timestampMin, this.txWriter.minTimestamp);
-        final long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1;
+        final long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1 - dedupRowCount;
+        if (dedupRowCount > 0) {
+            o3DedupRowCount.addAndGet(dedupRowCount);
+            if (partitionTimestamp == lastPartitionTimestamp) {
+                o3DedupLastPartitionRowCount.addAndGet(dedupRowCount);
+            }
+        }
         final long rowDelta = srcOooPartitionHi - srcOooMax;
         final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
         if (partitionTimestamp == lastPartitionTimestamp) {
@@ -3255,6 +4157,7 @@ public class TableWriter implements Closeable {
                 .$(", partitionTimestamp=").$ts(partitionTimestamp)
                 .$(", srcOooPartitionLo=").$(srcOooPartitionLo)
                 .$(", srcOooPartitionHi=").$(srcOooPartitionHi)
+                .$(", dedupRowCount=").$(dedupRowCount)
                 .$(", srcOooMax=").$(srcOooMax)
                 .$(", srcDataMax=").$(srcDataMax)
                 .$(", partitionMutates=").$(partitionMutates)
@@ -3285,6 +4188,7 @@ public class TableWriter implements Closeable {
             long partitionTimestamp,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             boolean partitionMutates,
             long srcOooMax,
             long srcDataMax
@@ -3296,6 +4200,7 @@ public class TableWriter implements Closeable {
                 partitionTimestamp,
                 srcOooPartitionLo,
                 srcOooPartitionHi,
+                dedupRowCount,
                 srcOooMax,
                 srcDataMax,
                 partitionMutates
@@ -3672,7 +4577,8 @@ public class TableWriter implements Closeable {
         indexMem2.replacePage(srcIndxAddr, srcIndxSize);
         dataMem.jumpTo(offset);
         indexMem.jumpTo(valueCount * Long.BYTES);
-        indexMem.putLong(dataSize);
+        // deduplication may have left out some of the values
+        indexMem.putLong(offset);
     }
 
     private void o3TimestampSetter(long timestamp) {
@@ -3750,6 +4656,11 @@ public class TableWriter implements Closeable {
 
             assert columnCount > 0;
 
+            if (compositeIndexer != null) {
+                createIndexFiles(COMPOSITE_INDEX_NAME, configuration.getIndexValueBlockSize(), plen, txWriter.getTransientRowCount() < 1);
+                compositeIndexer.closeSlider();
+            }
+
             for (int i = 0; i < columnCount; i++) {
                 final CharSequence name = metadata.getColumnName(i);
                 final ColumnIndexer indexer = metadata.isColumnIndexed(i) ? indexers.getQuick(i) : null;
@@ -3769,8 +4680,22 @@ public class TableWriter implements Closeable {
 
                 if (indexer != null) {
                     indexer.configureFollowerAndWriter(configuration, path, name, getPrimaryColumn(i), columnTop);
+                } else if (isBloomFilterIndexed(metaMem, i)) {
+                    ((BloomFilterIndexer) indexers.getQuick(i)).configure(
+                            configuration,
+                            path,
+                            name,
+                            getPrimaryColumn(i),
+                            getSecondaryColumn(i),
+                            columnTop
+                    );
+                } else if (isGeoHashIndexed(metaMem, i)) {
+                    indexers.getQuick(i).configureFollowerAndWriter(configuration, path, name, getPrimaryColumn(i), columnTop);
                 }
             }
+            if (compositeIndexer != null) {
+                configureCompositeIndexer(plen);
+            }
             populateDenseIndexerList();
             LOG.info().$("switched partition [path='").$(path).I$();
         } catch (Throwable e) {
@@ -3826,6 +4751,9 @@ public class TableWriter implements Closeable {
                 denseIndexers.add(indexer);
             }
         }
+        if (compositeIndexer != null) {
+            denseIndexers.add(compositeIndexer);
+        }
         indexCount = denseIndexers.size();
     }
 
@@ -3854,26 +4782,139 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void purgeRetiredPartitions() {
+        final RingQueue<O3PurgeTask> purgeQueue = messageBus.getO3PurgeQueue();
+        final Sequence purgePubSeq = messageBus.getO3PurgePubSeq();
+        boolean volumesChanged = false;
+        int purged = 0;
+        for (int n = retiredPartitions.size(); purged < n; purged += 3) {
+            final long txn = retiredPartitions.getQuick(purged + 2);
+            if (!isTxnUnused(txn)) {
+                // partitions are ordered by retire txn, later partitions are in use too
+                break;
+            }
+            final long timestamp = retiredPartitions.getQuick(purged);
+            final long nameTxn = retiredPartitions.getQuick(purged + 1);
+            final String volume = retiredPartitionVolumes.getQuick(purged / 3);
+            if (volume != null) {
+                // purge job resolves partitions in table directory only
+                final int errno = O3PurgeJob.purgePartitionDir(
+                        ff,
+                        PartitionVolumes.setVolumeTablePath(configuration, volumePath, volume, tableName),
+                        partitionBy,
+                        timestamp,
+                        txnScoreboard,
+                        nameTxn,
+                        txn - 1
+                );
+                if (errno != 0) {
+                    LOG.error().$("could not purge partition on volume [table=").$(tableName)
+                            .$(", volume=").$(volume)
+                            .$(", ts=").$ts(timestamp)
+                            .$(", errno=").$(errno)
+                            .$(']').$();
+                }
+                partitionVolumes.remove(timestamp, nameTxn);
+                volumesChanged = true;
+                continue;
+            }
+            long cursor = purgePubSeq != null ? purgePubSeq.next() : -1;
+            while (cursor == -2) {
+                cursor = purgePubSeq.next();
+            }
+            if (cursor > -1) {
+                purgeQueue.get(cursor).of(tableName, partitionBy, txnScoreboard, timestamp, nameTxn, txn - 1);
+                purgePubSeq.done(cursor);
+            } else {
+                // queue is full, remove directory here
+                final int errno = O3PurgeJob.purgePartitionDir(
+                        ff,
+                        other,
+                        partitionBy,
+                        timestamp,
+                        txnScoreboard,
+                        nameTxn,
+                        txn - 1
+                );
+                other.trimTo(rootLen);
+                if (errno != 0) {
+                    LOG.error().$("could not purge retired partition [table=").$(tableName)
+                            .$(", ts=").$ts(timestamp)
+                            .$(", errno=").$(errno)
+                            .$(']').$();
+                }
+            }
+        }
+        if (purged > 0) {
+            retiredPartitions.removeIndexBlock(0, purged);
+            retiredPartitionVolumes.remove(0, purged / 3 - 1);
+        }
+        if (volumesChanged) {
+            partitionVolumes.save(ff, other.trimTo(rootLen));
+        }
+    }
+
+    private void retirePartition(long timestamp, long nameTxn, long txn, @Nullable String volume) {
+        retiredPartitions.add(timestamp);
+        retiredPartitions.add(nameTxn);
+        retiredPartitions.add(txn);
+        retiredPartitionVolumes.add(volume);
+    }
+
+    /**
+     * Partition directories on volumes that are not the current version of attached partition were
+     * left behind by writer that closed while readers used them. Readers may still use them, they
+     * are purged as soon as readers move on.
+     */
+    private void retireUnusedVolumePartitions() {
+        for (int i = 0, n = partitionVolumes.size(); i < n; i++) {
+            final long timestamp = partitionVolumes.getTimestamp(i);
+            final long nameTxn = partitionVolumes.getNameTxn(i);
+            final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(timestamp);
+            if (partitionIndex < 0 || txWriter.getPartitionNameTxnByIndex(partitionIndex) != nameTxn) {
+                retirePartition(timestamp, nameTxn, txWriter.getTxn(), partitionVolumes.getVolumeQuick(i));
+            }
+        }
+    }
+
+    /**
+     * Checks that no reader uses transactions older than the given one. Scoreboard is a ring, once
+     * the range is longer than the ring all entries are checked and newer readers may give a false
+     * "in use" answer, which only postpones the purge.
+     */
+    private boolean isTxnUnused(long txn) {
+        final long lo = Math.max(txnScoreboard.getMin(), txn - configuration.getTxnScoreboardEntryCount());
+        for (long t = Math.max(lo, 0); t < txn; t++) {
+            if (txnScoreboard.getActiveReaderCount(t) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private long readMinTimestamp(long partitionTimestamp) {
-        setStateForTimestamp(other, partitionTimestamp, false);
+        final Path path = setPartitionPath(other, partitionTimestamp);
+        final int plen = path.length();
         try {
-            dFile(other, metadata.getColumnName(metadata.getTimestampIndex()));
-            if (ff.exists(other)) {
+            dFile(path, metadata.getColumnName(metadata.getTimestampIndex()));
+            if (ff.exists(path)) {
                 // read min timestamp value
-                final long fd = TableUtils.openRO(ff, other, LOG);
+                final long fd = TableUtils.openRO(ff, path, LOG);
                 try {
                     return TableUtils.readLongOrFail(
                             ff,
                             fd,
                             0,
                             tempMem16b,
-                            other
+                            path
                     );
                 } finally {
                     ff.close(fd);
                 }
+            } else if (partitionCompressor.isCompressed(path.trimTo(plen))) {
+                return partitionCompressor.readMinTimestamp(path);
             } else {
-                throw CairoException.instance(0).put("Partition does not exist [path=").put(other).put(']');
+                throw CairoException.instance(0).put("Partition does not exist [path=").put(path).put(']');
             }
         } finally {
             other.trimTo(rootLen);
@@ -3949,10 +4990,15 @@ public class TableWriter implements Closeable {
                     path.concat(nativeLPSZ);
                     int plen = path.length();
                     removeLambda.remove(ff, dFile(path, columnName));
+                    removeLambda.remove(ff, dzFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, PostingIndexUtils.keyFileName(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, PostingIndexUtils.valueFileName(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, BloomFilterUtils.fileName(path.trimTo(plen), columnName));
+                    removeLambda.remove(ff, GeoHashIndexUtils.fileName(path.trimTo(plen), columnName));
                 }
             });
 
@@ -4015,6 +5061,8 @@ public class TableWriter implements Closeable {
                     int plen = path.length();
                     removeFileAndOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
                     removeFileAndOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
+                    removeFileAndOrLog(ff, PostingIndexUtils.keyFileName(path.trimTo(plen), columnName));
+                    removeFileAndOrLog(ff, PostingIndexUtils.valueFileName(path.trimTo(plen), columnName));
                 }
             });
         } finally {
@@ -4055,6 +5103,25 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void removeVolumePartitionDirectories() {
+        // every partition directory is gone, there is nothing left to purge
+        retiredPartitions.clear();
+        retiredPartitionVolumes.clear();
+        if (partitionVolumes.size() > 0) {
+            for (int i = 0, n = partitionVolumes.size(); i < n; i++) {
+                PartitionVolumes.setVolumeTablePath(configuration, volumePath, partitionVolumes.getVolumeQuick(i), tableName);
+                setPathForPartition(volumePath, partitionBy, partitionVolumes.getTimestamp(i), false);
+                TableUtils.txnPartitionConditionally(volumePath, partitionVolumes.getNameTxn(i));
+                int errno;
+                if ((errno = ff.rmdir(volumePath.slash$())) != 0) {
+                    LOG.info().$("could not remove [path=").$(volumePath).$(", errno=").$(errno).$(']').$();
+                }
+            }
+            partitionVolumes.clear();
+            partitionVolumes.save(ff, path.trimTo(rootLen));
+        }
+    }
+
     private void removePartitionDirectories0(long name, int type) {
         path.trimTo(rootLen);
         path.concat(name).$();
@@ -4067,7 +5134,7 @@ public class TableWriter implements Closeable {
 
     private void removePartitionDirsNotAttached(long pName, int type) {
         nativeLPSZ.of(pName);
-        if (!isDots(nativeLPSZ) && type == Files.DT_DIR) {
+        if (IGNORED_FILES.excludes(nativeLPSZ) && type == Files.DT_DIR) {
             if (Chars.endsWith(nativeLPSZ, DETACHED_DIR_MARKER)) {
                 // Do not remove detached partitions
                 // They are probably about to be attached.
@@ -4176,10 +5243,15 @@ public class TableWriter implements Closeable {
                     other.concat(nativeLPSZ);
                     int plen = path.length();
                     renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, dzFile(path.trimTo(plen), columnName), dzFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName), BitmapIndexUtils.valueFileName(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, PostingIndexUtils.keyFileName(path.trimTo(plen), columnName), PostingIndexUtils.keyFileName(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, PostingIndexUtils.valueFileName(path.trimTo(plen), columnName), PostingIndexUtils.valueFileName(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, BloomFilterUtils.fileName(path.trimTo(plen), columnName), BloomFilterUtils.fileName(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, GeoHashIndexUtils.fileName(path.trimTo(plen), columnName), GeoHashIndexUtils.fileName(other.trimTo(plen), newName));
                 }
             });
 
@@ -4363,6 +5435,7 @@ public class TableWriter implements Closeable {
         LOG.info().$("repairing abnormally terminated truncate on ").$(path).$();
         if (partitionBy != PartitionBy.NONE) {
             removePartitionDirectories();
+            removeVolumePartitionDirectories();
         }
         txWriter.truncate();
         clearTodoLog();
@@ -4625,6 +5698,61 @@ public class TableWriter implements Closeable {
      * @param timestamp               to determine interval for
      * @param updatePartitionInterval flag indicating that partition interval partitionLo and
      */
+    /**
+     * Converts bitmap indexes of partition, which is no longer appended to, into posting indexes.
+     *
+     * @param path          path to partition directory
+     * @param partitionSize number of partition rows
+     */
+    private void sealIndexes(Path path, long partitionSize) {
+        final int plen = path.length();
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                if (metadata.isColumnIndexed(i) && ff.exists(BitmapIndexUtils.keyFileName(path.trimTo(plen), metadata.getColumnName(i)))) {
+                    final CharSequence columnName = metadata.getColumnName(i);
+                    try (
+                            BitmapIndexFwdReader reader = new BitmapIndexFwdReader(configuration, path.trimTo(plen), columnName, 0, -1);
+                            PostingIndexWriter writer = new PostingIndexWriter()
+                    ) {
+                        writer.of(configuration, path.trimTo(plen), columnName);
+                        writer.copyOf(reader, partitionSize);
+                    }
+                    removeOrException(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
+                    removeOrException(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
+                }
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Sets path to directory of attached partition, which is either in table directory or on storage volume.
+     *
+     * @param path path to table directory, used when partition is in table directory
+     * @return path to partition directory, either given path or path to volume
+     */
+    private Path setPartitionPath(Path path, long timestamp) {
+        if (partitionVolumes.size() > 0) {
+            final String volume = partitionVolumes.getVolume(timestamp, txWriter.getPartitionNameTxnByPartitionTimestamp(timestamp));
+            if (volume != null) {
+                PartitionVolumes.setVolumeTablePath(configuration, volumePath, volume, tableName);
+                setStateForTimestamp(volumePath, timestamp, false);
+                return volumePath;
+            }
+        }
+        setStateForTimestamp(path, timestamp, false);
+        return path;
+    }
+
+    private void reopenActivePartitionAfterUpdate() {
+        if (activePartitionClosedByUpdate) {
+            activePartitionClosedByUpdate = false;
+            openPartition(txWriter.getMaxTimestamp());
+            setAppendPosition(txWriter.getTransientRowCount(), false);
+        }
+    }
+
     private void setStateForTimestamp(Path path, long timestamp, boolean updatePartitionInterval) {
         final long partitionTimestampHi = TableUtils.setPathForPartition(path, partitionBy, timestamp, true);
         TableUtils.txnPartitionConditionally(
@@ -4641,6 +5769,8 @@ public class TableWriter implements Closeable {
         // added so far. Index writers will start point to different
         // files after switch.
         updateIndexes();
+        // partition is done with, statistics it lost to out of order commit are rebuilt here
+        updateZoneMap(true);
         txWriter.switchPartitions(timestamp);
         openPartition(timestamp);
         setAppendPosition(0, false);
@@ -4662,6 +5792,40 @@ public class TableWriter implements Closeable {
         throw new CairoError(cause);
     }
 
+    /**
+     * Converts posting indexes of partition back into bitmap indexes before rows are added to the partition.
+     *
+     * @param path          path to partition directory
+     * @param partitionSize number of partition rows
+     */
+    private void unsealIndexes(Path path, long partitionSize) {
+        final int plen = path.length();
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                if (metadata.isColumnIndexed(i) && ff.exists(PostingIndexUtils.keyFileName(path.trimTo(plen), metadata.getColumnName(i)))) {
+                    final CharSequence columnName = metadata.getColumnName(i);
+                    createIndexFiles(path, columnName, metadata.getIndexValueBlockCapacity(i), plen, true);
+                    try (
+                            PostingIndexFwdReader reader = new PostingIndexFwdReader(configuration, path.trimTo(plen), columnName, 0, -1);
+                            BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path.trimTo(plen), columnName)
+                    ) {
+                        for (int key = 0, n = reader.getKeyCount(); key < n; key++) {
+                            final RowCursor cursor = reader.getCursor(true, key, 0, Long.MAX_VALUE);
+                            while (cursor.hasNext()) {
+                                writer.add(key, cursor.next());
+                            }
+                        }
+                        writer.setMaxValue(partitionSize - 1);
+                    }
+                    removeOrException(ff, PostingIndexUtils.keyFileName(path.trimTo(plen), columnName));
+                    removeOrException(ff, PostingIndexUtils.valueFileName(path.trimTo(plen), columnName));
+                }
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
     private void updateIndexes() {
         if (indexCount == 0 || avoidIndexOnCommit) {
             avoidIndexOnCommit = false;
@@ -4786,6 +5950,19 @@ public class TableWriter implements Closeable {
         this.timestampSetter.accept(timestamp);
     }
 
+    private void updateZoneMap(boolean rescan) {
+        final long rowCount = txWriter.getTransientRowCount();
+        if (zoneMapWriter != null && rowCount > 0) {
+            zoneMapWriter.update(
+                    partitionBy == PartitionBy.NONE ? Long.MIN_VALUE : getPartitionLo(partitionTimestampHi),
+                    rowCount,
+                    columns,
+                    columnTops,
+                    rescan
+            );
+        }
+    }
+
     private void validateSwapMeta(CharSequence columnName) {
         try {
             try {
@@ -4815,10 +5992,30 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (isDedupKey(metaMem, i)) {
+            flags |= META_FLAG_BIT_DEDUP_KEY;
+        }
+
+        if (isBloomFilterIndexed(metaMem, i)) {
+            flags |= META_FLAG_BIT_BLOOM_FILTER;
+        }
+
+        if (hasColumnDefault(metaMem, i)) {
+            flags |= META_FLAG_BIT_DEFAULT;
+        }
+
+        if (getCompositeIndexPosition(metaMem, i) > -1) {
+            flags |= compositeIndexFlags(getCompositeIndexPosition(metaMem, i));
+        }
+
+        if (isGeoHashIndexed(metaMem, i)) {
+            flags |= META_FLAG_BIT_GEOHASH_INDEX;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.putLong(getColumnHash(metaMem, i));
-        ddlMem.skip(8);
+        ddlMem.putLong(getColumnDefault(metaMem, i));
     }
 
     private void writeColumnTop(CharSequence name) {
@@ -5021,29 +6218,8 @@ public class TableWriter implements Closeable {
 
         @Override
         public void putGeoStr(int index, CharSequence hash) {
-            long val;
             final int type = metadata.getColumnType(index);
-            if (hash != null) {
-                final int hashLen = hash.length();
-                final int typeBits = ColumnType.getGeoHashBits(type);
-                final int charsRequired = (typeBits - 1) / 5 + 1;
-                if (hashLen < charsRequired) {
-                    val = GeoHashes.NULL;
-                } else {
-                    try {
-                        val = ColumnType.truncateGeoHashBits(
-                                GeoHashes.fromString(hash, 0, charsRequired),
-                                charsRequired * 5,
-                                typeBits
-                        );
-                    } catch (NumericException e) {
-                        val = GeoHashes.NULL;
-                    }
-                }
-            } else {
-                val = GeoHashes.NULL;
-            }
-            putGeoHash0(index, val, type);
+            putGeoHash0(index, geoHashOf(hash, type), type);
         }
 
         @Override
@@ -5175,5 +6351,6 @@ public class TableWriter implements Closeable {
         IGNORED_FILES.add(META_FILE_NAME);
         IGNORED_FILES.add(TXN_FILE_NAME);
         IGNORED_FILES.add(TODO_FILE_NAME);
+        IGNORED_FILES.add(WAL_DIR_NAME);
     }
 }
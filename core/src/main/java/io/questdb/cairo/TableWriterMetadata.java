@@ -37,6 +37,7 @@ public class TableWriterMetadata extends BaseRecordMetadata {
     private final int id;
     private int maxUncommittedRows;
     private long commitLag;
+    private int ttl;
     private final int metaFileSize;
 
     public TableWriterMetadata(FilesFacade ff, MemoryMR metaMem) {
@@ -46,6 +47,7 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         this.id = metaMem.getInt(TableUtils.META_OFFSET_TABLE_ID);
         this.maxUncommittedRows = metaMem.getInt(TableUtils.META_OFFSET_MAX_UNCOMMITTED_ROWS);
         this.commitLag = metaMem.getLong(TableUtils.META_OFFSET_COMMIT_LAG);
+        this.ttl = metaMem.getInt(TableUtils.META_OFFSET_TTL);
         TableUtils.validate(ff, metaMem, columnNameIndexMap, ColumnType.VERSION);
         this.timestampIndex = metaMem.getInt(TableUtils.META_OFFSET_TIMESTAMP_INDEX);
         this.columnMetadata = new ObjList<>(this.columnCount);
@@ -57,17 +59,19 @@ public class TableWriterMetadata extends BaseRecordMetadata {
             CharSequence name = metaMem.getStr(offset);
             assert name != null;
             int type = TableUtils.getColumnType(metaMem, i);
-            columnMetadata.add(
-                    new TableColumnMetadata(
-                            Chars.toString(name),
-                            TableUtils.getColumnHash(metaMem, i),
-                            type,
-                            TableUtils.isColumnIndexed(metaMem, i),
-                            TableUtils.getIndexBlockCapacity(metaMem, i),
-                            true,
-                            null
-                    )
+            final TableColumnMetadata column = new TableColumnMetadata(
+                    Chars.toString(name),
+                    TableUtils.getColumnHash(metaMem, i),
+                    type,
+                    TableUtils.isColumnIndexed(metaMem, i),
+                    TableUtils.getIndexBlockCapacity(metaMem, i),
+                    true,
+                    null
             );
+            if (TableUtils.hasColumnDefault(metaMem, i)) {
+                column.setDefaultValue(TableUtils.getColumnDefault(metaMem, i));
+            }
+            columnMetadata.add(column);
             if (ColumnType.isSymbol(type)) {
                 symbolMapCount++;
             }
@@ -158,6 +162,14 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         this.commitLag = micros;
     }
 
+    public int getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(int ttl) {
+        this.ttl = ttl;
+    }
+
     public int getFileDataSize() {
         return metaFileSize;
     }
@@ -116,6 +116,10 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
         return prevTransientRowCount;
     }
 
+    public long getCommittedMaxTimestamp() {
+        return txMem.getLong(TX_OFFSET_MAX_TIMESTAMP);
+    }
+
     @Override
     public void close() {
         try {
@@ -385,6 +389,11 @@ public final class TxWriter extends TxReader implements Closeable, SymbolValueCo
         }
     }
 
+    void updatePartitionDataTxnByIndex(int index) {
+        attachedPartitions.set(index + PARTITION_DATA_TX_OFFSET, txn);
+        attachedPositionDirtyIndex = Math.min(attachedPositionDirtyIndex, index);
+    }
+
     void updatePartitionSizeByIndexAndTxn(int index, long partitionSize) {
         attachedPartitions.set(index + PARTITION_SIZE_OFFSET, partitionSize);
         attachedPartitions.set(index + PARTITION_NAME_TX_OFFSET, txn);
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Reads partition statistics maintained by {@link ZoneMapWriter}. Statistics of one partition
+ * are copied out of the file at a time, values are consistent with each other and cover
+ * at least the rows reader can see.
+ */
+public class ZoneMapReader implements Closeable {
+    private final FilesFacade ff;
+    private final LongIntHashMap blockIndexes = new LongIntHashMap();
+    private final LongList stats = new LongList();
+    private final MemoryMR mem = Vm.getMRInstance();
+    private int indexedBlockCount;
+    private int indexedColumnCount;
+    private long rowCount;
+
+    public ZoneMapReader(FilesFacade ff) {
+        this.ff = ff;
+    }
+
+    @Override
+    public void close() {
+        mem.close();
+        blockIndexes.clear();
+        indexedBlockCount = 0;
+    }
+
+    public long getMax(int columnIndex) {
+        return stats.getQuick(columnIndex * ZONE_MAP_LONGS_PER_COLUMN + 1);
+    }
+
+    public double getMaxDouble(int columnIndex) {
+        return Double.longBitsToDouble(getMax(columnIndex));
+    }
+
+    public long getMin(int columnIndex) {
+        return stats.getQuick(columnIndex * ZONE_MAP_LONGS_PER_COLUMN);
+    }
+
+    public double getMinDouble(int columnIndex) {
+        return Double.longBitsToDouble(getMin(columnIndex));
+    }
+
+    public long getNullCount(int columnIndex) {
+        return stats.getQuick(columnIndex * ZONE_MAP_LONGS_PER_COLUMN + 2);
+    }
+
+    /**
+     * @return number of rows statistics were collected from, it is never less than
+     * partition row count visible to the reader
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isOpen() {
+        return mem.getFd() != -1;
+    }
+
+    /**
+     * Copies statistics of partition. Statistics are unavailable when partition has not been
+     * scanned, was modified out of order, or when table structure has changed since.
+     *
+     * @param partitionTimestamp floor of partition timestamp
+     * @param partitionRowCount  partition row count visible to the reader
+     * @param columnCount        column count of reader metadata
+     * @param structureVersion   structure version of reader
+     * @return true when statistics are available
+     */
+    public boolean load(long partitionTimestamp, long partitionRowCount, int columnCount, long structureVersion) {
+        if (!isOpen()) {
+            return false;
+        }
+
+        final long blockCount = mem.getLong(ZONE_MAP_OFFSET_BLOCK_COUNT);
+        Unsafe.getUnsafe().loadFence();
+        if (mem.getLong(ZONE_MAP_OFFSET_COLUMN_COUNT) != columnCount) {
+            return false;
+        }
+
+        if (indexedColumnCount != columnCount || indexedBlockCount > blockCount) {
+            blockIndexes.clear();
+            indexedBlockCount = 0;
+            indexedColumnCount = columnCount;
+        }
+
+        if (indexedBlockCount < blockCount) {
+            mem.extend(getZoneMapBlockOffset(columnCount, (int) blockCount));
+            for (int i = indexedBlockCount; i < blockCount; i++) {
+                blockIndexes.put(mem.getLong(getZoneMapBlockOffset(columnCount, i) + ZONE_MAP_BLOCK_OFFSET_PARTITION_TIMESTAMP), i);
+            }
+            indexedBlockCount = (int) blockCount;
+        }
+
+        final int blockIndex = blockIndexes.get(partitionTimestamp);
+        if (blockIndex < 0) {
+            return false;
+        }
+
+        final long offset = getZoneMapBlockOffset(columnCount, blockIndex);
+        final long sequence = mem.getLong(offset + ZONE_MAP_BLOCK_OFFSET_SEQUENCE);
+        if ((sequence & 1) != 0) {
+            // block is being updated
+            return false;
+        }
+        Unsafe.getUnsafe().loadFence();
+
+        final long timestamp = mem.getLong(offset + ZONE_MAP_BLOCK_OFFSET_PARTITION_TIMESTAMP);
+        final long version = mem.getLong(offset + ZONE_MAP_BLOCK_OFFSET_STRUCT_VERSION);
+        rowCount = mem.getLong(offset + ZONE_MAP_BLOCK_OFFSET_ROW_COUNT);
+        final int n = columnCount * ZONE_MAP_LONGS_PER_COLUMN;
+        stats.setPos(n);
+        for (int i = 0; i < n; i++) {
+            stats.setQuick(i, mem.getLong(offset + ZONE_MAP_BLOCK_HEADER_SIZE + i * 8L));
+        }
+
+        Unsafe.getUnsafe().loadFence();
+        if (mem.getLong(offset + ZONE_MAP_BLOCK_OFFSET_SEQUENCE) != sequence) {
+            return false;
+        }
+
+        if (timestamp != partitionTimestamp) {
+            // block has been reused for another partition
+            blockIndexes.clear();
+            indexedBlockCount = 0;
+            return false;
+        }
+
+        // invalidated block has negative row count
+        return version == structureVersion && rowCount > -1 && rowCount >= partitionRowCount;
+    }
+
+    /**
+     * Opens zone map file of table when it exists.
+     *
+     * @param path path to table directory, it is left unchanged
+     */
+    public void of(Path path) {
+        final int plen = path.length();
+        try {
+            if (ff.exists(path.concat(ZONE_MAP_FILE_NAME).$())) {
+                final long fileSize = ff.length(path);
+                if (fileSize >= ZONE_MAP_HEADER_SIZE) {
+                    mem.of(ff, path, 0, fileSize, MemoryTag.MMAP_TABLE_READER);
+                }
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.cairo.vm.api.MemoryMAR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Maintains per-partition min, max and null count of fixed size numeric columns in
+ * the zone map file. Statistics of the active partition are brought up to date on
+ * commit before transaction file is written, which means readers always find statistics
+ * that cover at least the rows of their transaction. Partitions rewritten out of order
+ * lose their statistics until the writer moves past them.
+ * <p>
+ * Each block is guarded by a sequence number, which is odd while the block is updated.
+ * Readers copy block values and discard the copy when sequence has moved.
+ */
+public class ZoneMapWriter implements Closeable {
+    private static final Log LOG = LogFactory.getLog(ZoneMapWriter.class);
+    private final FilesFacade ff;
+    private final TableWriterMetadata metadata;
+    private final TxReader txFile;
+    private final LongIntHashMap blockIndexes = new LongIntHashMap();
+    private final LongList stats = new LongList();
+    private MemoryCMARW mem;
+    private int columnCount;
+    private int blockCount;
+    private long structureVersion;
+
+    public ZoneMapWriter(FilesFacade ff, Path path, TableWriterMetadata metadata, TxReader txFile) {
+        this.ff = ff;
+        this.metadata = metadata;
+        this.txFile = txFile;
+        final int plen = path.length();
+        try {
+            path.concat(ZONE_MAP_FILE_NAME).$();
+            // existing file is mapped in full, its size is where the blocks end
+            this.mem = Vm.getCMARWInstance(ff, path, ff.getPageSize(), ff.length(path), MemoryTag.MMAP_TABLE_WRITER);
+            load();
+        } catch (Throwable e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (mem != null) {
+            mem.jumpTo(getZoneMapBlockOffset(columnCount, blockCount));
+            mem = Misc.free(mem);
+        }
+    }
+
+    /**
+     * Drops statistics of partition. Rows of the partition are about to change in ways
+     * statistics cannot follow incrementally.
+     *
+     * @param partitionTimestamp floor of partition timestamp
+     */
+    public void invalidate(long partitionTimestamp) {
+        checkStructureVersion();
+        final int blockIndex = blockIndexes.get(partitionTimestamp);
+        if (blockIndex > -1) {
+            invalidateBlock(getZoneMapBlockOffset(columnCount, blockIndex));
+        }
+    }
+
+    /**
+     * Drops statistics of all partitions starting from the given one. Out of order commit
+     * merges rows into every partition at or after the lowest out of order timestamp.
+     *
+     * @param partitionTimestamp floor of the first affected partition timestamp
+     */
+    public void invalidateFrom(long partitionTimestamp) {
+        checkStructureVersion();
+        for (int i = 0; i < blockCount; i++) {
+            final long offset = getZoneMapBlockOffset(columnCount, i);
+            if (mem.getLong(offset + ZONE_MAP_BLOCK_OFFSET_PARTITION_TIMESTAMP) >= partitionTimestamp) {
+                invalidateBlock(offset);
+            }
+        }
+    }
+
+    /**
+     * Drops all statistics. Column layout is re-read from table metadata, which is
+     * why this method must be called after column has been added or removed.
+     */
+    public void reset() {
+        columnCount = metadata.getColumnCount();
+        blockCount = 0;
+        blockIndexes.clear();
+        structureVersion = txFile.getStructureVersion();
+        // blocks are dropped before layout changes, readers stop looking at the file
+        mem.putLong(ZONE_MAP_OFFSET_BLOCK_COUNT, 0);
+        Unsafe.getUnsafe().storeFence();
+        mem.putLong(ZONE_MAP_OFFSET_COLUMN_COUNT, columnCount);
+    }
+
+    /**
+     * Brings statistics of partition up to date with its rows. Only rows that have not been
+     * seen before are scanned. Partitions, which statistics were invalidated, are skipped
+     * unless rescan is requested.
+     *
+     * @param partitionTimestamp floor of partition timestamp
+     * @param rowCount           number of rows in the partition
+     * @param columns            column memory of the partition, primary column of column i is at i * 2
+     * @param columnTops         column tops of the partition
+     * @param rescan             true to rebuild invalidated statistics from the first row
+     */
+    public void update(long partitionTimestamp, long rowCount, ObjList<MemoryMAR> columns, LongList columnTops, boolean rescan) {
+        checkStructureVersion();
+        int blockIndex = blockIndexes.get(partitionTimestamp);
+        final boolean newBlock = blockIndex == -1;
+        long rowLo = 0;
+        if (newBlock) {
+            blockIndex = blockCount;
+        } else {
+            final long coveredRowCount = mem.getLong(getZoneMapBlockOffset(columnCount, blockIndex) + ZONE_MAP_BLOCK_OFFSET_ROW_COUNT);
+            if (coveredRowCount < 0 && !rescan) {
+                return;
+            }
+            // rows could have been removed from the partition, start over in that case
+            if (coveredRowCount > 0 && coveredRowCount <= rowCount) {
+                rowLo = coveredRowCount;
+            }
+        }
+
+        if (rowLo == rowCount) {
+            return;
+        }
+
+        final long offset = getZoneMapBlockOffset(columnCount, blockIndex);
+        loadStats(offset, rowLo > 0);
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (isZoneMapColumnType(columnType)) {
+                final MemoryMAR column = columns.getQuick(i * 2);
+                if (column == null || !column.isOpen()) {
+                    LOG.info().$("zone map is not updated, column is not open [partitionTimestamp=").$ts(partitionTimestamp)
+                            .$(", column=").$(metadata.getColumnName(i))
+                            .I$();
+                    if (!newBlock) {
+                        invalidateBlock(offset);
+                    }
+                    return;
+                }
+                updateColumnStats(i, columnType, column, columnTops.getQuick(i), rowLo, rowCount);
+            }
+        }
+
+        if (newBlock) {
+            // block is past the end of file or holds leftovers of blocks dropped by reset
+            mem.putLong(offset + ZONE_MAP_BLOCK_OFFSET_SEQUENCE, 0);
+        }
+        final long sequence = beginBlockUpdate(offset);
+        mem.putLong(offset + ZONE_MAP_BLOCK_OFFSET_PARTITION_TIMESTAMP, partitionTimestamp);
+        mem.putLong(offset + ZONE_MAP_BLOCK_OFFSET_STRUCT_VERSION, structureVersion);
+        mem.putLong(offset + ZONE_MAP_BLOCK_OFFSET_ROW_COUNT, rowCount);
+        for (int i = 0, n = stats.size(); i < n; i++) {
+            mem.putLong(offset + ZONE_MAP_BLOCK_HEADER_SIZE + i * 8L, stats.getQuick(i));
+        }
+        endBlockUpdate(offset, sequence);
+
+        if (newBlock) {
+            blockIndexes.put(partitionTimestamp, blockIndex);
+            blockCount++;
+            mem.putLong(ZONE_MAP_OFFSET_BLOCK_COUNT, blockCount);
+        }
+    }
+
+    private long beginBlockUpdate(long offset) {
+        final long sequence = mem.getLong(offset + ZONE_MAP_BLOCK_OFFSET_SEQUENCE) + 1;
+        mem.putLong(offset + ZONE_MAP_BLOCK_OFFSET_SEQUENCE, sequence);
+        Unsafe.getUnsafe().storeFence();
+        return sequence;
+    }
+
+    private void checkStructureVersion() {
+        // column layout changes reset the file, structure changes that keep columns
+        // where they are leave statistics valid for the new version
+        final long version = txFile.getStructureVersion();
+        if (version != structureVersion) {
+            for (int i = 0; i < blockCount; i++) {
+                final long offset = getZoneMapBlockOffset(columnCount, i);
+                final long sequence = beginBlockUpdate(offset);
+                mem.putLong(offset + ZONE_MAP_BLOCK_OFFSET_STRUCT_VERSION, version);
+                endBlockUpdate(offset, sequence);
+            }
+            structureVersion = version;
+        }
+    }
+
+    private void endBlockUpdate(long offset, long sequence) {
+        Unsafe.getUnsafe().storeFence();
+        mem.putLong(offset + ZONE_MAP_BLOCK_OFFSET_SEQUENCE, sequence + 1);
+    }
+
+    private void invalidateBlock(long offset) {
+        final long sequence = beginBlockUpdate(offset);
+        mem.putLong(offset + ZONE_MAP_BLOCK_OFFSET_ROW_COUNT, -1);
+        endBlockUpdate(offset, sequence);
+    }
+
+    private void load() {
+        final long fileSize = mem.getAppendOffset();
+        if (fileSize < ZONE_MAP_HEADER_SIZE) {
+            reset();
+            return;
+        }
+        columnCount = (int) mem.getLong(ZONE_MAP_OFFSET_COLUMN_COUNT);
+        blockCount = (int) mem.getLong(ZONE_MAP_OFFSET_BLOCK_COUNT);
+        structureVersion = txFile.getStructureVersion();
+        if (columnCount != metadata.getColumnCount() || blockCount < 0 || getZoneMapBlockOffset(columnCount, blockCount) > fileSize) {
+            reset();
+            return;
+        }
+        blockIndexes.clear();
+        for (int i = 0; i < blockCount; i++) {
+            final long offset = getZoneMapBlockOffset(columnCount, i);
+            if (mem.getLong(offset + ZONE_MAP_BLOCK_OFFSET_STRUCT_VERSION) != structureVersion) {
+                // writer stopped between structure change and zone map reset
+                reset();
+                return;
+            }
+            blockIndexes.put(mem.getLong(offset + ZONE_MAP_BLOCK_OFFSET_PARTITION_TIMESTAMP), i);
+        }
+    }
+
+    private void loadStats(long offset, boolean existing) {
+        stats.setPos(columnCount * ZONE_MAP_LONGS_PER_COLUMN);
+        for (int i = 0; i < columnCount; i++) {
+            final int index = i * ZONE_MAP_LONGS_PER_COLUMN;
+            if (existing) {
+                final long columnOffset = offset + getZoneMapColumnOffset(i);
+                stats.setQuick(index, mem.getLong(columnOffset));
+                stats.setQuick(index + 1, mem.getLong(columnOffset + Long.BYTES));
+                stats.setQuick(index + 2, mem.getLong(columnOffset + 2 * Long.BYTES));
+            } else {
+                final int columnType = metadata.getColumnType(i);
+                if (columnType == ColumnType.FLOAT || columnType == ColumnType.DOUBLE) {
+                    stats.setQuick(index, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+                    stats.setQuick(index + 1, Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY));
+                } else {
+                    stats.setQuick(index, Long.MAX_VALUE);
+                    stats.setQuick(index + 1, Long.MIN_VALUE);
+                }
+                stats.setQuick(index + 2, 0);
+            }
+        }
+    }
+
+    private void scanColumnValues(int index, int columnType, long lo, long hi) {
+        long min = stats.getQuick(index);
+        long max = stats.getQuick(index + 1);
+        long nullCount = stats.getQuick(index + 2);
+        switch (columnType) {
+            case ColumnType.BYTE:
+                for (long p = lo; p < hi; p++) {
+                    final byte value = Unsafe.getUnsafe().getByte(p);
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                break;
+            case ColumnType.SHORT:
+                for (long p = lo; p < hi; p += Short.BYTES) {
+                    final short value = Unsafe.getUnsafe().getShort(p);
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                break;
+            case ColumnType.INT:
+                for (long p = lo; p < hi; p += Integer.BYTES) {
+                    final int value = Unsafe.getUnsafe().getInt(p);
+                    if (value == Numbers.INT_NaN) {
+                        nullCount++;
+                    } else {
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                }
+                break;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                double minDouble = Double.longBitsToDouble(min);
+                double maxDouble = Double.longBitsToDouble(max);
+                final boolean isFloat = columnType == ColumnType.FLOAT;
+                for (long p = lo; p < hi; p += isFloat ? Float.BYTES : Double.BYTES) {
+                    final double value = isFloat ? Unsafe.getUnsafe().getFloat(p) : Unsafe.getUnsafe().getDouble(p);
+                    if (Double.isNaN(value)) {
+                        nullCount++;
+                    } else {
+                        minDouble = Math.min(minDouble, value);
+                        maxDouble = Math.max(maxDouble, value);
+                    }
+                }
+                min = Double.doubleToRawLongBits(minDouble);
+                max = Double.doubleToRawLongBits(maxDouble);
+                break;
+            default:
+                for (long p = lo; p < hi; p += Long.BYTES) {
+                    final long value = Unsafe.getUnsafe().getLong(p);
+                    if (value == Numbers.LONG_NaN) {
+                        nullCount++;
+                    } else {
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                }
+                break;
+        }
+        stats.setQuick(index, min);
+        stats.setQuick(index + 1, max);
+        stats.setQuick(index + 2, nullCount);
+    }
+
+    private void updateColumnStats(int columnIndex, int columnType, MemoryMAR column, long columnTop, long rowLo, long rowHi) {
+        final int index = columnIndex * ZONE_MAP_LONGS_PER_COLUMN;
+        if (rowLo < columnTop) {
+            final long topRowCount = Math.min(rowHi, columnTop) - rowLo;
+            if (metadata.hasColumnDefault(columnIndex)) {
+                // rows above column top read as column default
+                widenColumnStats(index, columnType, metadata.getColumnDefault(columnIndex));
+            } else if (columnType == ColumnType.BYTE || columnType == ColumnType.SHORT) {
+                // these types have no null, rows above column top read as zero
+                stats.setQuick(index, Math.min(stats.getQuick(index), 0));
+                stats.setQuick(index + 1, Math.max(stats.getQuick(index + 1), 0));
+            } else {
+                stats.setQuick(index + 2, stats.getQuick(index + 2) + topRowCount);
+            }
+            rowLo += topRowCount;
+        }
+
+        if (rowLo < rowHi) {
+            final int shl = ColumnType.pow2SizeOf(columnType);
+            final long offsetLo = (rowLo - columnTop) << shl;
+            final long offsetHi = (rowHi - columnTop) << shl;
+
+            // rows of a typical commit are still in the page writer has mapped
+            final int page = column.pageIndex(offsetLo);
+            final long pageAddress = column.getPageAddress(page);
+            if (pageAddress != 0 && page == column.pageIndex(offsetHi - 1)) {
+                final long lo = pageAddress + column.offsetInPage(offsetLo);
+                scanColumnValues(index, columnType, lo, lo + offsetHi - offsetLo);
+                return;
+            }
+
+            final long mapOffset = offsetLo - offsetLo % ff.getPageSize();
+            final long mapSize = offsetHi - mapOffset;
+            final long mapAddress = TableUtils.mapRO(ff, column.getFd(), mapSize, mapOffset, MemoryTag.MMAP_TABLE_WRITER);
+            try {
+                scanColumnValues(index, columnType, mapAddress + offsetLo - mapOffset, mapAddress + mapSize);
+            } finally {
+                ff.munmap(mapAddress, mapSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+        }
+    }
+
+    private void widenColumnStats(int index, int columnType, long value) {
+        if (columnType == ColumnType.FLOAT || columnType == ColumnType.DOUBLE) {
+            final double d = columnType == ColumnType.FLOAT ? Float.intBitsToFloat((int) value) : Double.longBitsToDouble(value);
+            stats.setQuick(index, Double.doubleToRawLongBits(Math.min(Double.longBitsToDouble(stats.getQuick(index)), d)));
+            stats.setQuick(index + 1, Double.doubleToRawLongBits(Math.max(Double.longBitsToDouble(stats.getQuick(index + 1)), d)));
+        } else {
+            stats.setQuick(index, Math.min(stats.getQuick(index), value));
+            stats.setQuick(index + 1, Math.max(stats.getQuick(index + 1), value));
+        }
+    }
+}
@@ -32,6 +32,8 @@ import io.questdb.std.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Closeable;
+
 public class FastMap implements Map {
 
     private static final HashFunction DEFAULT_HASH = Hash::hashMem;
@@ -58,6 +60,9 @@ public class FastMap implements Map {
     private int mask;
     private int nResizes;
     private final int maxResizes;
+    private final int[] valueOffsets;
+    private SpillFile spillFile;
+    private long spillThreshold;
 
     public FastMap(int pageSize,
                    @Transient @NotNull ColumnTypes keyTypes,
@@ -147,6 +152,7 @@ public class FastMap implements Map {
                         throw CairoException.instance(0).put("value type is not supported: ").put(ColumnType.nameOf(columnType));
                 }
             }
+            this.valueOffsets = valueOffsets;
             this.value = new FastMapValue(valueOffsets);
             this.value2 = new FastMapValue(valueOffsets);
             this.value3 = new FastMapValue(valueOffsets);
@@ -155,6 +161,7 @@ public class FastMap implements Map {
             this.record = new FastMapRecord(valueOffsets, columnSplit, keyDataOffset, keyBlockOffset, value, keyTypes);
         } else {
             this.valueColumnCount = 0;
+            this.valueOffsets = null;
             this.value = new FastMapValue(null);
             this.value2 = new FastMapValue(null);
             this.value3 = new FastMapValue(null);
@@ -217,7 +224,11 @@ public class FastMap implements Map {
     public final void close() {
         offsets = Misc.free(offsets);
         if (kStart != 0) {
-            Unsafe.free(kStart, capacity, MemoryTag.NATIVE_FAST_MAP);
+            if (spillFile != null && spillFile.isOpen()) {
+                spillFile.release();
+            } else {
+                Unsafe.free(kStart, capacity, MemoryTag.NATIVE_FAST_MAP);
+            }
             kStart = 0;
         }
     }
@@ -237,6 +248,69 @@ public class FastMap implements Map {
         return size;
     }
 
+    /**
+     * Merges entries of another map into this map. Both maps must have the same key and
+     * value types. Keys missing in this map are copied along with their values, values of
+     * keys present in both maps are combined by merge function.
+     *
+     * @param srcMap        map to merge from, it is not modified
+     * @param mergeFunction combines values of matching keys
+     */
+    public void merge(FastMap srcMap, MapValueMergeFunction mergeFunction) {
+        assert keyDataOffset == srcMap.keyDataOffset;
+        long address = srcMap.kStart;
+        for (int i = 0, n = srcMap.size; i < n; i++) {
+            // entries are position independent: [ len | value block | key offset block | key data block ]
+            final int len = Unsafe.getUnsafe().getInt(address);
+            key.init();
+            key.checkSize(len - keyDataOffset);
+            Vect.memcpy(key.startAddress, address, len);
+            key.appendAddress = key.startAddress + len;
+            final MapValue destValue = key.createValue();
+            if (!destValue.isNew()) {
+                mergeFunction.merge(destValue, srcMap.valueAt(address));
+            }
+            address += len;
+        }
+    }
+
+    /**
+     * Adds key written by detached key to this map. Map must have the same key and value types
+     * as the map that created the detached key.
+     *
+     * @param detachedKey key to copy
+     * @return value of the key, values of a new key are not initialised
+     */
+    public MapValue createValue(DetachedKey detachedKey) {
+        detachedKey.commit();
+        final int len = detachedKey.len;
+        key.init();
+        key.checkSize(len - keyDataOffset);
+        Vect.memcpy(key.startAddress, detachedKey.startAddress, len);
+        key.appendAddress = key.startAddress + len;
+        return key.createValue();
+    }
+
+    /**
+     * Looks up key written by detached key. Lookup does not modify the map, so it is safe to
+     * call from several threads, each with its own detached key, while the map is not modified.
+     *
+     * @param detachedKey key to look up, map must have the same key and value types as the map
+     *                    that created the detached key
+     * @return value owned by the detached key or null when key is not in the map
+     */
+    public MapValue findValue(DetachedKey detachedKey) {
+        detachedKey.commit();
+        return find(detachedKey, detachedKey.ownValue);
+    }
+
+    /**
+     * @return new detached key, the caller is responsible for closing it
+     */
+    public DetachedKey newDetachedKey() {
+        return new DetachedKey();
+    }
+
     @Override
     public MapValue valueAt(long address) {
         return valueOf(address, false, this.value);
@@ -252,6 +326,18 @@ public class FastMap implements Map {
         return valueOf(keyWriter.startAddress, true, value);
     }
 
+    /**
+     * Moves keys and values of the map to the given file once they outgrow threshold. Hash
+     * table of the map stays in native memory.
+     *
+     * @param spillFile      file the map takes ownership of
+     * @param spillThreshold size of key and value storage in bytes
+     */
+    void spillTo(SpillFile spillFile, long spillThreshold) {
+        this.spillFile = spillFile;
+        this.spillThreshold = spillThreshold;
+    }
+
     @Override
     public MapKey withKey() {
         return key.init();
@@ -302,8 +388,24 @@ public class FastMap implements Map {
         return valueColumnCount;
     }
 
-    private int keyIndex() {
-        return hashFunction.hash(key.startAddress + keyDataOffset, key.len - keyDataOffset) & mask;
+    private FastMapValue find(Key keyWriter, FastMapValue value) {
+        final int index = keyIndex(keyWriter);
+        final long offset = offsets.get(index);
+        if (offset == -1) {
+            return null;
+        } else if (eq(keyWriter, offset)) {
+            return valueOf(kStart + offset, false, value);
+        } else {
+            return probeReadOnly(keyWriter, index, value);
+        }
+    }
+
+    private int hash(Key keyWriter) {
+        return hashFunction.hash(keyWriter.startAddress + keyDataOffset, keyWriter.len - keyDataOffset);
+    }
+
+    private int keyIndex(Key keyWriter) {
+        return hash(keyWriter) & mask;
     }
 
     private FastMapValue probeReadOnly(Key keyWriter, int index, FastMapValue value) {
@@ -316,15 +418,35 @@ public class FastMap implements Map {
         return null;
     }
 
+    private boolean isSpilled(long kCapacity) {
+        return spillFile != null && (spillFile.isOpen() || kCapacity > spillThreshold);
+    }
+
+    private long reallocate(long kCapacity) {
+        if (spillFile != null) {
+            if (spillFile.isOpen()) {
+                return spillFile.map(kCapacity);
+            }
+            if (kCapacity > spillThreshold) {
+                final long kAddress = spillFile.map(kCapacity);
+                Vect.memcpy(kAddress, kStart, capacity);
+                Unsafe.free(kStart, capacity, MemoryTag.NATIVE_FAST_MAP);
+                return kAddress;
+            }
+        }
+        return Unsafe.realloc(kStart, capacity, kCapacity, MemoryTag.NATIVE_FAST_MAP);
+    }
+
     private void resize(int size) {
-        if (nResizes < maxResizes) {
+        long kCapacity = (kLimit - kStart) << 1;
+        long target = key.appendAddress + size - kStart;
+        if (kCapacity < target) {
+            kCapacity = Numbers.ceilPow2(target);
+        }
+        // resize limit caps native heap taken by the map, spilled map is not subject to it
+        if (nResizes < maxResizes || isSpilled(kCapacity)) {
             nResizes++;
-            long kCapacity = (kLimit - kStart) << 1;
-            long target = key.appendAddress + size - kStart;
-            if (kCapacity < target) {
-                kCapacity = Numbers.ceilPow2(target);
-            }
-            long kAddress = Unsafe.realloc(this.kStart, this.capacity, kCapacity, MemoryTag.NATIVE_FAST_MAP);
+            long kAddress = reallocate(kCapacity);
 
             this.capacity = kCapacity;
             long d = kAddress - this.kStart;
@@ -380,10 +502,10 @@ public class FastMap implements Map {
     }
 
     public class Key implements MapKey {
-        private long startAddress;
-        private long appendAddress;
-        private int len;
-        private long nextColOffset;
+        long startAddress;
+        long appendAddress;
+        int len;
+        long nextColOffset;
 
         @Override
         public MapValue createValue() {
@@ -419,7 +541,7 @@ public class FastMap implements Map {
             commit();
             // calculate hash remembering "key" structure
             // [ len | value block | key offset block | key data block ]
-            int index = keyIndex();
+            int index = keyIndex(this);
             long offset = offsets.get(index);
 
             if (offset == -1) {
@@ -433,16 +555,7 @@ public class FastMap implements Map {
 
         private MapValue findValue(FastMapValue value) {
             commit();
-            int index = keyIndex();
-            long offset = offsets.get(index);
-
-            if (offset == -1) {
-                return null;
-            } else if (eq(this, offset)) {
-                return valueOf(kStart + offset, false, value);
-            } else {
-                return probeReadOnly(this, index, value);
-            }
+            return find(this, value);
         }
 
         @Override
@@ -636,13 +749,13 @@ public class FastMap implements Map {
             putLong(value);
         }
 
-        private void checkSize(int size) {
+        void checkSize(int size) {
             if (appendAddress + size > kLimit) {
                 resize(size);
             }
         }
 
-        private void commit() {
+        void commit() {
             Unsafe.getUnsafe().putInt(startAddress, len = (int) (appendAddress - startAddress));
         }
 
@@ -662,4 +775,89 @@ public class FastMap implements Map {
             nextColOffset += 4;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Key that is written to its own buffer rather than to the map memory. Values of the key
+     * are looked up via {@link #findValue(DetachedKey)} and added via {@link #createValue(DetachedKey)}.
+     */
+    public class DetachedKey extends Key implements Closeable {
+        private static final long INITIAL_BUFFER_SIZE = 256;
+        private final FastMapValue ownValue = new FastMapValue(valueOffsets);
+        private long bufferAddress;
+        private long bufferSize;
+
+        private DetachedKey() {
+            bufferSize = Math.max(INITIAL_BUFFER_SIZE, Numbers.ceilPow2(keyDataOffset + 8L));
+            bufferAddress = Unsafe.malloc(bufferSize, MemoryTag.NATIVE_FAST_MAP);
+        }
+
+        @Override
+        public void close() {
+            if (bufferAddress != 0) {
+                Unsafe.free(bufferAddress, bufferSize, MemoryTag.NATIVE_FAST_MAP);
+                bufferAddress = 0;
+            }
+        }
+
+        @Override
+        public MapValue createValue() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue createValue2() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue createValue3() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue findValue() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue findValue2() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue findValue3() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @return hash code of the key, same as the map would compute for it
+         */
+        public int hash() {
+            commit();
+            return FastMap.this.hash(this);
+        }
+
+        @Override
+        public DetachedKey init() {
+            startAddress = bufferAddress;
+            appendAddress = bufferAddress + keyDataOffset;
+            nextColOffset = bufferAddress + keyBlockOffset;
+            return this;
+        }
+
+        @Override
+        void checkSize(int size) {
+            final long required = appendAddress + size - bufferAddress;
+            if (required > bufferSize) {
+                final long newSize = Numbers.ceilPow2(required);
+                final long newAddress = Unsafe.realloc(bufferAddress, bufferSize, newSize, MemoryTag.NATIVE_FAST_MAP);
+                final long d = newAddress - bufferAddress;
+                startAddress += d;
+                appendAddress += d;
+                nextColOffset += d;
+                bufferAddress = newAddress;
+                bufferSize = newSize;
+            }
+        }
+    }
+}
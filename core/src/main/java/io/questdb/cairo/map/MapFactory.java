@@ -28,7 +28,9 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.SpillFile;
 import io.questdb.std.Chars;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Transient;
 import org.jetbrains.annotations.NotNull;
 
@@ -40,13 +42,13 @@ public class MapFactory {
     ) {
         CharSequence mapType = configuration.getDefaultMapType();
         if (Chars.equalsLowerCaseAscii(mapType, "fast")) {
-            return new FastMap(
+            return spillable(configuration, new FastMap(
                     configuration.getSqlMapPageSize(),
                     keyTypes,
                     valueTypes,
                     configuration.getSqlMapKeyCapacity(),
                     configuration.getSqlFastMapLoadFactor(),
-                    configuration.getSqlMapMaxResizes());
+                    configuration.getSqlMapMaxResizes()));
         }
 
         if (Chars.equalsLowerCaseAscii(mapType, "compact")) {
@@ -68,12 +70,12 @@ public class MapFactory {
             @Transient @NotNull ColumnTypes keyTypes) {
         CharSequence mapType = configuration.getDefaultMapType();
         if (Chars.equalsLowerCaseAscii(mapType, "fast")) {
-            return new FastMap(
+            return spillable(configuration, new FastMap(
                     configuration.getSqlMapPageSize(),
                     keyTypes,
                     configuration.getSqlMapKeyCapacity(),
                     configuration.getSqlFastMapLoadFactor(),
-                    configuration.getSqlMapMaxResizes());
+                    configuration.getSqlMapMaxResizes()));
         }
 
         if (Chars.equalsLowerCaseAscii(mapType, "compact")) {
@@ -90,4 +92,10 @@ public class MapFactory {
         throw CairoException.instance(0).put("unknown map type: ").put(mapType);
     }
 
+    private static FastMap spillable(CairoConfiguration configuration, FastMap map) {
+        if (SpillFile.isEnabled(configuration)) {
+            map.spillTo(new SpillFile(configuration, MemoryTag.MMAP_DEFAULT), configuration.getSqlSpillThreshold());
+        }
+        return map;
+    }
 }
@@ -226,5 +226,7 @@ public class EngineMigration {
         MIGRATIONS.put(422, Mig607::migrate);
         MIGRATIONS.put(423, Mig608::migrate);
         MIGRATIONS.put(424, Mig609::migrate);
+        // 425 adds HOUR and WEEK partitioning, tables need no change but
+        // older versions must not open tables they cannot name partitions for
     }
 }
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Materialized view is a table that holds result of SAMPLE BY query over another, base, table.
+ * Commits to the base table mark range of timestamps they have touched and the refresh job
+ * recomputes sample buckets of this range only. View table deduplicates rows on bucket timestamp
+ * and key columns, recomputed buckets replace the old ones.
+ * <p>
+ * Definition of the view is kept in "_mv" file of the view table:
+ * struct {
+ * long refresh_txn; // txn of the base table the view is consistent with
+ * int base_table_name_lo; // position of base table name in the query text
+ * int base_table_name_hi;
+ * long sample_by_offset; // calendar offset of sample buckets
+ * str base_table_name;
+ * str query;
+ * str sample_by; // sampling interval, e.g. "1h"
+ * str normalized_query; // text of parsed query model, queries with the same text can read the view
+ * }
+ */
+public class MatView {
+    public static final String FILE_NAME = "_mv";
+    private static final Log LOG = LogFactory.getLog(MatView.class);
+    private static final long OFFSET_REFRESH_TXN = 0;
+    private static final long OFFSET_BASE_TABLE_NAME_LO = 8;
+    private static final long OFFSET_BASE_TABLE_NAME_HI = 12;
+    private static final long OFFSET_SAMPLE_BY_OFFSET = 16;
+    private static final long OFFSET_BASE_TABLE_NAME = 24;
+    private final String viewName;
+    private final String baseTableName;
+    private final String query;
+    private final int baseTableNameLo;
+    private final int baseTableNameHi;
+    private final String sampleBy;
+    private final long sampleByOffset;
+    private final String normalizedQuery;
+    // base table commits that are yet to be refreshed, guarded by this
+    private long refreshTxn;
+    private long commitTxn = -1;
+    private long failedTxn = -1;
+    private long dirtyLo = Long.MAX_VALUE;
+    private long dirtyHi = Long.MIN_VALUE;
+    // false until refresh txn is checked against the base table
+    private boolean verified;
+
+    private MatView(
+            String viewName,
+            String baseTableName,
+            String query,
+            int baseTableNameLo,
+            int baseTableNameHi,
+            String sampleBy,
+            long sampleByOffset,
+            String normalizedQuery,
+            long refreshTxn
+    ) {
+        this.viewName = viewName;
+        this.baseTableName = baseTableName;
+        this.query = query;
+        this.baseTableNameLo = baseTableNameLo;
+        this.baseTableNameHi = baseTableNameHi;
+        this.sampleBy = sampleBy;
+        this.sampleByOffset = sampleByOffset;
+        this.normalizedQuery = normalizedQuery;
+        this.refreshTxn = refreshTxn;
+    }
+
+    public static MatView create(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence viewName,
+            CharSequence baseTableName,
+            CharSequence query,
+            int baseTableNameLo,
+            int baseTableNameHi,
+            CharSequence sampleBy,
+            long sampleByOffset,
+            CharSequence normalizedQuery,
+            long refreshTxn
+    ) {
+        try (MemoryMARW mem = Vm.getMARWInstance()) {
+            mem.smallFile(configuration.getFilesFacade(), path.of(configuration.getRoot()).concat(viewName).concat(FILE_NAME).$(), MemoryTag.MMAP_DEFAULT);
+            mem.jumpTo(0);
+            mem.putLong(refreshTxn);
+            mem.putInt(baseTableNameLo);
+            mem.putInt(baseTableNameHi);
+            mem.putLong(sampleByOffset);
+            mem.putStr(baseTableName);
+            mem.putStr(query);
+            mem.putStr(sampleBy);
+            mem.putStr(normalizedQuery);
+        }
+        return new MatView(
+                Chars.toString(viewName),
+                Chars.toString(baseTableName),
+                Chars.toString(query),
+                baseTableNameLo,
+                baseTableNameHi,
+                Chars.toString(sampleBy),
+                sampleByOffset,
+                Chars.toString(normalizedQuery),
+                refreshTxn
+        );
+    }
+
+    /**
+     * Reads definition of materialized view.
+     *
+     * @return view or null when table is not a materialized view
+     */
+    @Nullable
+    public static MatView open(CairoConfiguration configuration, Path path, CharSequence viewName) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        if (!ff.exists(path.of(configuration.getRoot()).concat(viewName).concat(FILE_NAME).$())) {
+            return null;
+        }
+        try (MemoryMR mem = Vm.getMRInstance()) {
+            mem.smallFile(ff, path, MemoryTag.MMAP_DEFAULT);
+            long offset = OFFSET_BASE_TABLE_NAME;
+            final String baseTableName = Chars.toString(mem.getStr(offset));
+            offset += Vm.getStorageLength(baseTableName);
+            final String query = Chars.toString(mem.getStr(offset));
+            offset += Vm.getStorageLength(query);
+            final String sampleBy = Chars.toString(mem.getStr(offset));
+            offset += Vm.getStorageLength(sampleBy);
+            final String normalizedQuery = Chars.toString(mem.getStr(offset));
+            return new MatView(
+                    Chars.toString(viewName),
+                    baseTableName,
+                    query,
+                    mem.getInt(OFFSET_BASE_TABLE_NAME_LO),
+                    mem.getInt(OFFSET_BASE_TABLE_NAME_HI),
+                    sampleBy,
+                    mem.getLong(OFFSET_SAMPLE_BY_OFFSET),
+                    normalizedQuery,
+                    mem.getLong(OFFSET_REFRESH_TXN)
+            );
+        }
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public int getBaseTableNameHi() {
+        return baseTableNameHi;
+    }
+
+    public int getBaseTableNameLo() {
+        return baseTableNameLo;
+    }
+
+    public synchronized long getDirtyHi() {
+        return dirtyHi;
+    }
+
+    public synchronized long getDirtyLo() {
+        return dirtyLo;
+    }
+
+    public String getNormalizedQuery() {
+        return normalizedQuery;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public synchronized long getRefreshTxn() {
+        return refreshTxn;
+    }
+
+    public String getSampleBy() {
+        return sampleBy;
+    }
+
+    public long getSampleByOffset() {
+        return sampleByOffset;
+    }
+
+    public String getViewName() {
+        return viewName;
+    }
+
+    /**
+     * @return txn of the base table commit to refresh the view to or -1 when view is up to date
+     */
+    public synchronized long getPendingTxn() {
+        return commitTxn > refreshTxn && commitTxn != failedTxn ? commitTxn : -1;
+    }
+
+    public synchronized boolean isVerified() {
+        return verified;
+    }
+
+    public synchronized void onCommit(long txn, long timestampLo, long timestampHi) {
+        commitTxn = Math.max(commitTxn, txn);
+        dirtyLo = Math.min(dirtyLo, timestampLo);
+        dirtyHi = Math.max(dirtyHi, timestampHi);
+    }
+
+    /**
+     * Marks refresh to the given txn as failed, the view is not refreshed again until the base table
+     * is committed to.
+     */
+    public synchronized void onRefreshFailed(long txn) {
+        failedTxn = txn;
+    }
+
+    /**
+     * Records that view is consistent with the base table as of the given txn.
+     */
+    public synchronized void onRefreshed(CairoConfiguration configuration, Path path, long txn) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final long fd = TableUtils.openRW(ff, path.of(configuration.getRoot()).concat(viewName).concat(FILE_NAME).$(), LOG);
+        final long buf = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+        try {
+            TableUtils.writeLongOrFail(ff, fd, OFFSET_REFRESH_TXN, txn, buf, path);
+        } finally {
+            Unsafe.free(buf, Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+            ff.close(fd);
+        }
+        refreshTxn = txn;
+        if (commitTxn <= txn) {
+            // there were no commits during refresh
+            dirtyLo = Long.MAX_VALUE;
+            dirtyHi = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Checks refresh txn of the view, which has been opened on engine start, against base table.
+     * Base table could have been committed to while view was not registered with the engine, in which
+     * case view is refreshed in full.
+     */
+    public synchronized void verify(long baseTableTxn) {
+        if (!verified) {
+            if (baseTableTxn != refreshTxn) {
+                onCommit(baseTableTxn, Long.MIN_VALUE, Long.MAX_VALUE);
+            }
+            verified = true;
+        }
+    }
+}
@@ -26,6 +26,7 @@ package io.questdb.cairo.pool;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.DecodedColumnCache;
 import io.questdb.cairo.EntryUnavailableException;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.pool.ex.EntryLockedException;
@@ -51,9 +52,15 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
     private final int maxSegments;
     private final int maxEntries;
+    private final DecodedColumnCache decodedColumnCache;
 
     public ReaderPool(CairoConfiguration configuration) {
+        this(configuration, null);
+    }
+
+    public ReaderPool(CairoConfiguration configuration, DecodedColumnCache decodedColumnCache) {
         super(configuration, configuration.getInactiveReaderTTL());
+        this.decodedColumnCache = decodedColumnCache;
         this.maxSegments = configuration.getReaderPoolMaxSegments();
         this.maxEntries = maxSegments * ENTRY_SIZE;
     }
@@ -350,7 +357,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         private Entry entry;
 
         public R(ReaderPool pool, Entry entry, int index, CharSequence name) {
-            super(pool.getConfiguration(), name);
+            super(pool.getConfiguration(), name, pool.decodedColumnCache);
             this.pool = pool;
             this.entry = entry;
             this.index = index;
@@ -71,17 +71,24 @@ public class WriterPool extends AbstractPool {
     private final CharSequence root;
     @NotNull
     private final MessageBus messageBus;
+    private final CommitListener commitListener;
+
+    public WriterPool(CairoConfiguration configuration, @NotNull MessageBus messageBus) {
+        this(configuration, messageBus, null);
+    }
 
     /**
      * Pool constructor. WriterPool root directory is passed via configuration.
      *
-     * @param configuration configuration parameters.
-     * @param messageBus    message bus instance to allow index tasks to be communicated to available threads.
+     * @param configuration  configuration parameters.
+     * @param messageBus     message bus instance to allow index tasks to be communicated to available threads.
+     * @param commitListener optional listener of commits made by pooled writers.
      */
-    public WriterPool(CairoConfiguration configuration, @NotNull MessageBus messageBus) {
+    public WriterPool(CairoConfiguration configuration, @NotNull MessageBus messageBus, @Nullable CommitListener commitListener) {
         super(configuration, configuration.getInactiveWriterTTL());
         this.configuration = configuration;
         this.messageBus = messageBus;
+        this.commitListener = commitListener;
         this.clock = configuration.getMicrosecondClock();
         this.root = configuration.getRoot();
         notifyListener(Thread.currentThread().getId(), null, PoolListener.EV_POOL_OPEN);
@@ -273,6 +280,7 @@ public class WriterPool extends AbstractPool {
                 assert writer == null && e.lockFd != -1;
                 LOG.info().$("created [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
                 writer = new TableWriter(configuration, name, messageBus, null, false, e, root);
+                writer.setCommitListener(commitListener);
             }
 
             if (writer == null) {
@@ -394,6 +402,7 @@ public class WriterPool extends AbstractPool {
             checkClosed();
             LOG.info().$("open [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
             e.writer = new TableWriter(configuration, name, messageBus, null, true, e, root);
+            e.writer.setCommitListener(commitListener);
             e.ownershipReason = lockReason;
             return logAndReturn(e, PoolListener.EV_CREATE);
         } catch (CairoException ex) {
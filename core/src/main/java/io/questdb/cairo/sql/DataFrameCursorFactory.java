@@ -28,6 +28,7 @@ import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Sinkable;
 import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 
@@ -38,6 +39,15 @@ public interface DataFrameCursorFactory extends Sinkable, Closeable {
 
     DataFrameCursor getCursor(SqlExecutionContext executionContext) throws SqlException;
 
+    /**
+     * Sets pruner that allows cursor to skip partitions without opening them. Factories that
+     * do not support pruning ignore it.
+     *
+     * @param pruner partition pruner or null to disable pruning
+     */
+    default void setPartitionPruner(@Nullable PartitionPruner pruner) {
+    }
+
     /**
      * @param sink to print data frame cursor to
      */
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.sql;
+
+import io.questdb.cairo.TableReader;
+
+/**
+ * Decides whether partition can be skipped by a data frame cursor before the partition
+ * is opened. Pruner is derived from the filter applied to every row of the cursor and
+ * must never skip a partition that has rows the filter would accept.
+ */
+@FunctionalInterface
+public interface PartitionPruner {
+
+    /**
+     * @param reader         reader of the cursor
+     * @param partitionIndex index of partition about to be opened
+     * @return true when none of partition rows can pass the filter
+     */
+    boolean canSkip(TableReader reader, int partitionIndex);
+
+    /**
+     * @param reader         reader of the cursor
+     * @param partitionIndex index of open partition
+     * @param rowLo          first row of the block, inclusive
+     * @param rowHi          last row of the block, exclusive
+     * @return true when none of the rows in the block can pass the filter
+     */
+    default boolean canSkipRows(TableReader reader, int partitionIndex, long rowLo, long rowHi) {
+        return false;
+    }
+
+    /**
+     * @return number of rows in block checked by {@link #canSkipRows(TableReader, int, long, long)},
+     * 0 when pruner cannot skip parts of partition
+     */
+    default long getRowBlockSize() {
+        return 0;
+    }
+}
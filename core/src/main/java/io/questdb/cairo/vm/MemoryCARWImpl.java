@@ -163,7 +163,7 @@ public class MemoryCARWImpl extends AbstractMemoryCR implements MemoryCARW, Muta
         long nPages = (size >>> sizeMsb) + 1;
         size = nPages << sizeMsb;
         final long oldSize = size();
-        if (nPages > maxPages) {
+        if (nPages > maxPages && !isDiskBacked(size)) {
             throw LimitOverflowException.instance().put("Maximum number of pages (").put(maxPages).put(") breached in VirtualMemory");
         }
         final long newBaseAddress = reallocateMemory(pageAddress, size(), size);
@@ -191,6 +191,16 @@ public class MemoryCARWImpl extends AbstractMemoryCR implements MemoryCARW, Muta
         appendAddress = 0;
     }
 
+    /**
+     * Page limit caps native heap taken by the memory, memory that is backed by disk is not subject to it.
+     *
+     * @param newSize size the memory is about to be extended to
+     * @return true when memory of the new size is backed by disk
+     */
+    protected boolean isDiskBacked(long newSize) {
+        return false;
+    }
+
     protected long reallocateMemory(long currentBaseAddress, long currentSize, long newSize) {
         if (currentBaseAddress != 0) {
             return Unsafe.realloc(currentBaseAddress, currentSize, newSize, memoryTag);
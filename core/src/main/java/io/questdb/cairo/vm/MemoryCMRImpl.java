@@ -37,6 +37,7 @@ import io.questdb.std.str.LPSZ;
 public class MemoryCMRImpl extends AbstractMemoryCR implements MemoryCMR {
     private static final Log LOG = LogFactory.getLog(MemoryCMRImpl.class);
     private int memoryTag = MemoryTag.MMAP_DEFAULT;
+    private int advice = Files.MADV_NORMAL;
 
     public MemoryCMRImpl(FilesFacade ff, LPSZ name, long size, int memoryTag) {
         of(ff, name, 0, size, memoryTag);
@@ -45,8 +46,19 @@ public class MemoryCMRImpl extends AbstractMemoryCR implements MemoryCMR {
     public MemoryCMRImpl() {
     }
 
+    @Override
+    public void advise(int advice) {
+        if (this.advice != advice) {
+            this.advice = advice;
+            if (pageAddress != 0) {
+                ff.madvise(pageAddress, size, advice);
+            }
+        }
+    }
+
     @Override
     public void close() {
+        advice = Files.MADV_NORMAL;
         if (pageAddress != 0) {
             ff.munmap(pageAddress, size, memoryTag);
             this.size = 0;
@@ -68,6 +80,20 @@ public class MemoryCMRImpl extends AbstractMemoryCR implements MemoryCMR {
         }
     }
 
+    @Override
+    public void readAhead(long offset, long len, long requestSize) {
+        final long hi = Math.min(offset + len, size);
+        while (offset < hi) {
+            final long n = Math.min(requestSize, hi - offset);
+            if (ff.readAhead(fd, offset, n) != 0) {
+                // no file hint on this OS, mapping is at file offset 0
+                final long lo = Files.floorPageSize(offset);
+                ff.madvise(pageAddress + lo, offset + n - lo, Files.MADV_WILLNEED);
+            }
+            offset += n;
+        }
+    }
+
     @Override
     public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag) {
         this.memoryTag = memoryTag;
@@ -80,6 +106,7 @@ public class MemoryCMRImpl extends AbstractMemoryCR implements MemoryCMR {
         if (size > 0) {
             try {
                 this.pageAddress = TableUtils.mapRO(ff, fd, size, memoryTag);
+                adviseMapped();
             } catch (Throwable e) {
                 close();
                 throw e;
@@ -92,6 +119,13 @@ public class MemoryCMRImpl extends AbstractMemoryCR implements MemoryCMR {
         LOG.debug().$("open ").$(name).$(" [fd=").$(fd).$(", pageSize=").$(size).$(", size=").$(this.size).$(']').$();
     }
 
+    private void adviseMapped() {
+        // new mapping starts with default read-ahead
+        if (advice != Files.MADV_NORMAL) {
+            ff.madvise(pageAddress, size, advice);
+        }
+    }
+
     private void openFile(FilesFacade ff, LPSZ name) {
         close();
         this.ff = ff;
@@ -111,6 +145,7 @@ public class MemoryCMRImpl extends AbstractMemoryCR implements MemoryCMR {
                 pageAddress = TableUtils.mapRO(ff, fd, newSize, memoryTag);
             }
             size = newSize;
+            adviseMapped();
         } catch (Throwable e) {
             close();
             throw e;
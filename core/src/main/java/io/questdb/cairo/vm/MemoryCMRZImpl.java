@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnCodec;
+import io.questdb.cairo.DecodedColumnCache;
+import io.questdb.cairo.TableUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only contiguous memory over block compressed column file. Column is decoded
+ * into native memory when file is opened, file descriptor is kept open for the reader
+ * to notice when compressed file is replaced by uncompressed one. When decoded column
+ * cache is provided, decoded column is shared with other readers through the cache.
+ */
+public class MemoryCMRZImpl extends MemoryCMRImpl {
+    private static final Log LOG = LogFactory.getLog(MemoryCMRZImpl.class);
+    private final DecodedColumnCache cache;
+    private DecodedColumnCache.Entry cacheEntry;
+    private long decodedSize;
+    private int memoryTag = MemoryTag.NATIVE_TABLE_READER;
+
+    public MemoryCMRZImpl(FilesFacade ff, LPSZ name, long size, int memoryTag) {
+        this(ff, name, size, memoryTag, null);
+    }
+
+    public MemoryCMRZImpl(FilesFacade ff, LPSZ name, long size, int memoryTag, DecodedColumnCache cache) {
+        this.cache = cache;
+        of(ff, name, 0, size, memoryTag);
+    }
+
+    @Override
+    public void advise(int advice) {
+        // decoded column is in native heap memory
+    }
+
+    @Override
+    public void readAhead(long offset, long len, long requestSize) {
+        // decoded column is in native heap memory
+    }
+
+    @Override
+    public void close() {
+        if (cacheEntry != null) {
+            cache.release(cacheEntry);
+            cacheEntry = null;
+            pageAddress = 0;
+        } else if (pageAddress != 0) {
+            Unsafe.free(pageAddress, decodedSize, memoryTag);
+            pageAddress = 0;
+        }
+        size = 0;
+        decodedSize = 0;
+        if (fd != -1) {
+            ff.close(fd);
+            LOG.debug().$("closed [fd=").$(fd).$(']').$();
+            fd = -1;
+        }
+        grownLength = 0;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        grownLength = Math.max(newSize, grownLength);
+        if (newSize > size) {
+            if (newSize > decodedSize) {
+                throw CairoException.instance(0).put("compressed column is too short [fd=").put(fd)
+                        .put(", size=").put(decodedSize)
+                        .put(", required=").put(newSize)
+                        .put(']');
+            }
+            size = newSize;
+        }
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag) {
+        close();
+        this.ff = ff;
+        this.memoryTag = memoryTag;
+        this.fd = TableUtils.openRO(ff, name, LOG);
+        try {
+            if (cache != null) {
+                cacheEntry = cache.acquire(ff, name, fd);
+                pageAddress = cacheEntry.getAddress();
+                decodedSize = cacheEntry.getSize();
+            } else {
+                decode();
+            }
+            if (size > decodedSize) {
+                throw CairoException.instance(0).put("compressed column is too short [file=").put(name)
+                        .put(", size=").put(decodedSize)
+                        .put(", required=").put(size)
+                        .put(']');
+            }
+            this.size = size;
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+        LOG.debug().$("open ").$(name).$(" [fd=").$(fd).$(", size=").$(this.size).$(']').$();
+    }
+
+    private void decode() {
+        final long fileSize = ff.length(fd);
+        final long fileAddr = TableUtils.mapRO(ff, fd, fileSize, MemoryTag.MMAP_TABLE_READER);
+        try {
+            final long decodedSize = ColumnCodec.getRowCount(fileAddr) << ColumnCodec.getValueSizePow2(fileAddr);
+            if (decodedSize > 0) {
+                this.pageAddress = Unsafe.malloc(decodedSize, memoryTag);
+                this.decodedSize = decodedSize;
+                ColumnCodec.decode(fileAddr, pageAddress);
+            }
+        } finally {
+            ff.munmap(fileAddr, fileSize, MemoryTag.MMAP_TABLE_READER);
+        }
+    }
+}
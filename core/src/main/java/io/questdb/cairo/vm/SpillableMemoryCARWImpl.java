@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.SpillFile;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Contiguous memory that moves to a memory mapped {@link SpillFile} once it grows past spill
+ * threshold. Content is copied to the file once, subsequent extensions remap the file.
+ */
+public class SpillableMemoryCARWImpl extends MemoryCARWImpl {
+    private final SpillFile spillFile;
+    private final long spillThreshold;
+    private final int memoryTag;
+
+    public SpillableMemoryCARWImpl(CairoConfiguration configuration, long pageSize, int maxPages, int memoryTag) {
+        super(pageSize, maxPages, memoryTag);
+        this.memoryTag = memoryTag;
+        this.spillFile = new SpillFile(configuration, MemoryTag.MMAP_DEFAULT);
+        this.spillThreshold = configuration.getSqlSpillThreshold();
+    }
+
+    @Override
+    public void clear() {
+        if (spillFile.isOpen()) {
+            spillFile.release();
+            handleMemoryReleased();
+        } else {
+            super.clear();
+        }
+    }
+
+    public boolean isSpilled() {
+        return spillFile.isOpen();
+    }
+
+    @Override
+    protected boolean isDiskBacked(long newSize) {
+        return spillFile.isOpen() || newSize > spillThreshold;
+    }
+
+    @Override
+    protected long reallocateMemory(long currentBaseAddress, long currentSize, long newSize) {
+        if (spillFile.isOpen()) {
+            return spillFile.map(newSize);
+        }
+        if (newSize > spillThreshold) {
+            final long address = spillFile.map(newSize);
+            if (currentBaseAddress != 0) {
+                Vect.memcpy(address, currentBaseAddress, currentSize);
+                Unsafe.free(currentBaseAddress, currentSize, memoryTag);
+            }
+            return address;
+        }
+        return super.reallocateMemory(currentBaseAddress, currentSize, newSize);
+    }
+}
@@ -24,6 +24,9 @@
 
 package io.questdb.cairo.vm;
 
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DecodedColumnCache;
+import io.questdb.cairo.SpillFile;
 import io.questdb.cairo.vm.api.*;
 import io.questdb.log.Log;
 import io.questdb.std.Files;
@@ -72,6 +75,17 @@ public class Vm {
         return new MemoryCARWImpl(pageSize, maxPages, memoryTag);
     }
 
+    /**
+     * Query operator memory that spills to disk past configured threshold, or plain native memory
+     * when spilling is not configured.
+     */
+    public static MemoryCARW getSpillableCARWInstance(CairoConfiguration configuration, long pageSize, int maxPages, int memoryTag) {
+        if (SpillFile.isEnabled(configuration)) {
+            return new SpillableMemoryCARWImpl(configuration, pageSize, maxPages, memoryTag);
+        }
+        return new MemoryCARWImpl(pageSize, maxPages, memoryTag);
+    }
+
     public static MemoryCMARW getCMARWInstance(FilesFacade ff, LPSZ name, long pageSize, long size, int memoryTag) {
         return new MemoryCMARWImpl(ff, name, pageSize, size, memoryTag);
     }
@@ -104,6 +118,14 @@ public class Vm {
         return new MemoryCMRImpl(ff, name, size, memoryTag);
     }
 
+    public static MemoryMR getMRZInstance(FilesFacade ff, LPSZ name, long size, int memoryTag) {
+        return new MemoryCMRZImpl(ff, name, size, memoryTag);
+    }
+
+    public static MemoryMR getMRZInstance(FilesFacade ff, LPSZ name, long size, int memoryTag, DecodedColumnCache cache) {
+        return new MemoryCMRZImpl(ff, name, size, memoryTag, cache);
+    }
+
     public static MemoryMA getSmallMAInstance(FilesFacade ff, LPSZ name, int memoryTag) {
         return new MemoryCMARWImpl(ff, name, ff.getPageSize(), -1, memoryTag);
     }
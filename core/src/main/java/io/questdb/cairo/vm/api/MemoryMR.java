@@ -25,6 +25,27 @@
 package io.questdb.cairo.vm.api;
 
 public interface MemoryMR extends MemoryM, MemoryR {
+
+    /**
+     * Hints OS on how memory is going to be accessed. Advice applies to the whole mapping and
+     * survives remapping. Memory that is not backed by a file mapping ignores advice.
+     *
+     * @param advice one of Files.MADV_* constants
+     */
+    default void advise(int advice) {
+    }
+
+    /**
+     * Asks OS to read range of the file into page cache in background, in requests of up to request
+     * size. Access to mapped memory in that range is then served from page cache instead of faulting
+     * in one page at a time. Does not wait for IO. This is best effort, errors are ignored.
+     *
+     * @param offset      offset of the range in the file
+     * @param len         length of the range
+     * @param requestSize maximum size of single read-ahead request
+     */
+    default void readAhead(long offset, long len, long requestSize) {
+    }
     default void growToFileSize() {
         extend(getFilesFacade().length(getFd()));
     }
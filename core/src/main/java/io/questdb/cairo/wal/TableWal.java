@@ -0,0 +1,443 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Write-ahead log of a table. Sequences commits of {@link WalWriter} instances into a
+ * single transaction log and copies committed rows into the table on behalf of
+ * the WAL apply job.
+ * <p>
+ * The transaction log, "wal/_txn", has a header of applied entry count, committed entry
+ * count and next segment id followed by entries of three longs: segment id, row low and
+ * row high. Entry with negative row range marks the end of a segment, the segment
+ * directory is removed once this entry is applied.
+ * <p>
+ * Rows are copied into the table with {@link TableWriter.Row}, out-of-order rows are
+ * merged by the writer's O3 machinery. Transactions are applied at-least-once: rows
+ * committed to the table right before a crash can be applied again on restart.
+ */
+public class TableWal implements Closeable {
+    private static final Log LOG = LogFactory.getLog(TableWal.class);
+    private static final long OFFSET_APPLIED_COUNT = 0;
+    private static final long OFFSET_COMMITTED_COUNT = 8;
+    private static final long OFFSET_NEXT_SEGMENT_ID = 16;
+    private static final long HEADER_SIZE = 24;
+    private static final int ENTRY_SIZE_MSB = 3;
+    private static final long ENTRY_SIZE = 3 * Long.BYTES;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final String tableName;
+    private final ObjList<WalWriter> idleWriters = new ObjList<>();
+    private final MemoryMARW txnMem = Vm.getMARWInstance();
+    private final Path path = new Path();
+    private final int rootLen;
+    // apply job state
+    private final LongList pendingEntries = new LongList();
+    private final LongList segmentRanges = new LongList();
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final ObjList<MemoryMR> columns = new ObjList<>();
+    private final MemoryMR metaMem = Vm.getMRInstance();
+    private final Object applyLock = new Object();
+    private boolean closed = false;
+
+    public TableWal(CairoConfiguration configuration, CharSequence tableName) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+        this.tableName = Chars.toString(tableName);
+        path.of(configuration.getRoot()).concat(tableName).concat(WAL_DIR_NAME);
+        this.rootLen = path.length();
+        try {
+            if (!ff.exists(path.slash$()) && ff.mkdirs(path, configuration.getMkDirMode()) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create WAL directory [path=").put(path).put(']');
+            }
+            txnMem.of(ff, path.trimTo(rootLen).concat(TXN_FILE_NAME).$(), ff.getPageSize(), -1, MemoryTag.MMAP_TABLE_WRITER);
+            txnMem.jumpTo(HEADER_SIZE + txnMem.getLong(OFFSET_COMMITTED_COUNT) * ENTRY_SIZE);
+            recover();
+        } catch (Throwable e) {
+            close();
+            throw e;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Copies rows of all committed WAL transactions into the table and commits the writer.
+     *
+     * @param writer writer of this table
+     * @return true when there were transactions to apply
+     */
+    public boolean apply(TableWriter writer) {
+        synchronized (applyLock) {
+            pendingEntries.clear();
+            final long entryCount = getPendingEntries(pendingEntries);
+            if (entryCount == 0) {
+                return false;
+            }
+
+            // pending ranges of a segment follow each other, merge them to copy segment once
+            segmentRanges.clear();
+            for (int i = 0, n = pendingEntries.size(); i < n; i += 3) {
+                final long segmentId = pendingEntries.getQuick(i);
+                final long rowLo = pendingEntries.getQuick(i + 1);
+                final long rowHi = pendingEntries.getQuick(i + 2);
+                if (rowLo < 0) {
+                    continue;
+                }
+                int index = -1;
+                for (int j = 0, m = segmentRanges.size(); j < m; j += 3) {
+                    if (segmentRanges.getQuick(j) == segmentId) {
+                        index = j;
+                        break;
+                    }
+                }
+                if (index < 0) {
+                    segmentRanges.add(segmentId, rowLo);
+                    segmentRanges.add(rowHi);
+                } else {
+                    segmentRanges.setQuick(index + 2, rowHi);
+                }
+            }
+
+            try {
+                for (int i = 0, n = segmentRanges.size(); i < n; i += 3) {
+                    applySegment(writer, segmentRanges.getQuick(i), segmentRanges.getQuick(i + 1), segmentRanges.getQuick(i + 2));
+                }
+                writer.commit();
+            } catch (Throwable e) {
+                writer.rollback();
+                throw e;
+            } finally {
+                freeSegmentColumns();
+            }
+            markApplied(entryCount);
+
+            for (int i = 0, n = pendingEntries.size(); i < n; i += 3) {
+                if (pendingEntries.getQuick(i + 1) < 0) {
+                    removeSegment(pendingEntries.getQuick(i));
+                }
+            }
+            LOG.info().$("applied WAL [table=").$(tableName).$(", entries=").$(entryCount).$(']').$();
+            return true;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (applyLock) {
+            synchronized (this) {
+                closed = true;
+                releaseIdleWriters();
+                if (txnMem.isOpen()) {
+                    txnMem.close(false);
+                }
+                freeSegmentColumns();
+                Misc.free(metaMem);
+                path.close();
+            }
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Returns idle writer of the same table structure as the reader or creates new one.
+     *
+     * @param reader reader of this table
+     * @return WAL writer, it goes back to this write-ahead log on close
+     */
+    public synchronized WalWriter getWriter(TableReader reader) {
+        final long structureVersion = reader.getVersion();
+        while (idleWriters.size() > 0) {
+            final int last = idleWriters.size() - 1;
+            final WalWriter writer = idleWriters.getQuick(last);
+            idleWriters.remove(last);
+            if (writer.getStructureVersion() == structureVersion) {
+                return writer;
+            }
+            writer.doClose();
+        }
+        return new WalWriter(configuration, this, structureVersion, reader.getMetadata());
+    }
+
+    public synchronized boolean hasPendingTransactions() {
+        return !closed && txnMem.getLong(OFFSET_APPLIED_COUNT) < txnMem.getLong(OFFSET_COMMITTED_COUNT);
+    }
+
+    public synchronized void releaseIdleWriters() {
+        for (int i = 0, n = idleWriters.size(); i < n; i++) {
+            idleWriters.getQuick(i).doClose();
+        }
+        idleWriters.clear();
+    }
+
+    synchronized void commit(long segmentId, long rowLo, long rowHi) {
+        if (closed) {
+            throw CairoException.instance(0).put("WAL is closed [table=").put(tableName).put(']');
+        }
+        appendEntry(segmentId, rowLo, rowHi);
+    }
+
+    synchronized long nextSegmentId() {
+        final long segmentId = txnMem.getLong(OFFSET_NEXT_SEGMENT_ID);
+        txnMem.putLong(OFFSET_NEXT_SEGMENT_ID, segmentId + 1);
+        return segmentId;
+    }
+
+    synchronized boolean release(WalWriter writer) {
+        if (closed) {
+            return false;
+        }
+        idleWriters.add(writer);
+        return true;
+    }
+
+    synchronized void seal(long segmentId) {
+        if (!closed) {
+            appendEntry(segmentId, -1, -1);
+        }
+    }
+
+    private void appendEntry(long segmentId, long rowLo, long rowHi) {
+        final long count = txnMem.getLong(OFFSET_COMMITTED_COUNT);
+        txnMem.putLong(segmentId);
+        txnMem.putLong(rowLo);
+        txnMem.putLong(rowHi);
+        txnMem.putLong(OFFSET_COMMITTED_COUNT, count + 1);
+    }
+
+    private void applySegment(TableWriter writer, long segmentId, long rowLo, long rowHi) {
+        final RecordMetadata writerMetadata = writer.getMetadata();
+        path.trimTo(rootLen).slash().put(segmentId);
+        final int plen = path.length();
+        metaMem.of(ff, path.concat(META_FILE_NAME).$(), ff.getPageSize(), ff.length(path), MemoryTag.MMAP_TABLE_READER);
+        final int columnCount = metaMem.getInt(0);
+        final int timestampIndex = metaMem.getInt(Integer.BYTES);
+        long offset = 2 * Integer.BYTES;
+        columnIndexes.clear();
+        columnTypes.clear();
+        columns.setAll(columnCount * 2, null);
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metaMem.getInt(offset);
+            final CharSequence name = metaMem.getStr(offset + Integer.BYTES);
+            offset += Integer.BYTES + Vm.getStorageLength(name);
+
+            int writerIndex = writerMetadata.getColumnIndexQuiet(name);
+            if (writerIndex > -1 && writerMetadata.getColumnType(writerIndex) != type) {
+                // column has been dropped and added again with another type
+                writerIndex = -1;
+            }
+            columnIndexes.add(writerIndex);
+            columnTypes.add(type);
+            if (writerIndex > -1 || i == timestampIndex) {
+                columns.setQuick(i * 2, openSegmentColumn(dFile(path.trimTo(plen), name)));
+                if (WalWriter.isVarSize(type)) {
+                    columns.setQuick(i * 2 + 1, openSegmentColumn(iFile(path.trimTo(plen), name)));
+                }
+            }
+        }
+        metaMem.close();
+
+        final MemoryMR timestampColumn = columns.getQuick(timestampIndex * 2);
+        for (long row = rowLo; row < rowHi; row++) {
+            final TableWriter.Row r = writer.newRow(timestampColumn.getLong(row << 3));
+            for (int i = 0; i < columnCount; i++) {
+                final int writerIndex = columnIndexes.getQuick(i);
+                if (writerIndex > -1 && i != timestampIndex) {
+                    copyValue(r, writerIndex, columnTypes.getQuick(i), columns.getQuick(i * 2), columns.getQuick(i * 2 + 1), row);
+                }
+            }
+            r.append();
+        }
+        freeSegmentColumns();
+        path.trimTo(rootLen);
+    }
+
+    private static void copyValue(TableWriter.Row r, int columnIndex, int columnType, MemoryMR primary, MemoryMR secondary, long row) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                r.putBool(columnIndex, primary.getBool(row));
+                break;
+            case ColumnType.BYTE:
+                r.putByte(columnIndex, primary.getByte(row));
+                break;
+            case ColumnType.SHORT:
+                r.putShort(columnIndex, primary.getShort(row << 1));
+                break;
+            case ColumnType.CHAR:
+                r.putChar(columnIndex, primary.getChar(row << 1));
+                break;
+            case ColumnType.INT:
+                r.putInt(columnIndex, primary.getInt(row << 2));
+                break;
+            case ColumnType.FLOAT:
+                r.putFloat(columnIndex, primary.getFloat(row << 2));
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                r.putLong(columnIndex, primary.getLong(row << 3));
+                break;
+            case ColumnType.DOUBLE:
+                r.putDouble(columnIndex, primary.getDouble(row << 3));
+                break;
+            case ColumnType.LONG256:
+                r.putLong256(columnIndex, primary.getLong256A(row << 5));
+                break;
+            case ColumnType.GEOBYTE:
+                r.putGeoHash(columnIndex, primary.getByte(row));
+                break;
+            case ColumnType.GEOSHORT:
+                r.putGeoHash(columnIndex, primary.getShort(row << 1));
+                break;
+            case ColumnType.GEOINT:
+                r.putGeoHash(columnIndex, primary.getInt(row << 2));
+                break;
+            case ColumnType.GEOLONG:
+                r.putGeoHash(columnIndex, primary.getLong(row << 3));
+                break;
+            case ColumnType.STRING:
+                r.putStr(columnIndex, primary.getStr(secondary.getLong(row << 3)));
+                break;
+            case ColumnType.SYMBOL:
+                r.putSym(columnIndex, primary.getStr(secondary.getLong(row << 3)));
+                break;
+            case ColumnType.BINARY:
+                r.putBin(columnIndex, primary.getBin(secondary.getLong(row << 3)));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void freeSegmentColumns() {
+        Misc.freeObjList(columns);
+        columns.clear();
+    }
+
+    private synchronized long getPendingEntries(LongList sink) {
+        if (closed) {
+            return 0;
+        }
+        final long applied = txnMem.getLong(OFFSET_APPLIED_COUNT);
+        final long committed = txnMem.getLong(OFFSET_COMMITTED_COUNT);
+        for (long i = applied; i < committed; i++) {
+            final long offset = HEADER_SIZE + i * ENTRY_SIZE;
+            sink.add(txnMem.getLong(offset), txnMem.getLong(offset + Long.BYTES));
+            sink.add(txnMem.getLong(offset + 2 * Long.BYTES));
+        }
+        return committed - applied;
+    }
+
+    private synchronized void markApplied(long entryCount) {
+        final long applied = txnMem.getLong(OFFSET_APPLIED_COUNT) + entryCount;
+        if (applied == txnMem.getLong(OFFSET_COMMITTED_COUNT)) {
+            // everything has been applied, start the log from the top
+            txnMem.putLong(OFFSET_COMMITTED_COUNT, 0);
+            txnMem.putLong(OFFSET_APPLIED_COUNT, 0);
+            txnMem.jumpTo(HEADER_SIZE);
+        } else {
+            txnMem.putLong(OFFSET_APPLIED_COUNT, applied);
+        }
+    }
+
+    private MemoryMR openSegmentColumn(LPSZ path) {
+        return Vm.getMRInstance(ff, path, ff.length(path), MemoryTag.MMAP_TABLE_READER);
+    }
+
+    private void recover() {
+        // segments referenced by pending entries have no writer after restart, seal them
+        final long applied = txnMem.getLong(OFFSET_APPLIED_COUNT);
+        final long committed = txnMem.getLong(OFFSET_COMMITTED_COUNT);
+        final LongHashSet segmentIds = new LongHashSet();
+        for (long i = applied; i < committed; i++) {
+            final long offset = HEADER_SIZE + i * ENTRY_SIZE;
+            final long segmentId = txnMem.getLong(offset);
+            if (txnMem.getLong(offset + Long.BYTES) < 0) {
+                segmentIds.remove(segmentId);
+            } else {
+                segmentIds.add(segmentId);
+            }
+        }
+        for (int i = 0, n = segmentIds.size(); i < n; i++) {
+            appendEntry(segmentIds.get(i), -1, -1);
+        }
+
+        // remove segments which have never been committed
+        final NativeLPSZ name = new NativeLPSZ();
+        path.trimTo(rootLen);
+        ff.iterateDir(path.$(), (pName, type) -> {
+            name.of(pName);
+            if (type == Files.DT_DIR && !Files.isDots(name)) {
+                try {
+                    final long segmentId = Numbers.parseLong(name);
+                    if (!isReferenced(segmentId, applied)) {
+                        removeSegment(segmentId);
+                    }
+                } catch (NumericException ignore) {
+                }
+            }
+        });
+    }
+
+    private boolean isReferenced(long segmentId, long applied) {
+        final long committed = txnMem.getLong(OFFSET_COMMITTED_COUNT);
+        for (long i = applied; i < committed; i++) {
+            if (txnMem.getLong(HEADER_SIZE + i * ENTRY_SIZE) == segmentId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeSegment(long segmentId) {
+        path.trimTo(rootLen).slash().put(segmentId).slash$();
+        int errno;
+        if ((errno = ff.rmdir(path)) != 0) {
+            LOG.error().$("could not remove WAL segment [path=").$(path).$(", errno=").$(errno).$(']').$();
+        }
+        path.trimTo(rootLen);
+    }
+}
@@ -0,0 +1,506 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Appends rows of one table to a segment of the table's write-ahead log. Every writer owns
+ * its segment, so connections writing to the same table do not wait for each other. Commit
+ * publishes rows appended since the previous commit to {@link TableWal}. Readers see these
+ * rows once {@link TableWal#apply(TableWriter)} has copied them into the table.
+ * <p>
+ * Symbol values are stored in the segment as strings, they are resolved to keys when the
+ * segment is applied.
+ */
+public class WalWriter implements TableWriterAPI {
+    static final int SEGMENT_ROLLOVER_ROW_COUNT = 1_000_000;
+    private static final Log LOG = LogFactory.getLog(WalWriter.class);
+    private final FilesFacade ff;
+    private final TableWal tableWal;
+    private final String tableName;
+    private final long structureVersion;
+    private final int timestampIndex;
+    private final int mkDirMode;
+    private final long dataAppendPageSize;
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    // two entries per column, secondary memory is null for fixed size columns
+    private final ObjList<MemoryMARW> columns = new ObjList<>();
+    private final LongList rowValueIsNotNull = new LongList();
+    private final Path path = new Path();
+    private final int rootLen;
+    private final RowImpl row = new RowImpl();
+    private long segmentId = -1;
+    private long segmentRowCount;
+    private long committedRowCount;
+
+    WalWriter(CairoConfiguration configuration, TableWal tableWal, long structureVersion, RecordMetadata metadata) {
+        this.ff = configuration.getFilesFacade();
+        this.tableWal = tableWal;
+        this.tableName = tableWal.getTableName();
+        this.structureVersion = structureVersion;
+        this.timestampIndex = metadata.getTimestampIndex();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.dataAppendPageSize = configuration.getDataAppendPageSize();
+        this.path.of(configuration.getRoot()).concat(tableName).concat(WAL_DIR_NAME);
+        this.rootLen = path.length();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int type = metadata.getColumnType(i);
+            columnNames.add(metadata.getColumnName(i));
+            columnTypes.add(type);
+            columns.add(Vm.getMARWInstance());
+            columns.add(isVarSize(type) ? Vm.getMARWInstance() : null);
+            rowValueIsNotNull.add(-1);
+        }
+    }
+
+    @Override
+    public void close() {
+        rollback();
+        if (!tableWal.release(this)) {
+            doClose();
+        }
+    }
+
+    @Override
+    public void commit() {
+        if (segmentRowCount > committedRowCount) {
+            tableWal.commit(segmentId, committedRowCount, segmentRowCount);
+            committedRowCount = segmentRowCount;
+        }
+    }
+
+    @Override
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    @Override
+    public String getTableName() {
+        return tableName;
+    }
+
+    @Override
+    public TableWriter.Row newRow() {
+        return newRow(Numbers.LONG_NaN);
+    }
+
+    @Override
+    public TableWriter.Row newRow(long timestamp) {
+        if (timestamp < Timestamps.O3_MIN_TS) {
+            throw CairoException.instance(0).put("timestamp before 1970-01-01 is not allowed");
+        }
+        if (segmentId == -1) {
+            openSegment();
+        } else if (segmentRowCount == committedRowCount && segmentRowCount >= SEGMENT_ROLLOVER_ROW_COUNT) {
+            closeSegment();
+            openSegment();
+        }
+        getPrimaryColumn(timestampIndex).putLong(timestamp);
+        rowValueIsNotNull.setQuick(timestampIndex, segmentRowCount);
+        return row;
+    }
+
+    @Override
+    public void rollback() {
+        if (segmentId != -1) {
+            rewind(committedRowCount);
+        }
+    }
+
+    void doClose() {
+        try {
+            closeSegment();
+        } finally {
+            Misc.freeObjList(columns);
+            path.close();
+        }
+    }
+
+    static boolean isVarSize(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.BINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void closeSegment() {
+        if (segmentId != -1) {
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                final MemoryMARW mem = columns.getQuick(i);
+                if (mem != null) {
+                    mem.close(true);
+                }
+            }
+            tableWal.seal(segmentId);
+            LOG.debug().$("sealed WAL segment [table=").$(tableName).$(", segment=").$(segmentId).$(", rows=").$(committedRowCount).$(']').$();
+            segmentId = -1;
+        }
+    }
+
+    private MemoryMARW getPrimaryColumn(int columnIndex) {
+        return columns.getQuick(columnIndex * 2);
+    }
+
+    private MemoryMARW getSecondaryColumn(int columnIndex) {
+        return columns.getQuick(columnIndex * 2 + 1);
+    }
+
+    private void openSegment() {
+        final long id = tableWal.nextSegmentId();
+        path.trimTo(rootLen).slash().put(id);
+        final int plen = path.length();
+        path.slash$();
+        if (ff.exists(path)) {
+            ff.rmdir(path);
+        }
+        if (ff.mkdir(path, mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create WAL segment [path=").put(path).put(']');
+        }
+        try {
+            try (MemoryMARW metaMem = Vm.getSmallMARWInstance(ff, path.trimTo(plen).concat(META_FILE_NAME).$(), MemoryTag.MMAP_TABLE_WRITER)) {
+                metaMem.putInt(columnNames.size());
+                metaMem.putInt(timestampIndex);
+                for (int i = 0, n = columnNames.size(); i < n; i++) {
+                    metaMem.putInt(columnTypes.getQuick(i));
+                    metaMem.putStr(columnNames.getQuick(i));
+                }
+            }
+            for (int i = 0, n = columnNames.size(); i < n; i++) {
+                final CharSequence name = columnNames.getQuick(i);
+                getPrimaryColumn(i).of(ff, dFile(path.trimTo(plen), name), dataAppendPageSize, -1, MemoryTag.MMAP_TABLE_WRITER);
+                final MemoryMARW secondary = getSecondaryColumn(i);
+                if (secondary != null) {
+                    secondary.of(ff, iFile(path.trimTo(plen), name), dataAppendPageSize, -1, MemoryTag.MMAP_TABLE_WRITER);
+                    secondary.putLong(0);
+                }
+            }
+        } catch (Throwable e) {
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                final MemoryMARW mem = columns.getQuick(i);
+                if (mem != null) {
+                    mem.close(false);
+                }
+            }
+            ff.rmdir(path.trimTo(plen).$());
+            throw e;
+        }
+        segmentId = id;
+        segmentRowCount = 0;
+        committedRowCount = 0;
+        rowValueIsNotNull.setAll(columnNames.size(), -1);
+        LOG.debug().$("opened WAL segment [path=").$(path.trimTo(plen).$()).$(']').$();
+    }
+
+    private void putNull(int columnIndex) {
+        final MemoryMARW mem = getPrimaryColumn(columnIndex);
+        final int type = columnTypes.getQuick(columnIndex);
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                mem.putByte((byte) 0);
+                break;
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                mem.putShort((short) 0);
+                break;
+            case ColumnType.INT:
+                mem.putInt(Numbers.INT_NaN);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                mem.putLong(Numbers.LONG_NaN);
+                break;
+            case ColumnType.FLOAT:
+                mem.putFloat(Float.NaN);
+                break;
+            case ColumnType.DOUBLE:
+                mem.putDouble(Double.NaN);
+                break;
+            case ColumnType.LONG256:
+                mem.putLong256(Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN);
+                break;
+            case ColumnType.GEOBYTE:
+                mem.putByte(GeoHashes.BYTE_NULL);
+                break;
+            case ColumnType.GEOSHORT:
+                mem.putShort(GeoHashes.SHORT_NULL);
+                break;
+            case ColumnType.GEOINT:
+                mem.putInt(GeoHashes.INT_NULL);
+                break;
+            case ColumnType.GEOLONG:
+                mem.putLong(GeoHashes.NULL);
+                break;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                getSecondaryColumn(columnIndex).putLong(mem.putNullStr());
+                break;
+            case ColumnType.BINARY:
+                getSecondaryColumn(columnIndex).putLong(mem.putNullBin());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void rewind(long rowCount) {
+        for (int i = 0, n = columnNames.size(); i < n; i++) {
+            final MemoryMARW primary = getPrimaryColumn(i);
+            final MemoryMARW secondary = getSecondaryColumn(i);
+            if (secondary != null) {
+                primary.jumpTo(secondary.getLong(rowCount << 3));
+                secondary.jumpTo((rowCount + 1) << 3);
+            } else {
+                primary.jumpTo(rowCount << ColumnType.pow2SizeOf(columnTypes.getQuick(i)));
+            }
+        }
+        segmentRowCount = rowCount;
+        rowValueIsNotNull.setAll(columnNames.size(), -1);
+    }
+
+    private void setRowValueNotNull(int columnIndex) {
+        rowValueIsNotNull.setQuick(columnIndex, segmentRowCount);
+    }
+
+    private class RowImpl implements TableWriter.Row {
+        @Override
+        public void append() {
+            for (int i = 0, n = columnNames.size(); i < n; i++) {
+                if (rowValueIsNotNull.getQuick(i) != segmentRowCount) {
+                    putNull(i);
+                }
+            }
+            segmentRowCount++;
+        }
+
+        @Override
+        public void cancel() {
+            rewind(segmentRowCount);
+        }
+
+        @Override
+        public void putBin(int columnIndex, long address, long len) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putBin(address, len));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putBin(int columnIndex, BinarySequence sequence) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putBin(sequence));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putBool(int columnIndex, boolean value) {
+            getPrimaryColumn(columnIndex).putBool(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putByte(int columnIndex, byte value) {
+            getPrimaryColumn(columnIndex).putByte(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putChar(int columnIndex, char value) {
+            getPrimaryColumn(columnIndex).putChar(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putDate(int columnIndex, long value) {
+            putLong(columnIndex, value);
+        }
+
+        @Override
+        public void putDouble(int columnIndex, double value) {
+            getPrimaryColumn(columnIndex).putDouble(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putFloat(int columnIndex, float value) {
+            getPrimaryColumn(columnIndex).putFloat(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putGeoHash(int index, long value) {
+            final MemoryMARW mem = getPrimaryColumn(index);
+            switch (ColumnType.tagOf(columnTypes.getQuick(index))) {
+                case ColumnType.GEOBYTE:
+                    mem.putByte((byte) value);
+                    break;
+                case ColumnType.GEOSHORT:
+                    mem.putShort((short) value);
+                    break;
+                case ColumnType.GEOINT:
+                    mem.putInt((int) value);
+                    break;
+                default:
+                    mem.putLong(value);
+                    break;
+            }
+            setRowValueNotNull(index);
+        }
+
+        @Override
+        public void putGeoHashDeg(int index, double lat, double lon) {
+            putGeoHash(index, GeoHashes.fromCoordinatesDegUnsafe(lat, lon, ColumnType.getGeoHashBits(columnTypes.getQuick(index))));
+        }
+
+        @Override
+        public void putGeoStr(int index, CharSequence hash) {
+            long val = GeoHashes.NULL;
+            if (hash != null) {
+                final int typeBits = ColumnType.getGeoHashBits(columnTypes.getQuick(index));
+                final int charsRequired = (typeBits - 1) / 5 + 1;
+                if (hash.length() >= charsRequired) {
+                    try {
+                        val = ColumnType.truncateGeoHashBits(
+                                GeoHashes.fromString(hash, 0, charsRequired),
+                                charsRequired * 5,
+                                typeBits
+                        );
+                    } catch (NumericException ignore) {
+                    }
+                }
+            }
+            putGeoHash(index, val);
+        }
+
+        @Override
+        public void putInt(int columnIndex, int value) {
+            getPrimaryColumn(columnIndex).putInt(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong(int columnIndex, long value) {
+            getPrimaryColumn(columnIndex).putLong(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, long l0, long l1, long l2, long l3) {
+            getPrimaryColumn(columnIndex).putLong256(l0, l1, l2, l3);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, Long256 value) {
+            getPrimaryColumn(columnIndex).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, CharSequence hexString) {
+            getPrimaryColumn(columnIndex).putLong256(hexString);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, @NotNull CharSequence hexString, int start, int end) {
+            getPrimaryColumn(columnIndex).putLong256(hexString, start, end);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putShort(int columnIndex, short value) {
+            getPrimaryColumn(columnIndex).putShort(value);
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putStr(int columnIndex, CharSequence value) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putStr(int columnIndex, char value) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putStr(int columnIndex, CharSequence value, int pos, int len) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value, pos, len));
+            setRowValueNotNull(columnIndex);
+        }
+
+        @Override
+        public void putSym(int columnIndex, CharSequence value) {
+            putStr(columnIndex, value);
+        }
+
+        @Override
+        public void putSym(int columnIndex, char value) {
+            putStr(columnIndex, value);
+        }
+
+        @Override
+        public void putSymIndex(int columnIndex, int symIndex) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putTimestamp(int columnIndex, long value) {
+            putLong(columnIndex, value);
+        }
+
+        @Override
+        public void putTimestamp(int columnIndex, CharSequence value) {
+            long l;
+            try {
+                l = value != null ? IntervalUtils.parseFloorPartialDate(value) : Numbers.LONG_NaN;
+            } catch (NumericException e) {
+                throw CairoException.instance(0).put("Invalid timestamp: ").put(value);
+            }
+            putTimestamp(columnIndex, l);
+        }
+    }
+}
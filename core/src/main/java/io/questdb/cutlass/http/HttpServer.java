@@ -32,6 +32,7 @@ import io.questdb.cutlass.http.processors.*;
 import io.questdb.griffin.FunctionFactoryCache;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
 import io.questdb.griffin.engine.table.LatestByAllIndexedJob;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.EagerThreadSetup;
@@ -184,6 +185,7 @@ public class HttpServer implements Closeable {
         workerPool.assign(new ColumnIndexerJob(cairoEngine.getMessageBus()));
         workerPool.assign(new GroupByJob(cairoEngine.getMessageBus()));
         workerPool.assign(new LatestByAllIndexedJob(cairoEngine.getMessageBus()));
+        workerPool.assign(new PageFrameFilterJob(cairoEngine.getMessageBus()));
     }
 
     @Nullable
@@ -66,6 +66,14 @@ public interface FunctionFactory {
      */
     String getSignature();
 
+    /**
+     * @return true if the {@link Function} produced by the factory is {@link io.questdb.griffin.engine.analytic.AnalyticFunction},
+     * which can only be called with OVER clause. Such factories are looked up separately from the rest.
+     */
+    default boolean isAnalytic() {
+        return false;
+    }
+
     default boolean isGroupBy() {
         return false;
     }
@@ -37,6 +37,7 @@ public class FunctionFactoryCache {
     static final CharSequenceHashSet invalidFunctionNames = new CharSequenceHashSet();
     private static final Log LOG = LogFactory.getLog(FunctionFactoryCache.class);
     private final LowerCaseCharSequenceObjHashMap<ObjList<FunctionFactoryDescriptor>> factories = new LowerCaseCharSequenceObjHashMap<>();
+    private final LowerCaseCharSequenceObjHashMap<ObjList<FunctionFactoryDescriptor>> analyticFactories = new LowerCaseCharSequenceObjHashMap<>();
     private final LowerCaseCharSequenceHashSet groupByFunctionNames = new LowerCaseCharSequenceHashSet();
     private final LowerCaseCharSequenceHashSet cursorFunctionNames = new LowerCaseCharSequenceHashSet();
     private final LowerCaseCharSequenceHashSet runtimeConstantFunctionNames = new LowerCaseCharSequenceHashSet();
@@ -49,6 +50,12 @@ public class FunctionFactoryCache {
                 try {
                     final FunctionFactoryDescriptor descriptor = new FunctionFactoryDescriptor(factory);
                     final String name = descriptor.getName();
+                    if (factory.isAnalytic()) {
+                        // analytic functions share names with group-by functions, e.g. sum(),
+                        // keep them apart to be resolved in analytic context only
+                        addFactoryToList(analyticFactories, descriptor);
+                        continue;
+                    }
                     addFactoryToList(factories, descriptor);
 
                     // Add != counterparts to equality function factories
@@ -96,6 +103,10 @@ public class FunctionFactoryCache {
         return new SwappingArgsFunctionFactory(name, factory);
     }
 
+    public ObjList<FunctionFactoryDescriptor> getAnalyticOverloadList(CharSequence token) {
+        return analyticFactories.get(token);
+    }
+
     public ObjList<FunctionFactoryDescriptor> getOverloadList(CharSequence token) {
         return factories.get(token);
     }
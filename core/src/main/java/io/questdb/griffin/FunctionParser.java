@@ -67,6 +67,8 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
     private final FunctionFactoryCache functionFactoryCache;
     private final IntList undefinedVariables = new IntList();
     private RecordMetadata metadata;
+    // root node of analytic function call, which is resolved against analytic factories
+    private ExpressionNode analyticNode;
     private SqlCodeGenerator sqlCodeGenerator;
     private SqlExecutionContext sqlExecutionContext;
 
@@ -206,6 +208,31 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         return false;
     }
 
+    /**
+     * Same as {@link #parseFunction(ExpressionNode, RecordMetadata, SqlExecutionContext)} except that the
+     * root node is resolved against analytic function factories. Arguments of the function are
+     * regular functions.
+     *
+     * @param node             root node of analytic function call
+     * @param metadata         metadata for resolving types of columns.
+     * @param executionContext analytic context of the execution context describes the OVER clause
+     * @return function instance
+     * @throws SqlException when function cannot be created
+     */
+    public Function parseAnalyticFunction(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ExpressionNode prevAnalyticNode = analyticNode;
+        analyticNode = node;
+        try {
+            return parseFunction(node, metadata, executionContext);
+        } finally {
+            analyticNode = prevAnalyticNode;
+        }
+    }
+
     /**
      * Creates function instance. When node type is {@link ExpressionNode#LITERAL} a column or parameter
      * function is returned. We will be using the supplied {@link #metadata} to resolve type of column. When node token
@@ -513,9 +540,23 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
             @Transient ObjList<Function> args,
             @Transient IntList argPositions
     ) throws SqlException {
-        final ObjList<FunctionFactoryDescriptor> overload = functionFactoryCache.getOverloadList(node.token);
-        if (overload == null) {
-            throw invalidFunction(node, args);
+        final ObjList<FunctionFactoryDescriptor> overload;
+        if (node == analyticNode) {
+            overload = functionFactoryCache.getAnalyticOverloadList(node.token);
+            if (overload == null) {
+                if (functionFactoryCache.getOverloadList(node.token) != null) {
+                    throw SqlException.position(node.position).put("non-analytic function called in analytic context");
+                }
+                throw invalidFunction(node, args);
+            }
+        } else {
+            overload = functionFactoryCache.getOverloadList(node.token);
+            if (overload == null) {
+                if (functionFactoryCache.getAnalyticOverloadList(node.token) != null) {
+                    throw SqlException.position(node.position).put("analytic function called without 'over' clause");
+                }
+                throw invalidFunction(node, args);
+            }
         }
 
         final int argCount = args == null ? 0 : args.size();
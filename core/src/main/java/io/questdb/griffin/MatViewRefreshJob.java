@@ -0,0 +1,155 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatView;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Brings materialized views up to date with their base tables. Only sample buckets overlapping
+ * timestamp range of rows committed since the last refresh are recomputed. Recomputed buckets
+ * are inserted into the view, which deduplicates them against the buckets it already has.
+ */
+public class MatViewRefreshJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(MatViewRefreshJob.class);
+    private final CairoEngine engine;
+    private final SqlCompiler compiler;
+    private final SqlExecutionContextImpl executionContext;
+    private final ObjList<MatView> views = new ObjList<>();
+    private final StringSink sql = new StringSink();
+    private final Path path = new Path();
+
+    public MatViewRefreshJob(CairoEngine engine) {
+        this(engine, null);
+    }
+
+    public MatViewRefreshJob(CairoEngine engine, @Nullable FunctionFactoryCache functionFactoryCache) {
+        this.engine = engine;
+        this.compiler = new SqlCompiler(engine, functionFactoryCache);
+        this.executionContext = new SqlExecutionContextImpl(engine, 1);
+        this.executionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+        Misc.free(path);
+        views.clear();
+    }
+
+    @Override
+    protected boolean runSerially() {
+        engine.getMatViews(views);
+        boolean useful = false;
+        for (int i = 0, n = views.size(); i < n; i++) {
+            final MatView view = views.getQuick(i);
+            long txn = -1;
+            try {
+                if (!view.isVerified()) {
+                    try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, view.getBaseTableName())) {
+                        view.verify(reader.getTxn());
+                    }
+                }
+                txn = view.getPendingTxn();
+                if (txn != -1) {
+                    refresh(view, txn);
+                    useful = true;
+                }
+            } catch (EntryUnavailableException e) {
+                // view or base table is busy, try again later
+                LOG.info().$("could not refresh, table busy [view=").$(view.getViewName()).$(", reason=").$(e.getFlyweightMessage()).$(']').$();
+            } catch (SqlException | CairoException e) {
+                LOG.error().$("could not refresh [view=").$(view.getViewName())
+                        .$(", baseTable=").$(view.getBaseTableName())
+                        .$(", txn=").$(txn)
+                        .$(", error=").$(e.getFlyweightMessage())
+                        .$(", sql=").$(sql)
+                        .$(']').$();
+                if (txn != -1) {
+                    view.onRefreshFailed(txn);
+                }
+            }
+        }
+        views.clear();
+        return useful;
+    }
+
+    private void refresh(MatView view, long txn) throws SqlException {
+        final String baseTableName = view.getBaseTableName();
+        long lo = view.getDirtyLo();
+        long hi = view.getDirtyHi();
+        final CharSequence timestampName;
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, baseTableName)) {
+            final int timestampIndex = reader.getMetadata().getTimestampIndex();
+            if (timestampIndex == -1) {
+                throw SqlException.$(0, "base table has no designated timestamp");
+            }
+            timestampName = reader.getMetadata().getColumnName(timestampIndex);
+            lo = Math.max(lo, reader.getMinTimestamp());
+            hi = Math.min(hi, reader.getMaxTimestamp());
+        }
+
+        if (lo <= hi) {
+            final TimestampSampler sampler = TimestampSamplerFactory.getInstance(view.getSampleBy(), 0);
+            sampler.setStart(view.getSampleByOffset());
+            final long bucketLo = sampler.round(lo);
+            final long bucketHi = sampler.nextTimestamp(sampler.round(hi));
+
+            // base table reference in the view query is replaced with the rows of dirty buckets
+            final String query = view.getQuery();
+            sql.clear();
+            sql.put("insert into ").put(view.getViewName()).put(' ');
+            sql.put(query, 0, view.getBaseTableNameLo());
+            sql.put("(").put(query, view.getBaseTableNameLo(), view.getBaseTableNameHi());
+            sql.put(" where ").put(timestampName).put(" >= '");
+            TimestampFormatUtils.appendDateTimeUSec(sql, bucketLo);
+            sql.put("' and ").put(timestampName).put(" < '");
+            TimestampFormatUtils.appendDateTimeUSec(sql, bucketHi);
+            sql.put("')");
+            sql.put(query, view.getBaseTableNameHi(), query.length());
+            compiler.compile(sql, executionContext);
+            LOG.info().$("refreshed [view=").$(view.getViewName())
+                    .$(", txn=").$(txn)
+                    .$(", lo=").$ts(bucketLo)
+                    .$(", hi=").$ts(bucketHi)
+                    .$(']').$();
+        }
+        view.onRefreshed(engine.getConfiguration(), path, txn);
+    }
+}
@@ -32,22 +32,27 @@ import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
 import io.questdb.griffin.engine.LimitRecordCursorFactory;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.analytic.AnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.constants.LongConstant;
 import io.questdb.griffin.engine.functions.constants.StrConstant;
+import io.questdb.griffin.engine.functions.geohash.WithinGeoHashFunctionFactory;
 import io.questdb.griffin.engine.groupby.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
+import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.RadixSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
 import io.questdb.griffin.engine.table.*;
 import io.questdb.griffin.engine.union.*;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -82,6 +87,7 @@ public class SqlCodeGenerator implements Mutable {
     private final ListColumnFilter listColumnFilterB = new ListColumnFilter();
     private final CairoConfiguration configuration;
     private final RecordComparatorCompiler recordComparatorCompiler;
+    private final FilterCompiler filterCompiler;
     private final IntHashSet intHashSet = new IntHashSet();
     private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
     private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
@@ -121,6 +127,7 @@ public class SqlCodeGenerator implements Mutable {
         this.configuration = configuration;
         this.functionParser = functionParser;
         this.recordComparatorCompiler = new RecordComparatorCompiler(asm);
+        this.filterCompiler = new FilterCompiler(asm);
     }
 
     @Override
@@ -316,6 +323,45 @@ public class SqlCodeGenerator implements Mutable {
         );
     }
 
+    private RowCursorFactory createCompositeIndexRowCursorFactory(
+            IntrinsicModel intrinsicModel,
+            IntList compositeIndexColumns,
+            @Nullable Function filter,
+            int indexDirection,
+            boolean latest,
+            IntList columnIndexes
+    ) throws SqlException {
+        final ObjList<Function> symbolFunctions = new ObjList<>();
+        for (int i = 0, n = intrinsicModel.compositeKeyValues.size(); i < n; i++) {
+            symbolFunctions.add(
+                    functionParser.createBindVariable(
+                            intrinsicModel.compositeKeyValuePositions.getQuick(i),
+                            intrinsicModel.compositeKeyValues.getQuick(i)
+                    )
+            );
+        }
+        return new CompositeIndexRowCursorFactory(compositeIndexColumns, symbolFunctions, filter, indexDirection, latest, columnIndexes);
+    }
+
+    private RowCursorFactory createGeoHashIndexRowCursorFactory(
+            IntrinsicModel intrinsicModel,
+            RecordMetadata readerMeta,
+            @Nullable Function filter,
+            IntList columnIndexes
+    ) throws SqlException {
+        final LongList geoHashPrefixes = intrinsicModel.geoHashPrefixes;
+        final int columnIndex = (int) geoHashPrefixes.getQuick(0);
+        final int columnType = (int) geoHashPrefixes.getQuick(1);
+        final LongList prefixes = new LongList(geoHashPrefixes.size() - 2);
+        prefixes.add(geoHashPrefixes, 2, geoHashPrefixes.size());
+        final Function within = new WithinGeoHashFunctionFactory.Func(
+                FunctionParser.createColumn(0, readerMeta.getColumnName(columnIndex), readerMeta),
+                columnType,
+                prefixes
+        );
+        return new GeoHashIndexRowCursorFactory(columnIndex, within, prefixes, filter, columnIndexes);
+    }
+
     @NotNull
     private RecordCursorFactory createFullFatJoin(
             RecordCursorFactory master,
@@ -486,7 +532,8 @@ public class SqlCodeGenerator implements Mutable {
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -519,6 +566,22 @@ public class SqlCodeGenerator implements Mutable {
         valueTypes.add(ColumnType.LONG);
         valueTypes.add(ColumnType.LONG);
 
+        if (isParallelHashJoinSupported(master, slave, executionContext)) {
+            final int workerCount = executionContext.getWorkerCount();
+            return new AsyncHashJoinLightRecordCursorFactory(
+                    configuration,
+                    metadata,
+                    toPageFrameFactory(master, workerCount),
+                    toPageFrameFactory(slave, workerCount),
+                    keyTypes,
+                    valueTypes,
+                    masterKeySink,
+                    slaveKeySink,
+                    masterMetadata.getColumnCount(),
+                    joinType != JOIN_INNER
+            );
+        }
+
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == JOIN_INNER) {
                 return new HashJoinLightRecordCursorFactory(
@@ -700,9 +763,95 @@ public class SqlCodeGenerator implements Mutable {
                 f.close();
             }
         }
+
+        if (factory instanceof DataFrameRecordCursorFactory) {
+            ((DataFrameRecordCursorFactory) factory).setPruningFilter(f, configuration.isZoneMapEnabled());
+        }
+
+        final boolean pageFramesSupported = factory.supportPageFrameCursor() && factory instanceof DataFrameRecordCursorFactory;
+        CompiledFilter compiledFilter = null;
+        ObjList<Function> operands = null;
+        if (configuration.isSqlFilterCompilerEnabled() && pageFramesSupported) {
+            operands = new ObjList<>();
+            compiledFilter = filterCompiler.compile(f, operands);
+        }
+
+        // a single worker would merely compete with the owner thread for page frames
+        final int workerCount = executionContext.getWorkerCount();
+        if (
+                configuration.isSqlParallelFilterEnabled()
+                        && workerCount > 1
+                        && pageFramesSupported
+                        && isParallelExecutionSupported(filter, factory.getMetadata())
+        ) {
+            // each worker evaluates its own copy of the filter, the owner thread uses the last one
+            final ObjList<Function> filters = new ObjList<>(workerCount + 1);
+            try {
+                for (int i = 0; i < workerCount; i++) {
+                    filters.add(compileFilter(filter, factory.getMetadata(), executionContext));
+                }
+            } catch (Throwable e) {
+                Misc.freeObjList(filters);
+                Misc.free(f);
+                throw e;
+            }
+            filters.add(f);
+            return new AsyncFilteredRecordCursorFactory(
+                    configuration,
+                    (DataFrameRecordCursorFactory) factory,
+                    filters,
+                    compiledFilter,
+                    operands
+            );
+        }
+
+        if (compiledFilter != null) {
+            // owner thread runs compiled filter over page frames on its own
+            final ObjList<Function> filters = new ObjList<>(1);
+            filters.add(f);
+            return new AsyncFilteredRecordCursorFactory(
+                    configuration,
+                    (DataFrameRecordCursorFactory) factory,
+                    filters,
+                    compiledFilter,
+                    operands
+            );
+        }
         return new FilteredRecordCursorFactory(factory, f);
     }
 
+    /**
+     * Expression, such as filter or group by function, can be evaluated on worker threads when
+     * every worker gets its own copy of the function and the functions do not share mutable
+     * state. Symbol values are resolved via
+     * reader's symbol tables, which are not thread-safe, sub-queries and random value
+     * generators share state via execution context.
+     */
+    private static boolean isParallelExecutionSupported(ExpressionNode node, RecordMetadata metadata) {
+        if (node == null) {
+            return true;
+        }
+        switch (node.type) {
+            case ExpressionNode.QUERY:
+                return false;
+            case LITERAL:
+                final int columnIndex = metadata.getColumnIndexQuiet(node.token);
+                return columnIndex > -1 && !ColumnType.isSymbol(metadata.getColumnType(columnIndex));
+            case FUNCTION:
+                if (Chars.startsWith(node.token, "rnd_")) {
+                    return false;
+                }
+                // fall through
+            default:
+                for (int i = 0, n = node.args.size(); i < n; i++) {
+                    if (!isParallelExecutionSupported(node.args.getQuick(i), metadata)) {
+                        return false;
+                    }
+                }
+                return isParallelExecutionSupported(node.lhs, metadata) && isParallelExecutionSupported(node.rhs, metadata);
+        }
+    }
+
     private RecordCursorFactory generateFunctionQuery(QueryModel model) throws SqlException {
         final Function function = model.getTableNameFunction();
         assert function != null;
@@ -888,7 +1037,8 @@ public class SqlCodeGenerator implements Mutable {
                                         createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                         master,
                                         slave,
-                                        joinType
+                                        joinType,
+                                        executionContext
                                 );
                                 masterAlias = null;
                                 break;
@@ -945,7 +1095,8 @@ public class SqlCodeGenerator implements Mutable {
             SqlExecutionContext executionContext,
             int timestampIndex,
             @NotNull IntList columnIndexes,
-            @NotNull LongList prefixes
+            @NotNull LongList prefixes,
+            @Nullable IntList compositeIndexColumns
     ) throws SqlException {
         final DataFrameCursorFactory dataFrameCursorFactory;
         if (intrinsicModel.hasIntervalFilters()) {
@@ -973,6 +1124,20 @@ public class SqlCodeGenerator implements Mutable {
             );
         }
 
+        if (intrinsicModel.compositeKeyValues.size() > 0) {
+            // composite index fixes value of latest by column, the latest row is the first one index finds backwards
+            return new DataFrameRecordCursorFactory(
+                    metadata,
+                    dataFrameCursorFactory,
+                    createCompositeIndexRowCursorFactory(intrinsicModel, compositeIndexColumns, filter, BitmapIndexReader.DIR_BACKWARD, true, columnIndexes),
+                    false,
+                    filter,
+                    false,
+                    columnIndexes,
+                    null
+            );
+        }
+
         if (intrinsicModel.keyColumn != null) {
             // key column must always be the same as latest by column
             assert latestByIndex == metadata.getColumnIndexQuiet(intrinsicModel.keyColumn);
@@ -1166,7 +1331,7 @@ public class SqlCodeGenerator implements Mutable {
         return generateSubQuery(model, executionContext);
     }
 
-    private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model) throws SqlException {
+    private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         if (recordCursorFactory.followedOrderByAdvice()) {
             return recordCursorFactory;
         }
@@ -1231,6 +1396,23 @@ public class SqlCodeGenerator implements Mutable {
                 orderedMetadata = GenericRecordMetadata.copyOfSansTimestamp(metadata);
 
                 if (recordCursorFactory.recordCursorSupportsRandomAccess()) {
+                    final long topK = getOrderByTopK(model, executionContext);
+                    if (topK > 0) {
+                        return new LimitedSizeSortedLightRecordCursorFactory(
+                                orderedMetadata,
+                                recordCursorFactory,
+                                recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                topK
+                        );
+                    }
+                    if (RadixSortedLightRecordCursorFactory.isSupported(metadata, listColumnFilterA)) {
+                        return new RadixSortedLightRecordCursorFactory(
+                                configuration,
+                                orderedMetadata,
+                                recordCursorFactory,
+                                listColumnFilterA
+                        );
+                    }
                     return new SortedLightRecordCursorFactory(
                             configuration,
                             orderedMetadata,
@@ -1286,7 +1468,8 @@ public class SqlCodeGenerator implements Mutable {
                                 model,
                                 executionContext
                         ),
-                        model
+                        model,
+                        executionContext
                 ),
                 model,
                 executionContext
@@ -1630,11 +1813,31 @@ public class SqlCodeGenerator implements Mutable {
 
     private RecordCursorFactory generateSelectAnalytic(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final RecordCursorFactory base = generateSubQuery(model, executionContext);
+        // analytic functions by column index
+        final ObjList<AnalyticFunction> analyticFunctions = new ObjList<>();
+        try {
+            return generateSelectAnalytic(model, base, analyticFunctions, executionContext);
+        } catch (Throwable e) {
+            Misc.freeObjList(analyticFunctions);
+            Misc.free(base);
+            throw e;
+        }
+    }
+
+    private RecordCursorFactory generateSelectAnalytic(
+            QueryModel model,
+            RecordCursorFactory base,
+            ObjList<AnalyticFunction> analyticFunctions,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
         final RecordMetadata baseMetadata = base.getMetadata();
+        final int baseTimestampIndex = baseMetadata.getTimestampIndex();
         final ObjList<QueryColumn> columns = model.getColumns();
         final int columnCount = columns.size();
         grouppedAnalytic.clear();
         ObjList<AnalyticFunction> naturalOrderFunctions = null;
+        // all functions compute in order of base rows in a single pass
+        boolean streamable = true;
 
         valueTypes.clear();
         ArrayColumnTypes chainTypes = valueTypes;
@@ -1698,8 +1901,23 @@ public class SqlCodeGenerator implements Mutable {
             if (qc instanceof AnalyticColumn) {
                 final AnalyticColumn ac = (AnalyticColumn) qc;
                 final ExpressionNode ast = qc.getAst();
-                if (ast.paramCount > 1) {
-                    throw SqlException.$(ast.position, "Too many arguments");
+
+                final int osz = ac.getOrderBy().size();
+                final int framingMode = ac.getFramingMode();
+                final long rowsLo;
+                final long rowsHi;
+                int frameTimestampIndex = -1;
+                if (framingMode == 0) {
+                    // default frame ends at current row for ordered partitions and
+                    // spans whole partition otherwise
+                    rowsLo = Long.MIN_VALUE;
+                    rowsHi = osz > 0 ? 0 : Long.MAX_VALUE;
+                } else {
+                    if (ac.getRowsLoExpr() != null && framingMode == AnalyticColumn.FRAMING_RANGE) {
+                        frameTimestampIndex = getFrameTimestampIndex(ac, chainMetadata);
+                    }
+                    rowsLo = getFrameLo(ac, frameTimestampIndex != -1);
+                    rowsHi = getFrameHi(ac, rowsLo);
                 }
 
                 ObjList<Function> partitionBy = null;
@@ -1738,19 +1956,32 @@ public class SqlCodeGenerator implements Mutable {
                 }
 
 
-                final int osz = ac.getOrderBy().size();
                 executionContext.configureAnalyticContext(
                         partitionByRecord,
                         partitionBySink,
                         keyTypes,
                         osz > 0,
-                        base.recordCursorSupportsRandomAccess()
+                        base.recordCursorSupportsRandomAccess(),
+                        framingMode,
+                        rowsLo,
+                        rowsHi,
+                        frameTimestampIndex
                 );
 
-                final Function f = functionParser.parseFunction(ac.getAst(), baseMetadata, executionContext);
-                // todo: throw an error when non-analytic function is called in analytic context
-                assert f instanceof AnalyticFunction;
+                final Function f;
+                try {
+                    f = functionParser.parseAnalyticFunction(ac.getAst(), chainMetadata, executionContext);
+                } catch (Throwable e) {
+                    // partition by functions are owned by analytic function once it is created
+                    Misc.freeObjList(partitionBy);
+                    throw e;
+                }
+                if (!(f instanceof AnalyticFunction)) {
+                    Misc.free(f);
+                    throw SqlException.$(ast.position, "non-analytic function called in analytic context");
+                }
                 AnalyticFunction analyticFunction = (AnalyticFunction) f;
+                analyticFunctions.extendAndSet(i, analyticFunction);
 
                 // analyze order by clause on the current model and optimise out
                 // order by on analytic function if it matches the one on the model
@@ -1770,6 +2001,16 @@ public class SqlCodeGenerator implements Mutable {
                     dismissOrder = false;
                 }
 
+                // base cursor is already ordered by its designated timestamp
+                if (osz == 1
+                        && baseTimestampIndex != -1
+                        && ac.getOrderByDirection().getQuick(0) == QueryModel.ORDER_DIRECTION_ASCENDING
+                        && ac.getOrderBy().getQuick(0).type == ExpressionNode.LITERAL
+                        && Chars.equalsIgnoreCase(ac.getOrderBy().getQuick(0).token, baseMetadata.getColumnName(baseTimestampIndex))
+                ) {
+                    dismissOrder = true;
+                }
+
                 if (osz > 0 && !dismissOrder) {
                     IntList order = toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection());
                     ObjList<AnalyticFunction> funcs = grouppedAnalytic.get(order);
@@ -1777,11 +2018,13 @@ public class SqlCodeGenerator implements Mutable {
                         grouppedAnalytic.put(order, funcs = new ObjList<>());
                     }
                     funcs.add(analyticFunction);
+                    streamable = false;
                 } else {
                     if (naturalOrderFunctions == null) {
                         naturalOrderFunctions = new ObjList<>();
                     }
                     naturalOrderFunctions.add(analyticFunction);
+                    streamable &= analyticFunction.getPassCount() == AnalyticFunction.STREAM;
                 }
 
                 analyticFunction.setColumnIndex(i);
@@ -1809,6 +2052,40 @@ public class SqlCodeGenerator implements Mutable {
             }
         }
 
+        // maps chain columns to base columns, analytic columns have no base counterpart
+        final IntList columnCrossIndex = new IntList(chainTypes.getColumnCount());
+        for (int i = 0, n = chainTypes.getColumnCount(); i < n; i++) {
+            if (deferredAnalyticMetadata.getQuiet(i) != null) {
+                columnCrossIndex.add(-1);
+            } else {
+                final int baseIndex = listColumnFilterB.getQuick(i);
+                columnCrossIndex.add(baseIndex);
+                // rows come out in the order of the base cursor
+                if (i < columnCount && baseIndex == baseTimestampIndex) {
+                    factoryMetadata.setTimestampIndex(i);
+                }
+            }
+        }
+
+        if (streamable) {
+            final ObjList<Function> functions = new ObjList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                final TableColumnMetadata m = deferredAnalyticMetadata.getQuiet(i);
+                if (m != null) {
+                    functions.add((Function) analyticFunctions.getQuick(i));
+                } else {
+                    functions.add(FunctionParser.createColumn(0, chainMetadata.getColumnName(i), chainMetadata));
+                }
+            }
+            return new AnalyticRecordCursorFactory(
+                    factoryMetadata,
+                    base,
+                    columnCrossIndex,
+                    functions,
+                    naturalOrderFunctions
+            );
+        }
+
         final ObjList<RecordComparator> analyticComparators = new ObjList<>(grouppedAnalytic.size());
         final ObjList<ObjList<AnalyticFunction>> functionGroups = new ObjList<>(grouppedAnalytic.size());
         for (ObjObjHashMap.Entry<IntList, ObjList<AnalyticFunction>> e : grouppedAnalytic) {
@@ -1830,6 +2107,7 @@ public class SqlCodeGenerator implements Mutable {
                 recordSink,
                 factoryMetadata,
                 chainTypes,
+                columnCrossIndex,
                 analyticComparators,
                 functionGroups,
                 naturalOrderFunctions
@@ -2199,6 +2477,50 @@ public class SqlCodeGenerator implements Mutable {
                 );
             }
 
+            if (isParallelGroupBySupported(model, factory, groupByFunctions, executionContext)) {
+                // one set of group by functions per worker, the owner thread uses the original set
+                final AsyncFilteredRecordCursorFactory pageFrameFactory = factory instanceof AsyncFilteredRecordCursorFactory
+                        ? (AsyncFilteredRecordCursorFactory) factory
+                        : new AsyncFilteredRecordCursorFactory(configuration, (DataFrameRecordCursorFactory) factory, executionContext.getWorkerCount());
+                factory = pageFrameFactory;
+                final int slotCount = pageFrameFactory.getSlotCount();
+                final ObjList<ObjList<GroupByFunction>> slotFunctions = new ObjList<>(slotCount);
+                try {
+                    for (int i = 0; i < slotCount - 1; i++) {
+                        final ObjList<GroupByFunction> functions = new ObjList<>(groupByFunctions.size());
+                        slotFunctions.add(functions);
+                        arrayColumnTypes.clear();
+                        GroupByUtils.prepareGroupByFunctions(
+                                model,
+                                metadata,
+                                functionParser,
+                                executionContext,
+                                functions,
+                                groupByFunctionPositions,
+                                arrayColumnTypes
+                        );
+                    }
+                } catch (Throwable e) {
+                    for (int i = 0, n = slotFunctions.size(); i < n; i++) {
+                        Misc.freeObjList(slotFunctions.getQuick(i));
+                    }
+                    Misc.freeObjList(recordFunctions);
+                    throw e;
+                }
+                slotFunctions.add(groupByFunctions);
+
+                return new AsyncGroupByRecordCursorFactory(
+                        configuration,
+                        pageFrameFactory,
+                        RecordSinkFactory.getInstance(asm, metadata, listColumnFilterA, false),
+                        keyTypes,
+                        valueTypes,
+                        groupByMetadata,
+                        slotFunctions,
+                        recordFunctions
+                );
+            }
+
             return new io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory(
                     configuration,
                     factory,
@@ -2217,6 +2539,83 @@ public class SqlCodeGenerator implements Mutable {
         }
     }
 
+    /**
+     * Hash join runs on worker threads when both sides read table page frames, optionally filtered
+     * in parallel. Join keys are copied from page frame records, which do not resolve symbols.
+     */
+    private boolean isParallelHashJoinSupported(
+            RecordCursorFactory master,
+            RecordCursorFactory slave,
+            SqlExecutionContext executionContext
+    ) {
+        if (
+                !configuration.isSqlParallelJoinEnabled()
+                        || fullFatJoins
+                        || executionContext.getWorkerCount() < 2
+                        || !isPageFrameFactory(master)
+                        || !isPageFrameFactory(slave)
+        ) {
+            return false;
+        }
+        return !hasSymbolKeys(master.getMetadata(), listColumnFilterB) && !hasSymbolKeys(slave.getMetadata(), listColumnFilterA);
+    }
+
+    private static boolean hasSymbolKeys(RecordMetadata metadata, ListColumnFilter keyColumns) {
+        for (int i = 0, n = keyColumns.getColumnCount(); i < n; i++) {
+            if (ColumnType.isSymbol(metadata.getColumnType(keyColumns.getColumnIndexFactored(i)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPageFrameFactory(RecordCursorFactory factory) {
+        return factory instanceof AsyncFilteredRecordCursorFactory
+                || factory instanceof DataFrameRecordCursorFactory && factory.supportPageFrameCursor();
+    }
+
+    private AsyncFilteredRecordCursorFactory toPageFrameFactory(RecordCursorFactory factory, int workerCount) {
+        return factory instanceof AsyncFilteredRecordCursorFactory
+                ? (AsyncFilteredRecordCursorFactory) factory
+                : new AsyncFilteredRecordCursorFactory(configuration, (DataFrameRecordCursorFactory) factory, workerCount);
+    }
+
+    /**
+     * Keyed group by runs on worker threads when it reads table page frames, optionally filtered
+     * in parallel, and every group by function can merge partial aggregates computed by workers.
+     */
+    private boolean isParallelGroupBySupported(
+            QueryModel model,
+            RecordCursorFactory factory,
+            ObjList<GroupByFunction> groupByFunctions,
+            SqlExecutionContext executionContext
+    ) {
+        if (
+                !configuration.isSqlParallelGroupByEnabled()
+                        || executionContext.getWorkerCount() < 2
+                        || !(factory instanceof AsyncFilteredRecordCursorFactory
+                        || factory instanceof DataFrameRecordCursorFactory && factory.supportPageFrameCursor())
+        ) {
+            return false;
+        }
+
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            if (!groupByFunctions.getQuick(i).supportsParallelism()) {
+                return false;
+            }
+        }
+
+        final ObjList<QueryColumn> columns = model.getColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final ExpressionNode node = columns.getQuick(i).getAst();
+            // key columns are copied to map as is, symbols are copied as int keys
+            if (node.type != LITERAL && !isParallelExecutionSupported(node, factory.getMetadata())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private RecordCursorFactory generateSelectVirtual(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final RecordCursorFactory factory = generateSubQuery(model, executionContext);
 
@@ -2469,14 +2868,21 @@ public class SqlCodeGenerator implements Mutable {
 
             final String tableName = reader.getTableName();
 
-            final ExpressionNode withinExtracted = whereClauseParser.extractWithin(
-                    model,
-                    model.getWhereClause(),
-                    readerMeta,
-                    functionParser,
-                    executionContext,
-                    prefixes
-            );
+            final ExpressionNode withinExtracted;
+            if (latestByColumnCount > 0) {
+                withinExtracted = whereClauseParser.extractWithin(
+                        model,
+                        model.getWhereClause(),
+                        readerMeta,
+                        functionParser,
+                        executionContext,
+                        prefixes
+                );
+            } else {
+                // without LATEST BY 'within' is a filter, which geohash index can take over
+                prefixes.clear();
+                withinExtracted = model.getWhereClause();
+            }
 
             model.setWhereClause(withinExtracted);
 
@@ -2493,6 +2899,14 @@ public class SqlCodeGenerator implements Mutable {
                 }
 
 
+                IntList compositeIndexColumns = getCompositeIndexColumns(reader.getMetadata());
+                if (compositeIndexColumns != null
+                        && latestByColumnCount > 0
+                        && (latestByColumnCount > 1 || compositeIndexColumns.indexOf(columnIndexes.getQuick(listColumnFilterA.getColumnIndexFactored(0)), 0, compositeIndexColumns.size()) == -1)) {
+                    // composite index can only find the latest row when it fixes value of the latest by column
+                    compositeIndexColumns = null;
+                }
+
                 final IntrinsicModel intrinsicModel = whereClauseParser.extract(
                         model,
                         withinExtracted,
@@ -2501,7 +2915,9 @@ public class SqlCodeGenerator implements Mutable {
                         readerTimestampIndex,
                         functionParser,
                         myMeta,
-                        executionContext
+                        executionContext,
+                        compositeIndexColumns,
+                        latestByColumnCount == 0 ? getGeoHashIndexColumns(reader.getMetadata()) : null
                 );
 
                 // intrinsic parser can collapse where clause when removing parts it can replace
@@ -2534,7 +2950,8 @@ public class SqlCodeGenerator implements Mutable {
                             executionContext,
                             readerTimestampIndex,
                             columnIndexes,
-                            prefixes
+                            prefixes,
+                            compositeIndexColumns
                     );
                 }
 
@@ -2550,6 +2967,52 @@ public class SqlCodeGenerator implements Mutable {
                     intervalHitsOnlyOnePartition = false;
                 }
 
+                if (intrinsicModel.compositeKeyValues.size() > 0) {
+                    Function f = compileFilter(intrinsicModel, myMeta, executionContext);
+                    if (f != null && f.isConstant()) {
+                        try {
+                            if (!f.getBool(null)) {
+                                return new EmptyTableRecordCursorFactory(myMeta);
+                            }
+                        } finally {
+                            f = Misc.free(f);
+                        }
+                    }
+                    return new DataFrameRecordCursorFactory(
+                            myMeta,
+                            dfcFactory,
+                            createCompositeIndexRowCursorFactory(intrinsicModel, compositeIndexColumns, f, BitmapIndexReader.DIR_FORWARD, false, columnIndexes),
+                            false,
+                            f,
+                            false,
+                            columnIndexes,
+                            columnSizes
+                    );
+                }
+
+                if (intrinsicModel.geoHashPrefixes.size() > 0) {
+                    Function f = compileFilter(intrinsicModel, myMeta, executionContext);
+                    if (f != null && f.isConstant()) {
+                        try {
+                            if (!f.getBool(null)) {
+                                return new EmptyTableRecordCursorFactory(myMeta);
+                            }
+                        } finally {
+                            f = Misc.free(f);
+                        }
+                    }
+                    return new DataFrameRecordCursorFactory(
+                            myMeta,
+                            dfcFactory,
+                            createGeoHashIndexRowCursorFactory(intrinsicModel, readerMeta, f, columnIndexes),
+                            false,
+                            f,
+                            false,
+                            columnIndexes,
+                            columnSizes
+                    );
+                }
+
                 if (intrinsicModel.keyColumn != null) {
                     // existence of column would have been already validated
                     final int keyColumnIndex = reader.getMetadata().getColumnIndexQuiet(intrinsicModel.keyColumn);
@@ -2869,6 +3332,176 @@ public class SqlCodeGenerator implements Mutable {
         return unionFactory;
     }
 
+    /**
+     * @return reader indexes of composite index columns in index key order or null when table has no composite index
+     */
+    @Nullable
+    private static IntList getCompositeIndexColumns(TableReaderMetadata metadata) {
+        final int columnCount = metadata.getCompositeIndexColumnCount();
+        if (columnCount == 0) {
+            return null;
+        }
+        final IntList columns = new IntList(columnCount);
+        columns.setPos(columnCount);
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int position = metadata.getCompositeIndexPosition(i);
+            if (position > -1) {
+                columns.setQuick(position, i);
+            }
+        }
+        return columns;
+    }
+
+    private static IntList getGeoHashIndexColumns(TableReaderMetadata metadata) {
+        IntList columns = null;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (metadata.isGeoHashIndexed(i)) {
+                if (columns == null) {
+                    columns = new IntList();
+                }
+                columns.add(i);
+            }
+        }
+        return columns;
+    }
+
+    private static long getFrameHi(AnalyticColumn ac, long rowsLo) throws SqlException {
+        switch (ac.getRowsHiKind()) {
+            case AnalyticColumn.CURRENT:
+                return 0;
+            case AnalyticColumn.FOLLOWING:
+                if (ac.getRowsHiExpr() == null && rowsLo == Long.MIN_VALUE) {
+                    return Long.MAX_VALUE;
+                }
+                break;
+            default:
+                break;
+        }
+        throw SqlException.$(ac.getRowsHiKindPos(), "unsupported frame end, 'current row' expected");
+    }
+
+    private static long getFrameLo(AnalyticColumn ac, boolean timeUnits) throws SqlException {
+        switch (ac.getRowsLoKind()) {
+            case AnalyticColumn.CURRENT:
+                return 0;
+            case AnalyticColumn.PRECEDING:
+                final ExpressionNode expr = ac.getRowsLoExpr();
+                return expr == null ? Long.MIN_VALUE : -getFrameOffset(expr, timeUnits);
+            default:
+                throw SqlException.$(ac.getRowsLoKindPos(), "unsupported frame start, 'preceding' or 'current row' expected");
+        }
+    }
+
+    /**
+     * Parses frame offset such as '10' or, when timeUnits is set, '10m', '3h', '1d'. Offset of range frame
+     * without unit is in units of the timestamp column.
+     */
+    private static long getFrameOffset(ExpressionNode expr, boolean timeUnits) throws SqlException {
+        final CharSequence tok = expr.token;
+        final int len = tok.length();
+        int k = len;
+        for (int i = 0; i < len; i++) {
+            final char c = tok.charAt(i);
+            if (c < '0' || c > '9') {
+                k = i;
+                break;
+            }
+        }
+
+        if (k == 0) {
+            throw SqlException.$(expr.position, "non-negative integer frame offset expected");
+        }
+
+        final long n;
+        try {
+            n = Numbers.parseLong(tok, 0, k);
+        } catch (NumericException e) {
+            throw SqlException.$(expr.position, "invalid frame offset");
+        }
+
+        if (k == len) {
+            if (!timeUnits && n > Integer.MAX_VALUE) {
+                throw SqlException.$(expr.position, "frame offset is too large");
+            }
+            return n;
+        }
+
+        if (!timeUnits) {
+            throw SqlException.$(expr.position + k, "non-negative integer frame offset expected");
+        }
+
+        if (k + 1 < len) {
+            throw SqlException.$(expr.position + k, "expected single letter qualifier");
+        }
+
+        final long multiplier;
+        switch (tok.charAt(k)) {
+            case 'T':
+                multiplier = Timestamps.MILLI_MICROS;
+                break;
+            case 's':
+                multiplier = Timestamps.SECOND_MICROS;
+                break;
+            case 'm':
+                multiplier = Timestamps.MINUTE_MICROS;
+                break;
+            case 'h':
+                multiplier = Timestamps.HOUR_MICROS;
+                break;
+            case 'd':
+                multiplier = Timestamps.DAY_MICROS;
+                break;
+            default:
+                throw SqlException.$(expr.position + k, "unsupported interval qualifier");
+        }
+
+        if (n > Long.MAX_VALUE / multiplier) {
+            throw SqlException.$(expr.position, "frame offset is too large");
+        }
+        return n * multiplier;
+    }
+
+    private static int getFrameTimestampIndex(AnalyticColumn ac, RecordMetadata chainMetadata) throws SqlException {
+        if (ac.getOrderBy().size() == 1 && ac.getOrderByDirection().getQuick(0) == QueryModel.ORDER_DIRECTION_ASCENDING) {
+            final int index = chainMetadata.getColumnIndexQuiet(ac.getOrderBy().getQuick(0).token);
+            if (index != -1 && ColumnType.tagOf(chainMetadata.getColumnType(index)) == ColumnType.TIMESTAMP) {
+                return index;
+            }
+        }
+        throw SqlException.$(ac.getFramingModePos(), "range frame with offset requires ascending order by single timestamp column");
+    }
+
+    private long getConstantLimit(ExpressionNode node, SqlExecutionContext executionContext) throws SqlException {
+        final Function func = functionParser.parseFunction(node, EmptyRecordMetadata.INSTANCE, executionContext);
+        try {
+            return limitTypes.excludes(func.getType()) ? -1 : func.getLong(null);
+        } finally {
+            Misc.free(func);
+        }
+    }
+
+    /**
+     * Number of rows ORDER BY has to produce when it is followed by constant LIMIT that
+     * selects from the head of result set, e.g. "limit 10" or "limit 5, 10". Returns 0 when
+     * all rows have to be sorted.
+     */
+    private long getOrderByTopK(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        final ExpressionNode limitLo = model.getLimitLo();
+        if (limitLo == null || limitLo.type != ExpressionNode.CONSTANT) {
+            return 0;
+        }
+        final ExpressionNode limitHi = model.getLimitHi();
+        if (limitHi != null && limitHi.type != ExpressionNode.CONSTANT) {
+            return 0;
+        }
+        final long lo = getConstantLimit(limitLo, executionContext);
+        final long hi = limitHi != null ? getConstantLimit(limitHi, executionContext) : lo;
+        if (lo < 0 || hi < lo || hi > configuration.getSqlSortTopKMaxRows()) {
+            return 0;
+        }
+        return hi;
+    }
+
     private int getTimestampIndex(QueryModel model, RecordCursorFactory factory) throws SqlException {
         final RecordMetadata metadata = factory.getMetadata();
         try {
@@ -27,6 +27,7 @@ package io.questdb.griffin;
 import io.questdb.MessageBus;
 import io.questdb.PropServerConfiguration;
 import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatView;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
@@ -48,6 +49,7 @@ import io.questdb.std.*;
 import io.questdb.std.datetime.DateFormat;
 import io.questdb.std.str.NativeLPSZ;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -82,15 +84,24 @@ public class SqlCompiler implements Closeable {
     private final BytecodeAssembler asm = new BytecodeAssembler();
     private final MessageBus messageBus;
     private final ListColumnFilter listColumnFilter = new ListColumnFilter();
+    private final IntList updateColumnIndexes = new IntList();
     private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
     private final IntIntHashMap typeCast = new IntIntHashMap();
     private final ObjList<TableWriter> tableWriters = new ObjList<>();
+    // timestamps and SQL positions of partitions listed by ALTER TABLE MOVE PARTITION
+    private final LongList movePartitionTimestamps = new LongList();
+    private final IntList movePartitionPositions = new IntList();
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
     private final FunctionParser functionParser;
     private final ExecutableMethod insertAsSelectMethod = this::insertAsSelect;
     private final ExecutableMethod createTableMethod = this::createTable;
+    private final ExecutableMethod updateMethod = this::update;
     private final TextLoader textLoader;
     private final FilesFacade ff;
+    // main lexer may still hold the rest of the batch, view queries are parsed separately
+    private final GenericLexer matViewLexer;
+    private final StringSink matViewQuerySink = new StringSink();
+    private final StringSink decimalSink = new StringSink();
 
 
     public SqlCompiler(CairoEngine engine) {
@@ -157,6 +168,8 @@ public class SqlCompiler implements Closeable {
         keywordBasedExecutors.put("SHOW", sqlShow);
 
         configureLexer(lexer);
+        this.matViewLexer = new GenericLexer(configuration.getSqlLexerPoolCapacity());
+        configureLexer(matViewLexer);
 
         final PostOrderTreeTraversalAlgo postOrderTreeTraversalAlgo = new PostOrderTreeTraversalAlgo();
         optimiser = new SqlOptimiser(
@@ -860,6 +873,56 @@ public class SqlCompiler implements Closeable {
         return tok;
     }
 
+    /**
+     * Parses TTL such as 12h, 90d, 2w, 6M or 1y. Hours, days and weeks are returned as positive
+     * number of hours, months and years as negative number of months.
+     */
+    private static int parseTtl(CharSequence tok, int position) throws SqlException {
+        final int len = tok.length();
+        if (len == 1 && tok.charAt(0) == '0') {
+            // partitions do not expire
+            return 0;
+        }
+        long value;
+        try {
+            value = len > 1 ? Numbers.parseLong(tok, 0, len - 1) : -1;
+        } catch (NumericException e) {
+            value = -1;
+        }
+        if (value < 0) {
+            throw SqlException.$(position, "invalid TTL [value=").put(tok).put(']');
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw SqlException.$(position, "TTL is too long [value=").put(tok).put(']');
+        }
+        switch (tok.charAt(len - 1)) {
+            case 'h':
+            case 'H':
+                break;
+            case 'd':
+            case 'D':
+                value *= 24;
+                break;
+            case 'w':
+            case 'W':
+                value *= 24 * 7;
+                break;
+            case 'M':
+                value = -value;
+                break;
+            case 'y':
+            case 'Y':
+                value = -value * 12;
+                break;
+            default:
+                throw SqlException.$(position + len - 1, "TTL unit expected, one of 'h', 'd', 'w', 'M' or 'y'");
+        }
+        if (value > Integer.MAX_VALUE || value < -Integer.MAX_VALUE) {
+            throw SqlException.$(position, "TTL is too long [value=").put(tok).put(']');
+        }
+        return (int) value;
+    }
+
     private void alterSystemLockWriter(SqlExecutionContext executionContext) throws SqlException {
         final int tableNamePosition = lexer.getPosition();
         CharSequence tok = GenericLexer.unquote(expectToken(lexer, "table name"));
@@ -923,6 +986,30 @@ public class SqlCompiler implements Closeable {
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
                     }
+                } else if (SqlKeywords.isCompressKeyword(tok)) {
+                    tok = expectToken(lexer, "'partition'");
+                    if (SqlKeywords.isPartitionKeyword(tok)) {
+                        tok = expectToken(lexer, "'list'");
+                        if (SqlKeywords.isListKeyword(tok)) {
+                            alterTableDropOrAttachPartitionByList(writer, PartitionAction.COMPRESS);
+                        } else {
+                            throw SqlException.$(lexer.lastTokenPosition(), "'list' expected");
+                        }
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
+                    }
+                } else if (SqlKeywords.isMoveKeyword(tok)) {
+                    tok = expectToken(lexer, "'partition'");
+                    if (SqlKeywords.isPartitionKeyword(tok)) {
+                        tok = expectToken(lexer, "'list'");
+                        if (SqlKeywords.isListKeyword(tok)) {
+                            alterTableMovePartition(writer);
+                        } else {
+                            throw SqlException.$(lexer.lastTokenPosition(), "'list' expected");
+                        }
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'partition' expected");
+                    }
                 } else if (SqlKeywords.isRenameKeyword(tok)) {
                     tok = expectToken(lexer, "'column'");
                     if (SqlKeywords.isColumnKeyword(tok)) {
@@ -955,7 +1042,10 @@ public class SqlCompiler implements Closeable {
 
                 } else if (SqlKeywords.isSetKeyword(tok)) {
                     tok = expectToken(lexer, "'param'");
-                    if (SqlKeywords.isParamKeyword(tok)) {
+                    if (SqlKeywords.isTtlKeyword(tok)) {
+                        tok = expectToken(lexer, "TTL value");
+                        writer.setMetaTtl(parseTtl(tok, lexer.lastTokenPosition()));
+                    } else if (SqlKeywords.isParamKeyword(tok)) {
                         final int paramNameNamePosition = lexer.getPosition();
                         tok = expectToken(lexer, "param name");
                         final CharSequence paramName = GenericLexer.immutableOf(tok);
@@ -970,7 +1060,7 @@ public class SqlCompiler implements Closeable {
                         throw SqlException.$(lexer.lastTokenPosition(), "'param' expected");
                     }
                 } else {
-                    throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'attach', 'set' or 'rename' expected");
+                    throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'attach', 'compress', 'set' or 'rename' expected");
                 }
             } catch (CairoException e) {
                 LOG.info().$("could not alter table [table=").$(tableName).$(", ex=").$((Sinkable) e).$();
@@ -1061,6 +1151,8 @@ public class SqlCompiler implements Closeable {
             final boolean cache;
             int symbolCapacity;
             final boolean indexed;
+            boolean hasDefault = false;
+            long defaultValue = 0;
 
             if (ColumnType.isSymbol(type) && tok != null && !Chars.equals(tok, ',')) {
 
@@ -1134,6 +1226,12 @@ public class SqlCompiler implements Closeable {
                     tok = SqlUtil.fetchNext(lexer);
                 }
 
+                if (tok != null && SqlKeywords.isDefaultKeyword(tok)) {
+                    hasDefault = true;
+                    defaultValue = parseColumnDefault(type);
+                    tok = SqlUtil.fetchNext(lexer);
+                }
+
                 cache = configuration.getDefaultSymbolCacheFlag();
                 indexValueBlockCapacity = configuration.getIndexValueBlockSize();
                 symbolCapacity = configuration.getDefaultSymbolCapacity();
@@ -1141,14 +1239,18 @@ public class SqlCompiler implements Closeable {
             }
 
             try {
-                writer.addColumn(
-                        columnName,
-                        type,
-                        Numbers.ceilPow2(symbolCapacity),
-                        cache, indexed,
-                        Numbers.ceilPow2(indexValueBlockCapacity),
-                        false
-                );
+                if (hasDefault) {
+                    writer.addColumn(columnName, type, defaultValue);
+                } else {
+                    writer.addColumn(
+                            columnName,
+                            type,
+                            Numbers.ceilPow2(symbolCapacity),
+                            cache, indexed,
+                            Numbers.ceilPow2(indexValueBlockCapacity),
+                            false
+                    );
+                }
             } catch (CairoException e) {
                 LOG.error()
                         .$("could not add column [table=").$(writer.getTableName())
@@ -1299,6 +1401,11 @@ public class SqlCompiler implements Closeable {
                             throw SqlException.$(lexer.lastTokenPosition(), "attach partition '").put(unquoted).put("', failed with error ").put(statusCode);
                     }
                     break;
+                case PartitionAction.COMPRESS:
+                    if (!writer.compressPartition(timestamp)) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "could not compress partition '").put(unquoted).put('\'');
+                    }
+                    break;
                 default:
                     throw SqlException.$(lexer.lastTokenPosition(), "unsupported partition action");
             }
@@ -1315,6 +1422,55 @@ public class SqlCompiler implements Closeable {
         } while (true);
     }
 
+    private void alterTableMovePartition(TableWriter writer) throws SqlException {
+        movePartitionTimestamps.clear();
+        movePartitionPositions.clear();
+        CharSequence tok;
+        do {
+            tok = expectToken(lexer, "partition name");
+            if (Chars.equals(tok, ',')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "partition name missing");
+            }
+            try {
+                movePartitionTimestamps.add(writer.partitionNameToTimestamp(GenericLexer.unquote(tok)));
+            } catch (CairoException e) {
+                throw SqlException.$(lexer.lastTokenPosition(), e.getFlyweightMessage())
+                        .put("[errno=").put(e.getErrno()).put(']');
+            }
+            movePartitionPositions.add(lexer.lastTokenPosition());
+            tok = expectToken(lexer, "',' or 'to'");
+        } while (Chars.equals(tok, ','));
+
+        if (!SqlKeywords.isToKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'to' expected");
+        }
+        tok = expectToken(lexer, "'volume'");
+        if (!SqlKeywords.isVolumeKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'volume' expected");
+        }
+        tok = expectToken(lexer, "volume name");
+        // DEFAULT is table directory
+        final String volume;
+        if (SqlKeywords.isDefaultKeyword(tok)) {
+            volume = null;
+        } else {
+            volume = Chars.toString(GenericLexer.unquote(tok));
+            if (configuration.getVolumePath(volume) == null) {
+                throw SqlException.$(lexer.lastTokenPosition(), "volume is not configured [alias=").put(volume).put(']');
+            }
+        }
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null && !Chars.equals(tok, ';')) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token [").put(tok).put(']');
+        }
+
+        for (int i = 0, n = movePartitionTimestamps.size(); i < n; i++) {
+            if (!writer.movePartition(movePartitionTimestamps.getQuick(i), volume)) {
+                throw SqlException.$(movePartitionPositions.getQuick(i), "could not move partition");
+            }
+        }
+    }
+
     private void alterTableRenameColumn(int tableNamePosition, TableWriter writer) throws SqlException {
         RecordMetadata metadata = writer.getMetadata();
 
@@ -1400,7 +1556,7 @@ public class SqlCompiler implements Closeable {
         ExecutionModel model = parser.parse(lexer, executionContext);
         switch (model.getModelType()) {
             case ExecutionModel.QUERY:
-                return optimiser.optimise((QueryModel) model, executionContext);
+                return optimiser.optimise(rewriteMatViewQuery((QueryModel) model, executionContext), executionContext);
             case ExecutionModel.INSERT:
                 InsertModel insertModel = (InsertModel) model;
                 if (insertModel.getQueryModel() != null) {
@@ -1408,6 +1564,8 @@ public class SqlCompiler implements Closeable {
                 } else {
                     return lightlyValidateInsertModel(insertModel);
                 }
+            case ExecutionModel.UPDATE:
+                return validateAndOptimiseUpdate((UpdateModel) model, executionContext);
             default:
                 return model;
         }
@@ -1443,6 +1601,13 @@ public class SqlCompiler implements Closeable {
                 final RenameTableModel rtm = (RenameTableModel) executionModel;
                 engine.rename(executionContext.getCairoSecurityContext(), path, GenericLexer.unquote(rtm.getFrom().token), renamePath, GenericLexer.unquote(rtm.getTo().token));
                 return compiledQuery.ofRenameTable();
+            case ExecutionModel.UPDATE:
+                return executeWithRetries(
+                        updateMethod,
+                        executionModel,
+                        configuration.getCreateAsSelectRetryCount(),
+                        executionContext
+                );
             default:
                 InsertModel insertModel = (InsertModel) executionModel;
                 if (insertModel.getQueryModel() != null) {
@@ -1656,6 +1821,8 @@ public class SqlCompiler implements Closeable {
                     if (createTableModel.getQueryModel() == null) {
                         engine.createTableUnsafe(executionContext.getCairoSecurityContext(), mem, path, createTableModel);
                         newTable = true;
+                    } else if (createTableModel.isMatView()) {
+                        writer = createMatView(createTableModel, executionContext);
                     } else {
                         writer = createTableFromCursor(createTableModel, executionContext);
                     }
@@ -1673,12 +1840,48 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofCreateTable();
     }
 
+    private TableWriter createMatView(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
+        final long baseTableTxn;
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), model.getMatViewBaseTableName())) {
+            // base table rows committed after this transaction are picked up by the first refresh
+            baseTableTxn = reader.getTxn();
+            if (model.getPartitionBy() == PartitionBy.NONE) {
+                model.setPartitionBy(sqlNodePool.next().of(ExpressionNode.LITERAL, PartitionBy.toString(reader.getPartitionedBy()), 0, 0));
+            }
+        }
+
+        final TableWriter writer = createTableFromCursor(model, executionContext);
+        engine.registerMatView(
+                MatView.create(
+                        configuration,
+                        path,
+                        model.getName().token,
+                        model.getMatViewBaseTableName(),
+                        model.getMatViewQuery(),
+                        model.getMatViewBaseTableNameLo(),
+                        model.getMatViewBaseTableNameHi(),
+                        model.getMatViewSampleBy(),
+                        model.getMatViewSampleByOffset(),
+                        model.getMatViewNormalizedQuery(),
+                        baseTableTxn
+                )
+        );
+        return writer;
+    }
+
     private TableWriter createTableFromCursor(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
         try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
              final RecordCursor cursor = factory.getCursor(executionContext)
         ) {
             typeCast.clear();
             final RecordMetadata metadata = factory.getMetadata();
+            if (model.isMatView()) {
+                // sample buckets are identified by timestamp, view cannot be maintained without it
+                final int timestampIndex = metadata.getTimestampIndex();
+                if (timestampIndex == -1 || !model.isDedupKey(timestampIndex)) {
+                    throw SqlException.$(0, "materialized view query must select designated timestamp");
+                }
+            }
             validateTableModelAndCreateTypeCast(model, metadata, typeCast);
             engine.createTableUnsafe(
                     executionContext.getCairoSecurityContext(),
@@ -2009,6 +2212,22 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofInsertAsSelect();
     }
 
+    // lexer splits decimal literal at '.', parts that are not separated by whitespace are joined back
+    private CharSequence joinDecimalTokens(CharSequence tok) {
+        decimalSink.clear();
+        decimalSink.put(tok);
+        int end = lexer.lastTokenPosition() + tok.length();
+        while ((tok = SqlUtil.fetchNext(lexer)) != null) {
+            if (lexer.lastTokenPosition() != end || Chars.equals(tok, ',')) {
+                lexer.unparse();
+                break;
+            }
+            decimalSink.put(tok);
+            end = lexer.lastTokenPosition() + tok.length();
+        }
+        return decimalSink;
+    }
+
     private ExecutionModel lightlyValidateInsertModel(InsertModel model) throws SqlException {
         ExpressionNode tableName = model.getTableName();
         if (tableName.type != ExpressionNode.LITERAL) {
@@ -2023,6 +2242,85 @@ public class SqlCompiler implements Closeable {
         return model;
     }
 
+    // default value is kept in table metadata as value bits widened to long
+    private long parseColumnDefault(int type) throws SqlException {
+        if (!TableUtils.isColumnDefaultType(type)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "default value is not supported for ").put(ColumnType.nameOf(type)).put(" columns");
+        }
+
+        CharSequence tok = expectToken(lexer, "default value");
+        final int position = lexer.lastTokenPosition();
+        final boolean negative = Chars.equals(tok, '-');
+        if (negative) {
+            tok = expectToken(lexer, "default value");
+        }
+
+        try {
+            switch (ColumnType.tagOf(type)) {
+                case ColumnType.BOOLEAN:
+                    if (!negative && (isTrueKeyword(tok) || isFalseKeyword(tok))) {
+                        return isTrueKeyword(tok) ? 1 : 0;
+                    }
+                    break;
+                case ColumnType.CHAR:
+                    if (!negative && tok.length() == 3 && Chars.isQuoted(tok)) {
+                        return tok.charAt(1);
+                    }
+                    break;
+                case ColumnType.FLOAT:
+                    final float f = Numbers.parseFloat(joinDecimalTokens(tok));
+                    if (!Float.isNaN(f)) {
+                        return Float.floatToRawIntBits(negative ? -f : f);
+                    }
+                    break;
+                case ColumnType.DOUBLE:
+                    final double d = Numbers.parseDouble(joinDecimalTokens(tok));
+                    if (!Double.isNaN(d)) {
+                        return Double.doubleToRawLongBits(negative ? -d : d);
+                    }
+                    break;
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                    if (Chars.isQuoted(tok)) {
+                        if (!negative) {
+                            final long micros = IntervalUtils.parseFloorPartialDate(GenericLexer.unquote(tok));
+                            return ColumnType.tagOf(type) == ColumnType.DATE ? micros / 1000 : micros;
+                        }
+                        break;
+                    }
+                    // fall through, numeric value is epoch in units of column type
+                default:
+                    final long l = negative ? -Numbers.parseLong(tok) : Numbers.parseLong(tok);
+                    final long min;
+                    final long max;
+                    switch (ColumnType.tagOf(type)) {
+                        case ColumnType.BYTE:
+                            min = Byte.MIN_VALUE;
+                            max = Byte.MAX_VALUE;
+                            break;
+                        case ColumnType.SHORT:
+                            min = Short.MIN_VALUE;
+                            max = Short.MAX_VALUE;
+                            break;
+                        case ColumnType.INT:
+                            min = Numbers.INT_NaN + 1;
+                            max = Integer.MAX_VALUE;
+                            break;
+                        default:
+                            min = Numbers.LONG_NaN + 1;
+                            max = Long.MAX_VALUE;
+                            break;
+                    }
+                    if (l >= min && l <= max) {
+                        return l;
+                    }
+                    break;
+            }
+        } catch (NumericException ignore) {
+        }
+        throw SqlException.$(position, "invalid default value [type=").put(ColumnType.nameOf(type)).put(']');
+    }
+
     private boolean removeTableDirectory(CreateTableModel model) {
         int errno;
         if ((errno = engine.removeDirectory(path, model.getName().token)) == 0) {
@@ -2035,6 +2333,29 @@ public class SqlCompiler implements Closeable {
         return false;
     }
 
+    private QueryModel rewriteMatViewQuery(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        final QueryModel nested = model.getNestedModel();
+        if (nested == null || nested.getSampleBy() == null || nested.getTableName() == null) {
+            return model;
+        }
+        matViewQuerySink.clear();
+        model.toSink(matViewQuerySink);
+        final MatView view = engine.findMatView(nested.getTableName().token, matViewQuerySink);
+        if (view == null) {
+            return model;
+        }
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), view.getBaseTableName())) {
+            if (reader.getTxn() != view.getRefreshTxn()) {
+                // view is behind base table, query has to be answered from base table
+                return model;
+            }
+        }
+        matViewQuerySink.clear();
+        matViewQuerySink.put("select * from '").put(view.getViewName()).put('\'');
+        matViewLexer.of(matViewQuerySink);
+        return (QueryModel) parser.parse(matViewLexer, executionContext);
+    }
+
     private CompiledQuery repairTables(SqlExecutionContext executionContext) throws SqlException {
         CharSequence tok;
         tok = SqlUtil.fetchNext(lexer);
@@ -2142,6 +2463,69 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private CompiledQuery update(ExecutionModel executionModel, SqlExecutionContext executionContext) throws SqlException {
+        final UpdateModel model = (UpdateModel) executionModel;
+        final ExpressionNode name = model.getTableName();
+        tableExistsOrFail(name.position, name.token, executionContext);
+
+        try (TableWriter writer = engine.getWriter(executionContext.getCairoSecurityContext(), name.token, "update");
+             RecordCursorFactory factory = generate(model.getQueryModel(), executionContext)) {
+
+            final RecordMetadata cursorMetadata = factory.getMetadata();
+            final RecordMetadata writerMetadata = writer.getMetadata();
+            final CharSequenceHashSet columnSet = model.getColumnSet();
+            final int columnSetSize = columnSet.size();
+
+            listColumnFilter.clear();
+            updateColumnIndexes.clear();
+            for (int i = 0; i < columnSetSize; i++) {
+                final CharSequence columnName = columnSet.get(i);
+                final int index = writerMetadata.getColumnIndexQuiet(columnName);
+                if (index == -1) {
+                    throw SqlException.invalidColumn(model.getColumnPosition(i), columnName);
+                }
+
+                final int fromType = cursorMetadata.getColumnType(i);
+                final int toType = writerMetadata.getColumnType(index);
+                if (!isAssignableFrom(toType, fromType)) {
+                    throw SqlException.inconvertibleTypes(
+                            model.getColumnPosition(i),
+                            fromType,
+                            cursorMetadata.getColumnName(i),
+                            toType,
+                            writerMetadata.getColumnName(index)
+                    );
+                }
+                listColumnFilter.add(index + 1);
+                updateColumnIndexes.add(index);
+            }
+
+            final RecordToRowCopier copier = assembleRecordToRowCopier(asm, cursorMetadata, writerMetadata, listColumnFilter);
+            final int timestampIndex = columnSetSize;
+
+            final PartitionUpdater updater;
+            try {
+                updater = writer.beginUpdate(updateColumnIndexes);
+            } catch (CairoException e) {
+                throw SqlException.$(model.getColumnPosition(0), e.getFlyweightMessage());
+            }
+
+            try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    final TableWriter.Row row = updater.newRow(record.getTimestamp(timestampIndex), Rows.toLocalRowID(record.getRowId()));
+                    copier.copy(record, row);
+                    row.append();
+                }
+            } catch (Throwable e) {
+                updater.rollback();
+                throw e;
+            }
+            updater.commit();
+        }
+        return compiledQuery.ofUpdate();
+    }
+
     ExecutionModel testCompileModel(CharSequence query, SqlExecutionContext executionContext) throws SqlException {
         clear();
         lexer.of(query);
@@ -2301,6 +2685,31 @@ public class SqlCompiler implements Closeable {
         return model;
     }
 
+    private UpdateModel validateAndOptimiseUpdate(
+            UpdateModel model,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ExpressionNode name = model.getTableName();
+        tableExistsOrFail(name.position, name.token, executionContext);
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), name.token)) {
+            if (reader.getPartitionedBy() == PartitionBy.NONE) {
+                throw SqlException.$(name.position, "cannot update table, which is not partitioned");
+            }
+            // updated rows are located by partition of their designated timestamp,
+            // it is selected after new values of updated columns
+            final RecordMetadata metadata = reader.getMetadata();
+            final CharSequence timestampName = metadata.getColumnName(metadata.getTimestampIndex());
+            final CharSequenceHashSet columnSet = model.getColumnSet();
+            final int keyIndex = columnSet.keyIndex(timestampName);
+            if (keyIndex < 0) {
+                throw SqlException.$(model.getColumnPosition(columnSet.getListIndexAt(keyIndex)), "cannot update designated timestamp");
+            }
+            model.getQueryModel().addBottomUpColumn(SqlUtil.nextColumn(queryColumnPool, sqlNodePool, timestampName, timestampName));
+        }
+        model.setQueryModel(optimiser.optimise(model.getQueryModel(), executionContext));
+        return model;
+    }
+
     private void validateTableModelAndCreateTypeCast(
             CreateTableModel model,
             RecordMetadata metadata,
@@ -2358,6 +2767,7 @@ public class SqlCompiler implements Closeable {
     public final static class PartitionAction {
         public static final int DROP = 1;
         public static final int ATTACH = 2;
+        public static final int COMPRESS = 3;
     }
 
     private static class TableStructureAdapter implements TableStructure {
@@ -2390,6 +2800,26 @@ public class SqlCompiler implements Closeable {
             return model.getIndexBlockCapacity(columnIndex);
         }
 
+        @Override
+        public boolean isDedupKey(int columnIndex) {
+            return model.isDedupKey(columnIndex);
+        }
+
+        @Override
+        public boolean isBloomFilterIndexed(int columnIndex) {
+            return model.isBloomFilterIndexed(columnIndex);
+        }
+
+        @Override
+        public int getCompositeIndexPosition(int columnIndex) {
+            return model.getCompositeIndexPosition(columnIndex);
+        }
+
+        @Override
+        public boolean isGeoHashIndexed(int columnIndex) {
+            return model.isGeoHashIndexed(columnIndex);
+        }
+
         @Override
         public boolean isIndexed(int columnIndex) {
             return model.isIndexed(columnIndex);
@@ -1430,7 +1430,7 @@ class SqlOptimiser {
         return orderByAdvice;
     }
 
-    private boolean hasAggregates(ExpressionNode node) {
+    boolean hasAggregates(ExpressionNode node) {
 
         this.sqlNodeStack.clear();
 
@@ -27,6 +27,7 @@ package io.questdb.griffin;
 import io.questdb.cairo.*;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -50,6 +51,7 @@ public final class SqlParser {
     private final ObjectPool<RenameTableModel> renameTableModelPool;
     private final ObjectPool<WithClauseModel> withClauseModelPool;
     private final ObjectPool<InsertModel> insertModelPool;
+    private final ObjectPool<UpdateModel> updateModelPool;
     private final ObjectPool<CopyModel> copyModelPool;
     private final ExpressionParser expressionParser;
     private final CairoConfiguration configuration;
@@ -82,6 +84,7 @@ public final class SqlParser {
         this.renameTableModelPool = new ObjectPool<>(RenameTableModel.FACTORY, configuration.getRenameTableModelPoolCapacity());
         this.withClauseModelPool = new ObjectPool<>(WithClauseModel.FACTORY, configuration.getWithClauseModelPoolCapacity());
         this.insertModelPool = new ObjectPool<>(InsertModel.FACTORY, configuration.getInsertPoolCapacity());
+        this.updateModelPool = new ObjectPool<>(UpdateModel.FACTORY, configuration.getInsertPoolCapacity());
         this.copyModelPool = new ObjectPool<>(CopyModel.FACTORY, configuration.getCopyPoolCapacity());
         this.configuration = configuration;
         this.traversalAlgo = traversalAlgo;
@@ -113,6 +116,72 @@ public final class SqlParser {
         }
     }
 
+    private static int findTokenHi(CharSequence query, int lo) {
+        final int len = query.length();
+        final char c = query.charAt(lo);
+        if (c == '\'' || c == '"') {
+            for (int i = lo + 1; i < len; i++) {
+                if (query.charAt(i) == c) {
+                    return i + 1;
+                }
+            }
+            return len;
+        }
+        for (int i = lo; i < len; i++) {
+            final char ch = query.charAt(i);
+            if (Character.isWhitespace(ch) || ch == ')' || ch == '(' || ch == ',' || ch == ';') {
+                return i;
+            }
+        }
+        return len;
+    }
+
+    // align to calendar can be the last clause of sub-query
+    private static boolean isSubQueryEnd(CharSequence tok) {
+        return Chars.equals(tok, ')') || Chars.equals(tok, ';');
+    }
+
+    private static long parseSampleByOffset(ExpressionNode offset) throws SqlException {
+        final long val = Timestamps.parseOffset(GenericLexer.unquote(offset.token));
+        if (val == Numbers.LONG_NaN) {
+            throw SqlException.$(offset.position, "invalid offset: ").put(offset.token);
+        }
+        return Numbers.decodeLowInt(val) * Timestamps.MINUTE_MICROS;
+    }
+
+    private static ExpressionNode validateMatViewQuery(QueryModel model, int queryLo) throws SqlException {
+        // select clause is parsed into the outer model, from clause and the rest into nested model
+        final QueryModel nested = model.getNestedModel();
+        if (nested == null || nested.getTableName() == null || nested.getNestedModel() != null
+                || nested.getJoinModels().size() > 1 || model.getUnionModel() != null) {
+            throw SqlException.$(queryLo, "materialized view query must select from a single table");
+        }
+        if (model.getLimitLo() != null) {
+            throw SqlException.$(model.getLimitLo().position, "LIMIT is not supported by materialized view");
+        }
+        final ExpressionNode sampleBy = nested.getSampleBy();
+        if (sampleBy == null) {
+            throw SqlException.$(queryLo, "materialized view query must use SAMPLE BY");
+        }
+        final ObjList<ExpressionNode> fill = nested.getSampleByFill();
+        if (fill.size() > 1 || (fill.size() == 1 && !Chars.equalsLowerCaseAscii(fill.getQuick(0).token, "none"))) {
+            throw SqlException.$(fill.getQuick(0).position, "FILL is not supported by materialized view");
+        }
+        if (nested.getSampleByOffset() == null) {
+            throw SqlException.$(sampleBy.position, "materialized view requires ALIGN TO CALENDAR");
+        }
+        if (nested.getSampleByTimezoneName() != null) {
+            throw SqlException.$(nested.getSampleByTimezoneName().position, "time zone is not supported by materialized view");
+        }
+        if (nested.getLatestBy().size() > 0) {
+            throw SqlException.$(nested.getLatestBy().getQuick(0).position, "LATEST BY is not supported by materialized view");
+        }
+        if (nested.getOrderBy().size() > 0) {
+            throw SqlException.$(nested.getOrderBy().getQuick(0).position, "ORDER BY is not supported by materialized view");
+        }
+        return nested.getTableName();
+    }
+
     private void assertNotDot(GenericLexer lexer, CharSequence tok) throws SqlException {
         if (Chars.indexOf(tok, '.') != -1) {
             throw SqlException.$(lexer.lastTokenPosition(), "'.' is not allowed here");
@@ -131,6 +200,7 @@ public final class SqlParser {
         subQueryMode = false;
         characterStore.clear();
         insertModelPool.clear();
+        updateModelPool.clear();
         expressionTreeBuilder.reset();
         copyModelPool.clear();
     }
@@ -390,6 +460,10 @@ public final class SqlParser {
             return parseCopy(lexer);
         }
 
+        if (isUpdateKeyword(tok)) {
+            return parseUpdate(lexer);
+        }
+
         return parseSelect(lexer);
     }
 
@@ -444,10 +518,84 @@ public final class SqlParser {
     }
 
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
-        expectTok(lexer, "table");
+        final CharSequence tok = tok(lexer, "'table'");
+        if (isMaterializedKeyword(tok)) {
+            expectTok(lexer, "view");
+            return parseCreateMatView(lexer, executionContext);
+        }
+        expectTok(lexer, tok, "table");
         return parseCreateTable(lexer, executionContext);
     }
 
+    private ExecutionModel parseCreateMatView(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        final CreateTableModel model = createTableModelPool.next();
+        final CharSequence viewName = tok(lexer, "view name");
+        model.setName(nextLiteral(GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(viewName), lexer.lastTokenPosition()), lexer.lastTokenPosition()));
+        expectTok(lexer, "as");
+        expectTok(lexer, '(');
+
+        final int queryLo = lexer.getPosition();
+        final QueryModel queryModel = parseDml(lexer, null);
+        final ExpressionNode baseTableName = validateMatViewQuery(queryModel, queryLo);
+        final CharSequence sampleBy = queryModel.getNestedModel().getSampleBy().token;
+        final long sampleByOffset = parseSampleByOffset(queryModel.getNestedModel().getSampleByOffset());
+        // normalised text of the query is taken before optimiser rewrites the model,
+        // optimiser reuses character store, the text has to outlive it
+        final CharacterStoreEntry normalizedQueryEntry = characterStore.newEntry();
+        queryModel.toSink(normalizedQueryEntry);
+        final String normalizedQuery = normalizedQueryEntry.toImmutable().toString();
+
+        // timestamp and non-aggregate columns identify sample bucket, they are the deduplication key of the view
+        final ObjList<QueryColumn> parsedColumns = queryModel.getBottomUpColumns();
+        final IntList keyColumns = new IntList();
+        for (int i = 0, n = parsedColumns.size(); i < n; i++) {
+            if (!optimiser.hasAggregates(parsedColumns.getQuick(i).getAst())) {
+                keyColumns.add(i);
+            }
+        }
+
+        final QueryModel optimisedModel = optimiser.optimise(queryModel, executionContext);
+        final ObjList<QueryColumn> columns = optimisedModel.getBottomUpColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            model.addColumn(columns.getQuick(i).getName(), -1, configuration.getDefaultSymbolCapacity(), configuration.getRandom().nextLong());
+        }
+        for (int i = 0, n = keyColumns.size(); i < n; i++) {
+            model.setDedupKeyFlag(keyColumns.getQuick(i));
+        }
+        model.setQueryModel(optimisedModel);
+
+        expectTok(lexer, ')');
+        final CharSequence query = lexer.immutableBetween(queryLo, lexer.lastTokenPosition());
+        final int baseTableNameLo = baseTableName.position - queryLo;
+        model.setMatView(
+                query,
+                baseTableName.token,
+                baseTableNameLo,
+                findTokenHi(query, baseTableNameLo),
+                sampleBy,
+                sampleByOffset,
+                normalizedQuery
+        );
+
+        CharSequence tok = optTok(lexer);
+        final ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
+        if (partitionBy != null) {
+            if (PartitionBy.fromString(partitionBy.token) == -1 || PartitionBy.fromString(partitionBy.token) == PartitionBy.NONE) {
+                throw SqlException.$(partitionBy.position, "'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
+            }
+            model.setPartitionBy(partitionBy);
+            tok = optTok(lexer);
+        }
+
+        model.setMaxUncommittedRows(configuration.getMaxUncommittedRows());
+        model.setCommitLag(configuration.getCommitLag());
+
+        if (tok == null || Chars.equals(tok, ';')) {
+            return model;
+        }
+        throw errUnexpected(lexer, tok);
+    }
+
     private ExecutionModel parseCreateTable(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
         final CreateTableModel model = createTableModelPool.next();
         final CharSequence tableName;
@@ -476,10 +624,15 @@ public final class SqlParser {
             throw errUnexpected(lexer, tok);
         }
 
+        int compositeIndexPosition = -1;
         while ((tok = optTok(lexer)) != null && Chars.equals(tok, ',')) {
             tok = tok(lexer, "'index' or 'cast'");
             if (isIndexKeyword(tok)) {
+                final int indexPosition = lexer.lastTokenPosition();
                 parseCreateTableIndexDef(lexer, model);
+                if (compositeIndexPosition == -1 && model.getCompositeIndexColumnCount() > 0) {
+                    compositeIndexPosition = indexPosition;
+                }
             } else if (isCastKeyword(tok)) {
                 parseCreateTableCastDef(lexer, model);
             } else {
@@ -501,7 +654,7 @@ public final class SqlParser {
         ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
         if (partitionBy != null) {
             if (PartitionBy.fromString(partitionBy.token) == -1) {
-                throw SqlException.$(partitionBy.position, "'NONE', 'DAY', 'MONTH' or 'YEAR' expected");
+                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
             }
             model.setPartitionBy(partitionBy);
             tok = optTok(lexer);
@@ -531,6 +684,20 @@ public final class SqlParser {
             }
         }
 
+        if (model.getCompositeIndexColumnCount() > 0 && model.getPartitionBy() == PartitionBy.NONE) {
+            throw SqlException.$(compositeIndexPosition, "composite index is only supported for partitioned tables");
+        }
+
+        if (tok != null && isBloomKeyword(tok)) {
+            parseCreateTableBloomFilter(lexer, model);
+            tok = optTok(lexer);
+        }
+
+        if (tok != null && isDedupKeyword(tok)) {
+            parseCreateTableDedup(lexer, model);
+            tok = optTok(lexer);
+        }
+
         model.setMaxUncommittedRows(maxUncommittedRows);
         model.setCommitLag(commitLag);
 
@@ -556,6 +723,58 @@ public final class SqlParser {
         expectTok(lexer, ')');
     }
 
+    private void parseCreateTableBloomFilter(GenericLexer lexer, CreateTableModel model) throws SqlException {
+        final int bloomPosition = lexer.lastTokenPosition();
+        if (model.getPartitionBy() == PartitionBy.NONE) {
+            throw SqlException.$(bloomPosition, "bloom filter index is only supported for partitioned tables");
+        }
+        expectTok(lexer, "filter");
+        expectTok(lexer, '(');
+        CharSequence tok;
+        do {
+            tok = tok(lexer, "column name");
+            final int columnPosition = lexer.lastTokenPosition();
+            final int columnIndex = getCreateTableColumnIndex(model, GenericLexer.unquote(tok), columnPosition);
+            final int columnType = model.getColumnType(columnIndex);
+            if (!BloomFilterUtils.isSupportedColumnType(columnType)) {
+                throw SqlException.$(columnPosition, "bloom filter index is not supported for ").put(ColumnType.nameOf(columnType))
+                        .put(" column, expected LONG, LONG256, STRING or SYMBOL");
+            }
+            if (model.isIndexed(columnIndex)) {
+                throw SqlException.$(columnPosition, "column already has bitmap index");
+            }
+            model.setBloomFilterFlag(columnIndex);
+            tok = tok(lexer, "',' or ')'");
+        } while (Chars.equals(tok, ','));
+        expectTok(tok, lexer.lastTokenPosition(), ')');
+    }
+
+    private void parseCreateTableDedup(GenericLexer lexer, CreateTableModel model) throws SqlException {
+        final int dedupPosition = lexer.lastTokenPosition();
+        if (model.getTimestamp() == null) {
+            throw SqlException.$(dedupPosition, "deduplication is only supported for tables with designated timestamp");
+        }
+        if (model.getPartitionBy() == PartitionBy.NONE) {
+            throw SqlException.$(dedupPosition, "deduplication is only supported for partitioned tables");
+        }
+        expectTok(lexer, "upsert");
+        expectTok(lexer, "keys");
+        expectTok(lexer, '(');
+        boolean timestampIncluded = false;
+        CharSequence tok;
+        do {
+            tok = tok(lexer, "column name");
+            final int columnIndex = getCreateTableColumnIndex(model, GenericLexer.unquote(tok), lexer.lastTokenPosition());
+            timestampIncluded |= columnIndex == model.getTimestampIndex();
+            model.setDedupKeyFlag(columnIndex);
+            tok = tok(lexer, "',' or ')'");
+        } while (Chars.equals(tok, ','));
+        expectTok(tok, lexer.lastTokenPosition(), ')');
+        if (!timestampIncluded) {
+            throw SqlException.$(dedupPosition, "deduplication key must include designated timestamp");
+        }
+    }
+
     private void parseCreateTableCastDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
         if (model.getQueryModel() == null) {
             throw SqlException.$(lexer.lastTokenPosition(), "cast is only supported in 'create table as ...' context");
@@ -708,10 +927,25 @@ public final class SqlParser {
     }
 
     private void parseCreateTableIndexDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
+        final int indexPosition = lexer.lastTokenPosition();
         expectTok(lexer, '(');
-        final int columnIndex = getCreateTableColumnIndex(model, expectLiteral(lexer).token, lexer.lastTokenPosition());
+        final ExpressionNode column = expectLiteral(lexer);
+        final int columnIndex = getCreateTableColumnIndex(model, column.token, column.position);
+
+        CharSequence tok = tok(lexer, "'capacity'");
+        if (Chars.equals(tok, ',')) {
+            parseCreateTableCompositeIndexDef(lexer, model, indexPosition, columnIndex, column.position);
+            return;
+        }
+
+        // column types of CREATE TABLE AS SELECT are not known yet, such columns are validated as symbols
+        if (model.getQueryModel() == null && ColumnType.isGeoHash(model.getColumnType(columnIndex))) {
+            expectTok(tok, lexer.lastTokenPosition(), ')');
+            model.setGeoHashIndexFlag(columnIndex);
+            return;
+        }
 
-        if (isCapacityKeyword(tok(lexer, "'capacity'"))) {
+        if (isCapacityKeyword(tok)) {
             int errorPosition = lexer.getPosition();
             int indexValueBlockSize = expectInt(lexer);
             TableUtils.validateIndexValueBlockSize(errorPosition, indexValueBlockSize);
@@ -723,6 +957,44 @@ public final class SqlParser {
         expectTok(lexer, ')');
     }
 
+    private void parseCreateTableCompositeIndexDef(
+            GenericLexer lexer,
+            CreateTableModel model,
+            int indexPosition,
+            int firstColumnIndex,
+            int firstColumnPosition
+    ) throws SqlException {
+        if (model.getQueryModel() != null) {
+            throw SqlException.$(indexPosition, "composite index is not supported in CREATE TABLE AS SELECT");
+        }
+        if (model.getCompositeIndexColumnCount() > 0) {
+            throw SqlException.$(indexPosition, "table can have only one composite index");
+        }
+        addCompositeIndexColumn(model, firstColumnIndex, firstColumnPosition);
+        CharSequence tok;
+        do {
+            if (model.getCompositeIndexColumnCount() == TableUtils.COMPOSITE_INDEX_MAX_COLUMNS) {
+                throw SqlException.$(lexer.lastTokenPosition(), "composite index can have at most ").put(TableUtils.COMPOSITE_INDEX_MAX_COLUMNS).put(" columns");
+            }
+            final ExpressionNode column = expectLiteral(lexer);
+            addCompositeIndexColumn(model, getCreateTableColumnIndex(model, column.token, column.position), column.position);
+            tok = tok(lexer, "',' or ')'");
+        } while (Chars.equals(tok, ','));
+        expectTok(tok, lexer.lastTokenPosition(), ')');
+    }
+
+    private void addCompositeIndexColumn(CreateTableModel model, int columnIndex, int columnPosition) throws SqlException {
+        final int columnType = model.getColumnType(columnIndex);
+        if (!ColumnType.isSymbol(columnType)) {
+            throw SqlException.$(columnPosition, "composite index is not supported for ").put(ColumnType.nameOf(columnType))
+                    .put(" column, expected SYMBOL");
+        }
+        if (model.getCompositeIndexPosition(columnIndex) > -1) {
+            throw SqlException.$(columnPosition, "duplicate column in composite index");
+        }
+        model.addCompositeIndexColumn(columnIndex);
+    }
+
     private CharSequence parseCreateTableInlineIndexDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
         CharSequence tok = tok(lexer, "')', or 'index'");
 
@@ -934,13 +1206,13 @@ public final class SqlParser {
                 if (isCalendarKeyword(tok)) {
                     tok = optTok(lexer);
 
-                    if (tok != null) {
+                    if (tok != null && !isSubQueryEnd(tok)) {
                         if (isTimeKeyword(tok)) {
                             expectZone(lexer);
                             model.setSampleByTimezoneName(expectExpr(lexer));
                             tok = optTok(lexer);
 
-                            if (tok != null) {
+                            if (tok != null && !isSubQueryEnd(tok)) {
                                 if (isWithKeyword(tok)) {
                                     tok = parseWithOffset(lexer, model);
                                 } else {
@@ -1112,6 +1384,52 @@ public final class SqlParser {
         throw err(lexer, "'select' or 'values' expected");
     }
 
+    private ExecutionModel parseUpdate(GenericLexer lexer) throws SqlException {
+        final UpdateModel model = updateModelPool.next();
+        final ExpressionNode tableName = expectLiteral(lexer);
+        model.setTableName(tableName);
+        expectTok(lexer, "set");
+
+        // new column values are selected from the updated table itself
+        final QueryModel queryModel = queryModelPool.next();
+        final QueryModel nestedModel = queryModelPool.next();
+        nestedModel.setTableName(tableName);
+
+        CharSequence tok;
+        do {
+            tok = tok(lexer, "column");
+            final int columnPosition = lexer.lastTokenPosition();
+            final CharSequence columnName = GenericLexer.immutableOf(GenericLexer.unquote(tok));
+            if (!model.addColumn(columnName, columnPosition)) {
+                throw SqlException.position(columnPosition).put("duplicate column name: ").put(tok);
+            }
+            expectTok(lexer, '=');
+            final ExpressionNode expr = expr(lexer, queryModel);
+            if (expr == null) {
+                throw SqlException.$(lexer.lastTokenPosition(), "Expression expected");
+            }
+            queryModel.addBottomUpColumn(queryColumnPool.next().of(columnName, expr));
+        } while ((tok = optTok(lexer)) != null && Chars.equals(tok, ','));
+
+        if (tok != null && isWhereKeyword(tok)) {
+            final ExpressionNode expr = expr(lexer, nestedModel);
+            if (expr == null) {
+                throw SqlException.$(lexer.lastTokenPosition(), "empty where clause");
+            }
+            nestedModel.setWhereClause(expr);
+            tok = optTok(lexer);
+        }
+
+        if (tok != null && !Chars.equals(tok, ';')) {
+            throw errUnexpected(lexer, tok);
+        }
+
+        queryModel.setSelectModelType(QueryModel.SELECT_MODEL_CHOOSE);
+        queryModel.setNestedModel(nestedModel);
+        model.setQueryModel(queryModel);
+        return model;
+    }
+
     private QueryModel parseJoin(GenericLexer lexer, CharSequence tok, int joinType, QueryModel parent) throws SqlException {
         QueryModel joinModel = queryModelPool.next();
 
@@ -1324,6 +1642,11 @@ public final class SqlParser {
                         }
                     } while (Chars.equals(tok, ','));
                 }
+
+                if (isRowsKeyword(tok) || isRangeKeyword(tok)) {
+                    parseAnalyticFrame(lexer, (AnalyticColumn) col, tok);
+                    tok = tok(lexer, "')'");
+                }
                 expectTok(tok, lexer.lastTokenPosition(), ')');
                 tok = optTok(lexer);
 
@@ -1374,6 +1697,54 @@ public final class SqlParser {
         }
     }
 
+    private void parseAnalyticFrame(GenericLexer lexer, AnalyticColumn col, CharSequence framingTok) throws SqlException {
+        col.setFramingMode(
+                isRowsKeyword(framingTok) ? AnalyticColumn.FRAMING_ROWS : AnalyticColumn.FRAMING_RANGE,
+                lexer.lastTokenPosition()
+        );
+        CharSequence tok = tok(lexer, "'between', 'unbounded', 'current' or offset");
+        if (isBetweenKeyword(tok)) {
+            parseAnalyticFrameBound(lexer, col, true);
+            expectTok(lexer, "and");
+            parseAnalyticFrameBound(lexer, col, false);
+        } else {
+            // short form, "rows 10 preceding" ends at current row
+            lexer.unparse();
+            parseAnalyticFrameBound(lexer, col, true);
+            col.setRowsHi(AnalyticColumn.CURRENT, col.getRowsLoKindPos(), null);
+        }
+    }
+
+    private void parseAnalyticFrameBound(GenericLexer lexer, AnalyticColumn col, boolean lo) throws SqlException {
+        CharSequence tok = tok(lexer, "'unbounded', 'current' or offset");
+        final int kindPos = lexer.lastTokenPosition();
+        final int kind;
+        ExpressionNode expr = null;
+        if (isCurrentKeyword(tok)) {
+            expectTok(lexer, "row");
+            kind = AnalyticColumn.CURRENT;
+        } else {
+            if (!isUnboundedKeyword(tok)) {
+                // offset is a number, optionally followed by time unit, e.g. 10 or 1h
+                expr = expressionNodePool.next().of(ExpressionNode.CONSTANT, GenericLexer.immutableOf(tok), 0, kindPos);
+            }
+            tok = tok(lexer, "'preceding' or 'following'");
+            if (isPrecedingKeyword(tok)) {
+                kind = AnalyticColumn.PRECEDING;
+            } else if (isFollowingKeyword(tok)) {
+                kind = AnalyticColumn.FOLLOWING;
+            } else {
+                throw SqlException.$(lexer.lastTokenPosition(), "'preceding' or 'following' expected");
+            }
+        }
+
+        if (lo) {
+            col.setRowsLo(kind, kindPos, expr);
+        } else {
+            col.setRowsHi(kind, kindPos, expr);
+        }
+    }
+
     private void parseSelectFrom(GenericLexer lexer, QueryModel model, QueryModel masterModel) throws SqlException {
         final ExpressionNode expr = expr(lexer, model);
         if (expr == null) {
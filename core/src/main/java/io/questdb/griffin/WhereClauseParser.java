@@ -56,6 +56,7 @@ final class WhereClauseParser implements Mutable {
     private final ObjList<ExpressionNode> keyNodes = new ObjList<>();
     private final ObjList<ExpressionNode> keyExclNodes = new ObjList<>();
     private final ObjList<ExpressionNode> tempNodes = new ObjList<>();
+    private final ObjList<ExpressionNode> compositeKeyNodes = new ObjList<>();
 
     // TODO: configure size
     private final ObjectPool<IntrinsicModel> models = new ObjectPool<>(IntrinsicModel.FACTORY, 8);
@@ -1009,6 +1010,122 @@ final class WhereClauseParser implements Mutable {
         keyExclNodes.clear();
     }
 
+    // composite index replaces single value key of one of its columns, lists of values and
+    // sub-queries are left to symbol indexes
+    private void applyCompositeIndex(
+            AliasTranslator translator,
+            IntrinsicModel model,
+            ExpressionNode root,
+            RecordMetadata m,
+            IntList compositeIndexColumns
+    ) {
+        if (model.intrinsicValue == IntrinsicModel.FALSE) {
+            return;
+        }
+        int keyPosition = -1;
+        if (model.keyColumn != null) {
+            final int keyColumnIndex = m.getColumnIndexQuiet(model.keyColumn);
+            keyPosition = compositeIndexColumns.indexOf(keyColumnIndex, 0, compositeIndexColumns.size());
+            if (keyPosition == -1 || model.keySubQuery != null || model.keyValues.size() != 1 || model.keyExcludedValues.size() > 0) {
+                return;
+            }
+        }
+
+        compositeKeyNodes.clear();
+        compositeKeyNodes.setPos(compositeIndexColumns.size());
+        collectCompositeKeyNodes(translator, root, m, compositeIndexColumns);
+        for (int i = 0, n = compositeIndexColumns.size(); i < n; i++) {
+            if (i != keyPosition && compositeKeyNodes.getQuick(i) == null) {
+                compositeKeyNodes.clear();
+                return;
+            }
+        }
+
+        for (int i = 0, n = compositeIndexColumns.size(); i < n; i++) {
+            if (i == keyPosition) {
+                model.compositeKeyValues.add(model.keyValues.get(0));
+                model.compositeKeyValuePositions.add(model.keyValuePositions.getQuick(0));
+            } else {
+                final ExpressionNode node = compositeKeyNodes.getQuick(i);
+                final ExpressionNode value = node.lhs.type == ExpressionNode.LITERAL ? node.rhs : node.lhs;
+                model.compositeKeyValues.add(isNullKeyword(value.token) ? null : unquote(value.token));
+                model.compositeKeyValuePositions.add(value.position);
+                node.intrinsicValue = IntrinsicModel.TRUE;
+            }
+        }
+        model.keyColumn = null;
+        model.keyValues.clear();
+        model.keyValuePositions.clear();
+        compositeKeyNodes.clear();
+    }
+
+    private void applyGeoHashIndex(
+            AliasTranslator translator,
+            IntrinsicModel model,
+            ExpressionNode node,
+            RecordMetadata m,
+            FunctionParser functionParser,
+            SqlExecutionContext executionContext,
+            IntList geoHashIndexColumns
+    ) throws SqlException {
+        if (node == null || node.intrinsicValue == IntrinsicModel.TRUE || model.geoHashPrefixes.size() > 0) {
+            return;
+        }
+        if (node.queryModel == null && isAndKeyword(node.token)) {
+            applyGeoHashIndex(translator, model, node.lhs, m, functionParser, executionContext, geoHashIndexColumns);
+            applyGeoHashIndex(translator, model, node.rhs, m, functionParser, executionContext, geoHashIndexColumns);
+            return;
+        }
+        if (!isWithinKeyword(node.token) || node.paramCount < 2) {
+            return;
+        }
+        final ExpressionNode column = node.paramCount < 3 ? node.lhs : node.args.getLast();
+        if (column.type != ExpressionNode.LITERAL) {
+            return;
+        }
+        final int columnIndex = m.getColumnIndexQuiet(translator.translateAlias(column.token));
+        if (columnIndex > -1 && geoHashIndexColumns.indexOf(columnIndex, 0, geoHashIndexColumns.size()) > -1) {
+            removeWithin(translator, node, m, functionParser, executionContext, model.geoHashPrefixes);
+            node.intrinsicValue = IntrinsicModel.TRUE;
+        }
+    }
+
+    private void collectCompositeKeyNodes(
+            AliasTranslator translator,
+            ExpressionNode node,
+            RecordMetadata m,
+            IntList compositeIndexColumns
+    ) {
+        if (node == null || node.intrinsicValue == IntrinsicModel.TRUE) {
+            return;
+        }
+        if (node.queryModel == null && isAndKeyword(node.token)) {
+            collectCompositeKeyNodes(translator, node.lhs, m, compositeIndexColumns);
+            collectCompositeKeyNodes(translator, node.rhs, m, compositeIndexColumns);
+            return;
+        }
+        if (node.type != ExpressionNode.OPERATION || node.paramCount != 2 || !Chars.equals(node.token, '=')) {
+            return;
+        }
+        final ExpressionNode column;
+        final ExpressionNode value;
+        if (node.lhs.type == ExpressionNode.LITERAL) {
+            column = node.lhs;
+            value = node.rhs;
+        } else {
+            column = node.rhs;
+            value = node.lhs;
+        }
+        if (column.type != ExpressionNode.LITERAL || (value.type != ExpressionNode.CONSTANT && value.type != ExpressionNode.BIND_VARIABLE)) {
+            return;
+        }
+        final int columnIndex = m.getColumnIndexQuiet(translator.translateAlias(column.token));
+        final int position = compositeIndexColumns.indexOf(columnIndex, 0, compositeIndexColumns.size());
+        if (position > -1 && compositeKeyNodes.getQuick(position) == null) {
+            compositeKeyNodes.setQuick(position, node);
+        }
+    }
+
     private ExpressionNode collapseIntrinsicNodes(ExpressionNode node) {
         if (node == null || node.intrinsicValue == IntrinsicModel.TRUE) {
             return null;
@@ -1042,6 +1159,27 @@ final class WhereClauseParser implements Mutable {
             FunctionParser functionParser,
             RecordMetadata metadata,
             SqlExecutionContext executionContext
+    ) throws SqlException {
+        return extract(translator, node, m, preferredKeyColumn, timestampIndex, functionParser, metadata, executionContext, null, null);
+    }
+
+    /**
+     * @param compositeIndexColumns indexes of composite index columns in index key order or null when
+     *                              composite index cannot be used to look rows up
+     * @param geoHashIndexColumns   indexes of columns with geohash index or null when geohash index
+     *                              cannot be used to look rows up
+     */
+    IntrinsicModel extract(
+            AliasTranslator translator,
+            ExpressionNode node,
+            RecordMetadata m,
+            CharSequence preferredKeyColumn,
+            int timestampIndex,
+            FunctionParser functionParser,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext,
+            IntList compositeIndexColumns,
+            IntList geoHashIndexColumns
     ) throws SqlException {
         this.timestamp = timestampIndex < 0 ? null : m.getColumnName(timestampIndex);
         this.preferredKeyColumn = preferredKeyColumn;
@@ -1071,6 +1209,15 @@ final class WhereClauseParser implements Mutable {
             }
         }
         applyKeyExclusions(translator, model);
+        if (compositeIndexColumns != null) {
+            applyCompositeIndex(translator, model, root, m, compositeIndexColumns);
+        }
+        if (geoHashIndexColumns != null
+                && model.intrinsicValue != IntrinsicModel.FALSE
+                && model.keyColumn == null
+                && model.compositeKeyValues.size() == 0) {
+            applyGeoHashIndex(translator, model, root, m, functionParser, executionContext, geoHashIndexColumns);
+        }
         model.filter = collapseIntrinsicNodes(root);
         return model;
     }
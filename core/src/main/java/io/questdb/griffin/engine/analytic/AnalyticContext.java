@@ -38,4 +38,22 @@ public interface AnalyticContext {
     boolean isOrdered();
 
     boolean baseSupportsRandomAccess();
+
+    int getFramingMode();
+
+    /**
+     * @return start of the frame relative to current row, negative for preceding rows,
+     * Long.MIN_VALUE for unbounded preceding
+     */
+    long getRowsLo();
+
+    /**
+     * @return end of the frame relative to current row, Long.MAX_VALUE for unbounded following
+     */
+    long getRowsHi();
+
+    /**
+     * @return index of timestamp column, which range frame offsets apply to, or -1
+     */
+    int getTimestampIndex();
 }
@@ -30,15 +30,28 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 
 public interface AnalyticFunction extends Function {
-    int STREAM = 1;
+    // value of the current row is known once the row is seen, function can run over streaming cursor
+    int STREAM = 0;
+    // values of preceding rows are updated as more rows are seen, rows have to be cached
+    int ONE_PASS = 1;
+    // values are known only when all rows of the partition are seen
     int TWO_PASS = 2;
-    int THREE_PASS = 3;
+
+    /**
+     * Streaming counterpart of {@link #pass1(Record, long, AnalyticSPI)}. Updates function state with
+     * the given record, value of which function returns until next call.
+     *
+     * @param record current record
+     */
+    void computeNext(Record record);
+
+    int getPassCount();
 
     void pass1(Record record, long recordOffset, AnalyticSPI spi);
 
     void preparePass2(RecordCursor cursor);
 
-    void pass2(Record record);
+    void pass2(Record record, long recordOffset, AnalyticSPI spi);
 
     void reset();
 
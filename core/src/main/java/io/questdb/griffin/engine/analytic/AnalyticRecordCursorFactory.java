@@ -0,0 +1,126 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.griffin.engine.table.SelectedRecordCursor;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Computes analytic functions in a single pass over base cursor. Used when all functions are
+ * able to stream, e.g. their frames end at current row, and rows arrive in the order functions
+ * expect, which is either natural order or order of designated timestamp of the base factory.
+ * Unlike {@link CachedAnalyticRecordCursorFactory} this factory does not copy base rows.
+ * <p>
+ * Functions see base records through column cross index, so that column indexes they were
+ * compiled with are the same as in the cached factory.
+ */
+public class AnalyticRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<Function> functions;
+    private final ObjList<AnalyticFunction> analyticFunctions;
+    private final SelectedRecordCursor selectedCursor;
+    private final AnalyticRecordCursor cursor;
+
+    public AnalyticRecordCursorFactory(
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            IntList columnCrossIndex,
+            ObjList<Function> functions,
+            ObjList<AnalyticFunction> analyticFunctions
+    ) {
+        super(metadata);
+        this.base = base;
+        this.functions = functions;
+        this.analyticFunctions = analyticFunctions;
+        this.selectedCursor = new SelectedRecordCursor(columnCrossIndex, false);
+        this.cursor = new AnalyticRecordCursor(functions);
+    }
+
+    @Override
+    public void close() {
+        // analytic functions are part of the function list
+        Misc.freeObjList(functions);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        selectedCursor.of(baseCursor);
+        try {
+            Function.init(functions, selectedCursor, executionContext);
+        } catch (Throwable e) {
+            Misc.free(baseCursor);
+            throw e;
+        }
+        for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+            analyticFunctions.getQuick(i).reset();
+        }
+        cursor.of(selectedCursor);
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"AnalyticRecordCursorFactory\", \"functions\":").put(analyticFunctions.size());
+        sink.put(", \"base\":");
+        base.toSink(sink);
+        sink.put('}');
+    }
+
+    private class AnalyticRecordCursor extends AbstractVirtualFunctionRecordCursor {
+
+        public AnalyticRecordCursor(ObjList<Function> functions) {
+            super(functions, false);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (baseCursor.hasNext()) {
+                for (int i = 0, n = analyticFunctions.size(); i < n; i++) {
+                    analyticFunctions.getQuick(i).computeNext(recordA.getBaseRecord());
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -26,14 +26,18 @@ package io.questdb.griffin.engine.analytic;
 
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.orderby.LongTreeChain;
+import io.questdb.griffin.engine.table.SelectedRecordCursor;
+import io.questdb.std.IntList;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import io.questdb.std.Transient;
@@ -47,10 +51,16 @@ public class CachedAnalyticRecordCursorFactory implements RecordCursorFactory {
     private final ObjList<ObjList<AnalyticFunction>> orderedFunctions;
     @Nullable private final ObjList<AnalyticFunction> unorderedFunctions;
     private final ObjList<AnalyticFunction> allFunctions;
+    private final ObjList<AnalyticFunction> twoPassFunctions = new ObjList<>();
     private final ObjList<RecordComparator> comparators;
     private final GenericRecordMetadata metadata;
     private final Record recordChainRecord;
+    // resolves symbols of chain columns against base cursor
+    private final SelectedRecordCursor symbolTableSource;
+    private final CachedAnalyticRecordCursor cursor = new CachedAnalyticRecordCursor();
     private boolean closed = false;
+    // number of rows cached by the current cursor
+    private long rowCount;
 
     public CachedAnalyticRecordCursorFactory(
             CairoConfiguration configuration,
@@ -58,6 +68,7 @@ public class CachedAnalyticRecordCursorFactory implements RecordCursorFactory {
             RecordSink recordSink,
             GenericRecordMetadata metadata,
             @Transient ColumnTypes chainMetadata,
+            IntList columnCrossIndex,
             ObjList<RecordComparator> comparators,
             ObjList<ObjList<AnalyticFunction>> orderedFunctions,
             @Nullable ObjList<AnalyticFunction> unorderedFunctions
@@ -69,11 +80,14 @@ public class CachedAnalyticRecordCursorFactory implements RecordCursorFactory {
         this.orderedFunctions = orderedFunctions;
         this.comparators = comparators;
         this.recordChain = new RecordChain(
+                configuration,
                 chainMetadata,
                 recordSink,
                 configuration.getSqlAnalyticStorePageSize(),
                 configuration.getSqlAnalyticStoreMaxPages()
         );
+        this.symbolTableSource = new SelectedRecordCursor(columnCrossIndex, false);
+        this.recordChain.setSymbolTableResolver(symbolTableSource);
 
         // red&black trees, one for each comparator where comparator is not null
         for (int i = 0; i < orderedGroupCount; i++) {
@@ -94,6 +108,12 @@ public class CachedAnalyticRecordCursorFactory implements RecordCursorFactory {
         if (unorderedFunctions != null) {
             allFunctions.addAll(unorderedFunctions);
         }
+        for (int i = 0, n = allFunctions.size(); i < n; i++) {
+            final AnalyticFunction f = allFunctions.getQuick(i);
+            if (f.getPassCount() == AnalyticFunction.TWO_PASS) {
+                twoPassFunctions.add(f);
+            }
+        }
 
         // create our metadata and also flatten functions for our record representation
         this.metadata = metadata;
@@ -120,17 +140,32 @@ public class CachedAnalyticRecordCursorFactory implements RecordCursorFactory {
         resetFunctions();
 
         final RecordCursor baseCursor = base.getCursor(executionContext);
+        symbolTableSource.of(baseCursor);
+        try {
+            Function.init(allFunctions, symbolTableSource, executionContext);
+            cacheAndCompute(baseCursor);
+        } catch (Throwable e) {
+            Misc.free(baseCursor);
+            throw e;
+        }
+        recordChain.toTop();
+        cursor.of(baseCursor);
+        return cursor;
+    }
 
+    private void cacheAndCompute(RecordCursor baseCursor) {
         // step #1: store source cursor in record list
         // - add record list' row ids to all trees, which will put these row ids in necessary order
         // for this we will be using out comparator, which helps tree compare long values
         // based on record these values are addressing
         long offset = -1;
+        rowCount = 0;
         final Record record = baseCursor.getRecord();
         final Record chainRightRecord = recordChain.getRecordB();
         if (orderedGroupCount > 0) {
             while (baseCursor.hasNext()) {
                 offset = recordChain.put(record, offset);
+                rowCount++;
                 recordChain.recordAt(recordChainRecord, offset);
                 for (int i = 0; i < orderedGroupCount; i++) {
                     orderedSources.getQuick(i).put(recordChainRecord, recordChain, chainRightRecord, comparators.getQuick(i));
@@ -139,6 +174,7 @@ public class CachedAnalyticRecordCursorFactory implements RecordCursorFactory {
         } else {
             while (baseCursor.hasNext()) {
                 offset = recordChain.put(record, offset);
+                rowCount++;
             }
         }
 
@@ -170,8 +206,15 @@ public class CachedAnalyticRecordCursorFactory implements RecordCursorFactory {
             }
         }
 
-        recordChain.toTop();
-        return recordChain;
+        // step #3: functions, which need to see whole partition, write values now
+        for (int j = 0, n = twoPassFunctions.size(); j < n; j++) {
+            final AnalyticFunction f = twoPassFunctions.getQuick(j);
+            f.preparePass2(recordChain);
+            recordChain.toTop();
+            while (recordChain.hasNext()) {
+                f.pass2(recordChainRecord, recordChainRecord.getRowId(), recordChain);
+            }
+        }
     }
 
     private void resetFunctions() {
@@ -195,4 +238,53 @@ public class CachedAnalyticRecordCursorFactory implements RecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
     }
+
+    private class CachedAnalyticRecordCursor implements RecordCursor {
+        private RecordCursor baseCursor;
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+            recordChain.close();
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordChain.getRecord();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return symbolTableSource.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return recordChain.hasNext();
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordChain.getRecordB();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            recordChain.recordAt(record, atRowId);
+        }
+
+        @Override
+        public void toTop() {
+            recordChain.toTop();
+        }
+
+        @Override
+        public long size() {
+            return rowCount;
+        }
+
+        private void of(RecordCursor baseCursor) {
+            this.baseCursor = baseCursor;
+        }
+    }
 }
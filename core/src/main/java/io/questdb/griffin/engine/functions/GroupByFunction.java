@@ -53,6 +53,18 @@ public interface GroupByFunction extends Function {
         return true;
     }
 
+    /**
+     * Combines partial aggregate of another instance of this function into destValue.
+     * Both instances must be created for the same query, e.g. have the same value layout.
+     * Only called when {@link #supportsParallelism()} returns true.
+     *
+     * @param destValue value that receives the result
+     * @param srcValue  partial aggregate computed by another instance of this function
+     */
+    default void merge(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
@@ -84,4 +96,12 @@ public interface GroupByFunction extends Function {
     default void setShort(MapValue mapValue, short value) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * @return true when partial aggregates computed over disjoint sets of rows can be
+     * combined via {@link #merge(MapValue, MapValue)} regardless of the order of rows
+     */
+    default boolean supportsParallelism() {
+        return false;
+    }
 }
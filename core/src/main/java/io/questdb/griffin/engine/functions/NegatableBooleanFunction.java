@@ -27,6 +27,10 @@ package io.questdb.griffin.engine.functions;
 public abstract class NegatableBooleanFunction extends BooleanFunction {
     protected boolean negated = false;
 
+    public boolean isNegated() {
+        return negated;
+    }
+
     void setNegated() {
         this.negated = true;
     }
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions;
+
+/**
+ * Boolean function of a single argument, which passes rows where the argument is one of a fixed
+ * set of values, e.g. {@code col = 'a'} or {@code col in ('a', 'b')}. Values are exposed as
+ * hashes of {@link io.questdb.cairo.BloomFilterUtils}, so that table scans can skip partitions
+ * that have none of the values.
+ */
+public interface ValueSetFunction extends UnaryFunction {
+
+    /**
+     * @return number of values or -1 when values are not known, symbol values are known once function is initialised
+     */
+    int getValueCount();
+
+    long getValueHash(int index);
+}
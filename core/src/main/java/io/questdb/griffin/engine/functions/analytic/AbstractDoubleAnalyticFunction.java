@@ -0,0 +1,196 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SingleColumnType;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Base for analytic functions of double values. Each partition keeps fixed size block of state,
+ * such as running sum or ring buffer of values in the frame, in off-heap memory. Partition key
+ * maps to the offset of its block. Blocks are released all at once on reset.
+ */
+public abstract class AbstractDoubleAnalyticFunction extends DoubleFunction implements ScalarFunction, AnalyticFunction, Closeable {
+    static final int SUM = 0;
+    static final int AVG = 1;
+    static final int MIN = 2;
+    static final int MAX = 3;
+    static final int FIRST_VALUE = 4;
+    static final int LAST_VALUE = 5;
+    private static final SingleColumnType LONG_COLUMN_TYPE = new SingleColumnType(ColumnType.LONG);
+    protected final Function arg;
+    protected final MemoryARW mem;
+    private final Map map;
+    private final VirtualRecord partitionByRecord;
+    private final RecordSink partitionBySink;
+    private final long blockSize;
+    protected double value;
+    private long singleBlockOffset = -1;
+    private int columnIndex;
+
+    protected AbstractDoubleAnalyticFunction(CairoConfiguration configuration, AnalyticContext context, Function arg, long blockSize) {
+        this.arg = arg;
+        this.blockSize = blockSize;
+        this.partitionByRecord = context.getPartitionByRecord();
+        this.partitionBySink = context.getPartitionBySink();
+        if (blockSize > 0) {
+            this.mem = Vm.getARWInstance(
+                    configuration.getSqlAnalyticStorePageSize(),
+                    configuration.getSqlAnalyticStoreMaxPages(),
+                    MemoryTag.NATIVE_DEFAULT
+            );
+            this.map = partitionByRecord != null ? MapFactory.createMap(configuration, context.getPartitionByKeyTypes(), LONG_COLUMN_TYPE) : null;
+        } else {
+            this.mem = null;
+            this.map = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        Misc.free(mem);
+        Misc.free(arg);
+        if (partitionByRecord != null) {
+            Misc.freeObjList(partitionByRecord.getFunctions());
+        }
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return value;
+    }
+
+    @Override
+    public int getPassCount() {
+        return STREAM;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        arg.init(symbolTableSource, executionContext);
+        if (partitionByRecord != null) {
+            Function.init(partitionByRecord.getFunctions(), symbolTableSource, executionContext);
+        }
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        computeNext(record);
+        Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+    }
+
+    @Override
+    public void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+    }
+
+    @Override
+    public void preparePass2(RecordCursor cursor) {
+    }
+
+    @Override
+    public void reset() {
+        if (map != null) {
+            map.clear();
+        }
+        if (mem != null) {
+            mem.truncate();
+        }
+        singleBlockOffset = -1;
+    }
+
+    @Override
+    public void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public void toTop() {
+        reset();
+    }
+
+    protected long allocate(long size) {
+        final long offset = mem.getAppendOffset();
+        mem.skip(size);
+        return offset;
+    }
+
+    /**
+     * Finds state block of the partition, which the record belongs to. Blocks of new
+     * partitions are initialised via {@link #initBlock(long)}.
+     *
+     * @param record current record
+     * @return offset of the block in {@link #mem}
+     */
+    protected long findBlock(Record record) {
+        if (map == null) {
+            if (singleBlockOffset == -1) {
+                singleBlockOffset = newBlock();
+            }
+            return singleBlockOffset;
+        }
+        partitionByRecord.of(record);
+        final MapKey key = map.withKey();
+        key.put(partitionByRecord, partitionBySink);
+        final MapValue mapValue = key.createValue();
+        if (mapValue.isNew()) {
+            final long offset = newBlock();
+            mapValue.putLong(0, offset);
+            return offset;
+        }
+        return mapValue.getLong(0);
+    }
+
+    protected int getColumnIndex() {
+        return columnIndex;
+    }
+
+    protected abstract void initBlock(long offset);
+
+    private long newBlock() {
+        final long offset = allocate(blockSize);
+        initBlock(offset);
+        return offset;
+    }
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.model.AnalyticColumn;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+
+/**
+ * Creates frame aggregate of double argument. Implementation is chosen by the frame
+ * of the analytic context, frames are validated by the code generator.
+ */
+public abstract class AbstractDoubleAnalyticFunctionFactory implements FunctionFactory {
+
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
+        final AnalyticContext context = sqlExecutionContext.getAnalyticContext();
+        final Function arg = args.getQuick(0);
+        final long rowsLo = context.getRowsLo();
+        if (rowsLo == Long.MIN_VALUE) {
+            return new UnboundedFrameDoubleAnalyticFunction(
+                    configuration,
+                    context,
+                    getKind(),
+                    arg,
+                    context.getRowsHi() == Long.MAX_VALUE
+            );
+        }
+
+        if (context.getFramingMode() == AnalyticColumn.FRAMING_RANGE && context.getTimestampIndex() != -1) {
+            return new RangeFrameDoubleAnalyticFunction(
+                    configuration,
+                    context,
+                    getKind(),
+                    arg,
+                    -rowsLo,
+                    context.getTimestampIndex()
+            );
+        }
+        return new RowsFrameDoubleAnalyticFunction(configuration, context, getKind(), arg, -rowsLo);
+    }
+
+    protected abstract int getKind();
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.functions.constants.DoubleConstant;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * lag(value [, offset [, default]]) returns value of the row, which is offset rows (1 by default)
+ * before current row in the partition, or default (null by default) when there is no such row.
+ */
+public class LagDoubleFunctionFactory implements FunctionFactory {
+
+    @Override
+    public String getSignature() {
+        return "lag(DV)";
+    }
+
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        final long offset = getOffset(args, argPositions);
+        return new LagFunction(
+                configuration,
+                sqlExecutionContext.getAnalyticContext(),
+                args.getQuick(0),
+                offset,
+                getDefaultValue(args, argPositions)
+        );
+    }
+
+    static Function getDefaultValue(ObjList<Function> args, IntList argPositions) throws SqlException {
+        if (args.size() < 3) {
+            return DoubleConstant.NULL;
+        }
+        final Function defaultValue = args.getQuick(2);
+        switch (ColumnType.tagOf(defaultValue.getType())) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.NULL:
+                return defaultValue;
+            default:
+                throw SqlException.$(argPositions.getQuick(2), "numeric default value expected");
+        }
+    }
+
+    static long getOffset(ObjList<Function> args, IntList argPositions) throws SqlException {
+        final int argCount = args.size();
+        if (argCount > 3) {
+            throw SqlException.$(argPositions.getQuick(3), "too many arguments");
+        }
+        if (argCount < 2) {
+            return 1;
+        }
+        final Function offset = args.getQuick(1);
+        if (!offset.isConstant()) {
+            throw SqlException.$(argPositions.getQuick(1), "offset must be a constant");
+        }
+        final long value;
+        switch (ColumnType.tagOf(offset.getType())) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                value = offset.getLong(null);
+                break;
+            default:
+                throw SqlException.$(argPositions.getQuick(1), "integer offset expected");
+        }
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw SqlException.$(argPositions.getQuick(1), "offset must be a non-negative integer");
+        }
+        return value;
+    }
+
+    private static class LagFunction extends AbstractDoubleAnalyticFunction {
+        // block layout: long count of partition rows, ring of the last offset values
+        private static final long ROWS_OFFSET = 0;
+        private static final long HEADER_SIZE = 8;
+        private final long offset;
+        private final Function defaultValue;
+
+        public LagFunction(CairoConfiguration configuration, AnalyticContext context, Function arg, long offset, Function defaultValue) {
+            super(configuration, context, arg, offset > 0 ? HEADER_SIZE + offset * Double.BYTES : 0);
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            Misc.free(defaultValue);
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            final double d = arg.getDouble(record);
+            if (offset == 0) {
+                value = d;
+                return;
+            }
+            final long block = findBlock(record);
+            final long rows = mem.getLong(block + ROWS_OFFSET);
+            // the slot holds value of the row, which is offset rows back
+            final long slot = block + HEADER_SIZE + (rows % offset) * Double.BYTES;
+            value = rows < offset ? defaultValue.getDouble(record) : mem.getDouble(slot);
+            mem.putDouble(slot, d);
+            mem.putLong(block + ROWS_OFFSET, rows + 1);
+        }
+
+        @Override
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            super.init(symbolTableSource, executionContext);
+            defaultValue.init(symbolTableSource, executionContext);
+        }
+
+        @Override
+        protected void initBlock(long offset) {
+            mem.putLong(offset + ROWS_OFFSET, 0);
+        }
+    }
+}
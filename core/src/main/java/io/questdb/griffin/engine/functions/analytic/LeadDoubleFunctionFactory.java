@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+/**
+ * lead(value [, offset [, default]]) returns value of the row, which is offset rows (1 by default)
+ * after current row in the partition, or default (null by default) when there is no such row.
+ * Value of the row is not known until later row arrives, so the function writes values
+ * back to the rows it keeps offsets of, and cannot stream.
+ */
+public class LeadDoubleFunctionFactory implements FunctionFactory {
+
+    @Override
+    public String getSignature() {
+        return "lead(DV)";
+    }
+
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        final long offset = LagDoubleFunctionFactory.getOffset(args, argPositions);
+        return new LeadFunction(
+                configuration,
+                sqlExecutionContext.getAnalyticContext(),
+                args.getQuick(0),
+                offset,
+                LagDoubleFunctionFactory.getDefaultValue(args, argPositions)
+        );
+    }
+
+    private static class LeadFunction extends AbstractDoubleAnalyticFunction {
+        // block layout: long count of partition rows, ring of chain offsets of the last offset rows
+        private static final long ROWS_OFFSET = 0;
+        private static final long HEADER_SIZE = 8;
+        private final long offset;
+        private final Function defaultValue;
+
+        public LeadFunction(CairoConfiguration configuration, AnalyticContext context, Function arg, long offset, Function defaultValue) {
+            super(configuration, context, arg, offset > 0 ? HEADER_SIZE + offset * Long.BYTES : 0);
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            Misc.free(defaultValue);
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getPassCount() {
+            return ONE_PASS;
+        }
+
+        @Override
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            super.init(symbolTableSource, executionContext);
+            defaultValue.init(symbolTableSource, executionContext);
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            final double d = arg.getDouble(record);
+            final int columnIndex = getColumnIndex();
+            if (offset == 0) {
+                Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), d);
+                return;
+            }
+            // default stays unless partition has offset more rows
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), defaultValue.getDouble(record));
+            final long block = findBlock(record);
+            final long rows = mem.getLong(block + ROWS_OFFSET);
+            final long slot = block + HEADER_SIZE + (rows % offset) * Long.BYTES;
+            if (rows >= offset) {
+                Unsafe.getUnsafe().putDouble(spi.getAddress(mem.getLong(slot), columnIndex), d);
+            }
+            mem.putLong(slot, recordOffset);
+            mem.putLong(block + ROWS_OFFSET, rows + 1);
+        }
+
+        @Override
+        protected void initBlock(long offset) {
+            mem.putLong(offset + ROWS_OFFSET, 0);
+        }
+    }
+}
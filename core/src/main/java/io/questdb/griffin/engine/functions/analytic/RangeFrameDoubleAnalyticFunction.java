@@ -0,0 +1,204 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.Numbers;
+
+/**
+ * RANGE BETWEEN n PRECEDING AND CURRENT ROW over ascending timestamp. Partition block is a header
+ * pointing at ring buffer of (timestamp, value) entries. Number of rows in the frame is not known
+ * upfront, so the ring doubles in size when it fills up. Rows are evicted from the head of the ring
+ * once their timestamp falls behind the frame. Minimum and maximum keep monotonic deque in the ring.
+ */
+public class RangeFrameDoubleAnalyticFunction extends AbstractDoubleAnalyticFunction {
+    // header layout: double sum, long count of values in frame, long ring offset,
+    // long ring capacity, long ring head, long ring size
+    private static final long SUM_OFFSET = 0;
+    private static final long COUNT_OFFSET = 8;
+    private static final long RING_OFFSET = 16;
+    private static final long CAPACITY_OFFSET = 24;
+    private static final long HEAD_OFFSET = 32;
+    private static final long SIZE_OFFSET = 40;
+    private static final long HEADER_SIZE = 48;
+    private static final long ENTRY_SIZE = 16;
+    private static final long INITIAL_CAPACITY = 16;
+    private final int kind;
+    private final long range;
+    private final int timestampIndex;
+
+    public RangeFrameDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext context,
+            int kind,
+            Function arg,
+            long range,
+            int timestampIndex
+    ) {
+        super(configuration, context, arg, kind == LAST_VALUE ? 0 : HEADER_SIZE + INITIAL_CAPACITY * ENTRY_SIZE);
+        this.kind = kind;
+        this.range = range;
+        this.timestampIndex = timestampIndex;
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        final double d = arg.getDouble(record);
+        if (kind == LAST_VALUE) {
+            value = d;
+            return;
+        }
+
+        final long timestamp = record.getTimestamp(timestampIndex);
+        if (timestamp == Numbers.LONG_NaN) {
+            // rows without timestamp do not belong to frame of any other row
+            value = kind == FIRST_VALUE || Numbers.isFinite(d) ? d : Double.NaN;
+            return;
+        }
+
+        final long offset = findBlock(record);
+        evict(offset, timestamp - range);
+        switch (kind) {
+            case FIRST_VALUE:
+                push(offset, timestamp, d);
+                value = mem.getDouble(entryOffset(offset, 0) + 8);
+                break;
+            case MIN:
+            case MAX:
+                computeMinMax(offset, timestamp, d);
+                break;
+            default:
+                computeSum(offset, timestamp, d);
+                break;
+        }
+    }
+
+    @Override
+    protected void initBlock(long offset) {
+        mem.putDouble(offset + SUM_OFFSET, 0);
+        mem.putLong(offset + COUNT_OFFSET, 0);
+        mem.putLong(offset + RING_OFFSET, offset + HEADER_SIZE);
+        mem.putLong(offset + CAPACITY_OFFSET, INITIAL_CAPACITY);
+        mem.putLong(offset + HEAD_OFFSET, 0);
+        mem.putLong(offset + SIZE_OFFSET, 0);
+    }
+
+    private void computeMinMax(long offset, long timestamp, double d) {
+        if (Numbers.isFinite(d)) {
+            // values that cannot become frame minimum (maximum) anymore leave from the back
+            long size = mem.getLong(offset + SIZE_OFFSET);
+            while (size > 0) {
+                final double last = mem.getDouble(entryOffset(offset, size - 1) + 8);
+                if (kind == MIN ? last < d : last > d) {
+                    break;
+                }
+                size--;
+            }
+            mem.putLong(offset + SIZE_OFFSET, size);
+            push(offset, timestamp, d);
+        }
+        value = mem.getLong(offset + SIZE_OFFSET) > 0 ? mem.getDouble(entryOffset(offset, 0) + 8) : Double.NaN;
+    }
+
+    private void computeSum(long offset, long timestamp, double d) {
+        double sum = mem.getDouble(offset + SUM_OFFSET);
+        long count = mem.getLong(offset + COUNT_OFFSET);
+        if (Numbers.isFinite(d)) {
+            push(offset, timestamp, d);
+            sum += d;
+            count++;
+            mem.putDouble(offset + SUM_OFFSET, sum);
+            mem.putLong(offset + COUNT_OFFSET, count);
+        }
+        if (count == 0) {
+            value = Double.NaN;
+        } else {
+            value = kind == AVG ? sum / count : sum;
+        }
+    }
+
+    private long entryOffset(long offset, long index) {
+        final long capacity = mem.getLong(offset + CAPACITY_OFFSET);
+        final long head = mem.getLong(offset + HEAD_OFFSET);
+        return mem.getLong(offset + RING_OFFSET) + ((head + index) % capacity) * ENTRY_SIZE;
+    }
+
+    private void evict(long offset, long lo) {
+        long size = mem.getLong(offset + SIZE_OFFSET);
+        if (size == 0) {
+            return;
+        }
+        final long ring = mem.getLong(offset + RING_OFFSET);
+        final long capacity = mem.getLong(offset + CAPACITY_OFFSET);
+        long head = mem.getLong(offset + HEAD_OFFSET);
+        double sum = mem.getDouble(offset + SUM_OFFSET);
+        long count = mem.getLong(offset + COUNT_OFFSET);
+        while (size > 0) {
+            final long entry = ring + head * ENTRY_SIZE;
+            if (mem.getLong(entry) >= lo) {
+                break;
+            }
+            if (kind == SUM || kind == AVG) {
+                sum -= mem.getDouble(entry + 8);
+                count--;
+            }
+            head = (head + 1) % capacity;
+            size--;
+        }
+        if (count == 0) {
+            // do not carry rounding errors over empty frame
+            sum = 0;
+        }
+        mem.putLong(offset + HEAD_OFFSET, head);
+        mem.putLong(offset + SIZE_OFFSET, size);
+        mem.putDouble(offset + SUM_OFFSET, sum);
+        mem.putLong(offset + COUNT_OFFSET, count);
+    }
+
+    private void push(long offset, long timestamp, double d) {
+        final long size = mem.getLong(offset + SIZE_OFFSET);
+        long capacity = mem.getLong(offset + CAPACITY_OFFSET);
+        if (size == capacity) {
+            // move entries to twice as large ring at the end of memory, old ring is abandoned
+            final long ring = allocate(capacity * 2 * ENTRY_SIZE);
+            for (long i = 0; i < size; i++) {
+                final long entry = entryOffset(offset, i);
+                mem.putLong(ring + i * ENTRY_SIZE, mem.getLong(entry));
+                mem.putDouble(ring + i * ENTRY_SIZE + 8, mem.getDouble(entry + 8));
+            }
+            capacity *= 2;
+            mem.putLong(offset + RING_OFFSET, ring);
+            mem.putLong(offset + CAPACITY_OFFSET, capacity);
+            mem.putLong(offset + HEAD_OFFSET, 0);
+        }
+        final long entry = entryOffset(offset, size);
+        mem.putLong(entry, timestamp);
+        mem.putDouble(entry + 8, d);
+        mem.putLong(offset + SIZE_OFFSET, size + 1);
+    }
+}
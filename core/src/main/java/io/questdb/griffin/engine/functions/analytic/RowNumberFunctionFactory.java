@@ -34,6 +34,7 @@ import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
@@ -54,6 +55,11 @@ public class RowNumberFunctionFactory implements FunctionFactory {
         return "row_number()";
     }
 
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
     @Override
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
         final AnalyticContext analyticContext = sqlExecutionContext.getAnalyticContext();
@@ -70,7 +76,7 @@ public class RowNumberFunctionFactory implements FunctionFactory {
                     analyticContext.getPartitionBySink()
             );
         }
-        return null;
+        return new RowNumberFunction(null, null, null);
     }
 
     private static class RowNumberFunction extends LongFunction implements ScalarFunction, AnalyticFunction, Closeable {
@@ -78,6 +84,8 @@ public class RowNumberFunctionFactory implements FunctionFactory {
         private final VirtualRecord partitionByRecord;
         private final RecordSink partitionBySink;
         private int columnIndex;
+        private long rowNumber;
+        private long count;
 
         public RowNumberFunction(Map map, VirtualRecord partitionByRecord, RecordSink partitionBySink) {
             this.map = map;
@@ -88,17 +96,17 @@ public class RowNumberFunctionFactory implements FunctionFactory {
         @Override
         public void close() {
             Misc.free(map);
-            Misc.free(partitionByRecord.getFunctions());
-        }
-
-        @Override
-        public long getLong(Record rec) {
-            // not called
-            throw new UnsupportedOperationException();
+            if (partitionByRecord != null) {
+                Misc.freeObjList(partitionByRecord.getFunctions());
+            }
         }
 
         @Override
-        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        public void computeNext(Record record) {
+            if (map == null) {
+                rowNumber = count++;
+                return;
+            }
             partitionByRecord.of(record);
             MapKey key = map.withKey();
             key.put(partitionByRecord, partitionBySink);
@@ -110,25 +118,56 @@ public class RowNumberFunctionFactory implements FunctionFactory {
                 x = value.getLong(0);
             }
             value.putLong(0, x + 1);
-            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), x);
+            rowNumber = x;
         }
 
         @Override
-        public void preparePass2(RecordCursor cursor) {
+        public long getLong(Record rec) {
+            return rowNumber;
         }
 
         @Override
-        public void pass2(Record record) {
+        public int getPassCount() {
+            return STREAM;
+        }
+
+        @Override
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+            if (partitionByRecord != null) {
+                Function.init(partitionByRecord.getFunctions(), symbolTableSource, executionContext);
+            }
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), rowNumber);
+        }
+
+        @Override
+        public void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+        }
+
+        @Override
+        public void preparePass2(RecordCursor cursor) {
         }
 
         @Override
         public void reset() {
-            map.clear();
+            if (map != null) {
+                map.clear();
+            }
+            count = 0;
         }
 
         @Override
         public void setColumnIndex(int columnIndex) {
             this.columnIndex = columnIndex;
         }
+
+        @Override
+        public void toTop() {
+            reset();
+        }
     }
 }
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.Numbers;
+
+/**
+ * ROWS BETWEEN n PRECEDING AND CURRENT ROW. Partition block is a header followed by ring buffer
+ * of the last n + 1 rows. Sum and average keep running total of the ring, minimum and maximum
+ * keep monotonic deque of (row, value) entries, so that each row is processed in constant
+ * amortised time regardless of the frame size.
+ */
+public class RowsFrameDoubleAnalyticFunction extends AbstractDoubleAnalyticFunction {
+    // header layout: double sum, long count of values in frame or deque size,
+    // long count of partition rows, long deque head
+    private static final long SUM_OFFSET = 0;
+    private static final long COUNT_OFFSET = 8;
+    private static final long ROWS_OFFSET = 16;
+    private static final long HEAD_OFFSET = 24;
+    private static final long HEADER_SIZE = 32;
+    private final int kind;
+    private final long capacity;
+
+    public RowsFrameDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext context,
+            int kind,
+            Function arg,
+            long rowsPreceding
+    ) {
+        super(configuration, context, arg, kind == LAST_VALUE ? 0 : HEADER_SIZE + (rowsPreceding + 1) * entrySize(kind));
+        this.kind = kind;
+        this.capacity = rowsPreceding + 1;
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        final double d = arg.getDouble(record);
+        switch (kind) {
+            case LAST_VALUE:
+                value = d;
+                break;
+            case FIRST_VALUE:
+                computeFirst(findBlock(record), d);
+                break;
+            case MIN:
+            case MAX:
+                computeMinMax(findBlock(record), d);
+                break;
+            default:
+                computeSum(findBlock(record), d);
+                break;
+        }
+    }
+
+    @Override
+    protected void initBlock(long offset) {
+        mem.putDouble(offset + SUM_OFFSET, 0);
+        mem.putLong(offset + COUNT_OFFSET, 0);
+        mem.putLong(offset + ROWS_OFFSET, 0);
+        mem.putLong(offset + HEAD_OFFSET, 0);
+    }
+
+    private static long entrySize(int kind) {
+        // deque entries are (row, value) pairs
+        return kind == MIN || kind == MAX ? 16 : 8;
+    }
+
+    private void computeFirst(long offset, double d) {
+        final long rows = mem.getLong(offset + ROWS_OFFSET);
+        mem.putDouble(offset + HEADER_SIZE + (rows % capacity) * Double.BYTES, d);
+        mem.putLong(offset + ROWS_OFFSET, rows + 1);
+        // first row of the frame is either first row of partition or the oldest row in the ring
+        final long first = rows < capacity ? 0 : (rows + 1) % capacity;
+        value = mem.getDouble(offset + HEADER_SIZE + first * Double.BYTES);
+    }
+
+    private void computeMinMax(long offset, double d) {
+        final long rows = mem.getLong(offset + ROWS_OFFSET);
+        long head = mem.getLong(offset + HEAD_OFFSET);
+        long size = mem.getLong(offset + COUNT_OFFSET);
+        final long ring = offset + HEADER_SIZE;
+
+        // evict rows, which are no longer in the frame
+        final long firstRow = rows - capacity + 1;
+        while (size > 0 && mem.getLong(ring + head * 16) < firstRow) {
+            head = (head + 1) % capacity;
+            size--;
+        }
+
+        if (Numbers.isFinite(d)) {
+            // values that cannot become frame minimum (maximum) anymore leave from the back
+            while (size > 0) {
+                final double last = mem.getDouble(ring + ((head + size - 1) % capacity) * 16 + 8);
+                if (kind == MIN ? last < d : last > d) {
+                    break;
+                }
+                size--;
+            }
+            final long tail = ring + ((head + size) % capacity) * 16;
+            mem.putLong(tail, rows);
+            mem.putDouble(tail + 8, d);
+            size++;
+        }
+
+        mem.putLong(offset + ROWS_OFFSET, rows + 1);
+        mem.putLong(offset + HEAD_OFFSET, head);
+        mem.putLong(offset + COUNT_OFFSET, size);
+        value = size > 0 ? mem.getDouble(ring + head * 16 + 8) : Double.NaN;
+    }
+
+    private void computeSum(long offset, double d) {
+        final long rows = mem.getLong(offset + ROWS_OFFSET);
+        double sum = mem.getDouble(offset + SUM_OFFSET);
+        long count = mem.getLong(offset + COUNT_OFFSET);
+        final long slot = offset + HEADER_SIZE + (rows % capacity) * Double.BYTES;
+
+        if (rows >= capacity) {
+            // value in the slot is leaving the frame
+            final double old = mem.getDouble(slot);
+            if (Numbers.isFinite(old)) {
+                sum -= old;
+                count--;
+            }
+        }
+        mem.putDouble(slot, d);
+        if (Numbers.isFinite(d)) {
+            sum += d;
+            count++;
+        }
+        if (count == 0) {
+            // do not carry rounding errors over empty frame
+            sum = 0;
+        }
+
+        mem.putDouble(offset + SUM_OFFSET, sum);
+        mem.putLong(offset + COUNT_OFFSET, count);
+        mem.putLong(offset + ROWS_OFFSET, rows + 1);
+        if (count == 0) {
+            value = Double.NaN;
+        } else {
+            value = kind == AVG ? sum / count : sum;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+/**
+ * Frames starting at the first row of the partition. Frames ending at current row produce
+ * running values in one pass. Frames ending at the last row of the partition accumulate
+ * the whole partition first and write the same value to all of its rows in the second pass.
+ */
+public class UnboundedFrameDoubleAnalyticFunction extends AbstractDoubleAnalyticFunction {
+    // block layout: double accumulator, long count of accumulated values
+    private static final long BLOCK_SIZE = 16;
+    private final int kind;
+    private final boolean wholePartition;
+
+    public UnboundedFrameDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext context,
+            int kind,
+            Function arg,
+            boolean wholePartition
+    ) {
+        // last value of running frame is the current value, no state is needed
+        super(configuration, context, arg, kind == LAST_VALUE && !wholePartition ? 0 : BLOCK_SIZE);
+        this.kind = kind;
+        this.wholePartition = wholePartition;
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        if (kind == LAST_VALUE) {
+            value = arg.getDouble(record);
+        } else {
+            final long offset = findBlock(record);
+            accumulate(offset, arg.getDouble(record));
+            value = valueOf(offset);
+        }
+    }
+
+    @Override
+    public int getPassCount() {
+        return wholePartition ? TWO_PASS : STREAM;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        if (wholePartition) {
+            accumulate(findBlock(record), arg.getDouble(record));
+        } else {
+            super.pass1(record, recordOffset, spi);
+        }
+    }
+
+    @Override
+    public void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+        if (wholePartition) {
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, getColumnIndex()), valueOf(findBlock(record)));
+        }
+    }
+
+    @Override
+    protected void initBlock(long offset) {
+        mem.putDouble(offset, Double.NaN);
+        mem.putLong(offset + Double.BYTES, 0);
+    }
+
+    private void accumulate(long offset, double d) {
+        final long count = mem.getLong(offset + Double.BYTES);
+        switch (kind) {
+            case FIRST_VALUE:
+                if (count == 0) {
+                    mem.putDouble(offset, d);
+                    mem.putLong(offset + Double.BYTES, 1);
+                }
+                break;
+            case LAST_VALUE:
+                mem.putDouble(offset, d);
+                break;
+            default:
+                if (Numbers.isFinite(d)) {
+                    if (count > 0) {
+                        final double acc = mem.getDouble(offset);
+                        switch (kind) {
+                            case MIN:
+                                d = Math.min(acc, d);
+                                break;
+                            case MAX:
+                                d = Math.max(acc, d);
+                                break;
+                            default:
+                                d += acc;
+                                break;
+                        }
+                    }
+                    mem.putDouble(offset, d);
+                    mem.putLong(offset + Double.BYTES, count + 1);
+                }
+                break;
+        }
+    }
+
+    private double valueOf(long offset) {
+        if (kind == AVG) {
+            final long count = mem.getLong(offset + Double.BYTES);
+            return count > 0 ? mem.getDouble(offset) / count : Double.NaN;
+        }
+        // accumulator stays NaN until first value
+        return mem.getDouble(offset);
+    }
+}
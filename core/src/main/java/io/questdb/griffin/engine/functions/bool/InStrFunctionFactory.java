@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.engine.functions.bool;
 
+import io.questdb.cairo.BloomFilterUtils;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.sql.Function;
@@ -32,7 +33,7 @@ import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.BooleanFunction;
-import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.ValueSetFunction;
 import io.questdb.griffin.engine.functions.constants.BooleanConstant;
 import io.questdb.std.CharSequenceHashSet;
 import io.questdb.std.Chars;
@@ -81,7 +82,7 @@ public class InStrFunctionFactory implements FunctionFactory {
         return new Func(var, set);
     }
 
-    private static class Func extends BooleanFunction implements UnaryFunction {
+    private static class Func extends BooleanFunction implements ValueSetFunction {
         private final Function arg;
         private final CharSequenceHashSet set;
 
@@ -99,5 +100,15 @@ public class InStrFunctionFactory implements FunctionFactory {
         public boolean getBool(Record rec) {
             return set.contains(arg.getStr(rec));
         }
+
+        @Override
+        public int getValueCount() {
+            return set.size();
+        }
+
+        @Override
+        public long getValueHash(int index) {
+            return BloomFilterUtils.hash(set.get(index));
+        }
     }
 }
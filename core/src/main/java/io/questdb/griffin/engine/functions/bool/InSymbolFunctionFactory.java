@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.engine.functions.bool;
 
+import io.questdb.cairo.BloomFilterUtils;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.sql.Function;
@@ -35,7 +36,7 @@ import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.BooleanFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
-import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.ValueSetFunction;
 import io.questdb.griffin.engine.functions.constants.BooleanConstant;
 import io.questdb.std.*;
 
@@ -87,7 +88,7 @@ public class InSymbolFunctionFactory implements FunctionFactory {
         boolean test(Record rec);
     }
 
-    private static class Func extends BooleanFunction implements UnaryFunction {
+    private static class Func extends BooleanFunction implements ValueSetFunction {
         private final SymbolFunction arg;
         private final CharSequenceHashSet set;
         private final IntHashSet intSet = new IntHashSet();
@@ -110,6 +111,16 @@ public class InSymbolFunctionFactory implements FunctionFactory {
             return testFunc.test(rec);
         }
 
+        @Override
+        public int getValueCount() {
+            return testFunc == intTest ? intSet.size() : -1;
+        }
+
+        @Override
+        public long getValueHash(int index) {
+            return BloomFilterUtils.hash(intSet.get(index));
+        }
+
         @Override
         public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
             arg.init(symbolTableSource, executionContext);
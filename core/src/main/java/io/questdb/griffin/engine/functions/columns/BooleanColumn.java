@@ -31,7 +31,7 @@ import io.questdb.std.ObjList;
 
 import static io.questdb.griffin.engine.functions.columns.ColumnUtils.STATIC_COLUMN_COUNT;
 
-public class BooleanColumn extends BooleanFunction implements ScalarFunction {
+public class BooleanColumn extends BooleanFunction implements ScalarFunction, ColumnFunction {
     private static final ObjList<BooleanColumn> COLUMNS = new ObjList<>(STATIC_COLUMN_COUNT);
 
     static {
@@ -54,6 +54,11 @@ public class BooleanColumn extends BooleanFunction implements ScalarFunction {
         this.columnIndex = columnIndex;
     }
 
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public boolean getBool(Record rec) {
         return rec.getBool(columnIndex);
@@ -31,7 +31,7 @@ import io.questdb.std.ObjList;
 
 import static io.questdb.griffin.engine.functions.columns.ColumnUtils.STATIC_COLUMN_COUNT;
 
-public class ByteColumn extends ByteFunction implements ScalarFunction {
+public class ByteColumn extends ByteFunction implements ScalarFunction, ColumnFunction {
     private static final ObjList<ByteColumn> COLUMNS = new ObjList<>(STATIC_COLUMN_COUNT);
     static {
         COLUMNS.setPos(STATIC_COLUMN_COUNT);
@@ -54,6 +54,11 @@ public class ByteColumn extends ByteFunction implements ScalarFunction {
         this.columnIndex = columnIndex;
     }
 
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public byte getByte(Record rec) {
         return rec.getByte(columnIndex);
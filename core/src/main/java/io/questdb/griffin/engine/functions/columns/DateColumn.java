@@ -31,7 +31,7 @@ import io.questdb.std.ObjList;
 
 import static io.questdb.griffin.engine.functions.columns.ColumnUtils.STATIC_COLUMN_COUNT;
 
-public class DateColumn extends DateFunction implements ScalarFunction {
+public class DateColumn extends DateFunction implements ScalarFunction, ColumnFunction {
     private static final ObjList<DateColumn> COLUMNS = new ObjList<>(STATIC_COLUMN_COUNT);
     private final int columnIndex;
 
@@ -46,6 +46,11 @@ public class DateColumn extends DateFunction implements ScalarFunction {
         return new DateColumn(columnIndex);
     }
 
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public long getDate(Record rec) {
         return rec.getDate(columnIndex);
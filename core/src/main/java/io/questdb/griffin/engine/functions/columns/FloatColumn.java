@@ -31,7 +31,7 @@ import io.questdb.std.ObjList;
 
 import static io.questdb.griffin.engine.functions.columns.ColumnUtils.STATIC_COLUMN_COUNT;
 
-public class FloatColumn extends FloatFunction implements ScalarFunction {
+public class FloatColumn extends FloatFunction implements ScalarFunction, ColumnFunction {
     private static final ObjList<FloatColumn> COLUMNS = new ObjList<>(STATIC_COLUMN_COUNT);
     private final int columnIndex;
 
@@ -46,6 +46,11 @@ public class FloatColumn extends FloatFunction implements ScalarFunction {
         return new FloatColumn(columnIndex);
     }
 
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public float getFloat(Record rec) {
         return rec.getFloat(columnIndex);
@@ -33,7 +33,7 @@ import io.questdb.std.str.CharSink;
 
 import static io.questdb.griffin.engine.functions.columns.ColumnUtils.STATIC_COLUMN_COUNT;
 
-public class Long256Column extends Long256Function implements ScalarFunction {
+public class Long256Column extends Long256Function implements ScalarFunction, ColumnFunction {
     private static final ObjList<Long256Column> COLUMNS = new ObjList<>(STATIC_COLUMN_COUNT);
     private final int columnIndex;
 
@@ -41,6 +41,11 @@ public class Long256Column extends Long256Function implements ScalarFunction {
         this.columnIndex = columnIndex;
     }
 
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     public static Long256Column newInstance(int columnIndex) {
         if (columnIndex < STATIC_COLUMN_COUNT) {
             return COLUMNS.getQuick(columnIndex);
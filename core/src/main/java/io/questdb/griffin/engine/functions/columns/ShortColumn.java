@@ -31,7 +31,7 @@ import io.questdb.std.ObjList;
 
 import static io.questdb.griffin.engine.functions.columns.ColumnUtils.STATIC_COLUMN_COUNT;
 
-public class ShortColumn extends ShortFunction implements ScalarFunction {
+public class ShortColumn extends ShortFunction implements ScalarFunction, ColumnFunction {
     private static final ObjList<ShortColumn> COLUMNS = new ObjList<>(STATIC_COLUMN_COUNT);
     private final int columnIndex;
 
@@ -46,6 +46,11 @@ public class ShortColumn extends ShortFunction implements ScalarFunction {
         return new ShortColumn(columnIndex);
     }
 
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public short getShort(Record rec) {
         return rec.getShort(columnIndex);
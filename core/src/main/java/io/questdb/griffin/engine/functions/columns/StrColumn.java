@@ -32,7 +32,7 @@ import io.questdb.std.str.CharSink;
 
 import static io.questdb.griffin.engine.functions.columns.ColumnUtils.STATIC_COLUMN_COUNT;
 
-public class StrColumn extends StrFunction implements ScalarFunction {
+public class StrColumn extends StrFunction implements ScalarFunction, ColumnFunction {
     private static final ObjList<StrColumn> COLUMNS = new ObjList<>(STATIC_COLUMN_COUNT);
     private final int columnIndex;
 
@@ -40,6 +40,11 @@ public class StrColumn extends StrFunction implements ScalarFunction {
         this.columnIndex = columnIndex;
     }
 
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     public static StrColumn newInstance(int columnIndex) {
         if (columnIndex < STATIC_COLUMN_COUNT) {
             return COLUMNS.getQuick(columnIndex);
@@ -29,7 +29,7 @@ import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.SymbolFunction;
 import org.jetbrains.annotations.Nullable;
 
-public class SymbolColumn extends SymbolFunction implements ScalarFunction {
+public class SymbolColumn extends SymbolFunction implements ScalarFunction, ColumnFunction {
     private final int columnIndex;
     private final boolean symbolTableStatic;
     private SymbolTable symbolTable;
@@ -39,6 +39,11 @@ public class SymbolColumn extends SymbolFunction implements ScalarFunction {
         this.symbolTableStatic = symbolTableStatic;
     }
 
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
     @Override
     public int getInt(Record rec) {
         return rec.getInt(columnIndex);
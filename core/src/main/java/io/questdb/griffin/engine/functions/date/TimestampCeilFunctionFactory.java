@@ -49,6 +49,8 @@ public class TimestampCeilFunctionFactory implements FunctionFactory {
 
         final char c = kind.getChar(null);
         switch (c) {
+            case 'w':
+                return new TimestampCeilWWFunction(args.getQuick(1));
             case 'd':
                 return new TimestampCeilDDFunction(args.getQuick(1));
             case 'M':
@@ -102,6 +104,17 @@ public class TimestampCeilFunctionFactory implements FunctionFactory {
         }
     }
 
+    public static class TimestampCeilWWFunction extends AbstractTimestampCeilFunction {
+        public TimestampCeilWWFunction(Function arg) {
+            super(arg);
+        }
+
+        @Override
+        public long ceil(long timestamp) {
+            return Timestamps.ceilWW(timestamp);
+        }
+    }
+
     public static class TimestampCeilMMFunction extends AbstractTimestampCeilFunction {
         public TimestampCeilMMFunction(Function arg) {
             super(arg);
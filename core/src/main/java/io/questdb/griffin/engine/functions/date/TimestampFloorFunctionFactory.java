@@ -47,6 +47,8 @@ public class TimestampFloorFunctionFactory implements FunctionFactory {
     public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
         final char c = args.getQuick(0).getChar(null);
         switch (c) {
+            case 'w':
+                return new TimestampFloorWWFunction(args.getQuick(1));
             case 'd':
                 return new TimestampFloorDDFunction(args.getQuick(1));
             case 'M':
@@ -100,6 +102,17 @@ public class TimestampFloorFunctionFactory implements FunctionFactory {
         }
     }
 
+    public static class TimestampFloorWWFunction extends AbstractTimestampFloorFunction {
+        public TimestampFloorWWFunction(Function arg) {
+            super(arg);
+        }
+
+        @Override
+        public long floor(long timestamp) {
+            return Timestamps.floorWW(timestamp);
+        }
+    }
+
     public static class TimestampFloorMMFunction extends AbstractTimestampFloorFunction {
         public TimestampFloorMMFunction(Function arg) {
             super(arg);
@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.engine.functions.eq;
 
+import io.questdb.cairo.BloomFilterUtils;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.sql.Function;
@@ -32,7 +33,7 @@ import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.NegatableBooleanFunction;
-import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.ValueSetFunction;
 import io.questdb.std.*;
 
 import java.lang.ThreadLocal;
@@ -65,7 +66,7 @@ public class EqLong256StrFunctionFactory implements FunctionFactory {
         }
     }
 
-    private static class Func extends NegatableBooleanFunction implements UnaryFunction {
+    private static class Func extends NegatableBooleanFunction implements ValueSetFunction {
         private static final Long256 NULL = Long256Impl.NULL_LONG256;
 
         private final Function arg;
@@ -95,6 +96,16 @@ public class EqLong256StrFunctionFactory implements FunctionFactory {
                     value.getLong3() == long3);
         }
 
+        @Override
+        public int getValueCount() {
+            return 1;
+        }
+
+        @Override
+        public long getValueHash(int index) {
+            return BloomFilterUtils.hash(long0, long1, long2, long3);
+        }
+
         @Override
         public Function getArg() {
             return arg;
@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.engine.functions.eq;
 
+import io.questdb.cairo.BloomFilterUtils;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
@@ -32,6 +33,7 @@ import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.BinaryFunction;
 import io.questdb.griffin.engine.functions.NegatableBooleanFunction;
 import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.ValueSetFunction;
 import io.questdb.std.Chars;
 import io.questdb.std.IntList;
 import io.questdb.std.ObjList;
@@ -96,7 +98,7 @@ public class EqStrFunctionFactory implements FunctionFactory {
         }
     }
 
-    private static class ConstCheckFunc extends NegatableBooleanFunction implements UnaryFunction {
+    private static class ConstCheckFunc extends NegatableBooleanFunction implements ValueSetFunction {
         private final Function arg;
         private final CharSequence constant;
 
@@ -114,6 +116,16 @@ public class EqStrFunctionFactory implements FunctionFactory {
         public boolean getBool(Record rec) {
             return negated != Chars.equalsNc(constant, arg.getStr(rec));
         }
+
+        @Override
+        public int getValueCount() {
+            return 1;
+        }
+
+        @Override
+        public long getValueHash(int index) {
+            return BloomFilterUtils.hash(constant);
+        }
     }
 
     private static class Func extends NegatableBooleanFunction implements BinaryFunction {
@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.engine.functions.eq;
 
+import io.questdb.cairo.BloomFilterUtils;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.FunctionFactory;
@@ -33,6 +34,7 @@ import io.questdb.griffin.engine.functions.BinaryFunction;
 import io.questdb.griffin.engine.functions.NegatableBooleanFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.ValueSetFunction;
 import io.questdb.std.Chars;
 import io.questdb.std.IntList;
 import io.questdb.std.ObjList;
@@ -119,7 +121,7 @@ public class EqSymStrFunctionFactory implements FunctionFactory {
         }
     }
 
-    private static class ConstSymIntCheckFunc extends NegatableBooleanFunction implements UnaryFunction {
+    private static class ConstSymIntCheckFunc extends NegatableBooleanFunction implements ValueSetFunction {
         private final SymbolFunction arg;
         private final CharSequence constant;
         private int valueIndex;
@@ -140,6 +142,16 @@ public class EqSymStrFunctionFactory implements FunctionFactory {
             return negated != (exists && arg.getInt(rec) == valueIndex);
         }
 
+        @Override
+        public int getValueCount() {
+            return 1;
+        }
+
+        @Override
+        public long getValueHash(int index) {
+            return BloomFilterUtils.hash(valueIndex);
+        }
+
         @Override
         public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
             arg.init(symbolTableSource, executionContext);
@@ -150,7 +162,7 @@ public class EqSymStrFunctionFactory implements FunctionFactory {
         }
     }
 
-    private static class ConstCheckColumnFunc extends NegatableBooleanFunction implements UnaryFunction {
+    private static class ConstCheckColumnFunc extends NegatableBooleanFunction implements ValueSetFunction {
         private final SymbolFunction arg;
         private final CharSequence constant;
         private int valueIndex;
@@ -170,6 +182,16 @@ public class EqSymStrFunctionFactory implements FunctionFactory {
             return negated != (arg.getInt(rec) == valueIndex);
         }
 
+        @Override
+        public int getValueCount() {
+            return 1;
+        }
+
+        @Override
+        public long getValueHash(int index) {
+            return BloomFilterUtils.hash(valueIndex);
+        }
+
         @Override
         public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
             arg.init(symbolTableSource, executionContext);
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.geohash;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.NumericException;
+import io.questdb.std.ObjList;
+
+/**
+ * Filter form of 'within', it is used when geohash prefixes are served neither by LATEST BY nor by geohash index.
+ */
+public class WithinGeoHashFunctionFactory implements FunctionFactory {
+    @Override
+    public String getSignature() {
+        return "within(Gv)";
+    }
+
+    @Override
+    public boolean isBoolean() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        final Function geohash = args.getQuick(0);
+        final int columnType = geohash.getType();
+        final LongList prefixes = new LongList();
+        for (int i = 1, n = args.size(); i < n; i++) {
+            final Function prefix = args.getQuick(i);
+            final int prefixPosition = argPositions.getQuick(i);
+            if (ColumnType.isNull(prefix.getType())) {
+                throw SqlException.$(prefixPosition, "GeoHash value expected");
+            }
+            if (!ColumnType.isGeoHash(prefix.getType()) || !prefix.isConstant()) {
+                throw SqlException.$(prefixPosition, "GeoHash const function expected");
+            }
+            try {
+                GeoHashes.addNormalizedGeoPrefix(GeoHashes.getGeoLong(prefix.getType(), prefix, null), prefix.getType(), columnType, prefixes);
+            } catch (NumericException e) {
+                throw SqlException.$(prefixPosition, "GeoHash prefix precision mismatch");
+            }
+        }
+        return new Func(geohash, columnType, prefixes);
+    }
+
+    public static class Func extends BooleanFunction implements UnaryFunction {
+        private final Function arg;
+        private final int columnType;
+        private final LongList prefixes;
+
+        /**
+         * @param arg        geohash value
+         * @param columnType type of geohash value
+         * @param prefixes   pairs of normalized prefix and its mask, see {@link GeoHashes#addNormalizedGeoPrefix}
+         */
+        public Func(Function arg, int columnType, LongList prefixes) {
+            this.arg = arg;
+            this.columnType = columnType;
+            this.prefixes = prefixes;
+        }
+
+        @Override
+        public Function getArg() {
+            return arg;
+        }
+
+        @Override
+        public boolean getBool(Record rec) {
+            final long hash = GeoHashes.getGeoLong(columnType, arg, rec);
+            if (hash == GeoHashes.NULL) {
+                return false;
+            }
+            for (int i = 0, n = prefixes.size(); i < n; i += 2) {
+                if ((hash & prefixes.getQuick(i + 1)) == prefixes.getQuick(i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
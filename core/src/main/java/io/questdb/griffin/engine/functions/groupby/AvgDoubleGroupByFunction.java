@@ -64,6 +64,12 @@ public class AvgDoubleGroupByFunction extends DoubleFunction implements GroupByF
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.addDouble(valueIndex, srcValue.getDouble(valueIndex));
+        destValue.addLong(valueIndex + 1, srcValue.getLong(valueIndex + 1));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -96,4 +102,9 @@ public class AvgDoubleGroupByFunction extends DoubleFunction implements GroupByF
     public boolean isConstant() {
         return false;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
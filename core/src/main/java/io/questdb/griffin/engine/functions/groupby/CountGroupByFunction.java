@@ -45,6 +45,11 @@ public class CountGroupByFunction extends LongFunction implements GroupByFunctio
         mapValue.addLong(valueIndex, 1);
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.addLong(valueIndex, srcValue.getLong(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -76,4 +81,8 @@ public class CountGroupByFunction extends LongFunction implements GroupByFunctio
         return false;
     }
 
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
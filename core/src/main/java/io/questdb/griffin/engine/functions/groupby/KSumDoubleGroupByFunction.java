@@ -60,16 +60,19 @@ public class KSumDoubleGroupByFunction extends DoubleFunction implements GroupBy
     public void computeNext(MapValue mapValue, Record record) {
         final double value = arg.getDouble(record);
         if (Numbers.isFinite(value)) {
-            double sum = mapValue.getDouble(valueIndex);
-            double c = mapValue.getDouble(valueIndex + 1);
-            double y = value - c;
-            double t = sum + y;
-            mapValue.putDouble(valueIndex, t);
-            mapValue.putDouble(valueIndex + 1, t - sum - y);
+            add(mapValue, value);
             mapValue.addLong(valueIndex + 2, 1);
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // src compensated sum is sum - c, add both parts with compensation
+        add(destValue, srcValue.getDouble(valueIndex));
+        add(destValue, -srcValue.getDouble(valueIndex + 1));
+        destValue.addLong(valueIndex + 2, srcValue.getLong(valueIndex + 2));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -104,4 +107,18 @@ public class KSumDoubleGroupByFunction extends DoubleFunction implements GroupBy
     public boolean isConstant() {
         return false;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
+
+    private void add(MapValue mapValue, double value) {
+        double sum = mapValue.getDouble(valueIndex);
+        double c = mapValue.getDouble(valueIndex + 1);
+        double y = value - c;
+        double t = sum + y;
+        mapValue.putDouble(valueIndex, t);
+        mapValue.putDouble(valueIndex + 1, t - sum - y);
+    }
 }
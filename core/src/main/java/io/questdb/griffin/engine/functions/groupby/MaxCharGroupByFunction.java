@@ -56,6 +56,15 @@ public class MaxCharGroupByFunction extends CharFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        char dest = destValue.getChar(valueIndex);
+        char src = srcValue.getChar(valueIndex);
+        if (src > dest) {
+            destValue.putChar(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -76,4 +85,9 @@ public class MaxCharGroupByFunction extends CharFunction implements GroupByFunct
     public Function getArg() {
         return arg;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
@@ -56,6 +56,15 @@ public class MaxDoubleGroupByFunction extends DoubleFunction implements GroupByF
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        double dest = destValue.getDouble(valueIndex);
+        double src = srcValue.getDouble(valueIndex);
+        if (src > dest || Double.isNaN(dest)) {
+            destValue.putDouble(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -81,4 +90,9 @@ public class MaxDoubleGroupByFunction extends DoubleFunction implements GroupByF
     public Function getArg() {
         return arg;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
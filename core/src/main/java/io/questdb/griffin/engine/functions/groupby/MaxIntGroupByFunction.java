@@ -58,6 +58,15 @@ public class MaxIntGroupByFunction extends IntFunction implements GroupByFunctio
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        int dest = destValue.getInt(valueIndex);
+        int src = srcValue.getInt(valueIndex);
+        if (src > dest) {
+            destValue.putInt(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -83,4 +92,9 @@ public class MaxIntGroupByFunction extends IntFunction implements GroupByFunctio
     public int getInt(Record rec) {
         return rec.getInt(valueIndex);
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
@@ -57,6 +57,15 @@ public class MaxLongGroupByFunction extends LongFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long dest = destValue.getLong(valueIndex);
+        long src = srcValue.getLong(valueIndex);
+        if (src > dest) {
+            destValue.putLong(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -82,4 +91,9 @@ public class MaxLongGroupByFunction extends LongFunction implements GroupByFunct
     public long getLong(Record rec) {
         return rec.getLong(valueIndex);
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
@@ -57,6 +57,15 @@ public class MinDateGroupByFunction extends DateFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long dest = destValue.getDate(valueIndex);
+        long src = srcValue.getDate(valueIndex);
+        if (src != Numbers.LONG_NaN && src < dest || dest == Numbers.LONG_NaN) {
+            destValue.putDate(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -77,4 +86,9 @@ public class MinDateGroupByFunction extends DateFunction implements GroupByFunct
     public long getDate(Record rec) {
         return rec.getDate(valueIndex);
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
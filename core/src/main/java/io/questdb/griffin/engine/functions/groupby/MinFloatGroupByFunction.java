@@ -56,6 +56,15 @@ public class MinFloatGroupByFunction extends FloatFunction implements GroupByFun
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        float dest = destValue.getFloat(valueIndex);
+        float src = srcValue.getFloat(valueIndex);
+        if (src < dest || Float.isNaN(dest)) {
+            destValue.putFloat(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -81,4 +90,9 @@ public class MinFloatGroupByFunction extends FloatFunction implements GroupByFun
     public Function getArg() {
         return arg;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
@@ -58,6 +58,15 @@ public class MinIntGroupByFunction extends IntFunction implements GroupByFunctio
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        int dest = destValue.getInt(valueIndex);
+        int src = srcValue.getInt(valueIndex);
+        if (src != Numbers.INT_NaN && src < dest || dest == Numbers.INT_NaN) {
+            destValue.putInt(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -83,4 +92,9 @@ public class MinIntGroupByFunction extends IntFunction implements GroupByFunctio
     public Function getArg() {
         return arg;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
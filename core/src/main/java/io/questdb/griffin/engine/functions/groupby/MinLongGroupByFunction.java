@@ -57,6 +57,15 @@ public class MinLongGroupByFunction extends LongFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long dest = destValue.getLong(valueIndex);
+        long src = srcValue.getLong(valueIndex);
+        if (src != Numbers.LONG_NaN && src < dest || dest == Numbers.LONG_NaN) {
+            destValue.putLong(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -82,4 +91,9 @@ public class MinLongGroupByFunction extends LongFunction implements GroupByFunct
     public Function getArg() {
         return arg;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
@@ -57,6 +57,15 @@ public class MinTimestampGroupByFunction extends TimestampFunction implements Gr
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        long dest = destValue.getTimestamp(valueIndex);
+        long src = srcValue.getTimestamp(valueIndex);
+        if (src != Numbers.LONG_NaN && src < dest || dest == Numbers.LONG_NaN) {
+            destValue.putTimestamp(valueIndex, src);
+        }
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -77,4 +86,9 @@ public class MinTimestampGroupByFunction extends TimestampFunction implements Gr
     public long getTimestamp(Record rec) {
         return rec.getTimestamp(valueIndex);
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
@@ -65,6 +65,14 @@ public class NSumDoubleGroupByFunction extends DoubleFunction implements GroupBy
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // src compensated sum is sum + c, add both parts with compensation
+        sum(destValue, srcValue.getDouble(valueIndex), destValue.getDouble(valueIndex), destValue.getDouble(valueIndex + 1));
+        sum(destValue, srcValue.getDouble(valueIndex + 1), destValue.getDouble(valueIndex), destValue.getDouble(valueIndex + 1));
+        destValue.addLong(valueIndex + 2, srcValue.getLong(valueIndex + 2));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -110,4 +118,9 @@ public class NSumDoubleGroupByFunction extends DoubleFunction implements GroupBy
         mapValue.putDouble(valueIndex, t);
         mapValue.putDouble(valueIndex + 1, c);
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
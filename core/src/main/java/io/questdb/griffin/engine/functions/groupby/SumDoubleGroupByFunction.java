@@ -64,6 +64,12 @@ public class SumDoubleGroupByFunction extends DoubleFunction implements GroupByF
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.addDouble(valueIndex, srcValue.getDouble(valueIndex));
+        destValue.addLong(valueIndex + 1, srcValue.getLong(valueIndex + 1));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -101,4 +107,9 @@ public class SumDoubleGroupByFunction extends DoubleFunction implements GroupByF
     public boolean isConstant() {
         return false;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
@@ -60,6 +60,11 @@ public class SumFloatGroupByFunction extends FloatFunction implements GroupByFun
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.addFloat(valueIndex, srcValue.getFloat(valueIndex));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -90,4 +95,9 @@ public class SumFloatGroupByFunction extends FloatFunction implements GroupByFun
     public boolean isConstant() {
         return false;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
@@ -64,6 +64,12 @@ public class SumIntGroupByFunction extends LongFunction implements GroupByFuncti
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.addLong(valueIndex, srcValue.getLong(valueIndex));
+        destValue.addLong(valueIndex + 1, srcValue.getLong(valueIndex + 1));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -97,4 +103,9 @@ public class SumIntGroupByFunction extends LongFunction implements GroupByFuncti
     public boolean isConstant() {
         return false;
     }
+
+    @Override
+    public boolean supportsParallelism() {
+        return true;
+    }
 }
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.map.MapValueMergeFunction;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.table.AsyncFilteredRecordCursorFactory;
+import io.questdb.griffin.engine.table.PageFrameReducer;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+
+/**
+ * Keyed group by that aggregates table page frames on the worker pool. Every worker slot
+ * aggregates the frames it picked up into its own map using its own instances of group by
+ * functions. Once all frames are reduced, worker maps are merged into the map of the owner
+ * thread via {@link GroupByFunction#merge(MapValue, MapValue)}.
+ */
+public class AsyncGroupByRecordCursorFactory implements RecordCursorFactory {
+    private final AsyncFilteredRecordCursorFactory base;
+    private final ObjList<Reducer> reducers;
+    private final ObjList<ObjList<GroupByFunction>> groupByFunctions;
+    private final Reducer ownerReducer;
+    private final VirtualFunctionSkewedSymbolRecordCursor cursor;
+    private final ObjList<Function> recordFunctions;
+    private final RecordMetadata metadata;
+    private final MapValueMergeFunction mergeFunction;
+
+    /**
+     * @param configuration    cairo configuration
+     * @param base             page frame factory of the table, optionally with filter
+     * @param mapSink          copies key columns of base record to map key
+     * @param keyTypes         map key types
+     * @param valueTypes       map value types
+     * @param groupByMetadata  metadata of the result
+     * @param groupByFunctions group by function instances, one list per slot of the base factory,
+     *                         the last list belongs to the owner thread and is referenced by record functions
+     * @param recordFunctions  functions that produce result columns
+     */
+    public AsyncGroupByRecordCursorFactory(
+            CairoConfiguration configuration,
+            AsyncFilteredRecordCursorFactory base,
+            RecordSink mapSink,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<ObjList<GroupByFunction>> groupByFunctions,
+            ObjList<Function> recordFunctions
+    ) {
+        assert groupByFunctions.size() == base.getSlotCount();
+        final int slotCount = groupByFunctions.size();
+        this.reducers = new ObjList<>(slotCount);
+        try {
+            for (int i = 0; i < slotCount; i++) {
+                final FastMap map = new FastMap(
+                        configuration.getSqlMapPageSize(),
+                        keyTypes,
+                        valueTypes,
+                        configuration.getSqlMapKeyCapacity(),
+                        configuration.getSqlFastMapLoadFactor(),
+                        configuration.getSqlMapMaxResizes()
+                );
+                reducers.add(new Reducer(map, mapSink, groupByFunctions.getQuick(i)));
+            }
+            this.ownerReducer = reducers.getLast();
+            this.groupByFunctions = groupByFunctions;
+            this.base = base;
+            this.metadata = groupByMetadata;
+            this.recordFunctions = recordFunctions;
+            this.cursor = new VirtualFunctionSkewedSymbolRecordCursor(recordFunctions);
+            final ObjList<GroupByFunction> ownerFunctions = ownerReducer.functions;
+            final int functionCount = ownerFunctions.size();
+            this.mergeFunction = (destValue, srcValue) -> {
+                for (int i = 0; i < functionCount; i++) {
+                    ownerFunctions.getQuick(i).merge(destValue, srcValue);
+                }
+            };
+        } catch (Throwable e) {
+            Misc.freeObjList(reducers);
+            freeWorkerFunctions(groupByFunctions);
+            Misc.freeObjList(recordFunctions);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(recordFunctions);
+        freeWorkerFunctions(groupByFunctions);
+        Misc.freeObjList(reducers);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        for (int i = 0, n = reducers.size(); i < n; i++) {
+            reducers.getQuick(i).map.clear();
+        }
+        final RecordCursor baseCursor = base.getCursor(executionContext, reducers);
+        try {
+            Function.init(recordFunctions, baseCursor, executionContext);
+            // owner's group by functions are part of record functions
+            for (int i = 0, n = reducers.size() - 1; i < n; i++) {
+                Function.init(reducers.getQuick(i).functions, baseCursor, executionContext);
+            }
+
+            // cursor yields no rows, the call drives all page frames through reducers
+            final boolean hasRows = baseCursor.hasNext();
+            assert !hasRows;
+
+            final FastMap dataMap = ownerReducer.map;
+            for (int i = 0, n = reducers.size() - 1; i < n; i++) {
+                executionContext.getSqlExecutionInterruptor().checkInterrupted();
+                dataMap.merge(reducers.getQuick(i).map, mergeFunction);
+            }
+            cursor.of(baseCursor, dataMap.getCursor());
+            return cursor;
+        } catch (Throwable e) {
+            baseCursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"AsyncGroupByRecordCursorFactory\", \"base\":");
+        base.toSink(sink);
+        sink.put('}');
+    }
+
+    private static void freeWorkerFunctions(ObjList<ObjList<GroupByFunction>> groupByFunctions) {
+        // the last list belongs to the owner thread, its functions are freed with record functions
+        for (int i = 0, n = groupByFunctions.size() - 1; i < n; i++) {
+            Misc.freeObjList(groupByFunctions.getQuick(i));
+        }
+    }
+
+    private static class Reducer implements PageFrameReducer, Closeable {
+        private final FastMap map;
+        private final RecordSink mapSink;
+        private final ObjList<GroupByFunction> functions;
+        private final int functionCount;
+
+        private Reducer(FastMap map, RecordSink mapSink, ObjList<GroupByFunction> functions) {
+            this.map = map;
+            this.mapSink = mapSink;
+            this.functions = functions;
+            this.functionCount = functions.size();
+        }
+
+        @Override
+        public void close() {
+            map.close();
+        }
+
+        @Override
+        public void reduce(Record record, DirectLongList output) {
+            final MapKey key = map.withKey();
+            mapSink.copy(record, key);
+            GroupByUtils.updateFunctions(functions, functionCount, key.createValue(), record);
+        }
+    }
+}
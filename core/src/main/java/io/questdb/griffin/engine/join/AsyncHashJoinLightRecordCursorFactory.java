@@ -0,0 +1,403 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.table.AsyncFilteredRecordCursor;
+import io.questdb.griffin.engine.table.AsyncFilteredRecordCursorFactory;
+import io.questdb.griffin.engine.table.PageFrameFilterEntry;
+import io.questdb.griffin.engine.table.PageFrameReducer;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+
+import java.io.Closeable;
+
+/**
+ * Hash join of two table scans that runs on the worker pool. Slave page frames are reduced
+ * into radix partitions of the join key hash, each partition is a map of key to the chain
+ * of slave row ids. Partitions are locked while a worker adds a row, there are several times
+ * more partitions than workers, so workers rarely wait for each other. Master page frames are
+ * then probed concurrently, every worker uses its own detached map key. Matches are returned
+ * as pairs of master row id and slave chain reference, which the cursor reads back in frame
+ * order, so the result follows the order of master rows.
+ * <p>
+ * Slave rows that match the same master row are returned in the order workers added them
+ * to the partition, which is not necessarily the order of the slave table.
+ */
+public class AsyncHashJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final int CHAIN_OFFSET_BITS = 48;
+    private static final long CHAIN_OFFSET_MASK = (1L << CHAIN_OFFSET_BITS) - 1;
+    private static final int MIN_PARTITION_COUNT = 16;
+    private static final int MAX_PARTITION_COUNT = 256;
+    private final AsyncFilteredRecordCursorFactory masterFactory;
+    private final AsyncFilteredRecordCursorFactory slaveFactory;
+    private final ObjList<Partition> partitions;
+    private final ObjList<BuildReducer> buildReducers;
+    private final ObjList<ProbeReducer> probeReducers;
+    private final AsyncHashJoinLightRecordCursor cursor;
+    private final int partitionShift;
+    private final boolean outer;
+
+    /**
+     * @param configuration   cairo configuration
+     * @param metadata        join metadata
+     * @param masterFactory   page frame factory of the master table, optionally with filter
+     * @param slaveFactory    page frame factory of the slave table, optionally with filter
+     * @param joinColumnTypes types of join key columns
+     * @param valueTypes      map value types, two LONG columns for head and tail of the slave row id chain
+     * @param masterKeySink   copies master key columns to map key
+     * @param slaveKeySink    copies slave key columns to map key
+     * @param columnSplit     number of master columns
+     * @param outer           true for left outer join
+     */
+    public AsyncHashJoinLightRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            AsyncFilteredRecordCursorFactory masterFactory,
+            AsyncFilteredRecordCursorFactory slaveFactory,
+            @Transient ColumnTypes joinColumnTypes,
+            @Transient ColumnTypes valueTypes,
+            RecordSink masterKeySink,
+            RecordSink slaveKeySink,
+            int columnSplit,
+            boolean outer
+    ) {
+        super(metadata);
+        final int slotCount = Math.max(masterFactory.getSlotCount(), slaveFactory.getSlotCount());
+        final int partitionCount = Math.min(MAX_PARTITION_COUNT, Math.max(MIN_PARTITION_COUNT, Numbers.ceilPow2(4 * slotCount)));
+        final int partitionBits = Numbers.msb(partitionCount);
+        this.partitionShift = Integer.SIZE - partitionBits;
+        this.partitions = new ObjList<>(partitionCount);
+        this.buildReducers = new ObjList<>(slaveFactory.getSlotCount());
+        this.probeReducers = new ObjList<>(masterFactory.getSlotCount());
+        try {
+            // partitions share the memory budget of a single map and chain
+            final int mapPageSize = Math.max(configuration.getSqlMapPageSize() / partitionCount, Numbers.SIZE_1MB / 16);
+            final int mapKeyCapacity = Math.max(configuration.getSqlMapKeyCapacity() / partitionCount, 16);
+            final int chainPageSize = Math.max(configuration.getSqlHashJoinLightValuePageSize() / partitionCount, Numbers.SIZE_1MB / 16);
+            for (int i = 0; i < partitionCount; i++) {
+                partitions.add(new Partition(
+                        new FastMap(
+                                mapPageSize,
+                                joinColumnTypes,
+                                valueTypes,
+                                mapKeyCapacity,
+                                configuration.getSqlFastMapLoadFactor(),
+                                configuration.getSqlMapMaxResizes() + partitionBits
+                        ),
+                        new LongChain(
+                                configuration,
+                                chainPageSize,
+                                configuration.getSqlHashJoinLightValueMaxPages() * partitionCount
+                        )
+                ));
+            }
+            final FastMap keyFactory = partitions.getQuick(0).map;
+            for (int i = 0, n = slaveFactory.getSlotCount(); i < n; i++) {
+                buildReducers.add(new BuildReducer(keyFactory.newDetachedKey(), slaveKeySink));
+            }
+            for (int i = 0, n = masterFactory.getSlotCount(); i < n; i++) {
+                probeReducers.add(new ProbeReducer(keyFactory.newDetachedKey(), masterKeySink));
+            }
+        } catch (Throwable e) {
+            Misc.freeObjList(probeReducers);
+            Misc.freeObjList(buildReducers);
+            Misc.freeObjList(partitions);
+            throw e;
+        }
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.outer = outer;
+        this.cursor = new AsyncHashJoinLightRecordCursor(columnSplit, NullRecordFactory.getInstance(slaveFactory.getMetadata()));
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(probeReducers);
+        Misc.freeObjList(buildReducers);
+        Misc.freeObjList(partitions);
+        ((JoinRecordMetadata) getMetadata()).close();
+        masterFactory.close();
+        slaveFactory.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final AsyncFilteredRecordCursor slaveCursor = slaveFactory.getCursor(executionContext, buildReducers);
+        final AsyncFilteredRecordCursor masterCursor;
+        try {
+            buildPartitions(slaveCursor, executionContext.getSqlExecutionInterruptor());
+            masterCursor = masterFactory.getCursor(executionContext, probeReducers);
+        } catch (Throwable e) {
+            slaveCursor.close();
+            throw e;
+        }
+        cursor.of(masterCursor, slaveCursor, executionContext.getSqlExecutionInterruptor());
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"AsyncHashJoinLightRecordCursorFactory\", \"outer\":").put(outer);
+        sink.put(", \"partitions\":").put(partitions.size());
+        sink.put(", \"master\":");
+        masterFactory.toSink(sink);
+        sink.put(", \"slave\":");
+        slaveFactory.toSink(sink);
+        sink.put('}');
+    }
+
+    private void buildPartitions(AsyncFilteredRecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
+        for (int i = 0, n = partitions.size(); i < n; i++) {
+            partitions.getQuick(i).clear();
+        }
+        // reducers produce no output, entries are only awaited
+        while (slaveCursor.nextReducedEntry() != null) {
+            interruptor.checkInterrupted();
+        }
+    }
+
+    private int partitionOf(int hash) {
+        return hash >>> partitionShift;
+    }
+
+    private static class Partition implements Closeable {
+        private static final long LOCK_OFFSET;
+        private final FastMap map;
+        private final LongChain chain;
+        @SuppressWarnings("FieldMayBeFinal")
+        private volatile int lock = 0;
+
+        private Partition(FastMap map, LongChain chain) {
+            this.map = map;
+            this.chain = chain;
+        }
+
+        @Override
+        public void close() {
+            map.close();
+            chain.close();
+        }
+
+        private void clear() {
+            map.clear();
+            chain.clear();
+        }
+
+        private void lock() {
+            while (!Unsafe.cas(this, LOCK_OFFSET, 0, 1)) {
+                Thread.onSpinWait();
+            }
+        }
+
+        private void unlock() {
+            lock = 0;
+        }
+
+        static {
+            LOCK_OFFSET = Unsafe.getFieldOffset(Partition.class, "lock");
+        }
+    }
+
+    private class BuildReducer implements PageFrameReducer, Closeable {
+        private final FastMap.DetachedKey key;
+        private final RecordSink keySink;
+
+        private BuildReducer(FastMap.DetachedKey key, RecordSink keySink) {
+            this.key = key;
+            this.keySink = keySink;
+        }
+
+        @Override
+        public void close() {
+            key.close();
+        }
+
+        @Override
+        public void reduce(Record record, DirectLongList output) {
+            key.init();
+            keySink.copy(record, key);
+            final Partition partition = partitions.getQuick(partitionOf(key.hash()));
+            final long rowId = record.getRowId();
+            partition.lock();
+            try {
+                final MapValue value = partition.map.createValue(key);
+                if (value.isNew()) {
+                    final long offset = partition.chain.put(rowId, -1);
+                    value.putLong(0, offset);
+                    value.putLong(1, offset);
+                } else {
+                    value.putLong(1, partition.chain.put(rowId, value.getLong(1)));
+                }
+            } finally {
+                partition.unlock();
+            }
+        }
+    }
+
+    private class ProbeReducer implements PageFrameReducer, Closeable {
+        private final FastMap.DetachedKey key;
+        private final RecordSink keySink;
+
+        private ProbeReducer(FastMap.DetachedKey key, RecordSink keySink) {
+            this.key = key;
+            this.keySink = keySink;
+        }
+
+        @Override
+        public void close() {
+            key.close();
+        }
+
+        @Override
+        public void reduce(Record record, DirectLongList output) {
+            key.init();
+            keySink.copy(record, key);
+            final int partitionIndex = partitionOf(key.hash());
+            // partitions are not modified while master frames are probed
+            final MapValue value = partitions.getQuick(partitionIndex).map.findValue(key);
+            if (value != null) {
+                output.add(record.getRowId());
+                output.add(((long) partitionIndex << CHAIN_OFFSET_BITS) | value.getLong(0));
+            } else if (outer) {
+                output.add(record.getRowId());
+                output.add(-1);
+            }
+        }
+    }
+
+    private class AsyncHashJoinLightRecordCursor implements NoRandomAccessRecordCursor {
+        private final OuterJoinRecord record;
+        private final int columnSplit;
+        private AsyncFilteredRecordCursor masterCursor;
+        private AsyncFilteredRecordCursor slaveCursor;
+        private Record masterRecord;
+        private Record slaveRecord;
+        private SqlExecutionInterruptor interruptor;
+        private DirectLongList matches;
+        private long matchIndex;
+        private long matchCount;
+        private LongChain.TreeCursor slaveChainCursor;
+
+        private AsyncHashJoinLightRecordCursor(int columnSplit, Record nullRecord) {
+            this.record = new OuterJoinRecord(columnSplit, nullRecord);
+            this.columnSplit = columnSplit;
+        }
+
+        @Override
+        public void close() {
+            masterCursor = Misc.free(masterCursor);
+            slaveCursor = Misc.free(slaveCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterCursor.getSymbolTable(columnIndex);
+            }
+            return slaveCursor.getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                if (slaveChainCursor != null && slaveChainCursor.hasNext()) {
+                    slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
+                    return true;
+                }
+                slaveChainCursor = null;
+
+                if (matchIndex < matchCount) {
+                    masterCursor.recordAt(masterRecord, matches.get(matchIndex++));
+                    final long chainRef = matches.get(matchIndex++);
+                    if (chainRef == -1) {
+                        record.hasSlave(false);
+                        return true;
+                    }
+                    record.hasSlave(true);
+                    // chain has at least one row id, it is returned on the next iteration
+                    slaveChainCursor = partitions.getQuick((int) (chainRef >>> CHAIN_OFFSET_BITS)).chain.getCursor(chainRef & CHAIN_OFFSET_MASK);
+                    continue;
+                }
+
+                final PageFrameFilterEntry entry = masterCursor.nextReducedEntry();
+                if (entry == null) {
+                    return false;
+                }
+                interruptor.checkInterrupted();
+                matches = entry.getRows();
+                matchIndex = 0;
+                matchCount = matches.size();
+            }
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            masterCursor.toTop();
+            resetMatches();
+        }
+
+        private void of(AsyncFilteredRecordCursor masterCursor, AsyncFilteredRecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.interruptor = interruptor;
+            this.masterRecord = masterCursor.getRecord();
+            this.slaveRecord = slaveCursor.getRecordB();
+            record.of(masterRecord, slaveRecord);
+            resetMatches();
+        }
+
+        private void resetMatches() {
+            matches = null;
+            matchIndex = matchCount = 0;
+            slaveChainCursor = null;
+        }
+    }
+}
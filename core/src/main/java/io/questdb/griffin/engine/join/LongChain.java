@@ -24,6 +24,7 @@
 
 package io.questdb.griffin.engine.join;
 
+import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryARW;
 import io.questdb.std.MemoryTag;
@@ -37,7 +38,15 @@ public class LongChain implements Closeable, Mutable {
     private final TreeCursor cursor;
 
     public LongChain(long valuePageSize, int valueMaxPages) {
-        this.valueChain = Vm.getARWInstance(valuePageSize, valueMaxPages, MemoryTag.NATIVE_DEFAULT);
+        this(Vm.getARWInstance(valuePageSize, valueMaxPages, MemoryTag.NATIVE_DEFAULT));
+    }
+
+    public LongChain(CairoConfiguration configuration, long valuePageSize, int valueMaxPages) {
+        this(Vm.getSpillableCARWInstance(configuration, valuePageSize, valueMaxPages, MemoryTag.NATIVE_DEFAULT));
+    }
+
+    private LongChain(MemoryARW valueChain) {
+        this.valueChain = valueChain;
         this.cursor = new TreeCursor();
     }
 
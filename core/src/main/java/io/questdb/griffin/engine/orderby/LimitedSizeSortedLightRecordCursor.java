@@ -0,0 +1,187 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.DelegatingRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.LongList;
+
+/**
+ * Keeps first "limit" rows of sorted base cursor in a binary heap of (rowid, sequence) pairs.
+ * Root of the heap is the row that would be returned last, new row is compared to the root
+ * only and is discarded unless it sorts before it. Rows that compare equal are returned in
+ * the same order as by SortedLightRecordCursor, e.g. most recently added first.
+ */
+class LimitedSizeSortedLightRecordCursor implements DelegatingRecordCursor {
+    private final RecordComparator comparator;
+    private final long limit;
+    // pairs of rowid and sequence number of the row in base cursor
+    private final LongList heap = new LongList();
+    private RecordCursor base;
+    private Record baseRecord;
+    private Record placeHolderRecord;
+    private int size;
+    private int index;
+
+    public LimitedSizeSortedLightRecordCursor(RecordComparator comparator, long limit) {
+        this.comparator = comparator;
+        this.limit = limit;
+    }
+
+    @Override
+    public void close() {
+        heap.clear();
+        base.close();
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < size) {
+            base.recordAt(baseRecord, heap.getQuick(2 * index++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        index = 0;
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        this.placeHolderRecord = base.getRecordB();
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+
+        heap.clear();
+        size = 0;
+        long seq = 0;
+        while (base.hasNext()) {
+            interruptor.checkInterrupted();
+            if (size < limit) {
+                heap.add(baseRecord.getRowId());
+                heap.add(seq);
+                siftUp(size++);
+            } else {
+                // most rows are rejected here, only comparison with the root is needed for them;
+                // row that compares equal to the root is more recent and therefore sorts before it
+                comparator.setLeft(baseRecord);
+                base.recordAt(placeHolderRecord, heap.getQuick(0));
+                if (comparator.compare(placeHolderRecord) <= 0) {
+                    heap.setQuick(0, baseRecord.getRowId());
+                    heap.setQuick(1, seq);
+                    siftDown(0, size);
+                }
+            }
+            seq++;
+        }
+
+        // heap sort, the root goes to the back of the list
+        for (int n = size - 1; n > 0; n--) {
+            swap(0, n);
+            siftDown(0, n);
+        }
+        index = 0;
+    }
+
+    // true when row at heap position "a" is returned after row at position "b"
+    private boolean after(int a, int b) {
+        base.recordAt(placeHolderRecord, heap.getQuick(2 * a));
+        comparator.setLeft(placeHolderRecord);
+        base.recordAt(placeHolderRecord, heap.getQuick(2 * b));
+        final int cmp = comparator.compare(placeHolderRecord);
+        return cmp > 0 || (cmp == 0 && heap.getQuick(2 * a + 1) < heap.getQuick(2 * b + 1));
+    }
+
+    private void siftDown(int pos, int n) {
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n && after(child + 1, child)) {
+                child++;
+            }
+            if (!after(child, pos)) {
+                break;
+            }
+            swap(pos, child);
+            pos = child;
+        }
+    }
+
+    private void siftUp(int pos) {
+        while (pos > 0) {
+            final int parent = (pos - 1) / 2;
+            if (!after(pos, parent)) {
+                break;
+            }
+            swap(pos, parent);
+            pos = parent;
+        }
+    }
+
+    private void swap(int a, int b) {
+        final long rowId = heap.getQuick(2 * a);
+        final long seq = heap.getQuick(2 * a + 1);
+        heap.setQuick(2 * a, heap.getQuick(2 * b));
+        heap.setQuick(2 * a + 1, heap.getQuick(2 * b + 1));
+        heap.setQuick(2 * b, rowId);
+        heap.setQuick(2 * b + 1, seq);
+    }
+}
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.SpillFile;
+import io.questdb.cairo.sql.DelegatingRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Sorts (key, rowid) pairs in memory buffer. When spill file is given and the buffer reaches
+ * half of spill threshold, the other half being radix sort scratch space, the buffer is sorted
+ * and appended to the file as a run. Runs are merged back with a heap as rows are read.
+ */
+class RadixSortedLightRecordCursor implements DelegatingRecordCursor {
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+    private final MemoryCARW mem;
+    // 1-based column indexes, negative for descending order
+    private final IntList columnIndexes;
+    private final IntList columnTypes;
+    private final SpillFile runFile;
+    private final long runBufferSize;
+    // first entry of each run in run file, followed by the end of the last run
+    private final LongList runLo = new LongList();
+    private final LongList runPos = new LongList();
+    // heap of run indexes ordered by key at the current position of the run
+    private final IntList runHeap = new IntList();
+    private RecordCursor base;
+    private Record baseRecord;
+    private long address;
+    private long size;
+    private long index;
+
+    public RadixSortedLightRecordCursor(MemoryCARW mem, IntList columnIndexes, IntList columnTypes, SpillFile runFile, long spillThreshold) {
+        this.mem = mem;
+        this.columnIndexes = columnIndexes;
+        this.columnTypes = columnTypes;
+        this.runFile = runFile;
+        this.runBufferSize = spillThreshold / 2;
+    }
+
+    @Override
+    public void close() {
+        mem.jumpTo(0);
+        if (runFile != null) {
+            runFile.release();
+        }
+        base.close();
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (runHeap.size() > 0 || runLo.size() > 0) {
+            return nextFromRuns();
+        }
+        if (index < size) {
+            base.recordAt(baseRecord, Unsafe.getUnsafe().getLong(address + index++ * ENTRY_SIZE + Long.BYTES));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        index = 0;
+        if (runLo.size() > 0) {
+            initRunHeap();
+        }
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+
+        mem.jumpTo(0);
+        runLo.clear();
+        runHeap.clear();
+        if (runFile != null) {
+            runFile.release();
+        }
+        while (base.hasNext()) {
+            interruptor.checkInterrupted();
+            mem.putLong(key(baseRecord));
+            mem.putLong(baseRecord.getRowId());
+            if (runFile != null && mem.getAppendOffset() >= runBufferSize) {
+                sortBuffer();
+                appendRun();
+            }
+        }
+        sortBuffer();
+        if (runLo.size() > 0) {
+            appendRun();
+            initRunHeap();
+        }
+        index = 0;
+    }
+
+    private long key(Record record) {
+        long key = 0;
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final int columnIndex = columnIndexes.getQuick(i);
+            final int col = (columnIndex > 0 ? columnIndex : -columnIndex) - 1;
+            final int columnType = columnTypes.getQuick(i);
+            // map signed values to unsigned with the same order
+            long value;
+            switch (columnType) {
+                case ColumnType.BOOLEAN:
+                    value = record.getBool(col) ? 1 : 0;
+                    break;
+                case ColumnType.BYTE:
+                    value = (record.getByte(col) & 0xffL) ^ 0x80L;
+                    break;
+                case ColumnType.SHORT:
+                    value = (record.getShort(col) & 0xffffL) ^ 0x8000L;
+                    break;
+                case ColumnType.CHAR:
+                    value = record.getChar(col);
+                    break;
+                case ColumnType.INT:
+                    value = (record.getInt(col) & 0xffffffffL) ^ 0x80000000L;
+                    break;
+                case ColumnType.DATE:
+                    value = record.getDate(col) ^ Long.MIN_VALUE;
+                    break;
+                case ColumnType.TIMESTAMP:
+                    value = record.getTimestamp(col) ^ Long.MIN_VALUE;
+                    break;
+                default:
+                    value = record.getLong(col) ^ Long.MIN_VALUE;
+                    break;
+            }
+            final int bits = RadixSortedLightRecordCursorFactory.getKeyBits(columnType);
+            final long mask = bits == 64 ? -1L : (1L << bits) - 1;
+            if (columnIndex < 0) {
+                value ^= mask;
+            }
+            key = bits == 64 ? value : (key << bits) | value;
+        }
+        return key;
+    }
+
+    private void appendRun() {
+        if (size == 0) {
+            return;
+        }
+        final long lo = runLo.size() > 0 ? runLo.getLast() : 0;
+        final long hi = lo + size;
+        final long runAddress = runFile.map(hi * ENTRY_SIZE);
+        Vect.memcpy(runAddress + lo * ENTRY_SIZE, address, size * ENTRY_SIZE);
+        if (runLo.size() == 0) {
+            runLo.add(lo);
+        }
+        runLo.add(hi);
+        mem.jumpTo(0);
+        size = 0;
+    }
+
+    // true when current entry of run "a" is returned after current entry of run "b"
+    private boolean after(int a, int b) {
+        final long runAddress = runFile.getAddress();
+        final int cmp = Long.compareUnsigned(
+                Unsafe.getUnsafe().getLong(runAddress + runPos.getQuick(a) * ENTRY_SIZE),
+                Unsafe.getUnsafe().getLong(runAddress + runPos.getQuick(b) * ENTRY_SIZE)
+        );
+        // runs are in the order rows were read, rows with equal keys come most recent first
+        return cmp > 0 || (cmp == 0 && a < b);
+    }
+
+    private void initRunHeap() {
+        final int runCount = runLo.size() - 1;
+        runPos.clear();
+        runHeap.clear();
+        for (int i = 0; i < runCount; i++) {
+            runPos.add(runLo.getQuick(i));
+            runHeap.add(i);
+        }
+        for (int i = runCount / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private boolean nextFromRuns() {
+        if (runHeap.size() == 0) {
+            return false;
+        }
+        final int run = runHeap.getQuick(0);
+        final long pos = runPos.getQuick(run);
+        final long rowId = Unsafe.getUnsafe().getLong(runFile.getAddress() + pos * ENTRY_SIZE + Long.BYTES);
+        if (pos + 1 < runLo.getQuick(run + 1)) {
+            runPos.setQuick(run, pos + 1);
+        } else {
+            final int last = runHeap.size() - 1;
+            runHeap.setQuick(0, runHeap.getQuick(last));
+            runHeap.setPos(last);
+        }
+        siftDown(0);
+        base.recordAt(baseRecord, rowId);
+        return true;
+    }
+
+    private void siftDown(int pos) {
+        final int n = runHeap.size();
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n && after(runHeap.getQuick(child), runHeap.getQuick(child + 1))) {
+                child++;
+            }
+            if (!after(runHeap.getQuick(pos), runHeap.getQuick(child))) {
+                break;
+            }
+            final int tmp = runHeap.getQuick(pos);
+            runHeap.setQuick(pos, runHeap.getQuick(child));
+            runHeap.setQuick(child, tmp);
+            pos = child;
+        }
+    }
+
+    private void sortBuffer() {
+        size = mem.getAppendOffset() / ENTRY_SIZE;
+        if (size > 1) {
+            // second half of the buffer is scratch space for radix sort
+            mem.jumpTo(2 * size * ENTRY_SIZE);
+            address = mem.addressOf(0);
+            Vect.radixSortLongIndexAscInPlace(address, size, address + size * ENTRY_SIZE);
+            reverseEqualKeys();
+        } else {
+            address = mem.addressOf(0);
+        }
+    }
+
+    // Radix sort is stable, rows with equal keys stay in the order they were read. Tree
+    // based sort returns such rows most recent first, we keep results of the two the same.
+    private void reverseEqualKeys() {
+        long lo = 0;
+        while (lo < size) {
+            final long key = Unsafe.getUnsafe().getLong(address + lo * ENTRY_SIZE);
+            long hi = lo + 1;
+            while (hi < size && Unsafe.getUnsafe().getLong(address + hi * ENTRY_SIZE) == key) {
+                hi++;
+            }
+            for (long l = lo, h = hi - 1; l < h; l++, h--) {
+                final long pl = address + l * ENTRY_SIZE + Long.BYTES;
+                final long ph = address + h * ENTRY_SIZE + Long.BYTES;
+                final long rowId = Unsafe.getUnsafe().getLong(pl);
+                Unsafe.getUnsafe().putLong(pl, Unsafe.getUnsafe().getLong(ph));
+                Unsafe.getUnsafe().putLong(ph, rowId);
+            }
+            lo = hi;
+        }
+    }
+}
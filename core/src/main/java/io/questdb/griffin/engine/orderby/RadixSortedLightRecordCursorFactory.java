@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.SpillFile;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+
+/**
+ * ORDER BY on fixed width integer keys. Key columns are packed into single unsigned 64-bit value
+ * that sorts in the same order as the row, (key, rowid) pairs are written into flat native
+ * buffer and sorted with native radix sort. This avoids comparator calls and tree traversal
+ * per row of SortedLightRecordCursorFactory.
+ */
+public class RadixSortedLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final MemoryCARW mem;
+    private final SpillFile runFile;
+    private final RadixSortedLightRecordCursor cursor;
+
+    public RadixSortedLightRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            ListColumnFilter keyColumns
+    ) {
+        super(metadata);
+        this.base = base;
+        this.mem = Vm.getCARWInstance(configuration.getSqlSortKeyPageSize(), configuration.getSqlSortKeyMaxPages(), MemoryTag.NATIVE_TREE_CHAIN);
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final IntList columnIndexes = new IntList(keyColumns.size());
+        final IntList columnTypes = new IntList(keyColumns.size());
+        for (int i = 0, n = keyColumns.size(); i < n; i++) {
+            final int index = keyColumns.getQuick(i);
+            columnIndexes.add(index);
+            columnTypes.add(ColumnType.tagOf(baseMetadata.getColumnType((index > 0 ? index : -index) - 1)));
+        }
+        this.runFile = SpillFile.isEnabled(configuration) ? new SpillFile(configuration, MemoryTag.NATIVE_TREE_CHAIN) : null;
+        this.cursor = new RadixSortedLightRecordCursor(mem, columnIndexes, columnTypes, runFile, configuration.getSqlSpillThreshold());
+    }
+
+    /**
+     * Checks that key columns can be packed into 64-bit radix sort key.
+     *
+     * @param metadata   metadata of the cursor being sorted
+     * @param keyColumns key column indexes in the format of RecordComparatorCompiler, 1-based with sign of direction
+     * @return true when every column is of fixed width integer type and all columns fit 64 bits
+     */
+    public static boolean isSupported(RecordMetadata metadata, ListColumnFilter keyColumns) {
+        int bits = 0;
+        for (int i = 0, n = keyColumns.size(); i < n; i++) {
+            final int index = keyColumns.getQuick(i);
+            final int keyBits = getKeyBits(ColumnType.tagOf(metadata.getColumnType((index > 0 ? index : -index) - 1)));
+            if (keyBits == 0) {
+                return false;
+            }
+            bits += keyBits;
+        }
+        return bits <= 64;
+    }
+
+    static int getKeyBits(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+                return 1;
+            case ColumnType.BYTE:
+                return 8;
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                return 16;
+            case ColumnType.INT:
+                return 32;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return 64;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        base.close();
+        Misc.free(mem);
+        Misc.free(runFile);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (RuntimeException ex) {
+            baseCursor.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+}
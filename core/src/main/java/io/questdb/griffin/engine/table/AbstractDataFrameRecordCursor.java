@@ -70,7 +70,9 @@ public abstract class AbstractDataFrameRecordCursor implements RecordCursor {
 
     @Override
     public void recordAt(Record record, long atRowId) {
-        ((TableReaderSelectedColumnRecord) record).jumpTo(Rows.toPartitionIndex(atRowId), Rows.toLocalRowID(atRowId));
+        final int partitionIndex = Rows.toPartitionIndex(atRowId);
+        dataFrameCursor.getTableReader().adviseRandomAccess(partitionIndex);
+        ((TableReaderSelectedColumnRecord) record).jumpTo(partitionIndex, Rows.toLocalRowID(atRowId));
     }
 
     abstract void of(DataFrameCursor cursor, SqlExecutionContext executionContext) throws SqlException;
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.MPSequence;
+import io.questdb.mp.RingQueue;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.tasks.PageFrameFilterTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Splits table into page frames and filters them concurrently on the worker pool.
+ * The cursor keeps a window of in-flight frames and streams rows back in frame order,
+ * which preserves the order of the underlying data frame cursor. Owner thread
+ * executes frames that workers did not pick up, so the cursor makes progress even
+ * without workers.
+ * <p>
+ * With reducers the rows are consumed by workers and the cursor yields no rows, iterating
+ * it drives all page frames through the reducers. Reducers that produce output per frame
+ * are read back via {@link #nextReducedEntry()}.
+ */
+public class AsyncFilteredRecordCursor extends AbstractDataFrameRecordCursor {
+    private final ObjList<Function> filters;
+    private final ObjList<PageFrameFilterEntry> entries;
+    private final DataFrameRecordCursorFactory.TableReaderPageFrameCursor pageFrameCursor;
+    private final int columnCount;
+    private final int ownerSlot;
+    private final long maxFrameRows;
+    private final int window;
+    private RingQueue<PageFrameFilterTask> queue;
+    private MPSequence pubSeq;
+    private PageFrame frame;
+    private long frameRowLo;
+    private long frameRowCount;
+    private boolean framesExhausted;
+    private long dispatchedCount;
+    private long consumedCount;
+    private PageFrameFilterEntry current;
+    private long rowIndex;
+    private long rowCount;
+    private int sequence;
+
+    /**
+     * @param filters      filter instances, one per worker and the last one for the owner thread,
+     *                     null when cursor only feeds reducers
+     * @param slotCount    number of workers plus one for the owner thread
+     * @param entries      in-flight window of page frame slices
+     * @param columnIndexes reader column indexes
+     * @param columnSizes  column sizes as power of 2, -1 for var size columns
+     * @param maxFrameRows max number of rows filtered by single entry
+     */
+    public AsyncFilteredRecordCursor(
+            @Nullable ObjList<Function> filters,
+            int slotCount,
+            @NotNull ObjList<PageFrameFilterEntry> entries,
+            @NotNull IntList columnIndexes,
+            @NotNull IntList columnSizes,
+            long maxFrameRows,
+            int readAheadSize
+    ) {
+        super(columnIndexes);
+        this.filters = filters;
+        this.entries = entries;
+        this.window = entries.size();
+        this.ownerSlot = slotCount - 1;
+        this.columnCount = columnIndexes.size();
+        this.maxFrameRows = maxFrameRows;
+        this.pageFrameCursor = new DataFrameRecordCursorFactory.TableReaderPageFrameCursor(columnIndexes, columnSizes, readAheadSize);
+    }
+
+    @Override
+    public void close() {
+        // workers may still be reading table memory, the reader must outlive them
+        cancelInFlight();
+        super.close();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (rowIndex < rowCount) {
+                recordA.jumpTo(current.getPartitionIndex(), current.getRows().get(rowIndex++));
+                return true;
+            }
+            if (!nextEntry()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Drives page frames through reducers and returns reduced entries in frame order. It is
+     * used instead of {@link #hasNext()} when reducers append output to the entry.
+     *
+     * @return reduced entry, valid until the next call, or null when all frames are reduced
+     */
+    public PageFrameFilterEntry nextReducedEntry() {
+        return nextEntry() ? current : null;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        cancelInFlight();
+        pageFrameCursor.toTop();
+        if (filters != null) {
+            for (int i = 0, n = filters.size(); i < n; i++) {
+                filters.getQuick(i).toTop();
+            }
+        }
+    }
+
+    @Override
+    void of(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) throws SqlException {
+        of(dataFrameCursor, executionContext, null);
+    }
+
+    void of(
+            DataFrameCursor dataFrameCursor,
+            SqlExecutionContext executionContext,
+            @Nullable ObjList<? extends PageFrameReducer> reducers
+    ) throws SqlException {
+        cancelInFlight();
+        if (this.dataFrameCursor != dataFrameCursor) {
+            close();
+            this.dataFrameCursor = dataFrameCursor;
+        }
+        this.recordA.of(dataFrameCursor.getTableReader());
+        this.recordB.of(dataFrameCursor.getTableReader());
+        this.pageFrameCursor.of(dataFrameCursor);
+        final MessageBus bus = executionContext.getMessageBus();
+        this.queue = bus.getPageFrameFilterQueue();
+        this.pubSeq = bus.getPageFrameFilterPubSeq();
+        resetWindow();
+        for (int i = 0; i < window; i++) {
+            entries.getQuick(i).setReducers(reducers);
+        }
+        if (filters != null) {
+            Function.init(filters, this, executionContext);
+        }
+    }
+
+    void freeEntries() {
+        Misc.freeObjList(entries);
+    }
+
+    private void await(PageFrameFilterEntry entry) {
+        while (!entry.isDone()) {
+            // entry is ours unless worker has claimed it already
+            if (!entry.run(ownerSlot) && !stealWork()) {
+                LockSupport.parkNanos(1);
+            }
+        }
+        entry.rethrowError();
+    }
+
+    private void cancelInFlight() {
+        for (long i = consumedCount; i < dispatchedCount; i++) {
+            final PageFrameFilterEntry entry = entries.getQuick((int) (i % window));
+            if (!entry.cancel()) {
+                while (!entry.isDone()) {
+                    LockSupport.parkNanos(1);
+                }
+            }
+        }
+        resetWindow();
+    }
+
+    private void dispatch() {
+        while (dispatchedCount - consumedCount < window && nextSlice()) {
+            final PageFrameFilterEntry entry = entries.getQuick((int) (dispatchedCount % window));
+            final long sliceHi = Math.min(frameRowLo + maxFrameRows, frameRowCount);
+            sequence = (sequence + 1) & Integer.MAX_VALUE;
+            entry.of(frame, columnCount, frameRowLo, sliceHi, sequence);
+            frameRowLo = sliceHi;
+            dispatchedCount++;
+
+            // without worker slots every entry is left for the owner thread
+            final long seq = ownerSlot > 0 ? pubSeq.next() : -1;
+            if (seq > -1) {
+                final PageFrameFilterTask task = queue.get(seq);
+                task.entry = entry;
+                task.sequence = sequence;
+                pubSeq.done(seq);
+            }
+            // when queue is full the entry is left for the owner thread
+        }
+    }
+
+    private boolean nextEntry() {
+        if (current != null) {
+            consumedCount++;
+            current = null;
+            rowIndex = rowCount = 0;
+        }
+        dispatch();
+        if (consumedCount == dispatchedCount) {
+            return false;
+        }
+        final PageFrameFilterEntry entry = entries.getQuick((int) (consumedCount % window));
+        await(entry);
+        current = entry;
+        rowCount = entry.getRows().size();
+        return true;
+    }
+
+    private boolean nextSlice() {
+        while (frame == null || frameRowLo >= frameRowCount) {
+            if (framesExhausted || (frame = pageFrameCursor.next()) == null) {
+                framesExhausted = true;
+                return false;
+            }
+            frameRowLo = 0;
+            frameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+        }
+        return true;
+    }
+
+    private void resetWindow() {
+        consumedCount = dispatchedCount = 0;
+        current = null;
+        rowIndex = rowCount = 0;
+        frame = null;
+        frameRowLo = frameRowCount = 0;
+        framesExhausted = false;
+    }
+
+    private boolean stealWork() {
+        for (long i = consumedCount + 1; i < dispatchedCount; i++) {
+            if (entries.getQuick((int) (i % window)).run(ownerSlot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Parallel alternative to {@link FilteredRecordCursorFactory} for table scans. Each worker
+ * requires its own instance of the filter function, so the factory expects one filter per
+ * worker plus one for the thread that owns the cursor. Compiled filter is optional, when
+ * there is no filter instance for workers the owner thread filters all frames itself.
+ * <p>
+ * Factory also serves parallel reductions, such as group by, via
+ * {@link #getCursor(SqlExecutionContext, ObjList)}. Filter is optional in this case.
+ */
+public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final int ROWS_INITIAL_CAPACITY = 1024;
+    private final DataFrameRecordCursorFactory base;
+    private final AsyncFilteredRecordCursor cursor;
+    private final ObjList<Function> filters;
+    private final CompiledFilter compiledFilter;
+    private final int slotCount;
+
+    /**
+     * @param configuration cairo configuration
+     * @param base          table scan factory that supports page frames
+     * @param filters        filter instances, one for each worker and the last one for the owner thread
+     * @param compiledFilter filter compiled from the owner's filter instance, can be null
+     * @param operands       operands of the compiled filter
+     */
+    public AsyncFilteredRecordCursorFactory(
+            CairoConfiguration configuration,
+            DataFrameRecordCursorFactory base,
+            ObjList<Function> filters,
+            @Nullable CompiledFilter compiledFilter,
+            @Nullable ObjList<Function> operands
+    ) {
+        this(configuration, base, filters, filters.size(), compiledFilter, operands);
+        assert compiledFilter != null || filters.size() > 1;
+    }
+
+    /**
+     * Creates factory without filter, its cursor can only be used with reducers.
+     *
+     * @param configuration cairo configuration
+     * @param base          table scan factory that supports page frames
+     * @param workerCount   number of workers
+     */
+    public AsyncFilteredRecordCursorFactory(
+            CairoConfiguration configuration,
+            DataFrameRecordCursorFactory base,
+            int workerCount
+    ) {
+        this(configuration, base, null, workerCount + 1, null, null);
+    }
+
+    private AsyncFilteredRecordCursorFactory(
+            CairoConfiguration configuration,
+            DataFrameRecordCursorFactory base,
+            @Nullable ObjList<Function> filters,
+            int slotCount,
+            @Nullable CompiledFilter compiledFilter,
+            @Nullable ObjList<Function> operands
+    ) {
+        super(base.getMetadata());
+        assert base.supportPageFrameCursor();
+        this.base = base;
+        this.filters = filters;
+        this.slotCount = slotCount;
+        this.compiledFilter = compiledFilter;
+
+        final ObjList<PageFrameRecord> records = new ObjList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            records.add(new PageFrameRecord(base.getColumnSizes()));
+        }
+
+        // keep every worker busy and have frames queued up behind them
+        final int window = Math.max(1, Math.min(configuration.getPageFrameFilterQueueCapacity(), 2 * slotCount));
+        final ObjList<PageFrameFilterEntry> entries = new ObjList<>(window);
+        for (int i = 0; i < window; i++) {
+            entries.add(new PageFrameFilterEntry(filters, records, compiledFilter, operands, ROWS_INITIAL_CAPACITY));
+        }
+
+        this.cursor = new AsyncFilteredRecordCursor(
+                filters,
+                slotCount,
+                entries,
+                base.getColumnIndexes(),
+                base.getColumnSizes(),
+                configuration.getSqlPageFrameMaxRows(),
+                configuration.getSqlPageFrameReadAheadSize()
+        );
+    }
+
+    @Override
+    public void close() {
+        cursor.freeEntries();
+        Misc.freeObjList(filters);
+        Misc.free(base);
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        assert filters != null;
+        return getCursor(executionContext, null);
+    }
+
+    /**
+     * Returns cursor that hands filtered rows to reducers instead of returning them. Cursor
+     * yields no rows, iterating it runs every page frame through the reducer of the slot that
+     * picked the frame up. Cursor remains source of symbol tables and random access records
+     * for the reduced data.
+     *
+     * @param executionContext execution context
+     * @param reducers         one reducer per slot, see {@link #getSlotCount()}
+     * @return cursor that has to be iterated to completion before reducers' state is read
+     * @throws SqlException when cursor cannot be initialised
+     */
+    public AsyncFilteredRecordCursor getCursor(
+            SqlExecutionContext executionContext,
+            @Nullable ObjList<? extends PageFrameReducer> reducers
+    ) throws SqlException {
+        assert reducers == null || reducers.size() == slotCount;
+        final DataFrameCursor dataFrameCursor = base.dataFrameCursorFactory.getCursor(executionContext);
+        try {
+            cursor.of(dataFrameCursor, executionContext, reducers);
+            return cursor;
+        } catch (Throwable e) {
+            Misc.free(cursor);
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of workers this factory was sized for plus one for the owner thread
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"AsyncFilteredRecordCursorFactory\", \"workers\":").put(slotCount - 1);
+        sink.put(", \"compiled\":").put(compiledFilter != null).put(", \"base\":");
+        base.toSink(sink);
+        sink.put('}');
+    }
+}
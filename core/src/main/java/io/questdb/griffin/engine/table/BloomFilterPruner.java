@@ -0,0 +1,270 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.BloomFilterReader;
+import io.questdb.cairo.BloomFilterUtils;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PartitionPruner;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.engine.functions.BinaryFunction;
+import io.questdb.griffin.engine.functions.NegatableBooleanFunction;
+import io.questdb.griffin.engine.functions.ValueSetFunction;
+import io.questdb.griffin.engine.functions.bind.NamedParameterLinkFunction;
+import io.questdb.griffin.engine.functions.bool.AndFunctionFactory;
+import io.questdb.griffin.engine.functions.bool.InStrFunctionFactory;
+import io.questdb.griffin.engine.functions.bool.InSymbolFunctionFactory;
+import io.questdb.griffin.engine.functions.bool.OrFunctionFactory;
+import io.questdb.griffin.engine.functions.columns.ColumnFunction;
+import io.questdb.griffin.engine.functions.eq.*;
+import io.questdb.std.IntList;
+import io.questdb.std.Long256;
+import io.questdb.std.ObjIntHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Checks values the filter is looking for against bloom filters of partition columns. Partition,
+ * or a block of its rows, is skipped when none of the values can be there. Equality of a column
+ * with a constant, runtime constant or bind variable and IN with constant list are understood,
+ * combined via AND and OR the same way as in {@link ZoneMapPruner}.
+ * <p>
+ * Operators are identified by factory of the function. Column type is the one the factory hashes
+ * values of, e.g. symbol functions hash symbol keys and string functions hash characters.
+ */
+public class BloomFilterPruner implements PartitionPruner {
+    private static final int OP_AND = -2;
+    private static final int OP_OR = -3;
+    private static final ObjIntHashMap<Class<?>> operators = new ObjIntHashMap<>();
+    private final Node root;
+
+    private BloomFilterPruner(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param filter        filter applied to every row of the table scan
+     * @param metadata      metadata of the table scan, column functions of the filter index this metadata
+     * @param columnIndexes reader column indexes of metadata columns
+     * @return pruner or null when filter does not look for values of bloom filter column types
+     */
+    @Nullable
+    public static BloomFilterPruner of(Function filter, RecordMetadata metadata, IntList columnIndexes) {
+        final Node root = build(filter, metadata, columnIndexes);
+        return root != null ? new BloomFilterPruner(root) : null;
+    }
+
+    @Override
+    public boolean canSkip(TableReader reader, int partitionIndex) {
+        return root.canSkip(reader, partitionIndex, 0, Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean canSkipRows(TableReader reader, int partitionIndex, long rowLo, long rowHi) {
+        return root.canSkip(reader, partitionIndex, rowLo, rowHi);
+    }
+
+    @Override
+    public long getRowBlockSize() {
+        return BloomFilterUtils.BLOCK_ROW_COUNT;
+    }
+
+    private static Node build(Function function, RecordMetadata metadata, IntList columnIndexes) {
+        final Class<?> factoryClass = function.getClass().getEnclosingClass();
+        final int op = factoryClass != null ? operators.get(factoryClass) : -1;
+        if (op == -1) {
+            return null;
+        }
+
+        switch (op) {
+            case OP_AND: {
+                final BinaryFunction binary = (BinaryFunction) function;
+                final Node l = build(binary.getLeft(), metadata, columnIndexes);
+                final Node r = build(binary.getRight(), metadata, columnIndexes);
+                if (l == null) {
+                    return r;
+                }
+                return r == null ? l : new AndNode(l, r);
+            }
+            case OP_OR: {
+                final BinaryFunction binary = (BinaryFunction) function;
+                final Node l = build(binary.getLeft(), metadata, columnIndexes);
+                if (l == null) {
+                    return null;
+                }
+                final Node r = build(binary.getRight(), metadata, columnIndexes);
+                return r == null ? null : new OrNode(l, r);
+            }
+            default:
+                break;
+        }
+
+        if (function instanceof NegatableBooleanFunction && ((NegatableBooleanFunction) function).isNegated()) {
+            return null;
+        }
+
+        if (function instanceof ValueSetFunction) {
+            final ValueSetFunction valueSet = (ValueSetFunction) function;
+            final int columnIndex = getColumnIndex(valueSet.getArg(), op, metadata, columnIndexes);
+            return columnIndex > -1 ? new ValueSetNode(columnIndex, valueSet) : null;
+        }
+
+        if (function instanceof BinaryFunction) {
+            final BinaryFunction binary = (BinaryFunction) function;
+            final Function left = binary.getLeft();
+            final Function right = binary.getRight();
+            int columnIndex;
+            if (isOperand(right) && (columnIndex = getColumnIndex(left, op, metadata, columnIndexes)) > -1) {
+                return new EqNode(columnIndex, op, right);
+            }
+            if (isOperand(left) && (columnIndex = getColumnIndex(right, op, metadata, columnIndexes)) > -1) {
+                return new EqNode(columnIndex, op, left);
+            }
+        }
+        return null;
+    }
+
+    private static int getColumnIndex(Function function, int columnType, RecordMetadata metadata, IntList columnIndexes) {
+        if (!(function instanceof ColumnFunction)) {
+            return -1;
+        }
+        final int metadataIndex = ((ColumnFunction) function).getColumnIndex();
+        if (metadataIndex < 0 || metadataIndex >= columnIndexes.size()) {
+            return -1;
+        }
+        if (ColumnType.tagOf(metadata.getColumnType(metadataIndex)) != columnType) {
+            return -1;
+        }
+        return columnIndexes.getQuick(metadataIndex);
+    }
+
+    private static boolean isOperand(Function function) {
+        return function.isConstant() || function.isRuntimeConstant() || function instanceof NamedParameterLinkFunction;
+    }
+
+    private interface Node {
+        boolean canSkip(TableReader reader, int partitionIndex, long rowLo, long rowHi);
+    }
+
+    private static class AndNode implements Node {
+        private final Node left;
+        private final Node right;
+
+        private AndNode(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean canSkip(TableReader reader, int partitionIndex, long rowLo, long rowHi) {
+            return left.canSkip(reader, partitionIndex, rowLo, rowHi) || right.canSkip(reader, partitionIndex, rowLo, rowHi);
+        }
+    }
+
+    private static class OrNode implements Node {
+        private final Node left;
+        private final Node right;
+
+        private OrNode(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean canSkip(TableReader reader, int partitionIndex, long rowLo, long rowHi) {
+            return left.canSkip(reader, partitionIndex, rowLo, rowHi) && right.canSkip(reader, partitionIndex, rowLo, rowHi);
+        }
+    }
+
+    private static class EqNode implements Node {
+        private final int columnIndex;
+        private final int columnType;
+        private final Function operand;
+
+        private EqNode(int columnIndex, int columnType, Function operand) {
+            this.columnIndex = columnIndex;
+            this.columnType = columnType;
+            this.operand = operand;
+        }
+
+        @Override
+        public boolean canSkip(TableReader reader, int partitionIndex, long rowLo, long rowHi) {
+            final BloomFilterReader bloomFilter = reader.getBloomFilter(partitionIndex, columnIndex);
+            if (bloomFilter == null) {
+                return false;
+            }
+            final long hash;
+            if (columnType == ColumnType.LONG) {
+                hash = BloomFilterUtils.hash(operand.getLong(null));
+            } else {
+                final Long256 value = operand.getLong256A(null);
+                hash = BloomFilterUtils.hash(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            }
+            return !bloomFilter.mightContain(hash, rowLo, rowHi);
+        }
+    }
+
+    private static class ValueSetNode implements Node {
+        private final int columnIndex;
+        private final ValueSetFunction function;
+
+        private ValueSetNode(int columnIndex, ValueSetFunction function) {
+            this.columnIndex = columnIndex;
+            this.function = function;
+        }
+
+        @Override
+        public boolean canSkip(TableReader reader, int partitionIndex, long rowLo, long rowHi) {
+            final int n = function.getValueCount();
+            if (n < 0) {
+                return false;
+            }
+            final BloomFilterReader bloomFilter = reader.getBloomFilter(partitionIndex, columnIndex);
+            if (bloomFilter == null) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (bloomFilter.mightContain(function.getValueHash(i), rowLo, rowHi)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static {
+        operators.put(AndFunctionFactory.class, OP_AND);
+        operators.put(OrFunctionFactory.class, OP_OR);
+        // the rest map to column type of the values
+        operators.put(EqLongFunctionFactory.class, ColumnType.LONG);
+        operators.put(EqLong256FunctionFactory.class, ColumnType.LONG256);
+        operators.put(EqLong256StrFunctionFactory.class, ColumnType.LONG256);
+        operators.put(EqStrFunctionFactory.class, ColumnType.STRING);
+        operators.put(InStrFunctionFactory.class, ColumnType.STRING);
+        operators.put(EqSymStrFunctionFactory.class, ColumnType.SYMBOL);
+        operators.put(InSymbolFunctionFactory.class, ColumnType.SYMBOL);
+    }
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+
+/**
+ * Filter generated by {@link FilterCompiler}. Implementations are stateless and
+ * can be shared between threads.
+ */
+public interface CompiledFilter {
+
+    /**
+     * Evaluates filter on rows of page frame.
+     *
+     * @param pageAddresses page addresses of frame columns, none of them can be 0
+     * @param operands      constants and bind variables of the filter, values are read once per call
+     * @param rowLo         first row of the frame to filter, inclusive
+     * @param rowHi         last row of the frame to filter, exclusive
+     * @param rowIdOffset   value added to the matching row before it is added to the list
+     * @param rows          list that receives matching rows
+     */
+    void filter(
+            LongList pageAddresses,
+            ObjList<Function> operands,
+            long rowLo,
+            long rowHi,
+            long rowIdOffset,
+            DirectLongList rows
+    );
+}
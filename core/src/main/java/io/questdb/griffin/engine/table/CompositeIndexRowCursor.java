@@ -0,0 +1,168 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.AbstractIndexReader;
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.EmptyRowCursor;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderRecord;
+import io.questdb.cairo.TableReaderSelectedColumnRecord;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.std.IntList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Rows of data frame that have given symbol keys in all composite index columns. Rows composite index
+ * covers are read from the index, the rest of data frame rows, e.g. rows out of order commit merged into
+ * partition, are scanned.
+ */
+class CompositeIndexRowCursor implements RowCursor {
+    private final IntList columnIndexes;
+    private final int indexDirection;
+    private final Function filter;
+    private final TableReaderSelectedColumnRecord filterRecord;
+    private final TableReaderRecord scanRecord = new TableReaderRecord();
+    private final IntList symbolKeys = new IntList();
+    private TableReader reader;
+    private int compositeKey;
+    private RowCursor indexCursor;
+    private long scanLo;
+    private long scanHi;
+    private long scanRow;
+    // backward cursor scans rows after the index first
+    private boolean indexFirst;
+    private boolean indexDone;
+    private long rowid;
+
+    CompositeIndexRowCursor(IntList columnIndexes, int indexDirection, @Nullable Function filter, IntList filterColumnIndexes) {
+        this.columnIndexes = columnIndexes;
+        this.indexDirection = indexDirection;
+        this.filter = filter;
+        this.filterRecord = filter != null ? new TableReaderSelectedColumnRecord(filterColumnIndexes) : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            final long row;
+            if (indexFirst && !indexDone) {
+                if (!indexCursor.hasNext()) {
+                    indexDone = true;
+                    continue;
+                }
+                row = indexCursor.next();
+            } else {
+                row = nextScannedRow();
+                if (row < 0) {
+                    if (indexDone) {
+                        return false;
+                    }
+                    indexFirst = true;
+                    continue;
+                }
+            }
+            if (filter == null) {
+                rowid = row;
+                return true;
+            }
+            filterRecord.setRecordIndex(row);
+            if (filter.getBool(filterRecord)) {
+                rowid = row;
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long next() {
+        return rowid;
+    }
+
+    CompositeIndexRowCursor of(DataFrame dataFrame) {
+        final int partitionIndex = dataFrame.getPartitionIndex();
+        final long lo = dataFrame.getRowLo();
+        final long hi = dataFrame.getRowHi();
+        final AbstractIndexReader indexReader = reader.getCompositeIndexReader(partitionIndex, indexDirection);
+        final long indexedHi = indexReader != null ? Math.min(indexReader.getIndexedRowCount(), hi) : 0;
+        if (indexedHi > lo && compositeKey > -1) {
+            indexCursor = indexReader.getCursor(true, compositeKey, lo, indexedHi - 1);
+        } else {
+            indexCursor = EmptyRowCursor.INSTANCE;
+        }
+        scanLo = Math.max(lo, indexedHi);
+        scanHi = hi;
+        scanRow = indexDirection == BitmapIndexReader.DIR_FORWARD ? scanLo : scanHi - 1;
+        indexFirst = indexDirection == BitmapIndexReader.DIR_FORWARD;
+        indexDone = false;
+        scanRecord.jumpTo(partitionIndex, 0);
+        if (filterRecord != null) {
+            filterRecord.jumpTo(partitionIndex, 0);
+        }
+        return this;
+    }
+
+    void of(TableReader reader, IntList symbolKeys, int compositeKey) {
+        this.reader = reader;
+        this.symbolKeys.clear();
+        this.symbolKeys.addAll(symbolKeys);
+        this.compositeKey = compositeKey;
+        scanRecord.of(reader);
+        if (filterRecord != null) {
+            filterRecord.of(reader);
+        }
+    }
+
+    private boolean matches(long row) {
+        scanRecord.setRecordIndex(row);
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            if (scanRecord.getInt(columnIndexes.getQuick(i)) != symbolKeys.getQuick(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long nextScannedRow() {
+        if (indexDirection == BitmapIndexReader.DIR_FORWARD) {
+            while (scanRow < scanHi) {
+                final long row = scanRow++;
+                if (matches(row)) {
+                    return row;
+                }
+            }
+        } else {
+            while (scanRow >= scanLo) {
+                final long row = scanRow--;
+                if (matches(row)) {
+                    return row;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.EmptyRowCursor;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Looks up rows by values of all columns of composite index. Values are resolved to symbol keys
+ * when cursor is prepared, which allows them to be bind variables.
+ */
+public class CompositeIndexRowCursorFactory implements RowCursorFactory {
+    private final IntList columnIndexes;
+    private final ObjList<Function> symbolFunctions;
+    private final CompositeIndexRowCursor cursor;
+    private final LatestByValueIndexedRowCursor latestCursor;
+    private final IntList symbolKeys = new IntList();
+    private boolean empty;
+
+    /**
+     * @param columnIndexes       reader indexes of composite index columns in index key order
+     * @param symbolFunctions     values of composite index columns in index key order
+     * @param filter              optional filter of rows
+     * @param indexDirection      direction rows are returned in
+     * @param latest              true to return the first row of the first data frame that has rows
+     * @param filterColumnIndexes reader indexes of columns filter refers to
+     */
+    public CompositeIndexRowCursorFactory(
+            IntList columnIndexes,
+            ObjList<Function> symbolFunctions,
+            @Nullable Function filter,
+            int indexDirection,
+            boolean latest,
+            IntList filterColumnIndexes
+    ) {
+        this.columnIndexes = columnIndexes;
+        this.symbolFunctions = symbolFunctions;
+        this.cursor = new CompositeIndexRowCursor(columnIndexes, indexDirection, filter, filterColumnIndexes);
+        this.latestCursor = latest ? new LatestByValueIndexedRowCursor() : null;
+    }
+
+    @Override
+    public RowCursor getCursor(DataFrame dataFrame) {
+        if (empty) {
+            return EmptyRowCursor.INSTANCE;
+        }
+        cursor.of(dataFrame);
+        if (latestCursor == null) {
+            return cursor;
+        }
+        if (cursor.hasNext()) {
+            latestCursor.of(cursor.next());
+            return latestCursor;
+        }
+        return EmptyRowCursor.INSTANCE;
+    }
+
+    @Override
+    public boolean isEntity() {
+        return false;
+    }
+
+    @Override
+    public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        symbolKeys.clear();
+        empty = false;
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final Function symbolFunction = symbolFunctions.getQuick(i);
+            symbolFunction.init(tableReader, sqlExecutionContext);
+            final int symbolKey = tableReader.getSymbolMapReader(columnIndexes.getQuick(i)).keyOf(symbolFunction.getStr(null));
+            if (symbolKey == SymbolTable.VALUE_NOT_FOUND) {
+                empty = true;
+                return;
+            }
+            symbolKeys.add(symbolKey);
+        }
+        // combination missing from composite index can still be in rows index does not cover
+        final int compositeKey = tableReader.getCompositeIndexKey(
+                symbolKeys.getQuick(0),
+                symbolKeys.getQuick(1),
+                symbolKeys.size() > 2 ? symbolKeys.getQuick(2) : 0
+        );
+        cursor.of(tableReader, symbolKeys, compositeKey);
+    }
+}
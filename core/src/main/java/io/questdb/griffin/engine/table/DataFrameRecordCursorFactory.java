@@ -26,7 +26,7 @@ package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.*;
-import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.IntList;
@@ -78,19 +78,49 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         return followsOrderByAdvice;
     }
 
+    IntList getColumnIndexes() {
+        return columnIndexes;
+    }
+
+    IntList getColumnSizes() {
+        return columnSizes;
+    }
+
     @Override
     public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) throws SqlException {
         DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext);
         if (pageFrameCursor != null) {
             return pageFrameCursor.of(dataFrameCursor);
         } else if (framingSupported) {
-            pageFrameCursor = new TableReaderPageFrameCursor(columnIndexes, columnSizes);
+            pageFrameCursor = new TableReaderPageFrameCursor(
+                    columnIndexes,
+                    columnSizes,
+                    executionContext.getCairoEngine().getConfiguration().getSqlPageFrameReadAheadSize()
+            );
             return pageFrameCursor.of(dataFrameCursor);
         } else {
             return null;
         }
     }
 
+    /**
+     * Lets data frame cursor skip partitions, which zone maps or bloom filters prove to have no rows
+     * passing the filter. Bloom filters also let the cursor skip blocks of partition rows. Filter stays
+     * owned by the caller, it must be initialised before the cursor is iterated.
+     *
+     * @param filter         filter applied to every row of this factory
+     * @param zoneMapEnabled true when table partitions have zone maps
+     */
+    public void setPruningFilter(Function filter, boolean zoneMapEnabled) {
+        final PartitionPruner zoneMapPruner = zoneMapEnabled ? ZoneMapPruner.of(filter, getMetadata(), columnIndexes) : null;
+        final PartitionPruner bloomFilterPruner = BloomFilterPruner.of(filter, getMetadata(), columnIndexes);
+        if (zoneMapPruner != null && bloomFilterPruner != null) {
+            dataFrameCursorFactory.setPartitionPruner(new ZoneMapAndBloomFilterPruner(zoneMapPruner, bloomFilterPruner));
+        } else {
+            dataFrameCursorFactory.setPartitionPruner(zoneMapPruner != null ? zoneMapPruner : bloomFilterPruner);
+        }
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
@@ -131,6 +161,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         private final IntList columnSizes;
         private final LongList pageRowsRemaining = new LongList();
         private final LongList pageSizes = new LongList();
+        private final int readAheadSize;
         private TableReader reader;
         private int reenterPartitionIndex;
         private DataFrameCursor dataFrameCursor;
@@ -138,10 +169,15 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         private long reenterPartitionHi;
         private boolean reenterDataFrame = false;
 
-        public TableReaderPageFrameCursor(IntList columnIndexes, IntList columnSizes) {
+        /**
+         * @param readAheadSize size of requests that ask OS to load frame columns into page cache
+         *                      before the frame is handed out, 0 to rely on page faults
+         */
+        public TableReaderPageFrameCursor(IntList columnIndexes, IntList columnSizes, int readAheadSize) {
             this.columnIndexes = columnIndexes;
             this.columnSizes = columnSizes;
             this.columnCount = columnIndexes.size();
+            this.readAheadSize = readAheadSize;
         }
 
         @Override
@@ -204,12 +240,18 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
                 if (top > partitionLo && top < minTop) {
                     minTop = top;
                 }
+                // column top of column with default is served from the value page, which is limited in size
+                final NullColumn defaultColumn = reader.getDefaultColumn(columnIndex);
+                if (defaultColumn instanceof ConstantColumn
+                        && (top > partitionLo || reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndex)) instanceof NullColumn)) {
+                    minTop = Math.min(minTop, partitionLo + ((ConstantColumn) defaultColumn).getValuePageRows());
+                }
             }
 
             for (int i = 0; i < columnCount; i++) {
                 final int columnIndex = columnIndexes.getQuick(i);
                 final int readerColIndex = TableReader.getPrimaryColumnIndex(base, columnIndex);
-                final MemoryR col = reader.getColumn(readerColIndex);
+                final MemoryMR col = reader.getColumn(readerColIndex);
                 // when the entire column is NULL we make it skip the whole of the data frame
                 final long top = col instanceof NullColumn ? minTop : reader.getColumnTop(base, columnIndex);
                 final long partitionLoAdjusted = partitionLo - top;
@@ -225,8 +267,9 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
                         long offset = partitionLoAdjusted << sh;
                         columnPageAddress.setQuick(i * 2, address + offset);
                         pageSizes.setQuick(i * 2, addressSize - offset);
+                        readAhead(col, offset, addressSize - offset);
                     } else {
-                        final MemoryR fixCol = reader.getColumn(readerColIndex + 1);
+                        final MemoryMR fixCol = reader.getColumn(readerColIndex + 1);
                         long fixAddress = fixCol.getPageAddress(0);
                         long fixAddressSize = partitionHiAdjusted << 3;
                         long fixOffset = partitionLoAdjusted << 3;
@@ -239,9 +282,12 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
                         columnPageAddress.setQuick(i * 2 + 1, fixAddress + fixOffset);
                         pageSizes.setQuick(i * 2, varAddressSize - varOffset);
                         pageSizes.setQuick(i * 2 + 1, fixAddressSize - fixOffset);
+                        readAhead(col, varOffset, varAddressSize - varOffset);
+                        readAhead(fixCol, fixOffset, fixAddressSize - fixOffset);
                     }
                 } else {
-                    columnPageAddress.setQuick(i * 2, 0);
+                    final NullColumn defaultColumn = reader.getDefaultColumn(columnIndex);
+                    columnPageAddress.setQuick(i * 2, defaultColumn instanceof ConstantColumn ? ((ConstantColumn) defaultColumn).getValuePageAddress() : 0);
                     columnPageAddress.setQuick(i * 2 + 1, 0);
                     pageSizes.setQuick(i * 2, (partitionHiAdjusted - partitionLoAdjusted) << (sh > -1 ? sh : 3));
                     pageSizes.setQuick(i * 2 + 1, 0);
@@ -264,6 +310,14 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
             return frame;
         }
 
+        // frame may be processed by other threads after it is handed out, so OS is asked to load
+        // columns into page cache in background rather than have them faulted in page by page
+        private void readAhead(MemoryMR col, long offset, long len) {
+            if (readAheadSize > 0) {
+                col.readAhead(offset, len, readAheadSize);
+            }
+        }
+
         private class TableReaderPageFrame implements PageFrame {
             private long partitionLo;
             private long partitionHi;
@@ -310,4 +364,30 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
             }
         }
     }
+
+    private static class ZoneMapAndBloomFilterPruner implements PartitionPruner {
+        private final PartitionPruner zoneMapPruner;
+        private final PartitionPruner bloomFilterPruner;
+
+        private ZoneMapAndBloomFilterPruner(PartitionPruner zoneMapPruner, PartitionPruner bloomFilterPruner) {
+            this.zoneMapPruner = zoneMapPruner;
+            this.bloomFilterPruner = bloomFilterPruner;
+        }
+
+        @Override
+        public boolean canSkip(TableReader reader, int partitionIndex) {
+            // zone map is cheaper to check
+            return zoneMapPruner.canSkip(reader, partitionIndex) || bloomFilterPruner.canSkip(reader, partitionIndex);
+        }
+
+        @Override
+        public boolean canSkipRows(TableReader reader, int partitionIndex, long rowLo, long rowHi) {
+            return bloomFilterPruner.canSkipRows(reader, partitionIndex, rowLo, rowHi);
+        }
+
+        @Override
+        public long getRowBlockSize() {
+            return bloomFilterPruner.getRowBlockSize();
+        }
+    }
 }
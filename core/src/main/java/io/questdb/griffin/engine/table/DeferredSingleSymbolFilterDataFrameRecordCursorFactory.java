@@ -107,7 +107,11 @@ public class DeferredSingleSymbolFilterDataFrameRecordCursorFactory extends Data
         assert this.convertedToFrame;
         DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext);
         if (pageFrameCursor == null) {
-            pageFrameCursor = new TableReaderPageFrameCursor(columnIndexes, columnSizes);
+            pageFrameCursor = new TableReaderPageFrameCursor(
+                    columnIndexes,
+                    columnSizes,
+                    executionContext.getCairoEngine().getConfiguration().getSqlPageFrameReadAheadSize()
+            );
         }
 
         pageFrameCursor.of(dataFrameCursor);
@@ -0,0 +1,952 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.engine.functions.BinaryFunction;
+import io.questdb.griffin.engine.functions.NegatableBooleanFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.bind.NamedParameterLinkFunction;
+import io.questdb.griffin.engine.functions.bool.AndFunctionFactory;
+import io.questdb.griffin.engine.functions.bool.NotFunctionFactory;
+import io.questdb.griffin.engine.functions.bool.OrFunctionFactory;
+import io.questdb.griffin.engine.functions.columns.ColumnFunction;
+import io.questdb.griffin.engine.functions.eq.*;
+import io.questdb.griffin.engine.functions.lt.LtDoubleVVFunctionFactory;
+import io.questdb.griffin.engine.functions.lt.LtIntFunctionFactory;
+import io.questdb.griffin.engine.functions.lt.LtTimestampFunctionFactory;
+import io.questdb.griffin.engine.functions.math.*;
+import io.questdb.std.*;
+
+/**
+ * Generates byte code for filters that consist of fixed size columns, constants, bind variables,
+ * arithmetic, comparisons and boolean logic. Generated class loops over rows of a page frame and
+ * reads column values straight from page memory, so that per-row virtual calls of the function
+ * tree are gone from the hot loop.
+ * <p>
+ * Compiler works on the function tree produced by the function parser. Operators are identified
+ * by factory of the function, which means that overload resolution, argument swapping and
+ * negation are exactly the same as in the interpreted filter. Every operator is delegated to
+ * a small static method that replicates null handling of the function it replaces, JIT inlines
+ * these methods. Filters with anything else are not compiled and are left to the function tree.
+ */
+public class FilterCompiler {
+    private static final int OP_AND = 0;
+    private static final int OP_OR = 1;
+    private static final int OP_NOT = 2;
+    private static final int OP_EQ_BOOLEAN = 3;
+    private static final int OP_EQ_BYTE = 4;
+    private static final int OP_EQ_SHORT = 5;
+    private static final int OP_EQ_INT = 6;
+    private static final int OP_EQ_LONG = 7;
+    private static final int OP_EQ_TIMESTAMP = 8;
+    private static final int OP_EQ_DOUBLE = 9;
+    private static final int OP_LT_INT = 10;
+    private static final int OP_LT_TIMESTAMP = 11;
+    private static final int OP_LT_DOUBLE = 12;
+    private static final int OP_ADD_INT = 13;
+    private static final int OP_ADD_LONG = 14;
+    private static final int OP_ADD_DOUBLE = 15;
+    private static final int OP_SUB_INT = 16;
+    private static final int OP_SUB_LONG = 17;
+    private static final int OP_SUB_DOUBLE = 18;
+    private static final int OP_MUL_INT = 19;
+    private static final int OP_MUL_LONG = 20;
+    private static final int OP_MUL_DOUBLE = 21;
+    private static final int OP_DIV_DOUBLE = 22;
+    // helpers that are not operators
+    private static final int IS_NULL_INT = 23;
+    private static final int IS_NULL_LONG = 24;
+    private static final int IS_NULL_FLOAT = 25;
+    private static final int IS_NULL_DOUBLE = 26;
+    private static final int READ_BOOL = 27;
+    private static final int READ_BYTE = 28;
+    private static final int READ_SHORT = 29;
+    private static final int READ_INT = 30;
+    private static final int READ_LONG = 31;
+    private static final int READ_FLOAT = 32;
+    private static final int READ_DOUBLE = 33;
+    private static final int INT_TO_LONG = 34;
+    private static final int INT_TO_FLOAT = 35;
+    private static final int INT_TO_DOUBLE = 36;
+    private static final int LONG_TO_FLOAT = 37;
+    private static final int LONG_TO_DOUBLE = 38;
+    private static final int DATE_TO_TIMESTAMP = 39;
+    private static final int TIMESTAMP_TO_DATE = 40;
+    private static final int HELPER_COUNT = 41;
+    private static final ObjList<Class<?>> helperClasses = new ObjList<>(HELPER_COUNT);
+    private static final ObjList<String> helperNames = new ObjList<>(HELPER_COUNT);
+    private static final ObjList<String> helperSignatures = new ObjList<>(HELPER_COUNT);
+    private static final ObjIntHashMap<Class<?>> operators = new ObjIntHashMap<>();
+    // filter(LongList pageAddresses, ObjList operands, long rowLo, long rowHi, long rowIdOffset, DirectLongList rows)
+    private static final int PAGE_ADDRESSES_LOCAL = 1;
+    private static final int OPERANDS_LOCAL = 2;
+    private static final int ROW_LOCAL = 3;
+    private static final int ROW_HI_LOCAL = 5;
+    private static final int ROW_ID_OFFSET_LOCAL = 7;
+    private static final int ROWS_LOCAL = 9;
+    private static final int FIRST_FREE_LOCAL = 10;
+    private static final int ARG_LOCAL_COUNT = 7;
+    private final BytecodeAssembler asm;
+    private final IntList columns = new IntList();
+    private final IntIntHashMap columnLocals = new IntIntHashMap();
+    private final IntList operandTypes = new IntList();
+    private final IntList operandLocals = new IntList();
+    private final IntList operandGetterIndexes = new IntList();
+    private final IntList localTypes = new IntList();
+    private final IntList helperIndexes = new IntList(HELPER_COUNT);
+    private int nextLocal;
+    private int nodeCount;
+    private int operandCursor;
+
+    public FilterCompiler(BytecodeAssembler asm) {
+        this.asm = asm;
+    }
+
+    public static boolean and(boolean l, boolean r) {
+        return l & r;
+    }
+
+    public static double addDouble(double l, double r) {
+        return l + r;
+    }
+
+    public static int addInt(int l, int r) {
+        if (l == Numbers.INT_NaN || r == Numbers.INT_NaN) {
+            return Numbers.INT_NaN;
+        }
+        return l + r;
+    }
+
+    public static long addLong(long l, long r) {
+        if (l == Numbers.LONG_NaN || r == Numbers.LONG_NaN) {
+            return Numbers.LONG_NaN;
+        }
+        return l + r;
+    }
+
+    public static long dateToTimestamp(long value) {
+        return value == Numbers.LONG_NaN ? value : value * 1000L;
+    }
+
+    public static double divDouble(double l, double r) {
+        return l / r;
+    }
+
+    public static boolean eqBool(boolean l, boolean r, boolean negated) {
+        return negated != (l == r);
+    }
+
+    public static boolean eqByte(byte l, byte r, boolean negated) {
+        return negated != (l == r);
+    }
+
+    public static boolean eqDouble(double l, double r, boolean negated) {
+        return negated != (l != l && r != r || Math.abs(l - r) < 0.0000000001);
+    }
+
+    public static boolean eqInt(int l, int r, boolean negated) {
+        return negated != (l == r);
+    }
+
+    public static boolean eqLong(long l, long r, boolean negated) {
+        return negated != (l == r);
+    }
+
+    public static boolean eqShort(short l, short r, boolean negated) {
+        return negated != (l == r);
+    }
+
+    public static boolean isNullDouble(double value, boolean negated) {
+        return negated != Double.isNaN(value);
+    }
+
+    public static boolean isNullFloat(float value, boolean negated) {
+        return negated != Float.isNaN(value);
+    }
+
+    public static boolean isNullInt(int value, boolean negated) {
+        return negated != (value == Numbers.INT_NaN);
+    }
+
+    public static boolean isNullLong(long value, boolean negated) {
+        return negated != (value == Numbers.LONG_NaN);
+    }
+
+    public static boolean ltDouble(double l, double r, boolean negated) {
+        return negated ? l >= r : l < r;
+    }
+
+    public static boolean ltInt(int l, int r, boolean negated) {
+        if (l != Numbers.INT_NaN && r != Numbers.INT_NaN) {
+            return negated == (l >= r);
+        }
+        return false;
+    }
+
+    public static boolean ltLong(long l, long r, boolean negated) {
+        if (l != Numbers.LONG_NaN && r != Numbers.LONG_NaN) {
+            return negated == (l >= r);
+        }
+        return false;
+    }
+
+    public static double mulDouble(double l, double r) {
+        return l * r;
+    }
+
+    public static int mulInt(int l, int r) {
+        return l * r;
+    }
+
+    public static long mulLong(long l, long r) {
+        return l * r;
+    }
+
+    public static boolean not(boolean value) {
+        return !value;
+    }
+
+    public static long timestampToDate(long value) {
+        return value == Numbers.LONG_NaN ? value : value / 1000L;
+    }
+
+    public static boolean or(boolean l, boolean r) {
+        return l | r;
+    }
+
+    public static boolean readBool(long address, long row) {
+        return Unsafe.getUnsafe().getByte(address + row) == 1;
+    }
+
+    public static byte readByte(long address, long row) {
+        return Unsafe.getUnsafe().getByte(address + row);
+    }
+
+    public static double readDouble(long address, long row) {
+        return Unsafe.getUnsafe().getDouble(address + (row << 3));
+    }
+
+    public static float readFloat(long address, long row) {
+        return Unsafe.getUnsafe().getFloat(address + (row << 2));
+    }
+
+    public static int readInt(long address, long row) {
+        return Unsafe.getUnsafe().getInt(address + (row << 2));
+    }
+
+    public static long readLong(long address, long row) {
+        return Unsafe.getUnsafe().getLong(address + (row << 3));
+    }
+
+    public static short readShort(long address, long row) {
+        return Unsafe.getUnsafe().getShort(address + (row << 1));
+    }
+
+    public static double subDouble(double l, double r) {
+        return l - r;
+    }
+
+    public static int subInt(int l, int r) {
+        if (l != Numbers.INT_NaN && r != Numbers.INT_NaN) {
+            return l - r;
+        }
+        return Numbers.INT_NaN;
+    }
+
+    public static long subLong(long l, long r) {
+        if (l != Numbers.LONG_NaN && r != Numbers.LONG_NaN) {
+            return l - r;
+        }
+        return Numbers.LONG_NaN;
+    }
+
+    /**
+     * Generates filter class for the function tree.
+     *
+     * @param filter   boolean function
+     * @param operands list that receives constant and bind variable functions of the filter, these
+     *                 have to be passed to {@link CompiledFilter#filter} in the same order
+     * @return filter instance or null when filter contains functions that cannot be compiled
+     */
+    public CompiledFilter compile(Function filter, ObjList<Function> operands) {
+        clear();
+        operands.clear();
+        if (!analyse(filter, ColumnType.BOOLEAN, operands)) {
+            operands.clear();
+            return null;
+        }
+
+        asm.init(CompiledFilter.class);
+        asm.setupPool();
+        final int stackMapTableIndex = asm.poolUtf8("StackMapTable");
+        final int thisClassIndex = asm.poolClass(asm.poolUtf8("io/questdb/griffin/engine/table/compiledFilter"));
+        final int interfaceClassIndex = asm.poolClass(CompiledFilter.class);
+        final int longListClassIndex = asm.poolClass(LongList.class);
+        final int objListClassIndex = asm.poolClass(ObjList.class);
+        final int rowsClassIndex = asm.poolClass(DirectLongList.class);
+        final int functionClassIndex = asm.poolClass(Function.class);
+        final int filterNameIndex = asm.poolUtf8("filter");
+        final int filterDescIndex = asm.poolUtf8("(Lio/questdb/std/LongList;Lio/questdb/std/ObjList;JJJLio/questdb/std/DirectLongList;)V");
+        final int getAddressIndex = asm.poolMethod(longListClassIndex, "getQuick", "(I)J");
+        final int getOperandIndex = asm.poolMethod(objListClassIndex, "getQuick", "(I)Ljava/lang/Object;");
+        final int addRowIndex = asm.poolMethod(rowsClassIndex, "add", "(J)V");
+        for (int i = 0, n = operandTypes.size(); i < n; i++) {
+            final int type = operandTypes.getQuick(i);
+            operandGetterIndexes.add(
+                    asm.poolInterfaceMethod(
+                            functionClassIndex,
+                            getterName(type),
+                            "(Lio/questdb/cairo/sql/Record;)" + descriptor(type)
+                    )
+            );
+        }
+        for (int i = 0; i < HELPER_COUNT; i++) {
+            helperIndexes.add(asm.poolMethod(helperClasses.getQuick(i), helperNames.getQuick(i), helperSignatures.getQuick(i)));
+        }
+        asm.finishPool();
+
+        asm.defineClass(thisClassIndex);
+        asm.interfaceCount(1);
+        asm.putShort(interfaceClassIndex);
+        asm.fieldCount(0);
+        asm.methodCount(2);
+        asm.defineDefaultConstructor();
+        instrumentFilterMethod(
+                filter,
+                stackMapTableIndex,
+                filterNameIndex,
+                filterDescIndex,
+                thisClassIndex,
+                longListClassIndex,
+                objListClassIndex,
+                rowsClassIndex,
+                functionClassIndex,
+                getAddressIndex,
+                getOperandIndex,
+                addRowIndex
+        );
+        // class attribute count
+        asm.putShort(0);
+        return asm.newInstance();
+    }
+
+    private static String descriptor(int type) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                return "Z";
+            case ColumnType.BYTE:
+                return "B";
+            case ColumnType.SHORT:
+                return "S";
+            case ColumnType.INT:
+                return "I";
+            case ColumnType.FLOAT:
+                return "F";
+            case ColumnType.DOUBLE:
+                return "D";
+            default:
+                // LONG, DATE, TIMESTAMP
+                return "J";
+        }
+    }
+
+    private static int getArgType(int op) {
+        switch (op) {
+            case OP_AND:
+            case OP_OR:
+            case OP_NOT:
+            case OP_EQ_BOOLEAN:
+                return ColumnType.BOOLEAN;
+            case OP_EQ_BYTE:
+                return ColumnType.BYTE;
+            case OP_EQ_SHORT:
+                return ColumnType.SHORT;
+            case OP_EQ_INT:
+            case OP_LT_INT:
+            case OP_ADD_INT:
+            case OP_SUB_INT:
+            case OP_MUL_INT:
+                return ColumnType.INT;
+            case OP_EQ_LONG:
+            case OP_ADD_LONG:
+            case OP_SUB_LONG:
+            case OP_MUL_LONG:
+                return ColumnType.LONG;
+            case OP_EQ_TIMESTAMP:
+            case OP_LT_TIMESTAMP:
+                return ColumnType.TIMESTAMP;
+            default:
+                return ColumnType.DOUBLE;
+        }
+    }
+
+    // mirrors type switch in EqDoubleFunctionFactory, which compares values to NaN constant
+    private static int getNullCheckType(Function arg) {
+        switch (ColumnType.tagOf(arg.getType())) {
+            case ColumnType.INT:
+                return ColumnType.INT;
+            case ColumnType.LONG:
+                return ColumnType.LONG;
+            case ColumnType.DATE:
+                return ColumnType.DATE;
+            case ColumnType.TIMESTAMP:
+                return ColumnType.TIMESTAMP;
+            case ColumnType.FLOAT:
+                return ColumnType.FLOAT;
+            default:
+                return ColumnType.DOUBLE;
+        }
+    }
+
+    private static int getNullCheckHelper(int type) {
+        switch (type) {
+            case ColumnType.INT:
+                return IS_NULL_INT;
+            case ColumnType.FLOAT:
+                return IS_NULL_FLOAT;
+            case ColumnType.DOUBLE:
+                return IS_NULL_DOUBLE;
+            default:
+                return IS_NULL_LONG;
+        }
+    }
+
+    private static int getOperator(Function function) {
+        final Class<?> factoryClass = function.getClass().getEnclosingClass();
+        return factoryClass != null ? operators.get(factoryClass) : -1;
+    }
+
+    private static int getReadHelper(int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+                return READ_BOOL;
+            case ColumnType.BYTE:
+                return READ_BYTE;
+            case ColumnType.SHORT:
+                return READ_SHORT;
+            case ColumnType.INT:
+                return READ_INT;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return READ_LONG;
+            case ColumnType.FLOAT:
+                return READ_FLOAT;
+            case ColumnType.DOUBLE:
+                return READ_DOUBLE;
+            default:
+                return -1;
+        }
+    }
+
+    private static String getterName(int type) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+                return "getBool";
+            case ColumnType.BYTE:
+                return "getByte";
+            case ColumnType.SHORT:
+                return "getShort";
+            case ColumnType.INT:
+                return "getInt";
+            case ColumnType.LONG:
+                return "getLong";
+            case ColumnType.DATE:
+                return "getDate";
+            case ColumnType.TIMESTAMP:
+                return "getTimestamp";
+            case ColumnType.FLOAT:
+                return "getFloat";
+            default:
+                return "getDouble";
+        }
+    }
+
+    /**
+     * Checks that value of the given type can be read via getter of another type, conversions follow
+     * base function classes, e.g. {@link io.questdb.griffin.engine.functions.IntFunction}.
+     */
+    private static boolean isConvertible(int fromType, int toType) {
+        if (fromType == toType) {
+            return true;
+        }
+        switch (fromType) {
+            case ColumnType.BYTE:
+                return toType == ColumnType.SHORT || isWideningTarget(toType);
+            case ColumnType.SHORT:
+                return isWideningTarget(toType);
+            case ColumnType.INT:
+                return toType == ColumnType.LONG
+                        || toType == ColumnType.DATE
+                        || toType == ColumnType.TIMESTAMP
+                        || toType == ColumnType.FLOAT
+                        || toType == ColumnType.DOUBLE;
+            case ColumnType.LONG:
+                return toType == ColumnType.DATE
+                        || toType == ColumnType.TIMESTAMP
+                        || toType == ColumnType.FLOAT
+                        || toType == ColumnType.DOUBLE;
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return isLongType(toType) || toType == ColumnType.FLOAT || toType == ColumnType.DOUBLE;
+            case ColumnType.FLOAT:
+                return toType == ColumnType.DOUBLE;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isLongType(int type) {
+        return type == ColumnType.LONG || type == ColumnType.DATE || type == ColumnType.TIMESTAMP;
+    }
+
+    private static boolean isOperand(Function function) {
+        return function.isConstant() || function.isRuntimeConstant() || function instanceof NamedParameterLinkFunction;
+    }
+
+    private static boolean isWideningTarget(int type) {
+        return type == ColumnType.INT || type == ColumnType.LONG || type == ColumnType.FLOAT || type == ColumnType.DOUBLE;
+    }
+
+    private static void helper(int index, Class<?> clazz, String name, String signature) {
+        helperClasses.extendAndSet(index, clazz);
+        helperNames.extendAndSet(index, name);
+        helperSignatures.extendAndSet(index, signature);
+    }
+
+    private int allocateLocal(int type) {
+        final int local = nextLocal;
+        nextLocal += type == ColumnType.DOUBLE || isLongType(type) ? 2 : 1;
+        localTypes.add(type);
+        return local;
+    }
+
+    private boolean analyse(Function function, int type, ObjList<Function> operands) {
+        nodeCount++;
+        if (function instanceof ColumnFunction) {
+            final int columnType = ColumnType.tagOf(function.getType());
+            if (getReadHelper(columnType) == -1 || !isConvertible(columnType, type)) {
+                return false;
+            }
+            final int columnIndex = ((ColumnFunction) function).getColumnIndex();
+            final int index = columnLocals.keyIndex(columnIndex);
+            if (index > -1) {
+                columnLocals.putAt(index, columnIndex, allocateLocal(ColumnType.LONG));
+                columns.add(columnIndex);
+            }
+            return true;
+        }
+
+        if (isOperand(function)) {
+            // value is read once per frame via the same getter the parent function would have used
+            operands.add(function);
+            operandTypes.add(type);
+            operandLocals.add(allocateLocal(type));
+            return true;
+        }
+
+        final int op = getOperator(function);
+        switch (op) {
+            case OP_NOT:
+                return type == ColumnType.BOOLEAN
+                        && function instanceof UnaryFunction
+                        && analyse(((UnaryFunction) function).getArg(), ColumnType.BOOLEAN, operands);
+            case OP_AND:
+            case OP_OR:
+                return type == ColumnType.BOOLEAN
+                        && function instanceof BinaryFunction
+                        && analyseArgs((BinaryFunction) function, ColumnType.BOOLEAN, operands);
+            case OP_EQ_DOUBLE:
+                if (function instanceof UnaryFunction) {
+                    final Function arg = ((UnaryFunction) function).getArg();
+                    return type == ColumnType.BOOLEAN
+                            && function instanceof NegatableBooleanFunction
+                            && analyse(arg, getNullCheckType(arg), operands);
+                }
+                // fall through
+            case OP_EQ_BOOLEAN:
+            case OP_EQ_BYTE:
+            case OP_EQ_SHORT:
+            case OP_EQ_INT:
+            case OP_EQ_LONG:
+            case OP_EQ_TIMESTAMP:
+            case OP_LT_INT:
+            case OP_LT_TIMESTAMP:
+            case OP_LT_DOUBLE:
+                return type == ColumnType.BOOLEAN
+                        && function instanceof NegatableBooleanFunction
+                        && function instanceof BinaryFunction
+                        && analyseArgs((BinaryFunction) function, getArgType(op), operands);
+            case OP_ADD_INT:
+            case OP_ADD_LONG:
+            case OP_ADD_DOUBLE:
+            case OP_SUB_INT:
+            case OP_SUB_LONG:
+            case OP_SUB_DOUBLE:
+            case OP_MUL_INT:
+            case OP_MUL_LONG:
+            case OP_MUL_DOUBLE:
+            case OP_DIV_DOUBLE:
+                // arithmetic functions read arguments using getter of their own type
+                return function instanceof BinaryFunction
+                        && isConvertible(getArgType(op), type)
+                        && analyseArgs((BinaryFunction) function, getArgType(op), operands);
+            default:
+                return false;
+        }
+    }
+
+    private boolean analyseArgs(BinaryFunction function, int type, ObjList<Function> operands) {
+        return analyse(function.getLeft(), type, operands) && analyse(function.getRight(), type, operands);
+    }
+
+    private void clear() {
+        columns.clear();
+        columnLocals.clear();
+        operandTypes.clear();
+        operandLocals.clear();
+        operandGetterIndexes.clear();
+        localTypes.clear();
+        helperIndexes.clear();
+        nextLocal = FIRST_FREE_LOCAL;
+        nodeCount = 0;
+        operandCursor = 0;
+    }
+
+    private void convert(int fromType, int toType) {
+        if (fromType == toType) {
+            return;
+        }
+        switch (fromType) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+                // values are on the stack as int already
+                if (isLongType(toType)) {
+                    asm.i2l();
+                } else if (toType == ColumnType.FLOAT) {
+                    asm.i2f();
+                } else if (toType == ColumnType.DOUBLE) {
+                    asm.i2d();
+                }
+                break;
+            case ColumnType.INT:
+                if (isLongType(toType)) {
+                    asm.invokeStatic(helperIndexes.getQuick(INT_TO_LONG));
+                } else if (toType == ColumnType.FLOAT) {
+                    asm.invokeStatic(helperIndexes.getQuick(INT_TO_FLOAT));
+                } else {
+                    asm.invokeStatic(helperIndexes.getQuick(INT_TO_DOUBLE));
+                }
+                break;
+            case ColumnType.FLOAT:
+                asm.f2d();
+                break;
+            default:
+                // LONG, DATE, TIMESTAMP
+                if (fromType == ColumnType.DATE && toType == ColumnType.TIMESTAMP) {
+                    asm.invokeStatic(helperIndexes.getQuick(DATE_TO_TIMESTAMP));
+                } else if (fromType == ColumnType.TIMESTAMP && toType == ColumnType.DATE) {
+                    asm.invokeStatic(helperIndexes.getQuick(TIMESTAMP_TO_DATE));
+                } else if (toType == ColumnType.FLOAT) {
+                    asm.invokeStatic(helperIndexes.getQuick(LONG_TO_FLOAT));
+                } else if (toType == ColumnType.DOUBLE) {
+                    asm.invokeStatic(helperIndexes.getQuick(LONG_TO_DOUBLE));
+                }
+                break;
+        }
+    }
+
+    private void emit(Function function, int type) {
+        if (function instanceof ColumnFunction) {
+            final int columnType = ColumnType.tagOf(function.getType());
+            asm.lload(columnLocals.get(((ColumnFunction) function).getColumnIndex()));
+            asm.lload(ROW_LOCAL);
+            asm.invokeStatic(helperIndexes.getQuick(getReadHelper(columnType)));
+            convert(columnType, type);
+            return;
+        }
+
+        if (isOperand(function)) {
+            load(operandTypes.getQuick(operandCursor), operandLocals.getQuick(operandCursor));
+            operandCursor++;
+            return;
+        }
+
+        final int op = getOperator(function);
+        switch (op) {
+            case OP_NOT:
+                emit(((UnaryFunction) function).getArg(), ColumnType.BOOLEAN);
+                asm.invokeStatic(helperIndexes.getQuick(op));
+                break;
+            case OP_AND:
+            case OP_OR:
+                emitArgs((BinaryFunction) function, ColumnType.BOOLEAN);
+                asm.invokeStatic(helperIndexes.getQuick(op));
+                break;
+            case OP_EQ_DOUBLE:
+                if (function instanceof UnaryFunction) {
+                    final Function arg = ((UnaryFunction) function).getArg();
+                    final int argType = getNullCheckType(arg);
+                    emit(arg, argType);
+                    asm.iconst(((NegatableBooleanFunction) function).isNegated() ? 1 : 0);
+                    asm.invokeStatic(helperIndexes.getQuick(getNullCheckHelper(argType)));
+                    break;
+                }
+                // fall through
+            case OP_EQ_BOOLEAN:
+            case OP_EQ_BYTE:
+            case OP_EQ_SHORT:
+            case OP_EQ_INT:
+            case OP_EQ_LONG:
+            case OP_EQ_TIMESTAMP:
+            case OP_LT_INT:
+            case OP_LT_TIMESTAMP:
+            case OP_LT_DOUBLE:
+                emitArgs((BinaryFunction) function, getArgType(op));
+                asm.iconst(((NegatableBooleanFunction) function).isNegated() ? 1 : 0);
+                asm.invokeStatic(helperIndexes.getQuick(op));
+                break;
+            default:
+                // arithmetic
+                emitArgs((BinaryFunction) function, getArgType(op));
+                asm.invokeStatic(helperIndexes.getQuick(op));
+                convert(getArgType(op), type);
+                break;
+        }
+    }
+
+    private void emitArgs(BinaryFunction function, int type) {
+        emit(function.getLeft(), type);
+        emit(function.getRight(), type);
+    }
+
+    /*
+     * Generated method looks like this:
+     *
+     * long a0 = pageAddresses.getQuick(columnIndex0);
+     * ...
+     * int o0 = ((Function) operands.getQuick(0)).getInt(null);
+     * ...
+     * for (long row = rowLo; row < rowHi; row++) {
+     *     if (FilterCompiler.ltInt(FilterCompiler.readInt(a0, row), o0, false)) {
+     *         rows.add(rowIdOffset + row);
+     *     }
+     * }
+     *
+     * Stack is empty at every branch target and all locals are assigned before the loop,
+     * which allows all stack map frames to share the same layout.
+     */
+    private void instrumentFilterMethod(
+            Function filter,
+            int stackMapTableIndex,
+            int nameIndex,
+            int descIndex,
+            int thisClassIndex,
+            int longListClassIndex,
+            int objListClassIndex,
+            int rowsClassIndex,
+            int functionClassIndex,
+            int getAddressIndex,
+            int getOperandIndex,
+            int addRowIndex
+    ) {
+        // every node leaves at most 2 slots on the stack while its parent evaluates
+        // next argument, column reads need 4 slots and adding row to the list needs 5
+        asm.startMethod(nameIndex, descIndex, 2 * nodeCount + 8, nextLocal);
+
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final int columnIndex = columns.getQuick(i);
+            asm.aload(PAGE_ADDRESSES_LOCAL);
+            asm.iconst(columnIndex);
+            asm.invokeVirtual(getAddressIndex);
+            asm.lstore(columnLocals.get(columnIndex));
+        }
+
+        for (int i = 0, n = operandTypes.size(); i < n; i++) {
+            asm.aload(OPERANDS_LOCAL);
+            asm.iconst(i);
+            asm.invokeVirtual(getOperandIndex);
+            asm.checkcast(functionClassIndex);
+            asm.aconst_null();
+            asm.invokeInterface(operandGetterIndexes.getQuick(i), 1);
+            store(operandTypes.getQuick(i), operandLocals.getQuick(i));
+        }
+
+        final int head = asm.position();
+        asm.lload(ROW_LOCAL);
+        asm.lload(ROW_HI_LOCAL);
+        asm.lcmp();
+        final int exitBranch = asm.ifge();
+        emit(filter, ColumnType.BOOLEAN);
+        final int skipBranch = asm.ifeq();
+        asm.aload(ROWS_LOCAL);
+        asm.lload(ROW_ID_OFFSET_LOCAL);
+        asm.lload(ROW_LOCAL);
+        asm.ladd();
+        asm.invokeVirtual(addRowIndex);
+        final int next = asm.position();
+        asm.lload(ROW_LOCAL);
+        asm.lconst_1();
+        asm.ladd();
+        asm.lstore(ROW_LOCAL);
+        final int loopBranch = asm.goto_();
+        final int exit = asm.position();
+        asm.return_();
+
+        asm.setJmp(exitBranch, exit);
+        asm.setJmp(skipBranch, next);
+        asm.setJmp(loopBranch, head);
+
+        asm.endMethodCode();
+        // exceptions
+        asm.putShort(0);
+        // attributes: 1 - StackMapTable
+        asm.putShort(1);
+        asm.startStackMapTables(stackMapTableIndex, 3);
+        // loop head
+        asm.full_frame(head - asm.getCodeStart());
+        asm.putShort(ARG_LOCAL_COUNT + localTypes.size());
+        asm.putITEM_Object(thisClassIndex);
+        asm.putITEM_Object(longListClassIndex);
+        asm.putITEM_Object(objListClassIndex);
+        asm.putITEM_Long();
+        asm.putITEM_Long();
+        asm.putITEM_Long();
+        asm.putITEM_Object(rowsClassIndex);
+        for (int i = 0, n = localTypes.size(); i < n; i++) {
+            final int type = localTypes.getQuick(i);
+            if (type == ColumnType.DOUBLE) {
+                asm.putITEM_Double();
+            } else if (type == ColumnType.FLOAT) {
+                asm.putITEM_Float();
+            } else if (isLongType(type)) {
+                asm.putITEM_Long();
+            } else {
+                asm.putITEM_Integer();
+            }
+        }
+        // stack
+        asm.putShort(0);
+        // row increment and loop exit
+        asm.same_frame(next - head - 1);
+        asm.same_frame(exit - next - 1);
+        asm.endStackMapTables();
+        asm.endMethod();
+    }
+
+    private void load(int type, int local) {
+        if (type == ColumnType.DOUBLE) {
+            asm.dload(local);
+        } else if (type == ColumnType.FLOAT) {
+            asm.fload(local);
+        } else if (isLongType(type)) {
+            asm.lload(local);
+        } else {
+            asm.iload(local);
+        }
+    }
+
+    private void store(int type, int local) {
+        if (type == ColumnType.DOUBLE) {
+            asm.dstore(local);
+        } else if (type == ColumnType.FLOAT) {
+            asm.fstore(local);
+        } else if (isLongType(type)) {
+            asm.lstore(local);
+        } else {
+            asm.istore(local);
+        }
+    }
+
+    static {
+        operators.put(AndFunctionFactory.class, OP_AND);
+        operators.put(OrFunctionFactory.class, OP_OR);
+        operators.put(NotFunctionFactory.class, OP_NOT);
+        operators.put(EqBooleanFunctionFactory.class, OP_EQ_BOOLEAN);
+        operators.put(EqByteFunctionFactory.class, OP_EQ_BYTE);
+        operators.put(EqShortFunctionFactory.class, OP_EQ_SHORT);
+        operators.put(EqIntFunctionFactory.class, OP_EQ_INT);
+        operators.put(EqLongFunctionFactory.class, OP_EQ_LONG);
+        operators.put(EqTimestampFunctionFactory.class, OP_EQ_TIMESTAMP);
+        operators.put(EqDoubleFunctionFactory.class, OP_EQ_DOUBLE);
+        operators.put(LtIntFunctionFactory.class, OP_LT_INT);
+        operators.put(LtTimestampFunctionFactory.class, OP_LT_TIMESTAMP);
+        operators.put(LtDoubleVVFunctionFactory.class, OP_LT_DOUBLE);
+        operators.put(AddIntFunctionFactory.class, OP_ADD_INT);
+        operators.put(AddLongFunctionFactory.class, OP_ADD_LONG);
+        operators.put(AddDoubleFunctionFactory.class, OP_ADD_DOUBLE);
+        operators.put(SubIntFunctionFactory.class, OP_SUB_INT);
+        operators.put(SubLongFunctionFactory.class, OP_SUB_LONG);
+        operators.put(SubDoubleFunctionFactory.class, OP_SUB_DOUBLE);
+        operators.put(MulIntFunctionFactory.class, OP_MUL_INT);
+        operators.put(MulLongFunctionFactory.class, OP_MUL_LONG);
+        operators.put(MulDoubleFunctionFactory.class, OP_MUL_DOUBLE);
+        operators.put(DivDoubleFunctionFactory.class, OP_DIV_DOUBLE);
+
+        helper(OP_AND, FilterCompiler.class, "and", "(ZZ)Z");
+        helper(OP_OR, FilterCompiler.class, "or", "(ZZ)Z");
+        helper(OP_NOT, FilterCompiler.class, "not", "(Z)Z");
+        helper(OP_EQ_BOOLEAN, FilterCompiler.class, "eqBool", "(ZZZ)Z");
+        helper(OP_EQ_BYTE, FilterCompiler.class, "eqByte", "(BBZ)Z");
+        helper(OP_EQ_SHORT, FilterCompiler.class, "eqShort", "(SSZ)Z");
+        helper(OP_EQ_INT, FilterCompiler.class, "eqInt", "(IIZ)Z");
+        helper(OP_EQ_LONG, FilterCompiler.class, "eqLong", "(JJZ)Z");
+        helper(OP_EQ_TIMESTAMP, FilterCompiler.class, "eqLong", "(JJZ)Z");
+        helper(OP_EQ_DOUBLE, FilterCompiler.class, "eqDouble", "(DDZ)Z");
+        helper(OP_LT_INT, FilterCompiler.class, "ltInt", "(IIZ)Z");
+        helper(OP_LT_TIMESTAMP, FilterCompiler.class, "ltLong", "(JJZ)Z");
+        helper(OP_LT_DOUBLE, FilterCompiler.class, "ltDouble", "(DDZ)Z");
+        helper(OP_ADD_INT, FilterCompiler.class, "addInt", "(II)I");
+        helper(OP_ADD_LONG, FilterCompiler.class, "addLong", "(JJ)J");
+        helper(OP_ADD_DOUBLE, FilterCompiler.class, "addDouble", "(DD)D");
+        helper(OP_SUB_INT, FilterCompiler.class, "subInt", "(II)I");
+        helper(OP_SUB_LONG, FilterCompiler.class, "subLong", "(JJ)J");
+        helper(OP_SUB_DOUBLE, FilterCompiler.class, "subDouble", "(DD)D");
+        helper(OP_MUL_INT, FilterCompiler.class, "mulInt", "(II)I");
+        helper(OP_MUL_LONG, FilterCompiler.class, "mulLong", "(JJ)J");
+        helper(OP_MUL_DOUBLE, FilterCompiler.class, "mulDouble", "(DD)D");
+        helper(OP_DIV_DOUBLE, FilterCompiler.class, "divDouble", "(DD)D");
+        helper(IS_NULL_INT, FilterCompiler.class, "isNullInt", "(IZ)Z");
+        helper(IS_NULL_LONG, FilterCompiler.class, "isNullLong", "(JZ)Z");
+        helper(IS_NULL_FLOAT, FilterCompiler.class, "isNullFloat", "(FZ)Z");
+        helper(IS_NULL_DOUBLE, FilterCompiler.class, "isNullDouble", "(DZ)Z");
+        helper(READ_BOOL, FilterCompiler.class, "readBool", "(JJ)Z");
+        helper(READ_BYTE, FilterCompiler.class, "readByte", "(JJ)B");
+        helper(READ_SHORT, FilterCompiler.class, "readShort", "(JJ)S");
+        helper(READ_INT, FilterCompiler.class, "readInt", "(JJ)I");
+        helper(READ_LONG, FilterCompiler.class, "readLong", "(JJ)J");
+        helper(READ_FLOAT, FilterCompiler.class, "readFloat", "(JJ)F");
+        helper(READ_DOUBLE, FilterCompiler.class, "readDouble", "(JJ)D");
+        helper(INT_TO_LONG, Numbers.class, "intToLong", "(I)J");
+        helper(INT_TO_FLOAT, Numbers.class, "intToFloat", "(I)F");
+        helper(INT_TO_DOUBLE, Numbers.class, "intToDouble", "(I)D");
+        helper(LONG_TO_FLOAT, Numbers.class, "longToFloat", "(J)F");
+        helper(LONG_TO_DOUBLE, Numbers.class, "longToDouble", "(J)D");
+        helper(DATE_TO_TIMESTAMP, FilterCompiler.class, "dateToTimestamp", "(J)J");
+        helper(TIMESTAMP_TO_DATE, FilterCompiler.class, "timestampToDate", "(J)J");
+    }
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.GeoHashIndexReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderRecord;
+import io.questdb.cairo.TableReaderSelectedColumnRecord;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Rows of data frame with geohash in any of value ranges. Rows geohash index covers are read from the index
+ * and sorted, the rest of data frame rows, e.g. rows out of order commit merged into partition, are scanned.
+ */
+class GeoHashIndexRowCursor implements RowCursor {
+    private final int columnIndex;
+    private final Function within;
+    private final LongList valueRanges;
+    private final Function filter;
+    private final TableReaderSelectedColumnRecord filterRecord;
+    private final TableReaderRecord scanRecord = new TableReaderRecord();
+    private final LongList rows = new LongList();
+    private TableReader reader;
+    private int rowIndex;
+    private long scanRow;
+    private long scanHi;
+    private long rowid;
+
+    GeoHashIndexRowCursor(int columnIndex, Function within, LongList valueRanges, @Nullable Function filter, IntList filterColumnIndexes) {
+        this.columnIndex = columnIndex;
+        this.within = within;
+        this.valueRanges = valueRanges;
+        this.filter = filter;
+        this.filterRecord = filter != null ? new TableReaderSelectedColumnRecord(filterColumnIndexes) : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            final long row;
+            if (rowIndex < rows.size()) {
+                row = rows.getQuick(rowIndex++);
+                // overlapping prefixes find row more than once
+                if (row == rowid) {
+                    continue;
+                }
+            } else if (scanRow < scanHi) {
+                row = scanRow++;
+                scanRecord.setRecordIndex(row);
+                if (!within.getBool(scanRecord)) {
+                    continue;
+                }
+            } else {
+                return false;
+            }
+            rowid = row;
+            if (filter == null) {
+                return true;
+            }
+            filterRecord.setRecordIndex(row);
+            if (filter.getBool(filterRecord)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long next() {
+        return rowid;
+    }
+
+    GeoHashIndexRowCursor of(DataFrame dataFrame) {
+        final int partitionIndex = dataFrame.getPartitionIndex();
+        final long lo = dataFrame.getRowLo();
+        final long hi = dataFrame.getRowHi();
+        final GeoHashIndexReader indexReader = reader.getGeoHashIndex(partitionIndex, columnIndex);
+        rows.clear();
+        rowIndex = 0;
+        rowid = -1;
+        long indexedHi = lo;
+        if (indexReader != null) {
+            indexedHi = Math.max(lo, Math.min(hi, indexReader.getRows(valueRanges, lo, hi, rows)));
+            rows.sort();
+        }
+        scanRow = indexedHi;
+        scanHi = hi;
+        scanRecord.jumpTo(partitionIndex, 0);
+        if (filterRecord != null) {
+            filterRecord.jumpTo(partitionIndex, 0);
+        }
+        return this;
+    }
+
+    void of(TableReader reader) {
+        this.reader = reader;
+        scanRecord.of(reader);
+        if (filterRecord != null) {
+            filterRecord.of(reader);
+        }
+    }
+}
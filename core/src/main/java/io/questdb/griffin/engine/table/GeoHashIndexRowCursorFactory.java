@@ -0,0 +1,78 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.GeoHashIndexUtils;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Looks up rows with geohash that has any of given prefixes.
+ */
+public class GeoHashIndexRowCursorFactory implements RowCursorFactory {
+    private final GeoHashIndexRowCursor cursor;
+
+    /**
+     * @param columnIndex         reader index of geohash column
+     * @param within              matches geohash of reader record against the prefixes
+     * @param prefixes            pairs of normalized prefix and mask, see {@link io.questdb.cairo.GeoHashes#addNormalizedGeoPrefix}
+     * @param filter              optional filter of rows
+     * @param filterColumnIndexes reader indexes of columns filter refers to
+     */
+    public GeoHashIndexRowCursorFactory(
+            int columnIndex,
+            Function within,
+            LongList prefixes,
+            @Nullable Function filter,
+            IntList filterColumnIndexes
+    ) {
+        final LongList valueRanges = new LongList(prefixes.size());
+        for (int i = 0, n = prefixes.size(); i < n; i += 2) {
+            GeoHashIndexUtils.addPrefixRange(prefixes.getQuick(i), prefixes.getQuick(i + 1), valueRanges);
+        }
+        this.cursor = new GeoHashIndexRowCursor(columnIndex, within, valueRanges, filter, filterColumnIndexes);
+    }
+
+    @Override
+    public RowCursor getCursor(DataFrame dataFrame) {
+        return cursor.of(dataFrame);
+    }
+
+    @Override
+    public boolean isEntity() {
+        return false;
+    }
+
+    @Override
+    public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        cursor.of(tableReader);
+    }
+}
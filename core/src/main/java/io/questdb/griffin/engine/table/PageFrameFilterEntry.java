@@ -0,0 +1,286 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Filters slice of a page frame, e.g. [rowLo, rowHi) rows of the frame, and collects
+ * partition-local row ids of the matching rows. Entries are published to workers
+ * via the page frame filter queue. Owner of the entry and a worker race to claim
+ * the entry, the loser backs off. Worker claims the entry using sequence number it
+ * found in the queue. When the entry is recycled this sequence number changes, which
+ * prevents stale queue items from running recycled entry.
+ * <p>
+ * When filter is compiled, frames without column tops are filtered by compiled
+ * filter, the rest are filtered by the function tree.
+ * <p>
+ * When entry has reducers, matching rows are handed to the reducer of the slot
+ * that runs the entry. Row id list of the entry is then the reducer's output, it stays
+ * empty unless the reducer appends to it. Filter is optional in this mode, without it
+ * every row of the slice is reduced.
+ */
+public class PageFrameFilterEntry implements Closeable {
+    private static final long STATE_OFFSET;
+    private static final int STATE_CLAIMED = -1;
+    private final LongList pageAddresses = new LongList();
+    private final LongList indexPageAddresses = new LongList();
+    private final DirectLongList rows;
+    // frame-local indexes of rows matching compiled filter, used when rows are reduced
+    private final DirectLongList filteredRows;
+    private final ObjList<Function> filters;
+    private final ObjList<PageFrameRecord> records;
+    private final CompiledFilter compiledFilter;
+    private final ObjList<Function> operands;
+    private ObjList<? extends PageFrameReducer> reducers;
+    private int sequence;
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile int state = STATE_CLAIMED;
+    private volatile boolean done = true;
+    private Throwable error;
+    private int partitionIndex;
+    private long partitionLo;
+    private long rowLo;
+    private long rowHi;
+    private boolean columnTops;
+
+    /**
+     * @param filters filter function instance for each worker slot, functions must not be shared between slots,
+     *                null when entry is only used with reducers
+     * @param records page frame record for each worker slot
+     * @param compiledFilter compiled filter shared by all slots, can be null
+     * @param operands operands of compiled filter
+     * @param rowsCapacity initial capacity of row id list
+     */
+    public PageFrameFilterEntry(
+            @Nullable ObjList<Function> filters,
+            ObjList<PageFrameRecord> records,
+            @Nullable CompiledFilter compiledFilter,
+            @Nullable ObjList<Function> operands,
+            long rowsCapacity
+    ) {
+        this.filters = filters;
+        this.records = records;
+        this.compiledFilter = compiledFilter;
+        this.operands = operands;
+        this.rows = new DirectLongList(rowsCapacity);
+        this.filteredRows = compiledFilter != null ? new DirectLongList(rowsCapacity) : null;
+    }
+
+    /**
+     * Cancels entry if it has not been claimed yet. After successful cancellation entry
+     * is done and has no rows.
+     *
+     * @return true when entry is cancelled or false if it was claimed by another thread before us
+     */
+    public boolean cancel() {
+        if (tryLock(sequence)) {
+            rows.clear();
+            done = true;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        rows.close();
+        Misc.free(filteredRows);
+    }
+
+    public long getPageAddress(int columnIndex) {
+        return pageAddresses.getQuick(columnIndex);
+    }
+
+    public long getIndexPageAddress(int columnIndex) {
+        return indexPageAddresses.getQuick(columnIndex);
+    }
+
+    public int getPartitionIndex() {
+        return partitionIndex;
+    }
+
+    public long getPartitionLo() {
+        return partitionLo;
+    }
+
+    public DirectLongList getRows() {
+        return rows;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public void rethrowError() {
+        final Throwable th = error;
+        if (th != null) {
+            error = null;
+            if (th instanceof RuntimeException) {
+                throw (RuntimeException) th;
+            }
+            if (th instanceof Error) {
+                throw (Error) th;
+            }
+            throw new RuntimeException(th);
+        }
+    }
+
+    /**
+     * Called by owner of the entry. Owner uses the last slot, which no worker can run with.
+     *
+     * @param slot index of filter and record instances to use
+     * @return true when this call executed the entry
+     */
+    public boolean run(int slot) {
+        if (tryLock(sequence)) {
+            execute(slot);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called by workers.
+     *
+     * @param sequence publication sequence found in the queue
+     * @param slot     index of filter and record instances to use, usually worker id
+     * @return true when this call executed the entry
+     */
+    public boolean run(int sequence, int slot) {
+        // the last slot belongs to the owner, workers outside of the pool this entry
+        // was sized for leave the entry to the owner
+        if (slot < records.size() - 1 && tryLock(sequence)) {
+            execute(slot);
+            return true;
+        }
+        return false;
+    }
+
+    void of(PageFrame frame, int columnCount, long rowLo, long rowHi, int sequence) {
+        pageAddresses.setPos(columnCount);
+        indexPageAddresses.setPos(columnCount);
+        columnTops = false;
+        for (int i = 0; i < columnCount; i++) {
+            final long pageAddress = frame.getPageAddress(i);
+            pageAddresses.setQuick(i, pageAddress);
+            indexPageAddresses.setQuick(i, frame.getIndexPageAddress(i));
+            columnTops |= pageAddress == 0;
+        }
+        this.partitionIndex = frame.getPartitionIndex();
+        this.partitionLo = frame.getPartitionLo();
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.error = null;
+        this.sequence = sequence;
+        this.done = false;
+        // publish state last, it makes entry claimable
+        this.state = sequence;
+    }
+
+    int getSequence() {
+        return sequence;
+    }
+
+    void setReducers(@Nullable ObjList<? extends PageFrameReducer> reducers) {
+        assert reducers != null || filters != null;
+        this.reducers = reducers;
+    }
+
+    private void execute(int slot) {
+        try {
+            rows.clear();
+            final PageFrameRecord record = records.getQuick(slot);
+            if (reducers != null) {
+                reduce(slot, record);
+            } else {
+                filter(filters.getQuick(slot), record);
+            }
+        } catch (Throwable th) {
+            error = th;
+        } finally {
+            done = true;
+        }
+    }
+
+    private void filter(Function filter, PageFrameRecord record) {
+        if (compiledFilter != null && !columnTops) {
+            compiledFilter.filter(pageAddresses, operands, rowLo, rowHi, partitionLo, rows);
+            return;
+        }
+        record.of(this);
+        for (long r = rowLo; r < rowHi; r++) {
+            record.setRowIndex(r);
+            if (filter.getBool(record)) {
+                rows.add(partitionLo + r);
+            }
+        }
+    }
+
+    private void reduce(int slot, PageFrameRecord record) {
+        final PageFrameReducer reducer = reducers.getQuick(slot);
+        record.of(this);
+        if (filters == null) {
+            for (long r = rowLo; r < rowHi; r++) {
+                record.setRowIndex(r);
+                reducer.reduce(record, rows);
+            }
+            return;
+        }
+
+        if (compiledFilter != null && !columnTops) {
+            // frame-local row indexes
+            filteredRows.clear();
+            compiledFilter.filter(pageAddresses, operands, rowLo, rowHi, 0, filteredRows);
+            for (long i = 0, n = filteredRows.size(); i < n; i++) {
+                record.setRowIndex(filteredRows.get(i));
+                reducer.reduce(record, rows);
+            }
+            return;
+        }
+
+        final Function filter = filters.getQuick(slot);
+        for (long r = rowLo; r < rowHi; r++) {
+            record.setRowIndex(r);
+            if (filter.getBool(record)) {
+                reducer.reduce(record, rows);
+            }
+        }
+    }
+
+    private boolean tryLock(int sequence) {
+        return Unsafe.cas(this, STATE_OFFSET, sequence, STATE_CLAIMED);
+    }
+
+    static {
+        STATE_OFFSET = Unsafe.getFieldOffset(PageFrameFilterEntry.class, "state");
+    }
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.DirectCharSequence;
+
+/**
+ * Record over the raw column pages of a page frame. Unlike reader-backed records, this
+ * record keeps its own string and binary views, which makes it safe to have several
+ * instances reading the same table concurrently. Symbol values are not available, symbol
+ * columns can only be read as int keys.
+ */
+public class PageFrameRecord implements Record {
+    private final IntList columnShifts;
+    private final ObjList<DirectCharSequence> csViewsA = new ObjList<>();
+    private final ObjList<DirectCharSequence> csViewsB = new ObjList<>();
+    private final ObjList<DirectBinarySequence> bsViews = new ObjList<>();
+    private final ObjList<Long256Impl> longs256A = new ObjList<>();
+    private final ObjList<Long256Impl> longs256B = new ObjList<>();
+    private PageFrameFilterEntry frame;
+    private long rowIndex;
+
+    public PageFrameRecord(IntList columnShifts) {
+        this.columnShifts = columnShifts;
+        final int columnCount = columnShifts.size();
+        for (int i = 0; i < columnCount; i++) {
+            csViewsA.add(new DirectCharSequence());
+            csViewsB.add(new DirectCharSequence());
+            bsViews.add(new DirectBinarySequence());
+            longs256A.add(new Long256Impl());
+            longs256B.add(new Long256Impl());
+        }
+    }
+
+    @Override
+    public BinarySequence getBin(int columnIndex) {
+        final long address = getVarAddress(columnIndex);
+        if (address != 0) {
+            final long len = Unsafe.getUnsafe().getLong(address);
+            if (len != TableUtils.NULL_LEN) {
+                return bsViews.getQuick(columnIndex).of(address + Long.BYTES, len);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long getBinLen(int columnIndex) {
+        final long address = getVarAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getLong(address) : TableUtils.NULL_LEN;
+    }
+
+    @Override
+    public boolean getBool(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 && Unsafe.getUnsafe().getByte(address + rowIndex) == 1;
+    }
+
+    @Override
+    public byte getByte(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getByte(address + rowIndex) : 0;
+    }
+
+    @Override
+    public char getChar(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getChar(address + (rowIndex << 1)) : 0;
+    }
+
+    @Override
+    public long getDate(int columnIndex) {
+        return getLong(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getDouble(address + (rowIndex << 3)) : Double.NaN;
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getFloat(address + (rowIndex << 2)) : Float.NaN;
+    }
+
+    @Override
+    public byte getGeoByte(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getByte(address + rowIndex) : GeoHashes.BYTE_NULL;
+    }
+
+    @Override
+    public int getGeoInt(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getInt(address + (rowIndex << 2)) : GeoHashes.INT_NULL;
+    }
+
+    @Override
+    public long getGeoLong(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getLong(address + (rowIndex << 3)) : GeoHashes.NULL;
+    }
+
+    @Override
+    public short getGeoShort(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getShort(address + (rowIndex << 1)) : GeoHashes.SHORT_NULL;
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getInt(address + (rowIndex << 2)) : Numbers.INT_NaN;
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getLong(address + (rowIndex << 3)) : Numbers.LONG_NaN;
+    }
+
+    @Override
+    public void getLong256(int columnIndex, CharSink sink) {
+        final long address = frame.getPageAddress(columnIndex);
+        if (address != 0) {
+            final long p = address + (rowIndex << columnShifts.getQuick(columnIndex));
+            Numbers.appendLong256(
+                    Unsafe.getUnsafe().getLong(p),
+                    Unsafe.getUnsafe().getLong(p + Long.BYTES),
+                    Unsafe.getUnsafe().getLong(p + Long.BYTES * 2),
+                    Unsafe.getUnsafe().getLong(p + Long.BYTES * 3),
+                    sink
+            );
+        }
+    }
+
+    @Override
+    public Long256 getLong256A(int columnIndex) {
+        return getLong256(columnIndex, longs256A.getQuick(columnIndex));
+    }
+
+    @Override
+    public Long256 getLong256B(int columnIndex) {
+        return getLong256(columnIndex, longs256B.getQuick(columnIndex));
+    }
+
+    @Override
+    public long getRowId() {
+        return Rows.toRowID(frame.getPartitionIndex(), frame.getPartitionLo() + rowIndex);
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        final long address = frame.getPageAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getShort(address + (rowIndex << 1)) : 0;
+    }
+
+    @Override
+    public CharSequence getStr(int columnIndex) {
+        return getStr(columnIndex, csViewsA.getQuick(columnIndex));
+    }
+
+    @Override
+    public CharSequence getStrB(int columnIndex) {
+        return getStr(columnIndex, csViewsB.getQuick(columnIndex));
+    }
+
+    @Override
+    public int getStrLen(int columnIndex) {
+        final long address = getVarAddress(columnIndex);
+        return address != 0 ? Unsafe.getUnsafe().getInt(address) : TableUtils.NULL_LEN;
+    }
+
+    @Override
+    public long getTimestamp(int columnIndex) {
+        return getLong(columnIndex);
+    }
+
+    public void of(PageFrameFilterEntry frame) {
+        this.frame = frame;
+    }
+
+    public void setRowIndex(long rowIndex) {
+        this.rowIndex = rowIndex;
+    }
+
+    private Long256 getLong256(int columnIndex, Long256Impl long256) {
+        final long address = frame.getPageAddress(columnIndex);
+        if (address != 0) {
+            final long p = address + (rowIndex << columnShifts.getQuick(columnIndex));
+            long256.setAll(
+                    Unsafe.getUnsafe().getLong(p),
+                    Unsafe.getUnsafe().getLong(p + Long.BYTES),
+                    Unsafe.getUnsafe().getLong(p + Long.BYTES * 2),
+                    Unsafe.getUnsafe().getLong(p + Long.BYTES * 3)
+            );
+            return long256;
+        }
+        return Long256Impl.NULL_LONG256;
+    }
+
+    private CharSequence getStr(int columnIndex, DirectCharSequence view) {
+        final long address = getVarAddress(columnIndex);
+        if (address != 0) {
+            final int len = Unsafe.getUnsafe().getInt(address);
+            if (len != TableUtils.NULL_LEN) {
+                final long lo = address + Vm.STRING_LENGTH_BYTES;
+                return view.of(lo, lo + len * 2L);
+            }
+        }
+        return null;
+    }
+
+    private long getVarAddress(int columnIndex) {
+        final long indexAddress = frame.getIndexPageAddress(columnIndex);
+        if (indexAddress != 0) {
+            // index page contains offsets into the whole data file, data page starts at the offset of the first frame row
+            final long offset = Unsafe.getUnsafe().getLong(indexAddress + (rowIndex << 3)) - Unsafe.getUnsafe().getLong(indexAddress);
+            return frame.getPageAddress(columnIndex) + offset;
+        }
+        return 0;
+    }
+}
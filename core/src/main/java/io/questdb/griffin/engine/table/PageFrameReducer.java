@@ -0,0 +1,44 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.DirectLongList;
+
+/**
+ * Consumes page frame rows instead of collecting their ids, e.g. aggregates them into
+ * private state of a worker slot. Every slot has its own reducer instance, so reducers
+ * are never called concurrently.
+ */
+@FunctionalInterface
+public interface PageFrameReducer {
+    /**
+     * @param record row of the page frame
+     * @param output row list of the page frame entry, values appended to it are returned
+     *               to the owner of the cursor in frame order
+     */
+    void reduce(Record record, DirectLongList output);
+}
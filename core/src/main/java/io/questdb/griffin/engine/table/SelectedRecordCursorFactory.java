@@ -53,6 +53,10 @@ public class SelectedRecordCursorFactory extends AbstractRecordCursorFactory {
         base.close();
     }
 
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
         this.cursor.of(base.getCursor(executionContext));
@@ -0,0 +1,405 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.ZoneMapReader;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PartitionPruner;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.engine.functions.BinaryFunction;
+import io.questdb.griffin.engine.functions.NegatableBooleanFunction;
+import io.questdb.griffin.engine.functions.bind.NamedParameterLinkFunction;
+import io.questdb.griffin.engine.functions.bool.AndFunctionFactory;
+import io.questdb.griffin.engine.functions.bool.OrFunctionFactory;
+import io.questdb.griffin.engine.functions.columns.ColumnFunction;
+import io.questdb.griffin.engine.functions.eq.*;
+import io.questdb.griffin.engine.functions.lt.LtDoubleVVFunctionFactory;
+import io.questdb.griffin.engine.functions.lt.LtIntFunctionFactory;
+import io.questdb.griffin.engine.functions.lt.LtTimestampFunctionFactory;
+import io.questdb.std.IntList;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjIntHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Evaluates filter against per-partition column statistics. Partition is skipped when statistics
+ * prove that no row of the partition can pass the filter. Only comparisons of a column with
+ * a constant, runtime constant or bind variable, combined via AND and OR, are understood. Anything
+ * else in AND is ignored, which keeps the other side useful, and anything else in OR disables pruning
+ * of the whole OR.
+ * <p>
+ * Operators are identified by factory of the function, same as in {@link FilterCompiler}, so value
+ * conversions and null handling are those of the function being replaced. Values of constants are read
+ * when partition is checked, which is after the filter is initialised by the cursor.
+ */
+public class ZoneMapPruner implements PartitionPruner {
+    private static final int OP_AND = 0;
+    private static final int OP_OR = 1;
+    private static final int OP_EQ_BYTE = 2;
+    private static final int OP_EQ_SHORT = 3;
+    private static final int OP_EQ_INT = 4;
+    private static final int OP_EQ_LONG = 5;
+    private static final int OP_EQ_TIMESTAMP = 6;
+    private static final int OP_LT_INT = 7;
+    private static final int OP_LT_TIMESTAMP = 8;
+    private static final int OP_LT_DOUBLE = 9;
+    private static final ObjIntHashMap<Class<?>> operators = new ObjIntHashMap<>();
+    private final Node root;
+
+    private ZoneMapPruner(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param filter        filter applied to every row of the table scan
+     * @param metadata      metadata of the table scan, column functions of the filter index this metadata
+     * @param columnIndexes reader column indexes of metadata columns
+     * @return pruner or null when nothing in the filter can be checked against statistics
+     */
+    @Nullable
+    public static ZoneMapPruner of(Function filter, RecordMetadata metadata, IntList columnIndexes) {
+        final Node root = build(filter, metadata, columnIndexes);
+        return root != null ? new ZoneMapPruner(root) : null;
+    }
+
+    @Override
+    public boolean canSkip(TableReader reader, int partitionIndex) {
+        final ZoneMapReader zoneMap = reader.getZoneMap(partitionIndex);
+        return zoneMap != null && root.canSkip(zoneMap);
+    }
+
+    private static Node build(Function function, RecordMetadata metadata, IntList columnIndexes) {
+        final Class<?> factoryClass = function.getClass().getEnclosingClass();
+        final int op = factoryClass != null ? operators.get(factoryClass) : -1;
+        if (op == -1) {
+            return null;
+        }
+
+        final BinaryFunction binary = (BinaryFunction) function;
+        final Function left = binary.getLeft();
+        final Function right = binary.getRight();
+
+        switch (op) {
+            case OP_AND: {
+                final Node l = build(left, metadata, columnIndexes);
+                final Node r = build(right, metadata, columnIndexes);
+                if (l == null) {
+                    return r;
+                }
+                return r == null ? l : new AndNode(l, r);
+            }
+            case OP_OR: {
+                final Node l = build(left, metadata, columnIndexes);
+                if (l == null) {
+                    return null;
+                }
+                final Node r = build(right, metadata, columnIndexes);
+                return r == null ? null : new OrNode(l, r);
+            }
+            default:
+                break;
+        }
+
+        final boolean columnLeft;
+        final ColumnFunction column;
+        final Function operand;
+        if (left instanceof ColumnFunction && isOperand(right)) {
+            columnLeft = true;
+            column = (ColumnFunction) left;
+            operand = right;
+        } else if (right instanceof ColumnFunction && isOperand(left)) {
+            columnLeft = false;
+            column = (ColumnFunction) right;
+            operand = left;
+        } else {
+            return null;
+        }
+
+        final int metadataIndex = column.getColumnIndex();
+        if (metadataIndex < 0 || metadataIndex >= columnIndexes.size()) {
+            return null;
+        }
+        final int columnType = ColumnType.tagOf(metadata.getColumnType(metadataIndex));
+        if (!isSupported(op, columnType)) {
+            return null;
+        }
+
+        final boolean negated = ((NegatableBooleanFunction) function).isNegated();
+        final int columnIndex = columnIndexes.getQuick(metadataIndex);
+        switch (op) {
+            case OP_LT_DOUBLE:
+                return new LtDoubleNode(columnIndex, columnType, operand, negated, columnLeft);
+            case OP_LT_INT:
+            case OP_LT_TIMESTAMP:
+                return new LtLongNode(op, columnIndex, columnType, operand, negated, columnLeft);
+            default:
+                return new EqLongNode(op, columnIndex, columnType, operand, negated);
+        }
+    }
+
+    private static boolean isFloatingPoint(int columnType) {
+        return columnType == ColumnType.FLOAT || columnType == ColumnType.DOUBLE;
+    }
+
+    private static boolean isOperand(Function function) {
+        return function.isConstant() || function.isRuntimeConstant() || function instanceof NamedParameterLinkFunction;
+    }
+
+    private static boolean isSupported(int op, int columnType) {
+        if (!TableUtils.isZoneMapColumnType(columnType)) {
+            return false;
+        }
+        switch (op) {
+            case OP_EQ_BYTE:
+                return columnType == ColumnType.BYTE;
+            case OP_EQ_SHORT:
+                return columnType == ColumnType.BYTE || columnType == ColumnType.SHORT;
+            case OP_EQ_INT:
+            case OP_LT_INT:
+                return columnType == ColumnType.BYTE || columnType == ColumnType.SHORT || columnType == ColumnType.INT;
+            case OP_EQ_LONG:
+            case OP_EQ_TIMESTAMP:
+            case OP_LT_TIMESTAMP:
+                return !isFloatingPoint(columnType);
+            default:
+                // double comparison accepts every numeric column
+                return true;
+        }
+    }
+
+    private interface Node {
+        boolean canSkip(ZoneMapReader zoneMap);
+    }
+
+    private static class AndNode implements Node {
+        private final Node left;
+        private final Node right;
+
+        private AndNode(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean canSkip(ZoneMapReader zoneMap) {
+            return left.canSkip(zoneMap) || right.canSkip(zoneMap);
+        }
+    }
+
+    private static class OrNode implements Node {
+        private final Node left;
+        private final Node right;
+
+        private OrNode(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean canSkip(ZoneMapReader zoneMap) {
+            return left.canSkip(zoneMap) && right.canSkip(zoneMap);
+        }
+    }
+
+    /**
+     * Comparison in one of the integer domains, i.e. byte, short, int, long or timestamp. Statistics of
+     * integer columns are stored as longs, so they are the same in every domain, except DATE column,
+     * which is converted to micros when compared as timestamp.
+     */
+    private abstract static class LongNode implements Node {
+        protected final int op;
+        protected final int columnIndex;
+        protected final Function operand;
+        protected final boolean negated;
+        private final boolean dateToTimestamp;
+
+        private LongNode(int op, int columnIndex, int columnType, Function operand, boolean negated) {
+            this.op = op;
+            this.columnIndex = columnIndex;
+            this.operand = operand;
+            this.negated = negated;
+            this.dateToTimestamp = columnType == ColumnType.DATE && (op == OP_EQ_TIMESTAMP || op == OP_LT_TIMESTAMP);
+        }
+
+        @Override
+        public boolean canSkip(ZoneMapReader zoneMap) {
+            final long value;
+            final long nullValue;
+            switch (op) {
+                case OP_EQ_BYTE:
+                    value = operand.getByte(null);
+                    nullValue = Numbers.LONG_NaN;
+                    break;
+                case OP_EQ_SHORT:
+                    value = operand.getShort(null);
+                    nullValue = Numbers.LONG_NaN;
+                    break;
+                case OP_EQ_INT:
+                case OP_LT_INT:
+                    value = operand.getInt(null);
+                    nullValue = Numbers.INT_NaN;
+                    break;
+                case OP_EQ_LONG:
+                    value = operand.getLong(null);
+                    nullValue = Numbers.LONG_NaN;
+                    break;
+                default:
+                    value = operand.getTimestamp(null);
+                    nullValue = Numbers.LONG_NaN;
+                    break;
+            }
+
+            final long min = zoneMap.getMin(columnIndex);
+            final long max = zoneMap.getMax(columnIndex);
+            if (min > max) {
+                // there are no values other than nulls
+                return canSkipNulls(zoneMap, value == nullValue);
+            }
+            if (dateToTimestamp) {
+                return canSkip(zoneMap, value, value == nullValue, min * 1000L, max * 1000L);
+            }
+            return canSkip(zoneMap, value, value == nullValue, min, max);
+        }
+
+        protected abstract boolean canSkip(ZoneMapReader zoneMap, long value, boolean isNull, long min, long max);
+
+        protected abstract boolean canSkipNulls(ZoneMapReader zoneMap, boolean isNull);
+    }
+
+    private static class EqLongNode extends LongNode {
+        private EqLongNode(int op, int columnIndex, int columnType, Function operand, boolean negated) {
+            super(op, columnIndex, columnType, operand, negated);
+        }
+
+        @Override
+        protected boolean canSkip(ZoneMapReader zoneMap, long value, boolean isNull, long min, long max) {
+            final long nullCount = zoneMap.getNullCount(columnIndex);
+            if (isNull) {
+                // "= null" passes null rows only, "!= null" passes values only
+                return negated ? nullCount == zoneMap.getRowCount() : nullCount == 0;
+            }
+            if (negated) {
+                return nullCount == 0 && min == value && max == value;
+            }
+            return value < min || value > max;
+        }
+
+        @Override
+        protected boolean canSkipNulls(ZoneMapReader zoneMap, boolean isNull) {
+            // every row is null, they are not equal to any value
+            return negated == isNull;
+        }
+    }
+
+    private static class LtLongNode extends LongNode {
+        private final boolean columnLeft;
+
+        private LtLongNode(int op, int columnIndex, int columnType, Function operand, boolean negated, boolean columnLeft) {
+            super(op, columnIndex, columnType, operand, negated);
+            this.columnLeft = columnLeft;
+        }
+
+        @Override
+        protected boolean canSkip(ZoneMapReader zoneMap, long value, boolean isNull, long min, long max) {
+            // comparison with null is always false
+            if (isNull) {
+                return true;
+            }
+            if (columnLeft) {
+                return negated ? max < value : min >= value;
+            }
+            return negated ? min > value : max <= value;
+        }
+
+        @Override
+        protected boolean canSkipNulls(ZoneMapReader zoneMap, boolean isNull) {
+            return true;
+        }
+    }
+
+    private static class LtDoubleNode implements Node {
+        private final int columnIndex;
+        private final Function operand;
+        private final boolean negated;
+        private final boolean columnLeft;
+        private final boolean floatingPoint;
+
+        private LtDoubleNode(int columnIndex, int columnType, Function operand, boolean negated, boolean columnLeft) {
+            this.columnIndex = columnIndex;
+            this.operand = operand;
+            this.negated = negated;
+            this.columnLeft = columnLeft;
+            this.floatingPoint = isFloatingPoint(columnType);
+        }
+
+        @Override
+        public boolean canSkip(ZoneMapReader zoneMap) {
+            final double value = operand.getDouble(null);
+            // NaN is neither less nor greater or equal to anything
+            if (Double.isNaN(value)) {
+                return true;
+            }
+
+            final double min;
+            final double max;
+            if (floatingPoint) {
+                min = zoneMap.getMinDouble(columnIndex);
+                max = zoneMap.getMaxDouble(columnIndex);
+                if (min > max) {
+                    return true;
+                }
+            } else {
+                final long lMin = zoneMap.getMin(columnIndex);
+                final long lMax = zoneMap.getMax(columnIndex);
+                if (lMin > lMax) {
+                    return true;
+                }
+                min = lMin;
+                max = lMax;
+            }
+
+            if (columnLeft) {
+                return negated ? max < value : min >= value;
+            }
+            return negated ? min > value : max <= value;
+        }
+    }
+
+    static {
+        operators.put(AndFunctionFactory.class, OP_AND);
+        operators.put(OrFunctionFactory.class, OP_OR);
+        operators.put(EqByteFunctionFactory.class, OP_EQ_BYTE);
+        operators.put(EqShortFunctionFactory.class, OP_EQ_SHORT);
+        operators.put(EqIntFunctionFactory.class, OP_EQ_INT);
+        operators.put(EqLongFunctionFactory.class, OP_EQ_LONG);
+        operators.put(EqTimestampFunctionFactory.class, OP_EQ_TIMESTAMP);
+        operators.put(LtIntFunctionFactory.class, OP_LT_INT);
+        operators.put(LtTimestampFunctionFactory.class, OP_LT_TIMESTAMP);
+        operators.put(LtDoubleVVFunctionFactory.class, OP_LT_DOUBLE);
+    }
+}
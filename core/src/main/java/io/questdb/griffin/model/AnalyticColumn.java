@@ -30,9 +30,24 @@ import io.questdb.std.ObjectFactory;
 
 public final class AnalyticColumn extends QueryColumn {
     public final static ObjectFactory<AnalyticColumn> FACTORY = AnalyticColumn::new;
+    public static final int FRAMING_ROWS = 1;
+    public static final int FRAMING_RANGE = 2;
+    public static final int PRECEDING = 1;
+    public static final int CURRENT = 2;
+    public static final int FOLLOWING = 3;
     private final ObjList<ExpressionNode> partitionBy = new ObjList<>(2);
     private final ObjList<ExpressionNode> orderBy = new ObjList<>(2);
     private final IntList orderByDirection = new IntList(2);
+    // 0 when frame clause is omitted
+    private int framingMode;
+    private int framingModePos;
+    // bound offset expressions are null for UNBOUNDED and CURRENT ROW
+    private int rowsLoKind;
+    private int rowsLoKindPos;
+    private ExpressionNode rowsLoExpr;
+    private int rowsHiKind;
+    private int rowsHiKindPos;
+    private ExpressionNode rowsHiExpr;
 
     private AnalyticColumn() {
     }
@@ -48,6 +63,22 @@ public final class AnalyticColumn extends QueryColumn {
         partitionBy.clear();
         orderBy.clear();
         orderByDirection.clear();
+        framingMode = 0;
+        framingModePos = 0;
+        rowsLoKind = 0;
+        rowsLoKindPos = 0;
+        rowsLoExpr = null;
+        rowsHiKind = 0;
+        rowsHiKindPos = 0;
+        rowsHiExpr = null;
+    }
+
+    public int getFramingMode() {
+        return framingMode;
+    }
+
+    public int getFramingModePos() {
+        return framingModePos;
     }
 
     public ObjList<ExpressionNode> getPartitionBy() {
@@ -62,6 +93,47 @@ public final class AnalyticColumn extends QueryColumn {
         return orderByDirection;
     }
 
+    public ExpressionNode getRowsHiExpr() {
+        return rowsHiExpr;
+    }
+
+    public int getRowsHiKind() {
+        return rowsHiKind;
+    }
+
+    public int getRowsHiKindPos() {
+        return rowsHiKindPos;
+    }
+
+    public ExpressionNode getRowsLoExpr() {
+        return rowsLoExpr;
+    }
+
+    public int getRowsLoKind() {
+        return rowsLoKind;
+    }
+
+    public int getRowsLoKindPos() {
+        return rowsLoKindPos;
+    }
+
+    public void setFramingMode(int framingMode, int framingModePos) {
+        this.framingMode = framingMode;
+        this.framingModePos = framingModePos;
+    }
+
+    public void setRowsHi(int rowsHiKind, int rowsHiKindPos, ExpressionNode rowsHiExpr) {
+        this.rowsHiKind = rowsHiKind;
+        this.rowsHiKindPos = rowsHiKindPos;
+        this.rowsHiExpr = rowsHiExpr;
+    }
+
+    public void setRowsLo(int rowsLoKind, int rowsLoKindPos, ExpressionNode rowsLoExpr) {
+        this.rowsLoKind = rowsLoKind;
+        this.rowsLoKindPos = rowsLoKindPos;
+        this.rowsLoExpr = rowsLoExpr;
+    }
+
     @Override
     public AnalyticColumn of(CharSequence alias, ExpressionNode ast) {
         return (AnalyticColumn) super.of(alias, ast);
@@ -34,6 +34,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     public static final ObjectFactory<CreateTableModel> FACTORY = CreateTableModel::new;
     private static final int COLUMN_FLAG_CACHED = 1;
     private static final int COLUMN_FLAG_INDEXED = 2;
+    private static final int COLUMN_FLAG_DEDUP_KEY = 4;
+    private static final int COLUMN_FLAG_BLOOM_FILTER = 8;
+    private static final int COLUMN_FLAG_COMPOSITE_INDEX = 16;
+    private static final int COLUMN_FLAG_GEOHASH_INDEX = 32;
+    private static final int COLUMN_FLAG_COMPOSITE_INDEX_POSITION_SHIFT = 8;
     private final CharSequenceObjHashMap<ColumnCastModel> columnCastModels = new CharSequenceObjHashMap<>();
     private final LongList columnBits = new LongList();
     private final LongList columnHashes = new LongList();
@@ -46,6 +51,15 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private int maxUncommittedRows;
     private long commitLag;
     private boolean ignoreIfExists = false;
+    // materialized view definition, query is null for plain tables
+    private CharSequence matViewQuery;
+    private CharSequence matViewBaseTableName;
+    private int matViewBaseTableNameLo;
+    private int matViewBaseTableNameHi;
+    private CharSequence matViewSampleBy;
+    private long matViewSampleByOffset;
+    private CharSequence matViewNormalizedQuery;
+    private int compositeIndexColumnCount;
 
     private CreateTableModel() {
     }
@@ -96,6 +110,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         columnHashes.clear();
         columnNameIndexMap.clear();
         ignoreIfExists = false;
+        matViewQuery = null;
+        matViewBaseTableName = null;
+        matViewSampleBy = null;
+        matViewNormalizedQuery = null;
+        compositeIndexColumnCount = 0;
     }
 
     public CharSequenceObjHashMap<ColumnCastModel> getColumnCastModels() {
@@ -127,6 +146,31 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return (getLowAt(index * 2 + 1) & COLUMN_FLAG_INDEXED) != 0;
     }
 
+    @Override
+    public boolean isBloomFilterIndexed(int index) {
+        return (getLowAt(index * 2 + 1) & COLUMN_FLAG_BLOOM_FILTER) != 0;
+    }
+
+    @Override
+    public boolean isGeoHashIndexed(int index) {
+        return (getLowAt(index * 2 + 1) & COLUMN_FLAG_GEOHASH_INDEX) != 0;
+    }
+
+    @Override
+    public int getCompositeIndexPosition(int index) {
+        final int flags = getLowAt(index * 2 + 1);
+        return (flags & COLUMN_FLAG_COMPOSITE_INDEX) != 0 ? (flags >>> COLUMN_FLAG_COMPOSITE_INDEX_POSITION_SHIFT) & 0xff : -1;
+    }
+
+    public int getCompositeIndexColumnCount() {
+        return compositeIndexColumnCount;
+    }
+
+    @Override
+    public boolean isDedupKey(int index) {
+        return (getLowAt(index * 2 + 1) & COLUMN_FLAG_DEDUP_KEY) != 0;
+    }
+
     @Override
     public boolean isSequential(int columnIndex) {
         // todo: expose this flag on CREATE TABLE statement
@@ -197,6 +241,67 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         this.timestamp = timestamp;
     }
 
+    public CharSequence getMatViewBaseTableName() {
+        return matViewBaseTableName;
+    }
+
+    public int getMatViewBaseTableNameHi() {
+        return matViewBaseTableNameHi;
+    }
+
+    public int getMatViewBaseTableNameLo() {
+        return matViewBaseTableNameLo;
+    }
+
+    public CharSequence getMatViewNormalizedQuery() {
+        return matViewNormalizedQuery;
+    }
+
+    public CharSequence getMatViewQuery() {
+        return matViewQuery;
+    }
+
+    public CharSequence getMatViewSampleBy() {
+        return matViewSampleBy;
+    }
+
+    public long getMatViewSampleByOffset() {
+        return matViewSampleByOffset;
+    }
+
+    public boolean isMatView() {
+        return matViewQuery != null;
+    }
+
+    /**
+     * Marks this model as materialized view definition.
+     *
+     * @param query             text of view query
+     * @param baseTableName     name of the table view is computed from
+     * @param baseTableNameLo   position of base table name in the query text
+     * @param baseTableNameHi   position right after base table name in the query text
+     * @param sampleBy          SAMPLE BY interval of the query
+     * @param sampleByOffset    calendar alignment offset in microseconds
+     * @param normalizedQuery   text of parsed query model, used to match queries against the view
+     */
+    public void setMatView(
+            CharSequence query,
+            CharSequence baseTableName,
+            int baseTableNameLo,
+            int baseTableNameHi,
+            CharSequence sampleBy,
+            long sampleByOffset,
+            CharSequence normalizedQuery
+    ) {
+        this.matViewQuery = query;
+        this.matViewBaseTableName = baseTableName;
+        this.matViewBaseTableNameLo = baseTableNameLo;
+        this.matViewBaseTableNameHi = baseTableNameHi;
+        this.matViewSampleBy = sampleBy;
+        this.matViewSampleByOffset = sampleByOffset;
+        this.matViewNormalizedQuery = normalizedQuery;
+    }
+
     public boolean isIgnoreIfExists() {
         return ignoreIfExists;
     }
@@ -213,6 +318,27 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         setIndexFlags0(columnIndex * 2 + 1, indexFlag, indexValueBlockSize);
     }
 
+    public void setBloomFilterFlag(int columnIndex) {
+        final int index = columnIndex * 2 + 1;
+        columnBits.setQuick(index, Numbers.encodeLowHighInts(getLowAt(index) | COLUMN_FLAG_BLOOM_FILTER, getHighAt(index)));
+    }
+
+    public void setGeoHashIndexFlag(int columnIndex) {
+        final int index = columnIndex * 2 + 1;
+        columnBits.setQuick(index, Numbers.encodeLowHighInts(getLowAt(index) | COLUMN_FLAG_GEOHASH_INDEX, getHighAt(index)));
+    }
+
+    public void addCompositeIndexColumn(int columnIndex) {
+        final int index = columnIndex * 2 + 1;
+        final int flags = getLowAt(index) | COLUMN_FLAG_COMPOSITE_INDEX | (compositeIndexColumnCount++ << COLUMN_FLAG_COMPOSITE_INDEX_POSITION_SHIFT);
+        columnBits.setQuick(index, Numbers.encodeLowHighInts(flags, getHighAt(index)));
+    }
+
+    public void setDedupKeyFlag(int columnIndex) {
+        final int index = columnIndex * 2 + 1;
+        columnBits.setQuick(index, Numbers.encodeLowHighInts(getLowAt(index) | COLUMN_FLAG_DEDUP_KEY, getHighAt(index)));
+    }
+
     public void symbolCapacity(int capacity) {
         final int pos = columnBits.size() - 2;
         assert pos > -1;
@@ -223,7 +349,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
 
     @Override
     public void toSink(CharSink sink) {
-        sink.put("create table ");
+        sink.put(isMatView() ? "create materialized view " : "create table ");
         sink.put(getName().token);
         if (getQueryModel() != null) {
             sink.put(" as (");
@@ -294,6 +420,24 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
             sink.put(')');
         }
 
+        for (int position = 0; position < compositeIndexColumnCount; position++) {
+            for (int i = 0, n = getColumnCount(); i < n; i++) {
+                if (getCompositeIndexPosition(i) == position) {
+                    sink.put(position == 0 ? ", index(" : ", ");
+                    sink.put(getColumnName(i));
+                }
+            }
+        }
+        if (compositeIndexColumnCount > 0) {
+            sink.put(')');
+        }
+
+        for (int i = 0, n = getColumnCount(); i < n; i++) {
+            if (isGeoHashIndexed(i)) {
+                sink.put(", index(").put(getColumnName(i)).put(')');
+            }
+        }
+
         if (getTimestamp() != null) {
             sink.put(" timestamp(");
             sink.put(getTimestamp().token);
@@ -303,6 +447,30 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         if (partitionBy != null) {
             sink.put(" partition by ").put(partitionBy.token);
         }
+
+        boolean bloomFilter = false;
+        for (int i = 0, n = getColumnCount(); i < n; i++) {
+            if (isBloomFilterIndexed(i)) {
+                sink.put(bloomFilter ? ", " : " bloom filter(");
+                sink.put(getColumnName(i));
+                bloomFilter = true;
+            }
+        }
+        if (bloomFilter) {
+            sink.put(')');
+        }
+
+        boolean dedup = false;
+        for (int i = 0, n = getColumnCount(); i < n; i++) {
+            if (isDedupKey(i)) {
+                sink.put(dedup ? ", " : " dedup upsert keys(");
+                sink.put(getColumnName(i));
+                dedup = true;
+            }
+        }
+        if (dedup) {
+            sink.put(')');
+        }
     }
 
     private int getHighAt(int index) {
@@ -40,6 +40,11 @@ public class IntrinsicModel implements Mutable {
     public final CharSequenceHashSet keyExcludedValues = new CharSequenceHashSet();
     public final IntList keyValuePositions = new IntList();
     public final IntList keyExcludedValuePositions = new IntList();
+    // values of all composite index columns in index key order, null stands for NULL
+    public final ObjList<CharSequence> compositeKeyValues = new ObjList<>();
+    public final IntList compositeKeyValuePositions = new IntList();
+    // geohash index column index and type followed by pairs of normalized prefix and mask
+    public final LongList geoHashPrefixes = new LongList();
     public CharSequence keyColumn;
     public ExpressionNode filter;
     public int intrinsicValue = UNDEFINED;
@@ -53,6 +58,9 @@ public class IntrinsicModel implements Mutable {
         keyExcludedValues.clear();
         keyValuePositions.clear();
         keyExcludedValuePositions.clear();
+        compositeKeyValues.clear();
+        compositeKeyValuePositions.clear();
+        geoHashPrefixes.clear();
         runtimeIntervalBuilder.clear();
         filter = null;
         intrinsicValue = UNDEFINED;
@@ -759,6 +759,19 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         return modelTypeName.get(selectModelType);
     }
 
+    private static void frameBoundToSink(CharSink sink, int kind, ExpressionNode expr) {
+        if (kind == AnalyticColumn.CURRENT) {
+            sink.put("current row");
+            return;
+        }
+        if (expr != null) {
+            expr.toSink(sink);
+        } else {
+            sink.put("unbounded");
+        }
+        sink.put(kind == AnalyticColumn.PRECEDING ? " preceding" : " following");
+    }
+
     private void sinkColumns(CharSink sink, ObjList<QueryColumn> columns) {
         for (int i = 0, n = columns.size(); i < n; i++) {
             if (i > 0) {
@@ -806,6 +819,17 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                             }
                         }
                     }
+
+                    if (ac.getFramingMode() != 0) {
+                        if (partitionBy.size() > 0 || orderBy.size() > 0) {
+                            sink.put(' ');
+                        }
+                        sink.put(ac.getFramingMode() == AnalyticColumn.FRAMING_ROWS ? "rows" : "range");
+                        sink.put(" between ");
+                        frameBoundToSink(sink, ac.getRowsLoKind(), ac.getRowsLoExpr());
+                        sink.put(" and ");
+                        frameBoundToSink(sink, ac.getRowsHiKind(), ac.getRowsHiExpr());
+                    }
                     sink.put(')');
                 }
             } else {
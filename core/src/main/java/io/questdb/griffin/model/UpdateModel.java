@@ -0,0 +1,103 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.model;
+
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+
+/**
+ * UPDATE statement. New values of updated columns are columns of the query model, which selects
+ * them from updated table in the order of updated columns.
+ */
+public class UpdateModel implements ExecutionModel, Mutable, Sinkable {
+    public static final ObjectFactory<UpdateModel> FACTORY = UpdateModel::new;
+    private final CharSequenceHashSet columnSet = new CharSequenceHashSet();
+    private final IntList columnPositions = new IntList();
+    private ExpressionNode tableName;
+    private QueryModel queryModel;
+
+    private UpdateModel() {
+    }
+
+    public boolean addColumn(CharSequence columnName, int columnPosition) {
+        if (columnSet.add(columnName)) {
+            columnPositions.add(columnPosition);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        this.tableName = null;
+        this.queryModel = null;
+        this.columnSet.clear();
+        this.columnPositions.clear();
+    }
+
+    public int getColumnPosition(int columnIndex) {
+        return columnPositions.getQuick(columnIndex);
+    }
+
+    public CharSequenceHashSet getColumnSet() {
+        return columnSet;
+    }
+
+    @Override
+    public int getModelType() {
+        return UPDATE;
+    }
+
+    public QueryModel getQueryModel() {
+        return queryModel;
+    }
+
+    public void setQueryModel(QueryModel queryModel) {
+        this.queryModel = queryModel;
+    }
+
+    public ExpressionNode getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(ExpressionNode tableName) {
+        this.tableName = tableName;
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("update ").put(tableName.token).put(" set ");
+        for (int i = 0, n = columnSet.size(); i < n; i++) {
+            if (i > 0) {
+                sink.put(", ");
+            }
+            sink.put(columnSet.get(i));
+        }
+        if (queryModel != null) {
+            sink.put(' ');
+            queryModel.toSink(sink);
+        }
+    }
+}
@@ -54,12 +54,32 @@ public class BytecodeAssembler {
     private static final int lstore_1 = 0x40;
     private static final int lstore_2 = 0x41;
     private static final int lstore_3 = 0x42;
+    private static final int fstore = 0x38;
+    private static final int fstore_0 = 0x43;
+    private static final int fstore_1 = 0x44;
+    private static final int fstore_2 = 0x45;
+    private static final int fstore_3 = 0x46;
+    private static final int dstore = 0x39;
+    private static final int dstore_0 = 0x47;
+    private static final int dstore_1 = 0x48;
+    private static final int dstore_2 = 0x49;
+    private static final int dstore_3 = 0x4a;
     private static final int iinc = 0x84;
     private static final int lload = 0x16;
     private static final int lload_0 = 0x1e;
     private static final int lload_1 = 0x1f;
     private static final int lload_2 = 0x20;
     private static final int lload_3 = 0x21;
+    private static final int fload = 0x17;
+    private static final int fload_0 = 0x22;
+    private static final int fload_1 = 0x23;
+    private static final int fload_2 = 0x24;
+    private static final int fload_3 = 0x25;
+    private static final int dload = 0x18;
+    private static final int dload_0 = 0x26;
+    private static final int dload_1 = 0x27;
+    private static final int dload_2 = 0x28;
+    private static final int dload_3 = 0x29;
     private static final int iload = 0x15;
     private static final int iload_0 = 0x1a;
     private static final int iload_1 = 0x1b;
@@ -91,6 +111,10 @@ public class BytecodeAssembler {
         this.poolCount = 1;
     }
 
+    public void aconst_null() {
+        putByte(0x01);
+    }
+
     public void aload(int value) {
         optimisedIO(aload_0, aload_1, aload_2, aload_3, aload, value);
     }
@@ -100,6 +124,11 @@ public class BytecodeAssembler {
         putShort(offset);
     }
 
+    public void checkcast(int classIndex) {
+        putByte(0xc0);
+        putShort(classIndex);
+    }
+
     public void d2f() {
         putShort(0x90);
     }
@@ -153,6 +182,14 @@ public class BytecodeAssembler {
         putShort(0);
     }
 
+    public void dload(int value) {
+        optimisedIO(dload_0, dload_1, dload_2, dload_3, dload, value);
+    }
+
+    public void dstore(int value) {
+        optimisedIO(dstore_0, dstore_1, dstore_2, dstore_3, dstore, value);
+    }
+
     public void dump(String path) {
         try (FileOutputStream fos = new FileOutputStream(path)) {
             int p = buf.position();
@@ -203,6 +240,14 @@ public class BytecodeAssembler {
         putShort(O_POOL_COUNT, poolCount);
     }
 
+    public void fload(int value) {
+        optimisedIO(fload_0, fload_1, fload_2, fload_3, fload, value);
+    }
+
+    public void fstore(int value) {
+        optimisedIO(fstore_0, fstore_1, fstore_2, fstore_3, fstore, value);
+    }
+
     public void full_frame(int offset) {
         putByte(0xff);
         putShort(offset);
@@ -270,6 +315,14 @@ public class BytecodeAssembler {
         return genericGoto(0xa0);
     }
 
+    public int ifeq() {
+        return genericGoto(0x99);
+    }
+
+    public int ifge() {
+        return genericGoto(0x9c);
+    }
+
     public int ifne() {
         return genericGoto(0x9a);
     }
@@ -354,6 +407,10 @@ public class BytecodeAssembler {
         putShort(0x88);
     }
 
+    public void ladd() {
+        putByte(0x61);
+    }
+
     public void lcmp() {
         putByte(0x94);
     }
@@ -362,6 +419,10 @@ public class BytecodeAssembler {
         putByte(0x09);
     }
 
+    public void lconst_1() {
+        putByte(0x0a);
+    }
+
     public void ldc(int index) {
         putByte(0x12);
         putByte(index);
@@ -534,6 +595,14 @@ public class BytecodeAssembler {
         buf.put((byte) b);
     }
 
+    public void putITEM_Double() {
+        putByte(0x03);
+    }
+
+    public void putITEM_Float() {
+        putByte(0x02);
+    }
+
     public void putITEM_Integer() {
         putByte(0x01);
     }
@@ -41,6 +41,11 @@ public final class Files {
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
     public static final char SEPARATOR;
+    // access pattern advice for mapped memory, values are those of POSIX_MADV_*
+    public static final int MADV_NORMAL = 0;
+    public static final int MADV_RANDOM = 1;
+    public static final int MADV_SEQUENTIAL = 2;
+    public static final int MADV_WILLNEED = 3;
 
     static final AtomicLong OPEN_FILE_COUNT = new AtomicLong();
     private static LongHashSet openFds;
@@ -130,6 +135,17 @@ public final class Files {
 
     public native static long getStdOutFd();
 
+    /**
+     * Creates hard link to existing file. Both paths have to be on the same file system.
+     *
+     * @param src      path to existing file
+     * @param hardLink path of the link to create
+     * @return 0 on success, -1 when link could not be created
+     */
+    public static int hardLink(LPSZ src, LPSZ hardLink) {
+        return hardLink0(src.address(), hardLink.address());
+    }
+
     public static boolean isDots(CharSequence name) {
         return Chars.equals(name, '.') || Chars.equals(name, "..");
     }
@@ -193,8 +209,41 @@ public final class Files {
         return address;
     }
 
+    /**
+     * Hints OS on how mapped memory is going to be accessed, e.g. to read ahead aggressively for
+     * sequential scans or to avoid read-ahead for random lookups. Advice is best effort.
+     *
+     * @param address page aligned address of the mapping
+     * @param len     length of the mapped region
+     * @param advice  one of MADV_* constants
+     * @return 0 on success, non-zero when advice could not be applied
+     */
+    public static int madvise(long address, long len, int advice) {
+        if (address != 0 && len > 0) {
+            return madvise0(address, len, advice);
+        }
+        return -1;
+    }
+
     public static native int msync(long addr, long len, boolean async);
 
+    /**
+     * Asks OS to start reading range of the file into page cache. Returns without waiting for IO,
+     * so hints for several ranges keep more than one read in flight. This is best effort.
+     *
+     * @param fd     file descriptor
+     * @param offset offset of the range in the file
+     * @param len    length of the range, no more than Integer.MAX_VALUE
+     * @return 0 on success, non-zero when OS has no such hint, in which case callers can advise
+     * mapped memory instead
+     */
+    public static int readAhead(long fd, long offset, long len) {
+        if (len > 0) {
+            return readAhead0(fd, offset, len);
+        }
+        return -1;
+    }
+
     public static void munmap(long address, long len, int memoryTag) {
         if (address != 0 && munmap0(address, len) != -1) {
             Unsafe.recordMemAlloc(-len, memoryTag);
@@ -297,6 +346,12 @@ public final class Files {
         return Unsafe.getUnsafe().getByte(lpsz + len) == 0;
     }
 
+    private static native int hardLink0(long lpszSrc, long lpszHardLink);
+
+    private static native int madvise0(long address, long len, int advice);
+
+    private static native int readAhead0(long fd, long offset, long len);
+
     private static native int munmap0(long address, long len);
 
     private static native long mremap0(long fd, long address, long previousSize, long newSize, long offset, int flags);
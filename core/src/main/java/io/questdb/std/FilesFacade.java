@@ -54,8 +54,14 @@ public interface FilesFacade {
 
     long getLastModified(LPSZ path);
 
+    int hardLink(LPSZ src, LPSZ hardLink);
+
+    int madvise(long address, long len, int advice);
+
     int msync(long addr, long len, boolean async);
 
+    int readAhead(long fd, long offset, long len);
+
     int fsync(long fd);
 
     long getMapPageSize();
@@ -102,11 +102,26 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.getLastModified(path);
     }
 
+    @Override
+    public int hardLink(LPSZ src, LPSZ hardLink) {
+        return Files.hardLink(src, hardLink);
+    }
+
+    @Override
+    public int madvise(long address, long len, int advice) {
+        return Files.madvise(address, len, advice);
+    }
+
     @Override
     public int msync(long addr, long len, boolean async) {
         return Files.msync(addr, len, async);
     }
 
+    @Override
+    public int readAhead(long fd, long offset, long len) {
+        return Files.readAhead(fd, offset, len);
+    }
+
     @Override
     public int fsync(long fd) {
         return Files.fsync(fd);
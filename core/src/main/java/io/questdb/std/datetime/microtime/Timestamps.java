@@ -76,6 +76,12 @@ final public class Timestamps {
     public static final TimestampCeilMethod CEIL_MM = Timestamps::ceilMM;
     public static final TimestampAddMethod ADD_MM = Timestamps::addMonths;
     public static final TimestampAddMethod ADD_YYYY = Timestamps::addYear;
+    public static final TimestampFloorMethod FLOOR_HH = Timestamps::floorHH;
+    public static final TimestampCeilMethod CEIL_HH = Timestamps::ceilHH;
+    public static final TimestampAddMethod ADD_HH = Timestamps::addHours;
+    public static final TimestampFloorMethod FLOOR_WW = Timestamps::floorWW;
+    public static final TimestampCeilMethod CEIL_WW = Timestamps::ceilWW;
+    public static final TimestampAddMethod ADD_WW = Timestamps::addWeeks;
     private static final char BEFORE_ZERO = '0' - 1;
     private static final char AFTER_NINE = '9' + 1;
 
@@ -200,6 +206,10 @@ final public class Timestamps {
         return floorSS(micros) + SECOND_MICROS;
     }
 
+    public static long ceilWW(long micros) {
+        return floorWW(micros) + WEEK_MICROS;
+    }
+
     public static long ceilYYYY(long micros) {
         int y;
         boolean l;
@@ -243,6 +253,13 @@ final public class Timestamps {
         return floorMS(micros) + MILLI_MICROS;
     }
 
+    /**
+     * Floors timestamp to Monday of its ISO week.
+     */
+    public static long floorWW(long micros) {
+        return floorDD(micros) - (getDayOfWeek(micros) - 1) * DAY_MICROS;
+    }
+
     public static long floorYYYY(long micros) {
         int y;
         return yearMicros(y = getYear(micros), isLeapYear(y));
@@ -55,6 +55,7 @@ public class O3CopyTask extends AbstractLockable {
     private long srcOooMax;
     private long srcOooPartitionLo;
     private long srcOooPartitionHi;
+    private long dedupRowCount;
     private long timestampMin;
     private long timestampMax;
     private long partitionTimestamp;
@@ -92,6 +93,10 @@ public class O3CopyTask extends AbstractLockable {
         return columnType;
     }
 
+    public long getDedupRowCount() {
+        return dedupRowCount;
+    }
+
     public long getDstFixAddr() {
         return dstFixAddr;
     }
@@ -297,6 +302,7 @@ public class O3CopyTask extends AbstractLockable {
             long srcOooMax,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long timestampMin,
             long timestampMax,
             long oooTimestampHi,
@@ -346,6 +352,7 @@ public class O3CopyTask extends AbstractLockable {
         this.srcOooMax = srcOooMax;
         this.srcOooPartitionLo = srcOooPartitionLo;
         this.srcOooPartitionHi = srcOooPartitionHi;
+        this.dedupRowCount = dedupRowCount;
         this.timestampMin = timestampMin;
         this.timestampMax = timestampMax;
         this.partitionTimestamp = oooTimestampHi;
@@ -62,6 +62,7 @@ public class O3OpenColumnTask {
     private long mergeDataHi;
     private long mergeOOOLo;
     private long mergeOOOHi;
+    private long dedupRowCount;
     private int suffixType;
     private long suffixLo;
     private long suffixHi;
@@ -90,6 +91,10 @@ public class O3OpenColumnTask {
         return columnType;
     }
 
+    public long getDedupRowCount() {
+        return dedupRowCount;
+    }
+
     public BitmapIndexWriter getIndexWriter() {
         return indexWriter;
     }
@@ -255,6 +260,7 @@ public class O3OpenColumnTask {
             long mergeDataHi,
             long mergeOOOLo,
             long mergeOOOHi,
+            long dedupRowCount,
             int suffixType,
             long suffixLo,
             long suffixHi,
@@ -295,6 +301,7 @@ public class O3OpenColumnTask {
         this.mergeDataHi = mergeDataHi;
         this.mergeOOOLo = mergeOOOLo;
         this.mergeOOOHi = mergeOOOHi;
+        this.dedupRowCount = dedupRowCount;
         this.suffixType = suffixType;
         this.suffixLo = suffixLo;
         this.suffixHi = suffixHi;
@@ -30,11 +30,16 @@ public class O3PartitionUpdateTask {
     private long partitionTimestamp;
     private long srcOooPartitionLo;
     private long srcOooPartitionHi;
+    private long dedupRowCount;
     private long srcDataMax;
     private boolean partitionMutates;
 
     public static final ObjectFactory<O3PartitionUpdateTask> CONSTRUCTOR = O3PartitionUpdateTask::new;
 
+    public long getDedupRowCount() {
+        return dedupRowCount;
+    }
+
     public long getPartitionTimestamp() {
         return partitionTimestamp;
     }
@@ -59,12 +64,14 @@ public class O3PartitionUpdateTask {
             long oooTimestampHi,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
+            long dedupRowCount,
             long srcDataMax,
             boolean partitionMutates
     ) {
         this.partitionTimestamp = oooTimestampHi;
         this.srcOooPartitionLo = srcOooPartitionLo;
         this.srcOooPartitionHi = srcOooPartitionHi;
+        this.dedupRowCount = dedupRowCount;
         this.srcDataMax = srcDataMax;
         this.partitionMutates = partitionMutates;
     }
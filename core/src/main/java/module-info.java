@@ -37,6 +37,7 @@ open module io.questdb {
     exports io.questdb.cairo;
     exports io.questdb.cairo.vm;
     exports io.questdb.cairo.map;
+    exports io.questdb.cairo.mv;
     exports io.questdb.cairo.sql;
     exports io.questdb.cairo.pool;
     exports io.questdb.cairo.pool.ex;
@@ -74,6 +75,7 @@ open module io.questdb {
     exports io.questdb.griffin.engine.functions.str;
     exports io.questdb.griffin.engine.groupby;
     exports io.questdb.griffin.engine.groupby.vect;
+    exports io.questdb.griffin.engine.table;
     exports io.questdb.griffin.engine.analytic;
 
     exports io.questdb.std;
@@ -576,11 +578,20 @@ open module io.questdb {
 
             // analytic functions
             io.questdb.griffin.engine.functions.analytic.RowNumberFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.LagDoubleFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.LeadDoubleFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.SumDoubleAnalyticFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.AvgDoubleAnalyticFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.MinDoubleAnalyticFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.MaxDoubleAnalyticFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.FirstValueDoubleAnalyticFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.LastValueDoubleAnalyticFunctionFactory,
 
             // metadata functions
             io.questdb.griffin.engine.functions.metadata.BuildFunctionFactory,
             // geohash functions
             io.questdb.griffin.engine.functions.geohash.GeoHashFromCoordinatesFunctionFactory,
+            io.questdb.griffin.engine.functions.geohash.WithinGeoHashFunctionFactory,
             // bin functions
             io.questdb.griffin.engine.functions.bin.Base64FunctionFactory,
             // bit operations
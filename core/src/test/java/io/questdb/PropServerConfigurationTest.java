@@ -140,6 +140,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals("fast", configuration.getCairoConfiguration().getDefaultMapType());
         Assert.assertTrue(configuration.getCairoConfiguration().getDefaultSymbolCacheFlag());
         Assert.assertEquals(256, configuration.getCairoConfiguration().getDefaultSymbolCapacity());
+        Assert.assertEquals(128 * 1024 * 1024, configuration.getCairoConfiguration().getDecodedColumnCacheSize());
+        Assert.assertEquals(16, configuration.getCairoConfiguration().getDecodedColumnCacheSegmentCount());
         Assert.assertEquals(30, configuration.getCairoConfiguration().getFileOperationRetryCount());
         Assert.assertEquals(300000, configuration.getCairoConfiguration().getIdleCheckInterval());
         Assert.assertEquals(120_000, configuration.getCairoConfiguration().getInactiveReaderTTL());
@@ -169,6 +171,9 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortKeyMaxPages());
         Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortLightValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortLightValueMaxPages());
+        Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlSortTopKMaxRows());
+        Assert.assertNull(configuration.getCairoConfiguration().getSqlSpillRoot());
+        Assert.assertEquals(256 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSpillThreshold());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlHashJoinValueMaxPages());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
@@ -178,6 +183,11 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isPostingIndexEnabled());
+        Assert.assertNull(configuration.getCairoConfiguration().getVolumePath("cold"));
+        Assert.assertTrue(configuration.getCairoConfiguration().isPartitionPrefetchEnabled());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlPageFrameReadAheadSize());
+        Assert.assertEquals(64 * 1024, configuration.getCairoConfiguration().getColumnDefaultPageRows());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getAnalyticColumnPoolCapacity());
@@ -493,6 +503,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals("compact", configuration.getCairoConfiguration().getDefaultMapType());
             Assert.assertTrue(configuration.getCairoConfiguration().getDefaultSymbolCacheFlag());
             Assert.assertEquals(512, configuration.getCairoConfiguration().getDefaultSymbolCapacity());
+            Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getDecodedColumnCacheSize());
+            Assert.assertEquals(4, configuration.getCairoConfiguration().getDecodedColumnCacheSegmentCount());
             Assert.assertEquals(10, configuration.getCairoConfiguration().getFileOperationRetryCount());
             Assert.assertEquals(20_000, configuration.getCairoConfiguration().getIdleCheckInterval());
             Assert.assertEquals(600_000, configuration.getCairoConfiguration().getInactiveReaderTTL());
@@ -520,6 +532,9 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(256, configuration.getCairoConfiguration().getSqlSortKeyMaxPages());
             Assert.assertEquals(3 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortLightValuePageSize());
             Assert.assertEquals(1027, configuration.getCairoConfiguration().getSqlSortLightValueMaxPages());
+            Assert.assertEquals(500, configuration.getCairoConfiguration().getSqlSortTopKMaxRows());
+            Assert.assertEquals("/tmp/spill", configuration.getCairoConfiguration().getSqlSpillRoot());
+            Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSpillThreshold());
             Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
             Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlHashJoinValueMaxPages());
             Assert.assertEquals(10000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
@@ -529,6 +544,13 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+            Assert.assertTrue(configuration.getCairoConfiguration().isPostingIndexEnabled());
+            Assert.assertEquals(new File("/mnt/cold").getAbsolutePath(), configuration.getCairoConfiguration().getVolumePath("cold"));
+            Assert.assertEquals(new File("/mnt/archive").getAbsolutePath(), configuration.getCairoConfiguration().getVolumePath("archive"));
+            Assert.assertNull(configuration.getCairoConfiguration().getVolumePath("hot"));
+            Assert.assertFalse(configuration.getCairoConfiguration().isPartitionPrefetchEnabled());
+            Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlPageFrameReadAheadSize());
+            Assert.assertEquals(1024, configuration.getCairoConfiguration().getColumnDefaultPageRows());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
             Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
             Assert.assertEquals(16, configuration.getCairoConfiguration().getBindVariablePoolSize());
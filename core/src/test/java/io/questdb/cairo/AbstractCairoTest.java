@@ -31,6 +31,7 @@ import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.Misc;
 import io.questdb.std.Rnd;
@@ -63,6 +64,16 @@ public class AbstractCairoTest {
     protected static FilesFacade ff;
     protected static long configOverrideCommitLag = -1;
     protected static int configOverrideMaxUncommittedRows = -1;
+    protected static int configOverrideHotPartitionCount = -1;
+    protected static boolean configOverrideWalEnabled = false;
+    protected static boolean configOverridePostingIndexEnabled = false;
+    protected static int configOverridePageFrameReadAheadSize = -1;
+    protected static int configOverrideColumnDefaultPageRows = -1;
+    protected static String configOverrideSpillRoot = null;
+    protected static long configOverrideSpillThreshold = -1;
+    protected static int configOverrideSqlMapMaxResizes = -1;
+    protected static int configOverrideSqlHashJoinLightValueMaxPages = -1;
+    protected static final CharSequenceObjHashMap<String> configOverrideVolumes = new CharSequenceObjHashMap<>();
     protected static Metrics metrics = Metrics.enabled();
     protected static int capacity = -1;
     protected static int sampleByIndexSearchPageSize;
@@ -120,6 +131,63 @@ public class AbstractCairoTest {
                 return super.getMaxUncommittedRows();
             }
 
+            @Override
+            public int getHotPartitionCount() {
+                if (configOverrideHotPartitionCount >= 0) return configOverrideHotPartitionCount;
+                return super.getHotPartitionCount();
+            }
+
+            @Override
+            public boolean isWalEnabled() {
+                return configOverrideWalEnabled || super.isWalEnabled();
+            }
+
+            @Override
+            public boolean isPostingIndexEnabled() {
+                return configOverridePostingIndexEnabled || super.isPostingIndexEnabled();
+            }
+
+            @Override
+            public String getVolumePath(CharSequence alias) {
+                final String path = configOverrideVolumes.get(alias);
+                return path != null ? path : super.getVolumePath(alias);
+            }
+
+            @Override
+            public int getSqlPageFrameReadAheadSize() {
+                if (configOverridePageFrameReadAheadSize >= 0) return configOverridePageFrameReadAheadSize;
+                return super.getSqlPageFrameReadAheadSize();
+            }
+
+            @Override
+            public int getColumnDefaultPageRows() {
+                if (configOverrideColumnDefaultPageRows > 0) return configOverrideColumnDefaultPageRows;
+                return super.getColumnDefaultPageRows();
+            }
+
+            @Override
+            public CharSequence getSqlSpillRoot() {
+                return configOverrideSpillRoot != null ? configOverrideSpillRoot : super.getSqlSpillRoot();
+            }
+
+            @Override
+            public long getSqlSpillThreshold() {
+                if (configOverrideSpillThreshold > 0) return configOverrideSpillThreshold;
+                return super.getSqlSpillThreshold();
+            }
+
+            @Override
+            public int getSqlMapMaxResizes() {
+                if (configOverrideSqlMapMaxResizes >= 0) return configOverrideSqlMapMaxResizes;
+                return super.getSqlMapMaxResizes();
+            }
+
+            @Override
+            public int getSqlHashJoinLightValueMaxPages() {
+                if (configOverrideSqlHashJoinLightValueMaxPages > 0) return configOverrideSqlHashJoinLightValueMaxPages;
+                return super.getSqlHashJoinLightValueMaxPages();
+            }
+
             public int getSampleByIndexSearchPageSize() {
                 return sampleByIndexSearchPageSize > 0 ? sampleByIndexSearchPageSize : super.getSampleByIndexSearchPageSize();
             }
@@ -164,6 +232,16 @@ public class AbstractCairoTest {
         TestUtils.removeTestPath(root);
         configOverrideMaxUncommittedRows = -1;
         configOverrideCommitLag = -1;
+        configOverrideHotPartitionCount = -1;
+        configOverrideWalEnabled = false;
+        configOverridePostingIndexEnabled = false;
+        configOverridePageFrameReadAheadSize = -1;
+        configOverrideColumnDefaultPageRows = -1;
+        configOverrideSpillRoot = null;
+        configOverrideSpillThreshold = -1;
+        configOverrideSqlMapMaxResizes = -1;
+        configOverrideSqlHashJoinLightValueMaxPages = -1;
+        configOverrideVolumes.clear();
         currentMicros = -1;
         sampleByIndexSearchPageSize = -1;
         defaultMapType = null;
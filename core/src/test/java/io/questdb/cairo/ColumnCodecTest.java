@@ -0,0 +1,153 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnCodecTest {
+    private final Rnd rnd = new Rnd();
+
+    @Test
+    public void testByte() throws Exception {
+        assertRoundTrip(ColumnType.BYTE, false, 10_000, (addr, i) -> Unsafe.getUnsafe().putByte(addr + i, rnd.nextByte()));
+    }
+
+    @Test
+    public void testConstant() throws Exception {
+        assertRoundTrip(ColumnType.LONG, false, 10_000, (addr, i) -> Unsafe.getUnsafe().putLong(addr + i * 8L, 42));
+    }
+
+    @Test
+    public void testDouble() throws Exception {
+        assertRoundTrip(ColumnType.DOUBLE, false, 10_000, (addr, i) -> {
+            final double value;
+            switch (rnd.nextInt(4)) {
+                case 0:
+                    value = Double.NaN;
+                    break;
+                case 1:
+                    value = -rnd.nextDouble();
+                    break;
+                default:
+                    value = 100 + (i % 7) * 0.5;
+                    break;
+            }
+            Unsafe.getUnsafe().putDouble(addr + i * 8L, value);
+        });
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertRoundTrip(ColumnType.INT, false, 0, (addr, i) -> Unsafe.getUnsafe().putInt(addr + i * 4L, 1));
+    }
+
+    @Test
+    public void testFloat() throws Exception {
+        assertRoundTrip(ColumnType.FLOAT, false, 10_000, (addr, i) -> Unsafe.getUnsafe().putFloat(addr + i * 4L, rnd.nextBoolean() ? -rnd.nextFloat() : Float.NaN));
+    }
+
+    @Test
+    public void testInt() throws Exception {
+        assertRoundTrip(ColumnType.INT, false, 10_000, (addr, i) -> Unsafe.getUnsafe().putInt(addr + i * 4L, rnd.nextBoolean() ? Numbers.INT_NaN : rnd.nextInt(1000)));
+    }
+
+    @Test
+    public void testLongExtremes() throws Exception {
+        assertRoundTrip(ColumnType.LONG, false, 5_000, (addr, i) -> Unsafe.getUnsafe().putLong(addr + i * 8L, rnd.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testShort() throws Exception {
+        assertRoundTrip(ColumnType.SHORT, false, 10_000, (addr, i) -> Unsafe.getUnsafe().putShort(addr + i * 2L, rnd.nextShort()));
+    }
+
+    @Test
+    public void testTimestamp() throws Exception {
+        // regular interval with occasional gaps
+        assertRoundTrip(ColumnType.TIMESTAMP, true, 10_001, (addr, i) -> Unsafe.getUnsafe().putLong(addr + i * 8L, 1_600_000_000_000_000L + i * 1_000_000L + (i % 1000 == 0 ? i : 0)));
+    }
+
+    @Test
+    public void testTimestampCompressesWell() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int rowCount = 100_000;
+            final long size = rowCount * 8L;
+            final long src = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+            try (MemoryCARW mem = Vm.getCARWInstance(1024 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT)) {
+                for (int i = 0; i < rowCount; i++) {
+                    Unsafe.getUnsafe().putLong(src + i * 8L, i * 10_000_000L);
+                }
+                new ColumnCodec().encode(src, rowCount, ColumnType.TIMESTAMP, true, mem);
+                Assert.assertTrue(mem.getAppendOffset() < size / 100);
+                Assert.assertEquals(0, ColumnCodec.getFirstValue(mem.getPageAddress(0)));
+            } finally {
+                Unsafe.free(src, size, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    @Test
+    public void testTimestampDuplicates() throws Exception {
+        assertRoundTrip(ColumnType.TIMESTAMP, true, 4097, (addr, i) -> Unsafe.getUnsafe().putLong(addr + i * 8L, i / 3));
+    }
+
+    private void assertRoundTrip(int columnType, boolean designatedTimestamp, int rowCount, ValueGenerator generator) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final long size = (long) rowCount << ColumnType.pow2SizeOf(columnType);
+            final long src = Unsafe.malloc(size + 1, MemoryTag.NATIVE_DEFAULT);
+            final long dst = Unsafe.malloc(size + 1, MemoryTag.NATIVE_DEFAULT);
+            try (MemoryCARW mem = Vm.getCARWInstance(1024 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT)) {
+                for (int i = 0; i < rowCount; i++) {
+                    generator.put(src, i);
+                }
+                new ColumnCodec().encode(src, rowCount, columnType, designatedTimestamp, mem);
+                final long addr = mem.getPageAddress(0);
+                Assert.assertEquals(rowCount, ColumnCodec.getRowCount(addr));
+                ColumnCodec.decode(addr, dst);
+                for (long i = 0; i < size; i++) {
+                    if (Unsafe.getUnsafe().getByte(src + i) != Unsafe.getUnsafe().getByte(dst + i)) {
+                        Assert.fail("mismatch at byte " + i);
+                    }
+                }
+            } finally {
+                Unsafe.free(src, size + 1, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(dst, size + 1, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ValueGenerator {
+        void put(long addr, int i);
+    }
+}
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PostingIndexTest extends AbstractCairoTest {
+    private Path path;
+    private int plen;
+
+    @Override
+    @Before
+    public void setUp() {
+        path = new Path().of(configuration.getRoot());
+        plen = path.length();
+        super.setUp();
+    }
+
+    @Override
+    @After
+    public void tearDown() {
+        Misc.free(path);
+        super.tearDown();
+    }
+
+    @Test
+    public void testCopyOfBitmapIndex() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final Rnd rnd = new Rnd();
+            final int rowCount = 20_000;
+            try (MemoryCARW column = createColumn(rnd, rowCount, 50)) {
+                BitmapIndexTest.create(configuration, path.trimTo(plen), "b", 64);
+                try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path.trimTo(plen), "b")) {
+                    for (long row = 0; row < rowCount; row++) {
+                        writer.add(TableUtils.toIndexKey(column.getInt(row * Integer.BYTES)), row);
+                    }
+                    writer.setMaxValue(rowCount - 1);
+                }
+
+                try (
+                        BitmapIndexFwdReader bitmapReader = new BitmapIndexFwdReader(configuration, path.trimTo(plen), "b", 0, -1);
+                        PostingIndexWriter writer = new PostingIndexWriter()
+                ) {
+                    writer.of(configuration, path.trimTo(plen), "x");
+                    writer.copyOf(bitmapReader, rowCount);
+                }
+                assertIndex(rnd, "b", "x", 0, rowCount);
+            }
+        });
+    }
+
+    @Test
+    public void testFrameCursor() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int rowCount = 1000;
+            try (MemoryCARW column = Vm.getCARWInstance(4096, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT)) {
+                for (int i = 0; i < rowCount; i++) {
+                    column.putInt(i % 3);
+                }
+                writeIndex(column, "x", 0, rowCount);
+                try (PostingIndexFwdReader reader = new PostingIndexFwdReader(configuration, path.trimTo(plen), "x", 0, -1)) {
+                    final IndexFrameCursor cursor = reader.getFrameCursor(3, 100, 900);
+                    long expected = 101;
+                    IndexFrame frame;
+                    while ((frame = cursor.getNext()).getSize() > 0) {
+                        for (long i = 0, n = frame.getSize(); i < n; i++) {
+                            Assert.assertEquals(expected, Unsafe.getUnsafe().getLong(frame.getAddress() + i * Long.BYTES));
+                            expected += 3;
+                        }
+                    }
+                    Assert.assertEquals(902, expected);
+                    Assert.assertSame(IndexFrame.NULL_INSTANCE, cursor.getNext());
+                    Assert.assertEquals(0, reader.getFrameCursor(10, 0, rowCount).getNext().getSize());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final Rnd rnd = new Rnd();
+            final int rowCount = 100_000;
+            try (MemoryCARW column = createColumn(rnd, rowCount, 300)) {
+                writeBitmapIndex(column, "b", 0, rowCount);
+                writeIndex(column, "x", 0, rowCount);
+                assertIndex(rnd, "b", "x", 0, rowCount);
+            }
+        });
+    }
+
+    @Test
+    public void testIndexWithColumnTop() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final Rnd rnd = new Rnd();
+            final int columnTop = 1_500;
+            final int rowCount = 10_000;
+            try (MemoryCARW column = createColumn(rnd, rowCount - columnTop, 10)) {
+                writeBitmapIndex(column, "b", columnTop, rowCount);
+                writeIndex(column, "x", columnTop, rowCount);
+                assertIndex(rnd, "b", "x", columnTop, rowCount);
+                Assert.assertEquals(rowCount, readRowCount("x"));
+            }
+        });
+    }
+
+    @Test
+    public void testIndexIsSmallerThanBitmapIndex() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final Rnd rnd = new Rnd();
+            final int rowCount = 100_000;
+            try (MemoryCARW column = createColumn(rnd, rowCount, 100)) {
+                writeBitmapIndex(column, "b", 0, rowCount);
+                writeIndex(column, "x", 0, rowCount);
+                final FilesFacade ff = configuration.getFilesFacade();
+                final long bitmapSize = ff.length(BitmapIndexUtils.valueFileName(path.trimTo(plen), "b"));
+                final long postingSize = ff.length(PostingIndexUtils.valueFileName(path.trimTo(plen), "x"));
+                Assert.assertTrue(postingSize * 4 < bitmapSize);
+            }
+        });
+    }
+
+    @Test
+    public void testMissingIndex() {
+        Assert.assertEquals(-1, readRowCount("x"));
+        Assert.assertEquals(plen, path.length());
+    }
+
+    @Test
+    public void testRawMemoryHasBitmapLayout() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final Rnd rnd = new Rnd();
+            final int rowCount = 5_000;
+            try (MemoryCARW column = createColumn(rnd, rowCount, 7)) {
+                writeIndex(column, "x", 0, rowCount);
+                try (PostingIndexBwdReader reader = new PostingIndexBwdReader(configuration, path.trimTo(plen), "x", 0, -1)) {
+                    final long keyBase = reader.getKeyBaseAddress();
+                    final long valueBase = reader.getValueBaseAddress();
+                    final int blockMask = reader.getValueBlockCapacity();
+                    final long blockSize = (blockMask + 1) * Long.BYTES + BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED;
+                    Assert.assertEquals(BitmapIndexUtils.SIGNATURE, Unsafe.getUnsafe().getByte(keyBase));
+                    Assert.assertEquals(reader.getKeyCount(), Unsafe.getUnsafe().getInt(keyBase + BitmapIndexUtils.KEY_RESERVED_OFFSET_KEY_COUNT));
+
+                    final LongList expected = new LongList();
+                    final LongList actual = new LongList();
+                    for (int key = 0, n = reader.getKeyCount(); key < n; key++) {
+                        collect(reader.getCursor(true, key, 0, Long.MAX_VALUE), expected);
+                        for (int i = 0, j = expected.size() - 1; i < j; i++, j--) {
+                            final long t = expected.getQuick(i);
+                            expected.setQuick(i, expected.getQuick(j));
+                            expected.setQuick(j, t);
+                        }
+
+                        // walk blocks forward, the way native code does
+                        actual.clear();
+                        final long entry = keyBase + BitmapIndexUtils.getKeyEntryOffset(key);
+                        final long valueCount = Unsafe.getUnsafe().getLong(entry + BitmapIndexUtils.KEY_ENTRY_OFFSET_VALUE_COUNT);
+                        long blockOffset = Unsafe.getUnsafe().getLong(entry + BitmapIndexUtils.KEY_ENTRY_OFFSET_FIRST_VALUE_BLOCK_OFFSET);
+                        for (long i = 0; i < valueCount; i++) {
+                            actual.add(Unsafe.getUnsafe().getLong(valueBase + blockOffset + (i & blockMask) * Long.BYTES));
+                            if ((i & blockMask) == blockMask) {
+                                blockOffset = Unsafe.getUnsafe().getLong(valueBase + blockOffset + blockSize - Long.BYTES);
+                            }
+                        }
+                        assertEquals(expected, actual);
+                    }
+                }
+            }
+        });
+    }
+
+    private static void assertEquals(LongList expected, LongList actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0, n = expected.size(); i < n; i++) {
+            Assert.assertEquals(expected.getQuick(i), actual.getQuick(i));
+        }
+    }
+
+    private static void collect(RowCursor cursor, LongList list) {
+        list.clear();
+        while (cursor.hasNext()) {
+            list.add(cursor.next());
+        }
+    }
+
+    private void assertIndex(Rnd rnd, String bitmapName, String postingName, long columnTop, long rowCount) {
+        final LongList expected = new LongList();
+        final LongList actual = new LongList();
+        try (
+                BitmapIndexFwdReader bitmapFwd = new BitmapIndexFwdReader(configuration, path.trimTo(plen), bitmapName, columnTop, -1);
+                BitmapIndexBwdReader bitmapBwd = new BitmapIndexBwdReader(configuration, path.trimTo(plen), bitmapName, columnTop, -1);
+                PostingIndexFwdReader postingFwd = new PostingIndexFwdReader(configuration, path.trimTo(plen), postingName, columnTop, -1);
+                PostingIndexBwdReader postingBwd = new PostingIndexBwdReader(configuration, path.trimTo(plen), postingName, columnTop, -1)
+        ) {
+            Assert.assertEquals(bitmapFwd.getKeyCount(), postingFwd.getKeyCount());
+            Assert.assertEquals(bitmapBwd.getKeyCount(), postingBwd.getKeyCount());
+            for (int key = 0, n = bitmapFwd.getKeyCount(); key < n; key++) {
+                collect(bitmapFwd.getCursor(true, key, 0, Long.MAX_VALUE), expected);
+                collect(postingFwd.getCursor(true, key, 0, Long.MAX_VALUE), actual);
+                assertEquals(expected, actual);
+
+                collect(bitmapBwd.getCursor(true, key, 0, Long.MAX_VALUE), expected);
+                collect(postingBwd.getCursor(false, key, 0, Long.MAX_VALUE), actual);
+                assertEquals(expected, actual);
+
+                for (int i = 0; i < 5; i++) {
+                    long lo = rnd.nextPositiveLong() % rowCount;
+                    long hi = rnd.nextPositiveLong() % rowCount;
+                    if (lo > hi) {
+                        final long t = lo;
+                        lo = hi;
+                        hi = t;
+                    }
+                    // bitmap readers do not bound unindexed nulls by max value
+                    collect(bitmapBwd.getCursor(true, key, lo, hi), expected);
+                    removeAbove(expected, hi);
+                    collect(postingBwd.getCursor(true, key, lo, hi), actual);
+                    assertEquals(expected, actual);
+
+                    collect(bitmapFwd.getCursor(true, key, lo, hi), expected);
+                    removeAbove(expected, hi);
+                    collect(postingFwd.getCursor(false, key, lo, hi), actual);
+                    assertEquals(expected, actual);
+                }
+            }
+        }
+    }
+
+    private MemoryCARW createColumn(Rnd rnd, int rowCount, int keyCount) {
+        final MemoryCARW column = Vm.getCARWInstance(1024 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        for (int i = 0; i < rowCount; i++) {
+            // skewed distribution, so that there are both long and short lists, some values are null
+            final int key = rnd.nextInt(keyCount) % (rnd.nextInt(keyCount) + 1);
+            column.putInt(key == 3 ? SymbolTable.VALUE_IS_NULL : key);
+        }
+        return column;
+    }
+
+    private static void removeAbove(LongList list, long maxValue) {
+        int n = 0;
+        for (int i = 0, size = list.size(); i < size; i++) {
+            if (list.getQuick(i) <= maxValue) {
+                list.setQuick(n++, list.getQuick(i));
+            }
+        }
+        list.setPos(n);
+    }
+
+    private long readRowCount(CharSequence name) {
+        final long tempMem8b = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+        try {
+            return PostingIndexUtils.readRowCount(configuration.getFilesFacade(), path.trimTo(plen), name, tempMem8b);
+        } finally {
+            Unsafe.free(tempMem8b, Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    private void writeBitmapIndex(MemoryCARW column, String name, long columnTop, long rowCount) {
+        BitmapIndexTest.create(configuration, path.trimTo(plen), name, 64);
+        try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path.trimTo(plen), name)) {
+            for (long row = columnTop; row < rowCount; row++) {
+                writer.add(TableUtils.toIndexKey(column.getInt((row - columnTop) * Integer.BYTES)), row);
+            }
+            writer.setMaxValue(rowCount - 1);
+        }
+    }
+
+    private void writeIndex(MemoryCARW column, String name, long columnTop, long rowCount) {
+        try (PostingIndexWriter writer = new PostingIndexWriter()) {
+            writer.of(configuration, path.trimTo(plen), name);
+            writer.index(column, columnTop, rowCount);
+        }
+    }
+}
@@ -399,6 +399,51 @@ public class FastMapTest extends AbstractCairoTest {
         }
     }
 
+    @Test
+    public void testMerge() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+            keyTypes.add(ColumnType.STRING);
+            keyTypes.add(ColumnType.INT);
+
+            ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+            valueTypes.add(ColumnType.LONG);
+
+            // small page size makes destination map resize during merge
+            try (
+                    FastMap mapA = new FastMap(64, keyTypes, valueTypes, 16, 0.5, Integer.MAX_VALUE);
+                    FastMap mapB = new FastMap(64, keyTypes, valueTypes, 16, 0.5, Integer.MAX_VALUE)
+            ) {
+                final int N = 1000;
+                for (int i = 0; i < N; i++) {
+                    MapKey keyA = mapA.withKey();
+                    keyA.putStr(i % 2 == 0 ? "k" + i : null);
+                    keyA.putInt(i);
+                    keyA.createValue().putLong(0, i);
+
+                    MapKey keyB = mapB.withKey();
+                    keyB.putStr((i + N / 2) % 2 == 0 ? "k" + (i + N / 2) : null);
+                    keyB.putInt(i + N / 2);
+                    keyB.createValue().putLong(0, 1);
+                }
+
+                mapA.merge(mapB, (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0)));
+                Assert.assertEquals(N + N / 2, mapA.size());
+                Assert.assertEquals(N, mapB.size());
+
+                for (int i = 0, n = N + N / 2; i < n; i++) {
+                    MapKey key = mapA.withKey();
+                    key.putStr(i % 2 == 0 ? "k" + i : null);
+                    key.putInt(i);
+                    MapValue value = key.findValue();
+                    Assert.assertNotNull(value);
+                    final long expected = (i < N ? i : 0) + (i >= N / 2 ? 1 : 0);
+                    Assert.assertEquals(expected, value.getLong(0));
+                }
+            }
+        });
+    }
+
     @Test
     public void testNoValueColumns() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
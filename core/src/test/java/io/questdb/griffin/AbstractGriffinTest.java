@@ -537,6 +537,13 @@ public class AbstractGriffinTest extends AbstractCairoTest {
         }
     }
 
+    protected static void drainPurgeQueue() {
+        final O3PurgeJob job = new O3PurgeJob(engine.getMessageBus());
+        while (job.run(0)) {
+            // drain the queue
+        }
+    }
+
     protected static void printSqlResult(
             CharSequence expected,
             CharSequence query,
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.WorkerPoolAwareConfiguration;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.BindVariableService;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.jetbrains.annotations.Nullable;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+/**
+ * Runs queries on a worker pool and compares their results with those of serial execution.
+ */
+public abstract class AbstractParallelTest {
+    protected static final int WORKER_COUNT = 4;
+    private static final Log LOG = LogFactory.getLog(AbstractParallelTest.class);
+    private static final StringSink expectedSink = new StringSink();
+    private static final StringSink sink = new StringSink();
+    @ClassRule
+    public static TemporaryFolder temp = new TemporaryFolder();
+    private static CharSequence root;
+
+    @BeforeClass
+    public static void setupStatic() {
+        try {
+            root = temp.newFolder("dbRoot").getAbsolutePath();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        SharedRandom.RANDOM.set(new Rnd());
+        TestUtils.createTestPath(root);
+    }
+
+    @After
+    public void tearDown() {
+        TestUtils.removeTestPath(root);
+    }
+
+    protected static void assertParallel(ParallelCode code) throws Exception {
+        assertParallel(true, code);
+    }
+
+    protected static void assertParallel(boolean startPool, ParallelCode code) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    // split partitions into many small frames
+                    return 100;
+                }
+            };
+            final WorkerPool pool = startPool ? createPool() : null;
+            try (
+                    final CairoEngine engine = new CairoEngine(configuration);
+                    final SqlCompiler compiler = new SqlCompiler(engine);
+                    final SqlExecutionContextImpl serialContext = new SqlExecutionContextImpl(engine, 1);
+                    final SqlExecutionContextImpl parallelContext = new SqlExecutionContextImpl(engine, WORKER_COUNT)
+            ) {
+                // both contexts share bind variables
+                final BindVariableService bindVariableService = new BindVariableServiceImpl(configuration);
+                serialContext.with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+                parallelContext.with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+                try {
+                    if (pool != null) {
+                        pool.assignCleaner(Path.CLEANER);
+                        pool.assign(new PageFrameFilterJob(engine.getMessageBus()));
+                        pool.start(LOG);
+                    }
+                    code.run(compiler, serialContext, parallelContext);
+                    Assert.assertEquals(0, engine.getBusyWriterCount());
+                    Assert.assertEquals(0, engine.getBusyReaderCount());
+                } finally {
+                    if (pool != null) {
+                        pool.halt();
+                    }
+                }
+            }
+        });
+    }
+
+    protected static void assertQuery(
+            SqlCompiler compiler,
+            SqlExecutionContext serialContext,
+            SqlExecutionContext parallelContext,
+            String query
+    ) throws SqlException {
+        TestUtils.printSql(compiler, serialContext, query, expectedSink);
+        try (RecordCursorFactory factory = compiler.compile(query, parallelContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(parallelContext)) {
+                TestUtils.assertCursor(expectedSink, cursor, factory.getMetadata(), true, sink);
+                // second pass over the same cursor
+                cursor.toTop();
+                TestUtils.assertCursor(expectedSink, cursor, factory.getMetadata(), true, sink);
+            }
+            // factory is reusable
+            try (RecordCursor cursor = factory.getCursor(parallelContext)) {
+                TestUtils.assertCursor(expectedSink, cursor, factory.getMetadata(), true, sink);
+            }
+        }
+    }
+
+    @Nullable
+    private static WorkerPool createPool() {
+        final int[] affinity = new int[WORKER_COUNT];
+        for (int i = 0; i < WORKER_COUNT; i++) {
+            affinity[i] = -1;
+        }
+        return new WorkerPool(
+                new WorkerPoolAwareConfiguration() {
+                    @Override
+                    public int[] getWorkerAffinity() {
+                        return affinity;
+                    }
+
+                    @Override
+                    public int getWorkerCount() {
+                        return WORKER_COUNT;
+                    }
+
+                    @Override
+                    public boolean haltOnError() {
+                        return false;
+                    }
+
+                    @Override
+                    public boolean isEnabled() {
+                        return true;
+                    }
+                }
+        );
+    }
+
+    @FunctionalInterface
+    interface ParallelCode {
+        void run(SqlCompiler compiler, SqlExecutionContext serialContext, SqlExecutionContext parallelContext) throws Exception;
+    }
+}
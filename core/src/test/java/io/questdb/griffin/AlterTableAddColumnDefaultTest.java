@@ -0,0 +1,180 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+public class AlterTableAddColumnDefaultTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDefaultAllTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x add column a boolean default true, b byte default -3, c short default 300, " +
+                    "d char default 'q', e int default -70000, f long default 10000000000, g float default 1.5, " +
+                    "h double default -0.25, i date default '2022-02-01', j timestamp default '2022-02-01T10:00'");
+            assertSql("select a, b, c, d, e, f, g, h, i, j from x limit 1", "a\tb\tc\td\te\tf\tg\th\ti\tj\n" +
+                    "true\t-3\t300\tq\t-70000\t10000000000\t1.5000\t-0.25\t2022-02-01T00:00:00.000Z\t2022-02-01T10:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testDefaultDoesNotRewritePartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x add column d int default 7");
+            final File partition = new File(Paths.get(root.toString(), "x", "2022-01-01").toString());
+            Assert.assertFalse(new File(partition, "d.d").exists());
+        });
+    }
+
+    @Test
+    public void testDefaultForRowsThatOmitColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x add column d long default 42");
+            executeInsert("insert into x (x, ts) values (1000, '2022-01-11T00:00')");
+            executeInsert("insert into x (x, d, ts) values (1001, 5, '2022-01-11T01:00')");
+            assertSql("select x, d from x where ts >= '2022-01-10T23:00'", "x\td\n" +
+                    "240\t42\n" +
+                    "1000\t42\n" +
+                    "1001\t5\n");
+        });
+    }
+
+    @Test
+    public void testDefaultInFilterAndAggregates() throws Exception {
+        configOverrideColumnDefaultPageRows = 16;
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x add column d int default 7, e double default 0.5");
+            compile("insert into x (x, d, e, ts) select 240 + x, cast(x as int), 1.0, timestamp_sequence('2022-01-11', 3600000000) from long_sequence(10)");
+            assertSql("select count(), sum(d), sum(e), min(d), max(d) from x", "count\tsum\tsum1\tmin\tmax\n" +
+                    "250\t1735\t130.0\t1\t10\n");
+            assertSql("select count() from x where d = 7", "count\n241\n");
+            assertSql("select count() from x where d > 7 and e > 0.75", "count\n3\n");
+            assertSql("select sum(d) from x where ts in '2022-01-05'", "sum\n168\n");
+        });
+    }
+
+    @Test
+    public void testDefaultIsKeptByReload() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                compile("alter table x add column d short default 11");
+                Assert.assertTrue(reader.reload());
+                final RecordCursor cursor = reader.getCursor();
+                final Record record = cursor.getRecord();
+                final int index = reader.getMetadata().getColumnIndex("d");
+                Assert.assertTrue(reader.getMetadata().hasColumnDefault(index));
+                long sum = 0;
+                while (cursor.hasNext()) {
+                    sum += record.getShort(index);
+                }
+                Assert.assertEquals(240 * 11, sum);
+            }
+            // default survives writer and reader re-open and further DDL
+            engine.clear();
+            compile("alter table x add column e int");
+            assertSql("select d, e from x limit 1", "d\te\n11\tNaN\n");
+        });
+    }
+
+    @Test
+    public void testDefaultOutOfOrderInsert() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            // column top in the middle of the last partition
+            compile("insert into x select 240 + x, timestamp_sequence('2022-01-11', 3600000000) from long_sequence(5)");
+            compile("alter table x add column d int default 3");
+            compile("insert into x (x, d, ts) select 245 + x, 1, timestamp_sequence('2022-01-11T05:00', 3600000000) from long_sequence(2)");
+            // out of order rows are merged into rows above column top
+            compile("insert into x (x, d, ts) select 500 + x, 2, timestamp_sequence('2022-01-11T00:30', 3600000000) from long_sequence(2)");
+            assertSql("select x, d from x where ts >= '2022-01-11'", "x\td\n" +
+                    "241\t3\n" +
+                    "501\t2\n" +
+                    "242\t3\n" +
+                    "502\t2\n" +
+                    "243\t3\n" +
+                    "244\t3\n" +
+                    "245\t3\n" +
+                    "246\t1\n" +
+                    "247\t1\n");
+            // out of order rows in historic partition, which does not have column file
+            compile("insert into x (x, d, ts) select 600 + x, null, timestamp_sequence('2022-01-01T00:30', 3600000000) from long_sequence(1)");
+            assertSql("select x, d from x where ts <= '2022-01-01T01:00'", "x\td\n" +
+                    "1\t3\n" +
+                    "601\tNaN\n" +
+                    "2\t3\n");
+        });
+    }
+
+    @Test
+    public void testInvalidDefault() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertFailure("alter table x add column d string default 'a'", 34, "default value is not supported for STRING columns");
+            assertFailure("alter table x add column d int default 'a'", 39, "invalid default value [type=INT]");
+            assertFailure("alter table x add column d int default null", 39, "invalid default value [type=INT]");
+            assertFailure("alter table x add column d byte default 128", 40, "invalid default value [type=BYTE]");
+            assertFailure("alter table x add column d boolean default 1", 43, "invalid default value [type=BOOLEAN]");
+            assertFailure("alter table x add column d double default NaN", 42, "invalid default value [type=DOUBLE]");
+            assertFailure("alter table x add column d timestamp default 'yesterday'", 45, "invalid default value [type=TIMESTAMP]");
+            assertFailure("alter table x add column d int default", 38, "default value expected");
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(-1, reader.getMetadata().getColumnIndexQuiet("d"));
+            }
+        });
+    }
+
+    private static void assertFailure(String sql, int position, String message) {
+        try {
+            compile(sql);
+            Assert.fail();
+        } catch (SqlException e) {
+            Assert.assertEquals(position, e.getPosition());
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+    }
+
+    private static CompiledQuery compile(String sql) throws SqlException {
+        return compiler.compile(sql, sqlExecutionContext);
+    }
+
+    private static void createX() throws SqlException {
+        // ten days of hourly rows
+        compile("create table x as (select x, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(240)) timestamp(ts) partition by DAY");
+    }
+}
@@ -0,0 +1,278 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+import static io.questdb.griffin.CompiledQuery.ALTER;
+
+public class AlterTableCompressPartitionTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAddIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createXY();
+            compile("alter table x compress partition list '2018-01-02'");
+            compile("alter table x alter column sym add index");
+            assertColumnFile(true, "2018-01-02", "sym.d");
+            assertColumnFile(false, "2018-01-02", "sym.dz");
+            assertColumnFile(true, "2018-01-02", "timestamp.dz");
+            assertSame("select * from x where sym = 'msft'", "select * from y where sym = 'msft'");
+        });
+    }
+
+    @Test
+    public void testAutomatic() throws Exception {
+        assertMemoryLeak(() -> {
+            createY();
+            configOverrideHotPartitionCount = 2;
+            compile("create table x as (select * from y) timestamp(timestamp) partition by DAY");
+            for (int day = 1; day < 8; day++) {
+                assertColumnFile(true, "2018-01-0" + day, "timestamp.dz");
+                assertColumnFile(false, "2018-01-0" + day, "timestamp.d");
+            }
+            assertColumnFile(true, "2018-01-08", "timestamp.d");
+            assertColumnFile(true, "2018-01-09", "timestamp.d");
+            assertSame("select * from x", "select * from y");
+
+            // partition that falls out of hot window is compressed on next commit
+            compile("insert into x select i, sym, amt, dateadd('d', 1, timestamp), b, c, d, e, f, g, ik, j, k, l, m, n from y where timestamp in '2018-01-09'");
+            compile("insert into y select i, sym, amt, dateadd('d', 1, timestamp), b, c, d, e, f, g, ik, j, k, l, m, n from y where timestamp in '2018-01-09'");
+            assertColumnFile(true, "2018-01-08", "timestamp.dz");
+            assertColumnFile(true, "2018-01-09", "timestamp.d");
+            assertSame("select * from x", "select * from y");
+        });
+    }
+
+    @Test
+    public void testCompress() throws Exception {
+        assertMemoryLeak(() -> {
+            createXY();
+            Assert.assertEquals(ALTER, compile("alter table x compress partition list '2018-01-01', '2018-01-03'").getType());
+            for (String column : new String[]{"i", "sym", "amt", "timestamp", "b", "d", "e", "f", "g", "ik", "j", "k", "l"}) {
+                assertColumnFile(true, "2018-01-01", column + ".dz");
+                assertColumnFile(false, "2018-01-01", column + ".d");
+                assertColumnFile(true, "2018-01-03", column + ".dz");
+                assertColumnFile(true, "2018-01-02", column + ".d");
+            }
+            assertColumnFile(true, "2018-01-01", "c.d");
+            assertColumnFile(true, "2018-01-01", "m.d");
+            assertSame("select * from x", "select * from y");
+            assertSame("select * from x where amt > 50 and timestamp in '2018-01-03'", "select * from y where amt > 50 and timestamp in '2018-01-03'");
+            assertSame("select sym, count(), sum(j) from x order by sym", "select sym, count(), sum(j) from y order by sym");
+
+            // compressing again is no-op
+            compile("alter table x compress partition list '2018-01-01'");
+            assertSame("select * from x", "select * from y");
+        });
+    }
+
+    @Test
+    public void testCompressActivePartition() throws Exception {
+        assertFailure("alter table x compress partition list '2018-01-09'", 38, "could not compress partition '2018-01-09'");
+    }
+
+    @Test
+    public void testCompressExpectList() throws Exception {
+        assertFailure("alter table x compress partition where timestamp < 0", 33, "'list' expected");
+    }
+
+    @Test
+    public void testCompressExpectPartition() throws Exception {
+        assertFailure("alter table x compress column", 23, "'partition' expected");
+    }
+
+    @Test
+    public void testCompressNonExistentPartition() throws Exception {
+        assertFailure("alter table x compress partition list '2017-01-05'", 38, "could not compress partition '2017-01-05'");
+    }
+
+    @Test
+    public void testDropAndRenameColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createXY();
+            compile("alter table x compress partition list '2018-01-01'");
+            compile("alter table x rename column amt to amt2");
+            compile("alter table x drop column j");
+            assertColumnFile(true, "2018-01-01", "amt2.dz");
+            assertColumnFile(false, "2018-01-01", "amt.dz");
+            assertColumnFile(false, "2018-01-01", "j.dz");
+            assertSame("select i, sym, amt2, timestamp, k from x", "select i, sym, amt amt2, timestamp, k from y");
+        });
+    }
+
+    @Test
+    public void testDropPartitionBeforeCompressed() throws Exception {
+        assertMemoryLeak(() -> {
+            createXY();
+            compile("alter table x compress partition list '2018-01-02'");
+            compile("alter table x drop partition list '2018-01-01'");
+            compile("alter table y drop partition list '2018-01-01'");
+            assertSame("select * from x", "select * from y");
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(getMinTimestamp("y"), reader.getMinTimestamp());
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderInsert() throws Exception {
+        assertMemoryLeak(() -> {
+            createXY();
+            compile("alter table x compress partition list '2018-01-02', '2018-01-03'");
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                // partitions are open and decompressed by the reader
+                final long rowCount = countRows(reader);
+
+                final String o3 = "select i, sym, amt, dateadd('m', 1, timestamp), b, c, d, e, f, g, ik, j, k, l, m, n from y where timestamp in '2018-01-02'";
+                compile("insert into x " + o3);
+                compile("insert into y " + o3);
+                assertColumnFile(false, "2018-01-02", "timestamp.dz");
+                assertColumnFile(true, "2018-01-03", "timestamp.dz");
+                assertSame("select * from x", "select * from y");
+
+                reader.reload();
+                Assert.assertEquals(getRowCount("y"), countRows(reader));
+                Assert.assertTrue(countRows(reader) > rowCount);
+            }
+        });
+    }
+
+    @Test
+    public void testReaderAppendedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createXY();
+            compile("alter table x compress partition list '2018-01-02'");
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                countRows(reader);
+                // rows after the end of partition are appended to its files in place
+                final String o3 = "select i, sym, amt, dateadd('s', 1, timestamp), b, c, d, e, f, g, ik, j, k, l, m, n from y where timestamp = '2018-01-02T23:48:00.000000Z'";
+                compile("insert into x " + o3);
+                compile("insert into y " + o3);
+                reader.reload();
+                Assert.assertEquals(getRowCount("y"), countRows(reader));
+            }
+            assertSame("select * from x", "select * from y");
+        });
+    }
+
+    @Test
+    public void testReaderOpenWhileCompressing() throws Exception {
+        assertMemoryLeak(() -> {
+            createXY();
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                final long rowCount = countRows(reader);
+                compile("alter table x compress partition list '2018-01-01', '2018-01-02'");
+                reader.reload();
+                Assert.assertEquals(rowCount, countRows(reader));
+            }
+            assertSame("select * from x", "select * from y");
+        });
+    }
+
+    private static void assertColumnFile(boolean exists, String partition, String fileName) {
+        Assert.assertEquals(fileName, exists, new File(Paths.get(root.toString(), "x", partition, fileName).toString()).exists());
+    }
+
+    private static long countRows(TableReader reader) {
+        final RecordCursor cursor = reader.getCursor();
+        long count = 0;
+        while (cursor.hasNext()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static CompiledQuery compile(String sql) throws SqlException {
+        return compiler.compile(sql, sqlExecutionContext);
+    }
+
+    private static long getMinTimestamp(String tableName) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            return reader.getMinTimestamp();
+        }
+    }
+
+    private static long getRowCount(String tableName) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            return reader.size();
+        }
+    }
+
+    private void assertFailure(String sql, int position, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            createXY();
+            try {
+                compile(sql);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+
+    private void assertSame(String actual, String expected) throws SqlException {
+        TestUtils.assertSqlCursors(compiler, sqlExecutionContext, expected, actual, LOG);
+    }
+
+    private void createXY() throws SqlException {
+        createY();
+        compile("create table x as (select * from y) timestamp(timestamp) partition by DAY");
+    }
+
+    private void createY() throws SqlException {
+        compile(
+                "create table y as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_symbol('msft','ibm', 'googl') sym," +
+                        " round(rnd_double(0)*100, 3) amt," +
+                        " to_timestamp('2018-01', 'yyyy-MM') + x * 720000000 timestamp," +
+                        " rnd_boolean() b," +
+                        " rnd_str('ABC', 'CDE', null, 'XYZ') c," +
+                        " rnd_double(2) d," +
+                        " rnd_float(2) e," +
+                        " rnd_short(10,1024) f," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) g," +
+                        " rnd_symbol(4,4,4,2) ik," +
+                        " rnd_long() j," +
+                        " timestamp_sequence(0, 1000000000) k," +
+                        " rnd_byte(2,50) l," +
+                        " rnd_bin(10, 20, 2) m," +
+                        " rnd_str(5,16,2) n" +
+                        " from long_sequence(1000)" +
+                        ") timestamp (timestamp) partition by DAY"
+        );
+    }
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class AlterTableMovePartitionTest extends AbstractGriffinTest {
+    private static final String ALL_ROWS = "select count(), sum(x), min(ts), max(ts) from x";
+    private static final String ALL_ROWS_EXPECTED = "count\tsum\tmin\tmax\n" +
+            "240\t28920\t2022-01-01T00:00:00.000000Z\t2022-01-10T23:00:00.000000Z\n";
+    private String coldRoot;
+
+    @Before
+    public void setUpVolume() throws IOException {
+        coldRoot = temp.newFolder().getAbsolutePath();
+        configOverrideVolumes.put("cold", coldRoot);
+    }
+
+    @Test
+    public void testColumnChangesAreRejected() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition list '2022-01-01' to volume 'cold'");
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                try {
+                    writer.removeColumn("x");
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "cannot remove column, table has partitions on storage volumes");
+                }
+                // new columns do not touch existing partitions
+                writer.addColumn("y", ColumnType.INT);
+            }
+            assertSql("select count() from x where ts < '2022-01-02' and y = null", "count\n24\n");
+        });
+    }
+
+    @Test
+    public void testDropPartitionOnVolume() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition list '2022-01-01', '2022-01-02' to volume 'cold'");
+            compile("alter table x drop partition list '2022-01-01'");
+            assertPartitionDirs(coldRoot, "2022-01-02");
+            assertSql("select min(ts), count() from x", "min\tcount\n2022-01-02T00:00:00.000000Z\t216\n");
+
+            compile("drop table x");
+            Assert.assertFalse(new File(coldRoot, "x").exists());
+        });
+    }
+
+    @Test
+    public void testMoveActivePartition() throws Exception {
+        assertFailure(
+                "alter table x move partition list '2022-01-01', '2022-01-10' to volume 'cold'",
+                "create table x as (select x, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(240)) timestamp(ts) partition by DAY",
+                48,
+                "could not move partition"
+        );
+    }
+
+    @Test
+    public void testMoveToVolumeAndBack() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition list '2022-01-01', '2022-01-02' to volume 'cold'");
+            assertSql(ALL_ROWS, ALL_ROWS_EXPECTED);
+            assertSql("select count() from x where ts in '2022-01-02'", "count\n24\n");
+            drainPurgeQueue();
+            assertPartitionDirs(coldRoot, "2022-01-01", "2022-01-02");
+            assertPartitionDirs(root.toString(), "2022-01-03", "2022-01-04", "2022-01-05", "2022-01-06", "2022-01-07", "2022-01-08", "2022-01-09", "2022-01-10");
+
+            // moving partition to where it is already is a no-op
+            compile("alter table x move partition list '2022-01-02' to volume 'cold'");
+
+            compile("alter table x move partition list '2022-01-01' to volume default");
+            assertSql(ALL_ROWS, ALL_ROWS_EXPECTED);
+            drainPurgeQueue();
+            assertPartitionDirs(coldRoot, "2022-01-02");
+
+            // partition locations survive writer and reader reopen
+            engine.clear();
+            assertSql(ALL_ROWS, ALL_ROWS_EXPECTED);
+            compile("insert into x select x, timestamp_sequence('2022-01-11', 3600000000) from long_sequence(24)");
+            assertSql("select count() from x where ts in '2022-01-02'", "count\n24\n");
+            assertPartitionDirs(coldRoot, "2022-01-02");
+        });
+    }
+
+    @Test
+    public void testOutOfOrderRowsRecallPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x move partition list '2022-01-01', '2022-01-02' to volume 'cold'");
+            executeInsert("insert into x values (1000, '2022-01-02T12:30')");
+            assertSql("select count(), sum(x) from x where ts in '2022-01-02'", "count\tsum\n25\t1876\n");
+            drainPurgeQueue();
+            assertPartitionDirs(coldRoot, "2022-01-01");
+            assertSql("select count() from x", "count\n241\n");
+        });
+    }
+
+    @Test
+    public void testReaderKeepsMovedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                compile("alter table x move partition list '2022-01-01' to volume 'cold'");
+                drainPurgeQueue();
+                // reader has not opened the partition yet and still finds it in table directory
+                Assert.assertEquals(24, reader.openPartition(0));
+                assertPartitionDirs(root.toString(), "2022-01-01", "2022-01-02", "2022-01-03", "2022-01-04", "2022-01-05", "2022-01-06", "2022-01-07", "2022-01-08", "2022-01-09", "2022-01-10");
+
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(24, reader.openPartition(0));
+            }
+            // old copy is purged on the next commit after reader is gone
+            compile("insert into x select x, timestamp_sequence('2022-01-11', 3600000000) from long_sequence(1)");
+            drainPurgeQueue();
+            assertPartitionDirs(coldRoot, "2022-01-01");
+            assertSql("select count() from x where ts in '2022-01-01'", "count\n24\n");
+        });
+    }
+
+    @Test
+    public void testVolumeExpected() throws Exception {
+        assertFailure(
+                "alter table x move partition list '2022-01-01' to 'cold'",
+                "create table x (ts timestamp) timestamp(ts) partition by DAY",
+                50,
+                "'volume' expected"
+        );
+    }
+
+    @Test
+    public void testVolumeNotConfigured() throws Exception {
+        assertFailure(
+                "alter table x move partition list '2022-01-01' to volume 'hot'",
+                "create table x (ts timestamp) timestamp(ts) partition by DAY",
+                57,
+                "volume is not configured [alias=hot]"
+        );
+    }
+
+    private static void assertPartitionDirs(String tableRoot, String... partitions) {
+        final String[] dirs = new File(Paths.get(tableRoot, "x").toString()).list((dir, name) -> name.startsWith("2022-"));
+        Assert.assertNotNull(dirs);
+        Assert.assertEquals(partitions.length, dirs.length);
+        for (String partition : partitions) {
+            boolean found = false;
+            for (String dir : dirs) {
+                found |= dir.startsWith(partition);
+            }
+            Assert.assertTrue(partition, found);
+        }
+    }
+
+    private static CompiledQuery compile(String sql) throws SqlException {
+        return compiler.compile(sql, sqlExecutionContext);
+    }
+
+    private static void createX() throws SqlException {
+        // ten days of hourly rows
+        compile("create table x as (select x, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(240)) timestamp(ts) partition by DAY");
+    }
+}
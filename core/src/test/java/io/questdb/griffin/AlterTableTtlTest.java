@@ -0,0 +1,139 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+public class AlterTableTtlTest extends AbstractGriffinTest {
+
+    @Test
+    public void testExpiredPartitionsAreDetached() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x set ttl 3d");
+            // last row is at 2022-01-10T23:00, partitions that end before 2022-01-07T23:00 expire
+            assertSql("select min(ts), count() from x", "min\tcount\n2022-01-07T00:00:00.000000Z\t96\n");
+            assertPartitionDirsAfterPurge("2022-01-07", 4);
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(72, reader.getMetadata().getTtl());
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidTtl() throws Exception {
+        assertFailure("alter table x set ttl abcd", "create table x (ts timestamp) timestamp(ts) partition by DAY", 22, "invalid TTL [value=abcd]");
+    }
+
+    @Test
+    public void testInvalidTtlUnit() throws Exception {
+        assertFailure("alter table x set ttl 12s", "create table x (ts timestamp) timestamp(ts) partition by DAY", 24, "TTL unit expected");
+    }
+
+    @Test
+    public void testPartitionInUseIsNotPurged() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                compile("alter table x set ttl 1w");
+                drainPurgeQueue();
+                // reader still sees detached partitions
+                Assert.assertTrue(partitionDir("2022-01-01").exists());
+                Assert.assertEquals(240, reader.size());
+            }
+            // partition directories are purged on the next commit after reader is gone
+            compile("insert into x select x, timestamp_sequence('2022-01-10T23:30', 1000000) from long_sequence(1)");
+            assertPartitionDirsAfterPurge("2022-01-03", 8);
+            assertSql("select min(ts), count() from x", "min\tcount\n2022-01-03T00:00:00.000000Z\t193\n");
+        });
+    }
+
+    @Test
+    public void testTtlInMonths() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x, timestamp_sequence('2021-01-15', 86400000000L * 10) ts from long_sequence(40)) timestamp(ts) partition by MONTH");
+            compile("alter table x set ttl 6M");
+            // last row is at 2022-02-09, partitions that end before 2021-08-09 expire
+            assertSql("select min(ts) from x", "min\n2021-08-03T00:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testTtlIsEnforcedOnCommit() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x set ttl 240h");
+            assertSql("select count() from x", "count\n240\n");
+
+            compile("insert into x select x, timestamp_sequence('2022-01-11', 3600000000) from long_sequence(48)");
+            assertSql("select min(ts), count() from x", "min\tcount\n2022-01-02T00:00:00.000000Z\t264\n");
+
+            // TTL survives metadata changes
+            compile("alter table x add column y int");
+            compile("insert into x select x, timestamp_sequence('2022-01-13', 3600000000), 1 from long_sequence(24)");
+            assertSql("select min(ts), count() from x", "min\tcount\n2022-01-03T00:00:00.000000Z\t264\n");
+            assertPartitionDirsAfterPurge("2022-01-03", 11);
+
+            // zero TTL keeps partitions forever
+            compile("alter table x set ttl 0");
+            compile("insert into x select x, timestamp_sequence('2022-01-14', 3600000000), 1 from long_sequence(24)");
+            assertSql("select min(ts), count() from x", "min\tcount\n2022-01-03T00:00:00.000000Z\t288\n");
+        });
+    }
+
+    @Test
+    public void testTtlRequiresPartitionedTable() throws Exception {
+        assertFailure("alter table x set ttl 1d", "create table x (ts timestamp) timestamp(ts)", 12, "TTL requires partitioned table");
+    }
+
+    private static void assertPartitionDirsAfterPurge(String firstPartition, int partitionCount) {
+        drainPurgeQueue();
+        final String[] partitions = new File(Paths.get(root.toString(), "x").toString()).list((dir, name) -> name.startsWith("2022-"));
+        Assert.assertNotNull(partitions);
+        Assert.assertEquals(partitionCount, partitions.length);
+        for (String partition : partitions) {
+            Assert.assertTrue(partition, partition.compareTo(firstPartition) >= 0);
+        }
+    }
+
+    private static CompiledQuery compile(String sql) throws SqlException {
+        return compiler.compile(sql, sqlExecutionContext);
+    }
+
+    private static void createX() throws SqlException {
+        // ten days of hourly rows
+        compile("create table x as (select x, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(240)) timestamp(ts) partition by DAY");
+    }
+
+    private static File partitionDir(String partition) {
+        return new File(Paths.get(root.toString(), "x", partition).toString());
+    }
+}
@@ -0,0 +1,410 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.analytic.AnalyticRecordCursorFactory;
+import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AnalyticFunctionTest extends AbstractGriffinTest {
+
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " cast(case when x % 3 = 0 then 'b' else 'a' end as symbol) s," +
+            " case when x = 4 then cast(null as double) else cast(x as double) end v," +
+            " timestamp_sequence(0, 1800000000) ts" +
+            " from long_sequence(10)" +
+            ") timestamp(ts)";
+
+    private static final String DDL_NO_NULLS = "create table y as (" +
+            "select" +
+            " cast(x as double) v," +
+            " x % 3 k," +
+            " timestamp_sequence(0, 1800000000) ts" +
+            " from long_sequence(6)" +
+            ") timestamp(ts)";
+
+    @Test
+    public void testCumulativeSumAndAverage() throws Exception {
+        assertQuery(
+                "ts\tv\tsum\tavg\n" +
+                        "1970-01-01T00:00:00.000000Z\t1.0\t1.0\t1.0\n" +
+                        "1970-01-01T00:30:00.000000Z\t2.0\t3.0\t1.5\n" +
+                        "1970-01-01T01:00:00.000000Z\t3.0\t6.0\t3.0\n" +
+                        "1970-01-01T01:30:00.000000Z\tNaN\t6.0\t1.5\n" +
+                        "1970-01-01T02:00:00.000000Z\t5.0\t11.0\t2.6666666666666665\n" +
+                        "1970-01-01T02:30:00.000000Z\t6.0\t17.0\t4.5\n" +
+                        "1970-01-01T03:00:00.000000Z\t7.0\t24.0\t3.75\n" +
+                        "1970-01-01T03:30:00.000000Z\t8.0\t32.0\t4.6\n" +
+                        "1970-01-01T04:00:00.000000Z\t9.0\t41.0\t6.0\n" +
+                        "1970-01-01T04:30:00.000000Z\t10.0\t51.0\t5.5\n",
+                "select ts, v, sum(v) over (order by ts) sum, avg(v) over (partition by s order by ts) avg from x",
+                DDL,
+                "ts",
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testFirstAndLastValue() throws Exception {
+        assertQuery(
+                "ts\tv\tfirst\tlast\tfirst_h\n" +
+                        "1970-01-01T00:00:00.000000Z\t1.0\t1.0\t1.0\t1.0\n" +
+                        "1970-01-01T00:30:00.000000Z\t2.0\t1.0\t2.0\t1.0\n" +
+                        "1970-01-01T01:00:00.000000Z\t3.0\t1.0\t3.0\t3.0\n" +
+                        "1970-01-01T01:30:00.000000Z\tNaN\t2.0\tNaN\t2.0\n" +
+                        "1970-01-01T02:00:00.000000Z\t5.0\t3.0\t5.0\tNaN\n" +
+                        "1970-01-01T02:30:00.000000Z\t6.0\tNaN\t6.0\t6.0\n" +
+                        "1970-01-01T03:00:00.000000Z\t7.0\t5.0\t7.0\t5.0\n" +
+                        "1970-01-01T03:30:00.000000Z\t8.0\t6.0\t8.0\t7.0\n" +
+                        "1970-01-01T04:00:00.000000Z\t9.0\t7.0\t9.0\t9.0\n" +
+                        "1970-01-01T04:30:00.000000Z\t10.0\t8.0\t10.0\t8.0\n",
+                "select ts, v," +
+                        " first_value(v) over (order by ts rows 2 preceding) first," +
+                        " last_value(v) over (partition by s order by ts) last," +
+                        " first_value(v) over (partition by s order by ts range 1h preceding) first_h" +
+                        " from x",
+                DDL,
+                "ts",
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testFrameEndNotSupported() throws Exception {
+        assertFailure(
+                "select ts, sum(v) over (order by ts rows between 1 preceding and 1 following) sum from x",
+                DDL,
+                65,
+                "unsupported frame end, 'current row' expected"
+        );
+    }
+
+    @Test
+    public void testFrameOffsetWithUnitsInRowsFrame() throws Exception {
+        assertFailure(
+                "select ts, sum(v) over (order by ts rows 1h preceding) sum from x",
+                DDL,
+                42,
+                "non-negative integer frame offset expected"
+        );
+    }
+
+    @Test
+    public void testFrameStartNotSupported() throws Exception {
+        assertFailure(
+                "select ts, sum(v) over (order by ts rows between 1 following and current row) sum from x",
+                DDL,
+                49,
+                "unsupported frame start, 'preceding' or 'current row' expected"
+        );
+    }
+
+    @Test
+    public void testLagAndLead() throws Exception {
+        assertQuery(
+                "s\tv\tts\tlag\tlead\tlag2\n" +
+                        "a\t1.0\t1970-01-01T00:00:00.000000Z\tNaN\t2.0\t0.0\n" +
+                        "a\t2.0\t1970-01-01T00:30:00.000000Z\t1.0\tNaN\t0.0\n" +
+                        "b\t3.0\t1970-01-01T01:00:00.000000Z\tNaN\t6.0\t1.0\n" +
+                        "a\tNaN\t1970-01-01T01:30:00.000000Z\t2.0\t5.0\t2.0\n" +
+                        "a\t5.0\t1970-01-01T02:00:00.000000Z\tNaN\t7.0\t3.0\n" +
+                        "b\t6.0\t1970-01-01T02:30:00.000000Z\t3.0\t9.0\tNaN\n" +
+                        "a\t7.0\t1970-01-01T03:00:00.000000Z\t5.0\t8.0\t5.0\n" +
+                        "a\t8.0\t1970-01-01T03:30:00.000000Z\t7.0\t10.0\t6.0\n" +
+                        "b\t9.0\t1970-01-01T04:00:00.000000Z\t6.0\tNaN\t7.0\n" +
+                        "a\t10.0\t1970-01-01T04:30:00.000000Z\t8.0\tNaN\t8.0\n",
+                "select s, v, ts," +
+                        " lag(v) over (partition by s order by ts) lag," +
+                        " lead(v) over (partition by s order by ts) lead," +
+                        " lag(v, 2, 0) over (order by ts) lag2" +
+                        " from x",
+                DDL,
+                "ts",
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testLagNegativeOffset() throws Exception {
+        assertFailure(
+                "select ts, lag(v, -1) over (order by ts) from x",
+                DDL,
+                18,
+                "offset must be a non-negative integer"
+        );
+    }
+
+    @Test
+    public void testLagWithoutOver() throws Exception {
+        assertFailure(
+                "select ts, lag(v) from x",
+                DDL,
+                11,
+                "analytic function called without 'over' clause"
+        );
+    }
+
+    @Test
+    public void testLeadIsCached() throws Exception {
+        // lead writes values back to earlier rows and cannot stream
+        assertFactory(
+                "select ts, v, lead(v) over (order by ts) lead from x",
+                CachedAnalyticRecordCursorFactory.class
+        );
+    }
+
+    @Test
+    public void testMinAndMax() throws Exception {
+        assertQuery(
+                "ts\tv\tmin\tmax\n" +
+                        "1970-01-01T00:00:00.000000Z\t1.0\t1.0\t1.0\n" +
+                        "1970-01-01T00:30:00.000000Z\t2.0\t1.0\t2.0\n" +
+                        "1970-01-01T01:00:00.000000Z\t3.0\t1.0\t3.0\n" +
+                        "1970-01-01T01:30:00.000000Z\tNaN\t2.0\t2.0\n" +
+                        "1970-01-01T02:00:00.000000Z\t5.0\t3.0\t5.0\n" +
+                        "1970-01-01T02:30:00.000000Z\t6.0\t5.0\t6.0\n" +
+                        "1970-01-01T03:00:00.000000Z\t7.0\t5.0\t7.0\n" +
+                        "1970-01-01T03:30:00.000000Z\t8.0\t6.0\t8.0\n" +
+                        "1970-01-01T04:00:00.000000Z\t9.0\t7.0\t9.0\n" +
+                        "1970-01-01T04:30:00.000000Z\t10.0\t8.0\t10.0\n",
+                "select ts, v," +
+                        " min(v) over (order by ts rows 2 preceding) min," +
+                        " max(v) over (partition by s order by ts range 2h preceding) max" +
+                        " from x",
+                DDL,
+                "ts",
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testMovingAverageRows() throws Exception {
+        assertQuery(
+                "ts\tv\tavg\tsum\n" +
+                        "1970-01-01T00:00:00.000000Z\t1.0\t1.0\t1.0\n" +
+                        "1970-01-01T00:30:00.000000Z\t2.0\t1.5\t3.0\n" +
+                        "1970-01-01T01:00:00.000000Z\t3.0\t2.0\t3.0\n" +
+                        "1970-01-01T01:30:00.000000Z\tNaN\t2.5\t2.0\n" +
+                        "1970-01-01T02:00:00.000000Z\t5.0\t4.0\t5.0\n" +
+                        "1970-01-01T02:30:00.000000Z\t6.0\t5.5\t9.0\n" +
+                        "1970-01-01T03:00:00.000000Z\t7.0\t6.0\t12.0\n" +
+                        "1970-01-01T03:30:00.000000Z\t8.0\t7.0\t15.0\n" +
+                        "1970-01-01T04:00:00.000000Z\t9.0\t8.0\t15.0\n" +
+                        "1970-01-01T04:30:00.000000Z\t10.0\t9.0\t18.0\n",
+                "select ts, v," +
+                        " avg(v) over (order by ts rows between 2 preceding and current row) avg," +
+                        " sum(v) over (partition by s order by ts rows 1 preceding) sum" +
+                        " from x",
+                DDL,
+                "ts",
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testMovingSumRange() throws Exception {
+        assertQuery(
+                "ts\tv\tsum\tavg\n" +
+                        "1970-01-01T00:00:00.000000Z\t1.0\t1.0\t1.0\n" +
+                        "1970-01-01T00:30:00.000000Z\t2.0\t3.0\t1.5\n" +
+                        "1970-01-01T01:00:00.000000Z\t3.0\t6.0\t2.0\n" +
+                        "1970-01-01T01:30:00.000000Z\tNaN\t5.0\t2.0\n" +
+                        "1970-01-01T02:00:00.000000Z\t5.0\t8.0\t3.3333333333333335\n" +
+                        "1970-01-01T02:30:00.000000Z\t6.0\t11.0\t4.666666666666667\n" +
+                        "1970-01-01T03:00:00.000000Z\t7.0\t18.0\t6.0\n" +
+                        "1970-01-01T03:30:00.000000Z\t8.0\t21.0\t6.5\n" +
+                        "1970-01-01T04:00:00.000000Z\t9.0\t24.0\t7.5\n" +
+                        "1970-01-01T04:30:00.000000Z\t10.0\t27.0\t8.5\n",
+                "select ts, v," +
+                        " sum(v) over (order by ts range between 1h preceding and current row) sum," +
+                        " avg(v) over (order by ts range 90m preceding) avg" +
+                        " from x",
+                DDL,
+                "ts",
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testNonAnalyticFunctionWithOver() throws Exception {
+        assertFailure(
+                "select ts, abs(v) over (order by ts) a from x",
+                DDL,
+                11,
+                "non-analytic function called in analytic context"
+        );
+    }
+
+    @Test
+    public void testPartitionByColumnNotSelected() throws Exception {
+        assertQuery(
+                "ts\tv\tps\n" +
+                        "1970-01-01T00:00:00.000000Z\t1.0\t5.0\n" +
+                        "1970-01-01T00:30:00.000000Z\t2.0\t7.0\n" +
+                        "1970-01-01T01:00:00.000000Z\t3.0\t9.0\n" +
+                        "1970-01-01T01:30:00.000000Z\t4.0\t4.0\n" +
+                        "1970-01-01T02:00:00.000000Z\t5.0\t5.0\n" +
+                        "1970-01-01T02:30:00.000000Z\t6.0\t6.0\n",
+                "select ts, v, sum(v) over (partition by k order by v desc) ps from y",
+                DDL_NO_NULLS,
+                "ts",
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testRangeFrameRequiresTimestampOrder() throws Exception {
+        assertFailure(
+                "select ts, sum(v) over (order by v range 10 preceding) sum from x",
+                DDL,
+                35,
+                "range frame with offset requires ascending order by single timestamp column"
+        );
+    }
+
+    @Test
+    public void testRowNumberWithoutPartition() throws Exception {
+        assertQuery(
+                "ts\tv\trn\n" +
+                        "1970-01-01T00:00:00.000000Z\t1.0\t0\n" +
+                        "1970-01-01T00:30:00.000000Z\t2.0\t1\n" +
+                        "1970-01-01T01:00:00.000000Z\t3.0\t2\n" +
+                        "1970-01-01T01:30:00.000000Z\tNaN\t3\n" +
+                        "1970-01-01T02:00:00.000000Z\t5.0\t4\n" +
+                        "1970-01-01T02:30:00.000000Z\t6.0\t5\n" +
+                        "1970-01-01T03:00:00.000000Z\t7.0\t6\n" +
+                        "1970-01-01T03:30:00.000000Z\t8.0\t7\n" +
+                        "1970-01-01T04:00:00.000000Z\t9.0\t8\n" +
+                        "1970-01-01T04:30:00.000000Z\t10.0\t9\n",
+                "select ts, v, row_number() over () rn from x",
+                DDL,
+                "ts",
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testStreamsInTimestampOrder() throws Exception {
+        assertFactory(
+                "select ts, v, sum(v) over (partition by s order by ts) sum, lag(v) over (order by ts rows 3 preceding) lag from x",
+                AnalyticRecordCursorFactory.class
+        );
+    }
+
+    @Test
+    public void testWholePartition() throws Exception {
+        assertQuery(
+                "s\tv\tts\tsum\tmax\tfirst\tlast\n" +
+                        "a\t1.0\t1970-01-01T00:00:00.000000Z\t33.0\t10.0\t1.0\t10.0\n" +
+                        "a\t2.0\t1970-01-01T00:30:00.000000Z\t33.0\t10.0\t1.0\t10.0\n" +
+                        "b\t3.0\t1970-01-01T01:00:00.000000Z\t18.0\t9.0\t3.0\t9.0\n" +
+                        "a\tNaN\t1970-01-01T01:30:00.000000Z\t33.0\t10.0\t1.0\t10.0\n" +
+                        "a\t5.0\t1970-01-01T02:00:00.000000Z\t33.0\t10.0\t1.0\t10.0\n" +
+                        "b\t6.0\t1970-01-01T02:30:00.000000Z\t18.0\t9.0\t3.0\t9.0\n" +
+                        "a\t7.0\t1970-01-01T03:00:00.000000Z\t33.0\t10.0\t1.0\t10.0\n" +
+                        "a\t8.0\t1970-01-01T03:30:00.000000Z\t33.0\t10.0\t1.0\t10.0\n" +
+                        "b\t9.0\t1970-01-01T04:00:00.000000Z\t18.0\t9.0\t3.0\t9.0\n" +
+                        "a\t10.0\t1970-01-01T04:30:00.000000Z\t33.0\t10.0\t1.0\t10.0\n",
+                "select s, v, ts," +
+                        " sum(v) over (partition by s) sum," +
+                        " max(v) over (partition by s) max," +
+                        " first_value(v) over (partition by s) first," +
+                        " last_value(v) over (partition by s) last" +
+                        " from x",
+                DDL,
+                "ts",
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testWholePartitionBeforeColumns() throws Exception {
+        // analytic column slot of the record chain precedes plain columns
+        assertQuery(
+                "ts\tv\ttot\tk\n" +
+                        "1970-01-01T00:00:00.000000Z\t1.0\t21.0\t1\n" +
+                        "1970-01-01T00:30:00.000000Z\t2.0\t21.0\t2\n" +
+                        "1970-01-01T01:00:00.000000Z\t3.0\t21.0\t0\n" +
+                        "1970-01-01T01:30:00.000000Z\t4.0\t21.0\t1\n" +
+                        "1970-01-01T02:00:00.000000Z\t5.0\t21.0\t2\n" +
+                        "1970-01-01T02:30:00.000000Z\t6.0\t21.0\t0\n",
+                "select ts, v, sum(v) over () tot, k from y",
+                DDL_NO_NULLS,
+                "ts",
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testWindowColumnBeforeColumns() throws Exception {
+        assertQuery(
+                "ts\tps\tv\tk\n" +
+                        "1970-01-01T00:00:00.000000Z\t21.0\t1.0\t1\n" +
+                        "1970-01-01T00:30:00.000000Z\t20.0\t2.0\t2\n" +
+                        "1970-01-01T01:00:00.000000Z\t18.0\t3.0\t0\n" +
+                        "1970-01-01T01:30:00.000000Z\t15.0\t4.0\t1\n" +
+                        "1970-01-01T02:00:00.000000Z\t11.0\t5.0\t2\n" +
+                        "1970-01-01T02:30:00.000000Z\t6.0\t6.0\t0\n",
+                "select ts, sum(v) over (order by v desc) ps, v, k from y",
+                DDL_NO_NULLS,
+                "ts",
+                true,
+                true,
+                true
+        );
+    }
+
+    private void assertFactory(String query, Class<?> expectedClass) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(expectedClass, factory.getClass());
+            }
+        });
+    }
+}
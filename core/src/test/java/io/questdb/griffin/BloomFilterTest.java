@@ -0,0 +1,211 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.LPSZ;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BloomFilterTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAddIndexToBloomFilterColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "column has bloom filter index");
+            }
+        });
+    }
+
+    @Test
+    public void testBloomFilterRequiresPartitioning() throws Exception {
+        assertFailure(
+                "create table x (ts timestamp, l long) timestamp(ts) bloom filter(l)",
+                null,
+                52,
+                "bloom filter index is only supported for partitioned tables"
+        );
+    }
+
+    @Test
+    public void testBloomFilterUnsupportedType() throws Exception {
+        assertFailure(
+                "create table x (ts timestamp, i int) timestamp(ts) partition by DAY bloom filter(i)",
+                null,
+                81,
+                "bloom filter index is not supported for INT column"
+        );
+    }
+
+    @Test
+    public void testOutOfOrderInsert() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            // lands in the first and in the last partition
+            compiler.compile("insert into x select x + 10000, 's' || (x + 10000), 'k' || (x + 10000), timestamp_sequence(3600000000, 86400000000) from long_sequence(3)", sqlExecutionContext);
+            assertSql(
+                    "select l, s, sym, ts from x where l = 10001 or s = 's10002' or sym = 'k10003'",
+                    "l\ts\tsym\tts\n" +
+                            "10001\ts10001\tk10001\t1970-01-01T01:00:00.000000Z\n" +
+                            "10002\ts10002\tk10002\t1970-01-02T01:00:00.000000Z\n" +
+                            "10003\ts10003\tk10003\t1970-01-03T01:00:00.000000Z\n"
+            );
+            assertSameAsNoBloomFilter("select * from x where l in (5, 1500, 10001)");
+        });
+    }
+
+    @Test
+    public void testPartitionIsNotOpened() throws Exception {
+        final AtomicInteger openCount = new AtomicInteger();
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public long openRO(LPSZ name) {
+                if (Chars.contains(name, "1970-01-01") && Chars.endsWith(name, ".d")) {
+                    openCount.incrementAndGet();
+                }
+                return super.openRO(name);
+            }
+        };
+        assertMemoryLeak(ff, () -> {
+            createX();
+            openCount.set(0);
+            // first partition holds l = 1..1000
+            assertSql("select l, s, sym from x where l = 2500", "l\ts\tsym\n2500\ts2500\tk2500\n");
+            assertSql("select l from x where s = 's2500'", "l\n2500\n");
+            assertSql("select l from x where s in ('s1500', 's2500')", "l\n1500\n2500\n");
+            assertSql("select l from x where sym = 'k2500'", "l\n2500\n");
+            assertSql("select l from x where sym in ('k1500', 'k2500', 'missing')", "l\n1500\n2500\n");
+            assertSql("select l from x where l = 1500 or s = 's2500'", "l\n1500\n2500\n");
+            assertSql("select l from x where l = 1500 and s = 's1500'", "l\n1500\n");
+            Assert.assertEquals(0, openCount.get());
+
+            assertSameAsNoBloomFilter(
+                    "select * from x where l = 10 or sym = 'k2999'",
+                    "select * from x where s <> 's10'",
+                    "select * from x where not(sym in ('k1', 'k2'))"
+            );
+        });
+    }
+
+    @Test
+    public void testRowBlocksAreSkipped() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (select x l, timestamp_sequence(0, 1000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            compiler.compile("create table y (l long, ts timestamp) timestamp(ts) partition by DAY bloom filter(l)", sqlExecutionContext);
+            compiler.compile("insert into y select * from x", sqlExecutionContext);
+
+            final long value = 3 * BloomFilterUtils.BLOCK_ROW_COUNT + 100;
+            try (FullFwdDataFrameCursor cursor = new FullFwdDataFrameCursor()) {
+                cursor.setPartitionPruner(new PartitionPrunerImpl(value));
+                cursor.of(engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "y"));
+                DataFrame frame = cursor.next();
+                Assert.assertNotNull(frame);
+                Assert.assertEquals(0, frame.getPartitionIndex());
+                Assert.assertEquals(3 * BloomFilterUtils.BLOCK_ROW_COUNT, frame.getRowLo());
+                Assert.assertEquals(4 * BloomFilterUtils.BLOCK_ROW_COUNT, frame.getRowHi());
+                Assert.assertNull(cursor.next());
+            }
+
+            try (FullBwdDataFrameCursor cursor = new FullBwdDataFrameCursor()) {
+                cursor.setPartitionPruner(new PartitionPrunerImpl(value));
+                cursor.of(engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "y"));
+                DataFrame frame = cursor.next();
+                Assert.assertNotNull(frame);
+                Assert.assertEquals(3 * BloomFilterUtils.BLOCK_ROW_COUNT, frame.getRowLo());
+                Assert.assertEquals(4 * BloomFilterUtils.BLOCK_ROW_COUNT, frame.getRowHi());
+                Assert.assertNull(cursor.next());
+            }
+
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "x where l = " + value, "y where l = " + value, LOG);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "x where l = 86399 or l = 86401", "y where l = 86399 or l = 86401", LOG);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "x where l = 99999 order by ts desc", "y where l = 99999 order by ts desc", LOG);
+        });
+    }
+
+    @Test
+    public void testRenameAndDropColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compiler.compile("alter table x rename column l to l2", sqlExecutionContext);
+            compiler.compile("alter table x drop column s", sqlExecutionContext);
+            compiler.compile("insert into x select x + 5000, 'k' || (x + 5000), timestamp_sequence(259200000000, 1000000) from long_sequence(10)", sqlExecutionContext);
+            assertSql("select l2, sym from x where l2 = 2500 or l2 = 5005", "l2\tsym\n2500\tk2500\n5005\tk5005\n");
+        });
+    }
+
+    private void assertSameAsNoBloomFilter(String... queries) throws SqlException {
+        compiler.compile("create table ref as (select * from x) timestamp(ts) partition by DAY", sqlExecutionContext);
+        for (int i = 0, n = queries.length; i < n; i++) {
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, queries[i].replace("from x", "from ref"), queries[i], LOG);
+        }
+    }
+
+    private void createX() throws SqlException {
+        compiler.compile("create table x (l long, s string, sym symbol, ts timestamp) timestamp(ts) partition by DAY bloom filter(l, s, sym)", sqlExecutionContext);
+        // 1000 rows per day
+        compiler.compile("insert into x select x, 's' || x, 'k' || x, timestamp_sequence(0, 86400000) from long_sequence(3000)", sqlExecutionContext);
+    }
+
+    private static class PartitionPrunerImpl implements io.questdb.cairo.sql.PartitionPruner {
+        private final long hash;
+
+        private PartitionPrunerImpl(long value) {
+            this.hash = BloomFilterUtils.hash(value);
+        }
+
+        @Override
+        public boolean canSkip(TableReader reader, int partitionIndex) {
+            final BloomFilterReader bloomFilter = reader.getBloomFilter(partitionIndex, 0);
+            return bloomFilter != null && !bloomFilter.mightContain(hash);
+        }
+
+        @Override
+        public boolean canSkipRows(TableReader reader, int partitionIndex, long rowLo, long rowHi) {
+            final BloomFilterReader bloomFilter = reader.getBloomFilter(partitionIndex, 0);
+            return bloomFilter != null && !bloomFilter.mightContain(hash, rowLo, rowHi);
+        }
+
+        @Override
+        public long getRowBlockSize() {
+            return BloomFilterUtils.BLOCK_ROW_COUNT;
+        }
+    }
+}
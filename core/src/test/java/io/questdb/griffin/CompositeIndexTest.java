@@ -0,0 +1,118 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.table.DataFrameRecordCursorFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompositeIndexTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnMustBeSymbol() throws Exception {
+        assertFailure(
+                "create table x (ex symbol, sym int, ts timestamp), index(ex, sym) timestamp(ts) partition by DAY",
+                null,
+                62,
+                "composite index is not supported for INT column, expected SYMBOL"
+        );
+    }
+
+    @Test
+    public void testLatestByCompositeKey() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertSql(
+                    "x latest by venue where ex = '1' and sym = '2' and venue = '3'",
+                    "ex\tsym\tvenue\tpx\tts\n" +
+                            "1\t2\t3\t53.0\t2022-01-03T04:00:00.000000Z\n"
+            );
+            assertSql(
+                    "x latest by ex where ex = '1' and sym = '2' and venue = '3' and px < 50",
+                    "ex\tsym\tvenue\tpx\tts\n" +
+                            "1\t2\t3\t23.0\t2022-01-01T22:00:00.000000Z\n"
+            );
+            assertSql("x latest by ex where ex = '1' and sym = '2' and venue = 'z'", "ex\tsym\tvenue\tpx\tts\n");
+        });
+    }
+
+    @Test
+    public void testLookupCoversRowsIndexedLater() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            // out of order row rewrites the first partition
+            executeInsert("insert into x values ('1', '2', '3', 1000.0, '2022-01-01T12:30:00.000000Z')");
+            executeInsert("insert into x values ('1', '2', '3', 2000.0, '2022-01-03T20:00:00.000000Z')");
+            assertSql(
+                    "x where ex = '1' and sym = '2' and venue = '3'",
+                    "ex\tsym\tvenue\tpx\tts\n" +
+                            "1\t2\t3\t1000.0\t2022-01-01T12:30:00.000000Z\n" +
+                            "1\t2\t3\t23.0\t2022-01-01T22:00:00.000000Z\n" +
+                            "1\t2\t3\t53.0\t2022-01-03T04:00:00.000000Z\n" +
+                            "1\t2\t3\t2000.0\t2022-01-03T20:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testLookupUsesCompositeIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String query = "x where venue = '3' and sym = '2' and ex = '1'";
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof DataFrameRecordCursorFactory);
+            }
+            assertSql(
+                    query,
+                    "ex\tsym\tvenue\tpx\tts\n" +
+                            "1\t2\t3\t23.0\t2022-01-01T22:00:00.000000Z\n" +
+                            "1\t2\t3\t53.0\t2022-01-03T04:00:00.000000Z\n"
+            );
+            assertSql("x where ex = '1' and sym = '2' and venue = 'z'", "ex\tsym\tvenue\tpx\tts\n");
+        });
+    }
+
+    @Test
+    public void testRequiresPartitioning() throws Exception {
+        assertFailure(
+                "create table x (ex symbol, sym symbol, ts timestamp), index(ex, sym) timestamp(ts)",
+                null,
+                55,
+                "composite index is only supported for partitioned tables"
+        );
+    }
+
+    private void createX() throws SqlException {
+        compiler.compile(
+                "create table x (ex symbol, sym symbol, venue symbol, px double, ts timestamp), index(ex, sym, venue) timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "insert into x select cast(x % 2 as symbol), cast(x % 3 as symbol), cast(x % 5 as symbol), x, timestamp_sequence('2022-01-01', 3600000000L) from long_sequence(60)",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.metrics.MetricsRegistryImpl;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DecodedColumnCacheTest extends AbstractGriffinTest {
+
+    @Test
+    public void testEviction() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compiler.compile("alter table x compress partition list '2022-01-01', '2022-01-02', '2022-01-03'", sqlExecutionContext);
+            // cache fits v and ts columns of one partition
+            final MetricsRegistryImpl registry = new MetricsRegistryImpl();
+            try (DecodedColumnCache cache = new DecodedColumnCache(cacheConfiguration(2 * 24 * Long.BYTES), new DecodedColumnCacheMetrics(registry))) {
+                for (int partition = 0; partition < 3; partition++) {
+                    try (TableReader reader = new TableReader(configuration, "x", cache)) {
+                        reader.openPartition(partition);
+                    }
+                }
+                assertMetric(registry, "decoded_column_cache_misses", 6);
+                assertMetric(registry, "decoded_column_cache_evictions", 4);
+
+                try (
+                        TableReader reader1 = new TableReader(configuration, "x", cache);
+                        TableReader reader2 = new TableReader(configuration, "x", cache)
+                ) {
+                    final int col = reader1.getMetadata().getColumnIndex("v");
+                    reader1.openPartition(2);
+                    // columns in use are not evicted, column that does not fit is decoded for the reader alone
+                    reader2.openPartition(0);
+                    reader2.openPartition(2);
+                    Assert.assertEquals(getColumnAddress(reader1, 2, col), getColumnAddress(reader2, 2, col));
+                    Assert.assertNotEquals(getColumnAddress(reader1, 2, col), getColumnAddress(reader2, 0, col));
+                    Assert.assertEquals(3, reader2.getColumn(TableReader.getPrimaryColumnIndex(reader2.getColumnBase(0), col)).getLong(0));
+                }
+                assertMetric(registry, "decoded_column_cache_hits", 4);
+                assertMetric(registry, "decoded_column_cache_misses", 8);
+                assertMetric(registry, "decoded_column_cache_evictions", 4);
+            }
+        });
+    }
+
+    @Test
+    public void testSharedAcrossReaders() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compiler.compile("alter table x compress partition list '2022-01-01'", sqlExecutionContext);
+            final MetricsRegistryImpl registry = new MetricsRegistryImpl();
+            try (
+                    DecodedColumnCache cache = new DecodedColumnCache(cacheConfiguration(1024 * 1024), new DecodedColumnCacheMetrics(registry));
+                    TableReader reader1 = new TableReader(configuration, "x", cache);
+                    TableReader reader2 = new TableReader(configuration, "x", cache)
+            ) {
+                final int col = reader1.getMetadata().getColumnIndex("v");
+                reader1.openPartition(0);
+                reader2.openPartition(0);
+                final long address = getColumnAddress(reader1, 0, col);
+                Assert.assertNotEquals(0, address);
+                Assert.assertEquals(address, getColumnAddress(reader2, 0, col));
+
+                Assert.assertEquals(12, reader2.getColumn(TableReader.getPrimaryColumnIndex(reader2.getColumnBase(0), col)).getLong(3 * Long.BYTES));
+            }
+            // v and ts columns are decoded once
+            assertMetric(registry, "decoded_column_cache_misses", 2);
+            assertMetric(registry, "decoded_column_cache_hits", 2);
+            assertMetric(registry, "decoded_column_cache_evictions", 0);
+        });
+    }
+
+    @Test
+    public void testUpdatedColumnIsDecodedAgain() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compiler.compile("alter table x compress partition list '2022-01-01'", sqlExecutionContext);
+            assertSql("select sum(v) from x where ts in '2022-01-01'", "sum\n900\n");
+            compiler.compile("update x set v = 1 where ts in '2022-01-01'", sqlExecutionContext);
+            assertSql("select sum(v) from x where ts in '2022-01-01'", "sum\n24\n");
+        });
+    }
+
+    private static void assertMetric(MetricsRegistryImpl registry, String name, long value) {
+        final StringSink sink = new StringSink();
+        registry.scrapeIntoPrometheus(sink);
+        TestUtils.assertContains(sink, "questdb_" + name + "_total " + value + "\n");
+    }
+
+    private static CairoConfiguration cacheConfiguration(long size) {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public int getDecodedColumnCacheSegmentCount() {
+                return 1;
+            }
+
+            @Override
+            public long getDecodedColumnCacheSize() {
+                return size;
+            }
+        };
+    }
+
+    private static void createX() throws SqlException {
+        compiler.compile("create table x as (select 3 * x v, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(96)) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+
+    private static long getColumnAddress(TableReader reader, int partitionIndex, int columnIndex) {
+        return reader.getColumn(TableReader.getPrimaryColumnIndex(reader.getColumnBase(partitionIndex), columnIndex)).getPageAddress(0);
+    }
+}
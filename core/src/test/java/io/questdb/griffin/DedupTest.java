@@ -0,0 +1,219 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import org.junit.Test;
+
+public class DedupTest extends AbstractGriffinTest {
+
+    @Test
+    public void testBatchDuplicatesNewestWins() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "testing")) {
+                final long ts = TimestampFormatUtils.parseTimestamp("2022-02-24T01:00:00.000000Z");
+                appendRow(writer, ts + 1000, "a", 1);
+                appendRow(writer, ts, "a", 2);
+                appendRow(writer, ts, "b", 3);
+                appendRow(writer, ts, "a", 4);
+                appendRow(writer, ts + 1000, "a", 5);
+                writer.commit();
+            }
+            assertSql(
+                    "x",
+                    "ts\tsym\tv\n" +
+                            "2022-02-24T01:00:00.000000Z\tb\t3\n" +
+                            "2022-02-24T01:00:00.000000Z\ta\t4\n" +
+                            "2022-02-24T01:00:00.001000Z\ta\t5\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupKeyMustIncludeTimestamp() throws Exception {
+        assertFailure(
+                "create table x (ts timestamp, sym symbol, v long) timestamp(ts) partition by DAY dedup upsert keys(sym)",
+                null,
+                81,
+                "deduplication key must include designated timestamp"
+        );
+    }
+
+    @Test
+    public void testDedupRequiresPartitioning() throws Exception {
+        assertFailure(
+                "create table x (ts timestamp, sym symbol, v long) timestamp(ts) dedup upsert keys(ts, sym)",
+                null,
+                64,
+                "deduplication is only supported for partitioned tables"
+        );
+    }
+
+    @Test
+    public void testDedupUnknownColumn() throws Exception {
+        assertFailure(
+                "create table x (ts timestamp, sym symbol, v long) timestamp(ts) partition by DAY dedup upsert keys(ts, s)",
+                null,
+                103,
+                "Invalid column"
+        );
+    }
+
+    @Test
+    public void testInOrderRowRepeatsMaxTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'a', 1)");
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'a', 2)");
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'b', 3)");
+            executeInsert("insert into x values ('2022-02-24T02:00:00.000000Z', 'a', 4)");
+            executeInsert("insert into x values ('2022-02-24T02:00:00.000000Z', 'a', 5)");
+            assertSql(
+                    "x",
+                    "ts\tsym\tv\n" +
+                            "2022-02-24T01:00:00.000000Z\ta\t2\n" +
+                            "2022-02-24T01:00:00.000000Z\tb\t3\n" +
+                            "2022-02-24T02:00:00.000000Z\ta\t5\n"
+            );
+            assertSql("select count() from x", "count\n3\n");
+        });
+    }
+
+    @Test
+    public void testLongRunOfEqualTimestamps() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x (ts timestamp, k int, v long) timestamp(ts) partition by DAY dedup upsert keys(ts, k)",
+                    sqlExecutionContext
+            );
+            // runs are long enough to be grouped by key hash
+            compiler.compile("insert into x select cast(1645660800000000L + (x % 3) * 1000000L as timestamp), cast(x as int), x from long_sequence(300)", sqlExecutionContext);
+            compiler.compile("insert into x select cast(1645660800000000L + (x % 3) * 1000000L as timestamp), cast(x as int), -x from long_sequence(300) where x % 2 = 0", sqlExecutionContext);
+            assertSql("select count(), sum(v) from x", "count\tsum\n300\t-150\n");
+            assertSql("select count() from x where v < 0", "count\n150\n");
+        });
+    }
+
+    @Test
+    public void testMergeIntoOlderPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            executeInsert("insert into x values ('2022-02-23T01:00:00.000000Z', 'a', 1)");
+            executeInsert("insert into x values ('2022-02-23T02:00:00.000000Z', 'a', 2)");
+            executeInsert("insert into x values ('2022-02-23T03:00:00.000000Z', 'a', 3)");
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'a', 4)");
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "testing")) {
+                appendRow(writer, TimestampFormatUtils.parseTimestamp("2022-02-23T00:00:00.000000Z"), "a", 10);
+                appendRow(writer, TimestampFormatUtils.parseTimestamp("2022-02-23T01:00:00.000000Z"), "a", 11);
+                appendRow(writer, TimestampFormatUtils.parseTimestamp("2022-02-23T02:00:00.000000Z"), "b", 12);
+                appendRow(writer, TimestampFormatUtils.parseTimestamp("2022-02-23T03:00:00.000000Z"), "a", 13);
+                appendRow(writer, TimestampFormatUtils.parseTimestamp("2022-02-24T01:00:00.000000Z"), "a", 14);
+                writer.commit();
+            }
+            assertSql(
+                    "select * from x order by ts, sym",
+                    "ts\tsym\tv\n" +
+                            "2022-02-23T00:00:00.000000Z\ta\t10\n" +
+                            "2022-02-23T01:00:00.000000Z\ta\t11\n" +
+                            "2022-02-23T02:00:00.000000Z\ta\t2\n" +
+                            "2022-02-23T02:00:00.000000Z\tb\t12\n" +
+                            "2022-02-23T03:00:00.000000Z\ta\t13\n" +
+                            "2022-02-24T01:00:00.000000Z\ta\t14\n"
+            );
+            assertSql("select count() from x", "count\n6\n");
+        });
+    }
+
+    @Test
+    public void testNonKeyTablesKeepDuplicates() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (ts timestamp, sym symbol, v long) timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'a', 1)");
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'a', 2)");
+            assertSql("select count() from x", "count\n2\n");
+        });
+    }
+
+    @Test
+    public void testO3RowsBetweenStoredRows() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'a', 1)");
+            executeInsert("insert into x values ('2022-02-24T03:00:00.000000Z', 'a', 2)");
+            executeInsert("insert into x values ('2022-02-24T02:00:00.000000Z', 'a', 3)");
+            assertSql(
+                    "x",
+                    "ts\tsym\tv\n" +
+                            "2022-02-24T01:00:00.000000Z\ta\t1\n" +
+                            "2022-02-24T02:00:00.000000Z\ta\t3\n" +
+                            "2022-02-24T03:00:00.000000Z\ta\t2\n"
+            );
+        });
+    }
+
+    @Test
+    public void testStringKeySurvivesReopen() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x (ts timestamp, s string, v long) timestamp(ts) partition by DAY dedup upsert keys(ts, s)",
+                    sqlExecutionContext
+            );
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'abc', 1)");
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', null, 2)");
+            executeInsert("insert into x values ('2022-02-24T02:00:00.000000Z', 'abc', 3)");
+            engine.releaseAllWriters();
+            compiler.compile("alter table x add column d double", sqlExecutionContext);
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'abc', 4, 1.5)");
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', null, 5, 2.5)");
+            executeInsert("insert into x values ('2022-02-24T01:00:00.000000Z', 'ab', 6, 3.5)");
+            assertSql(
+                    "select * from x order by ts, v",
+                    "ts\ts\tv\td\n" +
+                            "2022-02-24T01:00:00.000000Z\tabc\t4\t1.5\n" +
+                            "2022-02-24T01:00:00.000000Z\t\t5\t2.5\n" +
+                            "2022-02-24T01:00:00.000000Z\tab\t6\t3.5\n" +
+                            "2022-02-24T02:00:00.000000Z\tabc\t3\tNaN\n"
+            );
+        });
+    }
+
+    private static void appendRow(TableWriter writer, long ts, CharSequence sym, long v) {
+        TableWriter.Row row = writer.newRow(ts);
+        row.putSym(1, sym);
+        row.putLong(2, v);
+        row.append();
+    }
+
+    private static void createX() throws SqlException {
+        compiler.compile(
+                "create table x (ts timestamp, sym symbol, v long) timestamp(ts) partition by DAY dedup upsert keys(ts, sym)",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.table.DataFrameRecordCursorFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GeoHashIndexTest extends AbstractGriffinTest {
+
+    @Test
+    public void testPrefixPrecisionMismatch() throws Exception {
+        assertFailure(
+                "x where g within(#u33d1)",
+                "create table x (g geohash(4c), v long, ts timestamp), index(g) timestamp(ts) partition by DAY",
+                17,
+                "GeoHash prefix precision mismatch"
+        );
+    }
+
+    @Test
+    public void testWithinCoversRowsIndexedLater() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            // out of order row rewrites the first partition
+            executeInsert("insert into x values (#u33b, 1000, '2022-01-01T12:30:00.000000Z')");
+            executeInsert("insert into x values (#u33e, 2000, '2022-01-03T20:00:00.000000Z')");
+            assertSql(
+                    "x where g within(#u33)",
+                    "g\tv\tts\n" +
+                            "u33d\t3\t2022-01-01T04:00:00.000000Z\n" +
+                            "u33d\t6\t2022-01-01T10:00:00.000000Z\n" +
+                            "u33b\t1000\t2022-01-01T12:30:00.000000Z\n" +
+                            "u33d\t9\t2022-01-01T16:00:00.000000Z\n" +
+                            "u33d\t12\t2022-01-01T22:00:00.000000Z\n" +
+                            "u33d\t15\t2022-01-02T04:00:00.000000Z\n" +
+                            "u33d\t18\t2022-01-02T10:00:00.000000Z\n" +
+                            "u33d\t21\t2022-01-02T16:00:00.000000Z\n" +
+                            "u33d\t24\t2022-01-02T22:00:00.000000Z\n" +
+                            "u33d\t27\t2022-01-03T04:00:00.000000Z\n" +
+                            "u33d\t30\t2022-01-03T10:00:00.000000Z\n" +
+                            "u33e\t2000\t2022-01-03T20:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testWithinUsesGeoHashIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final String query = "x where g within(#u33, #s0) and ts in '2022-01-02'";
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof DataFrameRecordCursorFactory);
+            }
+            assertSql(
+                    query,
+                    "g\tv\tts\n" +
+                            "s000\t13\t2022-01-02T00:00:00.000000Z\n" +
+                            "u33d\t15\t2022-01-02T04:00:00.000000Z\n" +
+                            "s000\t16\t2022-01-02T06:00:00.000000Z\n" +
+                            "u33d\t18\t2022-01-02T10:00:00.000000Z\n" +
+                            "s000\t19\t2022-01-02T12:00:00.000000Z\n" +
+                            "u33d\t21\t2022-01-02T16:00:00.000000Z\n" +
+                            "s000\t22\t2022-01-02T18:00:00.000000Z\n" +
+                            "u33d\t24\t2022-01-02T22:00:00.000000Z\n"
+            );
+            assertSql(
+                    "x where g within(#u33) and v > 20",
+                    "g\tv\tts\n" +
+                            "u33d\t21\t2022-01-02T16:00:00.000000Z\n" +
+                            "u33d\t24\t2022-01-02T22:00:00.000000Z\n" +
+                            "u33d\t27\t2022-01-03T04:00:00.000000Z\n" +
+                            "u33d\t30\t2022-01-03T10:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testWithinWithoutIndexFilters() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (g geohash(4c), v long, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile(
+                    "insert into y select cast(case when x % 3 = 0 then 'u33d' when x % 3 = 1 then 's000' else 'u34b' end as geohash(4c)), x, timestamp_sequence('2022-01-01', 7200000000L) from long_sequence(12)",
+                    sqlExecutionContext
+            );
+            assertSql(
+                    "y where g within(#u34)",
+                    "g\tv\tts\n" +
+                            "u34b\t2\t2022-01-01T02:00:00.000000Z\n" +
+                            "u34b\t5\t2022-01-01T08:00:00.000000Z\n" +
+                            "u34b\t8\t2022-01-01T14:00:00.000000Z\n" +
+                            "u34b\t11\t2022-01-01T20:00:00.000000Z\n"
+            );
+        });
+    }
+
+    private void createX() throws SqlException {
+        compiler.compile(
+                "create table x (g geohash(4c), v long, ts timestamp), index(g) timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "insert into x select cast(case when x % 3 = 0 then 'u33d' when x % 3 = 1 then 's000' else 'u34b' end as geohash(4c)), x, timestamp_sequence('2022-01-01', 7200000000L) from long_sequence(30)",
+                sqlExecutionContext
+        );
+    }
+}
@@ -208,6 +208,30 @@ public class LimitTest extends AbstractGriffinTest {
         testLimit(expected, expected2, query);
     }
 
+    @Test
+    public void testOrderByTopN() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table t as (select cast(x % 3 as int) k, x v, timestamp_sequence(0, 1000000L) ts from long_sequence(20)) timestamp(ts)", sqlExecutionContext);
+            assertSql(
+                    "t order by k desc, v limit 4",
+                    "k\tv\tts\n" +
+                            "2\t2\t1970-01-01T00:00:01.000000Z\n" +
+                            "2\t5\t1970-01-01T00:00:04.000000Z\n" +
+                            "2\t8\t1970-01-01T00:00:07.000000Z\n" +
+                            "2\t11\t1970-01-01T00:00:10.000000Z\n"
+            );
+            // rows with equal keys come in the same order as from full sort
+            assertSql(
+                    "t order by k limit 2, 5",
+                    "k\tv\tts\n" +
+                            "0\t12\t1970-01-01T00:00:11.000000Z\n" +
+                            "0\t9\t1970-01-01T00:00:08.000000Z\n" +
+                            "0\t6\t1970-01-01T00:00:05.000000Z\n"
+            );
+            assertSql("t order by v desc limit 0", "k\tv\tts\n");
+        });
+    }
+
     @Test
     public void testRangeVariable() throws Exception {
         String query = "select * from y limit :lo,:hi";
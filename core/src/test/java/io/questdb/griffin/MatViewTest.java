@@ -0,0 +1,255 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.mv.MatView;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatViewTest extends AbstractGriffinTest {
+    private static final String VIEW_QUERY = "select ts, sym, sum(price) s, count() c from x sample by 1h align to calendar";
+    // same result as view query, different text keeps it from being answered by the view
+    private static final String REF_QUERY = "select * from (select ts, sym, sum(price) s, count() c from x sample by 60m align to calendar) order by ts, sym";
+
+    @Test
+    public void testAlignToFirstObservationNotSupported() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertFailure0(
+                    "create materialized view v as (select ts, sum(price) from x sample by 1h align to first observation)",
+                    "materialized view requires ALIGN TO CALENDAR"
+            );
+        });
+    }
+
+    @Test
+    public void testCreate() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            createView();
+            assertView();
+            assertSql(
+                    "select ts, sym, s, c from v where ts = '1970-01-01T00:00:00.000000Z' order by sym",
+                    "ts\tsym\ts\tc\n" +
+                            "1970-01-01T00:00:00.000000Z\ta\t20.0\t20\n" +
+                            "1970-01-01T00:00:00.000000Z\tb\t20.0\t20\n" +
+                            "1970-01-01T00:00:00.000000Z\tc\t20.0\t20\n"
+            );
+            assertSql(
+                    "select designatedTimestamp, partitionBy from tables() where name = 'v'",
+                    "designatedTimestamp\tpartitionBy\n" +
+                            "ts\tDAY\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDropView() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            createView();
+            compiler.compile("drop table v", sqlExecutionContext);
+            Assert.assertNull(engine.getMatView("v"));
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine)) {
+                insertX(100, "2022-01-01T01:00:00.000000Z");
+                Assert.assertFalse(job.run(0));
+            }
+        });
+    }
+
+    @Test
+    public void testFillNotSupported() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertFailure0(
+                    "create materialized view v as (select ts, sum(price) from x sample by 1h fill(prev) align to calendar)",
+                    "FILL is not supported by materialized view"
+            );
+        });
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            createView();
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine)) {
+                // first run verifies view against base table, nothing happened since view was created
+                Assert.assertFalse(job.run(0));
+
+                insertX(100, "1970-01-02T06:30:00.000000Z");
+                final MatView view = engine.getMatView("v");
+                Assert.assertNotNull(view);
+                // rows are appended after the last committed row
+                Assert.assertEquals(TimestampFormatUtils.parseTimestamp("1970-01-02T00:59:00.000000Z"), view.getDirtyLo());
+                Assert.assertTrue(job.run(0));
+                assertView();
+                Assert.assertFalse(job.run(0));
+
+                // out-of-order rows only touch their own buckets
+                insertX(10, "1970-01-01T05:10:00.000000Z");
+                Assert.assertEquals(TimestampFormatUtils.parseTimestamp("1970-01-01T05:10:00.000000Z"), view.getDirtyLo());
+                Assert.assertTrue(job.run(0));
+                assertView();
+                assertSql(
+                        "select ts, sym, s, c from v where ts = '1970-01-01T05:00:00.000000Z' order by sym",
+                        "ts\tsym\ts\tc\n" +
+                                "1970-01-01T05:00:00.000000Z\ta\t24.0\t24\n" +
+                                "1970-01-01T05:00:00.000000Z\tb\t23.0\t23\n" +
+                                "1970-01-01T05:00:00.000000Z\tc\t23.0\t23\n"
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testMissingBaseTable() throws Exception {
+        assertMemoryLeak(() -> assertFailure0(
+                "create materialized view v as (select ts, sum(price) from x sample by 1h align to calendar)",
+                "table does not exist [name=x]"
+        ));
+    }
+
+    @Test
+    public void testNoSampleBy() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertFailure0(
+                    "create materialized view v as (select sym, sum(price) from x)",
+                    "materialized view query must use SAMPLE BY"
+            );
+        });
+    }
+
+    @Test
+    public void testOpenOnStartup() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            createView();
+            try (CairoEngine engine2 = new CairoEngine(configuration)) {
+                final MatView view = engine2.getMatView("v");
+                Assert.assertNotNull(view);
+                Assert.assertEquals("x", view.getBaseTableName());
+                Assert.assertEquals(VIEW_QUERY, view.getQuery());
+                Assert.assertEquals("1h", view.getSampleBy());
+                Assert.assertEquals(engine.getMatView("v").getRefreshTxn(), view.getRefreshTxn());
+            }
+        });
+    }
+
+    @Test
+    public void testQueryIsAnsweredByView() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            createView();
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine)) {
+                job.run(0);
+                // row that only exists in the view shows that query reads the view
+                executeInsert("insert into v values ('1970-01-01T00:30:00.000000Z', 'z', 0.0, 0)");
+                // 25 hours of 3 symbols
+                assertRowCount(VIEW_QUERY, 76);
+                // query has to match view query exactly
+                assertRowCount(VIEW_QUERY.replace("1h", "60m"), 75);
+            }
+        });
+    }
+
+    @Test
+    public void testStaleViewIsNotUsed() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            createView();
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine)) {
+                job.run(0);
+                insertX(60, "1970-01-03T00:00:00.000000Z");
+                // view is behind base table until refreshed
+                TestUtils.assertSqlCursors(compiler, sqlExecutionContext, REF_QUERY, "select * from (" + VIEW_QUERY + ") order by ts, sym", LOG);
+                assertSql("select count() from v where ts >= '1970-01-03'", "count\n0\n");
+                job.run(0);
+                assertSql("select count() from v where ts >= '1970-01-03'", "count\n3\n");
+            }
+        });
+    }
+
+    @Test
+    public void testTimestampNotSelected() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertFailure0(
+                    "create materialized view v as (select sym, sum(price) from x sample by 1h align to calendar)",
+                    "materialized view query must select designated timestamp"
+            );
+        });
+    }
+
+    private void assertFailure0(String sql, String message) {
+        try {
+            compiler.compile(sql, sqlExecutionContext);
+            Assert.fail();
+        } catch (SqlException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+        Assert.assertNull(engine.getMatView("v"));
+    }
+
+    private void assertRowCount(String query, long expected) throws SqlException {
+        try (
+                RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            long count = 0;
+            while (cursor.hasNext()) {
+                count++;
+            }
+            Assert.assertEquals(expected, count);
+        }
+    }
+
+    private void assertView() throws SqlException {
+        TestUtils.assertSqlCursors(compiler, sqlExecutionContext, REF_QUERY, "v order by ts, sym", LOG);
+    }
+
+    private void createView() throws SqlException {
+        compiler.compile("create materialized view v as (" + VIEW_QUERY + ")", sqlExecutionContext);
+    }
+
+    private void createX() throws SqlException {
+        compiler.compile("create table x (sym symbol, price double, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+        // 60 rows per hour, one row a minute
+        insertX(60 * 25, "1970-01-01T00:00:00.000000Z");
+    }
+
+    private void insertX(int count, String start) throws SqlException {
+        compiler.compile(
+                "insert into x select case when x % 3 = 1 then 'a' when x % 3 = 2 then 'b' else 'c' end, 1.0, timestamp_sequence('" + start + "', 60000000) from long_sequence(" + count + ")",
+                sqlExecutionContext
+        );
+    }
+}
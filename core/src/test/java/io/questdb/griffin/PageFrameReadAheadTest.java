@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PageFrameReadAheadTest extends AbstractGriffinTest {
+    private static final int READ_AHEAD_SIZE = 16 * 1024;
+    private long readAheadBytes;
+    private long readAheadCount;
+    private long dataReadCount;
+    private long willNeedCount;
+    private boolean readAheadUnsupported;
+    private final FilesFacade ff = new FilesFacadeImpl() {
+        @Override
+        public int madvise(long address, long len, int advice) {
+            if (advice == Files.MADV_WILLNEED) {
+                willNeedCount++;
+            }
+            return super.madvise(address, len, advice);
+        }
+
+        @Override
+        public long read(long fd, long buf, long len, long offset) {
+            // header and txn reads are a few bytes long
+            if (len > Long.BYTES) {
+                dataReadCount++;
+            }
+            return super.read(fd, buf, len, offset);
+        }
+
+        @Override
+        public int readAhead(long fd, long offset, long len) {
+            Assert.assertTrue(len <= READ_AHEAD_SIZE);
+            readAheadCount++;
+            readAheadBytes += len;
+            return readAheadUnsupported ? -1 : super.readAhead(fd, offset, len);
+        }
+    };
+
+    @Before
+    public void setUpReadAhead() {
+        readAheadBytes = 0;
+        readAheadCount = 0;
+        dataReadCount = 0;
+        willNeedCount = 0;
+        readAheadUnsupported = false;
+    }
+
+    @Test
+    public void testFallsBackToMappingAdvice() throws Exception {
+        configOverridePageFrameReadAheadSize = READ_AHEAD_SIZE;
+        readAheadUnsupported = true;
+        assertMemoryLeak(ff, () -> {
+            createX();
+            assertSql("select sum(x) from x", "sum\n5000050000\n");
+            // partition prefetch advises mappings too
+            Assert.assertTrue(readAheadCount > 0);
+            Assert.assertTrue(willNeedCount >= readAheadCount);
+            Assert.assertEquals(0, dataReadCount);
+        });
+    }
+
+    @Test
+    public void testReadAheadDisabled() throws Exception {
+        assertMemoryLeak(ff, () -> {
+            createX();
+            assertSql("select sum(x) from x", "sum\n5000050000\n");
+            Assert.assertEquals(0, readAheadCount);
+        });
+    }
+
+    @Test
+    public void testTouchReadsAhead() throws Exception {
+        configOverridePageFrameReadAheadSize = READ_AHEAD_SIZE;
+        assertMemoryLeak(ff, () -> {
+            createX();
+            try (
+                    RecordCursorFactory factory = compiler.compile("select touch(select x, s from x)", sqlExecutionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                Assert.assertTrue(cursor.hasNext());
+                TestUtils.assertContains(cursor.getRecord().getStr(0), "data_pages");
+            }
+            // long column, string column and its index
+            Assert.assertTrue(readAheadBytes > 3 * 100_000 * Long.BYTES);
+        });
+    }
+
+    @Test
+    public void testVectorAggregateReadsAhead() throws Exception {
+        configOverridePageFrameReadAheadSize = READ_AHEAD_SIZE;
+        assertMemoryLeak(ff, () -> {
+            createX();
+            assertSql("select sum(x) from x", "sum\n5000050000\n");
+            // only the aggregated column is read, in chunks of read-ahead size
+            Assert.assertEquals(100_000 * Long.BYTES, readAheadBytes);
+            Assert.assertTrue(readAheadCount >= 100_000 * Long.BYTES / READ_AHEAD_SIZE);
+            // data is not copied out of the file
+            Assert.assertEquals(0, dataReadCount);
+        });
+    }
+
+    private static void createX() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select x, 's' || x s, timestamp_sequence('2022-01-01', 8640000) ts from long_sequence(100000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.table.AsyncFilteredRecordCursorFactory;
+import io.questdb.griffin.engine.table.FilteredRecordCursorFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelFilterTest extends AbstractParallelTest {
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            compiler.compile("create table x as (select rnd_double() a, timestamp_sequence(0, 100000000) ts from long_sequence(3000)) timestamp(ts) partition by DAY", serialContext);
+            compiler.compile("alter table x add column s string", serialContext);
+            compiler.compile("insert into x select rnd_double() a, timestamp_sequence(300000000000, 100000000) ts, rnd_str(3,5,1) s from long_sequence(3000)", serialContext);
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where s = null and a > 0.9");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where s like 'A%' or a < 0.01");
+        });
+    }
+
+    @Test
+    public void testContextHasFewerWorkersThanPool() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            // pool workers with ids past the context's worker count must not use the owner's slot
+            try (SqlExecutionContextImpl smallContext = new SqlExecutionContextImpl(serialContext.getCairoEngine(), 2)) {
+                smallContext.with(AllowAllCairoSecurityContext.INSTANCE, serialContext.getBindVariableService(), null);
+                for (int i = 0; i < 10; i++) {
+                    assertQuery(compiler, serialContext, smallContext, "select * from x where d > 0.1 and length(s) = 4");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testFilterNoWorkers() throws Exception {
+        // jobs are not running, owner thread filters every frame
+        assertParallel(false, (compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            try (RecordCursorFactory factory = compiler.compile("select * from x where l > 0", parallelContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof AsyncFilteredRecordCursorFactory);
+            }
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where l > 0 and d < 0.5");
+        });
+    }
+
+    @Test
+    public void testFilterWithBindVariable() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            serialContext.getBindVariableService().setDouble("d", 0.25);
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where d > :d and i % 3 = 0");
+        });
+    }
+
+    @Test
+    public void testFilterWithLimit() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            // cursor is closed while frames are still in flight
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where d > 0.1 limit 5");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where d > 0.1 limit -5");
+        });
+    }
+
+    @Test
+    public void testFilterWithOrderBy() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            // sort uses random access to the rows found by the filter
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where s ~ 'B' order by d desc");
+        });
+    }
+
+    @Test
+    public void testSymbolFilterIsNotParallel() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            try (RecordCursorFactory factory = compiler.compile("select * from x where sym = 'ABC' and d > 0.5", parallelContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof FilteredRecordCursorFactory);
+            }
+        });
+    }
+
+    @Test
+    public void testTypes() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where b and c != 'M'");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where bt > 10 and sh < 1000");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where f > 0.5 and dt < '1970-01-05'");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where length(s) = 4 and length(bin) > 5");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x where g1 = #uu or l256 = null");
+        });
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext executionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_boolean() b," +
+                        " rnd_byte() bt," +
+                        " rnd_short() sh," +
+                        " rnd_char() c," +
+                        " rnd_int() i," +
+                        " rnd_long() l," +
+                        " rnd_float() f," +
+                        " rnd_double(2) d," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) dt," +
+                        " rnd_str(3,5,2) s," +
+                        " rnd_symbol('ABC','DEF',null) sym," +
+                        " rnd_bin(4,8,2) bin," +
+                        " rnd_long256() l256," +
+                        " rnd_geohash(10) g1," +
+                        " timestamp_sequence(0, 100000000) ts" +
+                        " from long_sequence(10000)" +
+                        ") timestamp(ts) partition by DAY",
+                executionContext
+        );
+    }
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.groupby.AsyncGroupByRecordCursorFactory;
+import io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelGroupByTest extends AbstractParallelTest {
+
+    @Test
+    public void testAggregates() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            assertParallelFactory(compiler, parallelContext, "select sym, s, count(), sum(i) from x", true);
+            assertQuery(compiler, serialContext, parallelContext, "select sym, count(), sum(i), sum(l), sum(d), sum(f), avg(d) from x order by sym");
+            assertQuery(compiler, serialContext, parallelContext, "select sym, ksum(d), nsum(d) from x order by sym");
+            assertQuery(compiler, serialContext, parallelContext, "select sym, min(i), max(i), min(l), max(l), min(c), max(c) from x order by sym");
+            assertQuery(compiler, serialContext, parallelContext, "select sym, min(d), max(d), min(f), min(dt), max(dt), min(ts), max(ts) from x order by sym");
+            assertQuery(compiler, serialContext, parallelContext, "select sym, sum(i * 2 + l), max(d - f) from x order by sym");
+        });
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            assertParallelFactory(compiler, parallelContext, "select s, count() from x where i > 50", true);
+            assertQuery(compiler, serialContext, parallelContext, "select s, count(), sum(v) from x where i > 50 order by s");
+            assertQuery(compiler, serialContext, parallelContext, "select sym, s, max(d) from x where s ~ 'a' or d > 10 order by sym, s");
+            serialContext.getBindVariableService().setLong("v", 500);
+            assertQuery(compiler, serialContext, parallelContext, "select l, count() from x where v > :v order by l");
+        });
+    }
+
+    @Test
+    public void testKeyTypes() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            assertQuery(compiler, serialContext, parallelContext, "select s, count() from x order by s");
+            assertQuery(compiler, serialContext, parallelContext, "select l, sum(v) from x order by l");
+            assertQuery(compiler, serialContext, parallelContext, "select c, sum(v) from x order by c");
+            assertQuery(compiler, serialContext, parallelContext, "select dt, count() from x order by dt");
+            assertQuery(compiler, serialContext, parallelContext, "select sym, s, l, count(), sum(v) from x order by sym, s, l");
+        });
+    }
+
+    @Test
+    public void testNoWorkers() throws Exception {
+        // jobs are not running, owner thread reduces every frame
+        assertParallel(false, (compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            assertQuery(compiler, serialContext, parallelContext, "select sym, s, count(), sum(v) from x order by sym, s");
+        });
+    }
+
+    @Test
+    public void testNotParallel() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTable(compiler, serialContext);
+            // result depends on the order of rows
+            assertParallelFactory(compiler, parallelContext, "select sym, first(d) from x", false);
+            // distinct values are kept outside of the map
+            assertParallelFactory(compiler, parallelContext, "select s, count_distinct(sym) from x", false);
+            // symbol values are not available to workers
+            assertParallelFactory(compiler, parallelContext, "select s, max(length(sym)) from x", false);
+            assertQuery(compiler, serialContext, parallelContext, "select sym, first(d), count() from x order by sym");
+        });
+    }
+
+    private static void assertParallelFactory(SqlCompiler compiler, SqlExecutionContext parallelContext, String query, boolean parallel) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, parallelContext).getRecordCursorFactory()) {
+            Assert.assertEquals(parallel, factory instanceof AsyncGroupByRecordCursorFactory);
+            Assert.assertEquals(!parallel, factory instanceof GroupByRecordCursorFactory);
+        }
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext executionContext) throws SqlException {
+        // double and float values are multiples of 1/8, their sums do not depend on the order of rows
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_char() c," +
+                        " rnd_int(0, 100, 2) i," +
+                        " rnd_long(0, 10, 2) l," +
+                        " rnd_long(-1000, 1000, 2) v," +
+                        " cast(rnd_int(-1000, 1000, 2) as float) / 8 f," +
+                        " cast(rnd_int(-1000, 1000, 2) as double) / 8 d," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) dt," +
+                        " rnd_str('aa','bb','cc',null) s," +
+                        " rnd_symbol('ABC','DEF','GHI',null) sym," +
+                        " timestamp_sequence(0, 100000000) ts" +
+                        " from long_sequence(10000)" +
+                        ") timestamp(ts) partition by DAY",
+                executionContext
+        );
+    }
+}
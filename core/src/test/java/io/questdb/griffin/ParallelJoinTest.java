@@ -0,0 +1,127 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.join.AsyncHashJoinLightRecordCursorFactory;
+import io.questdb.griffin.engine.table.SelectedRecordCursorFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelJoinTest extends AbstractParallelTest {
+    @Test
+    public void testFilter() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTables(compiler, serialContext);
+            assertParallelFactory(compiler, parallelContext, "select * from x join y on (i) where x.v > 0 and y.w < 500", true);
+            assertQuery(compiler, serialContext, parallelContext, "select * from x join y on (i) where x.v > 0 and y.w < 500");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x left join y on (i) where x.s ~ '^1' or x.d > 10");
+        });
+    }
+
+    @Test
+    public void testInnerJoin() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTables(compiler, serialContext);
+            assertParallelFactory(compiler, parallelContext, "select * from x join y on (i)", true);
+            assertQuery(compiler, serialContext, parallelContext, "select * from x join y on (i)");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x join y on (s)");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x join y on (i, s)");
+            assertQuery(compiler, serialContext, parallelContext, "select x.ts, y.w from x join y on x.i = y.i order by x.ts desc limit 10");
+        });
+    }
+
+    @Test
+    public void testNoWorkers() throws Exception {
+        // jobs are not running, owner thread builds and probes every frame
+        assertParallel(false, (compiler, serialContext, parallelContext) -> {
+            createTables(compiler, serialContext);
+            assertQuery(compiler, serialContext, parallelContext, "select * from x join y on (i)");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x left join y on (s)");
+        });
+    }
+
+    @Test
+    public void testNotParallel() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTables(compiler, serialContext);
+            // symbol values are not available to workers
+            assertParallelFactory(compiler, parallelContext, "select * from x join y on (sym)", false);
+            // slave is not a table scan
+            assertParallelFactory(compiler, parallelContext, "select * from x join (select i, max(w) w from y) y on (i)", false);
+            assertQuery(compiler, serialContext, parallelContext, "select * from x join y on (sym) where y.i < 5");
+        });
+    }
+
+    @Test
+    public void testOuterJoin() throws Exception {
+        assertParallel((compiler, serialContext, parallelContext) -> {
+            createTables(compiler, serialContext);
+            assertParallelFactory(compiler, parallelContext, "select * from x left join y on (i)", true);
+            assertQuery(compiler, serialContext, parallelContext, "select * from x left join y on (i)");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x left join y on (s)");
+            assertQuery(compiler, serialContext, parallelContext, "select * from x left join y on (i) where y.w = null");
+        });
+    }
+
+    private static void assertParallelFactory(SqlCompiler compiler, SqlExecutionContext parallelContext, String query, boolean parallel) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, parallelContext).getRecordCursorFactory()) {
+            RecordCursorFactory join = factory;
+            while (join instanceof SelectedRecordCursorFactory) {
+                join = ((SelectedRecordCursorFactory) join).getBaseFactory();
+            }
+            Assert.assertEquals(parallel, join instanceof AsyncHashJoinLightRecordCursorFactory);
+        }
+    }
+
+    private static void createTables(SqlCompiler compiler, SqlExecutionContext executionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int(0, 500, 2) i," +
+                        " rnd_long(-1000, 1000, 2) v," +
+                        " cast(rnd_int(-1000, 1000, 2) as double) / 8 d," +
+                        " rnd_str('1','17','256','399','500',null) s," +
+                        " rnd_symbol('ABC','DEF','GHI',null) sym," +
+                        " timestamp_sequence(0, 100000000) ts" +
+                        " from long_sequence(10000)" +
+                        ") timestamp(ts) partition by DAY",
+                executionContext
+        );
+        // slave keys are unique, the order of slave rows for a master row is then fixed
+        compiler.compile(
+                "create table y as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_long(0, 1000, 0) w," +
+                        " cast(x as string) s," +
+                        " rnd_symbol('ABC','DEF','GHI') sym" +
+                        " from long_sequence(400)" +
+                        ")",
+                executionContext
+        );
+    }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.IntList;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PartitionAccessAdviceTest extends AbstractGriffinTest {
+    private final IntList advices = new IntList();
+    private final FilesFacade ff = new FilesFacadeImpl() {
+        @Override
+        public int madvise(long address, long len, int advice) {
+            advices.add(advice);
+            return super.madvise(address, len, advice);
+        }
+    };
+
+    @Before
+    public void setUpAdvices() {
+        advices.clear();
+    }
+
+    @Test
+    public void testFullScanIsSequential() throws Exception {
+        assertMemoryLeak(ff, () -> {
+            createX();
+            assertSql("select sum(x) from x", "sum\n28920\n");
+            // both columns of every partition
+            Assert.assertEquals(20, count(Files.MADV_SEQUENTIAL));
+            // partitions after the second one are read ahead
+            Assert.assertEquals(16, count(Files.MADV_WILLNEED));
+            Assert.assertEquals(0, count(Files.MADV_RANDOM));
+
+            advices.clear();
+            assertSql("select sum(x) from x order by 1", "sum\n28920\n");
+            Assert.assertEquals(0, count(Files.MADV_RANDOM));
+        });
+    }
+
+    @Test
+    public void testLimitScanDoesNotPrefetch() throws Exception {
+        assertMemoryLeak(ff, () -> {
+            createX();
+            assertSql("select x from x limit 2", "x\n1\n2\n");
+            Assert.assertEquals(2, count(Files.MADV_SEQUENTIAL));
+            Assert.assertEquals(0, count(Files.MADV_WILLNEED));
+        });
+    }
+
+    @Test
+    public void testRowIdLookupsAreRandom() throws Exception {
+        assertMemoryLeak(ff, () -> {
+            createX();
+            assertSql("select x from x order by x desc limit 3", "x\n240\n239\n238\n");
+            Assert.assertTrue(count(Files.MADV_RANDOM) > 0);
+        });
+    }
+
+    private static void createX() throws SqlException {
+        compiler.compile(
+                "create table x as (select x, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(240)) timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private int count(int advice) {
+        int count = 0;
+        for (int i = 0, n = advices.size(); i < n; i++) {
+            if (advices.getQuick(i) == advice) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.std.Files;
+import io.questdb.std.str.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartitionByHourWeekTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDropHourPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createHourTable();
+            compiler.compile("alter table x drop partition list '2022-01-01T22'", sqlExecutionContext);
+            assertSql("select count(), min(ts) from x", "count\tmin\n24\t2022-01-01T23:00:00.000000Z\n");
+            assertFailure("alter table x drop partition list '2022-01-01'", null, 34, "'YYYY-MM-DDTHH' expected");
+        });
+    }
+
+    @Test
+    public void testHourPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createHourTable();
+            // out of order row lands in existing hour
+            executeInsert("insert into x values (100, '2022-01-01T23:30:30.000000Z')");
+            assertSql("select count(), min(ts), max(ts) from x", "count\tmin\tmax\n31\t2022-01-01T22:00:00.000000Z\t2022-01-02T02:50:00.000000Z\n");
+            assertSql(
+                    "x where ts in '2022-01-02T02'",
+                    "v\tts\n" +
+                            "25\t2022-01-02T02:00:00.000000Z\n" +
+                            "26\t2022-01-02T02:10:00.000000Z\n" +
+                            "27\t2022-01-02T02:20:00.000000Z\n" +
+                            "28\t2022-01-02T02:30:00.000000Z\n" +
+                            "29\t2022-01-02T02:40:00.000000Z\n" +
+                            "30\t2022-01-02T02:50:00.000000Z\n"
+            );
+            assertPartitionExists("x", "2022-01-01T23");
+            assertPartitionExists("x", "2022-01-02T02");
+        });
+    }
+
+    @Test
+    public void testWeekPartitionsFollowIsoWeeks() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (v long, ts timestamp) timestamp(ts) partition by WEEK", sqlExecutionContext);
+            compiler.compile("insert into x select x, timestamp_sequence('2020-12-25', 86400000000L) from long_sequence(20)", sqlExecutionContext);
+            assertSql(
+                    "select timestamp_floor('w', ts) wk, count() from x",
+                    "wk\tcount\n" +
+                            "2020-12-21T00:00:00.000000Z\t3\n" +
+                            "2020-12-28T00:00:00.000000Z\t7\n" +
+                            "2021-01-04T00:00:00.000000Z\t7\n" +
+                            "2021-01-11T00:00:00.000000Z\t3\n"
+            );
+            // 2020 has 53 ISO weeks, the first days of 2021 belong to its last week
+            assertPartitionExists("x", "2020-W52");
+            assertPartitionExists("x", "2020-W53");
+            assertPartitionExists("x", "2021-W01");
+
+            compiler.compile("alter table x drop partition list '2020-W53'", sqlExecutionContext);
+            assertSql("select count() from x where ts between '2020-12-28' and '2021-01-03'", "count\n0\n");
+            assertFailure("alter table x drop partition list '2021-W53'", null, 34, "'YYYY-Www' expected");
+        });
+    }
+
+    private void assertPartitionExists(String tableName, String partitionName) {
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat(tableName).concat(partitionName).$();
+            Assert.assertTrue(partitionName, Files.exists(path));
+        }
+    }
+
+    private void createHourTable() throws SqlException {
+        compiler.compile("create table x (v long, ts timestamp) timestamp(ts) partition by HOUR", sqlExecutionContext);
+        compiler.compile("insert into x select x, timestamp_sequence('2022-01-01T22:00:00', 600000000L) from long_sequence(30)", sqlExecutionContext);
+    }
+}
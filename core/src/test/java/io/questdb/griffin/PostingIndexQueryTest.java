@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+public class PostingIndexQueryTest extends AbstractGriffinTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        super.setUp();
+        configOverridePostingIndexEnabled = true;
+    }
+
+    @Test
+    public void testAddIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createXAndRef();
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+            for (int day = 1; day < 10; day++) {
+                assertColumnFile(true, "1970-01-0" + day, "sym.pk");
+                assertColumnFile(false, "1970-01-0" + day, "sym.k");
+            }
+            // last partition is appended to, it keeps bitmap index
+            assertColumnFile(false, "1970-01-10", "sym.pk");
+            assertColumnFile(true, "1970-01-10", "sym.k");
+            assertSameAsRef();
+        });
+    }
+
+    @Test
+    public void testAddIndexToColumnWithTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createXAndRef();
+            compiler.compile("alter table x add column sym2 symbol", sqlExecutionContext);
+            compiler.compile("alter table ref add column sym2 symbol", sqlExecutionContext);
+            compiler.compile(
+                    "insert into x select x + 20000, rnd_symbol('a', 'b', null), timestamp_sequence('1970-01-10T23:59', 10000), rnd_symbol('c', 'd', null) from long_sequence(1000)",
+                    sqlExecutionContext
+            );
+            compiler.compile("insert into x select x + 30000, 'a', timestamp_sequence('1970-01-11', 1000000), 'c' from long_sequence(10)", sqlExecutionContext);
+            compiler.compile("insert into ref select * from x where i > 20000", sqlExecutionContext);
+            compiler.compile("alter table x alter column sym2 add index", sqlExecutionContext);
+            assertColumnFile(true, "1970-01-10", "sym2.pk");
+            assertColumnFile(false, "1970-01-09", "sym2.pk");
+            assertSame(
+                    "x where sym2 = 'c' and ts >= '1970-01-10T23:59'",
+                    "x where sym2 = null and ts >= '1970-01-10T23:59'",
+                    "x where sym2 = null and ts >= '1970-01-10T23:59' order by ts desc",
+                    "x where sym2 in ('c', 'd') and ts >= '1970-01-10T23:59' order by ts desc",
+                    "(x latest by sym2) order by sym2"
+            );
+        });
+    }
+
+    @Test
+    public void testColdPartitionsAreSealed() throws Exception {
+        assertMemoryLeak(() -> {
+            configOverrideHotPartitionCount = 2;
+            compiler.compile("create table x (i long, sym symbol index, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile(
+                    "insert into x select x, rnd_symbol('a', 'b', 'c', null), timestamp_sequence(0, 86400000000L / 1000) from long_sequence(10000)",
+                    sqlExecutionContext
+            );
+            compiler.compile(
+                    "create table ref as (select * from x) timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            for (int day = 1; day < 9; day++) {
+                assertColumnFile(true, "1970-01-0" + day, "sym.pk");
+                assertColumnFile(false, "1970-01-0" + day, "sym.k");
+            }
+            assertColumnFile(true, "1970-01-09", "sym.k");
+            assertSameAsRef();
+        });
+    }
+
+    @Test
+    public void testOutOfOrderInsertUnsealsPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createXAndRef();
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+            compiler.compile(
+                    "insert into x select x + 20000, rnd_symbol('a', 'b', 'd', null), timestamp_sequence('1970-01-03T00:30', 60000000) from long_sequence(100)",
+                    sqlExecutionContext
+            );
+            compiler.compile("insert into ref select * from x where i > 20000", sqlExecutionContext);
+            assertColumnFile(false, "1970-01-03", "sym.pk");
+            assertColumnFile(true, "1970-01-02", "sym.pk");
+            assertSameAsRef();
+        });
+    }
+
+    @Test
+    public void testRenameAndDropColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createXAndRef();
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+            compiler.compile("alter table x rename column sym to sym2", sqlExecutionContext);
+            assertColumnFile(true, "1970-01-02", "sym2.pk");
+            assertColumnFile(false, "1970-01-02", "sym.pk");
+            assertSql("select count() from x where sym2 = 'a' and ts in '1970-01-02'", "count\n" + countRef("a") + "\n");
+            compiler.compile("alter table x drop column sym2", sqlExecutionContext);
+            engine.releaseInactive();
+            assertColumnFile(false, "1970-01-02", "sym2.pk");
+            assertColumnFile(false, "1970-01-02", "sym2.pv");
+        });
+    }
+
+    private static void assertColumnFile(boolean exists, String partition, String fileName) {
+        Assert.assertEquals(partition + '/' + fileName, exists, new File(Paths.get(root.toString(), "x", partition, fileName).toString()).exists());
+    }
+
+    private void assertSame(String... queries) throws SqlException {
+        for (int i = 0, n = queries.length; i < n; i++) {
+            final String query = queries[i];
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, query.replace("x", "ref"), query, LOG);
+        }
+    }
+
+    private void assertSameAsRef() throws SqlException {
+        assertSame(
+                "x where sym = 'a'",
+                "x where sym = 'd'",
+                "x where sym = null",
+                "x where sym in ('a', 'c') and ts > '1970-01-02T10'",
+                "x where sym = 'b' order by ts desc",
+                "x where sym = 'c' and ts in '1970-01-05'",
+                "(x latest by sym) order by sym",
+                "select ts, sym, first(i) f, last(i) l from x where sym = 'b' sample by 1h"
+        );
+    }
+
+    private String countRef(String sym) throws SqlException {
+        sink.clear();
+        TestUtils.printSql(compiler, sqlExecutionContext, "select count() from ref where sym = '" + sym + "' and ts in '1970-01-02'", sink);
+        return sink.toString().substring("count\n".length()).trim();
+    }
+
+    private void createXAndRef() throws SqlException {
+        // 1000 rows per day, ref table is not indexed
+        final String select = "select x i, rnd_symbol('a', 'b', 'c', null) sym, timestamp_sequence(0, 86400000000L / 1000) ts from long_sequence(10000)";
+        compiler.compile("create table x as (" + select + ") timestamp(ts) partition by DAY", sqlExecutionContext);
+        compiler.compile("create table ref as (select * from x) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
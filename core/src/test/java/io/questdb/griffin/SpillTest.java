@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.std.Files;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpillTest extends AbstractGriffinTest {
+
+    @Test
+    public void testGroupBySpilled() throws Exception {
+        // map has to outgrow its first page to spill
+        assertSpilled("select count(), sum(c), sum(sv) from (select ks, count() c, sum(v) sv from (select cast(x * 1000000007 as string) ks, v from long_sequence(400000) cross join (select 1 v)))");
+    }
+
+    @Test
+    public void testGroupBySpilledPastResizeLimit() throws Exception {
+        // map cannot resize at all unless it spills
+        configOverrideSqlMapMaxResizes = 0;
+        assertSpilledPastLimit(
+                "select count(), sum(c), sum(sv) from (select ks, count() c, sum(v) sv from (select cast(x * 1000000007 as string) ks, v from long_sequence(400000) cross join (select 1 v)))",
+                "count\tsum\tsum1\n" +
+                        "400000\t400000\t400000\n",
+                "limit of 0 resizes exceeded"
+        );
+    }
+
+    @Test
+    public void testHashJoinSpilled() throws Exception {
+        assertSpilled("select count(), sum(x), sum(w) from (select x.x, y.w from x join y on (k))");
+    }
+
+    @Test
+    public void testHashJoinSpilledPastPageLimit() throws Exception {
+        // slave row ids outgrow single page of the chain unless it spills
+        configOverrideSqlHashJoinLightValueMaxPages = 1;
+        assertSpilledPastLimit(
+                "select count(), sum(x), sum(w) from (select x.x, y.w from x join y on (k))",
+                "count\tsum\tsum1\n" +
+                        "199995\t9999872385\t19999631693\n",
+                "Maximum number of pages (1) breached"
+        );
+    }
+
+    @Test
+    public void testHashOuterJoinSpilled() throws Exception {
+        assertSpilled("select count(), sum(x), max(length(ws)) from (select x.x, y.ws from x left join y on (k))");
+    }
+
+    @Test
+    public void testOrderBySpilledAsRuns() throws Exception {
+        assertSpilled("select * from (x order by v) limit -100");
+    }
+
+    @Test
+    public void testOrderByRecordChainSpilled() throws Exception {
+        // join cursor has no random access, sort copies records to a chain
+        assertSpilled("select * from (select x.x, y.w from x join y on (k) order by w desc, x) limit 100");
+    }
+
+    private void assertSpilled(String query) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x, cast((x * 7919) % 100003 as int) k, (x * 31) % 50021 v from long_sequence(100000))", sqlExecutionContext);
+            compiler.compile("create table y as (select cast((x * 104729) % 100003 as int) k, x w, cast(x as string) ws from long_sequence(50000))", sqlExecutionContext);
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            final String spillRoot = temp.getRoot().getAbsolutePath() + Files.SEPARATOR + "spill";
+            configOverrideSpillRoot = spillRoot;
+            configOverrideSpillThreshold = 64 * 1024;
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(expected, sink);
+
+            // spill files are removed when cursors and factories are closed
+            try (Path path = new Path().of(spillRoot).$()) {
+                Assert.assertTrue(Files.exists(path));
+                Assert.assertEquals(0, countFiles(path));
+            }
+        });
+    }
+
+    private void assertSpilledPastLimit(String query, String expected, String limitError) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x, cast((x * 7919) % 100003 as int) k, (x * 31) % 50021 v from long_sequence(100000))", sqlExecutionContext);
+            compiler.compile("create table y as (select cast((x * 104729) % 100003 as int) k, x w, cast(x as string) ws from long_sequence(200000))", sqlExecutionContext);
+
+            try {
+                TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+                Assert.fail();
+            } catch (LimitOverflowException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), limitError);
+            }
+
+            configOverrideSpillRoot = temp.getRoot().getAbsolutePath() + Files.SEPARATOR + "spill";
+            configOverrideSpillThreshold = 64 * 1024;
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    private static int countFiles(Path path) {
+        int count = 0;
+        long find = Files.findFirst(path);
+        if (find > 0) {
+            try {
+                do {
+                    if (Files.findType(find) == Files.DT_FILE) {
+                        count++;
+                    }
+                } while (Files.findNext(find) > 0);
+            } finally {
+                Files.findClose(find);
+            }
+        }
+        return count;
+    }
+}
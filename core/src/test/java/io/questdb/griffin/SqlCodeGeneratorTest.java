@@ -31,6 +31,8 @@ import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.test.TestMatchFunctionFactory;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.orderby.RadixSortedLightRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.std.Chars;
 import io.questdb.std.FilesFacade;
@@ -4921,6 +4923,232 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
                 true);
     }
 
+    @Test
+    public void testOrderByIntKeys() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select cast(x % 4 as int) a, cast(x % 3 as short) b, x v, timestamp_sequence(0, 1000000L) k from long_sequence(12)) timestamp(k)", sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("x order by a desc, b", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof RadixSortedLightRecordCursorFactory);
+            }
+            assertSql(
+                    "x order by a desc, b",
+                    "a\tb\tv\tk\n" +
+                            "3\t0\t3\t1970-01-01T00:00:02.000000Z\n" +
+                            "3\t1\t7\t1970-01-01T00:00:06.000000Z\n" +
+                            "3\t2\t11\t1970-01-01T00:00:10.000000Z\n" +
+                            "2\t0\t6\t1970-01-01T00:00:05.000000Z\n" +
+                            "2\t1\t10\t1970-01-01T00:00:09.000000Z\n" +
+                            "2\t2\t2\t1970-01-01T00:00:01.000000Z\n" +
+                            "1\t0\t9\t1970-01-01T00:00:08.000000Z\n" +
+                            "1\t1\t1\t1970-01-01T00:00:00.000000Z\n" +
+                            "1\t2\t5\t1970-01-01T00:00:04.000000Z\n" +
+                            "0\t0\t12\t1970-01-01T00:00:11.000000Z\n" +
+                            "0\t1\t4\t1970-01-01T00:00:03.000000Z\n" +
+                            "0\t2\t8\t1970-01-01T00:00:07.000000Z\n"
+            );
+            // rows with equal keys come most recent first, same as with tree sort
+            assertSql(
+                    "x order by a",
+                    "a\tb\tv\tk\n" +
+                            "0\t0\t12\t1970-01-01T00:00:11.000000Z\n" +
+                            "0\t2\t8\t1970-01-01T00:00:07.000000Z\n" +
+                            "0\t1\t4\t1970-01-01T00:00:03.000000Z\n" +
+                            "1\t0\t9\t1970-01-01T00:00:08.000000Z\n" +
+                            "1\t2\t5\t1970-01-01T00:00:04.000000Z\n" +
+                            "1\t1\t1\t1970-01-01T00:00:00.000000Z\n" +
+                            "2\t1\t10\t1970-01-01T00:00:09.000000Z\n" +
+                            "2\t0\t6\t1970-01-01T00:00:05.000000Z\n" +
+                            "2\t2\t2\t1970-01-01T00:00:01.000000Z\n" +
+                            "3\t2\t11\t1970-01-01T00:00:10.000000Z\n" +
+                            "3\t1\t7\t1970-01-01T00:00:06.000000Z\n" +
+                            "3\t0\t3\t1970-01-01T00:00:02.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testOrderByIntKeysNegativeAndNull() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " case when x % 4 = 0 then cast(null as long) else (x - 5) * 1000L end l," +
+                            " case when x % 3 = 0 then cast(null as date) else cast((x - 5) * 86400000L as date) end d," +
+                            " case when x % 5 = 0 then cast(null as timestamp) else cast((x - 5) * 1000000L as timestamp) end t," +
+                            " x v" +
+                            " from long_sequence(8)" +
+                            ")",
+                    sqlExecutionContext
+            );
+            try (RecordCursorFactory factory = compiler.compile("x order by l", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof RadixSortedLightRecordCursorFactory);
+            }
+            // NULL is the smallest value
+            assertSql(
+                    "x order by l",
+                    "l\td\tt\tv\n" +
+                            "NaN\t1970-01-04T00:00:00.000Z\t1970-01-01T00:00:03.000000Z\t8\n" +
+                            "NaN\t1969-12-31T00:00:00.000Z\t1969-12-31T23:59:59.000000Z\t4\n" +
+                            "-4000\t1969-12-28T00:00:00.000Z\t1969-12-31T23:59:56.000000Z\t1\n" +
+                            "-3000\t1969-12-29T00:00:00.000Z\t1969-12-31T23:59:57.000000Z\t2\n" +
+                            "-2000\t\t1969-12-31T23:59:58.000000Z\t3\n" +
+                            "0\t1970-01-01T00:00:00.000Z\t\t5\n" +
+                            "1000\t\t1970-01-01T00:00:01.000000Z\t6\n" +
+                            "2000\t1970-01-03T00:00:00.000Z\t1970-01-01T00:00:02.000000Z\t7\n"
+            );
+            assertSql(
+                    "x order by l desc",
+                    "l\td\tt\tv\n" +
+                            "2000\t1970-01-03T00:00:00.000Z\t1970-01-01T00:00:02.000000Z\t7\n" +
+                            "1000\t\t1970-01-01T00:00:01.000000Z\t6\n" +
+                            "0\t1970-01-01T00:00:00.000Z\t\t5\n" +
+                            "-2000\t\t1969-12-31T23:59:58.000000Z\t3\n" +
+                            "-3000\t1969-12-29T00:00:00.000Z\t1969-12-31T23:59:57.000000Z\t2\n" +
+                            "-4000\t1969-12-28T00:00:00.000Z\t1969-12-31T23:59:56.000000Z\t1\n" +
+                            "NaN\t1970-01-04T00:00:00.000Z\t1970-01-01T00:00:03.000000Z\t8\n" +
+                            "NaN\t1969-12-31T00:00:00.000Z\t1969-12-31T23:59:59.000000Z\t4\n"
+            );
+            assertSql(
+                    "x order by d",
+                    "l\td\tt\tv\n" +
+                            "1000\t\t1970-01-01T00:00:01.000000Z\t6\n" +
+                            "-2000\t\t1969-12-31T23:59:58.000000Z\t3\n" +
+                            "-4000\t1969-12-28T00:00:00.000Z\t1969-12-31T23:59:56.000000Z\t1\n" +
+                            "-3000\t1969-12-29T00:00:00.000Z\t1969-12-31T23:59:57.000000Z\t2\n" +
+                            "NaN\t1969-12-31T00:00:00.000Z\t1969-12-31T23:59:59.000000Z\t4\n" +
+                            "0\t1970-01-01T00:00:00.000Z\t\t5\n" +
+                            "2000\t1970-01-03T00:00:00.000Z\t1970-01-01T00:00:02.000000Z\t7\n" +
+                            "NaN\t1970-01-04T00:00:00.000Z\t1970-01-01T00:00:03.000000Z\t8\n"
+            );
+            assertSql(
+                    "x order by t desc",
+                    "l\td\tt\tv\n" +
+                            "NaN\t1970-01-04T00:00:00.000Z\t1970-01-01T00:00:03.000000Z\t8\n" +
+                            "2000\t1970-01-03T00:00:00.000Z\t1970-01-01T00:00:02.000000Z\t7\n" +
+                            "1000\t\t1970-01-01T00:00:01.000000Z\t6\n" +
+                            "NaN\t1969-12-31T00:00:00.000Z\t1969-12-31T23:59:59.000000Z\t4\n" +
+                            "-2000\t\t1969-12-31T23:59:58.000000Z\t3\n" +
+                            "-3000\t1969-12-29T00:00:00.000Z\t1969-12-31T23:59:57.000000Z\t2\n" +
+                            "-4000\t1969-12-28T00:00:00.000Z\t1969-12-31T23:59:56.000000Z\t1\n" +
+                            "0\t1970-01-01T00:00:00.000Z\t\t5\n"
+            );
+        });
+    }
+
+    @Test
+    public void testOrderByIntKeysNarrowTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " x % 2 = 0 b," +
+                            " cast(x % 3 - 1 as byte) y," +
+                            " cast(case when x % 3 = 0 then 'a' when x % 3 = 1 then 'z' else 'M' end as char) c," +
+                            " x v" +
+                            " from long_sequence(9)" +
+                            ")",
+                    sqlExecutionContext
+            );
+            try (RecordCursorFactory factory = compiler.compile("x order by y, c desc, b desc", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof RadixSortedLightRecordCursorFactory);
+            }
+            assertSql(
+                    "x order by b, y desc",
+                    "b\ty\tc\tv\n" +
+                            "false\t1\tM\t5\n" +
+                            "false\t0\tz\t7\n" +
+                            "false\t0\tz\t1\n" +
+                            "false\t-1\ta\t9\n" +
+                            "false\t-1\ta\t3\n" +
+                            "true\t1\tM\t8\n" +
+                            "true\t1\tM\t2\n" +
+                            "true\t0\tz\t4\n" +
+                            "true\t-1\ta\t6\n"
+            );
+            assertSql(
+                    "x order by c desc, b",
+                    "b\ty\tc\tv\n" +
+                            "false\t0\tz\t7\n" +
+                            "false\t0\tz\t1\n" +
+                            "true\t0\tz\t4\n" +
+                            "false\t-1\ta\t9\n" +
+                            "false\t-1\ta\t3\n" +
+                            "true\t-1\ta\t6\n" +
+                            "false\t1\tM\t5\n" +
+                            "true\t1\tM\t8\n" +
+                            "true\t1\tM\t2\n"
+            );
+            assertSql(
+                    "x order by y, c desc, b desc",
+                    "b\ty\tc\tv\n" +
+                            "true\t-1\ta\t6\n" +
+                            "false\t-1\ta\t9\n" +
+                            "false\t-1\ta\t3\n" +
+                            "true\t0\tz\t4\n" +
+                            "false\t0\tz\t7\n" +
+                            "false\t0\tz\t1\n" +
+                            "true\t1\tM\t8\n" +
+                            "true\t1\tM\t2\n" +
+                            "false\t1\tM\t5\n"
+            );
+        });
+    }
+
+    @Test
+    public void testOrderByIntKeysTies() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x % 2 = 0 b, cast(x % 3 - 1 as byte) y, x v from long_sequence(9))", sqlExecutionContext);
+            // rows with equal keys come most recent first in either direction
+            assertSql(
+                    "x order by b desc",
+                    "b\ty\tv\n" +
+                            "true\t1\t8\n" +
+                            "true\t-1\t6\n" +
+                            "true\t0\t4\n" +
+                            "true\t1\t2\n" +
+                            "false\t-1\t9\n" +
+                            "false\t0\t7\n" +
+                            "false\t1\t5\n" +
+                            "false\t-1\t3\n" +
+                            "false\t0\t1\n"
+            );
+            assertSql(
+                    "x order by y",
+                    "b\ty\tv\n" +
+                            "false\t-1\t9\n" +
+                            "true\t-1\t6\n" +
+                            "false\t-1\t3\n" +
+                            "false\t0\t7\n" +
+                            "true\t0\t4\n" +
+                            "false\t0\t1\n" +
+                            "true\t1\t8\n" +
+                            "false\t1\t5\n" +
+                            "true\t1\t2\n"
+            );
+        });
+    }
+
+    @Test
+    public void testOrderByIntKeysWiderThan64Bits() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select cast(x % 2 as int) a, x % 3 l, x v from long_sequence(6))", sqlExecutionContext);
+            // int and long keys do not fit one radix key
+            try (RecordCursorFactory factory = compiler.compile("x order by a desc, l", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof SortedLightRecordCursorFactory);
+            }
+            assertSql(
+                    "x order by a desc, l",
+                    "a\tl\tv\n" +
+                            "1\t0\t3\n" +
+                            "1\t1\t1\n" +
+                            "1\t2\t5\n" +
+                            "0\t0\t6\n" +
+                            "0\t1\t4\n" +
+                            "0\t2\t2\n"
+            );
+        });
+    }
+
     @Test
     public void testOrderByLong256AndChar() throws Exception {
         final String expected = "a\tb\tk\n" +
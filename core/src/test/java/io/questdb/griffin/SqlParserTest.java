@@ -133,6 +133,51 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
     }
 
+    @Test
+    public void testAnalyticFrameBoundExpected() throws Exception {
+        assertSyntaxError("select a,b, f(c) over (order by ts rows between 1 foo) my from xyz", 50, "'preceding' or 'following' expected");
+    }
+
+    @Test
+    public void testAnalyticFrameRange() throws Exception {
+        // short form of the frame ends at current row
+        assertQuery(
+                "select-analytic a, b, f(c) my over (order by ts range between 1h preceding and current row) from (select [a, b, c, ts] from xyz timestamp (ts))",
+                "select a,b, f(c) over (order by ts range 1h preceding) my from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameRows() throws Exception {
+        assertQuery(
+                "select-analytic a, b, f(c) f over (partition by b order by ts rows between 10 preceding and current row) from (select [a, b, c, ts] from xyz timestamp (ts))",
+                "select a,b, f(c) over (partition by b order by ts rows between 10 preceding and current row) from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testAnalyticFrameUnbounded() throws Exception {
+        assertQuery(
+                "select-analytic a, b, f(c) my over (partition by b rows between unbounded preceding and unbounded following) from (select [a, b, c] from xyz timestamp (ts))",
+                "select a,b, f(c) over (partition by b rows between unbounded preceding and unbounded following) my from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .timestamp("ts")
+        );
+    }
+
     @Test
     public void testAnalyticFunctionReferencesSameColumnAsVirtual() throws Exception {
         assertQuery(
@@ -712,6 +757,39 @@ public class SqlParserTest extends AbstractSqlParserTest {
                         "partition by MONTH");
     }
 
+    @Test
+    public void testCreateTableBloomFilter() throws SqlException {
+        assertCreateTable(
+                "create table x (ts TIMESTAMP, l LONG, s STRING, sym SYMBOL capacity 128 cache) timestamp(ts) partition by DAY bloom filter(l, sym)",
+                "create table x (ts TIMESTAMP, l LONG, s STRING, sym SYMBOL) timestamp(ts) partition by DAY bloom filter(sym, l)"
+        );
+    }
+
+    @Test
+    public void testCreateTableDedupKeys() throws SqlException {
+        assertCreateTable(
+                "create table x (ts TIMESTAMP, s SYMBOL capacity 128 cache, v DOUBLE) timestamp(ts) partition by DAY dedup upsert keys(ts, s)",
+                "create table x (ts TIMESTAMP, s SYMBOL, v DOUBLE) timestamp(ts) partition by DAY dedup upsert keys(s, ts)"
+        );
+    }
+
+    @Test
+    public void testCreateMaterializedView() throws SqlException {
+        assertCreateTable(
+                "create materialized view v as (select-group-by ts, sym, sum(price) sum from (select [ts, sym, price] from tab timestamp (ts)) sample by 1h align to calendar with offset '00:00') partition by MONTH dedup upsert keys(ts, sym)",
+                "create materialized view v as (select ts, sym, sum(price) from tab sample by 1h align to calendar) partition by MONTH",
+                modelOf("tab")
+                        .col("sym", ColumnType.SYMBOL)
+                        .col("price", ColumnType.DOUBLE)
+                        .timestamp("ts")
+        );
+    }
+
+    @Test
+    public void testCreateMaterializedViewMissingViewKeyword() throws Exception {
+        assertSyntaxError("create materialized v as (select ts from tab sample by 1h)", 20, "'view' expected");
+    }
+
     @Test
     public void testCreateTableAsSelect() throws SqlException {
         assertCreateTable(
@@ -1306,7 +1384,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
                         "timestamp(t) " +
                         "partition by EPOCH",
                 128,
-                "'NONE', 'DAY', 'MONTH' or 'YEAR' expected"
+                "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected"
         );
     }
 
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+public class UpdateTest extends AbstractGriffinTest {
+
+    @Test
+    public void testReaderKeepsOldVersion() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(CompiledQuery.UPDATE, compile("update x set v = v * 10").getType());
+                assertSql("select sum(v) from x", "sum\n289200\n");
+
+                // reader opened before update sees old values until reload
+                Assert.assertEquals(28920, sum(reader));
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(289200, sum(reader));
+            }
+            compile("insert into x select x, x, 'a', 'k', timestamp_sequence('2022-01-11', 3600000000) from long_sequence(1)");
+            drainPurgeQueue();
+            // old partition versions are purged once readers are gone
+            Assert.assertEquals(11, countPartitionDirs());
+        });
+    }
+
+    @Test
+    public void testUpdateActivePartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("update x set v = -1 where ts >= '2022-01-10T22:00'");
+            assertSql("select v, ts from x where ts > '2022-01-10T20:00'", "v\tts\n" +
+                    "238\t2022-01-10T21:00:00.000000Z\n" +
+                    "-1\t2022-01-10T22:00:00.000000Z\n" +
+                    "-1\t2022-01-10T23:00:00.000000Z\n");
+
+            // writer keeps appending to the new version of active partition
+            compile("insert into x select 1000 + x, 1000 + x, 'z', 'k', timestamp_sequence('2022-01-10T23:30', 60000000) from long_sequence(2)");
+            assertSql("select v, s, ts from x where ts > '2022-01-10T22:00'", "v\ts\tts\n" +
+                    "-1\ts0\t2022-01-10T23:00:00.000000Z\n" +
+                    "1001\tz\t2022-01-10T23:30:00.000000Z\n" +
+                    "1002\tz\t2022-01-10T23:31:00.000000Z\n");
+            engine.clear();
+            assertSql("select count(), sum(v) from x", "count\tsum\n242\t30442\n");
+        });
+    }
+
+    @Test
+    public void testUpdateCannotUpdateDesignatedTimestamp() throws Exception {
+        assertFailure(
+                "update x set v = 1, ts = now()",
+                "create table x (v long, ts timestamp) timestamp(ts) partition by DAY",
+                20,
+                "cannot update designated timestamp"
+        );
+    }
+
+    @Test
+    public void testUpdateDuplicateColumn() throws Exception {
+        assertFailure(
+                "update x set v = 1, v = 2",
+                "create table x (v long, ts timestamp) timestamp(ts) partition by DAY",
+                20,
+                "duplicate column name"
+        );
+    }
+
+    @Test
+    public void testUpdateIndexedColumn() throws Exception {
+        assertFailure(
+                "update x set s = 'a'",
+                "create table x (s symbol index, ts timestamp) timestamp(ts) partition by DAY",
+                13,
+                "cannot update indexed column"
+        );
+    }
+
+    @Test
+    public void testUpdateInvalidColumn() throws Exception {
+        assertFailure(
+                "update x set y = 1",
+                "create table x (v long, ts timestamp) timestamp(ts) partition by DAY",
+                13,
+                "Invalid column: y"
+        );
+    }
+
+    @Test
+    public void testUpdateNotPartitioned() throws Exception {
+        assertFailure(
+                "update x set v = 1",
+                "create table x (v long, ts timestamp) timestamp(ts)",
+                7,
+                "cannot update table, which is not partitioned"
+        );
+    }
+
+    @Test
+    public void testUpdateStringAndSymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("update x set s = 'z' || s, k = concat('s', x) where x % 100 = 1 or ts in '2022-01-05'");
+            assertSql("select count() from x where s ~ 'z'", "count\n26\n");
+            assertSql("select x, k, s from x where x in (1, 101, 201, 97)", "x\tk\ts\n" +
+                    "1\ts1\tzs1\n" +
+                    "97\ts97\tzs1\n" +
+                    "101\ts101\tzs2\n" +
+                    "201\ts201\tzs0\n");
+            // strings after updated rows are intact
+            assertSql("select x, k, s from x where x in (2, 96)", "x\tk\ts\n" +
+                    "2\tk2\ts2\n" +
+                    "96\tk96\ts0\n");
+        });
+    }
+
+    @Test
+    public void testUpdateSwapColumns() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x a, -x b, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(48)) timestamp(ts) partition by DAY");
+            // all new values are computed from the table as it was before update
+            compile("update x set a = b, b = a where a > 46");
+            assertSql("select a, b from x where ts >= '2022-01-02T21:00'", "a\tb\n" +
+                    "46\t-46\n" +
+                    "-47\t47\n" +
+                    "-48\t48\n");
+        });
+    }
+
+    @Test
+    public void testUpdateWithColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x add column y int");
+            compile("insert into x select x, x, 'a', 'k', timestamp_sequence('2022-01-10T23:30', 60000000), 7 from long_sequence(2)");
+            compile("update x set y = 1 where ts in '2022-01-01' and x < 3");
+            assertSql("select count(), sum(y) from x where y <> null", "count\tsum\n4\t16\n");
+            assertSql("select x, y from x where ts in '2022-01-01T00'", "x\ty\n1\t1\n");
+        });
+    }
+
+    private static CompiledQuery compile(String sql) throws SqlException {
+        return compiler.compile(sql, sqlExecutionContext);
+    }
+
+    private static int countPartitionDirs() {
+        final String[] dirs = new File(Paths.get(root.toString(), "x").toString()).list((dir, name) -> name.startsWith("2022-"));
+        Assert.assertNotNull(dirs);
+        return dirs.length;
+    }
+
+    private static void createX() throws SqlException {
+        // ten days of hourly rows
+        compile("create table x as (" +
+                "select x, x v, cast('s' || (x % 3) as symbol) s, 'k' || x k, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(240)" +
+                ") timestamp(ts) partition by DAY");
+    }
+
+    private static long sum(TableReader reader) {
+        final RecordCursor cursor = reader.getCursor();
+        final Record record = cursor.getRecord();
+        final int index = reader.getMetadata().getColumnIndex("v");
+        long sum = 0;
+        while (cursor.hasNext()) {
+            sum += record.getLong(index);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.wal.WalWriter;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WalTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAddColumnBetweenCommits() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            executeInsert("insert into x values (1, 'a', 'x1', '2022-02-24T01:00:00.000000Z')");
+            compiler.compile("alter table x add column d double", sqlExecutionContext);
+            executeInsert("insert into x values (2, 'b', 'x2', '2022-02-24T02:00:00.000000Z', 2.5)");
+            drainWal();
+            assertSql(
+                    "x",
+                    "i\tsym\tstr\tts\td\n" +
+                            "1\ta\tx1\t2022-02-24T01:00:00.000000Z\tNaN\n" +
+                            "2\tb\tx2\t2022-02-24T02:00:00.000000Z\t2.5\n"
+            );
+        });
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            final int threadCount = 4;
+            final int rowCount = 10_000;
+            final CyclicBarrier start = new CyclicBarrier(threadCount);
+            final CountDownLatch done = new CountDownLatch(threadCount);
+            final AtomicInteger errors = new AtomicInteger();
+            for (int t = 0; t < threadCount; t++) {
+                final int threadId = t;
+                new Thread(() -> {
+                    try (TableWriterAPI writer = engine.getTableWriterAPI(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                        Assert.assertTrue(writer instanceof WalWriter);
+                        start.await();
+                        for (int i = 0; i < rowCount; i++) {
+                            // rows of all threads interleave in time
+                            TableWriter.Row row = writer.newRow(1645660800000000L + (i * threadCount + threadId) * 1000_000L);
+                            row.putInt(0, i);
+                            row.putSym(1, threadId % 2 == 0 ? "even" : "odd");
+                            row.putStr(2, "t" + threadId);
+                            row.append();
+                            if (i % 1000 == 999) {
+                                writer.commit();
+                            }
+                        }
+                        writer.commit();
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                        errors.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            done.await();
+            Assert.assertEquals(0, errors.get());
+
+            assertSql("select count() from x", "count\n0\n");
+            drainWal();
+            assertSql(
+                    "select sym, count(), sum(i) from x order by sym",
+                    "sym\tcount\tsum\n" +
+                            "even\t20000\t99990000\n" +
+                            "odd\t20000\t99990000\n"
+            );
+            assertSql(
+                    "select min(ts), max(ts) from x",
+                    "min\tmax\n" +
+                            "2022-02-24T00:00:00.000000Z\t2022-02-24T11:06:39.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            executeInsert("insert into x values (1, 'a', 'x1', '2022-02-25T01:00:00.000000Z')");
+            drainWal();
+            executeInsert("insert into x values (2, 'b', null, '2022-02-24T01:00:00.000000Z')");
+            executeInsert("insert into x values (3, null, 'x3', '2022-02-25T00:00:00.000000Z')");
+            drainWal();
+            assertSql(
+                    "x",
+                    "i\tsym\tstr\tts\n" +
+                            "2\tb\t\t2022-02-24T01:00:00.000000Z\n" +
+                            "3\t\tx3\t2022-02-25T00:00:00.000000Z\n" +
+                            "1\ta\tx1\t2022-02-25T01:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testPendingTransactionsAppliedAfterRestart() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            executeInsert("insert into x values (1, 'a', 'x1', '2022-02-24T01:00:00.000000Z')");
+            executeInsert("insert into x values (2, 'b', 'x2', '2022-02-24T02:00:00.000000Z')");
+            // release writers and WAL of this engine, the other engine picks up pending transactions
+            engine.clear();
+            try (CairoEngine other = new CairoEngine(configuration)) {
+                Assert.assertTrue(other.getWalApplyJob().run(0));
+                try (TableReader reader = other.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(2, reader.size());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (TableWriterAPI writer = engine.getTableWriterAPI(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                TableWriter.Row row = writer.newRow(1645660800000000L);
+                row.putInt(0, 1);
+                row.append();
+                writer.commit();
+
+                row = writer.newRow(1645660800000001L);
+                row.putInt(0, 2);
+                row.cancel();
+
+                row = writer.newRow(1645660800000002L);
+                row.putInt(0, 3);
+                row.putStr(2, "abc");
+                row.append();
+                writer.rollback();
+
+                row = writer.newRow(1645660800000003L);
+                row.putInt(0, 4);
+                row.append();
+                writer.commit();
+            }
+            drainWal();
+            assertSql(
+                    "x",
+                    "i\tsym\tstr\tts\n" +
+                            "1\t\t\t2022-02-24T00:00:00.000000Z\n" +
+                            "4\t\t\t2022-02-24T00:00:00.000003Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testTableWithoutTimestampUsesTableWriter() throws Exception {
+        assertMemoryLeak(() -> {
+            configOverrideWalEnabled = true;
+            compiler.compile("create table y (i int)", sqlExecutionContext);
+            try (TableWriterAPI writer = engine.getTableWriterAPI(AllowAllCairoSecurityContext.INSTANCE, "y", "test")) {
+                Assert.assertTrue(writer instanceof TableWriter);
+            }
+        });
+    }
+
+    @Test
+    public void testTimestampBefore1970() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try {
+                executeInsert("insert into x values (1, 'a', 'x1', '1969-02-24T01:00:00.000000Z')");
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "timestamp before 1970-01-01 is not allowed");
+            }
+        });
+    }
+
+    @Test
+    public void testWriterBusy() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            executeInsert("insert into x values (1, 'a', 'x1', '2022-02-24T01:00:00.000000Z')");
+            try (TableWriter ignored = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                Assert.assertFalse(engine.getWalApplyJob().run(0));
+            }
+            drainWal();
+            assertSql("select count() from x", "count\n1\n");
+        });
+    }
+
+    private void createX() throws SqlException {
+        configOverrideWalEnabled = true;
+        compiler.compile("create table x (i int, sym symbol, str string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+
+    private void drainWal() {
+        Assert.assertTrue(engine.getWalApplyJob().run(0));
+        Assert.assertFalse(engine.getWalApplyJob().run(0));
+    }
+}
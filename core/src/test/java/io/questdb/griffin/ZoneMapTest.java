@@ -0,0 +1,350 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.BindVariableService;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ZoneMapTest {
+    private static final StringSink expectedSink = new StringSink();
+    private static final StringSink sink = new StringSink();
+    @ClassRule
+    public static TemporaryFolder temp = new TemporaryFolder();
+    private static CharSequence root;
+
+    @BeforeClass
+    public static void setupStatic() {
+        try {
+            root = temp.newFolder("dbRoot").getAbsolutePath();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        SharedRandom.RANDOM.set(new Rnd());
+        TestUtils.createTestPath(root);
+    }
+
+    @After
+    public void tearDown() {
+        TestUtils.removeTestPath(root);
+    }
+
+    @Test
+    public void testAddColumn() throws Exception {
+        assertZoneMap((compiler, context, referenceCompiler, referenceContext) -> {
+            createTable(compiler, context);
+            compiler.compile("alter table x add column j int", context);
+            compiler.compile("insert into x select * from (select cast(x as int) i, rnd_long(0, 1000, 1) l, rnd_double(1) d, rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 1) dt," +
+                    " timestamp_sequence(1000000000000, 3600000000) ts, rnd_int(0, 10, 1) j from long_sequence(100)) timestamp(ts)", context);
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where j = null");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where j != null");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where j > 5 and i < 50");
+            // new column has the same index as the dropped one, statistics of the latter must not be used
+            compiler.compile("alter table x drop column j", context);
+            compiler.compile("alter table x add column j int", context);
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where j = null");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i > 50");
+        });
+    }
+
+    @Test
+    public void testBindVariable() throws Exception {
+        assertZoneMap((compiler, context, referenceCompiler, referenceContext) -> {
+            createTable(compiler, context);
+            final String query = "select * from x where i > :lo and i < :hi";
+            context.getBindVariableService().setInt("lo", 10);
+            context.getBindVariableService().setInt("hi", 20);
+            assertQuery(compiler, context, referenceCompiler, referenceContext, query);
+            // factory is cached by the caller, values are new
+            try (RecordCursorFactory factory = compiler.compile(query, context).getRecordCursorFactory()) {
+                context.getBindVariableService().setInt("lo", 150);
+                context.getBindVariableService().setInt("hi", 250);
+                TestUtils.printSql(referenceCompiler, referenceContext, query, expectedSink);
+                try (RecordCursor cursor = factory.getCursor(context)) {
+                    TestUtils.assertCursor(expectedSink, cursor, factory.getMetadata(), true, sink);
+                }
+                context.getBindVariableService().setInt("lo", Integer.MIN_VALUE);
+                TestUtils.printSql(referenceCompiler, referenceContext, query, expectedSink);
+                try (RecordCursor cursor = factory.getCursor(context)) {
+                    TestUtils.assertCursor(expectedSink, cursor, factory.getMetadata(), true, sink);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testDropPartition() throws Exception {
+        assertZoneMap((compiler, context, referenceCompiler, referenceContext) -> {
+            createTable(compiler, context);
+            compiler.compile("alter table x drop partition list '1970-01-02'", context);
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i > 30");
+            compiler.compile("insert into x select * from (select cast(x + 1000 as int) i, rnd_long(0, 1000, 1) l, rnd_double(1) d," +
+                    " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 1) dt, timestamp_sequence(86400000000, 60000000) ts from long_sequence(10)) timestamp(ts)", context);
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i > 1000");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i = 1005");
+        });
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        assertZoneMap((compiler, context, referenceCompiler, referenceContext) -> {
+            createTable(compiler, context);
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i = 500");
+            // rows land in the first partitions, their statistics are outdated
+            compiler.compile("insert into x select * from (select 500 i, 5000L l, 50.0 d, to_date('2020', 'yyyy') dt," +
+                    " timestamp_sequence(3000000000, 7200000000) ts from long_sequence(20)) timestamp(ts)", context);
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i = 500");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where l >= 5000");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where d > 49.5");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where dt > '2019-01-01'");
+            // writer rescans partitions invalidated by out of order commit once it moves on to new partition
+            compiler.compile("insert into x select * from (select 600 i, 6000L l, 60.0 d, to_date('2021', 'yyyy') dt," +
+                    " timestamp_sequence(1000000000000, 7200000000) ts from long_sequence(30)) timestamp(ts)", context);
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i = 500 or i = 600");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where l < 5001 and l > 4999");
+        });
+    }
+
+    @Test
+    public void testPartitionIsNotOpened() throws Exception {
+        final AtomicInteger openCount = new AtomicInteger();
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public long openRO(LPSZ name) {
+                if (Chars.contains(name, "1970-01-01") && Chars.endsWith(name, ".d")) {
+                    openCount.incrementAndGet();
+                }
+                return super.openRO(name);
+            }
+        };
+        assertZoneMap(ff, (compiler, context, referenceCompiler, referenceContext) -> {
+            createTable(compiler, context);
+            openCount.set(0);
+            // first partition holds i = 1..24
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i > 24");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i = 100 or i < 0");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where l = null and i >= 30");
+            Assert.assertEquals(0, openCount.get());
+        });
+    }
+
+    @Test
+    public void testReopenWriter() throws Exception {
+        assertZoneMap((compiler, context, referenceCompiler, referenceContext) -> {
+            createTable(compiler, context);
+            compiler.getEngine().releaseAllWriters();
+            compiler.compile("insert into x select * from (select cast(x + 1000 as int) i, rnd_long(0, 1000, 1) l, rnd_double(1) d," +
+                    " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 1) dt, timestamp_sequence(1000000000000, 60000000) ts from long_sequence(10)) timestamp(ts)", context);
+            compiler.getEngine().releaseAllWriters();
+
+            // statistics written by the previous writer are still there
+            try (TableReader reader = compiler.getEngine().getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                final ZoneMapReader zoneMap = reader.getZoneMap(0);
+                Assert.assertNotNull(zoneMap);
+                Assert.assertEquals(1, zoneMap.getMin(0));
+                Assert.assertEquals(24, zoneMap.getMax(0));
+            }
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i > 1005 or i < 3");
+        });
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        assertZoneMap((compiler, context, referenceCompiler, referenceContext) -> {
+            compiler.compile("create table x as (" +
+                    "select" +
+                    " cast(x as int) i," +
+                    " case when x % 2 = 0 then null else x * 10 end l," +
+                    " x / 4.0 d," +
+                    " timestamp_sequence(0, 3600000000) ts" +
+                    " from long_sequence(48)" +
+                    ") timestamp(ts) partition by DAY", context);
+
+            try (TableReader reader = compiler.getEngine().getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(2, reader.getPartitionCount());
+
+                ZoneMapReader zoneMap = reader.getZoneMap(0);
+                Assert.assertNotNull(zoneMap);
+                Assert.assertEquals(24, zoneMap.getRowCount());
+                Assert.assertEquals(1, zoneMap.getMin(0));
+                Assert.assertEquals(24, zoneMap.getMax(0));
+                Assert.assertEquals(0, zoneMap.getNullCount(0));
+                Assert.assertEquals(10, zoneMap.getMin(1));
+                Assert.assertEquals(230, zoneMap.getMax(1));
+                Assert.assertEquals(12, zoneMap.getNullCount(1));
+                Assert.assertEquals(0.25, zoneMap.getMinDouble(2), 0.0000001);
+                Assert.assertEquals(6.0, zoneMap.getMaxDouble(2), 0.0000001);
+                Assert.assertEquals(0, zoneMap.getMin(3));
+                Assert.assertEquals(23 * 3600000000L, zoneMap.getMax(3));
+
+                zoneMap = reader.getZoneMap(1);
+                Assert.assertNotNull(zoneMap);
+                Assert.assertEquals(25, zoneMap.getMin(0));
+                Assert.assertEquals(48, zoneMap.getMax(0));
+            }
+
+            // statistics are dropped with the data
+            compiler.compile("truncate table x", context);
+            compiler.compile("insert into x select cast(x + 100 as int), x, x, cast(x * 1000 as timestamp) from long_sequence(2)", context);
+            try (TableReader reader = compiler.getEngine().getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(1, reader.getPartitionCount());
+                final ZoneMapReader zoneMap = reader.getZoneMap(0);
+                Assert.assertNotNull(zoneMap);
+                Assert.assertEquals(101, zoneMap.getMin(0));
+                Assert.assertEquals(102, zoneMap.getMax(0));
+            }
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from x where i < 102");
+        });
+    }
+
+    @Test
+    public void testTypes() throws Exception {
+        assertZoneMap((compiler, context, referenceCompiler, referenceContext) -> {
+            compiler.compile(
+                    "create table y as (" +
+                            "select" +
+                            " rnd_byte() bt," +
+                            " rnd_short() sh," +
+                            " cast(x as int) i," +
+                            " x * 3 l," +
+                            " rnd_float(2) f," +
+                            " rnd_double(2) d," +
+                            " cast(x * 86400000 as date) dt," +
+                            " cast(x * 3600000000 as timestamp) ts2," +
+                            " timestamp_sequence(0, 1800000000) ts" +
+                            " from long_sequence(500)" +
+                            ") timestamp(ts) partition by DAY",
+                    context
+            );
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where bt = 50");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where sh = 100 or sh != 100");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where i >= 100 and i <= 110");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where i = null or i != 100");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where l = 300");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where 600 < l and l < 900");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where f < 0.1 and i > 250");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where d >= 0.99 or d = null");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where dt < '1970-03-01' and dt > '1970-02-01'");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where ts2 > '1970-01-10' and i < 400");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where i < 300.5 and l > 600.5");
+            assertQuery(compiler, context, referenceCompiler, referenceContext, "select * from y where ts2 < null");
+        });
+    }
+
+    private static void assertQuery(
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlCompiler referenceCompiler,
+            SqlExecutionContext referenceContext,
+            String query
+    ) throws SqlException {
+        TestUtils.printSql(referenceCompiler, referenceContext, query, expectedSink);
+        try (RecordCursorFactory factory = compiler.compile(query, context).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(context)) {
+                TestUtils.assertCursor(expectedSink, cursor, factory.getMetadata(), true, sink);
+            }
+        }
+    }
+
+    private static void assertZoneMap(ZoneMapCode code) throws Exception {
+        assertZoneMap(FilesFacadeImpl.INSTANCE, code);
+    }
+
+    private static void assertZoneMap(FilesFacade ff, ZoneMapCode code) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+            };
+            // reference engine only reads, writer of this engine would have removed zone map file
+            final CairoConfiguration referenceConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isZoneMapEnabled() {
+                    return false;
+                }
+            };
+            try (
+                    final CairoEngine engine = new CairoEngine(configuration);
+                    final CairoEngine referenceEngine = new CairoEngine(referenceConfiguration);
+                    final SqlCompiler compiler = new SqlCompiler(engine);
+                    final SqlCompiler referenceCompiler = new SqlCompiler(referenceEngine);
+                    final SqlExecutionContextImpl context = new SqlExecutionContextImpl(engine, 1);
+                    final SqlExecutionContextImpl referenceContext = new SqlExecutionContextImpl(referenceEngine, 1)
+            ) {
+                // both contexts share bind variables
+                final BindVariableService bindVariableService = new BindVariableServiceImpl(configuration);
+                context.with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+                referenceContext.with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+                code.run(compiler, context, referenceCompiler, referenceContext);
+                Assert.assertEquals(0, engine.getBusyWriterCount());
+                Assert.assertEquals(0, engine.getBusyReaderCount());
+                Assert.assertEquals(0, referenceEngine.getBusyReaderCount());
+            }
+        });
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext executionContext) throws SqlException {
+        // 24 rows per partition, i is ascending across partitions
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_long(0, 1000, 1) l," +
+                        " rnd_double(1) d," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 1) dt," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(200)" +
+                        ") timestamp(ts) partition by DAY",
+                executionContext
+        );
+    }
+
+    @FunctionalInterface
+    interface ZoneMapCode {
+        void run(SqlCompiler compiler, SqlExecutionContext context, SqlCompiler referenceCompiler, SqlExecutionContext referenceContext) throws Exception;
+    }
+}
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+public class FilterCompilerTest {
+    private static final StringSink expectedSink = new StringSink();
+    private static final StringSink sink = new StringSink();
+    @ClassRule
+    public static TemporaryFolder temp = new TemporaryFolder();
+    private static CharSequence root;
+    private static boolean compilerEnabled;
+
+    @BeforeClass
+    public static void setupStatic() {
+        try {
+            root = temp.newFolder("dbRoot").getAbsolutePath();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        SharedRandom.RANDOM.set(new Rnd());
+        TestUtils.createTestPath(root);
+    }
+
+    @After
+    public void tearDown() {
+        TestUtils.removeTestPath(root);
+    }
+
+    @Test
+    public void testArithmetic() throws Exception {
+        assertCompiled((compiler, executionContext) -> {
+            createTable(compiler, executionContext);
+            assertQuery(compiler, executionContext, "select * from x where i + 10 > 50");
+            assertQuery(compiler, executionContext, "select * from x where i - sh < 0");
+            assertQuery(compiler, executionContext, "select * from x where i * 2 = 40");
+            assertQuery(compiler, executionContext, "select * from x where l + i > 0 and l - 10 < 0");
+            assertQuery(compiler, executionContext, "select * from x where l * 3 <= 0");
+            assertQuery(compiler, executionContext, "select * from x where d + f > 1.0");
+            assertQuery(compiler, executionContext, "select * from x where d - i > 0 or d * 2 < 0.3");
+            assertQuery(compiler, executionContext, "select * from x where d / f > 2");
+            assertQuery(compiler, executionContext, "select * from x where bt * 2 + sh > 100");
+        });
+    }
+
+    @Test
+    public void testBindVariables() throws Exception {
+        assertCompiled((compiler, executionContext) -> {
+            createTable(compiler, executionContext);
+            executionContext.getBindVariableService().setInt(0, 25);
+            executionContext.getBindVariableService().setDouble(1, 0.5);
+            assertQuery(compiler, executionContext, "select * from x where i > $1 and d < $2");
+            executionContext.getBindVariableService().setLong("l", 0);
+            assertQuery(compiler, executionContext, "select * from x where l >= :l");
+        });
+    }
+
+    @Test
+    public void testBoolean() throws Exception {
+        assertCompiled((compiler, executionContext) -> {
+            createTable(compiler, executionContext);
+            assertQuery(compiler, executionContext, "select * from x where b");
+            assertQuery(compiler, executionContext, "select * from x where not b");
+            assertQuery(compiler, executionContext, "select * from x where b = false or i = 1");
+            assertQuery(compiler, executionContext, "select * from x where not (b and i > 10)");
+        });
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertCompiled((compiler, executionContext) -> {
+            createTable(compiler, executionContext);
+            compiler.compile("alter table x add column j int", executionContext);
+            compiler.compile(
+                    "insert into x select" +
+                            " rnd_boolean(), rnd_byte(), rnd_short(), rnd_int(0, 100, 2), rnd_long(-100, 100, 2)," +
+                            " rnd_float(2), rnd_double(2), rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2)," +
+                            " rnd_timestamp(to_timestamp('2015', 'yyyy'), to_timestamp('2016', 'yyyy'), 2)," +
+                            " rnd_symbol('ABC','DEF',null), rnd_str(3,5,2)," +
+                            " timestamp_sequence(1000000000000, 100000000), rnd_int(0, 100, 2)" +
+                            " from long_sequence(3000)",
+                    executionContext
+            );
+            // frames with column top are filtered by the function tree
+            assertQuery(compiler, executionContext, "select * from x where j = null and d > 0.5");
+            assertQuery(compiler, executionContext, "select * from x where j > 50 or i < 5");
+        });
+    }
+
+    @Test
+    public void testComparison() throws Exception {
+        assertCompiled((compiler, executionContext) -> {
+            createTable(compiler, executionContext);
+            assertQuery(compiler, executionContext, "select * from x where bt = 10 or sh = 100 or i = 42");
+            assertQuery(compiler, executionContext, "select * from x where bt != 10 and sh <> 100");
+            assertQuery(compiler, executionContext, "select * from x where i > 90 or i <= 1");
+            assertQuery(compiler, executionContext, "select * from x where l >= 90 or l < -90");
+            assertQuery(compiler, executionContext, "select * from x where f > 0.9 or f <= 0.05");
+            assertQuery(compiler, executionContext, "select * from x where d = 0.5 or d >= 0.95");
+            assertQuery(compiler, executionContext, "select * from x where dt < '2015-06-01' and dt >= '2015-03-01'");
+            assertQuery(compiler, executionContext, "select * from x where ts2 > '2015-06-01' and ts2 != '2015-07-01T00:00:00.000000Z'");
+            assertQuery(compiler, executionContext, "select * from x where ts < ts2");
+        });
+    }
+
+    @Test
+    public void testNotCompiled() throws Exception {
+        assertCompiled((compiler, executionContext) -> {
+            createTable(compiler, executionContext);
+            try (RecordCursorFactory factory = compiler.compile("select * from x where sym = 'ABC' and i > 10", executionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof FilteredRecordCursorFactory);
+            }
+            try (RecordCursorFactory factory = compiler.compile("select * from x where s ~ 'A' or d > 0.5", executionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof FilteredRecordCursorFactory);
+            }
+            try (RecordCursorFactory factory = compiler.compile("select * from x where abs(i) > 10", executionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof FilteredRecordCursorFactory);
+            }
+        });
+    }
+
+    @Test
+    public void testNulls() throws Exception {
+        assertCompiled((compiler, executionContext) -> {
+            createTable(compiler, executionContext);
+            assertQuery(compiler, executionContext, "select * from x where i = null or l = null");
+            assertQuery(compiler, executionContext, "select * from x where f != null and d != null");
+            assertQuery(compiler, executionContext, "select * from x where dt = null or ts2 = null");
+            assertQuery(compiler, executionContext, "select * from x where i + 1 = null");
+            assertQuery(compiler, executionContext, "select * from x where i < 10");
+            assertQuery(compiler, executionContext, "select * from x where i >= 10");
+            assertQuery(compiler, executionContext, "select * from x where d < 0.2");
+            assertQuery(compiler, executionContext, "select * from x where d >= 0.8");
+        });
+    }
+
+    private static void assertCompiled(CompilerCode code) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    // split partitions into several frames
+                    return 1000;
+                }
+
+                @Override
+                public boolean isSqlFilterCompilerEnabled() {
+                    return compilerEnabled;
+                }
+            };
+            try (
+                    final CairoEngine engine = new CairoEngine(configuration);
+                    final SqlCompiler compiler = new SqlCompiler(engine);
+                    final SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+            ) {
+                executionContext.with(AllowAllCairoSecurityContext.INSTANCE, new BindVariableServiceImpl(configuration), null);
+                compilerEnabled = true;
+                code.run(compiler, executionContext);
+                Assert.assertEquals(0, engine.getBusyWriterCount());
+                Assert.assertEquals(0, engine.getBusyReaderCount());
+            }
+        });
+    }
+
+    private static void assertQuery(SqlCompiler compiler, SqlExecutionContext executionContext, String query) throws SqlException {
+        compilerEnabled = false;
+        try {
+            TestUtils.printSql(compiler, executionContext, query, expectedSink);
+        } finally {
+            compilerEnabled = true;
+        }
+        try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof AsyncFilteredRecordCursorFactory);
+            try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                TestUtils.assertCursor(expectedSink, cursor, factory.getMetadata(), true, sink);
+                cursor.toTop();
+                TestUtils.assertCursor(expectedSink, cursor, factory.getMetadata(), true, sink);
+            }
+        }
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext executionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_boolean() b," +
+                        " rnd_byte() bt," +
+                        " rnd_short() sh," +
+                        " rnd_int(0, 100, 2) i," +
+                        " rnd_long(-100, 100, 2) l," +
+                        " rnd_float(2) f," +
+                        " rnd_double(2) d," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) dt," +
+                        " rnd_timestamp(to_timestamp('2015', 'yyyy'), to_timestamp('2016', 'yyyy'), 2) ts2," +
+                        " rnd_symbol('ABC','DEF',null) sym," +
+                        " rnd_str(3,5,2) s," +
+                        " timestamp_sequence(0, 100000000) ts" +
+                        " from long_sequence(10000)" +
+                        ") timestamp(ts) partition by DAY",
+                executionContext
+        );
+    }
+
+    @FunctionalInterface
+    interface CompilerCode {
+        void run(SqlCompiler compiler, SqlExecutionContext executionContext) throws Exception;
+    }
+}
@@ -144,6 +144,13 @@ public class TimestampsTest {
         TestUtils.assertEquals("2008-06-01T00:00:00.000Z", sink);
     }
 
+    @Test
+    public void testCeilWW() throws Exception {
+        long micros = TimestampFormatUtils.parseTimestamp("2008-05-15T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.ceilWW(micros));
+        TestUtils.assertEquals("2008-05-19T00:00:00.000Z", sink);
+    }
+
     @Test
     public void testCeilYYYY() throws Exception {
         long micros = TimestampFormatUtils.parseTimestamp("2008-05-12T23:45:51.045Z");
@@ -219,6 +226,13 @@ public class TimestampsTest {
         TestUtils.assertEquals("2008-05-01T00:00:00.000Z", sink);
     }
 
+    @Test
+    public void testFloorWW() throws Exception {
+        long micros = TimestampFormatUtils.parseTimestamp("2008-05-15T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(micros));
+        TestUtils.assertEquals("2008-05-12T00:00:00.000Z", sink);
+    }
+
     @Test
     public void testFloorYYYY() throws Exception {
         long micros = TimestampFormatUtils.parseTimestamp("2008-05-12T23:45:51.045Z");